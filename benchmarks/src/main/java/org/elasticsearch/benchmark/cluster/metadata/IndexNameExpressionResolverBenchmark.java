@@ -0,0 +1,109 @@
+/*
+ * Licensed to Elasticsearch under one or more contributor
+ * license agreements. See the NOTICE file distributed with
+ * this work for additional information regarding copyright
+ * ownership. Elasticsearch licenses this file to you under
+ * the Apache License, Version 2.0 (the "License"); you may
+ * not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.elasticsearch.benchmark.cluster.metadata;
+
+import org.elasticsearch.Version;
+import org.elasticsearch.action.support.IndicesOptions;
+import org.elasticsearch.cluster.ClusterName;
+import org.elasticsearch.cluster.ClusterState;
+import org.elasticsearch.cluster.metadata.AliasMetaData;
+import org.elasticsearch.cluster.metadata.IndexMetaData;
+import org.elasticsearch.cluster.metadata.IndexNameExpressionResolver;
+import org.elasticsearch.cluster.metadata.MetaData;
+import org.elasticsearch.common.Strings;
+import org.elasticsearch.common.settings.Settings;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures resolving index expressions to concrete indices, as done by every search and bulk request on the coordinating node, against
+ * a cluster with many time based indices that each belong to one of 100 applications and are searched through a per application alias.
+ * Every tenth index is closed.
+ */
+@Fork(3)
+@Warmup(iterations = 10)
+@Measurement(iterations = 10)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@State(Scope.Benchmark)
+@SuppressWarnings("unused") //invoked by benchmarking framework
+public class IndexNameExpressionResolverBenchmark {
+    // Do NOT make any field final (even if it is not annotated with @Param)! See also
+    // http://hg.openjdk.java.net/code-tools/jmh/file/tip/jmh-samples/src/main/java/org/openjdk/jmh/samples/JMHSample_10_ConstantFold.java
+
+    private static final int NUM_APPLICATIONS = 100;
+
+    @Param({"1000", "30000"})
+    public int numIndices = 30000;
+
+    @Param({
+        // match all
+        "_all",
+        // prefix wildcard, all indices of one application
+        "logs-app1-*",
+        // other wildcard, the same day across all applications
+        "*-7",
+        // alias
+        "app3",
+        // wildcard with exclusion
+        "logs-app1*,-logs-app11*"
+    })
+    public String expression = "_all";
+
+    private IndexNameExpressionResolver resolver;
+    private ClusterState clusterState;
+    private String[] indexExpressions;
+    private IndicesOptions indicesOptions;
+
+    @Setup
+    public void setUp() throws Exception {
+        MetaData.Builder metaData = MetaData.builder();
+        for (int i = 0; i < numIndices; i++) {
+            IndexMetaData.Builder indexMetaData = IndexMetaData.builder("logs-app" + (i % NUM_APPLICATIONS) + "-" + (i / NUM_APPLICATIONS))
+                .settings(Settings.builder().put(IndexMetaData.SETTING_VERSION_CREATED, Version.CURRENT))
+                .numberOfShards(1)
+                .numberOfReplicas(0)
+                .putAlias(AliasMetaData.builder("app" + (i % NUM_APPLICATIONS)));
+            if (i % 10 == 0) {
+                indexMetaData.state(IndexMetaData.State.CLOSE);
+            }
+            metaData.put(indexMetaData);
+        }
+        clusterState = ClusterState.builder(ClusterName.CLUSTER_NAME_SETTING.getDefault(Settings.EMPTY)).metaData(metaData).build();
+        resolver = new IndexNameExpressionResolver(Settings.EMPTY);
+        indexExpressions = Strings.splitStringByCommaToArray(expression);
+        indicesOptions = IndicesOptions.lenientExpandOpen();
+    }
+
+    @Benchmark
+    public String[] concreteIndexNames() {
+        return resolver.concreteIndexNames(clusterState, indicesOptions, indexExpressions);
+    }
+}
@@ -0,0 +1,206 @@
+/*
+ * Licensed to Elasticsearch under one or more contributor
+ * license agreements. See the NOTICE file distributed with
+ * this work for additional information regarding copyright
+ * ownership. Elasticsearch licenses this file to you under
+ * the Apache License, Version 2.0 (the "License"); you may
+ * not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.elasticsearch.benchmark.common.io.stream;
+
+import org.apache.lucene.search.ScoreDoc;
+import org.apache.lucene.search.TopDocs;
+import org.elasticsearch.common.bytes.BytesReference;
+import org.elasticsearch.common.io.stream.BytesStreamOutput;
+import org.elasticsearch.common.io.stream.NamedWriteableAwareStreamInput;
+import org.elasticsearch.common.io.stream.NamedWriteableRegistry;
+import org.elasticsearch.common.io.stream.StreamInput;
+import org.elasticsearch.common.lucene.Lucene;
+import org.elasticsearch.common.settings.Settings;
+import org.elasticsearch.search.DocValueFormat;
+import org.elasticsearch.search.SearchModule;
+import org.elasticsearch.search.aggregations.BucketOrder;
+import org.elasticsearch.search.aggregations.InternalAggregation;
+import org.elasticsearch.search.aggregations.InternalAggregations;
+import org.elasticsearch.search.aggregations.bucket.terms.LongTerms;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures (de-)serialization of primitives, primitive arrays and some of the {@link org.elasticsearch.common.io.stream.Writeable}s that
+ * dominate search responses on the transport layer.
+ */
+@Fork(3)
+@Warmup(iterations = 10)
+@Measurement(iterations = 10)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@State(Scope.Benchmark)
+@SuppressWarnings("unused") //invoked by benchmarking framework
+public class StreamBenchmark {
+    // Do NOT make any field final (even if it is not annotated with @Param)! See also
+    // http://hg.openjdk.java.net/code-tools/jmh/file/tip/jmh-samples/src/main/java/org/openjdk/jmh/samples/JMHSample_10_ConstantFold.java
+
+    @Param({"10", "1000", "100000"})
+    public int size = 1000;
+
+    private long[] longs;
+    private long[] vLongs;
+    private double[] doubles;
+    private TopDocs topDocs;
+    private LongTerms longTerms;
+    private NamedWriteableRegistry namedWriteableRegistry;
+
+    private BytesStreamOutput out;
+    private BytesReference serializedVLongs;
+    private BytesReference serializedLongArray;
+    private BytesReference serializedVLongArray;
+    private BytesReference serializedDoubleArray;
+    private BytesReference serializedTopDocs;
+    private BytesReference serializedLongTerms;
+
+    @Setup
+    public void setUp() throws IOException {
+        Random random = new Random(42);
+        longs = new long[size];
+        vLongs = new long[size];
+        doubles = new double[size];
+        ScoreDoc[] scoreDocs = new ScoreDoc[size];
+        List<LongTerms.Bucket> buckets = new ArrayList<>(size);
+        for (int i = 0; i < size; i++) {
+            longs[i] = random.nextLong();
+            // mix all vlong lengths, skewed towards small values like doc counts and ordinals
+            vLongs[i] = (random.nextLong() & Long.MAX_VALUE) >>> random.nextInt(64);
+            doubles[i] = random.nextDouble();
+            scoreDocs[i] = new ScoreDoc(random.nextInt(Integer.MAX_VALUE), random.nextFloat(), random.nextInt(5));
+            buckets.add(new LongTerms.Bucket(vLongs[i], random.nextInt(100000), InternalAggregations.EMPTY, false, 0,
+                DocValueFormat.RAW));
+        }
+        topDocs = new TopDocs(size, scoreDocs, 1.0f);
+        longTerms = new LongTerms("terms", BucketOrder.count(false), size, 1, Collections.emptyList(), null, DocValueFormat.RAW,
+            size, false, 0, buckets, 0);
+        namedWriteableRegistry = new NamedWriteableRegistry(new SearchModule(Settings.EMPTY, false, Collections.emptyList())
+            .getNamedWriteables());
+
+        // every serialized form needs its own stream as resetting a stream recycles the pages that back its bytes
+        out = new BytesStreamOutput();
+        serializedVLongs = writeVLongs();
+        out = new BytesStreamOutput();
+        serializedLongArray = writeLongArray();
+        out = new BytesStreamOutput();
+        serializedVLongArray = writeVLongArray();
+        out = new BytesStreamOutput();
+        serializedDoubleArray = writeDoubleArray();
+        out = new BytesStreamOutput();
+        serializedTopDocs = writeTopDocs();
+        out = new BytesStreamOutput();
+        serializedLongTerms = writeLongTerms();
+        out = new BytesStreamOutput();
+    }
+
+    @Benchmark
+    public BytesReference writeVLongs() throws IOException {
+        out.reset();
+        for (long value : vLongs) {
+            out.writeVLong(value);
+        }
+        return out.bytes();
+    }
+
+    @Benchmark
+    public long readVLongs() throws IOException {
+        StreamInput in = serializedVLongs.streamInput();
+        long sum = 0;
+        for (int i = 0; i < size; i++) {
+            sum += in.readVLong();
+        }
+        return sum;
+    }
+
+    @Benchmark
+    public BytesReference writeLongArray() throws IOException {
+        out.reset();
+        out.writeLongArray(longs);
+        return out.bytes();
+    }
+
+    @Benchmark
+    public long[] readLongArray() throws IOException {
+        return serializedLongArray.streamInput().readLongArray();
+    }
+
+    @Benchmark
+    public BytesReference writeVLongArray() throws IOException {
+        out.reset();
+        out.writeVLongArray(vLongs);
+        return out.bytes();
+    }
+
+    @Benchmark
+    public long[] readVLongArray() throws IOException {
+        return serializedVLongArray.streamInput().readVLongArray();
+    }
+
+    @Benchmark
+    public BytesReference writeDoubleArray() throws IOException {
+        out.reset();
+        out.writeDoubleArray(doubles);
+        return out.bytes();
+    }
+
+    @Benchmark
+    public double[] readDoubleArray() throws IOException {
+        return serializedDoubleArray.streamInput().readDoubleArray();
+    }
+
+    @Benchmark
+    public BytesReference writeTopDocs() throws IOException {
+        out.reset();
+        Lucene.writeTopDocs(out, topDocs);
+        return out.bytes();
+    }
+
+    @Benchmark
+    public TopDocs readTopDocs() throws IOException {
+        return Lucene.readTopDocs(serializedTopDocs.streamInput());
+    }
+
+    @Benchmark
+    public BytesReference writeLongTerms() throws IOException {
+        out.reset();
+        out.writeNamedWriteable(longTerms);
+        return out.bytes();
+    }
+
+    @Benchmark
+    public InternalAggregation readLongTerms() throws IOException {
+        StreamInput in = new NamedWriteableAwareStreamInput(serializedLongTerms.streamInput(), namedWriteableRegistry);
+        return in.readNamedWriteable(InternalAggregation.class);
+    }
+}
@@ -0,0 +1,123 @@
+/*
+ * Licensed to Elasticsearch under one or more contributor
+ * license agreements. See the NOTICE file distributed with
+ * this work for additional information regarding copyright
+ * ownership. Elasticsearch licenses this file to you under
+ * the Apache License, Version 2.0 (the "License"); you may
+ * not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.elasticsearch.benchmark.gateway;
+
+import org.apache.logging.log4j.Logger;
+import org.apache.lucene.util.IOUtils;
+import org.elasticsearch.Version;
+import org.elasticsearch.cluster.ClusterModule;
+import org.elasticsearch.cluster.metadata.IndexMetaData;
+import org.elasticsearch.cluster.metadata.MetaData;
+import org.elasticsearch.common.logging.ESLoggerFactory;
+import org.elasticsearch.common.settings.Settings;
+import org.elasticsearch.common.xcontent.NamedXContentRegistry;
+import org.elasticsearch.gateway.MetaDataLog;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.IOException;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures loading the metadata of a master eligible node on startup, either from a state file per index, which is what nodes do by
+ * default, or from the {@link MetaDataLog}.
+ */
+@Fork(3)
+@Warmup(iterations = 5)
+@Measurement(iterations = 5)
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@State(Scope.Benchmark)
+@SuppressWarnings("unused") //invoked by benchmarking framework
+public class MetaDataLoadBenchmark {
+    // Do NOT make any field final (even if it is not annotated with @Param)! See also
+    // http://hg.openjdk.java.net/code-tools/jmh/file/tip/jmh-samples/src/main/java/org/openjdk/jmh/samples/JMHSample_10_ConstantFold.java
+
+    @Param({"50000"})
+    public int numIndices = 50000;
+
+    @Param({"state_files", "metadata_log"})
+    public String storage = "metadata_log";
+
+    private Logger logger = ESLoggerFactory.getLogger(MetaDataLoadBenchmark.class);
+    private NamedXContentRegistry xContentRegistry = new NamedXContentRegistry(ClusterModule.getNamedXWriteables());
+    private Path dataPath;
+    private MetaDataLog metaDataLog;
+
+    @Setup
+    public void setUp() throws Exception {
+        dataPath = Files.createTempDirectory("metadata-load-benchmark");
+        MetaData.Builder metaData = MetaData.builder();
+        for (int i = 0; i < numIndices; i++) {
+            metaData.put(IndexMetaData.builder("index-" + i)
+                .settings(Settings.builder()
+                    .put(IndexMetaData.SETTING_VERSION_CREATED, Version.CURRENT)
+                    .put(IndexMetaData.SETTING_INDEX_UUID, "uuid-" + i))
+                .numberOfShards(5)
+                .numberOfReplicas(1)
+                .build(), false);
+        }
+        if (storage.equals("metadata_log")) {
+            metaDataLog = new MetaDataLog(logger, xContentRegistry, dataPath);
+            metaDataLog.writeSnapshot(metaData.build());
+        } else if (storage.equals("state_files")) {
+            for (IndexMetaData indexMetaData : metaData.build()) {
+                IndexMetaData.FORMAT.write(indexMetaData, dataPath.resolve("indices").resolve(indexMetaData.getIndexUUID()));
+            }
+        } else {
+            throw new IllegalArgumentException("Unknown storage [" + storage + "]");
+        }
+    }
+
+    @TearDown
+    public void tearDown() throws IOException {
+        IOUtils.rm(dataPath);
+    }
+
+    @Benchmark
+    public MetaData load() throws IOException {
+        if (metaDataLog != null) {
+            return metaDataLog.load();
+        }
+        // mimics loading the indices in MetaStateService#loadFullState
+        MetaData.Builder metaData = MetaData.builder();
+        try (DirectoryStream<Path> indexFolders = Files.newDirectoryStream(dataPath.resolve("indices"))) {
+            for (Path indexFolder : indexFolders) {
+                IndexMetaData indexMetaData = IndexMetaData.FORMAT.loadLatestState(logger, xContentRegistry, indexFolder);
+                if (indexMetaData != null) {
+                    metaData.put(indexMetaData, false);
+                }
+            }
+        }
+        return metaData.build();
+    }
+}
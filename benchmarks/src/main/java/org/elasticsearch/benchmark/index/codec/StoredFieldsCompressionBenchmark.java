@@ -0,0 +1,130 @@
+/*
+ * Licensed to Elasticsearch under one or more contributor
+ * license agreements. See the NOTICE file distributed with
+ * this work for additional information regarding copyright
+ * ownership. Elasticsearch licenses this file to you under
+ * the Apache License, Version 2.0 (the "License"); you may
+ * not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.elasticsearch.benchmark.index.codec;
+
+import org.apache.logging.log4j.Logger;
+import org.apache.lucene.document.Document;
+import org.apache.lucene.document.StoredField;
+import org.apache.lucene.index.DirectoryReader;
+import org.apache.lucene.index.IndexWriter;
+import org.apache.lucene.index.IndexWriterConfig;
+import org.apache.lucene.store.Directory;
+import org.apache.lucene.store.FSDirectory;
+import org.apache.lucene.util.BytesRef;
+import org.apache.lucene.util.IOUtils;
+import org.elasticsearch.common.logging.ESLoggerFactory;
+import org.elasticsearch.index.codec.CodecService;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Locale;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures retrieving the stored fields of random documents of a log-like corpus with the codecs that can be set with
+ * <code>index.codec</code>. The size of the stored fields on disk of each codec is printed when the index is built.
+ */
+@Fork(3)
+@Warmup(iterations = 10)
+@Measurement(iterations = 10)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@State(Scope.Benchmark)
+@SuppressWarnings("unused") //invoked by benchmarking framework
+public class StoredFieldsCompressionBenchmark {
+    // Do NOT make any field final (even if it is not annotated with @Param)! See also
+    // http://hg.openjdk.java.net/code-tools/jmh/file/tip/jmh-samples/src/main/java/org/openjdk/jmh/samples/JMHSample_10_ConstantFold.java
+
+    private static final String[] LEVELS = {"DEBUG", "INFO", "INFO", "INFO", "WARN", "ERROR"};
+    private static final String[] SERVICES = {"frontend", "checkout", "payment", "inventory", "search"};
+    private static final String[] MESSAGES = {
+        "request completed", "connection reset by peer", "cache miss for key", "retrying request after timeout",
+        "user logged in", "slow query detected"
+    };
+
+    @Param({"default", "best_compression", "dictionary_compression"})
+    public String codec = "default";
+
+    @Param({"100000"})
+    public int numDocs = 100000;
+
+    private Path path;
+    private Directory directory;
+    private DirectoryReader reader;
+    private Random random;
+
+    @Setup
+    public void setUp() throws Exception {
+        Logger logger = ESLoggerFactory.getLogger(StoredFieldsCompressionBenchmark.class);
+        path = Files.createTempDirectory("stored-fields-compression");
+        directory = FSDirectory.open(path);
+        IndexWriterConfig iwc = new IndexWriterConfig(null);
+        iwc.setCodec(new CodecService(null, logger).codec(codec));
+        Random corpusRandom = new Random(42);
+        try (IndexWriter writer = new IndexWriter(directory, iwc)) {
+            for (int i = 0; i < numDocs; i++) {
+                Document document = new Document();
+                document.add(new StoredField("_source", new BytesRef(logLine(corpusRandom, i))));
+                writer.addDocument(document);
+            }
+            writer.forceMerge(1);
+        }
+        long storedFieldsSize = 0;
+        for (String file : directory.listAll()) {
+            if (file.endsWith(".fdt") || file.endsWith(".fdx")) {
+                storedFieldsSize += directory.fileLength(file);
+            }
+        }
+        logger.info("stored fields of [{}] documents with codec [{}] take [{}] bytes", numDocs, codec, storedFieldsSize);
+        reader = DirectoryReader.open(directory);
+        random = new Random(0);
+    }
+
+    private static String logLine(Random random, int i) {
+        return "{\"@timestamp\":\"2017-06-01T" + String.format(Locale.ROOT, "%02d:%02d:%02d.%03dZ", (i / 3600000) % 24,
+            (i / 60000) % 60, (i / 1000) % 60, i % 1000) + "\",\"level\":\"" + LEVELS[random.nextInt(LEVELS.length)]
+            + "\",\"service\":\"" + SERVICES[random.nextInt(SERVICES.length)] + "\",\"host\":\"host-" + random.nextInt(50)
+            + "\",\"message\":\"" + MESSAGES[random.nextInt(MESSAGES.length)] + "\",\"duration_ms\":" + random.nextInt(5000)
+            + ",\"trace_id\":\"" + Long.toHexString(random.nextLong()) + "\"}";
+    }
+
+    @TearDown
+    public void tearDown() throws Exception {
+        IOUtils.close(reader, directory);
+        IOUtils.rm(path);
+    }
+
+    @Benchmark
+    public Document retrieveDocument() throws Exception {
+        return reader.document(random.nextInt(numDocs));
+    }
+}
@@ -0,0 +1,181 @@
+/*
+ * Licensed to Elasticsearch under one or more contributor
+ * license agreements. See the NOTICE file distributed with
+ * this work for additional information regarding copyright
+ * ownership. Elasticsearch licenses this file to you under
+ * the Apache License, Version 2.0 (the "License"); you may
+ * not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.elasticsearch.benchmark.index.mapper;
+
+import org.apache.lucene.analysis.Analyzer;
+import org.apache.lucene.analysis.TokenStream;
+import org.apache.lucene.analysis.miscellaneous.PerFieldAnalyzerWrapper;
+import org.apache.lucene.analysis.standard.StandardAnalyzer;
+import org.apache.lucene.document.Document;
+import org.apache.lucene.document.Field;
+import org.apache.lucene.index.DirectoryReader;
+import org.apache.lucene.index.IndexWriter;
+import org.apache.lucene.index.IndexWriterConfig;
+import org.apache.lucene.search.IndexSearcher;
+import org.apache.lucene.search.Query;
+import org.apache.lucene.store.Directory;
+import org.apache.lucene.store.RAMDirectory;
+import org.elasticsearch.Version;
+import org.elasticsearch.cluster.metadata.IndexMetaData;
+import org.elasticsearch.common.settings.Settings;
+import org.elasticsearch.index.analysis.AnalyzerScope;
+import org.elasticsearch.index.analysis.NamedAnalyzer;
+import org.elasticsearch.index.mapper.ContentPath;
+import org.elasticsearch.index.mapper.FieldMapper;
+import org.elasticsearch.index.mapper.Mapper;
+import org.elasticsearch.index.mapper.TextFieldMapper;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.IOException;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures prefix and exact phrase queries on a <code>text</code> field, with and without the <code>index_prefixes</code> and
+ * <code>index_phrases</code> options that index the prefixes and the two-term shingles of the field into hidden sub-fields.
+ */
+@Fork(3)
+@Warmup(iterations = 10)
+@Measurement(iterations = 10)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@State(Scope.Benchmark)
+@SuppressWarnings("unused") //invoked by benchmarking framework
+public class TextPrefixPhraseBenchmark {
+    // Do NOT make any field final (even if it is not annotated with @Param)! See also
+    // http://hg.openjdk.java.net/code-tools/jmh/file/tip/jmh-samples/src/main/java/org/openjdk/jmh/samples/JMHSample_10_ConstantFold.java
+
+    @Param({"false", "true"})
+    public boolean indexPrefixesAndPhrases = false;
+
+    @Param({"100000"})
+    public int numDocs = 100000;
+
+    @Param({"20"})
+    public int wordsPerDoc = 20;
+
+    @Param({"10000"})
+    public int numWords = 10000;
+
+    private Directory directory;
+    private DirectoryReader reader;
+    private IndexSearcher searcher;
+    private TextFieldMapper.TextFieldType fieldType;
+    private Analyzer searchAnalyzer;
+    private String[] prefixes;
+    private String[] phrases;
+    private int query;
+
+    @Setup
+    public void setUp() throws IOException {
+        Random random = new Random(42);
+        String[] words = new String[numWords];
+        for (int i = 0; i < numWords; i++) {
+            char[] chars = new char[3 + random.nextInt(8)];
+            for (int j = 0; j < chars.length; j++) {
+                chars[j] = (char) ('a' + random.nextInt(26));
+            }
+            words[i] = new String(chars);
+        }
+
+        NamedAnalyzer analyzer = new NamedAnalyzer("standard", AnalyzerScope.INDEX, new StandardAnalyzer());
+        TextFieldMapper.Builder builder = new TextFieldMapper.Builder("field");
+        builder.indexAnalyzer(analyzer).searchAnalyzer(analyzer).searchQuoteAnalyzer(analyzer);
+        if (indexPrefixesAndPhrases) {
+            builder.indexPrefixes(TextFieldMapper.Defaults.INDEX_PREFIX_MIN_CHARS, TextFieldMapper.Defaults.INDEX_PREFIX_MAX_CHARS);
+            builder.indexPhrases(true);
+        }
+        Settings settings = Settings.builder().put(IndexMetaData.SETTING_VERSION_CREATED, Version.CURRENT).build();
+        TextFieldMapper mapper = builder.build(new Mapper.BuilderContext(settings, new ContentPath()));
+        fieldType = mapper.fieldType();
+        searchAnalyzer = fieldType.searchQuoteAnalyzer();
+
+        // the hidden sub-fields are indexed with the analyzers of their mappers, like the document parser does
+        Map<String, Analyzer> analyzers = new HashMap<>();
+        for (Mapper subMapper : mapper) {
+            FieldMapper subFieldMapper = (FieldMapper) subMapper;
+            analyzers.put(subFieldMapper.name(), subFieldMapper.fieldType().indexAnalyzer());
+        }
+        prefixes = new String[100];
+        phrases = new String[100];
+        directory = new RAMDirectory();
+        try (IndexWriter writer = new IndexWriter(directory,
+                new IndexWriterConfig(new PerFieldAnalyzerWrapper(fieldType.indexAnalyzer(), analyzers)))) {
+            StringBuilder text = new StringBuilder();
+            for (int i = 0; i < numDocs; i++) {
+                text.setLength(0);
+                String previous = null;
+                for (int j = 0; j < wordsPerDoc; j++) {
+                    String word = words[random.nextInt(numWords)];
+                    text.append(word).append(' ');
+                    // queries use phrases that are in the index and the prefixes of indexed words
+                    if (i < phrases.length && j == 1) {
+                        phrases[i] = previous + " " + word;
+                        prefixes[i] = word.substring(0, 3);
+                    }
+                    previous = word;
+                }
+                Document document = new Document();
+                document.add(new Field(mapper.name(), text.toString(), fieldType));
+                for (Mapper subMapper : mapper) {
+                    FieldMapper subFieldMapper = (FieldMapper) subMapper;
+                    document.add(new Field(subFieldMapper.name(), text.toString(), subFieldMapper.fieldType()));
+                }
+                writer.addDocument(document);
+            }
+            writer.forceMerge(1);
+        }
+        reader = DirectoryReader.open(directory);
+        searcher = new IndexSearcher(reader);
+    }
+
+    @TearDown
+    public void tearDown() throws IOException {
+        reader.close();
+        directory.close();
+    }
+
+    @Benchmark
+    public int prefixQuery() throws IOException {
+        Query prefixQuery = fieldType.prefixQuery(prefixes[query++ % prefixes.length], null, null);
+        return searcher.count(prefixQuery);
+    }
+
+    @Benchmark
+    public int phraseQuery() throws IOException {
+        Query phraseQuery;
+        try (TokenStream stream = searchAnalyzer.tokenStream(fieldType.name(), phrases[query++ % phrases.length])) {
+            phraseQuery = fieldType.phraseQuery(fieldType.name(), stream, 0, true);
+        }
+        return searcher.count(phraseQuery);
+    }
+}
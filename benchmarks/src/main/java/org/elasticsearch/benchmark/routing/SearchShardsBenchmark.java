@@ -0,0 +1,125 @@
+/*
+ * Licensed to Elasticsearch under one or more contributor
+ * license agreements. See the NOTICE file distributed with
+ * this work for additional information regarding copyright
+ * ownership. Elasticsearch licenses this file to you under
+ * the Apache License, Version 2.0 (the "License"); you may
+ * not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.elasticsearch.benchmark.routing;
+
+import org.elasticsearch.Version;
+import org.elasticsearch.cluster.ClusterName;
+import org.elasticsearch.cluster.ClusterState;
+import org.elasticsearch.cluster.metadata.IndexMetaData;
+import org.elasticsearch.cluster.metadata.MetaData;
+import org.elasticsearch.cluster.routing.GroupShardsIterator;
+import org.elasticsearch.cluster.routing.IndexRoutingTable;
+import org.elasticsearch.cluster.routing.IndexShardRoutingTable;
+import org.elasticsearch.cluster.routing.OperationRouting;
+import org.elasticsearch.cluster.routing.RecoverySource;
+import org.elasticsearch.cluster.routing.RoutingTable;
+import org.elasticsearch.cluster.routing.ShardIterator;
+import org.elasticsearch.cluster.routing.ShardRouting;
+import org.elasticsearch.cluster.routing.UnassignedInfo;
+import org.elasticsearch.common.settings.ClusterSettings;
+import org.elasticsearch.common.settings.Settings;
+import org.elasticsearch.index.shard.ShardId;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures resolving the shard copies a search across all indices of a large cluster is sent to. Run with <code>-prof gc</code> to see
+ * the memory that is allocated per search request.
+ */
+@Fork(3)
+@Warmup(iterations = 10)
+@Measurement(iterations = 10)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@State(Scope.Benchmark)
+@SuppressWarnings("unused") //invoked by benchmarking framework
+public class SearchShardsBenchmark {
+    // Do NOT make any field final (even if it is not annotated with @Param)! See also
+    // http://hg.openjdk.java.net/code-tools/jmh/file/tip/jmh-samples/src/main/java/org/openjdk/jmh/samples/JMHSample_10_ConstantFold.java
+
+    @Param({"1000", "10000", "30000"})
+    public int numIndices = 1000;
+
+    @Param({"1", "5"})
+    public int numShards = 1;
+
+    @Param({"1"})
+    public int numReplicas = 1;
+
+    @Param({"10"})
+    public int numNodes = 10;
+
+    private ClusterState clusterState;
+    private String[] concreteIndices;
+    private OperationRouting operationRouting;
+
+    @Setup
+    public void setUp() throws Exception {
+        // builds the routing table directly, allocating this many shards with the allocation service would take ages
+        MetaData.Builder metaData = MetaData.builder();
+        RoutingTable.Builder routingTable = RoutingTable.builder();
+        concreteIndices = new String[numIndices];
+        int node = 0;
+        for (int i = 0; i < numIndices; i++) {
+            IndexMetaData indexMetaData = IndexMetaData.builder("index-" + i)
+                .settings(Settings.builder().put(IndexMetaData.SETTING_VERSION_CREATED, Version.CURRENT))
+                .numberOfShards(numShards)
+                .numberOfReplicas(numReplicas)
+                .build();
+            metaData.put(indexMetaData, false);
+            concreteIndices[i] = indexMetaData.getIndex().getName();
+            IndexRoutingTable.Builder indexRoutingTable = IndexRoutingTable.builder(indexMetaData.getIndex());
+            for (int shard = 0; shard < numShards; shard++) {
+                ShardId shardId = new ShardId(indexMetaData.getIndex(), shard);
+                IndexShardRoutingTable.Builder shardRoutingTable = new IndexShardRoutingTable.Builder(shardId);
+                for (int copy = 0; copy <= numReplicas; copy++) {
+                    RecoverySource recoverySource = copy == 0 ? RecoverySource.StoreRecoverySource.EMPTY_STORE_INSTANCE
+                        : RecoverySource.PeerRecoverySource.INSTANCE;
+                    ShardRouting shardRouting = ShardRouting.newUnassigned(shardId, copy == 0, recoverySource,
+                        new UnassignedInfo(UnassignedInfo.Reason.INDEX_CREATED, null));
+                    shardRoutingTable.addShard(shardRouting.initialize("node_" + (node++ % numNodes), null, 0).moveToStarted());
+                }
+                indexRoutingTable.addIndexShard(shardRoutingTable.build());
+            }
+            routingTable.add(indexRoutingTable);
+        }
+        clusterState = ClusterState.builder(ClusterName.CLUSTER_NAME_SETTING.getDefault(Settings.EMPTY))
+            .metaData(metaData)
+            .routingTable(routingTable.build())
+            .build();
+        operationRouting = new OperationRouting(Settings.EMPTY, new ClusterSettings(Settings.EMPTY,
+            ClusterSettings.BUILT_IN_CLUSTER_SETTINGS));
+    }
+
+    @Benchmark
+    public GroupShardsIterator<ShardIterator> searchShards() {
+        return operationRouting.searchShards(clusterState, concreteIndices, null, null);
+    }
+}
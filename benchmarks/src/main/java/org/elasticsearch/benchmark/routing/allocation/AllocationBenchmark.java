@@ -19,14 +19,21 @@
 package org.elasticsearch.benchmark.routing.allocation;
 
 import org.elasticsearch.Version;
+import org.elasticsearch.cluster.ClusterInfo;
 import org.elasticsearch.cluster.ClusterName;
 import org.elasticsearch.cluster.ClusterState;
 import org.elasticsearch.cluster.metadata.IndexMetaData;
 import org.elasticsearch.cluster.metadata.MetaData;
 import org.elasticsearch.cluster.node.DiscoveryNodes;
+import org.elasticsearch.cluster.routing.RoutingNodes;
 import org.elasticsearch.cluster.routing.RoutingTable;
+import org.elasticsearch.cluster.routing.ShardRouting;
 import org.elasticsearch.cluster.routing.ShardRoutingState;
 import org.elasticsearch.cluster.routing.allocation.AllocationService;
+import org.elasticsearch.cluster.routing.allocation.RoutingAllocation;
+import org.elasticsearch.cluster.routing.allocation.allocator.BalancedShardsAllocator;
+import org.elasticsearch.cluster.routing.allocation.decider.AllocationDeciders;
+import org.elasticsearch.common.settings.ClusterSettings;
 import org.elasticsearch.common.settings.Settings;
 import org.openjdk.jmh.annotations.Benchmark;
 import org.openjdk.jmh.annotations.BenchmarkMode;
@@ -38,9 +45,12 @@ import org.openjdk.jmh.annotations.Param;
 import org.openjdk.jmh.annotations.Scope;
 import org.openjdk.jmh.annotations.Setup;
 import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
 import org.openjdk.jmh.annotations.Warmup;
 
 import java.util.Collections;
+import java.util.List;
+import java.util.Map;
 import java.util.concurrent.TimeUnit;
 
 @Fork(3)
@@ -106,14 +116,23 @@ public class AllocationBenchmark {
         "       10|     10|        2|    50",
         "      100|      1|        2|    50",
         "      100|      3|        2|    50",
-        "      100|     10|        2|    50"
+        "      100|     10|        2|    50",
+
+        // large clusters with 10k to 100k shards
+        "     2000|      5|        0|   100",
+        "     2000|      5|        1|   100",
+        "     5000|      5|        1|   200",
+        "    10000|      5|        1|   200"
     })
     public String indicesShardsReplicasNodes = "10|1|0|1";
 
     public int numTags = 2;
 
+    private Settings settings;
     private AllocationService strategy;
+    private AllocationDeciders deciders;
     private ClusterState initialClusterState;
+    private ClusterState allocatedClusterState;
 
     @Setup
     public void setUp() throws Exception {
@@ -124,9 +143,12 @@ public class AllocationBenchmark {
         int numReplicas = toInt(params[2]);
         int numNodes = toInt(params[3]);
 
-        strategy = Allocators.createAllocationService(Settings.builder()
+        settings = Settings.builder()
                 .put("cluster.routing.allocation.awareness.attributes", "tag")
-                .build());
+                .build();
+        strategy = Allocators.createAllocationService(settings);
+        deciders = Allocators.defaultAllocationDeciders(settings, new ClusterSettings(Settings.EMPTY,
+            ClusterSettings.BUILT_IN_CLUSTER_SETTINGS));
 
         MetaData.Builder mb = MetaData.builder();
         for (int i = 1; i <= numIndices; i++) {
@@ -149,15 +171,20 @@ public class AllocationBenchmark {
         initialClusterState = ClusterState.builder(ClusterName.CLUSTER_NAME_SETTING.getDefault(Settings.EMPTY))
             .metaData(metaData).routingTable(routingTable).nodes
                 (nb).build();
+        // start all shards and complete rebalancing so that measureReroute starts from a stable cluster
+        ClusterState clusterState = allocateAll(initialClusterState);
+        List<ShardRouting> initializingShards;
+        while ((initializingShards = clusterState.getRoutingNodes().shardsWithState(ShardRoutingState.INITIALIZING)).isEmpty() == false) {
+            clusterState = strategy.applyStartedShards(clusterState, initializingShards);
+        }
+        allocatedClusterState = clusterState;
     }
 
     private int toInt(String v) {
         return Integer.valueOf(v.trim());
     }
 
-    @Benchmark
-    public ClusterState measureAllocation() {
-        ClusterState clusterState = initialClusterState;
+    private ClusterState allocateAll(ClusterState clusterState) {
         while (clusterState.getRoutingNodes().hasUnassignedShards()) {
             clusterState = strategy.applyStartedShards(clusterState, clusterState.getRoutingNodes()
                     .shardsWithState(ShardRoutingState.INITIALIZING));
@@ -165,4 +192,41 @@ public class AllocationBenchmark {
         }
         return clusterState;
     }
+
+    @Benchmark
+    public ClusterState measureAllocation() {
+        return allocateAll(initialClusterState);
+    }
+
+    /**
+     * Measures a reroute of a cluster whose shards are all assigned, which is what the master executes on most cluster state updates.
+     */
+    @Benchmark
+    public ClusterState measureReroute() {
+        return strategy.reroute(allocatedClusterState, "reroute");
+    }
+
+    /**
+     * Prints the time spent in each allocation decider when allocating all shards of the initial cluster state and when rerouting the
+     * allocated cluster state, so that expensive deciders can be spotted next to the benchmark results.
+     */
+    @TearDown
+    public void printDeciderTimings() {
+        printDeciderTimings("allocation", initialClusterState);
+        printDeciderTimings("reroute", allocatedClusterState);
+    }
+
+    private void printDeciderTimings(String operation, ClusterState clusterState) {
+        RoutingAllocation allocation = new RoutingAllocation(deciders, new RoutingNodes(clusterState, false), clusterState,
+            ClusterInfo.EMPTY, System.nanoTime(), false);
+        allocation.profileDeciders(true);
+        new BalancedShardsAllocator(settings).allocate(allocation);
+        StringBuilder sb = new StringBuilder("decider timings for [").append(operation).append("] with [")
+            .append(indicesShardsReplicasNodes).append("]:");
+        allocation.getDeciderTimings().entrySet().stream()
+            .sorted(Map.Entry.<String, Long>comparingByValue().reversed())
+            .forEach(e -> sb.append(System.lineSeparator()).append("  ").append(e.getKey()).append(": ")
+                .append(TimeUnit.NANOSECONDS.toMicros(e.getValue())).append("us"));
+        System.out.println(sb);
+    }
 }
@@ -0,0 +1,163 @@
+/*
+ * Licensed to Elasticsearch under one or more contributor
+ * license agreements. See the NOTICE file distributed with
+ * this work for additional information regarding copyright
+ * ownership. Elasticsearch licenses this file to you under
+ * the Apache License, Version 2.0 (the "License"); you may
+ * not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.elasticsearch.benchmark.search;
+
+import org.apache.lucene.document.Document;
+import org.apache.lucene.document.Field;
+import org.apache.lucene.document.SortedSetDocValuesField;
+import org.apache.lucene.document.StringField;
+import org.apache.lucene.index.DirectoryReader;
+import org.apache.lucene.index.IndexWriter;
+import org.apache.lucene.index.IndexWriterConfig;
+import org.apache.lucene.index.PrefixCodedTerms;
+import org.apache.lucene.index.Term;
+import org.apache.lucene.search.BooleanClause.Occur;
+import org.apache.lucene.search.BooleanQuery;
+import org.apache.lucene.search.IndexSearcher;
+import org.apache.lucene.search.Query;
+import org.apache.lucene.search.TermInSetQuery;
+import org.apache.lucene.search.TermQuery;
+import org.apache.lucene.store.Directory;
+import org.apache.lucene.store.RAMDirectory;
+import org.apache.lucene.util.BytesRef;
+import org.elasticsearch.common.bytes.BytesReference;
+import org.elasticsearch.common.lucene.BytesRefs;
+import org.elasticsearch.common.xcontent.XContentBuilder;
+import org.elasticsearch.common.xcontent.XContentFactory;
+import org.elasticsearch.common.xcontent.XContentHelper;
+import org.elasticsearch.common.xcontent.XContentType;
+import org.elasticsearch.common.xcontent.support.XContentMapValues;
+import org.elasticsearch.index.search.PrefixCodedTermsQuery;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.IOException;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Compares a <code>terms</code> query whose terms are looked up in a large document, like an access control list, when the looked up
+ * source is parsed into a {@link TermInSetQuery} on every request and when the terms are taken from the terms lookup cache as a
+ * {@link PrefixCodedTermsQuery}. The get of the looked up document is not part of the measurement.
+ */
+@Fork(3)
+@Warmup(iterations = 10)
+@Measurement(iterations = 10)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@State(Scope.Benchmark)
+@SuppressWarnings("unused") //invoked by benchmarking framework
+public class TermsLookupBenchmark {
+    // Do NOT make any field final (even if it is not annotated with @Param)! See also
+    // http://hg.openjdk.java.net/code-tools/jmh/file/tip/jmh-samples/src/main/java/org/openjdk/jmh/samples/JMHSample_10_ConstantFold.java
+
+    @Param({"1000000"})
+    public int numDocs = 1000000;
+
+    @Param({"50000", "200000"})
+    public int numTerms = 50000;
+
+    @Param({"false", "true"})
+    public boolean filtered = false;
+
+    private Directory directory;
+    private DirectoryReader reader;
+    private IndexSearcher searcher;
+    private BytesReference source;
+    private PrefixCodedTerms cachedTerms;
+    private int query;
+
+    @Setup
+    public void setUp() throws IOException {
+        Random random = new Random(42);
+        directory = new RAMDirectory();
+        try (IndexWriter writer = new IndexWriter(directory, new IndexWriterConfig())) {
+            for (int i = 0; i < numDocs; i++) {
+                Document document = new Document();
+                // a keyword field, indexed with doc values, that holds the id of the owner of the document
+                BytesRef owner = new BytesRef(ownerId(random.nextInt(numDocs / 10)));
+                document.add(new StringField("owner", owner, Field.Store.NO));
+                document.add(new SortedSetDocValuesField("owner", owner));
+                // a hundredth of the documents match the query that the terms filter
+                document.add(new StringField("bucket", Integer.toString(random.nextInt(100)), Field.Store.NO));
+                writer.addDocument(document);
+            }
+            writer.forceMerge(1);
+        }
+        reader = DirectoryReader.open(directory);
+        searcher = new IndexSearcher(reader);
+        // the cost of building the query is what is measured, not the one of reusing it
+        searcher.setQueryCache(null);
+
+        XContentBuilder builder = XContentFactory.jsonBuilder().startObject().startArray("owners");
+        BytesRef[] terms = new BytesRef[numTerms];
+        for (int i = 0; i < numTerms; i++) {
+            String owner = ownerId(random.nextInt(numDocs / 10));
+            builder.value(owner);
+            terms[i] = new BytesRef(owner);
+        }
+        source = builder.endArray().endObject().bytes();
+        cachedTerms = PrefixCodedTermsQuery.encode(terms);
+    }
+
+    private static String ownerId(int owner) {
+        return "user-" + owner;
+    }
+
+    @TearDown
+    public void tearDown() throws IOException {
+        reader.close();
+        directory.close();
+    }
+
+    private int count(Query termsQuery) throws IOException {
+        if (filtered) {
+            Query bucket = new TermQuery(new Term("bucket", Integer.toString(query++ % 100)));
+            return searcher.count(new BooleanQuery.Builder().add(bucket, Occur.MUST).add(termsQuery, Occur.FILTER).build());
+        }
+        return searcher.count(termsQuery);
+    }
+
+    @Benchmark
+    public int parsedTermInSetQuery() throws IOException {
+        List<Object> values = XContentMapValues.extractRawValues("owners",
+            XContentHelper.convertToMap(source, false, XContentType.JSON).v2());
+        BytesRef[] terms = new BytesRef[values.size()];
+        for (int i = 0; i < terms.length; i++) {
+            terms[i] = BytesRefs.toBytesRef(values.get(i));
+        }
+        return count(new TermInSetQuery("owner", terms));
+    }
+
+    @Benchmark
+    public int cachedPrefixCodedTermsQuery() throws IOException {
+        return count(new PrefixCodedTermsQuery("owner", cachedTerms, true));
+    }
+}
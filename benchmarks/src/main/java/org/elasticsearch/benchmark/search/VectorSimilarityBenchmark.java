@@ -0,0 +1,229 @@
+/*
+ * Licensed to Elasticsearch under one or more contributor
+ * license agreements. See the NOTICE file distributed with
+ * this work for additional information regarding copyright
+ * ownership. Elasticsearch licenses this file to you under
+ * the Apache License, Version 2.0 (the "License"); you may
+ * not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.elasticsearch.benchmark.search;
+
+import org.apache.lucene.document.BinaryDocValuesField;
+import org.apache.lucene.document.Document;
+import org.apache.lucene.document.Field;
+import org.apache.lucene.document.StringField;
+import org.apache.lucene.index.DirectoryReader;
+import org.apache.lucene.index.IndexWriter;
+import org.apache.lucene.index.IndexWriterConfig;
+import org.apache.lucene.index.LeafReaderContext;
+import org.apache.lucene.index.Term;
+import org.apache.lucene.search.Explanation;
+import org.apache.lucene.search.IndexSearcher;
+import org.apache.lucene.search.MatchAllDocsQuery;
+import org.apache.lucene.search.Query;
+import org.apache.lucene.search.TermQuery;
+import org.apache.lucene.search.TopDocs;
+import org.apache.lucene.store.Directory;
+import org.apache.lucene.store.RAMDirectory;
+import org.apache.lucene.util.BytesRef;
+import org.elasticsearch.common.lucene.search.function.CombineFunction;
+import org.elasticsearch.common.lucene.search.function.FunctionScoreQuery;
+import org.elasticsearch.common.lucene.search.function.LeafScoreFunction;
+import org.elasticsearch.common.lucene.search.function.ScoreFunction;
+import org.elasticsearch.index.Index;
+import org.elasticsearch.index.fielddata.AtomicFieldData;
+import org.elasticsearch.index.fielddata.IndexFieldData;
+import org.elasticsearch.index.fielddata.ScriptDocValues;
+import org.elasticsearch.index.fielddata.plain.BytesBinaryDVIndexFieldData;
+import org.elasticsearch.index.mapper.BinaryFieldMapper;
+import org.elasticsearch.index.search.VectorSimilarityQuery;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Compares the cosine similarity of a <code>dense_vector</code> field computed by a {@link VectorSimilarityQuery} with the way scripts
+ * compute it: a <code>function_score</code> query whose function reads the vector of a <code>binary</code> field through its script doc
+ * values and decodes it into an array for every document. The function is what a script compiles to, minus the script engine itself
+ * that isn't a dependency of the benchmarks, so the gap with an actual script is wider than the one measured here.
+ */
+@Fork(3)
+@Warmup(iterations = 10)
+@Measurement(iterations = 10)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@State(Scope.Benchmark)
+@SuppressWarnings("unused") //invoked by benchmarking framework
+public class VectorSimilarityBenchmark {
+    // Do NOT make any field final (even if it is not annotated with @Param)! See also
+    // http://hg.openjdk.java.net/code-tools/jmh/file/tip/jmh-samples/src/main/java/org/openjdk/jmh/samples/JMHSample_10_ConstantFold.java
+
+    @Param({"100000"})
+    public int numDocs = 100000;
+
+    @Param({"64", "256"})
+    public int dims = 64;
+
+    @Param({"false", "true"})
+    public boolean filtered = false;
+
+    private Directory directory;
+    private DirectoryReader reader;
+    private IndexSearcher searcher;
+    private IndexFieldData<?> binaryFieldData;
+    private float[][] queryVectors;
+    private int query;
+
+    @Setup
+    public void setUp() throws IOException {
+        Random random = new Random(42);
+        directory = new RAMDirectory();
+        try (IndexWriter writer = new IndexWriter(directory, new IndexWriterConfig())) {
+            for (int i = 0; i < numDocs; i++) {
+                float[] vector = randomVector(random);
+                byte[] encoded = new byte[VectorSimilarityQuery.encodedLength(dims)];
+                ByteBuffer raw = ByteBuffer.allocate(dims * Float.BYTES);
+                double squaredMagnitude = 0;
+                for (int j = 0; j < dims; j++) {
+                    VectorSimilarityQuery.encodeFloat(vector[j], encoded, j);
+                    raw.putFloat(vector[j]);
+                    squaredMagnitude += (double) vector[j] * vector[j];
+                }
+                VectorSimilarityQuery.encodeFloat((float) Math.sqrt(squaredMagnitude), encoded, dims);
+
+                Document document = new Document();
+                // a tenth of the documents match the filter
+                document.add(new StringField("bucket", Integer.toString(random.nextInt(10)), Field.Store.NO));
+                // the layout of a dense_vector field and the one of the binary field that scripts decode
+                document.add(new BinaryDocValuesField("vector", new BytesRef(encoded)));
+                document.add(new BinaryFieldMapper.CustomBinaryDocValuesField("vector_binary", raw.array()));
+                writer.addDocument(document);
+            }
+            writer.forceMerge(1);
+        }
+        reader = DirectoryReader.open(directory);
+        searcher = new IndexSearcher(reader);
+        binaryFieldData = new BytesBinaryDVIndexFieldData(new Index("index", "_na_"), "vector_binary");
+        queryVectors = new float[100][];
+        for (int i = 0; i < queryVectors.length; i++) {
+            queryVectors[i] = randomVector(random);
+        }
+    }
+
+    private float[] randomVector(Random random) {
+        float[] vector = new float[dims];
+        for (int i = 0; i < dims; i++) {
+            vector[i] = random.nextFloat() * 2 - 1;
+        }
+        return vector;
+    }
+
+    @TearDown
+    public void tearDown() throws IOException {
+        reader.close();
+        directory.close();
+    }
+
+    private Query filter() {
+        return filtered ? new TermQuery(new Term("bucket", "0")) : null;
+    }
+
+    @Benchmark
+    public TopDocs vectorSimilarityQuery() throws IOException {
+        float[] queryVector = queryVectors[query++ % queryVectors.length];
+        return searcher.search(new VectorSimilarityQuery("vector", queryVector, VectorSimilarityQuery.Similarity.COSINE, filter()), 10);
+    }
+
+    @Benchmark
+    public TopDocs scriptScore() throws IOException {
+        float[] queryVector = queryVectors[query++ % queryVectors.length];
+        Query filter = filter();
+        Query subQuery = filter == null ? new MatchAllDocsQuery() : filter;
+        return searcher.search(new FunctionScoreQuery(subQuery, new ScriptLikeCosine(binaryFieldData, queryVector)), 10);
+    }
+
+    /**
+     * Scores a document the way a script decoding the vector from the doc values of a <code>binary</code> field does.
+     */
+    private static final class ScriptLikeCosine extends ScoreFunction {
+
+        private final IndexFieldData<?> fieldData;
+        private final float[] queryVector;
+
+        ScriptLikeCosine(IndexFieldData<?> fieldData, float[] queryVector) {
+            super(CombineFunction.REPLACE);
+            this.fieldData = fieldData;
+            this.queryVector = queryVector;
+        }
+
+        @Override
+        public LeafScoreFunction getLeafScoreFunction(LeafReaderContext ctx) throws IOException {
+            final AtomicFieldData atomicFieldData = fieldData.load(ctx);
+            final ScriptDocValues<?> docValues = atomicFieldData.getScriptValues();
+            return new LeafScoreFunction() {
+
+                @Override
+                public double score(int docId, float subQueryScore) throws IOException {
+                    docValues.setNextDocId(docId);
+                    BytesRef bytes = (BytesRef) docValues.get(0);
+                    ByteBuffer buffer = ByteBuffer.wrap(bytes.bytes, bytes.offset, bytes.length);
+                    double[] vector = new double[bytes.length / Float.BYTES];
+                    for (int i = 0; i < vector.length; i++) {
+                        vector[i] = buffer.getFloat();
+                    }
+                    double dotProduct = 0, queryMagnitude = 0, magnitude = 0;
+                    for (int i = 0; i < vector.length; i++) {
+                        dotProduct += queryVector[i] * vector[i];
+                        queryMagnitude += queryVector[i] * queryVector[i];
+                        magnitude += vector[i] * vector[i];
+                    }
+                    return (1 + dotProduct / Math.sqrt(queryMagnitude * magnitude)) / 2;
+                }
+
+                @Override
+                public Explanation explainScore(int docId, Explanation subQueryScore) throws IOException {
+                    return Explanation.match((float) score(docId, subQueryScore.getValue()), "script-like cosine");
+                }
+            };
+        }
+
+        @Override
+        public boolean needsScores() {
+            return false;
+        }
+
+        @Override
+        protected boolean doEquals(ScoreFunction other) {
+            return this == other;
+        }
+
+        @Override
+        protected int doHashCode() {
+            return System.identityHashCode(this);
+        }
+    }
+}
@@ -101,15 +101,16 @@ public abstract class AbstractBenchmark<T extends Closeable> {
 
     @SuppressForbidden(reason = "system out is ok for a command line tool")
     private void runSearchBenchmark(String[] args) throws Exception {
-        if (args.length != 5) {
+        if (args.length != 5 && args.length != 6) {
             System.err.println(
-                "usage: 'search' benchmarkTargetHostIp indexName searchRequestBody throughputRates");
+                "usage: 'search' benchmarkTargetHostIp indexName searchRequestBody throughputRates [clients]");
             System.exit(1);
         }
         String benchmarkTargetHost = args[1];
         String indexName = args[2];
         String searchBody = args[3];
         List<Integer> throughputRates = Arrays.asList(args[4].split(",")).stream().map(Integer::valueOf).collect(Collectors.toList());
+        int clients = args.length == 6 ? Integer.valueOf(args[5]) : 1;
 
         T client = client(benchmarkTargetHost);
 
@@ -121,8 +122,8 @@ public abstract class AbstractBenchmark<T extends Closeable> {
                     BenchmarkRunner benchmark = new BenchmarkRunner(SEARCH_BENCHMARK_ITERATIONS, SEARCH_BENCHMARK_ITERATIONS,
                         new SearchBenchmarkTask(
                             searchRequestExecutor(client, indexName), searchBody, SEARCH_BENCHMARK_ITERATIONS,
-                            SEARCH_BENCHMARK_ITERATIONS, throughput));
-                    System.out.printf("Target throughput = %d ops / s%n", throughput);
+                            SEARCH_BENCHMARK_ITERATIONS, throughput, clients));
+                    System.out.printf("Target throughput = %d ops / s, clients = %d%n", throughput, clients);
                     benchmark.run();
                 }
             });
@@ -22,6 +22,8 @@ import org.elasticsearch.client.benchmark.BenchmarkTask;
 import org.elasticsearch.client.benchmark.metrics.Sample;
 import org.elasticsearch.client.benchmark.metrics.SampleRecorder;
 
+import java.util.ArrayList;
+import java.util.List;
 import java.util.concurrent.TimeUnit;
 
 public class SearchBenchmarkTask implements BenchmarkTask {
@@ -30,16 +32,26 @@ public class SearchBenchmarkTask implements BenchmarkTask {
     private final int warmupIterations;
     private final int measurementIterations;
     private final int targetThroughput;
+    private final int clients;
 
     private SampleRecorder sampleRecorder;
 
     public SearchBenchmarkTask(SearchRequestExecutor searchRequestExecutor, String body, int warmupIterations,
                                int measurementIterations, int targetThroughput) {
+        this(searchRequestExecutor, body, warmupIterations, measurementIterations, targetThroughput, 1);
+    }
+
+    public SearchBenchmarkTask(SearchRequestExecutor searchRequestExecutor, String body, int warmupIterations,
+                               int measurementIterations, int targetThroughput, int clients) {
+        if (clients < 1) {
+            throw new IllegalArgumentException("clients must be at least 1 but was [" + clients + "]");
+        }
         this.searchRequestExecutor = searchRequestExecutor;
         this.searchRequestBody = body;
         this.warmupIterations = warmupIterations;
         this.measurementIterations = measurementIterations;
         this.targetThroughput = targetThroughput;
+        this.clients = clients;
     }
 
     @Override
@@ -53,20 +65,42 @@ public class SearchBenchmarkTask implements BenchmarkTask {
         runIterations(measurementIterations, true);
     }
 
-    private void runIterations(int iterations, boolean addSample) {
+    private void runIterations(int iterations, boolean addSample) throws InterruptedException {
         long interval = TimeUnit.SECONDS.toNanos(1L) / targetThroughput;
 
         long totalStart = System.nanoTime();
-        for (int iteration = 0; iteration < iterations; iteration++) {
-            long expectedStart = totalStart + iteration * interval;
-            while (System.nanoTime() < expectedStart) {
-                // busy spin
-            }
-            long start = System.nanoTime();
-            boolean success = searchRequestExecutor.search(searchRequestBody);
-            long stop = System.nanoTime();
-            if (addSample) {
-                sampleRecorder.addSample(new Sample("search", expectedStart, start, stop, success));
+        // each client issues every n-th request of the schedule so that all clients together match the target throughput
+        List<List<Sample>> samplesPerClient = new ArrayList<>(clients);
+        List<Thread> clientThreads = new ArrayList<>(clients);
+        for (int client = 0; client < clients; client++) {
+            final int firstIteration = client;
+            final List<Sample> samples = new ArrayList<>(iterations / clients + 1);
+            samplesPerClient.add(samples);
+            clientThreads.add(new Thread(() -> {
+                for (int iteration = firstIteration; iteration < iterations; iteration += clients) {
+                    long expectedStart = totalStart + iteration * interval;
+                    while (System.nanoTime() < expectedStart) {
+                        // busy spin
+                    }
+                    long start = System.nanoTime();
+                    boolean success = searchRequestExecutor.search(searchRequestBody);
+                    long stop = System.nanoTime();
+                    if (addSample) {
+                        samples.add(new Sample("search", expectedStart, start, stop, success));
+                    }
+                }
+            }, "search-client-" + client));
+        }
+        for (Thread clientThread : clientThreads) {
+            clientThread.start();
+        }
+        for (Thread clientThread : clientThreads) {
+            clientThread.join();
+        }
+        // the sample recorder is not thread-safe, hence samples are only added once all clients are done
+        for (List<Sample> samples : samplesPerClient) {
+            for (Sample sample : samples) {
+                sampleRecorder.addSample(sample);
             }
         }
     }
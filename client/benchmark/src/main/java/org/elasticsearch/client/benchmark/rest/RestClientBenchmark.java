@@ -29,16 +29,21 @@ import org.apache.http.entity.StringEntity;
 import org.apache.http.impl.nio.client.HttpAsyncClientBuilder;
 import org.apache.http.message.BasicHeader;
 import org.apache.http.nio.entity.NStringEntity;
+import org.apache.http.HttpResponse;
 import org.elasticsearch.ElasticsearchException;
+import org.elasticsearch.client.ByteBufferPool;
+import org.elasticsearch.client.HttpAsyncResponseConsumerFactory;
 import org.elasticsearch.client.Response;
+import org.elasticsearch.client.ResponseContentSink;
 import org.elasticsearch.client.RestClient;
-import org.elasticsearch.client.RestClientBuilder;
 import org.elasticsearch.client.benchmark.AbstractBenchmark;
 import org.elasticsearch.client.benchmark.ops.bulk.BulkRequestExecutor;
 import org.elasticsearch.client.benchmark.ops.search.SearchRequestExecutor;
 
 import java.io.IOException;
+import java.nio.ByteBuffer;
 import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
 import java.util.Collections;
 import java.util.List;
 import java.util.Locale;
@@ -51,8 +56,11 @@ public final class RestClientBenchmark extends AbstractBenchmark<RestClient> {
 
     @Override
     protected RestClient client(String benchmarkTargetHost) {
+        // a comma-separated list of hosts can be provided, in which case requests are spread based on their response times
+        HttpHost[] hosts = Arrays.stream(benchmarkTargetHost.split(",")).map(host -> new HttpHost(host, 9200)).toArray(HttpHost[]::new);
         return RestClient
-            .builder(new HttpHost(benchmarkTargetHost, 9200))
+            .builder(hosts)
+            .setAdaptiveHostSelection(hosts.length > 1)
             .setHttpClientConfigCallback(b -> b.setDefaultHeaders(
                 Collections.singleton(new BasicHeader(HttpHeaders.ACCEPT_ENCODING, "gzip"))))
             .setRequestConfigCallback(b -> b.setContentCompressionEnabled(true))
@@ -99,6 +107,9 @@ public final class RestClientBenchmark extends AbstractBenchmark<RestClient> {
     private static final class RestSearchRequestExecutor implements SearchRequestExecutor {
         private final RestClient client;
         private final String endpoint;
+        // the response body is not needed, hence it is streamed through pooled buffers rather than buffered on heap
+        private final HttpAsyncResponseConsumerFactory consumerFactory =
+            new HttpAsyncResponseConsumerFactory.PooledBufferResponseConsumerFactory(new ByteBufferPool(8192, 64), new DiscardingSink());
 
         private RestSearchRequestExecutor(RestClient client, String indexName) {
             this.client = client;
@@ -109,11 +120,23 @@ public final class RestClientBenchmark extends AbstractBenchmark<RestClient> {
         public boolean search(String source) {
             HttpEntity searchBody = new NStringEntity(source, StandardCharsets.UTF_8);
             try {
-                Response response = client.performRequest("GET", endpoint, Collections.emptyMap(), searchBody);
+                Response response = client.performRequest("GET", endpoint, Collections.emptyMap(), searchBody, consumerFactory);
                 return response.getStatusLine().getStatusCode() == HttpStatus.SC_OK;
             } catch (IOException e) {
                 throw new ElasticsearchException(e);
             }
         }
     }
+
+    private static final class DiscardingSink implements ResponseContentSink {
+        @Override
+        public void onResponseStarted(HttpResponse response) {
+            // nothing to reset
+        }
+
+        @Override
+        public void onContent(ByteBuffer content) {
+            content.position(content.limit());
+        }
+    }
 }
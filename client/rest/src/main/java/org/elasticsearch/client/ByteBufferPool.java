@@ -0,0 +1,100 @@
+/*
+ * Licensed to Elasticsearch under one or more contributor
+ * license agreements. See the NOTICE file distributed with
+ * this work for additional information regarding copyright
+ * ownership. Elasticsearch licenses this file to you under
+ * the Apache License, Version 2.0 (the "License"); you may
+ * not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.elasticsearch.client;
+
+import java.nio.ByteBuffer;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Pool of fixed size direct {@link ByteBuffer}s that can be shared among multiple requests. Buffers are allocated lazily
+ * when the pool is empty and are retained when released, up to the configured maximum number of pooled buffers, so that
+ * streaming response bodies doesn't require allocating a new buffer for each response.
+ */
+public final class ByteBufferPool {
+
+    private final int bufferSize;
+    private final int maxPooledBuffers;
+    private final Queue<ByteBuffer> buffers = new ConcurrentLinkedQueue<>();
+    private final AtomicInteger pooledBuffers = new AtomicInteger(0);
+
+    /**
+     * Creates a new pool of direct buffers
+     *
+     * @param bufferSize the size in bytes of each buffer
+     * @param maxPooledBuffers the maximum number of released buffers that are retained for reuse
+     * @throws IllegalArgumentException if {@code bufferSize} is not greater than 0 or {@code maxPooledBuffers} is negative
+     */
+    public ByteBufferPool(int bufferSize, int maxPooledBuffers) {
+        if (bufferSize <= 0) {
+            throw new IllegalArgumentException("bufferSize must be greater than 0");
+        }
+        if (maxPooledBuffers < 0) {
+            throw new IllegalArgumentException("maxPooledBuffers must not be negative");
+        }
+        this.bufferSize = bufferSize;
+        this.maxPooledBuffers = maxPooledBuffers;
+    }
+
+    /**
+     * Returns the size in bytes of the buffers handed out by this pool
+     */
+    public int getBufferSize() {
+        return bufferSize;
+    }
+
+    /**
+     * Returns a cleared buffer, either taken from the pool or newly allocated if the pool is empty.
+     */
+    public ByteBuffer acquire() {
+        ByteBuffer buffer = buffers.poll();
+        if (buffer == null) {
+            return ByteBuffer.allocateDirect(bufferSize);
+        }
+        pooledBuffers.decrementAndGet();
+        buffer.clear();
+        return buffer;
+    }
+
+    /**
+     * Returns a buffer previously obtained through {@link #acquire()} to the pool. The buffer must not be used after
+     * it has been released. Buffers exceeding the maximum number of pooled buffers are left to the garbage collector.
+     *
+     * @throws IllegalArgumentException if the buffer was not acquired from this pool
+     */
+    public void release(ByteBuffer buffer) {
+        if (buffer.isDirect() == false || buffer.capacity() != bufferSize) {
+            throw new IllegalArgumentException("buffer doesn't belong to this pool");
+        }
+        if (pooledBuffers.incrementAndGet() <= maxPooledBuffers) {
+            buffer.clear();
+            buffers.offer(buffer);
+        } else {
+            pooledBuffers.decrementAndGet();
+        }
+    }
+
+    /**
+     * Returns the number of buffers currently retained by the pool
+     */
+    int getPooledBuffers() {
+        return pooledBuffers.get();
+    }
+}
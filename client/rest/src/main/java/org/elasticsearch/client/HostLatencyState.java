@@ -0,0 +1,80 @@
+/*
+ * Licensed to Elasticsearch under one or more contributor
+ * license agreements. See the NOTICE file distributed with
+ * this work for additional information regarding copyright
+ * ownership. Elasticsearch licenses this file to you under
+ * the Apache License, Version 2.0 (the "License"); you may
+ * not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.elasticsearch.client;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Keeps track of the response times observed for a host, used to prefer faster hosts when adaptive host selection is enabled.
+ * Holds an exponentially weighted moving average of the response time, which quickly reflects hosts slowing down (e.g. because
+ * of garbage collections or heavy merges) and recovering, together with the number of requests currently in flight.
+ */
+final class HostLatencyState {
+
+    /**
+     * Weight given to each new response time, the higher the faster older response times are forgotten
+     */
+    static final double ALPHA = 0.3;
+
+    private final AtomicInteger inFlightRequests = new AtomicInteger(0);
+    private long responses = 0;
+    private double ewmaNanos = 0;
+
+    /**
+     * Called before a request is sent to the host.
+     */
+    void onRequest() {
+        inFlightRequests.incrementAndGet();
+    }
+
+    /**
+     * Called when a response has been received from the host, with the time it took to receive it.
+     */
+    void onResponse(long tookNanos) {
+        inFlightRequests.decrementAndGet();
+        synchronized (this) {
+            ewmaNanos = responses++ == 0 ? tookNanos : ALPHA * tookNanos + (1 - ALPHA) * ewmaNanos;
+        }
+    }
+
+    /**
+     * Called when a request sent to the host failed without a response.
+     */
+    void onFailure() {
+        inFlightRequests.decrementAndGet();
+    }
+
+    /**
+     * Returns the expected time (nanos) that a new request would take to be processed by the host, taking into account
+     * the requests that are already in flight. Hosts that never responded get a rank of {@code 0} so that they are tried first.
+     */
+    synchronized double getRank() {
+        return ewmaNanos * (1 + inFlightRequests.get());
+    }
+
+    @Override
+    public synchronized String toString() {
+        return "HostLatencyState{" +
+                "responses=" + responses +
+                ", ewmaMillis=" + ewmaNanos / TimeUnit.MILLISECONDS.toNanos(1) +
+                ", inFlightRequests=" + inFlightRequests.get() +
+                '}';
+    }
+}
@@ -22,6 +22,8 @@ package org.elasticsearch.client;
 import org.apache.http.HttpResponse;
 import org.apache.http.nio.protocol.HttpAsyncResponseConsumer;
 
+import java.util.Objects;
+
 import static org.elasticsearch.client.HttpAsyncResponseConsumerFactory.HeapBufferedResponseConsumerFactory.DEFAULT_BUFFER_LIMIT;
 
 /**
@@ -62,4 +64,26 @@ public interface HttpAsyncResponseConsumerFactory {
             return new HeapBufferedAsyncResponseConsumer(bufferLimit);
         }
     }
+
+    /**
+     * Factory used to create instances of {@link HttpAsyncResponseConsumer} that don't buffer the body of successful responses.
+     * Creates one instance of {@link PooledBufferAsyncResponseConsumer} for each request attempt, which streams the response body
+     * to the provided {@link ResponseContentSink} through direct buffers recycled from the provided {@link ByteBufferPool}. The
+     * body of error responses is buffered in heap memory up to 100MB.
+     */
+    class PooledBufferResponseConsumerFactory implements HttpAsyncResponseConsumerFactory {
+
+        private final ByteBufferPool bufferPool;
+        private final ResponseContentSink contentSink;
+
+        public PooledBufferResponseConsumerFactory(ByteBufferPool bufferPool, ResponseContentSink contentSink) {
+            this.bufferPool = Objects.requireNonNull(bufferPool, "bufferPool must not be null");
+            this.contentSink = Objects.requireNonNull(contentSink, "contentSink must not be null");
+        }
+
+        @Override
+        public HttpAsyncResponseConsumer<HttpResponse> createHttpAsyncResponseConsumer() {
+            return new PooledBufferAsyncResponseConsumer(bufferPool, contentSink, DEFAULT_BUFFER_LIMIT);
+        }
+    }
 }
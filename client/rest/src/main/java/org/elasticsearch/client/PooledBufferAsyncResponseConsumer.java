@@ -0,0 +1,138 @@
+/*
+ * Licensed to Elasticsearch under one or more contributor
+ * license agreements. See the NOTICE file distributed with
+ * this work for additional information regarding copyright
+ * ownership. Elasticsearch licenses this file to you under
+ * the Apache License, Version 2.0 (the "License"); you may
+ * not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.elasticsearch.client;
+
+import org.apache.http.ContentTooLongException;
+import org.apache.http.HttpEntity;
+import org.apache.http.HttpException;
+import org.apache.http.HttpResponse;
+import org.apache.http.entity.ContentType;
+import org.apache.http.nio.ContentDecoder;
+import org.apache.http.nio.IOControl;
+import org.apache.http.nio.entity.ContentBufferEntity;
+import org.apache.http.nio.protocol.AbstractAsyncResponseConsumer;
+import org.apache.http.nio.util.HeapByteBufferAllocator;
+import org.apache.http.nio.util.SimpleInputBuffer;
+import org.apache.http.protocol.HttpContext;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.util.Objects;
+
+/**
+ * {@link org.apache.http.nio.protocol.HttpAsyncResponseConsumer} that streams the body of successful responses to a
+ * {@link ResponseContentSink} through a direct buffer taken from a {@link ByteBufferPool}, which gets returned to the pool
+ * once the response has been consumed. The body is never accumulated in memory, hence the {@link Response} returned for a
+ * successful request doesn't hold any entity.
+ * <p>
+ * The body of error responses (status code {@code >= 300}) is still buffered in heap memory, up to the provided limit, so
+ * that it can be exposed through {@link ResponseException}, and the request can be transparently retried.
+ */
+public class PooledBufferAsyncResponseConsumer extends AbstractAsyncResponseConsumer<HttpResponse> {
+
+    private final ByteBufferPool bufferPool;
+    private final ResponseContentSink contentSink;
+    private final int errorBufferLimitBytes;
+    private volatile HttpResponse response;
+    private volatile ByteBuffer buffer;
+    private volatile SimpleInputBuffer errorBuffer;
+
+    /**
+     * Creates a new instance of this consumer
+     *
+     * @param bufferPool the pool that the direct buffer used to read the response body is taken from
+     * @param contentSink the sink that the body of successful responses is streamed to
+     * @param errorBufferLimit the maximum size in bytes of the body of error responses, buffered in heap memory
+     */
+    public PooledBufferAsyncResponseConsumer(ByteBufferPool bufferPool, ResponseContentSink contentSink, int errorBufferLimit) {
+        this.bufferPool = Objects.requireNonNull(bufferPool, "bufferPool must not be null");
+        this.contentSink = Objects.requireNonNull(contentSink, "contentSink must not be null");
+        if (errorBufferLimit <= 0) {
+            throw new IllegalArgumentException("errorBufferLimit must be greater than 0");
+        }
+        this.errorBufferLimitBytes = errorBufferLimit;
+    }
+
+    /**
+     * Get the limit of the buffer used for the body of error responses.
+     */
+    public int getErrorBufferLimit() {
+        return errorBufferLimitBytes;
+    }
+
+    @Override
+    protected void onResponseReceived(HttpResponse response) throws HttpException, IOException {
+        this.response = response;
+    }
+
+    @Override
+    protected void onEntityEnclosed(HttpEntity entity, ContentType contentType) throws IOException {
+        if (response.getStatusLine().getStatusCode() < 300) {
+            //the body gets streamed to the sink, there is nothing left for the response to hold on to
+            response.setEntity(null);
+            contentSink.onResponseStarted(response);
+            this.buffer = bufferPool.acquire();
+        } else {
+            long len = entity.getContentLength();
+            if (len > errorBufferLimitBytes) {
+                throw new ContentTooLongException("entity content is too long [" + len +
+                        "] for the configured buffer limit [" + errorBufferLimitBytes + "]");
+            }
+            if (len < 0) {
+                len = 4096;
+            }
+            this.errorBuffer = new SimpleInputBuffer((int) len, HeapByteBufferAllocator.INSTANCE);
+            this.response.setEntity(new ContentBufferEntity(entity, this.errorBuffer));
+        }
+    }
+
+    @Override
+    protected void onContentReceived(ContentDecoder decoder, IOControl ioctrl) throws IOException {
+        if (errorBuffer != null) {
+            errorBuffer.consumeContent(decoder);
+            return;
+        }
+        final ByteBuffer buffer = this.buffer;
+        int read;
+        do {
+            read = decoder.read(buffer);
+            //hand over the content once the buffer is full or there is nothing more to read for now
+            if ((read <= 0 || buffer.hasRemaining() == false) && buffer.position() > 0) {
+                buffer.flip();
+                contentSink.onContent(buffer);
+                buffer.clear();
+            }
+        } while (read > 0);
+    }
+
+    @Override
+    protected HttpResponse buildResult(HttpContext context) throws Exception {
+        return response;
+    }
+
+    @Override
+    protected void releaseResources() {
+        ByteBuffer buffer = this.buffer;
+        if (buffer != null) {
+            this.buffer = null;
+            bufferPool.release(buffer);
+        }
+        response = null;
+    }
+}
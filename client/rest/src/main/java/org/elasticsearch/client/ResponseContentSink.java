@@ -0,0 +1,46 @@
+/*
+ * Licensed to Elasticsearch under one or more contributor
+ * license agreements. See the NOTICE file distributed with
+ * this work for additional information regarding copyright
+ * ownership. Elasticsearch licenses this file to you under
+ * the Apache License, Version 2.0 (the "License"); you may
+ * not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.elasticsearch.client;
+
+import org.apache.http.HttpResponse;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+
+/**
+ * Receives the body of a successful response as it gets streamed from the non-blocking HTTP connection, rather than
+ * having the whole body buffered in heap memory. Used by {@link PooledBufferAsyncResponseConsumer}.
+ * <p>
+ * Methods are called on the I/O reactor thread, hence implementations must not block.
+ */
+public interface ResponseContentSink {
+
+    /**
+     * Called when a successful response has been received and its body is about to be streamed. A request may be retried
+     * against another host after part of the body of a previous attempt was already streamed, in which case this method gets
+     * called again for the new response and any content received until then must be discarded.
+     */
+    void onResponseStarted(HttpResponse response) throws IOException;
+
+    /**
+     * Called with each chunk of the response body, provided as a buffer that is ready to be read. The buffer gets recycled
+     * once this method returns, hence its content must be copied out rather than retained.
+     */
+    void onContent(ByteBuffer content) throws IOException;
+}
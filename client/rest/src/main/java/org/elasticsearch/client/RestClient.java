@@ -82,6 +82,10 @@ import java.util.concurrent.atomic.AtomicReference;
  * failed (the more failures, the later they will be retried). In case of failures all of the alive nodes (or dead nodes that
  * deserve a retry) are retried until one responds or none of them does, in which case an {@link IOException} will be thrown.
  * <p>
+ * When adaptive host selection is enabled through {@link RestClientBuilder#setAdaptiveHostSelection(boolean)}, the response times
+ * of each host are tracked, and out of every two hosts that the round-robin would select next, the one that is expected to respond
+ * faster is preferred. This moves load away from hosts that are slow, for instance because of garbage collections or heavy merges.
+ * <p>
  * Requests can be either synchronous or asynchronous. The asynchronous variants all end with {@code Async}.
  * <p>
  * Requests can be traced by enabling trace logging for "tracer". The trace logger outputs requests and responses in curl format.
@@ -98,15 +102,23 @@ public class RestClient implements Closeable {
     private final AtomicInteger lastHostIndex = new AtomicInteger(0);
     private volatile HostTuple<Set<HttpHost>> hostTuple;
     private final ConcurrentMap<HttpHost, DeadHostState> blacklist = new ConcurrentHashMap<>();
+    private final boolean adaptiveHostSelection;
+    private final ConcurrentMap<HttpHost, HostLatencyState> latencies = new ConcurrentHashMap<>();
     private final FailureListener failureListener;
 
     RestClient(CloseableHttpAsyncClient client, long maxRetryTimeoutMillis, Header[] defaultHeaders,
                HttpHost[] hosts, String pathPrefix, FailureListener failureListener) {
+        this(client, maxRetryTimeoutMillis, defaultHeaders, hosts, pathPrefix, failureListener, false);
+    }
+
+    RestClient(CloseableHttpAsyncClient client, long maxRetryTimeoutMillis, Header[] defaultHeaders,
+               HttpHost[] hosts, String pathPrefix, FailureListener failureListener, boolean adaptiveHostSelection) {
         this.client = client;
         this.maxRetryTimeoutMillis = maxRetryTimeoutMillis;
         this.defaultHeaders = defaultHeaders;
         this.failureListener = failureListener;
         this.pathPrefix = pathPrefix;
+        this.adaptiveHostSelection = adaptiveHostSelection;
         setHosts(hosts);
     }
 
@@ -134,6 +146,8 @@ public class RestClient implements Closeable {
         }
         this.hostTuple = new HostTuple<>(Collections.unmodifiableSet(httpHosts), authCache);
         this.blacklist.clear();
+        //response times of the hosts that are still around are retained, as they are still relevant
+        this.latencies.keySet().retainAll(httpHosts);
     }
 
     /**
@@ -340,9 +354,17 @@ public class RestClient implements Closeable {
             httpAsyncResponseConsumerFactory.createHttpAsyncResponseConsumer();
         final HttpClientContext context = HttpClientContext.create();
         context.setAuthCache(hostTuple.authCache);
+        final HostLatencyState latencyState = adaptiveHostSelection ? getLatencyState(host) : null;
+        if (latencyState != null) {
+            latencyState.onRequest();
+        }
+        final long attemptStartTime = System.nanoTime();
         client.execute(requestProducer, asyncResponseConsumer, context, new FutureCallback<HttpResponse>() {
             @Override
             public void completed(HttpResponse httpResponse) {
+                if (latencyState != null) {
+                    latencyState.onResponse(System.nanoTime() - attemptStartTime);
+                }
                 try {
                     RequestLogger.logResponse(logger, request, host, httpResponse);
                     int statusCode = httpResponse.getStatusLine().getStatusCode();
@@ -369,6 +391,9 @@ public class RestClient implements Closeable {
 
             @Override
             public void failed(Exception failure) {
+                if (latencyState != null) {
+                    latencyState.onFailure();
+                }
                 try {
                     RequestLogger.logFailedRequest(logger, request, host, failure);
                     onFailure(host);
@@ -399,6 +424,9 @@ public class RestClient implements Closeable {
 
             @Override
             public void cancelled() {
+                if (latencyState != null) {
+                    latencyState.onFailure();
+                }
                 listener.onDefinitiveFailure(new ExecutionException("request was cancelled", null));
             }
         });
@@ -427,6 +455,7 @@ public class RestClient implements Closeable {
      * there are no more hosts available to retry against. The maximum total of attempts is equal to the number of hosts in the iterable.
      * The iterator returned will never be empty. In case there are no healthy hosts available, or dead ones to be be retried,
      * one dead host gets returned so that it can be retried.
+     * When adaptive host selection is enabled, the first two hosts are swapped in case the second one is expected to respond faster.
      */
     private HostTuple<Iterator<HttpHost>> nextHost() {
         final HostTuple<Set<HttpHost>> hostTuple = this.hostTuple;
@@ -455,12 +484,33 @@ public class RestClient implements Closeable {
             } else {
                 List<HttpHost> rotatedHosts = new ArrayList<>(filteredHosts);
                 Collections.rotate(rotatedHosts, rotatedHosts.size() - lastHostIndex.getAndIncrement());
+                if (adaptiveHostSelection && rotatedHosts.size() > 1) {
+                    //choosing the best out of two hosts avoids sending all requests to the fastest host, which would then slow down
+                    if (getLatencyState(rotatedHosts.get(1)).getRank() < getLatencyState(rotatedHosts.get(0)).getRank()) {
+                        Collections.swap(rotatedHosts, 0, 1);
+                    }
+                }
                 nextHosts = rotatedHosts;
             }
         } while(nextHosts.isEmpty());
         return new HostTuple<>(nextHosts.iterator(), hostTuple.authCache);
     }
 
+    /**
+     * Returns the {@link HostLatencyState} that tracks the response times of the provided host.
+     */
+    HostLatencyState getLatencyState(HttpHost host) {
+        HostLatencyState latencyState = latencies.get(host);
+        if (latencyState == null) {
+            HostLatencyState newLatencyState = new HostLatencyState();
+            latencyState = latencies.putIfAbsent(host, newLatencyState);
+            if (latencyState == null) {
+                latencyState = newLatencyState;
+            }
+        }
+        return latencyState;
+    }
+
     /**
      * Called after each successful request call.
      * Receives as an argument the host that was used for the successful request.
@@ -54,6 +54,7 @@ public final class RestClientBuilder {
     private HttpClientConfigCallback httpClientConfigCallback;
     private RequestConfigCallback requestConfigCallback;
     private String pathPrefix;
+    private boolean adaptiveHostSelection = false;
 
     /**
      * Creates a new builder instance and sets the hosts that the client will send requests to.
@@ -172,6 +173,15 @@ public final class RestClientBuilder {
         return this;
     }
 
+    /**
+     * Enables or disables adaptive host selection. When enabled, the response times of each host are tracked and hosts that are
+     * expected to respond faster are preferred over the ones that the round-robin would otherwise select. Disabled by default.
+     */
+    public RestClientBuilder setAdaptiveHostSelection(boolean adaptiveHostSelection) {
+        this.adaptiveHostSelection = adaptiveHostSelection;
+        return this;
+    }
+
     /**
      * Creates a new {@link RestClient} based on the provided configuration.
      */
@@ -185,7 +195,8 @@ public final class RestClientBuilder {
                 return createHttpClient();
             }
         });
-        RestClient restClient = new RestClient(httpClient, maxRetryTimeout, defaultHeaders, hosts, pathPrefix, failureListener);
+        RestClient restClient = new RestClient(httpClient, maxRetryTimeout, defaultHeaders, hosts, pathPrefix, failureListener,
+                adaptiveHostSelection);
         httpClient.start();
         return restClient;
     }
@@ -0,0 +1,66 @@
+/*
+ * Licensed to Elasticsearch under one or more contributor
+ * license agreements. See the NOTICE file distributed with
+ * this work for additional information regarding copyright
+ * ownership. Elasticsearch licenses this file to you under
+ * the Apache License, Version 2.0 (the "License"); you may
+ * not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.elasticsearch.client;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+public class HostLatencyStateTests extends RestClientTestCase {
+
+    public void testRankWithoutResponses() {
+        HostLatencyState latencyState = new HostLatencyState();
+        assertEquals(0d, latencyState.getRank(), 0d);
+        int numRequests = randomIntBetween(1, 10);
+        for (int i = 0; i < numRequests; i++) {
+            latencyState.onRequest();
+        }
+        //hosts that never responded are always tried first
+        assertEquals(0d, latencyState.getRank(), 0d);
+    }
+
+    public void testMovingAverage() {
+        HostLatencyState latencyState = new HostLatencyState();
+        latencyState.onRequest();
+        latencyState.onResponse(1000);
+        assertEquals(1000d, latencyState.getRank(), 0d);
+        latencyState.onRequest();
+        latencyState.onResponse(2000);
+        assertEquals(HostLatencyState.ALPHA * 2000 + (1 - HostLatencyState.ALPHA) * 1000, latencyState.getRank(), 0.001d);
+        double previousRank = latencyState.getRank();
+        //a slow response makes the host look slower
+        latencyState.onRequest();
+        latencyState.onResponse(randomLongBetween(10_000, 100_000));
+        assertTrue(latencyState.getRank() > previousRank);
+    }
+
+    public void testInFlightRequestsIncreaseRank() {
+        HostLatencyState latencyState = new HostLatencyState();
+        latencyState.onRequest();
+        latencyState.onResponse(1000);
+        int inFlightRequests = randomIntBetween(1, 10);
+        for (int i = 0; i < inFlightRequests; i++) {
+            latencyState.onRequest();
+        }
+        assertEquals(1000d * (1 + inFlightRequests), latencyState.getRank(), 0d);
+        for (int i = 0; i < inFlightRequests; i++) {
+            latencyState.onFailure();
+        }
+        assertEquals(1000d, latencyState.getRank(), 0d);
+    }
+}
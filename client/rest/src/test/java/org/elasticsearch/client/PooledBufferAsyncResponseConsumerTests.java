@@ -0,0 +1,219 @@
+/*
+ * Licensed to Elasticsearch under one or more contributor
+ * license agreements. See the NOTICE file distributed with
+ * this work for additional information regarding copyright
+ * ownership. Elasticsearch licenses this file to you under
+ * the Apache License, Version 2.0 (the "License"); you may
+ * not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.elasticsearch.client;
+
+import org.apache.http.ContentTooLongException;
+import org.apache.http.HttpResponse;
+import org.apache.http.ProtocolVersion;
+import org.apache.http.StatusLine;
+import org.apache.http.entity.ContentType;
+import org.apache.http.entity.StringEntity;
+import org.apache.http.message.BasicHttpResponse;
+import org.apache.http.message.BasicStatusLine;
+import org.apache.http.nio.ContentDecoder;
+import org.apache.http.nio.IOControl;
+import org.apache.http.nio.protocol.HttpAsyncResponseConsumer;
+import org.apache.http.protocol.HttpContext;
+import org.apache.http.util.EntityUtils;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.hamcrest.CoreMatchers.instanceOf;
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertThat;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+import static org.mockito.Mockito.mock;
+
+public class PooledBufferAsyncResponseConsumerTests extends RestClientTestCase {
+
+    public void testStreamsSuccessfulResponses() throws Exception {
+        ByteBufferPool bufferPool = new ByteBufferPool(randomIntBetween(1, 64), 1);
+        RecordingSink sink = new RecordingSink();
+        PooledBufferAsyncResponseConsumer consumer = new PooledBufferAsyncResponseConsumer(bufferPool, sink, 1024);
+
+        byte[] body = randomAsciiOfLengthBetween(0, 1000).getBytes(StandardCharsets.UTF_8);
+        HttpResponse httpResponse = new BasicHttpResponse(statusLine(randomIntBetween(200, 299)));
+        httpResponse.setEntity(new StringEntity("", ContentType.APPLICATION_JSON));
+        consumer.responseReceived(httpResponse);
+        assertEquals(1, sink.started.get());
+        ChunkedContentDecoder decoder = new ChunkedContentDecoder(body);
+        while (decoder.isCompleted() == false) {
+            consumer.consumeContent(decoder, mock(IOControl.class));
+        }
+        consumer.responseCompleted(mock(HttpContext.class));
+
+        assertTrue(consumer.isDone());
+        assertSame(httpResponse, consumer.getResult());
+        assertNull(httpResponse.getEntity());
+        assertArrayEquals(body, sink.content.toByteArray());
+        //the buffer has been returned to the pool
+        assertEquals(1, bufferPool.getPooledBuffers());
+    }
+
+    public void testBuffersErrorResponses() throws Exception {
+        ByteBufferPool bufferPool = new ByteBufferPool(randomIntBetween(1, 64), 1);
+        RecordingSink sink = new RecordingSink();
+        PooledBufferAsyncResponseConsumer consumer = new PooledBufferAsyncResponseConsumer(bufferPool, sink, 1024);
+
+        String body = randomAsciiOfLengthBetween(1, 1000);
+        HttpResponse httpResponse = new BasicHttpResponse(statusLine(randomIntBetween(300, 599)));
+        httpResponse.setEntity(new StringEntity("", ContentType.APPLICATION_JSON));
+        consumer.responseReceived(httpResponse);
+        ChunkedContentDecoder decoder = new ChunkedContentDecoder(body.getBytes(StandardCharsets.UTF_8));
+        while (decoder.isCompleted() == false) {
+            consumer.consumeContent(decoder, mock(IOControl.class));
+        }
+        consumer.responseCompleted(mock(HttpContext.class));
+
+        assertSame(httpResponse, consumer.getResult());
+        assertEquals(body, EntityUtils.toString(httpResponse.getEntity()));
+        assertEquals(0, sink.started.get());
+        assertEquals(0, sink.content.size());
+        assertEquals(0, bufferPool.getPooledBuffers());
+    }
+
+    public void testErrorBufferLimit() throws Exception {
+        try {
+            new PooledBufferAsyncResponseConsumer(new ByteBufferPool(10, 1), new RecordingSink(), randomIntBetween(Integer.MIN_VALUE, 0));
+            fail("consumer creation should have failed");
+        } catch(IllegalArgumentException e) {
+            assertEquals("errorBufferLimit must be greater than 0", e.getMessage());
+        }
+        int bufferLimit = randomIntBetween(1, 1000);
+        PooledBufferAsyncResponseConsumer consumer = new PooledBufferAsyncResponseConsumer(new ByteBufferPool(10, 1),
+                new RecordingSink(), bufferLimit);
+        consumer.onResponseReceived(new BasicHttpResponse(statusLine(500)));
+        final String body = randomAsciiOfLength(bufferLimit + 1);
+        try {
+            consumer.onEntityEnclosed(new StringEntity(body, ContentType.APPLICATION_JSON), ContentType.APPLICATION_JSON);
+            fail("entity should have been rejected");
+        } catch(ContentTooLongException e) {
+            assertEquals("entity content is too long [" + body.length() +
+                    "] for the configured buffer limit [" + bufferLimit + "]", e.getMessage());
+        }
+    }
+
+    public void testPooledBufferResponseConsumerFactory() {
+        ByteBufferPool bufferPool = new ByteBufferPool(10, 1);
+        HttpAsyncResponseConsumerFactory factory =
+                new HttpAsyncResponseConsumerFactory.PooledBufferResponseConsumerFactory(bufferPool, new RecordingSink());
+        HttpAsyncResponseConsumer<HttpResponse> first = factory.createHttpAsyncResponseConsumer();
+        assertThat(first, instanceOf(PooledBufferAsyncResponseConsumer.class));
+        assertNotSame(first, factory.createHttpAsyncResponseConsumer());
+    }
+
+    public void testByteBufferPool() {
+        try {
+            new ByteBufferPool(randomIntBetween(Integer.MIN_VALUE, 0), 1);
+            fail("pool creation should have failed");
+        } catch(IllegalArgumentException e) {
+            assertEquals("bufferSize must be greater than 0", e.getMessage());
+        }
+        int bufferSize = randomIntBetween(1, 1024);
+        int maxPooledBuffers = randomIntBetween(0, 5);
+        ByteBufferPool bufferPool = new ByteBufferPool(bufferSize, maxPooledBuffers);
+        ByteBuffer[] buffers = new ByteBuffer[maxPooledBuffers + randomIntBetween(1, 5)];
+        for (int i = 0; i < buffers.length; i++) {
+            buffers[i] = bufferPool.acquire();
+            assertTrue(buffers[i].isDirect());
+            assertEquals(bufferSize, buffers[i].capacity());
+            assertEquals(bufferSize, buffers[i].remaining());
+        }
+        for (ByteBuffer buffer : buffers) {
+            buffer.put((byte) 1);
+            bufferPool.release(buffer);
+        }
+        assertEquals(maxPooledBuffers, bufferPool.getPooledBuffers());
+        for (int i = 0; i < maxPooledBuffers; i++) {
+            ByteBuffer buffer = bufferPool.acquire();
+            assertSame(buffers[i], buffer);
+            assertEquals(0, buffer.position());
+        }
+        assertEquals(0, bufferPool.getPooledBuffers());
+        try {
+            bufferPool.release(ByteBuffer.allocate(bufferSize));
+            fail("heap buffer should have been rejected");
+        } catch(IllegalArgumentException e) {
+            assertEquals("buffer doesn't belong to this pool", e.getMessage());
+        }
+    }
+
+    private static StatusLine statusLine(int statusCode) {
+        return new BasicStatusLine(new ProtocolVersion("HTTP", 1, 1), statusCode, "");
+    }
+
+    private static class RecordingSink implements ResponseContentSink {
+        private final AtomicInteger started = new AtomicInteger();
+        private final ByteArrayOutputStream content = new ByteArrayOutputStream();
+
+        @Override
+        public void onResponseStarted(HttpResponse response) {
+            started.incrementAndGet();
+            content.reset();
+        }
+
+        @Override
+        public void onContent(ByteBuffer buffer) {
+            while (buffer.hasRemaining()) {
+                content.write(buffer.get());
+            }
+        }
+    }
+
+    /**
+     * Decoder that returns the provided content in randomly sized chunks, returning 0 every now and then to simulate data
+     * that is not yet available.
+     */
+    private static class ChunkedContentDecoder implements ContentDecoder {
+        private final byte[] content;
+        private int offset = 0;
+
+        ChunkedContentDecoder(byte[] content) {
+            this.content = content;
+        }
+
+        @Override
+        public int read(ByteBuffer dst) throws IOException {
+            if (offset == content.length) {
+                return -1;
+            }
+            if (randomBoolean()) {
+                return 0;
+            }
+            int length = Math.min(Math.min(dst.remaining(), content.length - offset), randomIntBetween(1, 100));
+            dst.put(content, offset, length);
+            offset += length;
+            return length;
+        }
+
+        @Override
+        public boolean isCompleted() {
+            return offset == content.length;
+        }
+    }
+}
@@ -45,6 +45,7 @@ import java.util.Collections;
 import java.util.HashSet;
 import java.util.Set;
 import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
 
 import static org.elasticsearch.client.RestClientTestUtil.randomErrorNoRetryStatusCode;
 import static org.elasticsearch.client.RestClientTestUtil.randomErrorRetryStatusCode;
@@ -53,6 +54,7 @@ import static org.elasticsearch.client.RestClientTestUtil.randomOkStatusCode;
 import static org.hamcrest.CoreMatchers.equalTo;
 import static org.hamcrest.CoreMatchers.instanceOf;
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
 import static org.junit.Assert.assertThat;
 import static org.junit.Assert.assertTrue;
 import static org.junit.Assert.fail;
@@ -66,6 +68,7 @@ import static org.mockito.Mockito.when;
  */
 public class RestClientMultipleHostsTests extends RestClientTestCase {
 
+    private CloseableHttpAsyncClient httpClient;
     private RestClient restClient;
     private HttpHost[] httpHosts;
     private HostsTrackingFailureListener failureListener;
@@ -73,7 +76,7 @@ public class RestClientMultipleHostsTests extends RestClientTestCase {
     @Before
     @SuppressWarnings("unchecked")
     public void createRestClient() throws IOException {
-        CloseableHttpAsyncClient httpClient = mock(CloseableHttpAsyncClient.class);
+        httpClient = mock(CloseableHttpAsyncClient.class);
         when(httpClient.<HttpResponse>execute(any(HttpAsyncRequestProducer.class), any(HttpAsyncResponseConsumer.class),
                any(HttpClientContext.class), any(FutureCallback.class))).thenAnswer(new Answer<Future<HttpResponse>>() {
             @Override
@@ -124,6 +127,25 @@ public class RestClientMultipleHostsTests extends RestClientTestCase {
         failureListener.assertNotCalled();
     }
 
+    public void testAdaptiveHostSelectionAvoidsSlowHost() throws IOException {
+        RestClient adaptiveRestClient = new RestClient(httpClient, 10000, new Header[0], httpHosts, null, failureListener, true);
+        HttpHost slowHost = httpHosts[RandomNumbers.randomIntBetween(getRandom(), 0, httpHosts.length - 1)];
+        HostLatencyState slowHostLatency = adaptiveRestClient.getLatencyState(slowHost);
+        slowHostLatency.onRequest();
+        slowHostLatency.onResponse(TimeUnit.SECONDS.toNanos(10));
+        Set<HttpHost> usedHosts = new HashSet<>();
+        int numRequests = httpHosts.length * RandomNumbers.randomIntBetween(getRandom(), 1, 5);
+        for (int i = 0; i < numRequests; i++) {
+            int statusCode = randomOkStatusCode(getRandom());
+            Response response = adaptiveRestClient.performRequest(randomHttpMethod(getRandom()), "/" + statusCode);
+            assertEquals(statusCode, response.getStatusLine().getStatusCode());
+            usedHosts.add(response.getHost());
+        }
+        assertFalse("slow host should have never been selected", usedHosts.contains(slowHost));
+        assertEquals(httpHosts.length - 1, usedHosts.size());
+        failureListener.assertNotCalled();
+    }
+
     public void testRoundRobinNoRetryErrors() throws IOException {
         int numIters = RandomNumbers.randomIntBetween(getRandom(), 1, 5);
         for (int i = 0; i < numIters; i++) {
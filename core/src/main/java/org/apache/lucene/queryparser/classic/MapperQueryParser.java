@@ -637,6 +637,12 @@ public class MapperQueryParser extends QueryParser {
                     setAnalyzer(context.getSearchAnalyzer(currentFieldType));
                 }
                 indexedNameField = currentFieldType.name();
+                if (currentFieldType instanceof StringFieldType == false) {
+                    if (getAllowLeadingWildcard() == false && (termStr.startsWith("*") || termStr.startsWith("?"))) {
+                        throw new ParseException("'*' or '?' not allowed as first character in WildcardQuery");
+                    }
+                    return currentFieldType.wildcardQuery(termStr, getMultiTermRewriteMethod(), context);
+                }
             }
             return super.getWildcardQuery(indexedNameField, termStr);
         } catch (RuntimeException e) {
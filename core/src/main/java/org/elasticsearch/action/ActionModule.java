@@ -291,6 +291,7 @@ import org.elasticsearch.rest.action.cat.RestSnapshotAction;
 import org.elasticsearch.rest.action.cat.RestTasksAction;
 import org.elasticsearch.rest.action.cat.RestTemplatesAction;
 import org.elasticsearch.rest.action.cat.RestThreadPoolAction;
+import org.elasticsearch.rest.action.cat.RestTransportActionStatsAction;
 import org.elasticsearch.rest.action.document.RestBulkAction;
 import org.elasticsearch.rest.action.document.RestDeleteAction;
 import org.elasticsearch.rest.action.document.RestGetAction;
@@ -627,6 +628,7 @@ public class ActionModule extends AbstractModule {
         registerHandler.accept(new org.elasticsearch.rest.action.cat.RestPendingClusterTasksAction(settings, restController));
         registerHandler.accept(new RestAliasAction(settings, restController));
         registerHandler.accept(new RestThreadPoolAction(settings, restController));
+        registerHandler.accept(new RestTransportActionStatsAction(settings, restController));
         registerHandler.accept(new RestPluginsAction(settings, restController));
         registerHandler.accept(new RestFielddataAction(settings, restController));
         registerHandler.accept(new RestNodeAttrsAction(settings, restController));
@@ -56,6 +56,7 @@ public class ClusterAllocationExplainRequest extends MasterNodeRequest<ClusterAl
     private String currentNode;
     private boolean includeYesDecisions = false;
     private boolean includeDiskInfo = false;
+    private boolean includeDeciderTimings = false;
 
     /**
      * Create a new allocation explain request to explain any unassigned shard in the cluster.
@@ -203,6 +204,20 @@ public class ClusterAllocationExplainRequest extends MasterNodeRequest<ClusterAl
         return this.includeDiskInfo;
     }
 
+    /**
+     * Set to {@code true} to include the time spent in each allocation decider while explaining the shard.
+     */
+    public void includeDeciderTimings(boolean includeDeciderTimings) {
+        this.includeDeciderTimings = includeDeciderTimings;
+    }
+
+    /**
+     * Returns {@code true} if the time spent in each allocation decider should also be returned.
+     */
+    public boolean includeDeciderTimings() {
+        return this.includeDeciderTimings;
+    }
+
     @Override
     public String toString() {
         StringBuilder sb = new StringBuilder("ClusterAllocationExplainRequest[");
@@ -234,6 +249,9 @@ public class ClusterAllocationExplainRequest extends MasterNodeRequest<ClusterAl
         this.currentNode = in.readOptionalString();
         this.includeYesDecisions = in.readBoolean();
         this.includeDiskInfo = in.readBoolean();
+        if (in.getVersion().onOrAfter(Version.V_6_0_0_alpha2_UNRELEASED)) {
+            this.includeDeciderTimings = in.readBoolean();
+        }
     }
 
     @Override
@@ -246,6 +264,9 @@ public class ClusterAllocationExplainRequest extends MasterNodeRequest<ClusterAl
         out.writeOptionalString(currentNode);
         out.writeBoolean(includeYesDecisions);
         out.writeBoolean(includeDiskInfo);
+        if (out.getVersion().onOrAfter(Version.V_6_0_0_alpha2_UNRELEASED)) {
+            out.writeBoolean(includeDeciderTimings);
+        }
     }
 
     private void checkVersion(Version version) {
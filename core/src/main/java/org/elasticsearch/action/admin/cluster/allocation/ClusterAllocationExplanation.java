@@ -19,6 +19,7 @@
 
 package org.elasticsearch.action.admin.cluster.allocation;
 
+import org.elasticsearch.Version;
 import org.elasticsearch.cluster.ClusterInfo;
 import org.elasticsearch.cluster.node.DiscoveryNode;
 import org.elasticsearch.cluster.routing.ShardRouting;
@@ -35,7 +36,11 @@ import org.elasticsearch.common.xcontent.XContentBuilder;
 import org.elasticsearch.index.shard.ShardId;
 
 import java.io.IOException;
+import java.util.Collections;
 import java.util.Locale;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.TimeUnit;
 
 import static org.elasticsearch.cluster.routing.allocation.AbstractAllocationDecision.discoveryNodeToXContent;
 
@@ -51,15 +56,23 @@ public final class ClusterAllocationExplanation implements ToXContent, Writeable
     private final DiscoveryNode relocationTargetNode;
     private final ClusterInfo clusterInfo;
     private final ShardAllocationDecision shardAllocationDecision;
+    private final Map<String, Long> deciderTimings;
 
     public ClusterAllocationExplanation(ShardRouting shardRouting, @Nullable DiscoveryNode currentNode,
                                         @Nullable DiscoveryNode relocationTargetNode, @Nullable ClusterInfo clusterInfo,
                                         ShardAllocationDecision shardAllocationDecision) {
+        this(shardRouting, currentNode, relocationTargetNode, clusterInfo, shardAllocationDecision, Collections.emptyMap());
+    }
+
+    public ClusterAllocationExplanation(ShardRouting shardRouting, @Nullable DiscoveryNode currentNode,
+                                        @Nullable DiscoveryNode relocationTargetNode, @Nullable ClusterInfo clusterInfo,
+                                        ShardAllocationDecision shardAllocationDecision, Map<String, Long> deciderTimings) {
         this.shardRouting = shardRouting;
         this.currentNode = currentNode;
         this.relocationTargetNode = relocationTargetNode;
         this.clusterInfo = clusterInfo;
         this.shardAllocationDecision = shardAllocationDecision;
+        this.deciderTimings = Collections.unmodifiableMap(new TreeMap<>(deciderTimings));
     }
 
     public ClusterAllocationExplanation(StreamInput in) throws IOException {
@@ -68,6 +81,11 @@ public final class ClusterAllocationExplanation implements ToXContent, Writeable
         this.relocationTargetNode = in.readOptionalWriteable(DiscoveryNode::new);
         this.clusterInfo = in.readOptionalWriteable(ClusterInfo::new);
         this.shardAllocationDecision = new ShardAllocationDecision(in);
+        if (in.getVersion().onOrAfter(Version.V_6_0_0_alpha2_UNRELEASED)) {
+            this.deciderTimings = Collections.unmodifiableMap(new TreeMap<>(in.readMap(StreamInput::readString, StreamInput::readVLong)));
+        } else {
+            this.deciderTimings = Collections.emptyMap();
+        }
     }
 
     @Override
@@ -77,6 +95,9 @@ public final class ClusterAllocationExplanation implements ToXContent, Writeable
         out.writeOptionalWriteable(relocationTargetNode);
         out.writeOptionalWriteable(clusterInfo);
         shardAllocationDecision.writeTo(out);
+        if (out.getVersion().onOrAfter(Version.V_6_0_0_alpha2_UNRELEASED)) {
+            out.writeMap(deciderTimings, StreamOutput::writeString, StreamOutput::writeVLong);
+        }
     }
 
     /**
@@ -139,6 +160,13 @@ public final class ClusterAllocationExplanation implements ToXContent, Writeable
         return shardAllocationDecision;
     }
 
+    /**
+     * Returns the time in nanoseconds spent in each allocation decider while computing the explanation, keyed by decider name.
+     */
+    public Map<String, Long> getDeciderTimings() {
+        return deciderTimings;
+    }
+
     public XContentBuilder toXContent(XContentBuilder builder, Params params) throws IOException {
         builder.startObject(); {
             builder.field("index", shardRouting.getIndexName());
@@ -179,6 +207,16 @@ public final class ClusterAllocationExplanation implements ToXContent, Writeable
                 }
                 builder.field("explanation", explanation);
             }
+            if (deciderTimings.isEmpty() == false) {
+                builder.startObject("decider_timings"); {
+                    for (Map.Entry<String, Long> entry : deciderTimings.entrySet()) {
+                        builder.startObject(entry.getKey());
+                        builder.timeValueField("time_in_nanos", "time", entry.getValue(), TimeUnit.NANOSECONDS);
+                        builder.endObject();
+                    }
+                }
+                builder.endObject(); // end "decider_timings"
+            }
         }
         builder.endObject(); // end wrapping object
         return builder;
@@ -100,7 +100,8 @@ public class TransportClusterAllocationExplainAction
         logger.debug("explaining the allocation for [{}], found shard [{}]", request, shardRouting);
 
         ClusterAllocationExplanation cae = explainShard(shardRouting, allocation,
-            request.includeDiskInfo() ? clusterInfo : null, request.includeYesDecisions(), gatewayAllocator, shardAllocator);
+            request.includeDiskInfo() ? clusterInfo : null, request.includeYesDecisions(), request.includeDeciderTimings(),
+            gatewayAllocator, shardAllocator);
         listener.onResponse(new ClusterAllocationExplainResponse(cae));
     }
 
@@ -108,7 +109,16 @@ public class TransportClusterAllocationExplainAction
     public static ClusterAllocationExplanation explainShard(ShardRouting shardRouting, RoutingAllocation allocation,
                                                             ClusterInfo clusterInfo, boolean includeYesDecisions,
                                                             GatewayAllocator gatewayAllocator, ShardsAllocator shardAllocator) {
+        return explainShard(shardRouting, allocation, clusterInfo, includeYesDecisions, false, gatewayAllocator, shardAllocator);
+    }
+
+    // public for testing
+    public static ClusterAllocationExplanation explainShard(ShardRouting shardRouting, RoutingAllocation allocation,
+                                                            ClusterInfo clusterInfo, boolean includeYesDecisions,
+                                                            boolean includeDeciderTimings, GatewayAllocator gatewayAllocator,
+                                                            ShardsAllocator shardAllocator) {
         allocation.setDebugMode(includeYesDecisions ? DebugMode.ON : DebugMode.EXCLUDE_YES_DECISIONS);
+        allocation.profileDeciders(includeDeciderTimings);
 
         ShardAllocationDecision shardDecision;
         if (shardRouting.initializing() || shardRouting.relocating()) {
@@ -126,7 +136,7 @@ public class TransportClusterAllocationExplainAction
         return new ClusterAllocationExplanation(shardRouting,
             shardRouting.currentNodeId() != null ? allocation.nodes().get(shardRouting.currentNodeId()) : null,
             shardRouting.relocatingNodeId() != null ? allocation.nodes().get(shardRouting.relocatingNodeId()) : null,
-            clusterInfo, shardDecision);
+            clusterInfo, shardDecision, allocation.getDeciderTimings());
     }
 
     // public for testing
@@ -19,6 +19,7 @@
 
 package org.elasticsearch.action.admin.cluster.node.stats;
 
+import org.elasticsearch.Version;
 import org.elasticsearch.action.support.nodes.BaseNodeResponse;
 import org.elasticsearch.cluster.node.DiscoveryNode;
 import org.elasticsearch.common.Nullable;
@@ -27,6 +28,8 @@ import org.elasticsearch.common.io.stream.StreamOutput;
 import org.elasticsearch.common.xcontent.ToXContent;
 import org.elasticsearch.common.xcontent.XContentBuilder;
 import org.elasticsearch.discovery.DiscoveryStats;
+import org.elasticsearch.gateway.ShardFetchStats;
+import org.elasticsearch.indices.TermsLookupCacheStats;
 import org.elasticsearch.http.HttpStats;
 import org.elasticsearch.indices.NodeIndicesStats;
 import org.elasticsearch.indices.breaker.AllCircuitBreakerStats;
@@ -35,6 +38,7 @@ import org.elasticsearch.monitor.fs.FsInfo;
 import org.elasticsearch.monitor.jvm.JvmStats;
 import org.elasticsearch.monitor.os.OsStats;
 import org.elasticsearch.monitor.process.ProcessStats;
+import org.elasticsearch.node.AdaptiveSelectionStats;
 import org.elasticsearch.script.ScriptStats;
 import org.elasticsearch.threadpool.ThreadPoolStats;
 import org.elasticsearch.transport.TransportStats;
@@ -85,6 +89,15 @@ public class NodeStats extends BaseNodeResponse implements ToXContent {
     @Nullable
     private IngestStats ingestStats;
 
+    @Nullable
+    private AdaptiveSelectionStats adaptiveSelectionStats;
+
+    @Nullable
+    private ShardFetchStats shardFetchStats;
+
+    @Nullable
+    private TermsLookupCacheStats termsLookupCacheStats;
+
     NodeStats() {
     }
 
@@ -94,7 +107,10 @@ public class NodeStats extends BaseNodeResponse implements ToXContent {
                      @Nullable AllCircuitBreakerStats breaker,
                      @Nullable ScriptStats scriptStats,
                      @Nullable DiscoveryStats discoveryStats,
-                     @Nullable IngestStats ingestStats) {
+                     @Nullable IngestStats ingestStats,
+                     @Nullable AdaptiveSelectionStats adaptiveSelectionStats,
+                     @Nullable ShardFetchStats shardFetchStats,
+                     @Nullable TermsLookupCacheStats termsLookupCacheStats) {
         super(node);
         this.timestamp = timestamp;
         this.indices = indices;
@@ -109,6 +125,9 @@ public class NodeStats extends BaseNodeResponse implements ToXContent {
         this.scriptStats = scriptStats;
         this.discoveryStats = discoveryStats;
         this.ingestStats = ingestStats;
+        this.adaptiveSelectionStats = adaptiveSelectionStats;
+        this.shardFetchStats = shardFetchStats;
+        this.termsLookupCacheStats = termsLookupCacheStats;
     }
 
     public long getTimestamp() {
@@ -198,6 +217,21 @@ public class NodeStats extends BaseNodeResponse implements ToXContent {
         return ingestStats;
     }
 
+    @Nullable
+    public AdaptiveSelectionStats getAdaptiveSelectionStats() {
+        return adaptiveSelectionStats;
+    }
+
+    @Nullable
+    public ShardFetchStats getShardFetchStats() {
+        return shardFetchStats;
+    }
+
+    @Nullable
+    public TermsLookupCacheStats getTermsLookupCacheStats() {
+        return termsLookupCacheStats;
+    }
+
     public static NodeStats readNodeStats(StreamInput in) throws IOException {
         NodeStats nodeInfo = new NodeStats();
         nodeInfo.readFrom(in);
@@ -222,6 +256,15 @@ public class NodeStats extends BaseNodeResponse implements ToXContent {
         scriptStats = in.readOptionalWriteable(ScriptStats::new);
         discoveryStats = in.readOptionalWriteable(DiscoveryStats::new);
         ingestStats = in.readOptionalWriteable(IngestStats::new);
+        if (in.getVersion().onOrAfter(Version.V_6_0_0_alpha2_UNRELEASED)) {
+            adaptiveSelectionStats = in.readOptionalWriteable(AdaptiveSelectionStats::new);
+            shardFetchStats = in.readOptionalWriteable(ShardFetchStats::new);
+            termsLookupCacheStats = in.readOptionalWriteable(TermsLookupCacheStats::new);
+        } else {
+            adaptiveSelectionStats = null;
+            shardFetchStats = null;
+            termsLookupCacheStats = null;
+        }
     }
 
     @Override
@@ -245,6 +288,11 @@ public class NodeStats extends BaseNodeResponse implements ToXContent {
         out.writeOptionalWriteable(scriptStats);
         out.writeOptionalWriteable(discoveryStats);
         out.writeOptionalWriteable(ingestStats);
+        if (out.getVersion().onOrAfter(Version.V_6_0_0_alpha2_UNRELEASED)) {
+            out.writeOptionalWriteable(adaptiveSelectionStats);
+            out.writeOptionalWriteable(shardFetchStats);
+            out.writeOptionalWriteable(termsLookupCacheStats);
+        }
     }
 
     @Override
@@ -305,6 +353,15 @@ public class NodeStats extends BaseNodeResponse implements ToXContent {
         if (getIngestStats() != null) {
             getIngestStats().toXContent(builder, params);
         }
+        if (getAdaptiveSelectionStats() != null) {
+            getAdaptiveSelectionStats().toXContent(builder, params);
+        }
+        if (getShardFetchStats() != null) {
+            getShardFetchStats().toXContent(builder, params);
+        }
+        if (getTermsLookupCacheStats() != null) {
+            getTermsLookupCacheStats().toXContent(builder, params);
+        }
         return builder;
     }
 }
@@ -19,6 +19,7 @@
 
 package org.elasticsearch.action.admin.cluster.node.stats;
 
+import org.elasticsearch.Version;
 import org.elasticsearch.action.admin.indices.stats.CommonStatsFlags;
 import org.elasticsearch.action.support.nodes.BaseNodesRequest;
 import org.elasticsearch.common.io.stream.StreamInput;
@@ -43,6 +44,9 @@ public class NodesStatsRequest extends BaseNodesRequest<NodesStatsRequest> {
     private boolean script;
     private boolean discovery;
     private boolean ingest;
+    private boolean adaptiveSelection;
+    private boolean shardFetch;
+    private boolean termsLookupCache;
 
     public NodesStatsRequest() {
     }
@@ -71,6 +75,9 @@ public class NodesStatsRequest extends BaseNodesRequest<NodesStatsRequest> {
         this.script = true;
         this.discovery = true;
         this.ingest = true;
+        this.adaptiveSelection = true;
+        this.shardFetch = true;
+        this.termsLookupCache = true;
         return this;
     }
 
@@ -90,6 +97,9 @@ public class NodesStatsRequest extends BaseNodesRequest<NodesStatsRequest> {
         this.script = false;
         this.discovery = false;
         this.ingest = false;
+        this.adaptiveSelection = false;
+        this.shardFetch = false;
+        this.termsLookupCache = false;
         return this;
     }
 
@@ -265,6 +275,42 @@ public class NodesStatsRequest extends BaseNodesRequest<NodesStatsRequest> {
         return this;
     }
 
+    public boolean adaptiveSelection() {
+        return adaptiveSelection;
+    }
+
+    /**
+     * Should adaptiveSelection statistics be returned.
+     */
+    public NodesStatsRequest adaptiveSelection(boolean adaptiveSelection) {
+        this.adaptiveSelection = adaptiveSelection;
+        return this;
+    }
+
+    public boolean shardFetch() {
+        return shardFetch;
+    }
+
+    /**
+     * Should shard fetch statistics be returned.
+     */
+    public NodesStatsRequest shardFetch(boolean shardFetch) {
+        this.shardFetch = shardFetch;
+        return this;
+    }
+
+    public boolean termsLookupCache() {
+        return termsLookupCache;
+    }
+
+    /**
+     * Should terms lookup cache statistics be returned.
+     */
+    public NodesStatsRequest termsLookupCache(boolean termsLookupCache) {
+        this.termsLookupCache = termsLookupCache;
+        return this;
+    }
+
     @Override
     public void readFrom(StreamInput in) throws IOException {
         super.readFrom(in);
@@ -280,6 +326,15 @@ public class NodesStatsRequest extends BaseNodesRequest<NodesStatsRequest> {
         script = in.readBoolean();
         discovery = in.readBoolean();
         ingest = in.readBoolean();
+        if (in.getVersion().onOrAfter(Version.V_6_0_0_alpha2_UNRELEASED)) {
+            adaptiveSelection = in.readBoolean();
+            shardFetch = in.readBoolean();
+            termsLookupCache = in.readBoolean();
+        } else {
+            adaptiveSelection = false;
+            shardFetch = false;
+            termsLookupCache = false;
+        }
     }
 
     @Override
@@ -297,5 +352,10 @@ public class NodesStatsRequest extends BaseNodesRequest<NodesStatsRequest> {
         out.writeBoolean(script);
         out.writeBoolean(discovery);
         out.writeBoolean(ingest);
+        if (out.getVersion().onOrAfter(Version.V_6_0_0_alpha2_UNRELEASED)) {
+            out.writeBoolean(adaptiveSelection);
+            out.writeBoolean(shardFetch);
+            out.writeBoolean(termsLookupCache);
+        }
     }
 }
@@ -142,4 +142,28 @@ public class NodesStatsRequestBuilder extends NodesOperationRequestBuilder<Nodes
         request.ingest(ingest);
         return this;
     }
+
+    /**
+     * Should adaptive selection statistics be returned.
+     */
+    public NodesStatsRequestBuilder setAdaptiveSelection(boolean adaptiveSelection) {
+        request.adaptiveSelection(adaptiveSelection);
+        return this;
+    }
+
+    /**
+     * Should shard fetch statistics be returned.
+     */
+    public NodesStatsRequestBuilder setShardFetch(boolean shardFetch) {
+        request.shardFetch(shardFetch);
+        return this;
+    }
+
+    /**
+     * Should terms lookup cache statistics be returned.
+     */
+    public NodesStatsRequestBuilder setTermsLookupCache(boolean termsLookupCache) {
+        request.termsLookupCache(termsLookupCache);
+        return this;
+    }
 }
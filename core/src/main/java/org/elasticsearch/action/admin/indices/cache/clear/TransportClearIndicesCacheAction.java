@@ -84,6 +84,7 @@ public class TransportClearIndicesCacheAction extends TransportBroadcastByNodeAc
             if (request.queryCache()) {
                 clearedAtLeastOne = true;
                 service.cache().query().clear("api");
+                indicesService.clearTermsLookupCache(service.index());
             }
             if (request.fieldDataCache()) {
                 clearedAtLeastOne = true;
@@ -114,6 +115,7 @@ public class TransportClearIndicesCacheAction extends TransportBroadcastByNodeAc
                     service.cache().clear("api");
                     service.fieldData().clear();
                     indicesService.clearRequestCache(shard);
+                    indicesService.clearTermsLookupCache(service.index());
                 }
             }
         }
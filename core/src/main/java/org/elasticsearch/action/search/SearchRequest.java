@@ -19,6 +19,7 @@
 
 package org.elasticsearch.action.search;
 
+import org.elasticsearch.Version;
 import org.elasticsearch.action.ActionRequest;
 import org.elasticsearch.action.ActionRequestValidationException;
 import org.elasticsearch.action.IndicesRequest;
@@ -72,6 +73,10 @@ public final class SearchRequest extends ActionRequest implements IndicesRequest
 
     private int batchedReduceSize = 512;
 
+    private boolean ccsMinimizeRoundtrips = false;
+
+    private boolean finalReduce = true;
+
     private String[] types = Strings.EMPTY_ARRAY;
 
     public static final IndicesOptions DEFAULT_INDICES_OPTIONS = IndicesOptions.strictExpandOpenAndForbidClosed();
@@ -100,6 +105,25 @@ public final class SearchRequest extends ActionRequest implements IndicesRequest
         this.source = source;
     }
 
+    /**
+     * Creates a copy of the given search request that is executed against the given indices. Used by cross cluster searches that
+     * minimize round trips to create the request that every cluster executes on its own.
+     */
+    SearchRequest(SearchRequest searchRequest, String[] indices, SearchSourceBuilder source) {
+        this.searchType = searchRequest.searchType;
+        this.indices = indices;
+        this.routing = searchRequest.routing;
+        this.preference = searchRequest.preference;
+        this.source = source;
+        this.requestCache = searchRequest.requestCache;
+        this.scroll = searchRequest.scroll;
+        this.batchedReduceSize = searchRequest.batchedReduceSize;
+        this.types = searchRequest.types;
+        this.indicesOptions = searchRequest.indicesOptions;
+        this.ccsMinimizeRoundtrips = false;
+        this.finalReduce = false;
+    }
+
     @Override
     public ActionRequestValidationException validate() {
         return null;
@@ -295,6 +319,33 @@ public final class SearchRequest extends ActionRequest implements IndicesRequest
         return batchedReduceSize;
     }
 
+    /**
+     * Sets whether a search that targets remote clusters should minimize the number of round trips to them. If <code>true</code> every
+     * remote cluster executes the search on its own shards, reduces the results and sends back a single response that is merged with
+     * the responses of the other clusters. Otherwise, which is the default, the coordinating node queries and fetches every remote shard
+     * directly. Has no effect on scroll requests.
+     */
+    public void setCcsMinimizeRoundtrips(boolean ccsMinimizeRoundtrips) {
+        this.ccsMinimizeRoundtrips = ccsMinimizeRoundtrips;
+    }
+
+    /**
+     * Returns whether a search that targets remote clusters minimizes the number of round trips to them.
+     * @see #setCcsMinimizeRoundtrips(boolean)
+     */
+    public boolean isCcsMinimizeRoundtrips() {
+        return ccsMinimizeRoundtrips;
+    }
+
+    /**
+     * Returns whether the results of the shards are reduced for the last time on the coordinating node. This is <code>false</code> for
+     * the searches that clusters execute on behalf of a cross cluster search that minimizes round trips, whose results are reduced
+     * again on the node that coordinates the cross cluster search.
+     */
+    boolean isFinalReduce() {
+        return finalReduce;
+    }
+
     /**
      * @return true if the request only has suggest
      */
@@ -342,6 +393,10 @@ public final class SearchRequest extends ActionRequest implements IndicesRequest
         indicesOptions = IndicesOptions.readIndicesOptions(in);
         requestCache = in.readOptionalBoolean();
         batchedReduceSize = in.readVInt();
+        if (in.getVersion().onOrAfter(Version.V_6_0_0_alpha2_UNRELEASED)) {
+            ccsMinimizeRoundtrips = in.readBoolean();
+            finalReduce = in.readBoolean();
+        }
     }
 
     @Override
@@ -360,6 +415,10 @@ public final class SearchRequest extends ActionRequest implements IndicesRequest
         indicesOptions.writeIndicesOptions(out);
         out.writeOptionalBoolean(requestCache);
         out.writeVInt(batchedReduceSize);
+        if (out.getVersion().onOrAfter(Version.V_6_0_0_alpha2_UNRELEASED)) {
+            out.writeBoolean(ccsMinimizeRoundtrips);
+            out.writeBoolean(finalReduce);
+        }
     }
 
     @Override
@@ -379,13 +438,15 @@ public final class SearchRequest extends ActionRequest implements IndicesRequest
                 Objects.equals(requestCache, that.requestCache)  &&
                 Objects.equals(scroll, that.scroll) &&
                 Arrays.equals(types, that.types) &&
-                Objects.equals(indicesOptions, that.indicesOptions);
+                Objects.equals(indicesOptions, that.indicesOptions) &&
+                ccsMinimizeRoundtrips == that.ccsMinimizeRoundtrips &&
+                finalReduce == that.finalReduce;
     }
 
     @Override
     public int hashCode() {
         return Objects.hash(searchType, Arrays.hashCode(indices), routing, preference, source, requestCache,
-                scroll, Arrays.hashCode(types), indicesOptions);
+                scroll, Arrays.hashCode(types), indicesOptions, ccsMinimizeRoundtrips, finalReduce);
     }
 
     @Override
@@ -399,6 +460,7 @@ public final class SearchRequest extends ActionRequest implements IndicesRequest
                 ", preference='" + preference + '\'' +
                 ", requestCache=" + requestCache +
                 ", scroll=" + scroll +
+                ", ccsMinimizeRoundtrips=" + ccsMinimizeRoundtrips +
                 ", source=" + source + '}';
     }
 }
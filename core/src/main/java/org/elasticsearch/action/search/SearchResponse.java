@@ -19,13 +19,16 @@
 
 package org.elasticsearch.action.search;
 
+import org.elasticsearch.Version;
 import org.elasticsearch.action.ActionResponse;
 import org.elasticsearch.common.Nullable;
 import org.elasticsearch.common.Strings;
 import org.elasticsearch.common.io.stream.StreamInput;
 import org.elasticsearch.common.io.stream.StreamOutput;
+import org.elasticsearch.common.io.stream.Writeable;
 import org.elasticsearch.common.unit.TimeValue;
 import org.elasticsearch.common.xcontent.StatusToXContentObject;
+import org.elasticsearch.common.xcontent.ToXContent;
 import org.elasticsearch.common.xcontent.XContentBuilder;
 import org.elasticsearch.rest.RestStatus;
 import org.elasticsearch.rest.action.RestActions;
@@ -36,7 +39,12 @@ import org.elasticsearch.search.profile.ProfileShardResult;
 import org.elasticsearch.search.suggest.Suggest;
 
 import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
 import java.util.Map;
+import java.util.Objects;
 
 import static org.elasticsearch.action.search.ShardSearchFailure.readShardSearchFailure;
 import static org.elasticsearch.search.internal.InternalSearchResponse.readInternalSearchResponse;
@@ -58,17 +66,25 @@ public class SearchResponse extends ActionResponse implements StatusToXContentOb
 
     private long tookInMillis;
 
+    private Clusters clusters = Clusters.EMPTY;
+
     public SearchResponse() {
     }
 
     public SearchResponse(InternalSearchResponse internalResponse, String scrollId, int totalShards, int successfulShards,
                           long tookInMillis, ShardSearchFailure[] shardFailures) {
+        this(internalResponse, scrollId, totalShards, successfulShards, tookInMillis, shardFailures, Clusters.EMPTY);
+    }
+
+    public SearchResponse(InternalSearchResponse internalResponse, String scrollId, int totalShards, int successfulShards,
+                          long tookInMillis, ShardSearchFailure[] shardFailures, Clusters clusters) {
         this.internalResponse = internalResponse;
         this.scrollId = scrollId;
         this.totalShards = totalShards;
         this.successfulShards = successfulShards;
         this.tookInMillis = tookInMillis;
         this.shardFailures = shardFailures;
+        this.clusters = Objects.requireNonNull(clusters, "clusters must not be null");
     }
 
     @Override
@@ -180,6 +196,14 @@ public class SearchResponse extends ActionResponse implements StatusToXContentOb
         return internalResponse.profile();
     }
 
+    /**
+     * Returns the details of the clusters that executed the search on their own, which is only the case for cross cluster searches
+     * that minimize round trips. Empty otherwise.
+     */
+    public Clusters getClusters() {
+        return clusters;
+    }
+
     @Override
     public XContentBuilder toXContent(XContentBuilder builder, Params params) throws IOException {
         builder.startObject();
@@ -202,6 +226,7 @@ public class SearchResponse extends ActionResponse implements StatusToXContentOb
         }
         RestActions.buildBroadcastShardsHeader(builder, params, getTotalShards(), getSuccessfulShards(), getFailedShards(),
             getShardFailures());
+        clusters.toXContent(builder, params);
         internalResponse.toXContent(builder, params);
         return builder;
     }
@@ -223,6 +248,9 @@ public class SearchResponse extends ActionResponse implements StatusToXContentOb
         }
         scrollId = in.readOptionalString();
         tookInMillis = in.readVLong();
+        if (in.getVersion().onOrAfter(Version.V_6_0_0_alpha2_UNRELEASED)) {
+            clusters = new Clusters(in);
+        }
     }
 
     @Override
@@ -239,10 +267,171 @@ public class SearchResponse extends ActionResponse implements StatusToXContentOb
 
         out.writeOptionalString(scrollId);
         out.writeVLong(tookInMillis);
+        if (out.getVersion().onOrAfter(Version.V_6_0_0_alpha2_UNRELEASED)) {
+            clusters.writeTo(out);
+        }
     }
 
     @Override
     public String toString() {
         return Strings.toString(this);
     }
+
+    /**
+     * The details of the clusters that took part in a cross cluster search that minimizes round trips, keyed by cluster alias. The local
+     * cluster is reported under {@link #LOCAL_CLUSTER_NAME}.
+     */
+    public static final class Clusters implements ToXContent, Writeable {
+
+        public static final Clusters EMPTY = new Clusters(Collections.emptyList());
+
+        public static final String LOCAL_CLUSTER_NAME = "(local)";
+
+        private final List<Cluster> clusters;
+
+        public Clusters(List<Cluster> clusters) {
+            final List<Cluster> sorted = new ArrayList<>(clusters);
+            sorted.sort(Comparator.comparing(Cluster::getName));
+            this.clusters = Collections.unmodifiableList(sorted);
+        }
+
+        Clusters(StreamInput in) throws IOException {
+            this.clusters = Collections.unmodifiableList(in.readList(Cluster::new));
+        }
+
+        @Override
+        public void writeTo(StreamOutput out) throws IOException {
+            out.writeList(clusters);
+        }
+
+        /**
+         * The details per cluster, sorted by cluster alias.
+         */
+        public List<Cluster> getClusters() {
+            return clusters;
+        }
+
+        public boolean isEmpty() {
+            return clusters.isEmpty();
+        }
+
+        @Override
+        public XContentBuilder toXContent(XContentBuilder builder, Params params) throws IOException {
+            if (clusters.isEmpty() == false) {
+                builder.startObject("_clusters");
+                builder.field("total", clusters.size());
+                builder.startObject("details");
+                for (Cluster cluster : clusters) {
+                    cluster.toXContent(builder, params);
+                }
+                builder.endObject();
+                builder.endObject();
+            }
+            return builder;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) {
+                return true;
+            }
+            if (o == null || getClass() != o.getClass()) {
+                return false;
+            }
+            return clusters.equals(((Clusters) o).clusters);
+        }
+
+        @Override
+        public int hashCode() {
+            return clusters.hashCode();
+        }
+    }
+
+    /**
+     * How long the search took on a single cluster and on how many of its shards it was executed.
+     */
+    public static final class Cluster implements ToXContent, Writeable {
+
+        private final String name;
+        private final long tookInMillis;
+        private final int totalShards;
+        private final int successfulShards;
+        private final int failedShards;
+
+        public Cluster(String name, long tookInMillis, int totalShards, int successfulShards, int failedShards) {
+            this.name = Objects.requireNonNull(name, "name must not be null");
+            this.tookInMillis = tookInMillis;
+            this.totalShards = totalShards;
+            this.successfulShards = successfulShards;
+            this.failedShards = failedShards;
+        }
+
+        Cluster(StreamInput in) throws IOException {
+            name = in.readString();
+            tookInMillis = in.readVLong();
+            totalShards = in.readVInt();
+            successfulShards = in.readVInt();
+            failedShards = in.readVInt();
+        }
+
+        @Override
+        public void writeTo(StreamOutput out) throws IOException {
+            out.writeString(name);
+            out.writeVLong(tookInMillis);
+            out.writeVInt(totalShards);
+            out.writeVInt(successfulShards);
+            out.writeVInt(failedShards);
+        }
+
+        public String getName() {
+            return name;
+        }
+
+        public long getTookInMillis() {
+            return tookInMillis;
+        }
+
+        public int getTotalShards() {
+            return totalShards;
+        }
+
+        public int getSuccessfulShards() {
+            return successfulShards;
+        }
+
+        public int getFailedShards() {
+            return failedShards;
+        }
+
+        @Override
+        public XContentBuilder toXContent(XContentBuilder builder, Params params) throws IOException {
+            builder.startObject(name);
+            builder.field("took", tookInMillis);
+            builder.startObject("_shards");
+            builder.field("total", totalShards);
+            builder.field("successful", successfulShards);
+            builder.field("failed", failedShards);
+            builder.endObject();
+            builder.endObject();
+            return builder;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) {
+                return true;
+            }
+            if (o == null || getClass() != o.getClass()) {
+                return false;
+            }
+            Cluster that = (Cluster) o;
+            return name.equals(that.name) && tookInMillis == that.tookInMillis && totalShards == that.totalShards
+                && successfulShards == that.successfulShards && failedShards == that.failedShards;
+        }
+
+        @Override
+        public int hashCode() {
+            return Objects.hash(name, tookInMillis, totalShards, successfulShards, failedShards);
+        }
+    }
 }
@@ -0,0 +1,225 @@
+/*
+ * Licensed to Elasticsearch under one or more contributor
+ * license agreements. See the NOTICE file distributed with
+ * this work for additional information regarding copyright
+ * ownership. Elasticsearch licenses this file to you under
+ * the Apache License, Version 2.0 (the "License"); you may
+ * not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.elasticsearch.action.search;
+
+import org.elasticsearch.action.OriginalIndices;
+import org.elasticsearch.common.Nullable;
+import org.elasticsearch.index.Index;
+import org.elasticsearch.index.shard.ShardId;
+import org.elasticsearch.search.SearchHit;
+import org.elasticsearch.search.SearchHits;
+import org.elasticsearch.search.SearchShardTarget;
+import org.elasticsearch.search.aggregations.InternalAggregations;
+import org.elasticsearch.search.aggregations.pipeline.PipelineAggregator;
+import org.elasticsearch.search.aggregations.pipeline.SiblingPipelineAggregator;
+import org.elasticsearch.search.builder.SearchSourceBuilder;
+import org.elasticsearch.search.internal.InternalSearchResponse;
+import org.elasticsearch.search.profile.ProfileShardResult;
+import org.elasticsearch.search.profile.SearchProfileShardResults;
+import org.elasticsearch.search.sort.SortBuilder;
+import org.elasticsearch.search.sort.SortOrder;
+import org.elasticsearch.search.suggest.Suggest;
+import org.elasticsearch.transport.RemoteClusterAware;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Merges the responses of the clusters that took part in a cross cluster search that minimizes round trips. Each cluster executes the
+ * search on its own and returns its top {@code from + size} hits together with partially reduced aggregations. This class sorts the hits
+ * of all clusters, prefixes the indices of remote hits with their cluster alias, applies the original pagination and performs the final
+ * reduction of the aggregations.
+ */
+final class SearchResponseMerger {
+
+    static final int DEFAULT_FROM = 0;
+    static final int DEFAULT_SIZE = 10;
+
+    private final int from;
+    private final int size;
+    private final SearchSourceBuilder source;
+    private final SearchPhaseController searchPhaseController;
+    private final TransportSearchAction.SearchTimeProvider timeProvider;
+    private final List<ClusterResponse> responses = new ArrayList<>();
+
+    SearchResponseMerger(@Nullable SearchSourceBuilder source, SearchPhaseController searchPhaseController,
+                         TransportSearchAction.SearchTimeProvider timeProvider) {
+        this.source = source;
+        this.from = source == null || source.from() == -1 ? DEFAULT_FROM : source.from();
+        this.size = source == null || source.size() == -1 ? DEFAULT_SIZE : source.size();
+        this.searchPhaseController = searchPhaseController;
+        this.timeProvider = timeProvider;
+    }
+
+    /**
+     * Adds the response of the given cluster, <code>null</code> for the local cluster. Safe to be called concurrently.
+     */
+    synchronized void add(@Nullable String clusterAlias, SearchResponse response) {
+        responses.add(new ClusterResponse(clusterAlias, response));
+    }
+
+    /**
+     * Returns the merged response once all clusters added their response.
+     */
+    synchronized SearchResponse getMergedResponse() throws IOException {
+        // sort by cluster alias first so that ties between hits are broken consistently
+        responses.sort(Comparator.comparing(r -> r.clusterAlias == null ? "" : r.clusterAlias));
+        int totalShards = 0;
+        int successfulShards = 0;
+        long totalHits = 0;
+        float maxScore = Float.NEGATIVE_INFINITY;
+        boolean timedOut = false;
+        Boolean terminatedEarly = null;
+        int numReducePhases = 1;
+        final List<ShardSearchFailure> failures = new ArrayList<>();
+        final List<SearchHit> hits = new ArrayList<>();
+        final List<InternalAggregations> aggs = new ArrayList<>();
+        final Map<String, List<Suggest.Suggestion>> groupedSuggestions = new HashMap<>();
+        final Map<String, ProfileShardResult> profileResults = new HashMap<>();
+        final List<SearchResponse.Cluster> clusters = new ArrayList<>(responses.size());
+        for (ClusterResponse clusterResponse : responses) {
+            final SearchResponse response = clusterResponse.response;
+            final String clusterAlias = clusterResponse.clusterAlias;
+            totalShards += response.getTotalShards();
+            successfulShards += response.getSuccessfulShards();
+            failures.addAll(Arrays.asList(response.getShardFailures()));
+            numReducePhases += response.getNumReducePhases();
+            timedOut |= response.isTimedOut();
+            if (response.isTerminatedEarly() != null) {
+                terminatedEarly = response.isTerminatedEarly() || Boolean.TRUE.equals(terminatedEarly);
+            }
+            clusters.add(new SearchResponse.Cluster(clusterAlias == null ? SearchResponse.Clusters.LOCAL_CLUSTER_NAME : clusterAlias,
+                response.getTookInMillis(), response.getTotalShards(), response.getSuccessfulShards(), response.getFailedShards()));
+
+            final SearchHits searchHits = response.getHits();
+            totalHits += searchHits.getTotalHits();
+            if (Float.isNaN(searchHits.getMaxScore()) == false) {
+                maxScore = Math.max(maxScore, searchHits.getMaxScore());
+            }
+            for (SearchHit hit : searchHits.getHits()) {
+                if (clusterAlias != null && hit.getShard() != null) {
+                    // the remote cluster doesn't know it is remote, so we have to add the cluster alias to the index names ourselves
+                    final SearchShardTarget shard = hit.getShard();
+                    final Index remoteIndex = shard.getShardId().getIndex();
+                    final Index index = new Index(RemoteClusterAware.buildRemoteIndexName(clusterAlias, remoteIndex.getName()),
+                        remoteIndex.getUUID());
+                    hit.shard(new SearchShardTarget(shard.getNodeId(), new ShardId(index, shard.getShardId().id()), clusterAlias,
+                        OriginalIndices.NONE));
+                }
+                hits.add(hit);
+            }
+            if (response.getAggregations() != null) {
+                aggs.add((InternalAggregations) response.getAggregations());
+            }
+            if (response.getSuggest() != null) {
+                for (Suggest.Suggestion<? extends Suggest.Suggestion.Entry<? extends Suggest.Suggestion.Entry.Option>> suggestion :
+                        response.getSuggest()) {
+                    groupedSuggestions.computeIfAbsent(suggestion.getName(), s -> new ArrayList<>()).add(suggestion);
+                }
+            }
+            if (response.getProfileResults() != null) {
+                for (Map.Entry<String, ProfileShardResult> entry : response.getProfileResults().entrySet()) {
+                    profileResults.put(clusterAlias == null ? entry.getKey() : clusterAlias + ":" + entry.getKey(), entry.getValue());
+                }
+            }
+        }
+
+        // List#sort is stable, hits that compare equal keep the order of their clusters and within their cluster
+        hits.sort(hitComparator());
+        final int fromIndex = Math.min(from, hits.size());
+        final int toIndex = Math.min(from + size, hits.size());
+        final SearchHit[] topHits = hits.subList(fromIndex, toIndex).toArray(new SearchHit[toIndex - fromIndex]);
+        final SearchHits mergedHits = new SearchHits(topHits, totalHits,
+            maxScore == Float.NEGATIVE_INFINITY ? Float.NaN : maxScore);
+        final InternalAggregations mergedAggs = searchPhaseController.reduceAggsFinally(aggs, siblingPipelineAggregators());
+        final Suggest suggest = groupedSuggestions.isEmpty() ? null : new Suggest(Suggest.reduce(groupedSuggestions));
+        final SearchProfileShardResults profile = profileResults.isEmpty() ? null : new SearchProfileShardResults(profileResults);
+        final InternalSearchResponse internalResponse = new InternalSearchResponse(mergedHits, mergedAggs, suggest, profile, timedOut,
+            terminatedEarly, numReducePhases);
+        final long tookInMillis = TimeUnit.NANOSECONDS.toMillis(timeProvider.getRelativeCurrentNanos()
+            - timeProvider.getRelativeStartNanos());
+        return new SearchResponse(internalResponse, null, totalShards, successfulShards, tookInMillis,
+            failures.toArray(ShardSearchFailure.EMPTY_ARRAY), new SearchResponse.Clusters(clusters));
+    }
+
+    private List<SiblingPipelineAggregator> siblingPipelineAggregators() throws IOException {
+        final List<SiblingPipelineAggregator> siblingPipelineAggregators = new ArrayList<>();
+        if (source != null && source.aggregations() != null) {
+            for (PipelineAggregator pipelineAggregator : source.aggregations().createTopLevelPipelineAggregators()) {
+                if (pipelineAggregator instanceof SiblingPipelineAggregator) {
+                    siblingPipelineAggregators.add((SiblingPipelineAggregator) pipelineAggregator);
+                }
+            }
+        }
+        return siblingPipelineAggregators;
+    }
+
+    private Comparator<SearchHit> hitComparator() {
+        final List<SortBuilder<?>> sorts = source == null ? null : source.sorts();
+        if (sorts == null || sorts.isEmpty()) {
+            return (a, b) -> Float.compare(b.getScore(), a.getScore());
+        }
+        return (a, b) -> {
+            final Object[] aValues = a.getSortValues();
+            final Object[] bValues = b.getSortValues();
+            for (int i = 0; i < sorts.size() && i < aValues.length && i < bValues.length; i++) {
+                final int cmp = compareSortValues(aValues[i], bValues[i], sorts.get(i).order());
+                if (cmp != 0) {
+                    return cmp;
+                }
+            }
+            return 0;
+        };
+    }
+
+    /**
+     * Compares two sort values of the same sort field. Missing values are sorted last regardless of the sort order, numbers of different
+     * types are compared as doubles.
+     */
+    @SuppressWarnings("unchecked")
+    static int compareSortValues(Object a, Object b, SortOrder order) {
+        if (a == null || b == null) {
+            return a == null ? (b == null ? 0 : 1) : -1;
+        }
+        final int cmp;
+        if (a.getClass() != b.getClass() && a instanceof Number && b instanceof Number) {
+            cmp = Double.compare(((Number) a).doubleValue(), ((Number) b).doubleValue());
+        } else {
+            cmp = ((Comparable<Object>) a).compareTo(b);
+        }
+        return order == SortOrder.DESC ? -cmp : cmp;
+    }
+
+    private static final class ClusterResponse {
+        private final String clusterAlias;
+        private final SearchResponse response;
+
+        ClusterResponse(String clusterAlias, SearchResponse response) {
+            this.clusterAlias = clusterAlias;
+            this.response = response;
+        }
+    }
+}
@@ -26,10 +26,13 @@ import org.elasticsearch.action.IndicesRequest;
 import org.elasticsearch.action.OriginalIndices;
 import org.elasticsearch.action.support.IndicesOptions;
 import org.elasticsearch.cluster.node.DiscoveryNode;
+import org.elasticsearch.common.Nullable;
 import org.elasticsearch.common.component.AbstractComponent;
 import org.elasticsearch.common.io.stream.StreamInput;
 import org.elasticsearch.common.io.stream.StreamOutput;
 import org.elasticsearch.common.settings.Settings;
+import org.elasticsearch.common.util.concurrent.ConcurrentCollections;
+import org.elasticsearch.node.ResponseCollectorService;
 import org.elasticsearch.search.SearchPhaseResult;
 import org.elasticsearch.search.SearchService;
 import org.elasticsearch.search.dfs.DfsSearchResult;
@@ -50,12 +53,15 @@ import org.elasticsearch.transport.Transport;
 import org.elasticsearch.transport.TransportActionProxy;
 import org.elasticsearch.transport.TaskAwareTransportRequestHandler;
 import org.elasticsearch.transport.TransportChannel;
+import org.elasticsearch.transport.TransportException;
 import org.elasticsearch.transport.TransportRequest;
 import org.elasticsearch.transport.TransportRequestOptions;
 import org.elasticsearch.transport.TransportResponse;
 import org.elasticsearch.transport.TransportService;
 
 import java.io.IOException;
+import java.util.HashMap;
+import java.util.Map;
 import java.util.function.Supplier;
 
 /**
@@ -77,10 +83,18 @@ public class SearchTransportService extends AbstractComponent {
     public static final String FETCH_ID_ACTION_NAME = "indices:data/read/search[phase/fetch/id]";
 
     private final TransportService transportService;
+    private final ResponseCollectorService responseCollectorService;
+    private final Map<String, Long> clientConnections = ConcurrentCollections.newConcurrentMapWithAggressiveConcurrency();
 
     public SearchTransportService(Settings settings, TransportService transportService) {
+        this(settings, transportService, null);
+    }
+
+    public SearchTransportService(Settings settings, TransportService transportService,
+                                  @Nullable ResponseCollectorService responseCollectorService) {
         super(settings);
         this.transportService = transportService;
+        this.responseCollectorService = responseCollectorService;
     }
 
     public void sendFreeContext(Transport.Connection connection, final long contextId, OriginalIndices originalIndices) {
@@ -135,14 +149,14 @@ public class SearchTransportService extends AbstractComponent {
                 new ActionListenerResponseHandler<>(listener, supplier));
         } else {
             transportService.sendChildRequest(connection, QUERY_ACTION_NAME, request, task,
-                new ActionListenerResponseHandler<>(listener, supplier));
+                new ConnectionCountingHandler<>(listener, supplier, connection.getNode().getId()));
         }
     }
 
     public void sendExecuteQuery(Transport.Connection connection, final QuerySearchRequest request, SearchTask task,
                                  final SearchActionListener<QuerySearchResult> listener) {
         transportService.sendChildRequest(connection, QUERY_ID_ACTION_NAME, request, task,
-            new ActionListenerResponseHandler<>(listener, QuerySearchResult::new));
+            new ConnectionCountingHandler<>(listener, QuerySearchResult::new, connection.getNode().getId()));
     }
 
     public void sendExecuteScrollQuery(DiscoveryNode node, final InternalScrollSearchRequest request, SearchTask task,
@@ -186,6 +200,22 @@ public class SearchTransportService extends AbstractComponent {
         return transportService.getRemoteClusterService();
     }
 
+    /**
+     * Return a map of nodeId to pending number of search requests.
+     * This is a snapshot of the current pending search and not a live map.
+     */
+    public Map<String, Long> getPendingSearchRequests() {
+        return new HashMap<>(clientConnections);
+    }
+
+    /**
+     * The service collecting the statistics of the query phase responses, or <code>null</code> if none is collected
+     */
+    @Nullable
+    public ResponseCollectorService getResponseCollectorService() {
+        return responseCollectorService;
+    }
+
     static class ScrollFreeContextRequest extends TransportRequest {
         private long id;
 
@@ -412,4 +442,51 @@ public class SearchTransportService extends AbstractComponent {
             return transportService.getRemoteClusterService().getConnection(node, clusterAlias);
         }
     }
+
+    /**
+     * A response handler that counts the query phase requests that are in flight to a node and records the response time and the
+     * statistics the node piggybacks on the result with the {@link ResponseCollectorService}.
+     */
+    final class ConnectionCountingHandler<Response extends SearchPhaseResult> extends ActionListenerResponseHandler<Response> {
+        private final String nodeId;
+        private final long startNanos = System.nanoTime();
+
+        ConnectionCountingHandler(final ActionListener<? super Response> listener, final Supplier<Response> responseSupplier,
+                                  final String nodeId) {
+            super(listener, responseSupplier);
+            this.nodeId = nodeId;
+            // Increment the number of connections for this node by one
+            clientConnections.compute(nodeId, (id, conns) -> conns == null ? 1 : conns + 1);
+        }
+
+        @Override
+        public void handleResponse(Response response) {
+            QuerySearchResult queryResult = response.queryResult();
+            if (responseCollectorService != null && queryResult != null && queryResult.nodeQueueSize() >= 0) {
+                // Update the response time and queue size stats for this node
+                responseCollectorService.addNodeStatistics(nodeId, queryResult.nodeQueueSize(), System.nanoTime() - startNanos,
+                    queryResult.serviceTimeEWMA());
+            }
+            try {
+                super.handleResponse(response);
+            } finally {
+                decrementConnections();
+            }
+        }
+
+        @Override
+        public void handleException(TransportException e) {
+            try {
+                super.handleException(e);
+            } finally {
+                decrementConnections();
+            }
+        }
+
+        private void decrementConnections() {
+            // Decrement the number of connections or remove it entirely if there are no more connections
+            // We need to remove the entry here so we don't leak when nodes go away forever
+            clientConnections.computeIfPresent(nodeId, (id, conns) -> conns == 1 ? null : conns - 1);
+        }
+    }
 }
@@ -20,6 +20,7 @@
 package org.elasticsearch.action.search;
 
 import org.elasticsearch.action.ActionListener;
+import org.elasticsearch.action.ActionListenerResponseHandler;
 import org.elasticsearch.action.OriginalIndices;
 import org.elasticsearch.action.admin.cluster.shards.ClusterSearchShardsGroup;
 import org.elasticsearch.action.admin.cluster.shards.ClusterSearchShardsResponse;
@@ -38,6 +39,7 @@ import org.elasticsearch.common.inject.Inject;
 import org.elasticsearch.common.settings.Setting;
 import org.elasticsearch.common.settings.Setting.Property;
 import org.elasticsearch.common.settings.Settings;
+import org.elasticsearch.common.util.concurrent.CountDown;
 import org.elasticsearch.index.Index;
 import org.elasticsearch.index.shard.ShardId;
 import org.elasticsearch.search.SearchService;
@@ -47,7 +49,9 @@ import org.elasticsearch.tasks.Task;
 import org.elasticsearch.threadpool.ThreadPool;
 import org.elasticsearch.transport.RemoteClusterAware;
 import org.elasticsearch.transport.RemoteClusterService;
+import org.elasticsearch.transport.RemoteTransportException;
 import org.elasticsearch.transport.Transport;
+import org.elasticsearch.transport.TransportRequestOptions;
 import org.elasticsearch.transport.TransportService;
 
 import java.util.ArrayList;
@@ -58,6 +62,7 @@ import java.util.List;
 import java.util.Map;
 import java.util.Set;
 import java.util.concurrent.Executor;
+import java.util.concurrent.atomic.AtomicReference;
 import java.util.function.BiFunction;
 import java.util.function.LongSupplier;
 
@@ -74,6 +79,7 @@ public class TransportSearchAction extends HandledTransportAction<SearchRequest,
     private final RemoteClusterService remoteClusterService;
     private final SearchPhaseController searchPhaseController;
     private final SearchService searchService;
+    private final TransportService transportService;
 
     @Inject
     public TransportSearchAction(Settings settings, ThreadPool threadPool, TransportService transportService, SearchService searchService,
@@ -87,6 +93,7 @@ public class TransportSearchAction extends HandledTransportAction<SearchRequest,
         SearchTransportService.registerRequestHandler(transportService, searchService);
         this.clusterService = clusterService;
         this.searchService = searchService;
+        this.transportService = transportService;
     }
 
     private Map<String, AliasFilter> buildPerIndexAliasFilter(SearchRequest request, ClusterState clusterState,
@@ -186,6 +193,8 @@ public class TransportSearchAction extends HandledTransportAction<SearchRequest,
         if (remoteClusterIndices.isEmpty()) {
             executeSearch((SearchTask)task, timeProvider, searchRequest, localIndices, Collections.emptyList(),
                 (clusterName, nodeId) -> null, clusterState, Collections.emptyMap(), listener);
+        } else if (searchRequest.isCcsMinimizeRoundtrips() && searchRequest.scroll() == null) {
+            ccsRemoteReduce((SearchTask) task, timeProvider, searchRequest, localIndices, remoteClusterIndices, clusterState, listener);
         } else {
             remoteClusterService.collectSearchShards(searchRequest.indicesOptions(), searchRequest.preference(), searchRequest.routing(),
                 remoteClusterIndices, ActionListener.wrap((searchShardsResponses) -> {
@@ -199,6 +208,103 @@ public class TransportSearchAction extends HandledTransportAction<SearchRequest,
         }
     }
 
+    /**
+     * Executes a cross cluster search that minimizes round trips: every remote cluster runs the whole search on its own indices and
+     * returns a single partially reduced response, and so does the local cluster if local indices are searched. The responses are
+     * merged by {@link SearchResponseMerger} once all clusters responded. The search fails if any of the clusters fails.
+     */
+    private void ccsRemoteReduce(SearchTask task, SearchTimeProvider timeProvider, SearchRequest searchRequest,
+                                 OriginalIndices localIndices, Map<String, OriginalIndices> remoteClusterIndices, ClusterState clusterState,
+                                 ActionListener<SearchResponse> listener) {
+        final SearchResponseMerger merger = new SearchResponseMerger(searchRequest.source(), searchPhaseController, timeProvider);
+        final boolean searchLocalCluster = localIndices != null && localIndices.indices().length > 0;
+        final int numClusters = remoteClusterIndices.size() + (searchLocalCluster ? 1 : 0);
+        final CountDown countDown = new CountDown(numClusters);
+        final AtomicReference<Exception> failure = new AtomicReference<>();
+        for (Map.Entry<String, OriginalIndices> entry : remoteClusterIndices.entrySet()) {
+            final String clusterAlias = entry.getKey();
+            final SearchRequest remoteRequest = ccsClusterRequest(searchRequest, entry.getValue().indices());
+            final ActionListener<SearchResponse> clusterListener = ccsClusterListener(clusterAlias, merger, countDown, failure, listener);
+            remoteClusterService.ensureConnected(clusterAlias, ActionListener.wrap(v -> {
+                final Transport.Connection connection = remoteClusterService.getConnection(clusterAlias);
+                transportService.sendRequest(connection, SearchAction.NAME, remoteRequest, TransportRequestOptions.EMPTY,
+                    new ActionListenerResponseHandler<SearchResponse>(clusterListener, SearchResponse::new) {
+                        @Override
+                        public String executor() {
+                            return ThreadPool.Names.SEARCH;
+                        }
+                    });
+            }, clusterListener::onFailure));
+        }
+        if (searchLocalCluster) {
+            final SearchRequest localRequest = ccsClusterRequest(searchRequest, localIndices.indices());
+            final ActionListener<SearchResponse> clusterListener = ccsClusterListener(null, merger, countDown, failure, listener);
+            try {
+                final SearchTimeProvider localTimeProvider = new SearchTimeProvider(timeProvider.getAbsoluteStartMillis(),
+                    System.nanoTime(), System::nanoTime);
+                executeSearch(task, localTimeProvider, localRequest, localIndices, Collections.emptyList(),
+                    (clusterName, nodeId) -> null, clusterState, Collections.emptyMap(), clusterListener);
+            } catch (Exception e) {
+                clusterListener.onFailure(e);
+            }
+        }
+    }
+
+    /**
+     * Creates the request that a single cluster executes on behalf of a cross cluster search that minimizes round trips. The cluster
+     * returns the top {@code from + size} hits since the final pagination can only be applied once the hits of all clusters are merged,
+     * and doesn't apply the final reduction to the aggregations.
+     */
+    static SearchRequest ccsClusterRequest(SearchRequest originalRequest, String[] indices) {
+        SearchSourceBuilder source = originalRequest.source();
+        if (source != null) {
+            final int from = source.from() == -1 ? SearchResponseMerger.DEFAULT_FROM : source.from();
+            final int size = source.size() == -1 ? SearchResponseMerger.DEFAULT_SIZE : source.size();
+            source = source.shallowCopy().from(0).size(from + size);
+        }
+        return new SearchRequest(originalRequest, indices, source);
+    }
+
+    private static ActionListener<SearchResponse> ccsClusterListener(String clusterAlias, SearchResponseMerger merger, CountDown countDown,
+                                                                     AtomicReference<Exception> failure,
+                                                                     ActionListener<SearchResponse> listener) {
+        return new ActionListener<SearchResponse>() {
+            @Override
+            public void onResponse(SearchResponse searchResponse) {
+                merger.add(clusterAlias, searchResponse);
+                maybeFinish();
+            }
+
+            @Override
+            public void onFailure(Exception e) {
+                final Exception exception = clusterAlias == null ? e
+                    : new RemoteTransportException("error while communicating with remote cluster [" + clusterAlias + "]", e);
+                if (failure.compareAndSet(null, exception) == false) {
+                    failure.get().addSuppressed(exception);
+                }
+                maybeFinish();
+            }
+
+            private void maybeFinish() {
+                if (countDown.countDown()) {
+                    final Exception exception = failure.get();
+                    if (exception != null) {
+                        listener.onFailure(exception);
+                        return;
+                    }
+                    final SearchResponse mergedResponse;
+                    try {
+                        mergedResponse = merger.getMergedResponse();
+                    } catch (Exception e) {
+                        listener.onFailure(e);
+                        return;
+                    }
+                    listener.onResponse(mergedResponse);
+                }
+            }
+        };
+    }
+
     static BiFunction<String, String, DiscoveryNode> processRemoteShards(Map<String, ClusterSearchShardsResponse> searchShardsResponses,
                                                                       Map<String, OriginalIndices> remoteIndicesByCluster,
                                                                       List<SearchShardIterator> remoteShardIterators,
@@ -271,8 +377,10 @@ public class TransportSearchAction extends HandledTransportAction<SearchRequest,
         for (int i = 0; i < indices.length; i++) {
             concreteIndices[i] = indices[i].getName();
         }
+        Map<String, Long> nodeSearchCounts = searchTransportService.getPendingSearchRequests();
         GroupShardsIterator<ShardIterator> localShardsIterator = clusterService.operationRouting().searchShards(clusterState,
-            concreteIndices, routingMap, searchRequest.preference());
+            concreteIndices, routingMap, searchRequest.preference(), searchTransportService.getResponseCollectorService(),
+            nodeSearchCounts);
         GroupShardsIterator<SearchShardIterator> shardIterators = mergeShardsIterators(localShardsIterator, localIndices,
             remoteShardIterators);
 
@@ -31,6 +31,15 @@ public interface ClusterInfoService {
     /** Add a listener that will be called every time new information is gathered */
     void addListener(Listener listener);
 
+    /**
+     * Applies the disk usage information that a data node pushed to the elected master.
+     *
+     * @return <code>true</code> if the node has to send a full update because the information the update is based on isn't available
+     */
+    default boolean applyNodeDiskUsageUpdate(NodeDiskUsageUpdate update) {
+        return false;
+    }
+
     /**
      * Interface for listeners to implement in order to perform actions when
      * new information about the cluster has been gathered
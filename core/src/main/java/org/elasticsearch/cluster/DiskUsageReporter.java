@@ -0,0 +1,370 @@
+/*
+ * Licensed to Elasticsearch under one or more contributor
+ * license agreements. See the NOTICE file distributed with
+ * this work for additional information regarding copyright
+ * ownership. Elasticsearch licenses this file to you under
+ * the Apache License, Version 2.0 (the "License"); you may
+ * not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.elasticsearch.cluster;
+
+import com.carrotsearch.hppc.ObjectLongHashMap;
+import com.carrotsearch.hppc.cursors.ObjectLongCursor;
+import org.apache.logging.log4j.message.ParameterizedMessage;
+import org.apache.logging.log4j.util.Supplier;
+import org.elasticsearch.Version;
+import org.elasticsearch.cluster.node.DiscoveryNode;
+import org.elasticsearch.cluster.routing.ShardRouting;
+import org.elasticsearch.cluster.service.ClusterService;
+import org.elasticsearch.common.Nullable;
+import org.elasticsearch.common.collect.ImmutableOpenMap;
+import org.elasticsearch.common.component.AbstractLifecycleComponent;
+import org.elasticsearch.common.settings.ClusterSettings;
+import org.elasticsearch.common.settings.Setting;
+import org.elasticsearch.common.settings.Setting.Property;
+import org.elasticsearch.common.settings.Settings;
+import org.elasticsearch.common.unit.ByteSizeUnit;
+import org.elasticsearch.common.unit.ByteSizeValue;
+import org.elasticsearch.common.unit.TimeValue;
+import org.elasticsearch.common.util.concurrent.EsRejectedExecutionException;
+import org.elasticsearch.index.IndexService;
+import org.elasticsearch.index.shard.IndexShard;
+import org.elasticsearch.index.store.StoreStats;
+import org.elasticsearch.indices.IndicesService;
+import org.elasticsearch.monitor.fs.FsService;
+import org.elasticsearch.threadpool.ThreadPool;
+import org.elasticsearch.transport.TransportChannel;
+import org.elasticsearch.transport.TransportException;
+import org.elasticsearch.transport.TransportRequestHandler;
+import org.elasticsearch.transport.TransportResponseHandler;
+import org.elasticsearch.transport.TransportService;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Pushes the disk usage and shard sizes of a data node to the elected master instead of having the master poll the nodes and indices
+ * stats of all nodes, see {@link InternalClusterInfoService}. Every <code>cluster.info.update.interval</code> the node compares its
+ * disk usage and shard sizes with what it last reported and only sends the values that changed by more than
+ * <code>cluster.info.push.change_threshold</code>. A full update is sent whenever a new master is elected or the master lost track
+ * of what the node reported before.
+ */
+public class DiskUsageReporter extends AbstractLifecycleComponent implements ClusterStateListener {
+
+    public static final String ACTION_NAME = "internal:cluster/info/disk_usage";
+
+    public static final Setting<Boolean> PUSH_ENABLED_SETTING =
+        Setting.boolSetting("cluster.info.push.enabled", true, Property.Dynamic, Property.NodeScope);
+    public static final Setting<ByteSizeValue> CHANGE_THRESHOLD_SETTING =
+        Setting.byteSizeSetting("cluster.info.push.change_threshold", new ByteSizeValue(10, ByteSizeUnit.MB),
+            Property.Dynamic, Property.NodeScope);
+
+    private final ClusterService clusterService;
+    private final ThreadPool threadPool;
+    private final TransportService transportService;
+    private final IndicesService indicesService;
+    private final FsService fsService;
+
+    private volatile boolean enabled;
+    private volatile ByteSizeValue changeThreshold;
+    private volatile TimeValue updateInterval;
+
+    /** set while an update is built or on its way to the master, the reported state is only accessed by the holder of the flag */
+    private final AtomicBoolean reporting = new AtomicBoolean();
+    private final ReportedDiskUsage reported = new ReportedDiskUsage();
+
+    public DiskUsageReporter(Settings settings, ClusterService clusterService, ThreadPool threadPool, TransportService transportService,
+                             IndicesService indicesService, FsService fsService, ClusterInfoService clusterInfoService) {
+        super(settings);
+        this.clusterService = clusterService;
+        this.threadPool = threadPool;
+        this.transportService = transportService;
+        this.indicesService = indicesService;
+        this.fsService = fsService;
+        this.enabled = PUSH_ENABLED_SETTING.get(settings);
+        this.changeThreshold = CHANGE_THRESHOLD_SETTING.get(settings);
+        this.updateInterval = InternalClusterInfoService.INTERNAL_CLUSTER_INFO_UPDATE_INTERVAL_SETTING.get(settings);
+        ClusterSettings clusterSettings = clusterService.getClusterSettings();
+        clusterSettings.addSettingsUpdateConsumer(PUSH_ENABLED_SETTING, this::setEnabled);
+        clusterSettings.addSettingsUpdateConsumer(CHANGE_THRESHOLD_SETTING, this::setChangeThreshold);
+        clusterSettings.addSettingsUpdateConsumer(InternalClusterInfoService.INTERNAL_CLUSTER_INFO_UPDATE_INTERVAL_SETTING,
+            this::setUpdateInterval);
+        transportService.registerRequestHandler(ACTION_NAME, NodeDiskUsageUpdate::new, ThreadPool.Names.MANAGEMENT,
+            new TransportRequestHandler<NodeDiskUsageUpdate>() {
+                @Override
+                public void messageReceived(NodeDiskUsageUpdate request, TransportChannel channel) throws Exception {
+                    channel.sendResponse(new NodeDiskUsageUpdate.Response(clusterInfoService.applyNodeDiskUsageUpdate(request)));
+                }
+            });
+        clusterService.addListener(this);
+    }
+
+    private void setEnabled(boolean enabled) {
+        this.enabled = enabled;
+    }
+
+    private void setChangeThreshold(ByteSizeValue changeThreshold) {
+        this.changeThreshold = changeThreshold;
+    }
+
+    private void setUpdateInterval(TimeValue updateInterval) {
+        this.updateInterval = updateInterval;
+    }
+
+    @Override
+    protected void doStart() {
+        scheduleNextReport();
+    }
+
+    @Override
+    protected void doStop() {
+    }
+
+    @Override
+    protected void doClose() {
+    }
+
+    @Override
+    public void clusterChanged(ClusterChangedEvent event) {
+        // report right away to a newly elected master so that it doesn't have to wait for a full interval for the disk usages
+        if (event.nodesDelta().masterNodeChanged() && event.state().nodes().getMasterNode() != null
+            && event.state().nodes().getLocalNode().isDataNode()) {
+            reportNow();
+        }
+    }
+
+    private void scheduleNextReport() {
+        if (lifecycle.started() == false) {
+            return;
+        }
+        try {
+            threadPool.schedule(updateInterval, ThreadPool.Names.MANAGEMENT, () -> {
+                try {
+                    report();
+                } finally {
+                    scheduleNextReport();
+                }
+            });
+        } catch (EsRejectedExecutionException e) {
+            logger.debug("couldn't schedule disk usage report - node might be shutting down", e);
+        }
+    }
+
+    private void reportNow() {
+        if (lifecycle.started() == false) {
+            return;
+        }
+        try {
+            threadPool.executor(ThreadPool.Names.MANAGEMENT).execute(this::report);
+        } catch (EsRejectedExecutionException e) {
+            logger.debug("couldn't report disk usage - node might be shutting down", e);
+        }
+    }
+
+    /**
+     * Sends the changes since the last report to the master, if there are any and no other report is in flight
+     */
+    void report() {
+        if (enabled == false || reporting.compareAndSet(false, true) == false) {
+            return;
+        }
+        boolean sent = false;
+        try {
+            final ClusterState state = clusterService.state();
+            final DiscoveryNode localNode = state.nodes().getLocalNode();
+            final DiscoveryNode masterNode = state.nodes().getMasterNode();
+            if (localNode == null || localNode.isDataNode() == false || masterNode == null
+                || masterNode.getVersion().before(Version.V_6_0_0_alpha2_UNRELEASED)) {
+                return;
+            }
+            final boolean full = masterNode.getEphemeralId().equals(reported.masterEphemeralId) == false;
+
+            ImmutableOpenMap.Builder<String, DiskUsage> leastAvailable = ImmutableOpenMap.builder();
+            ImmutableOpenMap.Builder<String, DiskUsage> mostAvailable = ImmutableOpenMap.builder();
+            InternalClusterInfoService.fillDiskUsage(logger, localNode, fsService.stats(), leastAvailable, mostAvailable);
+            final ObjectLongHashMap<ShardRouting> shardSizes = new ObjectLongHashMap<>();
+            final Map<ShardRouting, String> dataPaths = new HashMap<>();
+            for (IndexService indexService : indicesService) {
+                for (IndexShard indexShard : indexService) {
+                    final ShardRouting shardRouting = indexShard.routingEntry();
+                    if (shardRouting == null || shardRouting.active() == false) {
+                        continue;
+                    }
+                    final StoreStats storeStats;
+                    try {
+                        storeStats = indexShard.storeStats();
+                    } catch (Exception e) {
+                        logger.debug((Supplier<?>)
+                            () -> new ParameterizedMessage("{} failed to retrieve the store size", indexShard.shardId()), e);
+                        continue;
+                    }
+                    if (storeStats != null) {
+                        shardSizes.put(shardRouting, storeStats.sizeInBytes());
+                        dataPaths.put(shardRouting, indexShard.shardPath().getRootDataPath().toString());
+                    }
+                }
+            }
+
+            final NodeDiskUsageUpdate update = reported.diff(localNode.getId(), full, leastAvailable.get(localNode.getId()),
+                mostAvailable.get(localNode.getId()), shardSizes, dataPaths, changeThreshold.getBytes());
+            if (update.isEmpty()) {
+                return;
+            }
+            logger.trace("sending {} disk usage update with [{}] shard sizes and [{}] removed shards to [{}]",
+                full ? "full" : "incremental", update.getShardSizes().size(), update.getRemovedShards().size(), masterNode);
+            transportService.sendRequest(masterNode, ACTION_NAME, update,
+                new TransportResponseHandler<NodeDiskUsageUpdate.Response>() {
+                    @Override
+                    public NodeDiskUsageUpdate.Response newInstance() {
+                        return new NodeDiskUsageUpdate.Response();
+                    }
+
+                    @Override
+                    public void handleResponse(NodeDiskUsageUpdate.Response response) {
+                        final boolean fullUpdateRequired = response.isFullUpdateRequired();
+                        if (fullUpdateRequired) {
+                            reported.reset();
+                        } else {
+                            reported.apply(masterNode.getEphemeralId(), update);
+                        }
+                        reporting.set(false);
+                        if (fullUpdateRequired) {
+                            if (update.isFull()) {
+                                // e.g. the node is no longer the master, the next scheduled report tries again rather than a tight loop
+                                logger.debug("master [{}] didn't accept a full disk usage update, retrying with the next report",
+                                    masterNode);
+                            } else {
+                                logger.debug("master [{}] requested a full disk usage update", masterNode);
+                                reportNow();
+                            }
+                        }
+                    }
+
+                    @Override
+                    public void handleException(TransportException exp) {
+                        logger.debug((Supplier<?>)
+                            () -> new ParameterizedMessage("failed to send disk usage update to [{}]", masterNode), exp);
+                        // we don't know what the master received, start over with the next report
+                        reported.reset();
+                        reporting.set(false);
+                    }
+
+                    @Override
+                    public String executor() {
+                        return ThreadPool.Names.SAME;
+                    }
+                });
+            sent = true;
+        } catch (Exception e) {
+            logger.warn("failed to report disk usage", e);
+            reported.reset();
+        } finally {
+            if (sent == false) {
+                reporting.set(false);
+            }
+        }
+    }
+
+    /**
+     * The disk usages and shard sizes that the master acknowledged. Shard sizes are kept in a primitive map keyed by the shard routing
+     * as reported, a changed routing is reported as the removal of the old routing and the addition of the new one.
+     */
+    static final class ReportedDiskUsage {
+
+        private String masterEphemeralId;
+        private DiskUsage leastAvailable;
+        private DiskUsage mostAvailable;
+        private ObjectLongHashMap<ShardRouting> shardSizes = new ObjectLongHashMap<>();
+
+        /**
+         * Computes the update to send for the current disk usages and shard sizes of the node
+         */
+        NodeDiskUsageUpdate diff(String nodeId, boolean full, @Nullable DiskUsage currentLeastAvailable,
+                                 @Nullable DiskUsage currentMostAvailable, ObjectLongHashMap<ShardRouting> currentShardSizes,
+                                 Map<ShardRouting, String> dataPaths, long threshold) {
+            final List<NodeDiskUsageUpdate.ShardSize> changedSizes = new ArrayList<>();
+            final List<ShardRouting> removedShards = new ArrayList<>();
+            for (ObjectLongCursor<ShardRouting> cursor : currentShardSizes) {
+                final int index = shardSizes.indexOf(cursor.key);
+                if (full || shardSizes.indexExists(index) == false
+                    || changed(shardSizes.indexGet(index), cursor.value, threshold)) {
+                    changedSizes.add(new NodeDiskUsageUpdate.ShardSize(cursor.key, cursor.value, dataPaths.get(cursor.key)));
+                }
+            }
+            if (full == false) {
+                for (ObjectLongCursor<ShardRouting> cursor : shardSizes) {
+                    if (currentShardSizes.containsKey(cursor.key) == false) {
+                        removedShards.add(cursor.key);
+                    }
+                }
+            }
+            return new NodeDiskUsageUpdate(nodeId, full,
+                full || changed(leastAvailable, currentLeastAvailable, threshold) ? currentLeastAvailable : null,
+                full || changed(mostAvailable, currentMostAvailable, threshold) ? currentMostAvailable : null,
+                changedSizes, removedShards);
+        }
+
+        /**
+         * Records an update that the master acknowledged
+         */
+        void apply(String masterEphemeralId, NodeDiskUsageUpdate update) {
+            if (update.isFull()) {
+                shardSizes = new ObjectLongHashMap<>(update.getShardSizes().size());
+                leastAvailable = null;
+                mostAvailable = null;
+            }
+            for (ShardRouting removed : update.getRemovedShards()) {
+                shardSizes.remove(removed);
+            }
+            for (NodeDiskUsageUpdate.ShardSize shardSize : update.getShardSizes()) {
+                shardSizes.put(shardSize.getShardRouting(), shardSize.getSize());
+            }
+            if (update.getLeastAvailableDiskUsage() != null) {
+                leastAvailable = update.getLeastAvailableDiskUsage();
+            }
+            if (update.getMostAvailableDiskUsage() != null) {
+                mostAvailable = update.getMostAvailableDiskUsage();
+            }
+            this.masterEphemeralId = masterEphemeralId;
+        }
+
+        /**
+         * Forgets everything that was reported so that the next update is a full one
+         */
+        void reset() {
+            masterEphemeralId = null;
+            leastAvailable = null;
+            mostAvailable = null;
+            shardSizes = new ObjectLongHashMap<>();
+        }
+
+        private static boolean changed(long reportedSize, long currentSize, long threshold) {
+            return reportedSize != currentSize && Math.abs(currentSize - reportedSize) >= threshold;
+        }
+
+        private static boolean changed(@Nullable DiskUsage reportedUsage, @Nullable DiskUsage currentUsage, long threshold) {
+            if (currentUsage == null) {
+                return false;
+            }
+            return reportedUsage == null
+                || Objects.equals(reportedUsage.getPath(), currentUsage.getPath()) == false
+                || reportedUsage.getTotalBytes() != currentUsage.getTotalBytes()
+                || changed(reportedUsage.getFreeBytes(), currentUsage.getFreeBytes(), threshold);
+        }
+    }
+}
@@ -23,20 +23,44 @@ import org.elasticsearch.ElasticsearchException;
 import org.elasticsearch.common.io.stream.StreamInput;
 
 import java.io.IOException;
+import java.util.List;
 
 /**
  * Thrown by {@link Diff#apply} method
  */
 public class IncompatibleClusterStateVersionException extends ElasticsearchException {
+
+    private static final String LOCAL_VERSION_KEY = "es.local_cluster_state_version";
+    private static final String LOCAL_UUID_KEY = "es.local_cluster_state_uuid";
+
     public IncompatibleClusterStateVersionException(String msg) {
         super(msg);
     }
 
     public IncompatibleClusterStateVersionException(long expectedVersion, String expectedUuid, long receivedVersion, String receivedUuid) {
         super("Expected diff for version " + expectedVersion + " with uuid " + expectedUuid + " got version " + receivedVersion + " and uuid " + receivedUuid);
+        // carried back to the master so it can send a diff against the state this node has if it still retains that state
+        addMetadata(LOCAL_VERSION_KEY, Long.toString(expectedVersion));
+        addMetadata(LOCAL_UUID_KEY, expectedUuid);
     }
 
     public IncompatibleClusterStateVersionException(StreamInput in) throws IOException{
         super(in);
     }
+
+    /**
+     * Returns the version of the cluster state the diff could not be applied to, or <code>-1</code> if unknown
+     */
+    public long getLocalVersion() {
+        List<String> version = getMetadata(LOCAL_VERSION_KEY);
+        return version == null ? -1 : Long.parseLong(version.get(0));
+    }
+
+    /**
+     * Returns the uuid of the cluster state the diff could not be applied to, or <code>null</code> if unknown
+     */
+    public String getLocalUuid() {
+        List<String> uuid = getMetadata(LOCAL_UUID_KEY);
+        return uuid == null ? null : uuid.get(0);
+    }
 }
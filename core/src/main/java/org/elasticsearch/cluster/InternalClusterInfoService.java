@@ -19,7 +19,10 @@
 
 package org.elasticsearch.cluster;
 
+import com.carrotsearch.hppc.cursors.ObjectCursor;
+import com.carrotsearch.hppc.cursors.ObjectObjectCursor;
 import org.apache.logging.log4j.Logger;
+import org.elasticsearch.Version;
 import org.elasticsearch.action.ActionListener;
 import org.elasticsearch.action.LatchedActionListener;
 import org.elasticsearch.action.admin.cluster.node.stats.NodeStats;
@@ -33,6 +36,7 @@ import org.elasticsearch.cluster.block.ClusterBlockException;
 import org.elasticsearch.cluster.metadata.IndexMetaData;
 import org.elasticsearch.cluster.metadata.MetaData;
 import org.elasticsearch.cluster.node.DiscoveryNode;
+import org.elasticsearch.cluster.node.DiscoveryNodes;
 import org.elasticsearch.cluster.routing.ShardRouting;
 import org.elasticsearch.cluster.routing.allocation.DiskThresholdSettings;
 import org.elasticsearch.cluster.service.ClusterService;
@@ -48,7 +52,10 @@ import org.elasticsearch.monitor.fs.FsInfo;
 import org.elasticsearch.threadpool.ThreadPool;
 import org.elasticsearch.transport.ReceiveTimeoutTransportException;
 
+import java.util.HashMap;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.concurrent.CopyOnWriteArrayList;
 import java.util.concurrent.CountDownLatch;
 import java.util.concurrent.TimeUnit;
@@ -62,7 +69,10 @@ import java.util.concurrent.TimeUnit;
  * ClusterInfoUpdateJob if a node has been added.
  *
  * Every time the timer runs, gathers information about the disk usage and
- * shard sizes across the cluster.
+ * shard sizes across the cluster. If all data nodes push their disk usage
+ * to the master, see {@link DiskUsageReporter}, the pushed updates are
+ * recorded per node as they arrive and the timer only notifies the
+ * listeners instead of polling the nodes and indices stats.
  */
 public class InternalClusterInfoService extends AbstractComponent
     implements ClusterInfoService, LocalNodeMasterListener, ClusterStateListener {
@@ -80,9 +90,20 @@ public class InternalClusterInfoService extends AbstractComponent
     private volatile ImmutableOpenMap<String, DiskUsage> mostAvailableSpaceUsages;
     private volatile ImmutableOpenMap<ShardRouting, String> shardRoutingToDataPath;
     private volatile ImmutableOpenMap<String, Long> shardSizes;
+    /** the shard level info of the last poll of the indices stats, guarded by this */
+    private ImmutableOpenMap<ShardRouting, String> polledShardRoutingToDataPath;
+    private ImmutableOpenMap<String, Long> polledShardSizes;
+    /** whether the polled or pushed shard level info changed since {@link #shardSizes} and {@link #shardRoutingToDataPath} were built */
+    private volatile boolean shardLevelInfoChanged = false;
     private volatile boolean isMaster = false;
     private volatile boolean enabled;
+    private volatile boolean pushEnabled;
     private volatile TimeValue fetchTimeout;
+    /**
+     * node id to shard identifier to shard size and data path, for the shards on the nodes that pushed their disk usage, in the order
+     * the nodes sent their full update, guarded by this
+     */
+    private final Map<String, Map<String, NodeDiskUsageUpdate.ShardSize>> pushedShardSizes = new LinkedHashMap<>();
     private final ClusterService clusterService;
     private final ThreadPool threadPool;
     private final NodeClient client;
@@ -94,16 +115,20 @@ public class InternalClusterInfoService extends AbstractComponent
         this.mostAvailableSpaceUsages = ImmutableOpenMap.of();
         this.shardRoutingToDataPath = ImmutableOpenMap.of();
         this.shardSizes = ImmutableOpenMap.of();
+        this.polledShardRoutingToDataPath = ImmutableOpenMap.of();
+        this.polledShardSizes = ImmutableOpenMap.of();
         this.clusterService = clusterService;
         this.threadPool = threadPool;
         this.client = client;
         this.updateFrequency = INTERNAL_CLUSTER_INFO_UPDATE_INTERVAL_SETTING.get(settings);
         this.fetchTimeout = INTERNAL_CLUSTER_INFO_TIMEOUT_SETTING.get(settings);
         this.enabled = DiskThresholdSettings.CLUSTER_ROUTING_ALLOCATION_DISK_THRESHOLD_ENABLED_SETTING.get(settings);
+        this.pushEnabled = DiskUsageReporter.PUSH_ENABLED_SETTING.get(settings);
         ClusterSettings clusterSettings = clusterService.getClusterSettings();
         clusterSettings.addSettingsUpdateConsumer(INTERNAL_CLUSTER_INFO_TIMEOUT_SETTING, this::setFetchTimeout);
         clusterSettings.addSettingsUpdateConsumer(INTERNAL_CLUSTER_INFO_UPDATE_INTERVAL_SETTING, this::setUpdateFrequency);
         clusterSettings.addSettingsUpdateConsumer(DiskThresholdSettings.CLUSTER_ROUTING_ALLOCATION_DISK_THRESHOLD_ENABLED_SETTING, this::setEnabled);
+        clusterSettings.addSettingsUpdateConsumer(DiskUsageReporter.PUSH_ENABLED_SETTING, this::setPushEnabled);
 
         // Add InternalClusterInfoService to listen for Master changes
         this.clusterService.addLocalNodeMasterListener(this);
@@ -115,6 +140,10 @@ public class InternalClusterInfoService extends AbstractComponent
         this.enabled = enabled;
     }
 
+    private void setPushEnabled(boolean pushEnabled) {
+        this.pushEnabled = pushEnabled;
+    }
+
     private void setFetchTimeout(TimeValue fetchTimeout) {
         this.fetchTimeout = fetchTimeout;
     }
@@ -146,6 +175,7 @@ public class InternalClusterInfoService extends AbstractComponent
     @Override
     public void offMaster() {
         this.isMaster = false;
+        clearPushedShardSizes();
     }
 
     @Override
@@ -155,6 +185,12 @@ public class InternalClusterInfoService extends AbstractComponent
 
     @Override
     public void clusterChanged(ClusterChangedEvent event) {
+        if (this.isMaster && event.nodesRemoved()) {
+            for (DiscoveryNode removedNode : event.nodesDelta().removedNodes()) {
+                removePushedShardSizes(removedNode.getId());
+            }
+        }
+
         if (!this.enabled) {
             return;
         }
@@ -181,23 +217,135 @@ public class InternalClusterInfoService extends AbstractComponent
                     if (logger.isTraceEnabled()) {
                         logger.trace("Removing node from cluster info: {}", removedNode.getId());
                     }
-                    if (leastAvailableSpaceUsages.containsKey(removedNode.getId())) {
-                        ImmutableOpenMap.Builder<String, DiskUsage> newMaxUsages = ImmutableOpenMap.builder(leastAvailableSpaceUsages);
-                        newMaxUsages.remove(removedNode.getId());
-                        leastAvailableSpaceUsages = newMaxUsages.build();
-                    }
-                    if (mostAvailableSpaceUsages.containsKey(removedNode.getId())) {
-                        ImmutableOpenMap.Builder<String, DiskUsage> newMinUsages = ImmutableOpenMap.builder(mostAvailableSpaceUsages);
-                        newMinUsages.remove(removedNode.getId());
-                        mostAvailableSpaceUsages = newMinUsages.build();
+                    synchronized (this) {
+                        if (leastAvailableSpaceUsages.containsKey(removedNode.getId())) {
+                            ImmutableOpenMap.Builder<String, DiskUsage> newMaxUsages = ImmutableOpenMap.builder(leastAvailableSpaceUsages);
+                            newMaxUsages.remove(removedNode.getId());
+                            leastAvailableSpaceUsages = newMaxUsages.build();
+                        }
+                        if (mostAvailableSpaceUsages.containsKey(removedNode.getId())) {
+                            ImmutableOpenMap.Builder<String, DiskUsage> newMinUsages = ImmutableOpenMap.builder(mostAvailableSpaceUsages);
+                            newMinUsages.remove(removedNode.getId());
+                            mostAvailableSpaceUsages = newMinUsages.build();
+                        }
                     }
                 }
             }
         }
     }
 
+    /**
+     * Returns <code>true</code> if all data nodes push their disk usage, in which case the nodes and indices stats are only polled on
+     * an explicit {@link #refresh()}.
+     */
+    protected boolean isDiskUsagePushed(DiscoveryNodes nodes) {
+        if (pushEnabled == false) {
+            return false;
+        }
+        for (ObjectCursor<DiscoveryNode> node : nodes.getDataNodes().values()) {
+            if (node.value.getVersion().before(Version.V_6_0_0_alpha2_UNRELEASED)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Applies an update pushed by a node to the pushed shard level info of that node only. The shard sizes and data paths of the
+     * cluster info are built again from the polled and pushed info of all nodes the next time it is read, see
+     * {@link #getClusterInfo()}, so that a batch of updates costs a single pass over all shards.
+     */
+    @Override
+    public synchronized boolean applyNodeDiskUsageUpdate(NodeDiskUsageUpdate update) {
+        if (isMaster == false) {
+            return true;
+        }
+        final String nodeId = update.getNodeId();
+        final Map<String, NodeDiskUsageUpdate.ShardSize> nodeShardSizes;
+        if (update.isFull()) {
+            nodeShardSizes = new HashMap<>(update.getShardSizes().size());
+            // a full update moves the node to the end, its replica sizes take precedence over those of the nodes before it
+            pushedShardSizes.remove(nodeId);
+            pushedShardSizes.put(nodeId, nodeShardSizes);
+        } else {
+            nodeShardSizes = pushedShardSizes.get(nodeId);
+            if (nodeShardSizes == null) {
+                // we don't know what the node reported before, e.g. because we were elected after its last full update
+                return true;
+            }
+        }
+        for (ShardRouting removedShard : update.getRemovedShards()) {
+            nodeShardSizes.remove(ClusterInfo.shardIdentifierFromRouting(removedShard));
+        }
+        for (NodeDiskUsageUpdate.ShardSize shardSize : update.getShardSizes()) {
+            nodeShardSizes.put(ClusterInfo.shardIdentifierFromRouting(shardSize.getShardRouting()), shardSize);
+        }
+        shardLevelInfoChanged = true;
+        if (update.getLeastAvailableDiskUsage() != null) {
+            ImmutableOpenMap.Builder<String, DiskUsage> newLeastAvailableUsages = ImmutableOpenMap.builder(leastAvailableSpaceUsages);
+            newLeastAvailableUsages.put(nodeId, update.getLeastAvailableDiskUsage());
+            leastAvailableSpaceUsages = newLeastAvailableUsages.build();
+        }
+        if (update.getMostAvailableDiskUsage() != null) {
+            ImmutableOpenMap.Builder<String, DiskUsage> newMostAvailableUsages = ImmutableOpenMap.builder(mostAvailableSpaceUsages);
+            newMostAvailableUsages.put(nodeId, update.getMostAvailableDiskUsage());
+            mostAvailableSpaceUsages = newMostAvailableUsages.build();
+        }
+        return false;
+    }
+
+    /**
+     * Builds the shard sizes and data paths of the cluster info from the last poll, leaving out the shards of the nodes that push
+     * their disk usage, and the pushed info of these nodes. Replicas on different nodes share the same identifier, the size pushed
+     * by the node that sent its full update last is used.
+     */
+    private synchronized void buildShardLevelInfo() {
+        if (shardLevelInfoChanged == false) {
+            return;
+        }
+        shardLevelInfoChanged = false;
+        ImmutableOpenMap.Builder<String, Long> newShardSizes = ImmutableOpenMap.builder();
+        ImmutableOpenMap.Builder<ShardRouting, String> newShardRoutingToDataPath = ImmutableOpenMap.builder();
+        for (ObjectObjectCursor<ShardRouting, String> shardRouting : polledShardRoutingToDataPath) {
+            if (pushedShardSizes.containsKey(shardRouting.key.currentNodeId()) == false) {
+                newShardRoutingToDataPath.put(shardRouting.key, shardRouting.value);
+                final String shard = ClusterInfo.shardIdentifierFromRouting(shardRouting.key);
+                final Long size = polledShardSizes.get(shard);
+                if (size != null) {
+                    newShardSizes.put(shard, size);
+                }
+            }
+        }
+        for (Map<String, NodeDiskUsageUpdate.ShardSize> nodeShardSizes : pushedShardSizes.values()) {
+            for (Map.Entry<String, NodeDiskUsageUpdate.ShardSize> shardSize : nodeShardSizes.entrySet()) {
+                newShardSizes.put(shardSize.getKey(), shardSize.getValue().getSize());
+                newShardRoutingToDataPath.put(shardSize.getValue().getShardRouting(), shardSize.getValue().getDataPath());
+            }
+        }
+        shardSizes = newShardSizes.build();
+        shardRoutingToDataPath = newShardRoutingToDataPath.build();
+    }
+
+    private synchronized void removePushedShardSizes(String nodeId) {
+        if (pushedShardSizes.remove(nodeId) != null) {
+            logger.trace("removing pushed shard sizes of node [{}]", nodeId);
+            shardLevelInfoChanged = true;
+        }
+    }
+
+    /**
+     * Forgets which nodes pushed their disk usage, so that their next updates are answered with a request for a full update
+     */
+    private synchronized void clearPushedShardSizes() {
+        pushedShardSizes.clear();
+        shardLevelInfoChanged = true;
+    }
+
     @Override
     public ClusterInfo getClusterInfo() {
+        if (shardLevelInfoChanged) {
+            buildShardLevelInfo();
+        }
         return new ClusterInfo(leastAvailableSpaceUsages, mostAvailableSpaceUsages, shardSizes, shardRoutingToDataPath);
     }
 
@@ -274,7 +422,14 @@ public class InternalClusterInfoService extends AbstractComponent
     private void maybeRefresh() {
         // Short-circuit if not enabled
         if (enabled) {
-            refresh();
+            if (isDiskUsagePushed(clusterService.state().nodes())) {
+                if (logger.isTraceEnabled()) {
+                    logger.trace("Skipping polling of the nodes and indices stats since all data nodes push their disk usage");
+                }
+                notifyListeners(getClusterInfo());
+            } else {
+                refresh();
+            }
         } else {
             if (logger.isTraceEnabled()) {
                 logger.trace("Skipping ClusterInfoUpdatedJob since it is disabled");
@@ -295,8 +450,10 @@ public class InternalClusterInfoService extends AbstractComponent
                 ImmutableOpenMap.Builder<String, DiskUsage> newLeastAvaiableUsages = ImmutableOpenMap.builder();
                 ImmutableOpenMap.Builder<String, DiskUsage> newMostAvaiableUsages = ImmutableOpenMap.builder();
                 fillDiskUsagePerNode(logger, nodeStatses.getNodes(), newLeastAvaiableUsages, newMostAvaiableUsages);
-                leastAvailableSpaceUsages = newLeastAvaiableUsages.build();
-                mostAvailableSpaceUsages = newMostAvaiableUsages.build();
+                synchronized (InternalClusterInfoService.this) {
+                    leastAvailableSpaceUsages = newLeastAvaiableUsages.build();
+                    mostAvailableSpaceUsages = newMostAvaiableUsages.build();
+                }
             }
 
             @Override
@@ -312,8 +469,11 @@ public class InternalClusterInfoService extends AbstractComponent
                         logger.warn("Failed to execute NodeStatsAction for ClusterInfoUpdateJob", e);
                     }
                     // we empty the usages list, to be safe - we don't know what's going on.
-                    leastAvailableSpaceUsages = ImmutableOpenMap.of();
-                    mostAvailableSpaceUsages = ImmutableOpenMap.of();
+                    synchronized (InternalClusterInfoService.this) {
+                        leastAvailableSpaceUsages = ImmutableOpenMap.of();
+                        mostAvailableSpaceUsages = ImmutableOpenMap.of();
+                        clearPushedShardSizes();
+                    }
                 }
             }
         });
@@ -325,8 +485,11 @@ public class InternalClusterInfoService extends AbstractComponent
                 ImmutableOpenMap.Builder<String, Long> newShardSizes = ImmutableOpenMap.builder();
                 ImmutableOpenMap.Builder<ShardRouting, String> newShardRoutingToDataPath = ImmutableOpenMap.builder();
                 buildShardLevelInfo(logger, stats, newShardSizes, newShardRoutingToDataPath, clusterService.state());
-                shardSizes = newShardSizes.build();
-                shardRoutingToDataPath = newShardRoutingToDataPath.build();
+                synchronized (InternalClusterInfoService.this) {
+                    polledShardSizes = newShardSizes.build();
+                    polledShardRoutingToDataPath = newShardRoutingToDataPath.build();
+                    shardLevelInfoChanged = true;
+                }
             }
 
             @Override
@@ -342,8 +505,11 @@ public class InternalClusterInfoService extends AbstractComponent
                         logger.warn("Failed to execute IndicesStatsAction for ClusterInfoUpdateJob", e);
                     }
                     // we empty the usages list, to be safe - we don't know what's going on.
-                    shardSizes = ImmutableOpenMap.of();
-                    shardRoutingToDataPath = ImmutableOpenMap.of();
+                    synchronized (InternalClusterInfoService.this) {
+                        polledShardSizes = ImmutableOpenMap.of();
+                        polledShardRoutingToDataPath = ImmutableOpenMap.of();
+                        clearPushedShardSizes();
+                    }
                 }
             }
         });
@@ -362,6 +528,11 @@ public class InternalClusterInfoService extends AbstractComponent
             logger.warn("Failed to update shard information for ClusterInfoUpdateJob within {} timeout", fetchTimeout);
         }
         ClusterInfo clusterInfo = getClusterInfo();
+        notifyListeners(clusterInfo);
+        return clusterInfo;
+    }
+
+    private void notifyListeners(ClusterInfo clusterInfo) {
         for (Listener l : listeners) {
             try {
                 l.onNewInfo(clusterInfo);
@@ -369,7 +540,6 @@ public class InternalClusterInfoService extends AbstractComponent
                 logger.info("Failed executing ClusterInfoService listener", e);
             }
         }
-        return clusterInfo;
     }
 
     static void buildShardLevelInfo(Logger logger, ShardStats[] stats, ImmutableOpenMap.Builder<String, Long> newShardSizes,
@@ -391,46 +561,52 @@ public class InternalClusterInfoService extends AbstractComponent
             ImmutableOpenMap.Builder<String, DiskUsage> newLeastAvaiableUsages,
             ImmutableOpenMap.Builder<String, DiskUsage> newMostAvaiableUsages) {
         for (NodeStats nodeStats : nodeStatsArray) {
-            if (nodeStats.getFs() == null) {
-                logger.warn("Unable to retrieve node FS stats for {}", nodeStats.getNode().getName());
-            } else {
-                FsInfo.Path leastAvailablePath = null;
-                FsInfo.Path mostAvailablePath = null;
-                for (FsInfo.Path info : nodeStats.getFs()) {
-                    if (leastAvailablePath == null) {
-                        assert mostAvailablePath == null;
-                        mostAvailablePath = leastAvailablePath = info;
-                    } else if (leastAvailablePath.getAvailable().getBytes() > info.getAvailable().getBytes()){
-                        leastAvailablePath = info;
-                    } else if (mostAvailablePath.getAvailable().getBytes() < info.getAvailable().getBytes()) {
-                        mostAvailablePath = info;
-                    }
+            fillDiskUsage(logger, nodeStats.getNode(), nodeStats.getFs(), newLeastAvaiableUsages, newMostAvaiableUsages);
+        }
+    }
+
+    static void fillDiskUsage(Logger logger, DiscoveryNode node, FsInfo fsInfo,
+                              ImmutableOpenMap.Builder<String, DiskUsage> newLeastAvaiableUsages,
+                              ImmutableOpenMap.Builder<String, DiskUsage> newMostAvaiableUsages) {
+        if (fsInfo == null) {
+            logger.warn("Unable to retrieve node FS stats for {}", node.getName());
+        } else {
+            FsInfo.Path leastAvailablePath = null;
+            FsInfo.Path mostAvailablePath = null;
+            for (FsInfo.Path info : fsInfo) {
+                if (leastAvailablePath == null) {
+                    assert mostAvailablePath == null;
+                    mostAvailablePath = leastAvailablePath = info;
+                } else if (leastAvailablePath.getAvailable().getBytes() > info.getAvailable().getBytes()){
+                    leastAvailablePath = info;
+                } else if (mostAvailablePath.getAvailable().getBytes() < info.getAvailable().getBytes()) {
+                    mostAvailablePath = info;
                 }
-                String nodeId = nodeStats.getNode().getId();
-                String nodeName = nodeStats.getNode().getName();
+            }
+            String nodeId = node.getId();
+            String nodeName = node.getName();
+            if (logger.isTraceEnabled()) {
+                logger.trace("node: [{}], most available: total disk: {}, available disk: {} / least available: total disk: {}, available disk: {}",
+                        nodeId, mostAvailablePath.getTotal(), leastAvailablePath.getAvailable(),
+                        leastAvailablePath.getTotal(), leastAvailablePath.getAvailable());
+            }
+            if (leastAvailablePath.getTotal().getBytes() < 0) {
                 if (logger.isTraceEnabled()) {
-                    logger.trace("node: [{}], most available: total disk: {}, available disk: {} / least available: total disk: {}, available disk: {}",
-                            nodeId, mostAvailablePath.getTotal(), leastAvailablePath.getAvailable(),
-                            leastAvailablePath.getTotal(), leastAvailablePath.getAvailable());
+                    logger.trace("node: [{}] least available path has less than 0 total bytes of disk [{}], skipping",
+                            nodeId, leastAvailablePath.getTotal().getBytes());
                 }
-                if (leastAvailablePath.getTotal().getBytes() < 0) {
-                    if (logger.isTraceEnabled()) {
-                        logger.trace("node: [{}] least available path has less than 0 total bytes of disk [{}], skipping",
-                                nodeId, leastAvailablePath.getTotal().getBytes());
-                    }
-                } else {
-                    newLeastAvaiableUsages.put(nodeId, new DiskUsage(nodeId, nodeName, leastAvailablePath.getPath(), leastAvailablePath.getTotal().getBytes(), leastAvailablePath.getAvailable().getBytes()));
-                }
-                if (mostAvailablePath.getTotal().getBytes() < 0) {
-                    if (logger.isTraceEnabled()) {
-                        logger.trace("node: [{}] most available path has less than 0 total bytes of disk [{}], skipping",
-                                nodeId, mostAvailablePath.getTotal().getBytes());
-                    }
-                } else {
-                    newMostAvaiableUsages.put(nodeId, new DiskUsage(nodeId, nodeName, mostAvailablePath.getPath(), mostAvailablePath.getTotal().getBytes(), mostAvailablePath.getAvailable().getBytes()));
+            } else {
+                newLeastAvaiableUsages.put(nodeId, new DiskUsage(nodeId, nodeName, leastAvailablePath.getPath(), leastAvailablePath.getTotal().getBytes(), leastAvailablePath.getAvailable().getBytes()));
+            }
+            if (mostAvailablePath.getTotal().getBytes() < 0) {
+                if (logger.isTraceEnabled()) {
+                    logger.trace("node: [{}] most available path has less than 0 total bytes of disk [{}], skipping",
+                            nodeId, mostAvailablePath.getTotal().getBytes());
                 }
-
+            } else {
+                newMostAvaiableUsages.put(nodeId, new DiskUsage(nodeId, nodeName, mostAvailablePath.getPath(), mostAvailablePath.getTotal().getBytes(), mostAvailablePath.getAvailable().getBytes()));
             }
+
         }
     }
 
@@ -0,0 +1,207 @@
+/*
+ * Licensed to Elasticsearch under one or more contributor
+ * license agreements. See the NOTICE file distributed with
+ * this work for additional information regarding copyright
+ * ownership. Elasticsearch licenses this file to you under
+ * the Apache License, Version 2.0 (the "License"); you may
+ * not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.elasticsearch.cluster;
+
+import org.elasticsearch.cluster.routing.ShardRouting;
+import org.elasticsearch.common.Nullable;
+import org.elasticsearch.common.io.stream.StreamInput;
+import org.elasticsearch.common.io.stream.StreamOutput;
+import org.elasticsearch.common.io.stream.Writeable;
+import org.elasticsearch.transport.TransportRequest;
+import org.elasticsearch.transport.TransportResponse;
+
+import java.io.IOException;
+import java.util.List;
+
+/**
+ * The disk usage and shard sizes a data node pushes to the elected master, see {@link DiskUsageReporter}. A full update carries all
+ * the information of the node, an incremental one only the disk usages and shard sizes that changed by more than
+ * {@link DiskUsageReporter#CHANGE_THRESHOLD_SETTING} since the last update and the shards that were removed from the node.
+ */
+public class NodeDiskUsageUpdate extends TransportRequest {
+
+    private String nodeId;
+    private boolean full;
+    private DiskUsage leastAvailableDiskUsage;
+    private DiskUsage mostAvailableDiskUsage;
+    private List<ShardSize> shardSizes;
+    private List<ShardRouting> removedShards;
+
+    NodeDiskUsageUpdate() {
+    }
+
+    public NodeDiskUsageUpdate(String nodeId, boolean full, @Nullable DiskUsage leastAvailableDiskUsage,
+                               @Nullable DiskUsage mostAvailableDiskUsage, List<ShardSize> shardSizes, List<ShardRouting> removedShards) {
+        assert full == false || removedShards.isEmpty() : "a full update can't remove shards";
+        this.nodeId = nodeId;
+        this.full = full;
+        this.leastAvailableDiskUsage = leastAvailableDiskUsage;
+        this.mostAvailableDiskUsage = mostAvailableDiskUsage;
+        this.shardSizes = shardSizes;
+        this.removedShards = removedShards;
+    }
+
+    /**
+     * The id of the node that sent the update
+     */
+    public String getNodeId() {
+        return nodeId;
+    }
+
+    /**
+     * Returns <code>true</code> if this update replaces all the information previously received from the node
+     */
+    public boolean isFull() {
+        return full;
+    }
+
+    /**
+     * The disk usage of the path with the least available space, or <code>null</code> if it didn't change
+     */
+    @Nullable
+    public DiskUsage getLeastAvailableDiskUsage() {
+        return leastAvailableDiskUsage;
+    }
+
+    /**
+     * The disk usage of the path with the most available space, or <code>null</code> if it didn't change
+     */
+    @Nullable
+    public DiskUsage getMostAvailableDiskUsage() {
+        return mostAvailableDiskUsage;
+    }
+
+    /**
+     * The sizes of the shards that were added to the node or whose size changed
+     */
+    public List<ShardSize> getShardSizes() {
+        return shardSizes;
+    }
+
+    /**
+     * The shards that are no longer on the node, or whose routing changed
+     */
+    public List<ShardRouting> getRemovedShards() {
+        return removedShards;
+    }
+
+    /**
+     * Returns <code>true</code> if the update carries no information
+     */
+    public boolean isEmpty() {
+        return full == false && leastAvailableDiskUsage == null && mostAvailableDiskUsage == null && shardSizes.isEmpty()
+            && removedShards.isEmpty();
+    }
+
+    @Override
+    public void readFrom(StreamInput in) throws IOException {
+        super.readFrom(in);
+        nodeId = in.readString();
+        full = in.readBoolean();
+        leastAvailableDiskUsage = in.readOptionalWriteable(DiskUsage::new);
+        mostAvailableDiskUsage = in.readOptionalWriteable(DiskUsage::new);
+        shardSizes = in.readList(ShardSize::new);
+        removedShards = in.readList(ShardRouting::new);
+    }
+
+    @Override
+    public void writeTo(StreamOutput out) throws IOException {
+        super.writeTo(out);
+        out.writeString(nodeId);
+        out.writeBoolean(full);
+        out.writeOptionalWriteable(leastAvailableDiskUsage);
+        out.writeOptionalWriteable(mostAvailableDiskUsage);
+        out.writeList(shardSizes);
+        out.writeList(removedShards);
+    }
+
+    /**
+     * The size of a shard copy on the node, and the data path that holds it
+     */
+    public static class ShardSize implements Writeable {
+
+        private final ShardRouting shardRouting;
+        private final long size;
+        private final String dataPath;
+
+        public ShardSize(ShardRouting shardRouting, long size, String dataPath) {
+            this.shardRouting = shardRouting;
+            this.size = size;
+            this.dataPath = dataPath;
+        }
+
+        ShardSize(StreamInput in) throws IOException {
+            shardRouting = new ShardRouting(in);
+            size = in.readVLong();
+            dataPath = in.readString();
+        }
+
+        @Override
+        public void writeTo(StreamOutput out) throws IOException {
+            shardRouting.writeTo(out);
+            out.writeVLong(size);
+            out.writeString(dataPath);
+        }
+
+        public ShardRouting getShardRouting() {
+            return shardRouting;
+        }
+
+        public long getSize() {
+            return size;
+        }
+
+        public String getDataPath() {
+            return dataPath;
+        }
+    }
+
+    /**
+     * The master's answer to an update, tells the node whether it has to send a full update because the master didn't have the
+     * information the update is based on, e.g. because it was elected after the node sent its last full update.
+     */
+    public static class Response extends TransportResponse {
+
+        private boolean fullUpdateRequired;
+
+        Response() {
+        }
+
+        public Response(boolean fullUpdateRequired) {
+            this.fullUpdateRequired = fullUpdateRequired;
+        }
+
+        public boolean isFullUpdateRequired() {
+            return fullUpdateRequired;
+        }
+
+        @Override
+        public void readFrom(StreamInput in) throws IOException {
+            super.readFrom(in);
+            fullUpdateRequired = in.readBoolean();
+        }
+
+        @Override
+        public void writeTo(StreamOutput out) throws IOException {
+            super.writeTo(out);
+            out.writeBoolean(fullUpdateRequired);
+        }
+    }
+}
@@ -160,6 +160,11 @@ public class IndexNameExpressionResolver extends AbstractComponent {
             failNoIndices = options.allowNoIndices() == false;
         }
 
+        if (WildcardExpressionResolver.isEmptyOrTrivialWildcard(Arrays.asList(indexExpressions))
+                && (options.expandWildcardsOpen() || options.expandWildcardsClosed())) {
+            return allConcreteIndices(indexExpressions, options, metaData.getIndicesLookup(), failClosed);
+        }
+
         List<String> expressions = Arrays.asList(indexExpressions);
         for (ExpressionResolver expressionResolver : expressionResolvers) {
             expressions = expressionResolver.resolve(context, expressions);
@@ -175,9 +180,10 @@ public class IndexNameExpressionResolver extends AbstractComponent {
             }
         }
 
+        final IndicesLookup indicesLookup = metaData.getIndicesLookup();
         final Set<Index> concreteIndices = new HashSet<>(expressions.size());
         for (String expression : expressions) {
-            AliasOrIndex aliasOrIndex = metaData.getAliasAndIndexLookup().get(expression);
+            AliasOrIndex aliasOrIndex = indicesLookup.get(expression);
             if (aliasOrIndex == null) {
                 if (failNoIndices) {
                     IndexNotFoundException infe = new IndexNotFoundException(expression);
@@ -223,6 +229,33 @@ public class IndexNameExpressionResolver extends AbstractComponent {
         return concreteIndices.toArray(new Index[concreteIndices.size()]);
     }
 
+    /**
+     * Resolves an empty or match all expression against the precomputed concrete indices, which is what the generic resolution
+     * would result in, without looking up and deduplicating every single index.
+     */
+    private static Index[] allConcreteIndices(String[] indexExpressions, IndicesOptions options, IndicesLookup indicesLookup,
+                                              boolean failClosed) {
+        final Index[] openIndices = options.expandWildcardsOpen() ? indicesLookup.getAllOpenIndices() : Index.EMPTY_ARRAY;
+        final Index[] closedIndices = options.expandWildcardsClosed() ? indicesLookup.getAllClosedIndices() : Index.EMPTY_ARRAY;
+        if (closedIndices.length > 0 && failClosed) {
+            throw new IndexClosedException(closedIndices[0]);
+        }
+        final Index[] concreteIndices;
+        if (closedIndices.length == 0 || options.forbidClosedIndices()) {
+            concreteIndices = openIndices.clone();
+        } else if (openIndices.length == 0) {
+            concreteIndices = closedIndices.clone();
+        } else {
+            concreteIndices = indicesLookup.getAllIndices().clone();
+        }
+        if (concreteIndices.length == 0 && options.allowNoIndices() == false) {
+            IndexNotFoundException infe = new IndexNotFoundException((String)null);
+            infe.setResources("index_expression", indexExpressions);
+            throw infe;
+        }
+        return concreteIndices;
+    }
+
     /**
      * Utility method that allows to resolve an index expression to its corresponding single concrete index.
      * Callers should make sure they provide proper {@link org.elasticsearch.action.support.IndicesOptions}
@@ -250,7 +283,7 @@ public class IndexNameExpressionResolver extends AbstractComponent {
     public boolean hasIndexOrAlias(String aliasOrIndex, ClusterState state) {
         Context context = new Context(state, IndicesOptions.lenientExpandOpen());
         String resolvedAliasOrIndex = dateMathExpressionResolver.resolveExpression(aliasOrIndex, context);
-        return state.metaData().getAliasAndIndexLookup().containsKey(resolvedAliasOrIndex);
+        return state.metaData().getIndicesLookup().get(resolvedAliasOrIndex) != null;
     }
 
     /**
@@ -362,7 +395,7 @@ public class IndexNameExpressionResolver extends AbstractComponent {
         }
 
         for (String expression : resolvedExpressions) {
-            AliasOrIndex aliasOrIndex = state.metaData().getAliasAndIndexLookup().get(expression);
+            AliasOrIndex aliasOrIndex = state.metaData().getIndicesLookup().get(expression);
             if (aliasOrIndex != null && aliasOrIndex.isAlias()) {
                 AliasOrIndex.Alias alias = (AliasOrIndex.Alias) aliasOrIndex;
                 for (Tuple<String, AliasMetaData> item : alias.getConcreteIndexAndAliasMetaDatas()) {
@@ -633,15 +666,19 @@ public class IndexNameExpressionResolver extends AbstractComponent {
                 }
 
                 final IndexMetaData.State excludeState = excludeState(options);
-                final Map<String, AliasOrIndex> matches = matches(metaData, expression);
-                Set<String> expand = expand(context, excludeState, matches);
+                final String pattern = expression;
+                final IndicesLookup.WildcardExpansion expansion = metaData.getIndicesLookup().getOrExpandWildcard(expression,
+                    excludeState, context.isPreserveAliases(), () -> {
+                        final Map<String, AliasOrIndex> matches = matches(metaData, pattern);
+                        return new IndicesLookup.WildcardExpansion(expand(context, excludeState, matches), matches.isEmpty() == false);
+                    });
                 if (add) {
-                    result.addAll(expand);
+                    result.addAll(expansion.getNames());
                 } else {
-                    result.removeAll(expand);
+                    result.removeAll(expansion.getNames());
                 }
 
-                if (!noIndicesAllowedOrMatches(options, matches)) {
+                if (!noIndicesAllowedOrMatches(options, expansion)) {
                     throw infe(expression);
                 }
 
@@ -652,8 +689,8 @@ public class IndexNameExpressionResolver extends AbstractComponent {
             return result;
         }
 
-        private boolean noIndicesAllowedOrMatches(IndicesOptions options, Map<String, AliasOrIndex> matches) {
-            return options.allowNoIndices() || !matches.isEmpty();
+        private boolean noIndicesAllowedOrMatches(IndicesOptions options, IndicesLookup.WildcardExpansion expansion) {
+            return options.allowNoIndices() || expansion.matches();
         }
 
         private boolean unavailableIgnoredOrExists(IndicesOptions options, MetaData metaData, String expression) {
@@ -661,7 +698,7 @@ public class IndexNameExpressionResolver extends AbstractComponent {
         }
 
         private boolean aliasOrIndexExists(MetaData metaData, String expression) {
-            return metaData.getAliasAndIndexLookup().containsKey(expression);
+            return metaData.getIndicesLookup().get(expression) != null;
         }
 
         private static IndexNotFoundException infe(String expression) {
@@ -731,7 +768,7 @@ public class IndexNameExpressionResolver extends AbstractComponent {
             return expand;
         }
 
-        private boolean isEmptyOrTrivialWildcard(List<String> expressions) {
+        static boolean isEmptyOrTrivialWildcard(List<String> expressions) {
             return expressions.isEmpty() || (expressions.size() == 1 && (MetaData.ALL.equals(expressions.get(0)) || Regex.isMatchAllPattern(expressions.get(0))));
         }
 
@@ -0,0 +1,193 @@
+/*
+ * Licensed to Elasticsearch under one or more contributor
+ * license agreements. See the NOTICE file distributed with
+ * this work for additional information regarding copyright
+ * ownership. Elasticsearch licenses this file to you under
+ * the Apache License, Version 2.0 (the "License"); you may
+ * not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.elasticsearch.cluster.metadata;
+
+import com.carrotsearch.hppc.cursors.ObjectCursor;
+import org.elasticsearch.common.Nullable;
+import org.elasticsearch.index.Index;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+
+/**
+ * Lookup structures derived from a {@link MetaData} instance that {@link IndexNameExpressionResolver} uses to resolve index
+ * expressions on hot request paths. Since {@link MetaData} is immutable these are built once, on first use, and shared by all
+ * requests that are resolved against the same metadata. The sorted alias and index lookup used for prefix wildcards is
+ * {@link MetaData#getAliasAndIndexLookup()}.
+ */
+final class IndicesLookup {
+
+    /**
+     * The maximum number of wildcard expansions that are memoised per metadata instance, expressions that come after are expanded
+     * on every request.
+     */
+    static final int MAX_CACHED_WILDCARD_EXPANSIONS = 1024;
+
+    /**
+     * The maximum total number of names that the memoised wildcard expansions of a metadata instance hold, so that clusters with many
+     * indices don't keep many large expansions around. Expansions that don't fit are computed on every request.
+     */
+    static final int MAX_CACHED_WILDCARD_NAMES = 1 << 16;
+
+    private final Map<String, AliasOrIndex> aliasesAndIndices;
+    private final Index[] allIndices;
+    private final Index[] allOpenIndices;
+    private final Index[] allClosedIndices;
+    private final ConcurrentMap<WildcardKey, WildcardExpansion> wildcardExpansions = new ConcurrentHashMap<>();
+    private final AtomicInteger cachedWildcardNames = new AtomicInteger();
+
+    IndicesLookup(MetaData metaData) {
+        this.aliasesAndIndices = new HashMap<>(metaData.getAliasAndIndexLookup());
+        List<Index> allIndices = new ArrayList<>(metaData.indices().size());
+        List<Index> allOpenIndices = new ArrayList<>(metaData.indices().size());
+        List<Index> allClosedIndices = new ArrayList<>();
+        for (ObjectCursor<IndexMetaData> cursor : metaData.indices().values()) {
+            IndexMetaData indexMetaData = cursor.value;
+            allIndices.add(indexMetaData.getIndex());
+            if (indexMetaData.getState() == IndexMetaData.State.OPEN) {
+                allOpenIndices.add(indexMetaData.getIndex());
+            } else if (indexMetaData.getState() == IndexMetaData.State.CLOSE) {
+                allClosedIndices.add(indexMetaData.getIndex());
+            }
+        }
+        this.allIndices = allIndices.toArray(new Index[allIndices.size()]);
+        this.allOpenIndices = allOpenIndices.toArray(new Index[allOpenIndices.size()]);
+        this.allClosedIndices = allClosedIndices.toArray(new Index[allClosedIndices.size()]);
+    }
+
+    /**
+     * Returns the alias or index with the given name, or <code>null</code> if no such alias or index exists
+     */
+    @Nullable
+    AliasOrIndex get(String aliasOrIndex) {
+        return aliasesAndIndices.get(aliasOrIndex);
+    }
+
+    /**
+     * Returns all concrete indices. The returned array must not be modified.
+     */
+    Index[] getAllIndices() {
+        return allIndices;
+    }
+
+    /**
+     * Returns all open concrete indices. The returned array must not be modified.
+     */
+    Index[] getAllOpenIndices() {
+        return allOpenIndices;
+    }
+
+    /**
+     * Returns all closed concrete indices. The returned array must not be modified.
+     */
+    Index[] getAllClosedIndices() {
+        return allClosedIndices;
+    }
+
+    /**
+     * Returns the memoised expansion of the given wildcard expression, computing it with the given supplier if it hasn't been
+     * expanded against this metadata yet.
+     */
+    WildcardExpansion getOrExpandWildcard(String expression, @Nullable IndexMetaData.State excludeState, boolean preserveAliases,
+                                          Supplier<WildcardExpansion> expander) {
+        final WildcardKey key = new WildcardKey(expression, excludeState, preserveAliases);
+        WildcardExpansion expansion = wildcardExpansions.get(key);
+        if (expansion == null) {
+            expansion = expander.get();
+            if (wildcardExpansions.size() < MAX_CACHED_WILDCARD_EXPANSIONS) {
+                final int numNames = expansion.getNames().size();
+                if (cachedWildcardNames.addAndGet(numNames) > MAX_CACHED_WILDCARD_NAMES
+                        || wildcardExpansions.putIfAbsent(key, expansion) != null) {
+                    // over the budget of names, or already memoised by a concurrent request
+                    cachedWildcardNames.addAndGet(-numNames);
+                }
+            }
+        }
+        return expansion;
+    }
+
+    /**
+     * The names a wildcard expression expands to
+     */
+    static final class WildcardExpansion {
+
+        private final Set<String> names;
+        private final boolean matches;
+
+        /**
+         * @param names   the names of the matching aliases and indices that weren't excluded, must not be modified afterwards
+         * @param matches whether the expression matched any alias or index at all, regardless of whether it was excluded
+         */
+        WildcardExpansion(Set<String> names, boolean matches) {
+            this.names = names;
+            this.matches = matches;
+        }
+
+        /**
+         * Returns the names the expression expands to. The returned set must not be modified.
+         */
+        Set<String> getNames() {
+            return names;
+        }
+
+        boolean matches() {
+            return matches;
+        }
+    }
+
+    private static final class WildcardKey {
+
+        private final String expression;
+        private final IndexMetaData.State excludeState;
+        private final boolean preserveAliases;
+
+        private WildcardKey(String expression, IndexMetaData.State excludeState, boolean preserveAliases) {
+            this.expression = expression;
+            this.excludeState = excludeState;
+            this.preserveAliases = preserveAliases;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) {
+                return true;
+            }
+            if (o == null || getClass() != o.getClass()) {
+                return false;
+            }
+            WildcardKey that = (WildcardKey) o;
+            return preserveAliases == that.preserveAliases && excludeState == that.excludeState
+                && expression.equals(that.expression);
+        }
+
+        @Override
+        public int hashCode() {
+            return Objects.hash(expression, excludeState, preserveAliases);
+        }
+    }
+}
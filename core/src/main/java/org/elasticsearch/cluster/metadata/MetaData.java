@@ -152,6 +152,8 @@ public class MetaData implements Iterable<IndexMetaData>, Diffable<MetaData>, To
 
     private final SortedMap<String, AliasOrIndex> aliasAndIndexLookup;
 
+    private volatile IndicesLookup indicesLookup;
+
     @SuppressWarnings("unchecked")
     MetaData(String clusterUUID, long version, Settings transientSettings, Settings persistentSettings,
              ImmutableOpenMap<String, IndexMetaData> indices, ImmutableOpenMap<String, IndexTemplateMetaData> templates,
@@ -231,6 +233,17 @@ public class MetaData implements Iterable<IndexMetaData>, Diffable<MetaData>, To
         return aliasAndIndexLookup;
     }
 
+    /**
+     * Returns the lookup structures used to resolve index expressions against this metadata, building them on first use.
+     */
+    IndicesLookup getIndicesLookup() {
+        if (indicesLookup != null) {
+            return indicesLookup;
+        }
+        indicesLookup = new IndicesLookup(this);
+        return indicesLookup;
+    }
+
     /**
      * Finds the specific index aliases that match with the specified aliases directly or partially via wildcards and
      * that point to the specified concrete indices or match partially with the indices via wildcards.
@@ -34,6 +34,7 @@ import org.elasticsearch.cluster.node.DiscoveryNode;
 import org.elasticsearch.cluster.service.ClusterService;
 import org.elasticsearch.common.Nullable;
 import org.elasticsearch.common.Priority;
+import org.elasticsearch.common.collect.Tuple;
 import org.elasticsearch.common.component.AbstractComponent;
 import org.elasticsearch.common.compress.CompressedXContent;
 import org.elasticsearch.common.inject.Inject;
@@ -49,8 +50,10 @@ import org.elasticsearch.indices.InvalidTypeNameException;
 
 import java.io.IOException;
 import java.util.ArrayList;
+import java.util.Collection;
 import java.util.Collections;
 import java.util.HashMap;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
 
@@ -216,21 +219,26 @@ public class MetaDataMappingService extends AbstractComponent {
             Map<Index, MapperService> indexMapperServices = new HashMap<>();
             ClusterTasksResult.Builder<PutMappingClusterStateUpdateRequest> builder = ClusterTasksResult.builder();
             try {
-                for (PutMappingClusterStateUpdateRequest request : tasks) {
-                    try {
-                        for (Index index : request.indices()) {
-                            final IndexMetaData indexMetaData = currentState.metaData().getIndexSafe(index);
-                            if (indexMapperServices.containsKey(indexMetaData.getIndex()) == false) {
-                                MapperService mapperService = indicesService.createIndexMapperService(indexMetaData);
-                                indexMapperServices.put(index, mapperService);
-                                // add mappings for all types, we need them for cross-type validation
-                                mapperService.merge(indexMetaData, MergeReason.MAPPING_RECOVERY, request.updateAllTypes());
-                            }
+                for (List<PutMappingClusterStateUpdateRequest> batch : batchByIndexAndType(currentState, tasks)) {
+                    if (batch.size() > 1) {
+                        try {
+                            currentState = applyBatch(currentState, batch, indexMapperServices);
+                            builder.successes(batch);
+                            continue;
+                        } catch (Exception e) {
+                            // apply the requests one by one below, so that only the ones that are invalid fail
+                            logger.debug((Supplier<?>) () -> new ParameterizedMessage(
+                                "failed to apply [{}] mapping updates at once, applying them one by one", batch.size()), e);
+                        }
+                    }
+                    for (PutMappingClusterStateUpdateRequest request : batch) {
+                        try {
+                            currentState = applyRequest(currentState, request, new CompressedXContent(request.source()),
+                                indexMapperServices);
+                            builder.success(request);
+                        } catch (Exception e) {
+                            builder.failure(request, e);
                         }
-                        currentState = applyRequest(currentState, request, indexMapperServices);
-                        builder.success(request);
-                    } catch (Exception e) {
-                        builder.failure(request, e);
                     }
                 }
                 return builder.build(currentState);
@@ -239,10 +247,64 @@ public class MetaDataMappingService extends AbstractComponent {
             }
         }
 
-        private ClusterState applyRequest(ClusterState currentState, PutMappingClusterStateUpdateRequest request,
+        /**
+         * Groups the requests that update the existing mapping of a type of a single index, like the dynamic mapping updates that the
+         * shards of an index send concurrently, so that each group can be applied with a single merge. Other requests are groups of
+         * their own.
+         */
+        private Collection<List<PutMappingClusterStateUpdateRequest>> batchByIndexAndType(ClusterState currentState,
+                                                                                         List<PutMappingClusterStateUpdateRequest> tasks) {
+            Map<Object, List<PutMappingClusterStateUpdateRequest>> batches = new LinkedHashMap<>();
+            for (PutMappingClusterStateUpdateRequest request : tasks) {
+                Object key = request;
+                if (request.indices() != null && request.indices().length == 1 && request.type() != null
+                        && request.updateAllTypes() == false && MapperService.DEFAULT_MAPPING.equals(request.type()) == false) {
+                    IndexMetaData indexMetaData = currentState.metaData().index(request.indices()[0]);
+                    if (indexMetaData != null && indexMetaData.mapping(request.type()) != null) {
+                        key = new Tuple<>(request.indices()[0], request.type());
+                    }
+                }
+                batches.computeIfAbsent(key, k -> new ArrayList<>()).add(request);
+            }
+            return batches.values();
+        }
+
+        /**
+         * Applies requests that update the existing mapping of the same type of a single index at once: their mappings are merged
+         * together first, which is cheap since they only hold the fields they update, and the result is merged once into the mapping
+         * of the index.
+         */
+        private ClusterState applyBatch(ClusterState currentState, List<PutMappingClusterStateUpdateRequest> batch,
+                                        Map<Index, MapperService> indexMapperServices) throws IOException {
+            PutMappingClusterStateUpdateRequest first = batch.get(0);
+            createMapperServices(currentState, first, indexMapperServices);
+            MapperService mapperService = indexMapperServices.get(first.indices()[0]);
+            DocumentMapper mappingUpdate = null;
+            for (PutMappingClusterStateUpdateRequest request : batch) {
+                DocumentMapper newMapper = mapperService.parse(first.type(), new CompressedXContent(request.source()), false);
+                mappingUpdate = mappingUpdate == null ? newMapper : mappingUpdate.merge(newMapper.mapping(), false);
+            }
+            return applyRequest(currentState, first, mappingUpdate.mappingSource(), indexMapperServices);
+        }
+
+        private void createMapperServices(ClusterState currentState, PutMappingClusterStateUpdateRequest request,
                                           Map<Index, MapperService> indexMapperServices) throws IOException {
+            for (Index index : request.indices()) {
+                final IndexMetaData indexMetaData = currentState.metaData().getIndexSafe(index);
+                if (indexMapperServices.containsKey(indexMetaData.getIndex()) == false) {
+                    MapperService mapperService = indicesService.createIndexMapperService(indexMetaData);
+                    indexMapperServices.put(index, mapperService);
+                    // add mappings for all types, we need them for cross-type validation
+                    mapperService.merge(indexMetaData, MergeReason.MAPPING_RECOVERY, request.updateAllTypes());
+                }
+            }
+        }
+
+        private ClusterState applyRequest(ClusterState currentState, PutMappingClusterStateUpdateRequest request,
+                                          CompressedXContent mappingUpdateSource, Map<Index, MapperService> indexMapperServices)
+                throws IOException {
+            createMapperServices(currentState, request, indexMapperServices);
             String mappingType = request.type();
-            CompressedXContent mappingUpdateSource = new CompressedXContent(request.source());
             final MetaData metaData = currentState.metaData();
             final List<IndexMetaData> updateList = new ArrayList<>();
             for (Index index : request.indices()) {
@@ -28,11 +28,13 @@ import org.elasticsearch.common.io.stream.StreamOutput;
 import org.elasticsearch.common.util.set.Sets;
 import org.elasticsearch.index.Index;
 import org.elasticsearch.index.shard.ShardId;
+import org.elasticsearch.node.ResponseCollectorService;
 
 import java.io.IOException;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collections;
+import java.util.HashMap;
 import java.util.HashSet;
 import java.util.Iterator;
 import java.util.LinkedList;
@@ -241,6 +243,78 @@ public class IndexShardRoutingTable implements Iterable<ShardRouting> {
         return activeInitializingShardsIt(shuffler.nextSeed());
     }
 
+    /**
+     * Returns an iterator over active and initializing shards, ordered by the adaptive replica selection rank of the node that holds
+     * them, lower ranks first. Active copies on nodes we have no statistics for yet come first so that statistics are collected for
+     * every node. Copies with an equal rank are in random order.
+     *
+     * @param collector        the statistics of the responses previously received from the nodes
+     * @param nodeSearchCounts the number of searches currently in flight to each node, the count of the node holding the best ranked
+     *                         copy is incremented so that the copies of the next shards of the same search are ranked accordingly
+     */
+    public ShardIterator activeInitializingShardsRankedIt(ResponseCollectorService collector, Map<String, Long> nodeSearchCounts) {
+        final int seed = shuffler.nextSeed();
+        if (allInitializingShards.isEmpty()) {
+            return new PlainShardIterator(shardId,
+                rankShardsAndUpdateStats(shuffler.shuffle(activeShards, seed), collector, nodeSearchCounts));
+        }
+
+        ArrayList<ShardRouting> ordered = new ArrayList<>(activeShards.size() + allInitializingShards.size());
+        ordered.addAll(rankShardsAndUpdateStats(shuffler.shuffle(activeShards, seed), collector, nodeSearchCounts));
+        ordered.addAll(allInitializingShards);
+        return new PlainShardIterator(shardId, ordered);
+    }
+
+    private static List<ShardRouting> rankShardsAndUpdateStats(List<ShardRouting> shards, ResponseCollectorService collector,
+                                                               Map<String, Long> nodeSearchCounts) {
+        if (shards.size() <= 1) {
+            return shards;
+        }
+
+        // Retrieve the computed stats of the nodes, and compute their ranks
+        final Map<String, ResponseCollectorService.ComputedNodeStats> nodeStats = new HashMap<>(shards.size());
+        final Map<String, Double> nodeRanks = new HashMap<>(shards.size());
+        for (ShardRouting shard : shards) {
+            final String nodeId = shard.currentNodeId();
+            if (nodeStats.containsKey(nodeId) == false) {
+                collector.getNodeStatistics(nodeId).ifPresent(stats -> {
+                    nodeStats.put(nodeId, stats);
+                    nodeRanks.put(nodeId, stats.rank(nodeSearchCounts.getOrDefault(nodeId, 0L)));
+                });
+            }
+        }
+
+        // sort is stable, so copies with the same rank stay in their random order; nodes without stats rank first
+        final List<ShardRouting> sortedShards = new ArrayList<>(shards);
+        sortedShards.sort((s1, s2) -> {
+            final Double rank1 = nodeRanks.get(s1.currentNodeId());
+            final Double rank2 = nodeRanks.get(s2.currentNodeId());
+            if (rank1 == null || rank2 == null) {
+                return rank1 == null ? (rank2 == null ? 0 : -1) : 1;
+            }
+            return Double.compare(rank1, rank2);
+        });
+
+        // Adjust the non-winner nodes' stats so they will get a chance to receive queries, otherwise a node that was slow once
+        // would never be searched again and its stats would never be updated
+        final ShardRouting winner = sortedShards.get(0);
+        final String winnerNodeId = winner.currentNodeId();
+        final ResponseCollectorService.ComputedNodeStats winnerStats = nodeStats.get(winnerNodeId);
+        if (winnerStats != null) {
+            for (ShardRouting shard : sortedShards) {
+                final String nodeId = shard.currentNodeId();
+                final ResponseCollectorService.ComputedNodeStats stats = nodeStats.get(nodeId);
+                if (nodeId.equals(winnerNodeId) == false && stats != null) {
+                    collector.addNodeStatistics(nodeId, (stats.queueSize + winnerStats.queueSize) / 2,
+                        (long) ((stats.responseTime + winnerStats.responseTime) / 2),
+                        (long) ((stats.serviceTime + winnerStats.serviceTime) / 2));
+                }
+            }
+        }
+        nodeSearchCounts.compute(winnerNodeId, (id, count) -> count == null ? 1L : count + 1L);
+        return sortedShards;
+    }
+
     /**
      * Returns an iterator over active and initializing shards. Making sure though that
      * its random within the active shards, and initializing shards are the last to iterate through.
@@ -27,10 +27,12 @@ import org.elasticsearch.common.Nullable;
 import org.elasticsearch.common.Strings;
 import org.elasticsearch.common.component.AbstractComponent;
 import org.elasticsearch.common.settings.ClusterSettings;
+import org.elasticsearch.common.settings.Setting;
 import org.elasticsearch.common.settings.Settings;
 import org.elasticsearch.index.IndexNotFoundException;
 import org.elasticsearch.index.shard.ShardId;
 import org.elasticsearch.index.shard.ShardNotFoundException;
+import org.elasticsearch.node.ResponseCollectorService;
 
 import java.util.ArrayList;
 import java.util.Arrays;
@@ -42,37 +44,69 @@ import java.util.stream.Collectors;
 
 public class OperationRouting extends AbstractComponent {
 
+    /**
+     * Whether searches without a preference pick the shard copies to search by ranking the nodes that hold them based on the
+     * statistics of their previous responses, see {@link ResponseCollectorService}, instead of picking them round robin.
+     */
+    public static final Setting<Boolean> USE_ADAPTIVE_REPLICA_SELECTION_SETTING =
+        Setting.boolSetting("cluster.routing.use_adaptive_replica_selection", false, Setting.Property.Dynamic, Setting.Property.NodeScope);
+
     private String[] awarenessAttributes;
+    private boolean useAdaptiveReplicaSelection;
 
     public OperationRouting(Settings settings, ClusterSettings clusterSettings) {
         super(settings);
         this.awarenessAttributes = AwarenessAllocationDecider.CLUSTER_ROUTING_ALLOCATION_AWARENESS_ATTRIBUTE_SETTING.get(settings);
+        this.useAdaptiveReplicaSelection = USE_ADAPTIVE_REPLICA_SELECTION_SETTING.get(settings);
         clusterSettings.addSettingsUpdateConsumer(AwarenessAllocationDecider.CLUSTER_ROUTING_ALLOCATION_AWARENESS_ATTRIBUTE_SETTING,
             this::setAwarenessAttributes);
+        clusterSettings.addSettingsUpdateConsumer(USE_ADAPTIVE_REPLICA_SELECTION_SETTING, this::setUseAdaptiveReplicaSelection);
     }
 
     private void setAwarenessAttributes(String[] awarenessAttributes) {
         this.awarenessAttributes = awarenessAttributes;
     }
 
+    void setUseAdaptiveReplicaSelection(boolean useAdaptiveReplicaSelection) {
+        this.useAdaptiveReplicaSelection = useAdaptiveReplicaSelection;
+    }
+
     public ShardIterator indexShards(ClusterState clusterState, String index, String id, @Nullable String routing) {
         return shards(clusterState, index, id, routing).shardsIt();
     }
 
     public ShardIterator getShards(ClusterState clusterState, String index, String id, @Nullable String routing, @Nullable String preference) {
-        return preferenceActiveShardIterator(shards(clusterState, index, id, routing), clusterState.nodes().getLocalNodeId(), clusterState.nodes(), preference);
+        return preferenceActiveShardIterator(shards(clusterState, index, id, routing), clusterState.nodes().getLocalNodeId(), clusterState.nodes(), preference, null, null);
     }
 
     public ShardIterator getShards(ClusterState clusterState, String index, int shardId, @Nullable String preference) {
         final IndexShardRoutingTable indexShard = clusterState.getRoutingTable().shardRoutingTable(index, shardId);
-        return preferenceActiveShardIterator(indexShard, clusterState.nodes().getLocalNodeId(), clusterState.nodes(), preference);
+        return preferenceActiveShardIterator(indexShard, clusterState.nodes().getLocalNodeId(), clusterState.nodes(), preference, null, null);
     }
 
     public GroupShardsIterator<ShardIterator> searchShards(ClusterState clusterState, String[] concreteIndices, @Nullable Map<String, Set<String>> routing, @Nullable String preference) {
+        return searchShards(clusterState, concreteIndices, routing, preference, null, null);
+    }
+
+    /**
+     * Returns the shards to search. If adaptive replica selection is enabled and there is neither a preference nor awareness
+     * attributes, the copies of each shard are ordered by the rank of their node based on the statistics of the given
+     * {@link ResponseCollectorService} and the given number of searches in flight to each node.
+     */
+    public GroupShardsIterator<ShardIterator> searchShards(ClusterState clusterState, String[] concreteIndices,
+                                                           @Nullable Map<String, Set<String>> routing, @Nullable String preference,
+                                                           @Nullable ResponseCollectorService collectorService,
+                                                           @Nullable Map<String, Long> nodeCounts) {
+        if ((preference == null || preference.isEmpty()) && awarenessAttributes.length == 0
+            && (useAdaptiveReplicaSelection == false || collectorService == null || nodeCounts == null)) {
+            // the common case, every shard is searched on a copy that is picked round robin
+            return searchShardsRoundRobin(clusterState, concreteIndices, routing);
+        }
         final Set<IndexShardRoutingTable> shards = computeTargetedShards(clusterState, concreteIndices, routing);
         final Set<ShardIterator> set = new HashSet<>(shards.size());
         for (IndexShardRoutingTable shard : shards) {
-            ShardIterator iterator = preferenceActiveShardIterator(shard, clusterState.nodes().getLocalNodeId(), clusterState.nodes(), preference);
+            ShardIterator iterator = preferenceActiveShardIterator(shard, clusterState.nodes().getLocalNodeId(), clusterState.nodes(), preference,
+                collectorService, nodeCounts);
             if (iterator != null) {
                 set.add(iterator);
             }
@@ -82,6 +116,78 @@ public class OperationRouting extends AbstractComponent {
 
     private static final Map<String, Set<String>> EMPTY_ROUTING = Collections.emptyMap();
 
+    /**
+     * Resolves the shards to search against the {@link ShardRoutingLookup} of the routing table, which avoids hashing and copying the
+     * shard routings of every targeted shard when searching many indices. The iterators are built in the order that
+     * {@link GroupShardsIterator} sorts them in, by shard id first and index name second, so that sorting them is linear.
+     */
+    private GroupShardsIterator<ShardIterator> searchShardsRoundRobin(ClusterState clusterState, String[] concreteIndices,
+                                                                      @Nullable Map<String, Set<String>> routing) {
+        routing = routing == null ? EMPTY_ROUTING : routing;
+        final ShardRoutingLookup lookup = clusterState.routingTable().getShardRoutingLookup();
+        final String[] indices = concreteIndices.clone();
+        Arrays.sort(indices);
+        final ShardRoutingLookup.IndexShards[] targets = new ShardRoutingLookup.IndexShards[indices.length];
+        // the shards that are selected by routing values, or null if all shards of the index are searched
+        final boolean[][] routedShards = new boolean[indices.length][];
+        int numTargets = 0;
+        int maxShards = 0;
+        for (int i = 0; i < indices.length; i++) {
+            final String index = indices[i];
+            if (i > 0 && index.equals(indices[i - 1])) {
+                continue;
+            }
+            final ShardRoutingLookup.IndexShards indexShards = lookup.index(index);
+            if (indexShards == null) {
+                throw new IndexNotFoundException(index);
+            }
+            final Set<String> effectiveRouting = routing.get(index);
+            if (effectiveRouting != null) {
+                final IndexMetaData indexMetaData = indexMetaData(clusterState, index);
+                final boolean[] selected = new boolean[indexShards.numberOfShards()];
+                for (String r : effectiveRouting) {
+                    final int routingPartitionSize = indexMetaData.getRoutingPartitionSize();
+                    for (int partitionOffset = 0; partitionOffset < routingPartitionSize; partitionOffset++) {
+                        final int shardId = calculateScaledShardId(indexMetaData, r, partitionOffset);
+                        if (indexShards.shardTable(shardId) == null) {
+                            throw new ShardNotFoundException(new ShardId(indexMetaData.getIndex(), shardId));
+                        }
+                        selected[shardId] = true;
+                    }
+                }
+                routedShards[numTargets] = selected;
+            }
+            targets[numTargets++] = indexShards;
+            maxShards = Math.max(maxShards, indexShards.numberOfShards());
+        }
+
+        // count the searched shards per shard id, to place the iterators of each shard id after those of the lower shard ids
+        final int[] offsets = new int[maxShards + 1];
+        for (int i = 0; i < numTargets; i++) {
+            for (int shard = 0; shard < targets[i].numberOfShards(); shard++) {
+                if (isSearched(targets[i], routedShards[i], shard)) {
+                    offsets[shard + 1]++;
+                }
+            }
+        }
+        for (int shard = 0; shard < maxShards; shard++) {
+            offsets[shard + 1] += offsets[shard];
+        }
+        final ShardIterator[] iterators = new ShardIterator[offsets[maxShards]];
+        for (int i = 0; i < numTargets; i++) {
+            for (int shard = 0; shard < targets[i].numberOfShards(); shard++) {
+                if (isSearched(targets[i], routedShards[i], shard)) {
+                    iterators[offsets[shard]++] = targets[i].activeInitializingShardsRandomIt(shard);
+                }
+            }
+        }
+        return new GroupShardsIterator<>(Arrays.asList(iterators));
+    }
+
+    private static boolean isSearched(ShardRoutingLookup.IndexShards indexShards, @Nullable boolean[] routedShards, int shard) {
+        return (routedShards == null || routedShards[shard]) && indexShards.shardTable(shard) != null;
+    }
+
     private Set<IndexShardRoutingTable> computeTargetedShards(ClusterState clusterState, String[] concreteIndices, @Nullable Map<String, Set<String>> routing) {
         routing = routing == null ? EMPTY_ROUTING : routing; // just use an empty map
         final Set<IndexShardRoutingTable> set = new HashSet<>();
@@ -106,13 +212,10 @@ public class OperationRouting extends AbstractComponent {
         return set;
     }
 
-    private ShardIterator preferenceActiveShardIterator(IndexShardRoutingTable indexShard, String localNodeId, DiscoveryNodes nodes, @Nullable String preference) {
+    private ShardIterator preferenceActiveShardIterator(IndexShardRoutingTable indexShard, String localNodeId, DiscoveryNodes nodes, @Nullable String preference,
+                                                        @Nullable ResponseCollectorService collectorService, @Nullable Map<String, Long> nodeCounts) {
         if (preference == null || preference.isEmpty()) {
-            if (awarenessAttributes.length == 0) {
-                return indexShard.activeInitializingShardsRandomIt();
-            } else {
-                return indexShard.preferAttributesActiveInitializingShardsIt(awarenessAttributes, nodes);
-            }
+            return shardRoutings(indexShard, nodes, collectorService, nodeCounts);
         }
         if (preference.charAt(0) == '_') {
             Preference preferenceType = Preference.parse(preference);
@@ -139,11 +242,7 @@ public class OperationRouting extends AbstractComponent {
                 }
                 // no more preference
                 if (index == -1 || index == preference.length() - 1) {
-                    if (awarenessAttributes.length == 0) {
-                        return indexShard.activeInitializingShardsRandomIt();
-                    } else {
-                        return indexShard.preferAttributesActiveInitializingShardsIt(awarenessAttributes, nodes);
-                    }
+                    return shardRoutings(indexShard, nodes, collectorService, nodeCounts);
                 } else {
                     // update the preference and continue
                     preference = preference.substring(index + 1);
@@ -184,6 +283,19 @@ public class OperationRouting extends AbstractComponent {
         }
     }
 
+    private ShardIterator shardRoutings(IndexShardRoutingTable indexShard, DiscoveryNodes nodes,
+                                        @Nullable ResponseCollectorService collectorService, @Nullable Map<String, Long> nodeCounts) {
+        if (awarenessAttributes.length == 0) {
+            if (useAdaptiveReplicaSelection && collectorService != null && nodeCounts != null) {
+                return indexShard.activeInitializingShardsRankedIt(collectorService, nodeCounts);
+            } else {
+                return indexShard.activeInitializingShardsRandomIt();
+            }
+        } else {
+            return indexShard.preferAttributesActiveInitializingShardsIt(awarenessAttributes, nodes);
+        }
+    }
+
     private IndexShardRoutingTable shardRoutingTable(IndexRoutingTable indexRouting, int shardId) {
         IndexShardRoutingTable indexShard = indexRouting.shard(shardId);
         if (indexShard == null) {
@@ -27,6 +27,7 @@ import java.util.ArrayList;
 import java.util.Collections;
 import java.util.Iterator;
 import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
 import java.util.List;
 
 /**
@@ -41,6 +42,12 @@ public class RoutingNode implements Iterable<ShardRouting> {
 
     private final LinkedHashMap<ShardId, ShardRouting> shards; // LinkedHashMap to preserve order
 
+    // the allocation deciders frequently ask for the initializing and relocating shards of a node, which are usually only a small
+    // fraction of all its shards, so we keep track of them rather than iterating over all shards for every decision
+    private final LinkedHashSet<ShardRouting> initializingShards;
+
+    private final LinkedHashSet<ShardRouting> relocatingShards;
+
     public RoutingNode(String nodeId, DiscoveryNode node, ShardRouting... shards) {
         this(nodeId, node, buildShardRoutingMap(shards));
     }
@@ -49,6 +56,11 @@ public class RoutingNode implements Iterable<ShardRouting> {
         this.nodeId = nodeId;
         this.node = node;
         this.shards = shards;
+        this.initializingShards = new LinkedHashSet<>();
+        this.relocatingShards = new LinkedHashSet<>();
+        for (ShardRouting shardRouting : shards.values()) {
+            addToStateSets(shardRouting);
+        }
     }
 
     private static LinkedHashMap<ShardId, ShardRouting> buildShardRoutingMap(ShardRouting... shardRoutings) {
@@ -104,6 +116,7 @@ public class RoutingNode implements Iterable<ShardRouting> {
                 + "] where it already exists. current [" + shards.get(shard.shardId()) + "]. new [" + shard + "]");
         }
         shards.put(shard.shardId(), shard);
+        addToStateSets(shard);
     }
 
     void update(ShardRouting oldShard, ShardRouting newShard) {
@@ -114,11 +127,66 @@ public class RoutingNode implements Iterable<ShardRouting> {
         }
         ShardRouting previousValue = shards.put(newShard.shardId(), newShard);
         assert previousValue == oldShard : "expected shard " + previousValue + " but was " + oldShard;
+        removeFromStateSets(oldShard);
+        addToStateSets(newShard);
     }
 
     void remove(ShardRouting shard) {
         ShardRouting previousValue = shards.remove(shard.shardId());
         assert previousValue == shard : "expected shard " + previousValue + " but was " + shard;
+        removeFromStateSets(shard);
+    }
+
+    private void addToStateSets(ShardRouting shard) {
+        if (shard.initializing()) {
+            initializingShards.add(shard);
+        } else if (shard.relocating()) {
+            relocatingShards.add(shard);
+        }
+    }
+
+    private void removeFromStateSets(ShardRouting shard) {
+        if (shard.initializing()) {
+            boolean exist = initializingShards.remove(shard);
+            assert exist : "expected shard " + shard + " to exist in initializingShards";
+        } else if (shard.relocating()) {
+            boolean exist = relocatingShards.remove(shard);
+            assert exist : "expected shard " + shard + " to exist in relocatingShards";
+        }
+    }
+
+    /**
+     * Checks that the tracked initializing and relocating shards are consistent with all shards of this node. Always returns
+     * <code>true</code> so it can be called from an assertion.
+     */
+    boolean invariant() {
+        List<ShardRouting> initializing = new ArrayList<>();
+        List<ShardRouting> relocating = new ArrayList<>();
+        for (ShardRouting shard : shards.values()) {
+            if (shard.initializing()) {
+                initializing.add(shard);
+            } else if (shard.relocating()) {
+                relocating.add(shard);
+            }
+        }
+        assert initializingShards.size() == initializing.size() && initializingShards.containsAll(initializing) :
+            "expected initializing shards " + initializing + " but was " + initializingShards;
+        assert relocatingShards.size() == relocating.size() && relocatingShards.containsAll(relocating) :
+            "expected relocating shards " + relocating + " but was " + relocatingShards;
+        return true;
+    }
+
+    /**
+     * Returns <code>true</code> if all given states are tracked separately, i.e. are either
+     * {@link ShardRoutingState#INITIALIZING} or {@link ShardRoutingState#RELOCATING}
+     */
+    private static boolean onlyTrackedStates(ShardRoutingState... states) {
+        for (ShardRoutingState state : states) {
+            if (state != ShardRoutingState.INITIALIZING && state != ShardRoutingState.RELOCATING) {
+                return false;
+            }
+        }
+        return true;
     }
 
     /**
@@ -127,6 +195,13 @@ public class RoutingNode implements Iterable<ShardRouting> {
      * @return number of shards
      */
     public int numberOfShardsWithState(ShardRoutingState... states) {
+        if (onlyTrackedStates(states)) {
+            int count = 0;
+            for (ShardRoutingState state : states) {
+                count += state == ShardRoutingState.INITIALIZING ? initializingShards.size() : relocatingShards.size();
+            }
+            return count;
+        }
         int count = 0;
         for (ShardRouting shardEntry : this) {
             for (ShardRoutingState state : states) {
@@ -139,11 +214,19 @@ public class RoutingNode implements Iterable<ShardRouting> {
     }
 
     /**
-     * Determine the shards with a specific state
+     * Determine the shards with a specific state. Initializing and relocating shards are looked up without iterating over all
+     * shards of the node, in which case the shards are grouped by the order of the given states.
      * @param states set of states which should be listed
      * @return List of shards
      */
     public List<ShardRouting> shardsWithState(ShardRoutingState... states) {
+        if (onlyTrackedStates(states)) {
+            List<ShardRouting> shards = new ArrayList<>();
+            for (ShardRoutingState state : states) {
+                shards.addAll(state == ShardRoutingState.INITIALIZING ? initializingShards : relocatingShards);
+            }
+            return shards;
+        }
         List<ShardRouting> shards = new ArrayList<>();
         for (ShardRouting shardEntry : this) {
             for (ShardRoutingState state : states) {
@@ -1030,6 +1030,7 @@ public class RoutingNodes implements Iterable<RoutingNode> {
         int relocating = 0;
         Map<Index, Integer> indicesAndShards = new HashMap<>();
         for (RoutingNode node : routingNodes) {
+            assert node.invariant();
             for (ShardRouting shard : node) {
                 if (shard.initializing() && shard.relocatingNodeId() == null) {
                     inactiveShardCount++;
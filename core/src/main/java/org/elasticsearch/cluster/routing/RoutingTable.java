@@ -63,6 +63,8 @@ public class RoutingTable implements Iterable<IndexRoutingTable>, Diffable<Routi
     // index to IndexRoutingTable map
     private final ImmutableOpenMap<String, IndexRoutingTable> indicesRouting;
 
+    private volatile ShardRoutingLookup shardRoutingLookup;
+
     RoutingTable(long version, ImmutableOpenMap<String, IndexRoutingTable> indicesRouting) {
         this.version = version;
         this.indicesRouting = indicesRouting;
@@ -107,6 +109,17 @@ public class RoutingTable implements Iterable<IndexRoutingTable>, Diffable<Routi
         return indicesRouting();
     }
 
+    /**
+     * Returns the compact view of the shard copies that searches are routed against, building it on first use.
+     */
+    ShardRoutingLookup getShardRoutingLookup() {
+        if (shardRoutingLookup != null) {
+            return shardRoutingLookup;
+        }
+        shardRoutingLookup = new ShardRoutingLookup(this);
+        return shardRoutingLookup;
+    }
+
     /**
      * All shards for the provided index and shard id
      * @return All the shard routing entries for the given index and shard id
@@ -0,0 +1,165 @@
+/*
+ * Licensed to Elasticsearch under one or more contributor
+ * license agreements. See the NOTICE file distributed with
+ * this work for additional information regarding copyright
+ * ownership. Elasticsearch licenses this file to you under
+ * the Apache License, Version 2.0 (the "License"); you may
+ * not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.elasticsearch.cluster.routing;
+
+import com.carrotsearch.hppc.cursors.IntObjectCursor;
+import com.carrotsearch.hppc.cursors.ObjectCursor;
+import org.elasticsearch.common.Nullable;
+
+import java.util.AbstractList;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.RandomAccess;
+
+/**
+ * A compact, array backed view of the shard copies of a {@link RoutingTable} that {@link OperationRouting} resolves searches against.
+ * Since the {@link RoutingTable} is immutable the view is built once, on first use, and shared by all requests that are routed against
+ * the same routing table. It references the {@link ShardRouting} instances of the routing table, so that routing a search to
+ * thousands of shards neither copies nor hashes them.
+ */
+final class ShardRoutingLookup {
+
+    private final Map<String, IndexShards> indices;
+
+    ShardRoutingLookup(RoutingTable routingTable) {
+        this.indices = new HashMap<>(routingTable.indicesRouting().size());
+        for (ObjectCursor<IndexRoutingTable> cursor : routingTable.indicesRouting().values()) {
+            indices.put(cursor.value.getIndex().getName(), new IndexShards(cursor.value));
+        }
+    }
+
+    /**
+     * Returns the shards of the given index, or <code>null</code> if the routing table doesn't contain the index
+     */
+    @Nullable
+    IndexShards index(String index) {
+        return indices.get(index);
+    }
+
+    /**
+     * The shard copies of an index. The copies of all shards are stored in a single array, grouped by shard and with the active
+     * copies before the initializing ones, the copies of shard <code>i</code> start at <code>offsets[i]</code>.
+     */
+    static final class IndexShards {
+
+        private final IndexShardRoutingTable[] shardTables;
+        private final ShardRouting[] copies;
+        private final int[] offsets;
+        private final int[] activeCounts;
+
+        IndexShards(IndexRoutingTable indexRoutingTable) {
+            int numberOfShards = 0;
+            int numberOfCopies = 0;
+            for (IntObjectCursor<IndexShardRoutingTable> cursor : indexRoutingTable.shards()) {
+                numberOfShards = Math.max(numberOfShards, cursor.key + 1);
+                numberOfCopies += cursor.value.activeShards().size() + cursor.value.getAllInitializingShards().size();
+            }
+            this.shardTables = new IndexShardRoutingTable[numberOfShards];
+            this.copies = new ShardRouting[numberOfCopies];
+            this.offsets = new int[numberOfShards + 1];
+            this.activeCounts = new int[numberOfShards];
+            for (IntObjectCursor<IndexShardRoutingTable> cursor : indexRoutingTable.shards()) {
+                shardTables[cursor.key] = cursor.value;
+            }
+            int offset = 0;
+            for (int shard = 0; shard < numberOfShards; shard++) {
+                offsets[shard] = offset;
+                final IndexShardRoutingTable shardTable = shardTables[shard];
+                if (shardTable != null) {
+                    for (ShardRouting shardRouting : shardTable.activeShards()) {
+                        copies[offset++] = shardRouting;
+                    }
+                    activeCounts[shard] = shardTable.activeShards().size();
+                    for (ShardRouting shardRouting : shardTable.getAllInitializingShards()) {
+                        copies[offset++] = shardRouting;
+                    }
+                }
+            }
+            offsets[numberOfShards] = offset;
+        }
+
+        /**
+         * The number of shards of the index, which is one more than the highest shard id in the routing table
+         */
+        int numberOfShards() {
+            return shardTables.length;
+        }
+
+        /**
+         * Returns the routing table of the given shard, or <code>null</code> if the routing table doesn't contain the shard
+         */
+        @Nullable
+        IndexShardRoutingTable shardTable(int shard) {
+            return shard < shardTables.length ? shardTables[shard] : null;
+        }
+
+        /**
+         * Returns an iterator over the active copies of the given shard, rotated like
+         * {@link IndexShardRoutingTable#activeInitializingShardsRandomIt()} does, followed by its initializing copies.
+         */
+        ShardIterator activeInitializingShardsRandomIt(int shard) {
+            final IndexShardRoutingTable shardTable = shardTables[shard];
+            final int activeCount = activeCounts[shard];
+            final int rotation = activeCount == 0 ? 0 : Math.floorMod(shardTable.shuffler.nextSeed(), activeCount);
+            return new PlainShardIterator(shardTable.shardId(),
+                new ShardCopies(copies, offsets[shard], offsets[shard + 1] - offsets[shard], activeCount, rotation));
+        }
+    }
+
+    /**
+     * A read-only view of the copies of a shard, with the active copies rotated by the given distance.
+     */
+    private static final class ShardCopies extends AbstractList<ShardRouting> implements RandomAccess {
+
+        private final ShardRouting[] copies;
+        private final int offset;
+        private final int size;
+        private final int activeCount;
+        private final int rotation;
+
+        ShardCopies(ShardRouting[] copies, int offset, int size, int activeCount, int rotation) {
+            this.copies = copies;
+            this.offset = offset;
+            this.size = size;
+            this.activeCount = activeCount;
+            this.rotation = rotation;
+        }
+
+        @Override
+        public ShardRouting get(int index) {
+            if (index < 0 || index >= size) {
+                throw new IndexOutOfBoundsException("index [" + index + "] is out of bounds for [" + size + "] copies");
+            }
+            if (index < activeCount) {
+                int rotated = index + rotation;
+                if (rotated >= activeCount) {
+                    rotated -= activeCount;
+                }
+                return copies[offset + rotated];
+            }
+            return copies[offset + index];
+        }
+
+        @Override
+        public int size() {
+            return size;
+        }
+    }
+}
@@ -38,7 +38,9 @@ import java.util.HashSet;
 import java.util.Map;
 import java.util.Set;
 
+import static java.util.Collections.emptyMap;
 import static java.util.Collections.emptySet;
+import static java.util.Collections.unmodifiableMap;
 import static java.util.Collections.unmodifiableSet;
 
 /**
@@ -72,6 +74,8 @@ public class RoutingAllocation {
 
     private boolean hasPendingAsyncFetch = false;
 
+    private Map<String, Long> deciderTimings = null;
+
     private final long currentNanoTime;
 
     private final IndexMetaDataUpdater indexMetaDataUpdater = new IndexMetaDataUpdater();
@@ -183,6 +187,38 @@ public class RoutingAllocation {
         return this.debugDecision;
     }
 
+    /**
+     * Enables or disables the recording of the time spent in allocation decider
+     */
+    public void profileDeciders(boolean profile) {
+        this.deciderTimings = profile ? new HashMap<>() : null;
+    }
+
+    /**
+     * Returns <code>true</code> iff the time spent in each allocation decider is recorded
+     */
+    public boolean profileDeciders() {
+        return deciderTimings != null;
+    }
+
+    /**
+     * Adds the given time in nanoseconds to the time spent in the decider with the given name. Only has an effect if
+     * deciders are profiled.
+     */
+    public void addDeciderTime(String deciderName, long timeInNanos) {
+        if (deciderTimings != null) {
+            deciderTimings.merge(deciderName, timeInNanos, Long::sum);
+        }
+    }
+
+    /**
+     * Returns the time in nanoseconds spent in each decider since profiling was enabled, keyed by decider name. The map is empty
+     * if deciders are not profiled.
+     */
+    public Map<String, Long> getDeciderTimings() {
+        return deciderTimings == null ? emptyMap() : unmodifiableMap(new HashMap<>(deciderTimings));
+    }
+
     public void addIgnoreShardForNode(ShardId shardId, String nodeId) {
         if (ignoredShardToNodes == null) {
             ignoredShardToNodes = new HashMap<>();
@@ -238,6 +238,10 @@ public class BalancedShardsAllocator extends AbstractComponent implements Shards
         private final MetaData metaData;
         private final float avgShardsPerNode;
         private final NodeSorter sorter;
+        /* the rebalance decision of a shard doesn't depend on the target node but only on the routing nodes, which don't change until a
+         * relocation is executed on the cluster. The decisions are therefore cached while trying to relocate shards of an index between
+         * different pairs of nodes and the cache is cleared as soon as a shard was relocated. */
+        private final Map<ShardRouting, Decision> rebalanceDecisions = new HashMap<>();
 
         public Balancer(Logger logger, RoutingAllocation allocation, WeightFunction weight, float threshold) {
             this.logger = logger;
@@ -485,6 +489,12 @@ public class BalancedShardsAllocator extends AbstractComponent implements Shards
             final ModelNode[] modelNodes = sorter.modelNodes;
             final float[] weights = sorter.weights;
             for (String index : buildWeightOrderedIndices()) {
+                /* if the weights of all nodes are within the threshold no relocation can improve the balance of this index so we don't
+                 * need to ask the deciders which nodes are relevant. The weights are recomputed here since relocations of shards of
+                 * previous indices changed the number of shards of the nodes. */
+                if (lessThan(sorter.weightDelta(index), threshold)) {
+                    continue;
+                }
                 IndexMetaData indexMetaData = metaData.index(index);
 
                 // find nodes that have a shard of this index or where shards of this index are allowed to be allocated to,
@@ -593,8 +603,7 @@ public class BalancedShardsAllocator extends AbstractComponent implements Shards
             final String[] indices = allocation.routingTable().indicesRouting().keys().toArray(String.class);
             final float[] deltas = new float[indices.length];
             for (int i = 0; i < deltas.length; i++) {
-                sorter.reset(indices[i]);
-                deltas[i] = sorter.delta();
+                deltas[i] = sorter.weightDelta(indices[i]);
             }
             new IntroSorter() {
 
@@ -1001,10 +1010,14 @@ public class BalancedShardsAllocator extends AbstractComponent implements Shards
                 for (ShardRouting shard : index) {
                     if (shard.started()) {
                         // skip initializing, unassigned and relocating shards we can't relocate them anyway
+                        Decision rebalanceDecision = rebalanceDecisions.computeIfAbsent(shard,
+                            s -> deciders.canRebalance(s, allocation));
+                        if (rebalanceDecision.type() == Type.NO) {
+                            // no need to ask the deciders about the target node if the shard can't be rebalanced at all
+                            continue;
+                        }
                         Decision allocationDecision = deciders.canAllocate(shard, minNode.getRoutingNode(), allocation);
-                        Decision rebalanceDecision = deciders.canRebalance(shard, allocation);
-                        if (((allocationDecision.type() == Type.YES) || (allocationDecision.type() == Type.THROTTLE))
-                                && ((rebalanceDecision.type() == Type.YES) || (rebalanceDecision.type() == Type.THROTTLE))) {
+                        if ((allocationDecision.type() == Type.YES) || (allocationDecision.type() == Type.THROTTLE)) {
                             if (maxNode.containsShard(shard)) {
                                 // simulate moving shard from maxNode to minNode
                                 final float delta = weight.weightShardAdded(this, minNode, idx) - weight.weightShardRemoved(this, maxNode, idx);
@@ -1031,6 +1044,7 @@ public class BalancedShardsAllocator extends AbstractComponent implements Shards
                                     minNode.getNodeId());
                         /* now allocate on the cluster */
                         minNode.addShard(routingNodes.relocateShard(candidate, minNode.getNodeId(), shardSize, allocation.changes()).v1());
+                        rebalanceDecisions.clear();
                         return true;
                     } else {
                         assert decision.type() == Type.THROTTLE;
@@ -1242,5 +1256,25 @@ public class BalancedShardsAllocator extends AbstractComponent implements Shards
         public float delta() {
             return weights[weights.length - 1] - weights[0];
         }
+
+        /**
+         * Recalculates the weights per node with respect to the given index and returns the delta between the highest and the lowest
+         * weight. Unlike {@link #reset(String)} the nodes are not sorted, which is all we need if we are only interested in the delta.
+         */
+        public float weightDelta(String index) {
+            this.index = index;
+            if (modelNodes.length == 0) {
+                return 0.0f;
+            }
+            float min = Float.POSITIVE_INFINITY;
+            float max = Float.NEGATIVE_INFINITY;
+            for (int i = 0; i < modelNodes.length; i++) {
+                final float weight = weight(modelNodes[i]);
+                weights[i] = weight;
+                min = Math.min(min, weight);
+                max = Math.max(max, weight);
+            }
+            return max - min;
+        }
     }
 }
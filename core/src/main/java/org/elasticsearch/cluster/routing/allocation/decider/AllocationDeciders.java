@@ -47,7 +47,9 @@ public class AllocationDeciders extends AllocationDecider {
     public Decision canRebalance(ShardRouting shardRouting, RoutingAllocation allocation) {
         Decision.Multi ret = new Decision.Multi();
         for (AllocationDecider allocationDecider : allocations) {
+            final long startTimeNanos = allocation.profileDeciders() ? System.nanoTime() : 0L;
             Decision decision = allocationDecider.canRebalance(shardRouting, allocation);
+            recordTime(allocationDecider, startTimeNanos, allocation);
             // short track if a NO is returned.
             if (decision == Decision.NO) {
                 if (!allocation.debugDecision()) {
@@ -70,7 +72,9 @@ public class AllocationDeciders extends AllocationDecider {
         }
         Decision.Multi ret = new Decision.Multi();
         for (AllocationDecider allocationDecider : allocations) {
+            final long startTimeNanos = allocation.profileDeciders() ? System.nanoTime() : 0L;
             Decision decision = allocationDecider.canAllocate(shardRouting, node, allocation);
+            recordTime(allocationDecider, startTimeNanos, allocation);
             // short track if a NO is returned.
             if (decision == Decision.NO) {
                 if (logger.isTraceEnabled()) {
@@ -102,7 +106,9 @@ public class AllocationDeciders extends AllocationDecider {
         }
         Decision.Multi ret = new Decision.Multi();
         for (AllocationDecider allocationDecider : allocations) {
+            final long startTimeNanos = allocation.profileDeciders() ? System.nanoTime() : 0L;
             Decision decision = allocationDecider.canRemain(shardRouting, node, allocation);
+            recordTime(allocationDecider, startTimeNanos, allocation);
             // short track if a NO is returned.
             if (decision == Decision.NO) {
                 if (logger.isTraceEnabled()) {
@@ -125,7 +131,9 @@ public class AllocationDeciders extends AllocationDecider {
     public Decision canAllocate(IndexMetaData indexMetaData, RoutingNode node, RoutingAllocation allocation) {
         Decision.Multi ret = new Decision.Multi();
         for (AllocationDecider allocationDecider : allocations) {
+            final long startTimeNanos = allocation.profileDeciders() ? System.nanoTime() : 0L;
             Decision decision = allocationDecider.canAllocate(indexMetaData, node, allocation);
+            recordTime(allocationDecider, startTimeNanos, allocation);
             // short track if a NO is returned.
             if (decision == Decision.NO) {
                 if (!allocation.debugDecision()) {
@@ -145,7 +153,9 @@ public class AllocationDeciders extends AllocationDecider {
     public Decision canAllocate(ShardRouting shardRouting, RoutingAllocation allocation) {
         Decision.Multi ret = new Decision.Multi();
         for (AllocationDecider allocationDecider : allocations) {
+            final long startTimeNanos = allocation.profileDeciders() ? System.nanoTime() : 0L;
             Decision decision = allocationDecider.canAllocate(shardRouting, allocation);
+            recordTime(allocationDecider, startTimeNanos, allocation);
             // short track if a NO is returned.
             if (decision == Decision.NO) {
                 if (!allocation.debugDecision()) {
@@ -165,7 +175,9 @@ public class AllocationDeciders extends AllocationDecider {
     public Decision canAllocate(RoutingNode node, RoutingAllocation allocation) {
         Decision.Multi ret = new Decision.Multi();
         for (AllocationDecider allocationDecider : allocations) {
+            final long startTimeNanos = allocation.profileDeciders() ? System.nanoTime() : 0L;
             Decision decision = allocationDecider.canAllocate(node, allocation);
+            recordTime(allocationDecider, startTimeNanos, allocation);
             // short track if a NO is returned.
             if (decision == Decision.NO) {
                 if (!allocation.debugDecision()) {
@@ -185,7 +197,9 @@ public class AllocationDeciders extends AllocationDecider {
     public Decision canRebalance(RoutingAllocation allocation) {
         Decision.Multi ret = new Decision.Multi();
         for (AllocationDecider allocationDecider : allocations) {
+            final long startTimeNanos = allocation.profileDeciders() ? System.nanoTime() : 0L;
             Decision decision = allocationDecider.canRebalance(allocation);
+            recordTime(allocationDecider, startTimeNanos, allocation);
             // short track if a NO is returned.
             if (decision == Decision.NO) {
                 if (!allocation.debugDecision()) {
@@ -210,7 +224,9 @@ public class AllocationDeciders extends AllocationDecider {
         }
         Decision.Multi ret = new Decision.Multi();
         for (AllocationDecider decider : allocations) {
+            final long startTimeNanos = allocation.profileDeciders() ? System.nanoTime() : 0L;
             Decision decision = decider.canForceAllocatePrimary(shardRouting, node, allocation);
+            recordTime(decider, startTimeNanos, allocation);
             // short track if a NO is returned.
             if (decision == Decision.NO) {
                 if (logger.isTraceEnabled()) {
@@ -229,4 +245,10 @@ public class AllocationDeciders extends AllocationDecider {
         }
         return ret;
     }
+
+    private static void recordTime(AllocationDecider decider, long startTimeNanos, RoutingAllocation allocation) {
+        if (allocation.profileDeciders()) {
+            allocation.addDeciderTime(decider.getClass().getSimpleName(), System.nanoTime() - startTimeNanos);
+        }
+    }
 }
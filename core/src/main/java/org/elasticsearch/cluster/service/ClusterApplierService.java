@@ -48,6 +48,7 @@ import org.elasticsearch.common.util.concurrent.PrioritizedEsThreadPoolExecutor;
 import org.elasticsearch.common.util.iterable.Iterables;
 import org.elasticsearch.threadpool.ThreadPool;
 
+import java.util.ArrayDeque;
 import java.util.Collection;
 import java.util.Collections;
 import java.util.Iterator;
@@ -85,6 +86,7 @@ public class ClusterApplierService extends AbstractLifecycleComponent implements
     private final Collection<ClusterStateApplier> lowPriorityStateAppliers = new CopyOnWriteArrayList<>();
     private final Iterable<ClusterStateApplier> clusterStateAppliers = Iterables.concat(highPriorityStateAppliers,
         normalPriorityStateAppliers, lowPriorityStateAppliers);
+    private final Collection<AsyncClusterStateApplier> asyncStateAppliers = new CopyOnWriteArrayList<>();
 
     private final Collection<ClusterStateListener> clusterStateListeners = new CopyOnWriteArrayList<>();
     private final Collection<TimeoutClusterStateListener> timeoutClusterStateListeners =
@@ -209,6 +211,16 @@ public class ClusterApplierService extends AbstractLifecycleComponent implements
         normalPriorityStateAppliers.add(applier);
     }
 
+    /**
+     * Adds an applier of updated cluster states that is called on the generic thread pool rather than on the cluster state update
+     * thread. The applier is called with every updated cluster state, in the order the states are applied, but the cluster state
+     * becomes visible via {@link #state()} and is acknowledged without waiting for the applier. Only appliers whose work no other
+     * component relies on having happened once a cluster state is applied may opt in to this.
+     */
+    public void addAsyncApplier(ClusterStateApplier applier) {
+        asyncStateAppliers.add(new AsyncClusterStateApplier(applier));
+    }
+
     /**
      * Removes an applier of updated cluster states.
      */
@@ -216,6 +228,7 @@ public class ClusterApplierService extends AbstractLifecycleComponent implements
         normalPriorityStateAppliers.remove(applier);
         highPriorityStateAppliers.remove(applier);
         lowPriorityStateAppliers.remove(applier);
+        asyncStateAppliers.removeIf(asyncApplier -> asyncApplier.applier == applier);
     }
 
     /**
@@ -486,27 +499,94 @@ public class ClusterApplierService extends AbstractLifecycleComponent implements
     }
 
     private void callClusterStateAppliers(ClusterChangedEvent clusterChangedEvent) {
-        clusterStateAppliers.forEach(applier -> {
-            try {
-                logger.trace("calling [{}] with change to version [{}]", applier, clusterChangedEvent.state().version());
-                applier.applyClusterState(clusterChangedEvent);
-            } catch (Exception ex) {
-                logger.warn("failed to notify ClusterStateApplier", ex);
-            }
-        });
+        clusterStateAppliers.forEach(applier -> callClusterStateApplier(applier, clusterChangedEvent));
+        asyncStateAppliers.forEach(asyncApplier -> asyncApplier.submit(clusterChangedEvent));
+    }
+
+    private void callClusterStateApplier(ClusterStateApplier applier, ClusterChangedEvent clusterChangedEvent) {
+        final long startTimeNS = currentTimeInNanos();
+        try {
+            logger.trace("calling [{}] with change to version [{}]", applier, clusterChangedEvent.state().version());
+            applier.applyClusterState(clusterChangedEvent);
+        } catch (Exception ex) {
+            logger.warn("failed to notify ClusterStateApplier", ex);
+        }
+        warnAboutSlowApplierIfNeeded("applier", applier, startTimeNS, clusterChangedEvent);
     }
 
     private void callClusterStateListeners(ClusterChangedEvent clusterChangedEvent) {
         Stream.concat(clusterStateListeners.stream(), timeoutClusterStateListeners.stream()).forEach(listener -> {
+            final long startTimeNS = currentTimeInNanos();
             try {
                 logger.trace("calling [{}] with change to version [{}]", listener, clusterChangedEvent.state().version());
                 listener.clusterChanged(clusterChangedEvent);
             } catch (Exception ex) {
                 logger.warn("failed to notify ClusterStateListener", ex);
             }
+            warnAboutSlowApplierIfNeeded("listener", listener, startTimeNS, clusterChangedEvent);
         });
     }
 
+    /**
+     * Calls a {@link ClusterStateApplier} that opted in to be called asynchronously with the applied cluster states, one at a time and
+     * in the order they were applied.
+     */
+    private class AsyncClusterStateApplier implements Runnable {
+
+        private final ClusterStateApplier applier;
+        private final Queue<ClusterChangedEvent> pendingEvents = new ArrayDeque<>();
+        private boolean running = false;
+
+        AsyncClusterStateApplier(ClusterStateApplier applier) {
+            this.applier = applier;
+        }
+
+        void submit(ClusterChangedEvent clusterChangedEvent) {
+            synchronized (this) {
+                pendingEvents.add(clusterChangedEvent);
+                if (running) {
+                    return;
+                }
+                running = true;
+            }
+            try {
+                threadPool.generic().execute(this);
+            } catch (EsRejectedExecutionException e) {
+                synchronized (this) {
+                    // drop the queued states rather than leaving them behind for whichever state is submitted next
+                    pendingEvents.clear();
+                    running = false;
+                }
+                // the cluster state is applied already, so don't fail it; ignore cases where we are shutting down..., there is
+                // really nothing interesting to be done here...
+                if (!lifecycle.stoppedOrClosed()) {
+                    logger.warn((Supplier<?>) () -> new ParameterizedMessage("failed to submit cluster state version [{}] to {}",
+                        clusterChangedEvent.state().version(), this), e);
+                }
+            }
+        }
+
+        @Override
+        public void run() {
+            while (true) {
+                final ClusterChangedEvent clusterChangedEvent;
+                synchronized (this) {
+                    clusterChangedEvent = pendingEvents.poll();
+                    if (clusterChangedEvent == null) {
+                        running = false;
+                        return;
+                    }
+                }
+                callClusterStateApplier(applier, clusterChangedEvent);
+            }
+        }
+
+        @Override
+        public String toString() {
+            return "async applier [" + applier + "]";
+        }
+    }
+
     private static class SafeClusterStateTaskListener implements ClusterStateTaskListener {
         private final ClusterStateTaskListener listener;
         private final Logger logger;
@@ -543,6 +623,18 @@ public class ClusterApplierService extends AbstractLifecycleComponent implements
         }
     }
 
+    private void warnAboutSlowApplierIfNeeded(String type, Object applier, long startTimeNS, ClusterChangedEvent clusterChangedEvent) {
+        final long executionTimeNS = Math.max(0, currentTimeInNanos() - startTimeNS);
+        if (executionTimeNS > slowTaskLoggingThreshold.nanos()) {
+            logger.warn("cluster state {} [{}] took [{}] above the warn threshold of {} applying version [{}], source [{}]", type, applier,
+                TimeValue.timeValueNanos(executionTimeNS), slowTaskLoggingThreshold, clusterChangedEvent.state().version(),
+                clusterChangedEvent.source());
+        } else if (logger.isTraceEnabled()) {
+            logger.trace("cluster state {} [{}] took [{}] applying version [{}]", type, applier, TimeValue.timeValueNanos(executionTimeNS),
+                clusterChangedEvent.state().version());
+        }
+    }
+
     protected void warnAboutSlowTaskIfNeeded(TimeValue executionTime, String source) {
         if (executionTime.getMillis() > slowTaskLoggingThreshold.getMillis()) {
             logger.warn("cluster state applier task [{}] took [{}] above the warn threshold of {}", source, executionTime,
@@ -141,6 +141,13 @@ public class ClusterService extends AbstractLifecycleComponent {
         clusterApplierService.addStateApplier(applier);
     }
 
+    /**
+     * Adds an applier of updated cluster states that is called asynchronously, see {@link ClusterApplierService#addAsyncApplier}.
+     */
+    public void addAsyncApplier(ClusterStateApplier applier) {
+        clusterApplierService.addAsyncApplier(applier);
+    }
+
     /**
      * Removes an applier of updated cluster states.
      */
@@ -32,6 +32,7 @@ public interface CircuitBreaker {
     String FIELDDATA = "fielddata";
     String REQUEST = "request";
     String IN_FLIGHT_REQUESTS = "in_flight_requests";
+    String FIELDDATA_OFF_HEAP = "fielddata_off_heap";
 
     enum Type {
         // A regular or child MemoryCircuitBreaker
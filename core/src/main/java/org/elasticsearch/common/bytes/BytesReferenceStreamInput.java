@@ -66,6 +66,103 @@ final class BytesReferenceStreamInput extends StreamInput {
         }
     }
 
+    /**
+     * Returns <code>true</code> iff the next <code>bytes</code> bytes of the stream are all contained in the current slice, moving to the
+     * next slice if the current one is exhausted. This allows the fixed and variable length decoders below to read straight off the
+     * slice instead of going through {@link #readByte()} for every single byte.
+     */
+    private boolean canReadFromSlice(int bytes) throws IOException {
+        if (length - offset < bytes) {
+            return false;
+        }
+        maybeNextSlice();
+        return slice.length - sliceOffset >= bytes;
+    }
+
+    private void skipInSlice(int bytes) {
+        sliceOffset += bytes;
+        offset += bytes;
+    }
+
+    @Override
+    public int readInt() throws IOException {
+        if (canReadFromSlice(Integer.BYTES) == false) {
+            return super.readInt();
+        }
+        final byte[] bytes = slice.bytes;
+        final int pos = slice.offset + sliceOffset;
+        skipInSlice(Integer.BYTES);
+        return ((bytes[pos] & 0xFF) << 24) | ((bytes[pos + 1] & 0xFF) << 16)
+            | ((bytes[pos + 2] & 0xFF) << 8) | (bytes[pos + 3] & 0xFF);
+    }
+
+    @Override
+    public long readLong() throws IOException {
+        if (canReadFromSlice(Long.BYTES) == false) {
+            return super.readLong();
+        }
+        final byte[] bytes = slice.bytes;
+        final int pos = slice.offset + sliceOffset;
+        skipInSlice(Long.BYTES);
+        final int high = ((bytes[pos] & 0xFF) << 24) | ((bytes[pos + 1] & 0xFF) << 16)
+            | ((bytes[pos + 2] & 0xFF) << 8) | (bytes[pos + 3] & 0xFF);
+        final int low = ((bytes[pos + 4] & 0xFF) << 24) | ((bytes[pos + 5] & 0xFF) << 16)
+            | ((bytes[pos + 6] & 0xFF) << 8) | (bytes[pos + 7] & 0xFF);
+        return (((long) high) << 32) | (low & 0xFFFFFFFFL);
+    }
+
+    @Override
+    public int readVInt() throws IOException {
+        // a vint takes at most five bytes
+        if (canReadFromSlice(5) == false) {
+            return super.readVInt();
+        }
+        final byte[] bytes = slice.bytes;
+        final int start = slice.offset + sliceOffset;
+        int pos = start;
+        int i = 0;
+        for (int shift = 0; shift < 28; shift += 7) {
+            final byte b = bytes[pos++];
+            i |= (b & 0x7F) << shift;
+            if ((b & 0x80) == 0) {
+                skipInSlice(pos - start);
+                return i;
+            }
+        }
+        final byte b = bytes[pos++];
+        if ((b & 0x80) != 0) {
+            throw new IOException("Invalid vInt ((" + Integer.toHexString(b) + " & 0x7f) << 28) | " + Integer.toHexString(i));
+        }
+        skipInSlice(pos - start);
+        return i | ((b & 0x7F) << 28);
+    }
+
+    @Override
+    public long readVLong() throws IOException {
+        // a vlong takes at most ten bytes
+        if (canReadFromSlice(10) == false) {
+            return super.readVLong();
+        }
+        final byte[] bytes = slice.bytes;
+        final int start = slice.offset + sliceOffset;
+        int pos = start;
+        long i = 0;
+        for (int shift = 0; shift < 63; shift += 7) {
+            final byte b = bytes[pos++];
+            i |= (b & 0x7FL) << shift;
+            if ((b & 0x80) == 0) {
+                skipInSlice(pos - start);
+                return i;
+            }
+        }
+        final byte b = bytes[pos++];
+        if (b != 0 && b != 1) {
+            throw new IOException("Invalid vlong (" + Integer.toHexString(b) + " << 63) | " + Long.toHexString(i));
+        }
+        skipInSlice(pos - start);
+        return i | (((long) b) << 63);
+    }
+
     @Override
     public void readBytes(byte[] b, int bOffset, int len) throws IOException {
         if (offset + len > length) {
@@ -76,6 +76,32 @@ public class ByteBufferStreamInput extends StreamInput {
         buffer.get(b, offset, len);
     }
 
+    // the fixed width readers assume the buffer's default big-endian byte order which matches the encoding used by StreamOutput
+
+    @Override
+    public short readShort() throws IOException {
+        if (buffer.remaining() < Short.BYTES) {
+            throw new EOFException();
+        }
+        return buffer.getShort();
+    }
+
+    @Override
+    public int readInt() throws IOException {
+        if (buffer.remaining() < Integer.BYTES) {
+            throw new EOFException();
+        }
+        return buffer.getInt();
+    }
+
+    @Override
+    public long readLong() throws IOException {
+        if (buffer.remaining() < Long.BYTES) {
+            throw new EOFException();
+        }
+        return buffer.getLong();
+    }
+
     @Override
     public void reset() throws IOException {
         buffer.reset();
@@ -617,11 +617,40 @@ public abstract class StreamInput extends InputStream {
         return null;
     }
 
+    // we use a small buffer to read fixed-width primitive arrays in chunks of at most 1024 bytes rather than calling readByte for every
+    // single byte. This buffer is not shared across streams.
+    private byte[] bulkBuffer = BytesRef.EMPTY_BYTES;
+
+    /**
+     * Reads the next {@code min(bytes, 1024)} bytes into the bulk buffer and returns it.
+     */
+    private byte[] fillBulkBuffer(int bytes) throws IOException {
+        final int bufferSize = Math.min(bytes, 1024);
+        if (bulkBuffer.length < bufferSize) { // we don't use ArrayUtils.grow since copying the bytes is unnecessary
+            bulkBuffer = new byte[ArrayUtil.oversize(bufferSize, Byte.BYTES)];
+        }
+        readBytes(bulkBuffer, 0, bufferSize);
+        return bulkBuffer;
+    }
+
+    private static int getInt(byte[] buffer, int offset) {
+        return ((buffer[offset] & 0xFF) << 24) | ((buffer[offset + 1] & 0xFF) << 16)
+                | ((buffer[offset + 2] & 0xFF) << 8) | (buffer[offset + 3] & 0xFF);
+    }
+
+    private static long getLong(byte[] buffer, int offset) {
+        return (((long) getInt(buffer, offset)) << 32) | (getInt(buffer, offset + 4) & 0xFFFFFFFFL);
+    }
+
     public int[] readIntArray() throws IOException {
         int length = readArraySize();
         int[] values = new int[length];
-        for (int i = 0; i < length; i++) {
-            values[i] = readInt();
+        for (int i = 0; i < length; ) {
+            final int chunk = Math.min(length - i, 1024 / Integer.BYTES);
+            final byte[] buffer = fillBulkBuffer(chunk * Integer.BYTES);
+            for (int j = 0; j < chunk; j++) {
+                values[i++] = getInt(buffer, j * Integer.BYTES);
+            }
         }
         return values;
     }
@@ -638,8 +667,12 @@ public abstract class StreamInput extends InputStream {
     public long[] readLongArray() throws IOException {
         int length = readArraySize();
         long[] values = new long[length];
-        for (int i = 0; i < length; i++) {
-            values[i] = readLong();
+        for (int i = 0; i < length; ) {
+            final int chunk = Math.min(length - i, 1024 / Long.BYTES);
+            final byte[] buffer = fillBulkBuffer(chunk * Long.BYTES);
+            for (int j = 0; j < chunk; j++) {
+                values[i++] = getLong(buffer, j * Long.BYTES);
+            }
         }
         return values;
     }
@@ -656,8 +689,12 @@ public abstract class StreamInput extends InputStream {
     public float[] readFloatArray() throws IOException {
         int length = readArraySize();
         float[] values = new float[length];
-        for (int i = 0; i < length; i++) {
-            values[i] = readFloat();
+        for (int i = 0; i < length; ) {
+            final int chunk = Math.min(length - i, 1024 / Float.BYTES);
+            final byte[] buffer = fillBulkBuffer(chunk * Float.BYTES);
+            for (int j = 0; j < chunk; j++) {
+                values[i++] = Float.intBitsToFloat(getInt(buffer, j * Float.BYTES));
+            }
         }
         return values;
     }
@@ -665,8 +702,12 @@ public abstract class StreamInput extends InputStream {
     public double[] readDoubleArray() throws IOException {
         int length = readArraySize();
         double[] values = new double[length];
-        for (int i = 0; i < length; i++) {
-            values[i] = readDouble();
+        for (int i = 0; i < length; ) {
+            final int chunk = Math.min(length - i, 1024 / Double.BYTES);
+            final byte[] buffer = fillBulkBuffer(chunk * Double.BYTES);
+            for (int j = 0; j < chunk; j++) {
+                values[i++] = Double.longBitsToDouble(getLong(buffer, j * Double.BYTES));
+            }
         }
         return values;
     }
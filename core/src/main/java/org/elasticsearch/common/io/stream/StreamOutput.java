@@ -172,19 +172,22 @@ public abstract class StreamOutput extends OutputStream {
         write(bytes.bytes, bytes.offset, bytes.length);
     }
 
+    // scratch space for encoding a single primitive so that it can be handed to writeBytes in one call instead of writing it byte by
+    // byte. A vlong needs at most ten bytes, see #writeVLongNoCheck.
+    private final byte[] scratch = new byte[10];
+
     public final void writeShort(short v) throws IOException {
-        writeByte((byte) (v >> 8));
-        writeByte((byte) v);
+        final byte[] buffer = scratch;
+        buffer[0] = (byte) (v >> 8);
+        buffer[1] = (byte) v;
+        writeBytes(buffer, 0, 2);
     }
 
     /**
      * Writes an int as four bytes.
      */
     public void writeInt(int i) throws IOException {
-        writeByte((byte) (i >> 24));
-        writeByte((byte) (i >> 16));
-        writeByte((byte) (i >> 8));
-        writeByte((byte) i);
+        writeBytes(scratch, 0, putInt(scratch, 0, i));
     }
 
     /**
@@ -194,19 +197,18 @@ public abstract class StreamOutput extends OutputStream {
      * using {@link #writeInt}
      */
     public void writeVInt(int i) throws IOException {
-        while ((i & ~0x7F) != 0) {
-            writeByte((byte) ((i & 0x7f) | 0x80));
-            i >>>= 7;
+        if ((i & ~0x7F) == 0) {
+            writeByte((byte) i);
+            return;
         }
-        writeByte((byte) i);
+        writeBytes(scratch, 0, putVInt(scratch, 0, i));
     }
 
     /**
      * Writes a long as eight bytes.
      */
     public void writeLong(long i) throws IOException {
-        writeInt((int) (i >> 32));
-        writeInt((int) i);
+        writeBytes(scratch, 0, putLong(scratch, 0, i));
     }
 
     /**
@@ -226,11 +228,11 @@ public abstract class StreamOutput extends OutputStream {
      * {@link #writeVLong(long)} instead.
      */
     void writeVLongNoCheck(long i) throws IOException {
-        while ((i & ~0x7F) != 0) {
-            writeByte((byte) ((i & 0x7f) | 0x80));
-            i >>>= 7;
+        if ((i & ~0x7FL) == 0L) {
+            writeByte((byte) i);
+            return;
         }
-        writeByte((byte) i);
+        writeBytes(scratch, 0, putVLong(scratch, 0, i));
     }
 
     /**
@@ -242,12 +244,50 @@ public abstract class StreamOutput extends OutputStream {
      */
     public void writeZLong(long i) throws IOException {
         // zig-zag encoding cf. https://developers.google.com/protocol-buffers/docs/encoding?hl=en
-        long value = BitUtil.zigZagEncode(i);
-        while ((value & 0xFFFFFFFFFFFFFF80L) != 0L) {
-            writeByte((byte)((value & 0x7F) | 0x80));
-            value >>>= 7;
+        writeVLongNoCheck(BitUtil.zigZagEncode(i));
+    }
+
+    /**
+     * Encodes the given int big-endian into {@code buffer} starting at {@code offset} and returns the offset after the last written byte.
+     */
+    private static int putInt(byte[] buffer, int offset, int i) {
+        buffer[offset] = (byte) (i >> 24);
+        buffer[offset + 1] = (byte) (i >> 16);
+        buffer[offset + 2] = (byte) (i >> 8);
+        buffer[offset + 3] = (byte) i;
+        return offset + 4;
+    }
+
+    /**
+     * Encodes the given long big-endian into {@code buffer} starting at {@code offset} and returns the offset after the last written byte.
+     */
+    private static int putLong(byte[] buffer, int offset, long i) {
+        return putInt(buffer, putInt(buffer, offset, (int) (i >> 32)), (int) i);
+    }
+
+    /**
+     * Encodes the given int as a vint into {@code buffer} starting at {@code offset} and returns the offset after the last written byte.
+     */
+    private static int putVInt(byte[] buffer, int offset, int i) {
+        while ((i & ~0x7F) != 0) {
+            buffer[offset++] = (byte) ((i & 0x7f) | 0x80);
+            i >>>= 7;
+        }
+        buffer[offset++] = (byte) i;
+        return offset;
+    }
+
+    /**
+     * Encodes the given long as a vlong into {@code buffer} starting at {@code offset} and returns the offset after the last written byte.
+     * Doesn't check for negative values.
+     */
+    private static int putVLong(byte[] buffer, int offset, long i) {
+        while ((i & ~0x7FL) != 0L) {
+            buffer[offset++] = (byte) ((i & 0x7f) | 0x80);
+            i >>>= 7;
         }
-        writeByte((byte) (value & 0x7F));
+        buffer[offset++] = (byte) i;
+        return offset;
     }
 
     public void writeOptionalLong(@Nullable Long l) throws IOException {
@@ -309,18 +349,25 @@ public abstract class StreamOutput extends OutputStream {
         }
     }
 
-    // we use a small buffer to convert strings to bytes since we want to prevent calling writeByte
+    // we use a small buffer to convert strings and primitive arrays to bytes since we want to prevent calling writeByte
     // for every byte in the string (see #21660 for details).
     // This buffer will never be the oversized limit of 1024 bytes and will not be shared across streams
-    private byte[] convertStringBuffer = BytesRef.EMPTY_BYTES; // TODO should we reduce it to 0 bytes once the stream is closed?
+    private byte[] bulkBuffer = BytesRef.EMPTY_BYTES; // TODO should we reduce it to 0 bytes once the stream is closed?
+
+    /**
+     * Returns the bulk buffer, grown to hold at least {@code min(size, 1024)} bytes.
+     */
+    private byte[] bulkBuffer(int size) {
+        final int bufferSize = Math.min(size, 1024);
+        if (bulkBuffer.length < bufferSize) { // we don't use ArrayUtils.grow since copying the bytes is unnecessary
+            bulkBuffer = new byte[ArrayUtil.oversize(bufferSize, Byte.BYTES)];
+        }
+        return bulkBuffer;
+    }
 
     public void writeString(String str) throws IOException {
         final int charCount = str.length();
-        final int bufferSize = Math.min(3 * charCount, 1024); // at most 3 bytes per character is needed here
-        if (convertStringBuffer.length < bufferSize) { // we don't use ArrayUtils.grow since copying the bytes is unnecessary
-            convertStringBuffer = new byte[ArrayUtil.oversize(bufferSize, Byte.BYTES)];
-        }
-        byte[] buffer = convertStringBuffer;
+        final byte[] buffer = bulkBuffer(3 * charCount); // at most 3 bytes per character is needed here
         int offset = 0;
         writeVInt(charCount);
         for (int i = 0; i < charCount; i++) {
@@ -656,46 +703,95 @@ public abstract class StreamOutput extends OutputStream {
         }
     }
 
+    // The array writers below encode the values into the bulk buffer and flush it whenever it can't hold another value. This hands
+    // chunks of up to 1024 bytes to writeBytes rather than going through writeByte for every single byte.
+
     public void writeIntArray(int[] values) throws IOException {
         writeVInt(values.length);
+        final byte[] buffer = bulkBuffer(Integer.BYTES * values.length);
+        int offset = 0;
         for (int value : values) {
-            writeInt(value);
+            if (offset > buffer.length - Integer.BYTES) {
+                writeBytes(buffer, 0, offset);
+                offset = 0;
+            }
+            offset = putInt(buffer, offset, value);
         }
+        writeBytes(buffer, 0, offset);
     }
 
     public void writeVIntArray(int[] values) throws IOException {
         writeVInt(values.length);
+        final byte[] buffer = bulkBuffer(5 * values.length); // at most 5 bytes per vint
+        int offset = 0;
         for (int value : values) {
-            writeVInt(value);
+            if (offset > buffer.length - 5) {
+                writeBytes(buffer, 0, offset);
+                offset = 0;
+            }
+            offset = putVInt(buffer, offset, value);
         }
+        writeBytes(buffer, 0, offset);
     }
 
     public void writeLongArray(long[] values) throws IOException {
         writeVInt(values.length);
+        final byte[] buffer = bulkBuffer(Long.BYTES * values.length);
+        int offset = 0;
         for (long value : values) {
-            writeLong(value);
+            if (offset > buffer.length - Long.BYTES) {
+                writeBytes(buffer, 0, offset);
+                offset = 0;
+            }
+            offset = putLong(buffer, offset, value);
         }
+        writeBytes(buffer, 0, offset);
     }
 
     public void writeVLongArray(long[] values) throws IOException {
         writeVInt(values.length);
+        final byte[] buffer = bulkBuffer(10 * values.length); // at most 10 bytes per vlong
+        int offset = 0;
         for (long value : values) {
-            writeVLong(value);
+            if (value < 0) {
+                throw new IllegalStateException(
+                    "Negative longs unsupported, use writeLong or writeZLong for negative numbers [" + value + "]");
+            }
+            if (offset > buffer.length - 10) {
+                writeBytes(buffer, 0, offset);
+                offset = 0;
+            }
+            offset = putVLong(buffer, offset, value);
         }
+        writeBytes(buffer, 0, offset);
     }
 
     public void writeFloatArray(float[] values) throws IOException {
         writeVInt(values.length);
+        final byte[] buffer = bulkBuffer(Float.BYTES * values.length);
+        int offset = 0;
         for (float value : values) {
-            writeFloat(value);
+            if (offset > buffer.length - Float.BYTES) {
+                writeBytes(buffer, 0, offset);
+                offset = 0;
+            }
+            offset = putInt(buffer, offset, Float.floatToIntBits(value));
         }
+        writeBytes(buffer, 0, offset);
     }
 
     public void writeDoubleArray(double[] values) throws IOException {
         writeVInt(values.length);
+        final byte[] buffer = bulkBuffer(Double.BYTES * values.length);
+        int offset = 0;
         for (double value : values) {
-            writeDouble(value);
+            if (offset > buffer.length - Double.BYTES) {
+                writeBytes(buffer, 0, offset);
+                offset = 0;
+            }
+            offset = putLong(buffer, offset, Double.doubleToLongBits(value));
         }
+        writeBytes(buffer, 0, offset);
     }
 
     public <T extends Writeable> void writeArray(T[] array) throws IOException {
@@ -0,0 +1,229 @@
+/*
+ * Licensed to Elasticsearch under one or more contributor
+ * license agreements. See the NOTICE file distributed with
+ * this work for additional information regarding copyright
+ * ownership. Elasticsearch licenses this file to you under
+ * the Apache License, Version 2.0 (the "License"); you may
+ * not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.elasticsearch.common.metrics;
+
+import org.elasticsearch.common.io.stream.StreamInput;
+import org.elasticsearch.common.io.stream.StreamOutput;
+import org.elasticsearch.common.io.stream.Writeable;
+
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAccumulator;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * A lock-free histogram of non-negative long values with a fixed memory footprint. Values are recorded into log-linear buckets in the
+ * spirit of HDR histograms: values below {@code 8} are recorded exactly and every power of two above is split into {@code 8} linear
+ * sub-buckets, which bounds the relative error of the reported percentiles to {@code 12.5%} regardless of the magnitude of the values.
+ */
+public class HistogramMetric implements Metric {
+
+    static final int SUB_BUCKET_BITS = 3;
+    static final int SUB_BUCKETS = 1 << SUB_BUCKET_BITS;
+    // the highest bucket is used by values with the 63rd bit set (the sign bit is never set)
+    static final int NUM_BUCKETS = (Long.SIZE - SUB_BUCKET_BITS) * SUB_BUCKETS;
+
+    private final AtomicLongArray buckets = new AtomicLongArray(NUM_BUCKETS);
+    private final LongAdder count = new LongAdder();
+    private final LongAdder sum = new LongAdder();
+    private final LongAccumulator max = new LongAccumulator(Long::max, 0L);
+
+    /**
+     * Records the given value. Negative values are recorded as {@code 0}.
+     */
+    public void inc(long value) {
+        if (value < 0) {
+            value = 0;
+        }
+        buckets.incrementAndGet(bucketIndex(value));
+        count.increment();
+        sum.add(value);
+        max.accumulate(value);
+    }
+
+    public long count() {
+        return count.sum();
+    }
+
+    public long sum() {
+        return sum.sum();
+    }
+
+    public void clear() {
+        for (int i = 0; i < NUM_BUCKETS; i++) {
+            buckets.set(i, 0);
+        }
+        count.reset();
+        sum.reset();
+        max.reset();
+    }
+
+    /**
+     * Returns a point in time copy of this histogram. The copy isn't atomic with respect to concurrent updates but every recorded value
+     * is eventually reflected in all parts of the snapshot.
+     */
+    public Snapshot snapshot() {
+        final long[] counts = new long[NUM_BUCKETS];
+        long total = 0;
+        for (int i = 0; i < NUM_BUCKETS; i++) {
+            counts[i] = buckets.get(i);
+            total += counts[i];
+        }
+        return new Snapshot(total, sum.sum(), max.get(), counts);
+    }
+
+    static int bucketIndex(long value) {
+        assert value >= 0 : "value must be non-negative but was " + value;
+        if (value < SUB_BUCKETS) {
+            return (int) value;
+        }
+        final int exponent = 63 - Long.numberOfLeadingZeros(value);
+        final int shift = exponent - SUB_BUCKET_BITS;
+        // the sub bucket is given by the bits following the highest one bit
+        final int subBucket = (int) (value >>> shift) & (SUB_BUCKETS - 1);
+        return (shift + 1) * SUB_BUCKETS + subBucket;
+    }
+
+    /**
+     * Returns the highest value that is recorded into the bucket with the given index.
+     */
+    static long bucketUpperBound(int index) {
+        if (index < SUB_BUCKETS) {
+            return index;
+        }
+        final int shift = index / SUB_BUCKETS - 1;
+        final long lowerBound = ((long) (SUB_BUCKETS + index % SUB_BUCKETS)) << shift;
+        return lowerBound + (1L << shift) - 1;
+    }
+
+    /**
+     * An immutable and serializable copy of a {@link HistogramMetric}. Only non-empty buckets are serialized.
+     */
+    public static final class Snapshot implements Writeable {
+
+        public static final Snapshot EMPTY = new Snapshot(0, 0, 0, new long[NUM_BUCKETS]);
+
+        private final long count;
+        private final long sum;
+        private final long max;
+        private final long[] buckets;
+
+        Snapshot(long count, long sum, long max, long[] buckets) {
+            assert buckets.length == NUM_BUCKETS;
+            this.count = count;
+            this.sum = sum;
+            this.max = max;
+            this.buckets = buckets;
+        }
+
+        public Snapshot(StreamInput in) throws IOException {
+            count = in.readVLong();
+            sum = in.readVLong();
+            max = in.readVLong();
+            buckets = new long[NUM_BUCKETS];
+            final int nonEmpty = in.readVInt();
+            for (int i = 0; i < nonEmpty; i++) {
+                buckets[in.readVInt()] = in.readVLong();
+            }
+        }
+
+        @Override
+        public void writeTo(StreamOutput out) throws IOException {
+            out.writeVLong(count);
+            out.writeVLong(sum);
+            out.writeVLong(max);
+            int nonEmpty = 0;
+            for (long bucket : buckets) {
+                if (bucket != 0) {
+                    nonEmpty++;
+                }
+            }
+            out.writeVInt(nonEmpty);
+            for (int i = 0; i < NUM_BUCKETS; i++) {
+                if (buckets[i] != 0) {
+                    out.writeVInt(i);
+                    out.writeVLong(buckets[i]);
+                }
+            }
+        }
+
+        public long getCount() {
+            return count;
+        }
+
+        public long getSum() {
+            return sum;
+        }
+
+        public long getMax() {
+            return max;
+        }
+
+        public double getMean() {
+            return count == 0 ? 0 : sum / (double) count;
+        }
+
+        /**
+         * Returns an upper bound for the given percentile (between {@code 0} and {@code 100}) of the recorded values, which is never
+         * higher than the maximum recorded value. Returns {@code 0} if no values have been recorded.
+         */
+        public long getPercentile(double percentile) {
+            if (percentile < 0 || percentile > 100) {
+                throw new IllegalArgumentException("percentile must be between 0 and 100 but was [" + percentile + "]");
+            }
+            if (count == 0) {
+                return 0;
+            }
+            final long rank = Math.max(1, (long) Math.ceil(percentile / 100 * count));
+            long seen = 0;
+            for (int i = 0; i < NUM_BUCKETS; i++) {
+                seen += buckets[i];
+                if (seen >= rank) {
+                    return Math.min(bucketUpperBound(i), max);
+                }
+            }
+            return max;
+        }
+
+        /**
+         * Returns a snapshot that holds the values recorded in both this and the given snapshot.
+         */
+        public Snapshot merge(Snapshot other) {
+            final long[] merged = Arrays.copyOf(buckets, NUM_BUCKETS);
+            for (int i = 0; i < NUM_BUCKETS; i++) {
+                merged[i] += other.buckets[i];
+            }
+            return new Snapshot(count + other.count, sum + other.sum, Math.max(max, other.max), merged);
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) return true;
+            if (o == null || getClass() != o.getClass()) return false;
+            Snapshot snapshot = (Snapshot) o;
+            return count == snapshot.count && sum == snapshot.sum && max == snapshot.max && Arrays.equals(buckets, snapshot.buckets);
+        }
+
+        @Override
+        public int hashCode() {
+            return 31 * Long.hashCode(count) + Arrays.hashCode(buckets);
+        }
+    }
+}
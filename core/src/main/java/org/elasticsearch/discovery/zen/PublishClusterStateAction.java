@@ -30,7 +30,9 @@ import org.elasticsearch.cluster.Diff;
 import org.elasticsearch.cluster.IncompatibleClusterStateVersionException;
 import org.elasticsearch.cluster.node.DiscoveryNode;
 import org.elasticsearch.cluster.node.DiscoveryNodes;
+import org.elasticsearch.common.Nullable;
 import org.elasticsearch.common.bytes.BytesReference;
+import org.elasticsearch.common.collect.Tuple;
 import org.elasticsearch.common.component.AbstractComponent;
 import org.elasticsearch.common.compress.Compressor;
 import org.elasticsearch.common.compress.CompressorFactory;
@@ -39,6 +41,9 @@ import org.elasticsearch.common.io.stream.NamedWriteableAwareStreamInput;
 import org.elasticsearch.common.io.stream.NamedWriteableRegistry;
 import org.elasticsearch.common.io.stream.StreamInput;
 import org.elasticsearch.common.io.stream.StreamOutput;
+import org.elasticsearch.common.metrics.CounterMetric;
+import org.elasticsearch.common.settings.Setting;
+import org.elasticsearch.common.settings.Setting.Property;
 import org.elasticsearch.common.settings.Settings;
 import org.elasticsearch.common.unit.TimeValue;
 import org.elasticsearch.discovery.AckClusterStatePublishResponseHandler;
@@ -57,12 +62,15 @@ import org.elasticsearch.transport.TransportResponse;
 import org.elasticsearch.transport.TransportService;
 
 import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.ArrayDeque;
 import java.util.ArrayList;
-import java.util.HashMap;
+import java.util.Deque;
 import java.util.HashSet;
 import java.util.Locale;
 import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.CountDownLatch;
 import java.util.concurrent.TimeUnit;
 import java.util.concurrent.atomic.AtomicBoolean;
@@ -75,6 +83,14 @@ public class PublishClusterStateAction extends AbstractComponent {
 
     public static final String SETTINGS_MAX_PENDING_CLUSTER_STATES = "discovery.zen.publish.max_pending_cluster_states";
 
+    /**
+     * the number of recently published cluster states the master keeps around. A node that missed some of them and can't apply
+     * the diff of the current publishing round receives a diff against the last state it has seen instead of the full cluster state,
+     * as long as that state is retained.
+     */
+    public static final Setting<Integer> MAX_RETAINED_CLUSTER_STATES_SETTING =
+        Setting.intSetting("discovery.zen.publish.max_retained_cluster_states", 10, 0, Property.NodeScope);
+
     public interface NewPendingClusterStateListener {
 
         /** a new cluster state has been committed and is ready to process via {@link #pendingStatesQueue()} */
@@ -88,6 +104,15 @@ public class PublishClusterStateAction extends AbstractComponent {
     private final DiscoverySettings discoverySettings;
     private final ClusterName clusterName;
     private final PendingClusterStatesQueue pendingStatesQueue;
+    private final int maxRetainedStates;
+    private final Deque<ClusterState> retainedStates = new ArrayDeque<>(); // guarded by itself, newest state last
+
+    private final CounterMetric fullStatesSent = new CounterMetric();
+    private final CounterMetric diffsSent = new CounterMetric();
+    private final CounterMetric fullStateFallbacks = new CounterMetric();
+    private final CounterMetric retainedStateDiffs = new CounterMetric();
+    private final CounterMetric serializationTimeInNanos = new CounterMetric();
+    private final CounterMetric serializedBytes = new CounterMetric();
 
     public PublishClusterStateAction(
             Settings settings,
@@ -105,6 +130,7 @@ public class PublishClusterStateAction extends AbstractComponent {
         this.discoverySettings = discoverySettings;
         this.clusterName = clusterName;
         this.pendingStatesQueue = new PendingClusterStatesQueue(logger, settings.getAsInt(SETTINGS_MAX_PENDING_CLUSTER_STATES, 25));
+        this.maxRetainedStates = MAX_RETAINED_CLUSTER_STATES_SETTING.get(settings);
         transportService.registerRequestHandler(SEND_ACTION_NAME, BytesTransportRequest::new, ThreadPool.Names.SAME, false, false,
             new SendClusterStateRequestHandler());
         transportService.registerRequestHandler(COMMIT_ACTION_NAME, CommitClusterStateRequest::new, ThreadPool.Names.SAME, false, false,
@@ -115,6 +141,11 @@ public class PublishClusterStateAction extends AbstractComponent {
         return pendingStatesQueue;
     }
 
+    public PublishClusterStateStats stats() {
+        return new PublishClusterStateStats(fullStatesSent.count(), diffsSent.count(), fullStateFallbacks.count(),
+            retainedStateDiffs.count(), TimeUnit.NANOSECONDS.toMillis(serializationTimeInNanos.count()), serializedBytes.count());
+    }
+
     /**
      * publishes a cluster change event to other nodes. if at least minMasterNodes acknowledge the change it is committed and will
      * be processed by the master and the other nodes.
@@ -142,8 +173,9 @@ public class PublishClusterStateAction extends AbstractComponent {
                 }
             }
             sendFullVersion = !discoverySettings.getPublishDiff() || clusterChangedEvent.previousState() == null;
-            serializedStates = new HashMap<>();
-            serializedDiffs = new HashMap<>();
+            // responses and thus fallbacks to full states are handled concurrently on the network threads
+            serializedStates = new ConcurrentHashMap<>();
+            serializedDiffs = new ConcurrentHashMap<>();
 
             // we build these early as a best effort not to commit in the case of error.
             // sadly this is not water tight as it may that a failed diff based publishing to a node
@@ -183,8 +215,13 @@ public class PublishClusterStateAction extends AbstractComponent {
         final ClusterState previousState = clusterChangedEvent.previousState();
         final TimeValue publishTimeout = discoverySettings.getPublishTimeout();
 
+        // diffs against retained states for nodes that missed earlier cluster states, keyed by retained state uuid and node version
+        final Map<Tuple<String, Version>, BytesReference> serializedRetainedDiffs = new ConcurrentHashMap<>();
+
         final long publishingStartInNanos = System.nanoTime();
 
+        retainState(clusterState);
+
         for (final DiscoveryNode node : nodesToPublishTo) {
             // try and serialize the cluster state once (or per version), so we don't serialize it
             // per node when we send it over the wire, compress it while we are at it...
@@ -192,7 +229,8 @@ public class PublishClusterStateAction extends AbstractComponent {
             if (sendFullVersion || !previousState.nodes().nodeExists(node)) {
                 sendFullClusterState(clusterState, serializedStates, node, publishTimeout, sendingController);
             } else {
-                sendClusterStateDiff(clusterState, serializedDiffs, serializedStates, node, publishTimeout, sendingController);
+                sendClusterStateDiff(clusterState, serializedDiffs, serializedStates, serializedRetainedDiffs, node, publishTimeout,
+                    sendingController);
             }
         }
 
@@ -225,7 +263,7 @@ public class PublishClusterStateAction extends AbstractComponent {
                 if (sendFullVersion || !previousState.nodes().nodeExists(node)) {
                     // will send a full reference
                     if (serializedStates.containsKey(node.getVersion()) == false) {
-                        serializedStates.put(node.getVersion(), serializeFullClusterState(clusterState, node.getVersion()));
+                        serializedStates.put(node.getVersion(), serializeFullState(clusterState, node.getVersion()));
                     }
                 } else {
                     // will send a diff
@@ -233,7 +271,7 @@ public class PublishClusterStateAction extends AbstractComponent {
                         diff = clusterState.diff(previousState);
                     }
                     if (serializedDiffs.containsKey(node.getVersion()) == false) {
-                        serializedDiffs.put(node.getVersion(), serializeDiffClusterState(diff, node.getVersion()));
+                        serializedDiffs.put(node.getVersion(), serializeDiff(diff, node.getVersion()));
                     }
                 }
             } catch (IOException e) {
@@ -244,35 +282,76 @@ public class PublishClusterStateAction extends AbstractComponent {
 
     private void sendFullClusterState(ClusterState clusterState, Map<Version, BytesReference> serializedStates,
                                       DiscoveryNode node, TimeValue publishTimeout, SendingController sendingController) {
-        BytesReference bytes = serializedStates.get(node.getVersion());
-        if (bytes == null) {
-            try {
-                bytes = serializeFullClusterState(clusterState, node.getVersion());
-                serializedStates.put(node.getVersion(), bytes);
-            } catch (Exception e) {
-                logger.warn(
-                    (org.apache.logging.log4j.util.Supplier<?>) () ->
-                        new ParameterizedMessage("failed to serialize cluster_state before publishing it to node {}", node), e);
-                sendingController.onNodeSendFailed(node, e);
-                return;
-            }
+        final BytesReference bytes;
+        try {
+            // several nodes may fall back to the full state concurrently, make sure we serialize it only once per version
+            bytes = serializedStates.computeIfAbsent(node.getVersion(), version -> {
+                try {
+                    return serializeFullState(clusterState, version);
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+            });
+        } catch (Exception e) {
+            logger.warn(
+                (org.apache.logging.log4j.util.Supplier<?>) () ->
+                    new ParameterizedMessage("failed to serialize cluster_state before publishing it to node {}", node), e);
+            sendingController.onNodeSendFailed(node, e);
+            return;
         }
-        sendClusterStateToNode(clusterState, bytes, node, publishTimeout, sendingController, false, serializedStates);
+        sendClusterStateToNode(clusterState, bytes, node, publishTimeout, sendingController, false, serializedStates, null);
     }
 
     private void sendClusterStateDiff(ClusterState clusterState,
                                       Map<Version, BytesReference> serializedDiffs, Map<Version, BytesReference> serializedStates,
+                                      Map<Tuple<String, Version>, BytesReference> serializedRetainedDiffs,
                                       DiscoveryNode node, TimeValue publishTimeout, SendingController sendingController) {
         BytesReference bytes = serializedDiffs.get(node.getVersion());
         assert bytes != null : "failed to find serialized diff for node " + node + " of version [" + node.getVersion() + "]";
-        sendClusterStateToNode(clusterState, bytes, node, publishTimeout, sendingController, true, serializedStates);
+        sendClusterStateToNode(clusterState, bytes, node, publishTimeout, sendingController, true, serializedStates,
+            serializedRetainedDiffs);
     }
 
+    /**
+     * Sends the diff between the given retained state and the cluster state to a node that missed the states published in between.
+     * Falls back to sending the full cluster state if the diff can't be serialized or the node can't apply it either.
+     */
+    private void sendClusterStateDiffFromRetainedState(ClusterState clusterState, ClusterState retainedState,
+                                                       Map<Version, BytesReference> serializedStates,
+                                                       Map<Tuple<String, Version>, BytesReference> serializedRetainedDiffs,
+                                                       DiscoveryNode node, TimeValue publishTimeout,
+                                                       SendingController sendingController) {
+        final BytesReference bytes;
+        try {
+            bytes = serializedRetainedDiffs.computeIfAbsent(new Tuple<>(retainedState.stateUUID(), node.getVersion()), key -> {
+                try {
+                    return serializeDiff(clusterState.diff(retainedState), key.v2());
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+            });
+        } catch (Exception e) {
+            logger.warn(
+                (org.apache.logging.log4j.util.Supplier<?>) () -> new ParameterizedMessage(
+                    "failed to serialize cluster_state diff against version [{}] for node {}, sending full cluster state",
+                    retainedState.version(), node), e);
+            fullStateFallbacks.inc();
+            sendFullClusterState(clusterState, serializedStates, node, publishTimeout, sendingController);
+            return;
+        }
+        sendClusterStateToNode(clusterState, bytes, node, publishTimeout, sendingController, true, serializedStates, null);
+    }
+
+    /**
+     * @param serializedRetainedDiffs the diffs against retained states, if the node should receive such a diff in case it can't apply
+     *                                the sent diff, or <code>null</code> if it should receive the full cluster state in that case
+     */
     private void sendClusterStateToNode(final ClusterState clusterState, BytesReference bytes,
                                         final DiscoveryNode node,
                                         final TimeValue publishTimeout,
                                         final SendingController sendingController,
-                                        final boolean sendDiffs, final Map<Version, BytesReference> serializedStates) {
+                                        final boolean sendDiffs, final Map<Version, BytesReference> serializedStates,
+                                        @Nullable final Map<Tuple<String, Version>, BytesReference> serializedRetainedDiffs) {
         try {
 
             // -> no need to put a timeout on the options here, because we want the response to eventually be received
@@ -280,6 +359,11 @@ public class PublishClusterStateAction extends AbstractComponent {
             // -> no need to compress, we already compressed the bytes
             TransportRequestOptions options = TransportRequestOptions.builder()
                 .withType(TransportRequestOptions.Type.STATE).withCompress(false).build();
+            if (sendDiffs) {
+                diffsSent.inc();
+            } else {
+                fullStatesSent.inc();
+            }
             transportService.sendRequest(node, SEND_ACTION_NAME,
                     new BytesTransportRequest(bytes, node.getVersion()),
                     options,
@@ -297,8 +381,19 @@ public class PublishClusterStateAction extends AbstractComponent {
                         @Override
                         public void handleException(TransportException exp) {
                             if (sendDiffs && exp.unwrapCause() instanceof IncompatibleClusterStateVersionException) {
-                                logger.debug("resending full cluster state to node {} reason {}", node, exp.getDetailedMessage());
-                                sendFullClusterState(clusterState, serializedStates, node, publishTimeout, sendingController);
+                                final String localUuid = ((IncompatibleClusterStateVersionException) exp.unwrapCause()).getLocalUuid();
+                                final ClusterState retainedState = serializedRetainedDiffs == null ? null : findRetainedState(localUuid);
+                                if (retainedState != null) {
+                                    logger.debug("resending cluster state diff against retained version [{}] to node {} reason {}",
+                                        retainedState.version(), node, exp.getDetailedMessage());
+                                    retainedStateDiffs.inc();
+                                    sendClusterStateDiffFromRetainedState(clusterState, retainedState, serializedStates,
+                                        serializedRetainedDiffs, node, publishTimeout, sendingController);
+                                } else {
+                                    logger.debug("resending full cluster state to node {} reason {}", node, exp.getDetailedMessage());
+                                    fullStateFallbacks.inc();
+                                    sendFullClusterState(clusterState, serializedStates, node, publishTimeout, sendingController);
+                                }
                             } else {
                                 logger.debug((org.apache.logging.log4j.util.Supplier<?>) () ->
                                     new ParameterizedMessage("failed to send cluster state to {}", node), exp);
@@ -371,6 +466,56 @@ public class PublishClusterStateAction extends AbstractComponent {
         return bStream.bytes();
     }
 
+    private BytesReference serializeFullState(ClusterState clusterState, Version nodeVersion) throws IOException {
+        final long startTimeNanos = System.nanoTime();
+        try {
+            BytesReference bytes = serializeFullClusterState(clusterState, nodeVersion);
+            serializedBytes.inc(bytes.length());
+            return bytes;
+        } finally {
+            serializationTimeInNanos.inc(System.nanoTime() - startTimeNanos);
+        }
+    }
+
+    private BytesReference serializeDiff(Diff<ClusterState> diff, Version nodeVersion) throws IOException {
+        final long startTimeNanos = System.nanoTime();
+        try {
+            BytesReference bytes = serializeDiffClusterState(diff, nodeVersion);
+            serializedBytes.inc(bytes.length());
+            return bytes;
+        } finally {
+            serializationTimeInNanos.inc(System.nanoTime() - startTimeNanos);
+        }
+    }
+
+    private void retainState(ClusterState clusterState) {
+        if (maxRetainedStates > 0) {
+            synchronized (retainedStates) {
+                retainedStates.addLast(clusterState);
+                while (retainedStates.size() > maxRetainedStates) {
+                    retainedStates.removeFirst();
+                }
+            }
+        }
+    }
+
+    /**
+     * Returns the retained cluster state with the given uuid, or <code>null</code> if no such state is retained
+     */
+    @Nullable
+    private ClusterState findRetainedState(@Nullable String stateUUID) {
+        if (stateUUID != null) {
+            synchronized (retainedStates) {
+                for (ClusterState retainedState : retainedStates) {
+                    if (retainedState.stateUUID().equals(stateUUID)) {
+                        return retainedState;
+                    }
+                }
+            }
+        }
+        return null;
+    }
+
     private Object lastSeenClusterStateMutex = new Object();
     private ClusterState lastSeenClusterState;
 
@@ -0,0 +1,136 @@
+/*
+ * Licensed to Elasticsearch under one or more contributor
+ * license agreements. See the NOTICE file distributed with
+ * this work for additional information regarding copyright
+ * ownership. Elasticsearch licenses this file to you under
+ * the Apache License, Version 2.0 (the "License"); you may
+ * not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.elasticsearch.discovery.zen;
+
+import org.elasticsearch.common.io.stream.StreamInput;
+import org.elasticsearch.common.io.stream.StreamOutput;
+import org.elasticsearch.common.io.stream.Writeable;
+import org.elasticsearch.common.unit.ByteSizeValue;
+import org.elasticsearch.common.unit.TimeValue;
+import org.elasticsearch.common.xcontent.ToXContent;
+import org.elasticsearch.common.xcontent.XContentBuilder;
+
+import java.io.IOException;
+
+/**
+ * Class encapsulating stats about the cluster states published by the master through {@link PublishClusterStateAction}
+ */
+public class PublishClusterStateStats implements Writeable, ToXContent {
+
+    private final long fullStates;
+    private final long diffs;
+    private final long fullStateFallbacks;
+    private final long retainedStateDiffs;
+    private final long serializationTimeInMillis;
+    private final long serializedBytes;
+
+    /**
+     * @param fullStates         the number of full cluster states sent to nodes
+     * @param diffs              the number of cluster state diffs sent to nodes
+     * @param fullStateFallbacks the number of diffs a node could not apply, that were followed up by a full cluster state
+     * @param retainedStateDiffs the number of diffs a node could not apply, that were followed up by a diff from a retained state
+     * @param serializationTimeInMillis the total time spent serializing and compressing cluster states and diffs
+     * @param serializedBytes    the total size of the serialized and compressed cluster states and diffs
+     */
+    public PublishClusterStateStats(long fullStates, long diffs, long fullStateFallbacks, long retainedStateDiffs,
+                                    long serializationTimeInMillis, long serializedBytes) {
+        this.fullStates = fullStates;
+        this.diffs = diffs;
+        this.fullStateFallbacks = fullStateFallbacks;
+        this.retainedStateDiffs = retainedStateDiffs;
+        this.serializationTimeInMillis = serializationTimeInMillis;
+        this.serializedBytes = serializedBytes;
+    }
+
+    public PublishClusterStateStats(StreamInput in) throws IOException {
+        fullStates = in.readVLong();
+        diffs = in.readVLong();
+        fullStateFallbacks = in.readVLong();
+        retainedStateDiffs = in.readVLong();
+        serializationTimeInMillis = in.readVLong();
+        serializedBytes = in.readVLong();
+    }
+
+    @Override
+    public void writeTo(StreamOutput out) throws IOException {
+        out.writeVLong(fullStates);
+        out.writeVLong(diffs);
+        out.writeVLong(fullStateFallbacks);
+        out.writeVLong(retainedStateDiffs);
+        out.writeVLong(serializationTimeInMillis);
+        out.writeVLong(serializedBytes);
+    }
+
+    public long getFullStates() {
+        return fullStates;
+    }
+
+    public long getDiffs() {
+        return diffs;
+    }
+
+    public long getFullStateFallbacks() {
+        return fullStateFallbacks;
+    }
+
+    public long getRetainedStateDiffs() {
+        return retainedStateDiffs;
+    }
+
+    public TimeValue getSerializationTime() {
+        return TimeValue.timeValueMillis(serializationTimeInMillis);
+    }
+
+    public ByteSizeValue getSerializedSize() {
+        return new ByteSizeValue(serializedBytes);
+    }
+
+    @Override
+    public XContentBuilder toXContent(XContentBuilder builder, Params params) throws IOException {
+        builder.startObject(Fields.PUBLISHED_CLUSTER_STATES);
+        builder.field(Fields.FULL_STATES, fullStates);
+        builder.field(Fields.DIFFS, diffs);
+        builder.field(Fields.FULL_STATE_FALLBACKS, fullStateFallbacks);
+        builder.field(Fields.RETAINED_STATE_DIFFS, retainedStateDiffs);
+        builder.timeValueField(Fields.SERIALIZATION_TIME_IN_MILLIS, Fields.SERIALIZATION_TIME, serializationTimeInMillis);
+        builder.byteSizeField(Fields.SERIALIZED_SIZE_IN_BYTES, Fields.SERIALIZED_SIZE, serializedBytes);
+        builder.endObject();
+        return builder;
+    }
+
+    static final class Fields {
+        static final String PUBLISHED_CLUSTER_STATES = "published_cluster_states";
+        static final String FULL_STATES = "full_states";
+        static final String DIFFS = "diffs";
+        static final String FULL_STATE_FALLBACKS = "full_state_fallbacks";
+        static final String RETAINED_STATE_DIFFS = "retained_state_diffs";
+        static final String SERIALIZATION_TIME_IN_MILLIS = "serialization_time_in_millis";
+        static final String SERIALIZATION_TIME = "serialization_time";
+        static final String SERIALIZED_SIZE_IN_BYTES = "serialized_size_in_bytes";
+        static final String SERIALIZED_SIZE = "serialized_size";
+    }
+
+    @Override
+    public String toString() {
+        return "PublishClusterStateStats(full_states=" + fullStates + ", diffs=" + diffs + ", full_state_fallbacks=" + fullStateFallbacks
+            + ", retained_state_diffs=" + retainedStateDiffs + ", serialization_time_in_millis=" + serializationTimeInMillis
+            + ", serialized_size_in_bytes=" + serializedBytes + ")";
+    }
+}
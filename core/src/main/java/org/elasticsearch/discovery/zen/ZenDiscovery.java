@@ -392,7 +392,7 @@ public class ZenDiscovery extends AbstractLifecycleComponent implements Discover
     @Override
     public DiscoveryStats stats() {
         PendingClusterStateStats queueStats = publishClusterState.pendingStatesQueue().stats();
-        return new DiscoveryStats(queueStats);
+        return new DiscoveryStats(queueStats, publishClusterState.stats());
     }
 
     public DiscoverySettings getDiscoverySettings() {
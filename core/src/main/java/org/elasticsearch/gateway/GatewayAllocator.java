@@ -48,6 +48,11 @@ public class GatewayAllocator extends AbstractComponent {
     private final PrimaryShardAllocator primaryShardAllocator;
     private final ReplicaShardAllocator replicaShardAllocator;
 
+    private final ShardFetchBatcher<TransportNodesListGatewayStartedShards.NodesGatewayStartedShards,
+        TransportNodesListGatewayStartedShards.NodeGatewayStartedShards> startedFetchBatcher;
+    private final ShardFetchBatcher<TransportNodesListShardStoreMetaData.NodesStoreFilesMetaData,
+        TransportNodesListShardStoreMetaData.NodeStoreFilesMetaData> storeFetchBatcher;
+
     private final ConcurrentMap<ShardId, AsyncShardFetch<TransportNodesListGatewayStartedShards.NodeGatewayStartedShards>> asyncFetchStarted = ConcurrentCollections.newConcurrentMap();
     private final ConcurrentMap<ShardId, AsyncShardFetch<TransportNodesListShardStoreMetaData.NodeStoreFilesMetaData>> asyncFetchStore = ConcurrentCollections.newConcurrentMap();
 
@@ -56,8 +61,11 @@ public class GatewayAllocator extends AbstractComponent {
                             TransportNodesListGatewayStartedShards startedAction, TransportNodesListShardStoreMetaData storeAction) {
         super(settings);
         this.routingService = routingService;
-        this.primaryShardAllocator = new InternalPrimaryShardAllocator(settings, startedAction);
-        this.replicaShardAllocator = new InternalReplicaShardAllocator(settings, storeAction);
+        final int fetchBatchSize = ShardFetchBatcher.FETCH_SHARD_BATCH_SIZE_SETTING.get(settings);
+        this.startedFetchBatcher = startedAction.newBatcher(fetchBatchSize);
+        this.storeFetchBatcher = storeAction.newBatcher(fetchBatchSize);
+        this.primaryShardAllocator = new InternalPrimaryShardAllocator(settings, startedFetchBatcher);
+        this.replicaShardAllocator = new InternalReplicaShardAllocator(settings, storeFetchBatcher);
         clusterService.addStateApplier(event -> {
             boolean cleanCache = false;
             DiscoveryNode localNode = event.state().nodes().getLocalNode();
@@ -83,6 +91,8 @@ public class GatewayAllocator extends AbstractComponent {
         this.routingService = null;
         this.primaryShardAllocator = null;
         this.replicaShardAllocator = null;
+        this.startedFetchBatcher = null;
+        this.storeFetchBatcher = null;
     }
 
     public int getNumberOfInFlightFetch() {
@@ -96,6 +106,13 @@ public class GatewayAllocator extends AbstractComponent {
         return count;
     }
 
+    /**
+     * Returns stats about the round trips made to fetch the started shards and the shard stores from the nodes
+     */
+    public ShardFetchStats getShardFetchStats() {
+        return new ShardFetchStats(startedFetchBatcher.stats(), storeFetchBatcher.stats());
+    }
+
     public void applyStartedShards(final RoutingAllocation allocation, final List<ShardRouting> startedShards) {
         for (ShardRouting startedShard : startedShards) {
             Releasables.close(asyncFetchStarted.remove(startedShard.shardId()));
@@ -111,7 +128,19 @@ public class GatewayAllocator extends AbstractComponent {
     }
 
     public void allocateUnassigned(final RoutingAllocation allocation) {
-        innerAllocatedUnassigned(allocation, primaryShardAllocator, replicaShardAllocator);
+        try {
+            innerAllocatedUnassigned(allocation, primaryShardAllocator, replicaShardAllocator);
+        } finally {
+            flushShardFetches();
+        }
+    }
+
+    /**
+     * Sends the shard fetches that were started while allocating, batched per node
+     */
+    private void flushShardFetches() {
+        startedFetchBatcher.flush();
+        storeFetchBatcher.flush();
     }
 
     // allow for testing infra to change shard allocators implementation
@@ -131,10 +160,14 @@ public class GatewayAllocator extends AbstractComponent {
      * {@link AllocateUnassignedDecision#NOT_TAKEN} is returned.
      */
     public AllocateUnassignedDecision decideUnassignedShardAllocation(ShardRouting unassignedShard, RoutingAllocation routingAllocation) {
-        if (unassignedShard.primary()) {
-            return primaryShardAllocator.makeAllocationDecision(unassignedShard, routingAllocation, logger);
-        } else {
-            return replicaShardAllocator.makeAllocationDecision(unassignedShard, routingAllocation, logger);
+        try {
+            if (unassignedShard.primary()) {
+                return primaryShardAllocator.makeAllocationDecision(unassignedShard, routingAllocation, logger);
+            } else {
+                return replicaShardAllocator.makeAllocationDecision(unassignedShard, routingAllocation, logger);
+            }
+        } finally {
+            flushShardFetches();
         }
     }
 
@@ -153,9 +186,12 @@ public class GatewayAllocator extends AbstractComponent {
 
     class InternalPrimaryShardAllocator extends PrimaryShardAllocator {
 
-        private final TransportNodesListGatewayStartedShards startedAction;
+        private final AsyncShardFetch.Lister<TransportNodesListGatewayStartedShards.NodesGatewayStartedShards,
+            TransportNodesListGatewayStartedShards.NodeGatewayStartedShards> startedAction;
 
-        InternalPrimaryShardAllocator(Settings settings, TransportNodesListGatewayStartedShards startedAction) {
+        InternalPrimaryShardAllocator(Settings settings,
+                                      AsyncShardFetch.Lister<TransportNodesListGatewayStartedShards.NodesGatewayStartedShards,
+                                          TransportNodesListGatewayStartedShards.NodeGatewayStartedShards> startedAction) {
             super(settings);
             this.startedAction = startedAction;
         }
@@ -176,9 +212,12 @@ public class GatewayAllocator extends AbstractComponent {
 
     class InternalReplicaShardAllocator extends ReplicaShardAllocator {
 
-        private final TransportNodesListShardStoreMetaData storeAction;
+        private final AsyncShardFetch.Lister<TransportNodesListShardStoreMetaData.NodesStoreFilesMetaData,
+            TransportNodesListShardStoreMetaData.NodeStoreFilesMetaData> storeAction;
 
-        InternalReplicaShardAllocator(Settings settings, TransportNodesListShardStoreMetaData storeAction) {
+        InternalReplicaShardAllocator(Settings settings,
+                                      AsyncShardFetch.Lister<TransportNodesListShardStoreMetaData.NodesStoreFilesMetaData,
+                                          TransportNodesListShardStoreMetaData.NodeStoreFilesMetaData> storeAction) {
             super(settings);
             this.storeAction = storeAction;
         }
@@ -95,12 +95,24 @@ public class GatewayMetaState extends AbstractComponent implements ClusterStateA
                 // and found no non-upgradable indices, which means the upgrade can continue.
                 // Now it's safe to overwrite global and index metadata.
                 if (metaData != upgradedMetaData) {
-                    if (MetaData.isGlobalStateEquals(metaData, upgradedMetaData) == false) {
-                        metaStateService.writeGlobalState("upgrade", upgradedMetaData);
-                    }
-                    for (IndexMetaData indexMetaData : upgradedMetaData) {
-                        if (metaData.hasIndexMetaData(indexMetaData) == false) {
-                            metaStateService.writeIndex("upgrade", indexMetaData);
+                    if (metaStateService.isMetaDataLogEnabled()) {
+                        metaStateService.writeMetaDataLogSnapshot("upgrade", upgradedMetaData);
+                        // with the metadata log index state files are only kept for indices that have shards on this node
+                        final Set<String> indexFolders = nodeEnv.availableIndexFolders();
+                        for (IndexMetaData indexMetaData : upgradedMetaData) {
+                            if (metaData.hasIndexMetaData(indexMetaData) == false
+                                && indexFolders.contains(indexMetaData.getIndexUUID())) {
+                                metaStateService.writeIndex("upgrade", indexMetaData);
+                            }
+                        }
+                    } else {
+                        if (MetaData.isGlobalStateEquals(metaData, upgradedMetaData) == false) {
+                            metaStateService.writeGlobalState("upgrade", upgradedMetaData);
+                        }
+                        for (IndexMetaData indexMetaData : upgradedMetaData) {
+                            if (metaData.hasIndexMetaData(indexMetaData) == false) {
+                                metaStateService.writeIndex("upgrade", indexMetaData);
+                            }
                         }
                     }
                 }
@@ -135,6 +147,7 @@ public class GatewayMetaState extends AbstractComponent implements ClusterStateA
         boolean success = true;
         // write the state if this node is a master eligible node or if it is a data node and has shards allocated on it
         if (state.nodes().getLocalNode().isMasterNode() || state.nodes().getLocalNode().isDataNode()) {
+            final boolean useMetaDataLog = metaStateService.isMetaDataLogEnabled() && state.nodes().getLocalNode().isMasterNode();
             if (previousMetaData == null) {
                 try {
                     // we determine if or if not we write meta data on data only nodes by looking at the shard routing
@@ -143,7 +156,7 @@ public class GatewayMetaState extends AbstractComponent implements ClusterStateA
                     // updated it will therefore not be written in case the list of previouslyWrittenIndices is empty (because state
                     // persistence was disabled or the node was restarted), see getRelevantIndicesOnDataOnlyNode().
                     // we therefore have to check here if we have shards on disk and add their indices to the previouslyWrittenIndices list
-                    if (isDataOnlyNode(state)) {
+                    if (isDataOnlyNode(state) || (useMetaDataLog && state.nodes().getLocalNode().isDataNode())) {
                         Set<Index> newPreviouslyWrittenIndices = new HashSet<>(previouslyWrittenIndices.size());
                         for (IndexMetaData indexMetaData : newMetaData) {
                             IndexMetaData indexMetaDataOnDisk = null;
@@ -161,8 +174,19 @@ public class GatewayMetaState extends AbstractComponent implements ClusterStateA
                     success = false;
                 }
             }
-            // check if the global state changed?
-            if (previousMetaData == null || !MetaData.isGlobalStateEquals(previousMetaData, newMetaData)) {
+            if (useMetaDataLog) {
+                // the log holds the global state and all indices states, index state files are only needed for local shards
+                try {
+                    if (previousMetaData == null) {
+                        metaStateService.writeMetaDataLogSnapshot("first write", newMetaData);
+                    } else {
+                        metaStateService.appendToMetaDataLog("changed", previousMetaData, newMetaData);
+                    }
+                } catch (Exception e) {
+                    success = false;
+                }
+            } else if (previousMetaData == null || !MetaData.isGlobalStateEquals(previousMetaData, newMetaData)) {
+                // check if the global state changed?
                 try {
                     metaStateService.writeGlobalState("changed", newMetaData);
                 } catch (Exception e) {
@@ -171,7 +195,13 @@ public class GatewayMetaState extends AbstractComponent implements ClusterStateA
             }
 
 
-            relevantIndices = getRelevantIndices(event.state(), event.previousState(), previouslyWrittenIndices);
+            if (useMetaDataLog) {
+                relevantIndices = state.nodes().getLocalNode().isDataNode() ?
+                    getRelevantIndicesOnDataOnlyNode(event.state(), event.previousState(), previouslyWrittenIndices) :
+                    Collections.emptySet();
+            } else {
+                relevantIndices = getRelevantIndices(event.state(), event.previousState(), previouslyWrittenIndices);
+            }
             final Iterable<IndexMetaWriteInfo> writeInfo = resolveStatesToBeWritten(previouslyWrittenIndices, relevantIndices, previousMetaData, event.state().metaData());
             // check and write changes in indices
             for (IndexMetaWriteInfo indexMetaWrite : writeInfo) {
@@ -181,6 +211,14 @@ public class GatewayMetaState extends AbstractComponent implements ClusterStateA
                     success = false;
                 }
             }
+            if (success && previousMetaData == null && useMetaDataLog == false && state.nodes().getLocalNode().isMasterNode()) {
+                // all the metadata made it to the state files, a metadata log left over from before it was disabled is stale now
+                try {
+                    metaStateService.deleteMetaDataLog();
+                } catch (Exception e) {
+                    logger.warn("failed to delete metadata log", e);
+                }
+            }
         }
 
         if (success) {
@@ -0,0 +1,448 @@
+/*
+ * Licensed to Elasticsearch under one or more contributor
+ * license agreements. See the NOTICE file distributed with
+ * this work for additional information regarding copyright
+ * ownership. Elasticsearch licenses this file to you under
+ * the Apache License, Version 2.0 (the "License"); you may
+ * not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.elasticsearch.gateway;
+
+import org.apache.logging.log4j.Logger;
+import org.apache.logging.log4j.message.ParameterizedMessage;
+import org.apache.logging.log4j.util.Supplier;
+import org.apache.lucene.util.IOUtils;
+import org.elasticsearch.Version;
+import org.elasticsearch.cluster.metadata.IndexMetaData;
+import org.elasticsearch.cluster.metadata.MetaData;
+import org.elasticsearch.common.bytes.BytesReference;
+import org.elasticsearch.common.io.Channels;
+import org.elasticsearch.common.io.stream.BytesStreamOutput;
+import org.elasticsearch.common.io.stream.InputStreamStreamInput;
+import org.elasticsearch.common.io.stream.StreamInput;
+import org.elasticsearch.common.settings.Setting;
+import org.elasticsearch.common.settings.Setting.Property;
+import org.elasticsearch.common.unit.ByteSizeUnit;
+import org.elasticsearch.common.unit.ByteSizeValue;
+import org.elasticsearch.common.xcontent.NamedXContentRegistry;
+import org.elasticsearch.common.xcontent.XContentBuilder;
+import org.elasticsearch.common.xcontent.XContentFactory;
+import org.elasticsearch.common.xcontent.XContentParser;
+import org.elasticsearch.common.xcontent.XContentType;
+import org.elasticsearch.index.Index;
+
+import java.io.BufferedInputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.channels.FileChannel;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.zip.CRC32;
+
+/**
+ * An append-only log of the {@link MetaData} of the cluster, used by master eligible nodes as an alternative to writing a state file
+ * per index. Every cluster state change that modifies the metadata appends a single checksummed entry holding the global metadata,
+ * if it changed, the metadata of the indices that changed and the deleted indices, so each change costs one fsync
+ * regardless of the number of indices it touches. Loading replays the log with a single sequential read.
+ * <p>
+ * Index metadata is logged in the transport format, which is much faster to read than the x-content format used by the state files,
+ * so the version of the node that wrote the log is recorded in its header. Since a node always starts a new generation on its first
+ * write, a log is only ever read by the same or the next version. The global metadata may hold custom metadata of plugins and is
+ * logged in the x-content format of the global state file.
+ * <p>
+ * The log starts with a snapshot entry holding the full metadata. Once the entries appended after it grow larger than the snapshot,
+ * the log is compacted by writing a new generation starting with a fresh snapshot and deleting the previous generation. A log that
+ * ends with an entry reaching past the end of the file or with zeros, because the node crashed while appending, is loaded up to
+ * the last complete entry, while a complete entry that fails its checksum makes the log corrupt. Since loading never appends to the
+ * loaded generation, the first write after loading always starts a new generation, and so does the first write after a failed one.
+ */
+public class MetaDataLog {
+
+    /**
+     * Whether master eligible nodes persist the cluster metadata in a {@link MetaDataLog} rather than in a state file per index.
+     */
+    public static final Setting<Boolean> METADATA_LOG_ENABLED_SETTING =
+        Setting.boolSetting("gateway.metadata_log.enabled", false, Property.NodeScope);
+
+    static final String LOG_FILE_PREFIX = "metalog-";
+    static final String LOG_FILE_EXTENSION = ".log";
+
+    private static final int LOG_FILE_MAGIC = 0x4d4c4f47; // "MLOG"
+    private static final int LOG_FILE_VERSION = 1;
+    private static final byte SNAPSHOT_ENTRY = 0;
+    private static final byte DELTA_ENTRY = 1;
+    private static final int BUFFER_SIZE = 1 << 16;
+
+    /**
+     * The log is never compacted while the entries appended after the snapshot are smaller than this
+     */
+    static final ByteSizeValue MIN_COMPACTION_SIZE = new ByteSizeValue(1, ByteSizeUnit.MB);
+
+    private final Logger logger;
+    private final NamedXContentRegistry namedXContentRegistry;
+    private final Path[] dataLocations;
+    private final long minCompactionSizeInBytes;
+
+    // guarded by this
+    private long generation = -1;
+    private long snapshotSizeInBytes;
+    private long appendedSizeInBytes;
+
+    /**
+     * @param dataLocations the data locations the log is written to and loaded from, the log files are kept in their
+     *                      <code>_state</code> directories
+     */
+    public MetaDataLog(Logger logger, NamedXContentRegistry namedXContentRegistry, Path... dataLocations) {
+        this(logger, namedXContentRegistry, MIN_COMPACTION_SIZE, dataLocations);
+    }
+
+    MetaDataLog(Logger logger, NamedXContentRegistry namedXContentRegistry, ByteSizeValue minCompactionSize, Path... dataLocations) {
+        this.logger = logger;
+        this.namedXContentRegistry = namedXContentRegistry;
+        this.dataLocations = dataLocations;
+        this.minCompactionSizeInBytes = minCompactionSize.getBytes();
+    }
+
+    /**
+     * Returns whether any of the data locations holds a log
+     */
+    public boolean exists() throws IOException {
+        return findGenerations().isEmpty() == false;
+    }
+
+    /**
+     * Loads the metadata from the latest generation of the log, returns <code>null</code> if there is no log.
+     *
+     * @throws CorruptStateException if none of the data locations holds a readable copy of the latest generation
+     */
+    public MetaData load() throws IOException {
+        final Map<Long, List<Path>> generations = findGenerations();
+        if (generations.isEmpty()) {
+            return null;
+        }
+        final long latestGeneration = Collections.max(generations.keySet());
+        Exception failure = null;
+        for (Path logFile : generations.get(latestGeneration)) {
+            try {
+                return read(logFile, latestGeneration);
+            } catch (Exception e) {
+                logger.warn((Supplier<?>) () -> new ParameterizedMessage("failed to read metadata log [{}]", logFile), e);
+                failure = e;
+            }
+        }
+        throw new CorruptStateException("failed to read metadata log generation [" + latestGeneration + "]: " + failure);
+    }
+
+    /**
+     * Starts a new generation of the log with a snapshot of the given metadata and deletes the previous generations
+     */
+    public synchronized void writeSnapshot(MetaData metaData) throws IOException {
+        final Collection<Index> noDeletes = Collections.emptyList();
+        final byte[] entry = serializeEntry(SNAPSHOT_ENTRY, metaData, true, metaData, noDeletes);
+        final Map<Long, List<Path>> previousGenerations = findGenerations();
+        final long newGeneration = Math.max(generation, previousGenerations.keySet().stream().mapToLong(l -> l).max().orElse(-1)) + 1;
+        final String fileName = LOG_FILE_PREFIX + newGeneration + LOG_FILE_EXTENSION;
+        try {
+            for (Path location : dataLocations) {
+                final Path stateLocation = location.resolve(MetaDataStateFormat.STATE_DIR_NAME);
+                Files.createDirectories(stateLocation);
+                final Path tmpPath = stateLocation.resolve(fileName + ".tmp");
+                try {
+                    try (FileChannel channel = FileChannel.open(tmpPath, StandardOpenOption.CREATE,
+                        StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.WRITE)) {
+                        final BytesStreamOutput header = new BytesStreamOutput();
+                        header.writeInt(LOG_FILE_MAGIC);
+                        header.writeInt(LOG_FILE_VERSION);
+                        header.writeLong(newGeneration);
+                        Version.writeVersion(Version.CURRENT, header);
+                        Channels.writeToChannel(BytesReference.toBytes(header.bytes()), channel);
+                        Channels.writeToChannel(entry, channel);
+                        channel.force(false);
+                    }
+                    Files.move(tmpPath, stateLocation.resolve(fileName), StandardCopyOption.ATOMIC_MOVE);
+                    IOUtils.fsync(stateLocation, true);
+                } finally {
+                    Files.deleteIfExists(tmpPath);
+                }
+            }
+        } catch (Exception e) {
+            // some locations may hold the new generation, the next write starts yet another one
+            generation = -1;
+            throw e;
+        }
+        generation = newGeneration;
+        snapshotSizeInBytes = entry.length;
+        appendedSizeInBytes = 0;
+        for (Map.Entry<Long, List<Path>> previousGeneration : previousGenerations.entrySet()) {
+            if (previousGeneration.getKey() != newGeneration) {
+                deleteLogFiles(previousGeneration.getValue());
+            }
+        }
+        logger.trace("wrote metadata log generation [{}] with [{}] indices, size [{}]", newGeneration, metaData.indices().size(),
+            new ByteSizeValue(entry.length));
+    }
+
+    /**
+     * Appends the changes between the given metadata to the log, compacting the log into a new generation starting with a snapshot
+     * of the current metadata if the appended entries outgrew the last snapshot. Starts a new generation if the log wasn't written to
+     * since this node started or if the last write failed.
+     */
+    public synchronized void append(MetaData previousMetaData, MetaData currentMetaData) throws IOException {
+        if (generation < 0 || appendedSizeInBytes > Math.max(snapshotSizeInBytes, minCompactionSizeInBytes)) {
+            writeSnapshot(currentMetaData);
+            return;
+        }
+        final boolean globalChanged = MetaData.isGlobalStateEquals(previousMetaData, currentMetaData) == false;
+        final List<IndexMetaData> changedIndices = new ArrayList<>();
+        for (IndexMetaData indexMetaData : currentMetaData) {
+            final IndexMetaData previousIndexMetaData = previousMetaData.index(indexMetaData.getIndex());
+            if (previousIndexMetaData == null || previousIndexMetaData.getVersion() != indexMetaData.getVersion()) {
+                changedIndices.add(indexMetaData);
+            }
+        }
+        final List<Index> deletedIndices = new ArrayList<>();
+        for (IndexMetaData indexMetaData : previousMetaData) {
+            if (currentMetaData.index(indexMetaData.getIndex()) == null) {
+                deletedIndices.add(indexMetaData.getIndex());
+            }
+        }
+        if (globalChanged == false && changedIndices.isEmpty() && deletedIndices.isEmpty()) {
+            return;
+        }
+        final byte[] entry = serializeEntry(DELTA_ENTRY, currentMetaData, globalChanged, changedIndices, deletedIndices);
+        final String fileName = LOG_FILE_PREFIX + generation + LOG_FILE_EXTENSION;
+        try {
+            for (Path location : dataLocations) {
+                final Path logFile = location.resolve(MetaDataStateFormat.STATE_DIR_NAME).resolve(fileName);
+                try (FileChannel channel = FileChannel.open(logFile, StandardOpenOption.WRITE, StandardOpenOption.APPEND)) {
+                    Channels.writeToChannel(entry, channel);
+                    channel.force(false);
+                }
+            }
+        } catch (Exception e) {
+            // The entry may be partially written to some locations. Appending after it would make these copies unreadable, so the
+            // next write starts a new generation with a snapshot instead.
+            generation = -1;
+            throw e;
+        }
+        appendedSizeInBytes += entry.length;
+        logger.trace("appended metadata version [{}] to metadata log generation [{}], global changed [{}], changed indices [{}], " +
+            "deleted indices [{}]", currentMetaData.version(), generation, globalChanged, changedIndices.size(), deletedIndices.size());
+    }
+
+    /**
+     * Deletes all generations of the log
+     */
+    public synchronized void delete() throws IOException {
+        for (List<Path> logFiles : findGenerations().values()) {
+            deleteLogFiles(logFiles);
+        }
+        generation = -1;
+    }
+
+    private void deleteLogFiles(List<Path> logFiles) {
+        for (Path logFile : logFiles) {
+            try {
+                Files.deleteIfExists(logFile);
+            } catch (IOException e) {
+                logger.debug((Supplier<?>) () -> new ParameterizedMessage("failed to delete metadata log [{}]", logFile), e);
+            }
+        }
+    }
+
+    /**
+     * Returns the log files of every generation, by generation
+     */
+    private Map<Long, List<Path>> findGenerations() throws IOException {
+        final Map<Long, List<Path>> generations = new HashMap<>();
+        for (Path location : dataLocations) {
+            final Path stateLocation = location.resolve(MetaDataStateFormat.STATE_DIR_NAME);
+            if (Files.isDirectory(stateLocation) == false) {
+                continue;
+            }
+            try (DirectoryStream<Path> stream = Files.newDirectoryStream(stateLocation, LOG_FILE_PREFIX + "*" + LOG_FILE_EXTENSION)) {
+                for (Path logFile : stream) {
+                    final String fileName = logFile.getFileName().toString();
+                    final String generation = fileName.substring(LOG_FILE_PREFIX.length(), fileName.length() - LOG_FILE_EXTENSION.length());
+                    try {
+                        generations.computeIfAbsent(Long.parseLong(generation), k -> new ArrayList<>()).add(logFile);
+                    } catch (NumberFormatException e) {
+                        logger.debug("ignoring unexpected file [{}] in [{}]", fileName, stateLocation);
+                    }
+                }
+            } catch (NoSuchFileException e) {
+                // the directory was removed concurrently, nothing to find there
+            }
+        }
+        return generations;
+    }
+
+    private byte[] serializeEntry(byte type, MetaData metaData, boolean includeGlobal, Iterable<IndexMetaData> indices,
+                                  Collection<Index> deletedIndices) throws IOException {
+        final BytesStreamOutput payload = new BytesStreamOutput();
+        payload.writeByte(type);
+        payload.writeLong(metaData.version());
+        payload.writeBoolean(includeGlobal);
+        if (includeGlobal) {
+            payload.writeBytesReference(toSmile(metaData, MetaData.FORMAT));
+        }
+        final List<IndexMetaData> indicesList = new ArrayList<>();
+        indices.forEach(indicesList::add);
+        payload.writeVInt(indicesList.size());
+        for (IndexMetaData indexMetaData : indicesList) {
+            indexMetaData.writeTo(payload);
+        }
+        payload.writeVInt(deletedIndices.size());
+        for (Index deletedIndex : deletedIndices) {
+            deletedIndex.writeTo(payload);
+        }
+        final byte[] payloadBytes = BytesReference.toBytes(payload.bytes());
+        final CRC32 checksum = new CRC32();
+        checksum.update(payloadBytes, 0, payloadBytes.length);
+        final BytesStreamOutput entry = new BytesStreamOutput(payloadBytes.length + 12);
+        entry.writeInt(payloadBytes.length);
+        entry.writeBytes(payloadBytes);
+        entry.writeLong(checksum.getValue());
+        return BytesReference.toBytes(entry.bytes());
+    }
+
+    private static <T> BytesReference toSmile(T state, MetaDataStateFormat<T> format) throws IOException {
+        try (XContentBuilder builder = XContentFactory.contentBuilder(XContentType.SMILE)) {
+            builder.startObject();
+            format.toXContent(builder, state);
+            builder.endObject();
+            return builder.bytes();
+        }
+    }
+
+    private <T> T fromSmile(BytesReference bytes, MetaDataStateFormat<T> format) throws IOException {
+        try (XContentParser parser = XContentType.SMILE.xContent().createParser(namedXContentRegistry, bytes)) {
+            return format.fromXContent(parser);
+        }
+    }
+
+    private MetaData read(Path logFile, long expectedGeneration) throws IOException {
+        try (InputStream inputStream = new BufferedInputStream(Files.newInputStream(logFile), BUFFER_SIZE);
+             StreamInput in = new InputStreamStreamInput(inputStream)) {
+            final int magic = in.readInt();
+            if (magic != LOG_FILE_MAGIC) {
+                throw new CorruptStateException("unexpected magic [" + magic + "] in metadata log [" + logFile + "]");
+            }
+            final int formatVersion = in.readInt();
+            if (formatVersion != LOG_FILE_VERSION) {
+                throw new CorruptStateException("unsupported version [" + formatVersion + "] of metadata log [" + logFile + "]");
+            }
+            final long generation = in.readLong();
+            if (generation != expectedGeneration) {
+                throw new CorruptStateException("metadata log [" + logFile + "] holds generation [" + generation + "]");
+            }
+            final Version version = Version.readVersion(in);
+            if (version.onOrAfter(Version.CURRENT.minimumCompatibilityVersion()) == false) {
+                throw new IllegalStateException("metadata log [" + logFile + "] was written by version [" + version
+                    + "] which is not compatible with this node");
+            }
+            final long fileSize = Files.size(logFile);
+            MetaData globalMetaData = null;
+            final Map<Index, IndexMetaData> indices = new HashMap<>();
+            long metaDataVersion = 0;
+            int numEntries = 0;
+            while (true) {
+                final byte[] payload = readEntry(in, logFile, fileSize);
+                if (payload == null) {
+                    break;
+                }
+                final StreamInput entry = StreamInput.wrap(payload);
+                entry.setVersion(version);
+                final byte type = entry.readByte();
+                if (numEntries == 0 && type != SNAPSHOT_ENTRY) {
+                    throw new CorruptStateException("metadata log [" + logFile + "] doesn't start with a snapshot");
+                }
+                metaDataVersion = entry.readLong();
+                if (entry.readBoolean()) {
+                    globalMetaData = fromSmile(entry.readBytesReference(), MetaData.FORMAT);
+                }
+                final int numIndices = entry.readVInt();
+                for (int i = 0; i < numIndices; i++) {
+                    final IndexMetaData indexMetaData = IndexMetaData.readFrom(entry);
+                    indices.put(indexMetaData.getIndex(), indexMetaData);
+                }
+                final int numDeleted = entry.readVInt();
+                for (int i = 0; i < numDeleted; i++) {
+                    indices.remove(new Index(entry));
+                }
+                numEntries++;
+            }
+            if (numEntries == 0) {
+                throw new CorruptStateException("metadata log [" + logFile + "] doesn't contain a valid snapshot");
+            }
+            final MetaData.Builder builder = globalMetaData == null ? MetaData.builder() : MetaData.builder(globalMetaData);
+            // the global metadata is only logged when it changes, but the version changes with every entry
+            builder.version(metaDataVersion);
+            for (IndexMetaData indexMetaData : indices.values()) {
+                builder.put(indexMetaData, false);
+            }
+            logger.trace("loaded metadata log [{}] with [{}] entries and [{}] indices", logFile, numEntries, indices.size());
+            return builder.build();
+        }
+    }
+
+    /**
+     * Reads the payload of the next entry, returns <code>null</code> if the log ends, if the next entry reaches past the end of the
+     * log or if the log continues with zeros, which is what a node crashing while appending that entry leaves behind.
+     *
+     * @throws CorruptStateException if the entry is complete but corrupt
+     */
+    private byte[] readEntry(StreamInput in, Path logFile, long fileSize) throws IOException {
+        final byte[] payload;
+        final long expectedChecksum;
+        try {
+            final int length = in.readInt();
+            if (length < 0) {
+                throw new CorruptStateException("entry of invalid length [" + length + "] in metadata log [" + logFile + "]");
+            }
+            if (length == 0) {
+                // an entry holds at least its type, this is the zero-filled tail of a file extended by a crash
+                logger.warn("ignoring zero-filled tail of metadata log [{}]", logFile);
+                return null;
+            }
+            if (length > fileSize) {
+                logger.warn("ignoring incomplete entry of length [{}] at the end of metadata log [{}]", length, logFile);
+                return null;
+            }
+            payload = new byte[length];
+            in.readBytes(payload, 0, length);
+            expectedChecksum = in.readLong();
+        } catch (EOFException e) {
+            // either the log ends here or the last entry was only partially written
+            return null;
+        }
+        final CRC32 checksum = new CRC32();
+        checksum.update(payload, 0, payload.length);
+        if (checksum.getValue() != expectedChecksum) {
+            throw new CorruptStateException("checksum mismatch in entry of metadata log [" + logFile + "]");
+        }
+        return payload;
+    }
+}
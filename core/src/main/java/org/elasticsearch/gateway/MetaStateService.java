@@ -23,6 +23,7 @@ import org.apache.logging.log4j.message.ParameterizedMessage;
 import org.apache.logging.log4j.util.Supplier;
 import org.elasticsearch.cluster.metadata.IndexMetaData;
 import org.elasticsearch.cluster.metadata.MetaData;
+import org.elasticsearch.cluster.node.DiscoveryNode;
 import org.elasticsearch.common.Nullable;
 import org.elasticsearch.common.component.AbstractComponent;
 import org.elasticsearch.common.settings.Settings;
@@ -42,18 +43,43 @@ public class MetaStateService extends AbstractComponent {
 
     private final NodeEnvironment nodeEnv;
     private final NamedXContentRegistry namedXContentRegistry;
+    private final boolean metaDataLogEnabled;
+    @Nullable
+    private final MetaDataLog metaDataLog;
 
     public MetaStateService(Settings settings, NodeEnvironment nodeEnv, NamedXContentRegistry namedXContentRegistry) {
         super(settings);
         this.nodeEnv = nodeEnv;
         this.namedXContentRegistry = namedXContentRegistry;
+        if (DiscoveryNode.isMasterNode(settings) && nodeEnv.hasNodeFile()) {
+            this.metaDataLog = new MetaDataLog(logger, namedXContentRegistry, nodeEnv.nodeDataPaths());
+            this.metaDataLogEnabled = MetaDataLog.METADATA_LOG_ENABLED_SETTING.get(settings);
+        } else {
+            this.metaDataLog = null;
+            this.metaDataLogEnabled = false;
+        }
+    }
+
+    /**
+     * Returns whether this node persists the metadata in a {@link MetaDataLog}, rather than in a global state file and a state file
+     * for every index.
+     */
+    boolean isMetaDataLogEnabled() {
+        return metaDataLogEnabled;
     }
 
     /**
      * Loads the full state, which includes both the global state and all the indices
-     * meta state.
+     * meta state. The state is loaded from the {@link MetaDataLog} if this node has one, even if it was disabled since,
+     * and from the global and index state files otherwise.
      */
     MetaData loadFullState() throws Exception {
+        if (metaDataLog != null) {
+            final MetaData metaData = metaDataLog.load();
+            if (metaData != null) {
+                return metaData;
+            }
+        }
         MetaData globalMetaData = loadGlobalState();
         MetaData.Builder metaDataBuilder;
         if (globalMetaData != null) {
@@ -130,6 +156,45 @@ public class MetaStateService extends AbstractComponent {
         }
     }
 
+    /**
+     * Starts a new generation of the {@link MetaDataLog} with the full given metadata, including the indices states.
+     */
+    void writeMetaDataLogSnapshot(String reason, MetaData metaData) throws IOException {
+        assert metaDataLogEnabled : "metadata log is disabled";
+        logger.trace("[_metadata_log] writing snapshot, reason [{}]", reason);
+        try {
+            metaDataLog.writeSnapshot(metaData);
+        } catch (Exception ex) {
+            logger.warn("[_metadata_log]: failed to write metadata snapshot", ex);
+            throw new IOException("failed to write metadata snapshot", ex);
+        }
+    }
+
+    /**
+     * Appends the changes between the given metadata to the {@link MetaDataLog}.
+     */
+    void appendToMetaDataLog(String reason, MetaData previousMetaData, MetaData metaData) throws IOException {
+        assert metaDataLogEnabled : "metadata log is disabled";
+        logger.trace("[_metadata_log] appending changes, reason [{}]", reason);
+        try {
+            metaDataLog.append(previousMetaData, metaData);
+        } catch (Exception ex) {
+            logger.warn("[_metadata_log]: failed to append metadata changes", ex);
+            throw new IOException("failed to append metadata changes", ex);
+        }
+    }
+
+    /**
+     * Deletes the {@link MetaDataLog} of this node, if it has one. Used once the metadata log was disabled and the metadata was
+     * written to the global and index state files.
+     */
+    void deleteMetaDataLog() throws IOException {
+        if (metaDataLog != null && metaDataLogEnabled == false && metaDataLog.exists()) {
+            logger.info("[_metadata_log] deleting metadata log, metadata is persisted to the state files");
+            metaDataLog.delete();
+        }
+    }
+
     /**
      * Writes the global state, *without* the indices states.
      */
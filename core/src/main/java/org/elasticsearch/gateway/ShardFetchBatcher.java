@@ -0,0 +1,541 @@
+/*
+ * Licensed to Elasticsearch under one or more contributor
+ * license agreements. See the NOTICE file distributed with
+ * this work for additional information regarding copyright
+ * ownership. Elasticsearch licenses this file to you under
+ * the Apache License, Version 2.0 (the "License"); you may
+ * not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.elasticsearch.gateway;
+
+import org.apache.logging.log4j.Logger;
+import org.elasticsearch.Version;
+import org.elasticsearch.action.ActionListener;
+import org.elasticsearch.action.FailedNodeException;
+import org.elasticsearch.action.support.nodes.BaseNodeResponse;
+import org.elasticsearch.action.support.nodes.BaseNodesResponse;
+import org.elasticsearch.cluster.node.DiscoveryNode;
+import org.elasticsearch.common.io.stream.StreamInput;
+import org.elasticsearch.common.io.stream.StreamOutput;
+import org.elasticsearch.common.io.stream.Writeable;
+import org.elasticsearch.common.metrics.CounterMetric;
+import org.elasticsearch.common.settings.Setting;
+import org.elasticsearch.common.settings.Setting.Property;
+import org.elasticsearch.common.unit.TimeValue;
+import org.elasticsearch.common.util.concurrent.AbstractRunnable;
+import org.elasticsearch.common.util.concurrent.CountDown;
+import org.elasticsearch.common.xcontent.ToXContent;
+import org.elasticsearch.common.xcontent.XContentBuilder;
+import org.elasticsearch.index.shard.ShardId;
+import org.elasticsearch.threadpool.ThreadPool;
+import org.elasticsearch.transport.TransportChannel;
+import org.elasticsearch.transport.TransportException;
+import org.elasticsearch.transport.TransportRequest;
+import org.elasticsearch.transport.TransportRequestHandler;
+import org.elasticsearch.transport.TransportRequestOptions;
+import org.elasticsearch.transport.TransportResponse;
+import org.elasticsearch.transport.TransportResponseHandler;
+import org.elasticsearch.transport.TransportService;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.function.BiFunction;
+import java.util.function.Function;
+import java.util.function.Supplier;
+
+/**
+ * A {@link AsyncShardFetch.Lister} that batches the per shard fetches issued during an allocation round. Rather than sending one
+ * request per shard to every node, fetches are queued until {@link #flush()} is called, after which every node receives a single
+ * request listing all the shards it needs to report on. Results are then handed back to each shard's listener, as if they came
+ * from a regular per shard nodes request. Nodes that don't support batched fetching are sent a per shard request as before.
+ */
+public class ShardFetchBatcher<NodesResponse extends BaseNodesResponse<NodeResponse>, NodeResponse extends BaseNodeResponse>
+    implements AsyncShardFetch.Lister<NodesResponse, NodeResponse> {
+
+    /**
+     * The maximum number of shards that are fetched from a single node by one request. Shards beyond that are sent in additional
+     * requests, so that the node can still process them in parallel.
+     */
+    public static final Setting<Integer> FETCH_SHARD_BATCH_SIZE_SETTING =
+        Setting.intSetting("gateway.fetch_shard_batch_size", 1000, 1, Property.NodeScope);
+
+    private final Logger logger;
+    private final String type;
+    private final TransportService transportService;
+    private final String batchActionName;
+    private final Supplier<NodeResponse> nodeResponseSupplier;
+    private final BiFunction<List<NodeResponse>, List<FailedNodeException>, NodesResponse> nodesResponseFactory;
+    private final AsyncShardFetch.Lister<NodesResponse, NodeResponse> perShardLister;
+    private final int batchSize;
+
+    private final Map<DiscoveryNode, List<PendingFetch>> pendingFetches = new HashMap<>();
+
+    private final CounterMetric roundTrips = new CounterMetric();
+    private final CounterMetric batchedShards = new CounterMetric();
+    private final CounterMetric perShardRequests = new CounterMetric();
+    private final CounterMetric roundTripTimeInNanos = new CounterMetric();
+
+    /**
+     * @param type                 the type of data fetched, used for logging
+     * @param batchActionName      the name of the batched action, as registered on the nodes through
+     *                             {@link #registerRequestHandler(Logger, TransportService, String, String, Function)}
+     * @param nodeResponseSupplier creates empty node responses to read the batched responses into
+     * @param nodesResponseFactory combines the per node responses and failures of a shard into the response of a shard fetch
+     * @param perShardLister       the lister to use for nodes that don't support batched fetches
+     * @param batchSize            the maximum number of shards to fetch from a node per request
+     */
+    public ShardFetchBatcher(Logger logger, String type, TransportService transportService, String batchActionName,
+                             Supplier<NodeResponse> nodeResponseSupplier,
+                             BiFunction<List<NodeResponse>, List<FailedNodeException>, NodesResponse> nodesResponseFactory,
+                             AsyncShardFetch.Lister<NodesResponse, NodeResponse> perShardLister, int batchSize) {
+        this.logger = logger;
+        this.type = type;
+        this.transportService = transportService;
+        this.batchActionName = batchActionName;
+        this.nodeResponseSupplier = nodeResponseSupplier;
+        this.nodesResponseFactory = nodesResponseFactory;
+        this.perShardLister = perShardLister;
+        this.batchSize = batchSize;
+    }
+
+    @Override
+    public void list(ShardId shardId, DiscoveryNode[] nodes, ActionListener<NodesResponse> listener) {
+        final PendingFetch fetch = new PendingFetch(shardId, nodes.length, listener);
+        final List<DiscoveryNode> perShardNodes = new ArrayList<>();
+        synchronized (pendingFetches) {
+            for (DiscoveryNode node : nodes) {
+                if (supportsBatchedFetch(node)) {
+                    pendingFetches.computeIfAbsent(node, k -> new ArrayList<>()).add(fetch);
+                } else {
+                    perShardNodes.add(node);
+                }
+            }
+        }
+        if (perShardNodes.isEmpty() == false) {
+            final DiscoveryNode[] perShardNodesArray = perShardNodes.toArray(new DiscoveryNode[perShardNodes.size()]);
+            perShardRequests.inc();
+            perShardLister.list(shardId, perShardNodesArray, new ActionListener<NodesResponse>() {
+                @Override
+                public void onResponse(NodesResponse response) {
+                    fetch.onResponses(response.getNodes(), response.failures());
+                }
+
+                @Override
+                public void onFailure(Exception e) {
+                    fetch.onFailure(perShardNodesArray, e);
+                }
+            });
+        }
+    }
+
+    /**
+     * Sends all the fetches that were queued since the last flush, one request per node and batch of shards.
+     */
+    public void flush() {
+        final Map<DiscoveryNode, List<PendingFetch>> toSend;
+        synchronized (pendingFetches) {
+            if (pendingFetches.isEmpty()) {
+                return;
+            }
+            toSend = new HashMap<>(pendingFetches);
+            pendingFetches.clear();
+        }
+        for (Map.Entry<DiscoveryNode, List<PendingFetch>> entry : toSend.entrySet()) {
+            final List<PendingFetch> fetches = entry.getValue();
+            for (int from = 0; from < fetches.size(); from += batchSize) {
+                sendBatch(entry.getKey(), fetches.subList(from, Math.min(fetches.size(), from + batchSize)));
+            }
+        }
+    }
+
+    private void sendBatch(DiscoveryNode node, List<PendingFetch> fetches) {
+        final List<ShardId> shardIds = new ArrayList<>(fetches.size());
+        for (PendingFetch fetch : fetches) {
+            shardIds.add(fetch.shardId);
+        }
+        logger.trace("fetching [{}] for [{}] shards from {}", type, shardIds.size(), node);
+        roundTrips.inc();
+        batchedShards.inc(shardIds.size());
+        final long startTimeNS = System.nanoTime();
+        final TransportRequestOptions options = TransportRequestOptions.builder().withCompress(true).build();
+        try {
+            transportService.sendRequest(node, batchActionName, new BatchRequest(shardIds), options,
+                new TransportResponseHandler<BatchResponse<NodeResponse>>() {
+                    @Override
+                    public BatchResponse<NodeResponse> newInstance() {
+                        return new BatchResponse<>(nodeResponseSupplier);
+                    }
+
+                    @Override
+                    public void handleResponse(BatchResponse<NodeResponse> response) {
+                        onBatchDone(node, fetches.size(), startTimeNS);
+                        assert response.responses().size() == fetches.size() : "expected [" + fetches.size() + "] responses but got ["
+                            + response.responses().size() + "]";
+                        for (int i = 0; i < fetches.size(); i++) {
+                            final PendingFetch fetch = fetches.get(i);
+                            final Exception failure = response.failures().get(i);
+                            if (failure == null) {
+                                fetch.onResponse(response.responses().get(i));
+                            } else {
+                                fetch.onFailure(new FailedNodeException(node.getId(), "Failed node [" + node.getId() + "]", failure));
+                            }
+                        }
+                    }
+
+                    @Override
+                    public void handleException(TransportException exp) {
+                        onBatchDone(node, fetches.size(), startTimeNS);
+                        for (PendingFetch fetch : fetches) {
+                            fetch.onFailure(new FailedNodeException(node.getId(), "Failed node [" + node.getId() + "]", exp));
+                        }
+                    }
+
+                    @Override
+                    public String executor() {
+                        return ThreadPool.Names.SAME;
+                    }
+                });
+        } catch (Exception e) {
+            for (PendingFetch fetch : fetches) {
+                fetch.onFailure(new FailedNodeException(node.getId(), "Failed node [" + node.getId() + "]", e));
+            }
+        }
+    }
+
+    private void onBatchDone(DiscoveryNode node, int numShards, long startTimeNS) {
+        final long tookInNanos = Math.max(0, System.nanoTime() - startTimeNS);
+        roundTripTimeInNanos.inc(tookInNanos);
+        logger.debug("fetched [{}] for [{}] shards from {} in [{}]", type, numShards, node,
+            new TimeValue(tookInNanos, TimeUnit.NANOSECONDS));
+    }
+
+    private static boolean supportsBatchedFetch(DiscoveryNode node) {
+        return node.getVersion().onOrAfter(Version.V_6_0_0_alpha2_UNRELEASED);
+    }
+
+    /**
+     * Returns the number of fetches that were queued but not sent yet.
+     */
+    int getNumberOfPendingFetches() {
+        synchronized (pendingFetches) {
+            return pendingFetches.values().stream().mapToInt(List::size).sum();
+        }
+    }
+
+    /**
+     * Returns stats about the round trips to the nodes made so far
+     */
+    public Stats stats() {
+        return new Stats(roundTrips.count(), batchedShards.count(), perShardRequests.count(),
+            TimeUnit.NANOSECONDS.toMillis(roundTripTimeInNanos.count()));
+    }
+
+    /**
+     * Registers the node level handler for a batched fetch. The shards of a request are computed in parallel on the given executor,
+     * and the response is sent once all of them are done.
+     *
+     * @param nodeOperation computes the response of the local node for a single shard, exceptions it throws are reported back as
+     *                      failure for that shard only
+     */
+    public static <T extends BaseNodeResponse> void registerRequestHandler(Logger logger, TransportService transportService,
+                                                                           String batchActionName, String executor,
+                                                                           Function<ShardId, T> nodeOperation) {
+        transportService.registerRequestHandler(batchActionName, BatchRequest::new, executor, new TransportRequestHandler<BatchRequest>() {
+            @Override
+            public void messageReceived(BatchRequest request, TransportChannel channel) throws Exception {
+                final List<ShardId> shardIds = request.shardIds();
+                if (shardIds.isEmpty()) {
+                    channel.sendResponse(new BatchResponse<>(Collections.emptyList(), Collections.emptyList()));
+                    return;
+                }
+                final AtomicReferenceArray<T> responses = new AtomicReferenceArray<>(shardIds.size());
+                final AtomicReferenceArray<Exception> failures = new AtomicReferenceArray<>(shardIds.size());
+                final CountDown countDown = new CountDown(shardIds.size());
+                final ExecutorService executorService = transportService.getThreadPool().executor(executor);
+                for (int i = 0; i < shardIds.size(); i++) {
+                    final int index = i;
+                    executorService.execute(new AbstractRunnable() {
+                        @Override
+                        protected void doRun() throws Exception {
+                            responses.set(index, nodeOperation.apply(shardIds.get(index)));
+                        }
+
+                        @Override
+                        public void onFailure(Exception e) {
+                            failures.set(index, e);
+                        }
+
+                        @Override
+                        public void onAfter() {
+                            if (countDown.countDown()) {
+                                sendResponse(logger, channel, responses, failures);
+                            }
+                        }
+                    });
+                }
+            }
+        });
+    }
+
+    private static <T extends BaseNodeResponse> void sendResponse(Logger logger, TransportChannel channel,
+                                                                  AtomicReferenceArray<T> responses,
+                                                                  AtomicReferenceArray<Exception> failures) {
+        final List<T> responseList = new ArrayList<>(responses.length());
+        final List<Exception> failureList = new ArrayList<>(failures.length());
+        for (int i = 0; i < responses.length(); i++) {
+            responseList.add(responses.get(i));
+            failureList.add(failures.get(i));
+        }
+        try {
+            channel.sendResponse(new BatchResponse<>(responseList, failureList));
+        } catch (Exception e) {
+            try {
+                channel.sendResponse(e);
+            } catch (Exception inner) {
+                inner.addSuppressed(e);
+                logger.warn("failed to send the response of a batched shard fetch", inner);
+            }
+        }
+    }
+
+    /**
+     * A shard fetch waiting for the responses of the nodes it was sent to
+     */
+    private final class PendingFetch {
+
+        private final ShardId shardId;
+        private final ActionListener<NodesResponse> listener;
+        private final List<NodeResponse> responses = new ArrayList<>();
+        private final List<FailedNodeException> failures = new ArrayList<>();
+        private int pendingNodes;
+
+        private PendingFetch(ShardId shardId, int numNodes, ActionListener<NodesResponse> listener) {
+            this.shardId = shardId;
+            this.pendingNodes = numNodes;
+            this.listener = listener;
+        }
+
+        void onResponse(NodeResponse response) {
+            onResponses(Collections.singletonList(response), Collections.emptyList());
+        }
+
+        void onFailure(FailedNodeException failure) {
+            onResponses(Collections.emptyList(), Collections.singletonList(failure));
+        }
+
+        void onFailure(DiscoveryNode[] nodes, Exception e) {
+            final List<FailedNodeException> failures = new ArrayList<>(nodes.length);
+            for (DiscoveryNode node : nodes) {
+                failures.add(new FailedNodeException(node.getId(), "total failure in fetching", e));
+            }
+            onResponses(Collections.emptyList(), failures);
+        }
+
+        void onResponses(List<NodeResponse> nodeResponses, List<FailedNodeException> nodeFailures) {
+            final boolean done;
+            synchronized (this) {
+                responses.addAll(nodeResponses);
+                failures.addAll(nodeFailures);
+                pendingNodes -= nodeResponses.size() + nodeFailures.size();
+                assert pendingNodes >= 0 : "received more responses than nodes for " + shardId;
+                done = pendingNodes == 0;
+            }
+            if (done) {
+                final NodesResponse response;
+                try {
+                    response = nodesResponseFactory.apply(responses, failures);
+                } catch (Exception e) {
+                    listener.onFailure(e);
+                    return;
+                }
+                listener.onResponse(response);
+            }
+        }
+    }
+
+    /**
+     * Stats about the round trips made to fetch shard data from the nodes
+     */
+    public static class Stats implements Writeable, ToXContent {
+
+        private final long roundTrips;
+        private final long batchedShards;
+        private final long perShardRequests;
+        private final long roundTripTimeInMillis;
+
+        public Stats(long roundTrips, long batchedShards, long perShardRequests, long roundTripTimeInMillis) {
+            this.roundTrips = roundTrips;
+            this.batchedShards = batchedShards;
+            this.perShardRequests = perShardRequests;
+            this.roundTripTimeInMillis = roundTripTimeInMillis;
+        }
+
+        public Stats(StreamInput in) throws IOException {
+            this.roundTrips = in.readVLong();
+            this.batchedShards = in.readVLong();
+            this.perShardRequests = in.readVLong();
+            this.roundTripTimeInMillis = in.readVLong();
+        }
+
+        @Override
+        public void writeTo(StreamOutput out) throws IOException {
+            out.writeVLong(roundTrips);
+            out.writeVLong(batchedShards);
+            out.writeVLong(perShardRequests);
+            out.writeVLong(roundTripTimeInMillis);
+        }
+
+        /**
+         * The number of batched requests sent to nodes
+         */
+        public long getRoundTrips() {
+            return roundTrips;
+        }
+
+        /**
+         * The total number of shards fetched through batched requests, summed over all nodes
+         */
+        public long getBatchedShards() {
+            return batchedShards;
+        }
+
+        /**
+         * The number of per shard requests sent to nodes that don't support batched fetches
+         */
+        public long getPerShardRequests() {
+            return perShardRequests;
+        }
+
+        /**
+         * The total time the batched requests took to come back, summed over all requests
+         */
+        public TimeValue getRoundTripTime() {
+            return TimeValue.timeValueMillis(roundTripTimeInMillis);
+        }
+
+        @Override
+        public XContentBuilder toXContent(XContentBuilder builder, Params params) throws IOException {
+            builder.field("round_trips", roundTrips);
+            builder.field("batched_shards", batchedShards);
+            builder.field("per_shard_requests", perShardRequests);
+            builder.timeValueField("round_trip_time_in_millis", "round_trip_time", roundTripTimeInMillis);
+            return builder;
+        }
+
+        @Override
+        public String toString() {
+            return "ShardFetchStats(round_trips=" + roundTrips + ", batched_shards=" + batchedShards + ", per_shard_requests="
+                + perShardRequests + ", round_trip_time_in_millis=" + roundTripTimeInMillis + ")";
+        }
+    }
+
+    static class BatchRequest extends TransportRequest {
+
+        private List<ShardId> shardIds;
+
+        BatchRequest() {
+        }
+
+        BatchRequest(List<ShardId> shardIds) {
+            this.shardIds = shardIds;
+        }
+
+        List<ShardId> shardIds() {
+            return shardIds;
+        }
+
+        @Override
+        public void readFrom(StreamInput in) throws IOException {
+            super.readFrom(in);
+            shardIds = in.readList(ShardId::readShardId);
+        }
+
+        @Override
+        public void writeTo(StreamOutput out) throws IOException {
+            super.writeTo(out);
+            out.writeStreamableList(shardIds);
+        }
+    }
+
+    /**
+     * The responses of a node to a {@link BatchRequest}, in the order of the requested shards. For every shard either the response
+     * or the failure is set.
+     */
+    static class BatchResponse<T extends BaseNodeResponse> extends TransportResponse {
+
+        private final Supplier<T> nodeResponseSupplier;
+        private List<T> responses;
+        private List<Exception> failures;
+
+        BatchResponse(Supplier<T> nodeResponseSupplier) {
+            this.nodeResponseSupplier = nodeResponseSupplier;
+        }
+
+        BatchResponse(List<T> responses, List<Exception> failures) {
+            assert responses.size() == failures.size();
+            this.nodeResponseSupplier = null;
+            this.responses = responses;
+            this.failures = failures;
+        }
+
+        List<T> responses() {
+            return responses;
+        }
+
+        List<Exception> failures() {
+            return failures;
+        }
+
+        @Override
+        public void readFrom(StreamInput in) throws IOException {
+            super.readFrom(in);
+            final int size = in.readVInt();
+            responses = new ArrayList<>(size);
+            failures = new ArrayList<>(size);
+            for (int i = 0; i < size; i++) {
+                if (in.readBoolean()) {
+                    T response = nodeResponseSupplier.get();
+                    response.readFrom(in);
+                    responses.add(response);
+                    failures.add(null);
+                } else {
+                    responses.add(null);
+                    failures.add(in.readException());
+                }
+            }
+        }
+
+        @Override
+        public void writeTo(StreamOutput out) throws IOException {
+            super.writeTo(out);
+            out.writeVInt(responses.size());
+            for (int i = 0; i < responses.size(); i++) {
+                if (failures.get(i) == null) {
+                    out.writeBoolean(true);
+                    responses.get(i).writeTo(out);
+                } else {
+                    out.writeBoolean(false);
+                    out.writeException(failures.get(i));
+                }
+            }
+        }
+    }
+}
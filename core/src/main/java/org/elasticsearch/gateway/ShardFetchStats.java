@@ -0,0 +1,81 @@
+/*
+ * Licensed to Elasticsearch under one or more contributor
+ * license agreements. See the NOTICE file distributed with
+ * this work for additional information regarding copyright
+ * ownership. Elasticsearch licenses this file to you under
+ * the Apache License, Version 2.0 (the "License"); you may
+ * not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.elasticsearch.gateway;
+
+import org.elasticsearch.common.io.stream.StreamInput;
+import org.elasticsearch.common.io.stream.StreamOutput;
+import org.elasticsearch.common.io.stream.Writeable;
+import org.elasticsearch.common.xcontent.ToXContent;
+import org.elasticsearch.common.xcontent.XContentBuilder;
+
+import java.io.IOException;
+
+/**
+ * Stats about the round trips the {@link GatewayAllocator} of a node made to fetch the started shards and the shard stores of the
+ * other nodes while allocating unassigned shards. Only the elected master fetches shard data.
+ */
+public class ShardFetchStats implements Writeable, ToXContent {
+
+    private final ShardFetchBatcher.Stats startedShards;
+    private final ShardFetchBatcher.Stats shardStores;
+
+    public ShardFetchStats(ShardFetchBatcher.Stats startedShards, ShardFetchBatcher.Stats shardStores) {
+        this.startedShards = startedShards;
+        this.shardStores = shardStores;
+    }
+
+    public ShardFetchStats(StreamInput in) throws IOException {
+        this.startedShards = new ShardFetchBatcher.Stats(in);
+        this.shardStores = new ShardFetchBatcher.Stats(in);
+    }
+
+    @Override
+    public void writeTo(StreamOutput out) throws IOException {
+        startedShards.writeTo(out);
+        shardStores.writeTo(out);
+    }
+
+    /**
+     * The stats of the fetches of the started shards, used to allocate primaries
+     */
+    public ShardFetchBatcher.Stats getStartedShards() {
+        return startedShards;
+    }
+
+    /**
+     * The stats of the fetches of the shard stores, used to allocate replicas
+     */
+    public ShardFetchBatcher.Stats getShardStores() {
+        return shardStores;
+    }
+
+    @Override
+    public XContentBuilder toXContent(XContentBuilder builder, Params params) throws IOException {
+        builder.startObject("shard_fetch");
+        builder.startObject("started_shards");
+        startedShards.toXContent(builder, params);
+        builder.endObject();
+        builder.startObject("shard_stores");
+        shardStores.toXContent(builder, params);
+        builder.endObject();
+        builder.endObject();
+        return builder;
+    }
+}
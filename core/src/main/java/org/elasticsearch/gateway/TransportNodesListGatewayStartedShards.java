@@ -69,6 +69,7 @@ public class TransportNodesListGatewayStartedShards extends
         TransportNodesListGatewayStartedShards.NodeGatewayStartedShards> {
 
     public static final String ACTION_NAME = "internal:gateway/local/started_shards";
+    public static final String BATCH_ACTION_NAME = ACTION_NAME + "[batch]";
     private final NodeEnvironment nodeEnv;
     private final IndicesService indicesService;
 
@@ -83,6 +84,16 @@ public class TransportNodesListGatewayStartedShards extends
               NodeGatewayStartedShards.class);
         this.nodeEnv = env;
         this.indicesService = indicesService;
+        ShardFetchBatcher.registerRequestHandler(logger, transportService, BATCH_ACTION_NAME, ThreadPool.Names.FETCH_SHARD_STARTED,
+            this::listStartedShard);
+    }
+
+    /**
+     * Creates a lister that batches the shard fetches of an allocation round into one request per node.
+     */
+    public ShardFetchBatcher<NodesGatewayStartedShards, NodeGatewayStartedShards> newBatcher(int batchSize) {
+        return new ShardFetchBatcher<>(logger, "shard_started", transportService, BATCH_ACTION_NAME, NodeGatewayStartedShards::new,
+            (responses, failures) -> new NodesGatewayStartedShards(clusterService.getClusterName(), responses, failures), this, batchSize);
     }
 
     @Override
@@ -114,11 +125,14 @@ public class TransportNodesListGatewayStartedShards extends
 
     @Override
     protected NodeGatewayStartedShards nodeOperation(NodeRequest request) {
+        return listStartedShard(request.getShardId());
+    }
+
+    private NodeGatewayStartedShards listStartedShard(ShardId shardId) {
         try {
-            final ShardId shardId = request.getShardId();
             logger.trace("{} loading local shard state info", shardId);
             ShardStateMetaData shardStateMetaData = ShardStateMetaData.FORMAT.loadLatestState(logger, NamedXContentRegistry.EMPTY,
-                nodeEnv.availableShardPaths(request.shardId));
+                nodeEnv.availableShardPaths(shardId));
             if (shardStateMetaData != null) {
                 IndexMetaData metaData = clusterService.state().metaData().index(shardId.getIndex());
                 if (metaData == null) {
@@ -130,7 +144,7 @@ public class TransportNodesListGatewayStartedShards extends
                 }
                 if (metaData == null) {
                     ElasticsearchException e = new ElasticsearchException("failed to find local IndexMetaData");
-                    e.setShard(request.shardId);
+                    e.setShard(shardId);
                     throw e;
                 }
 
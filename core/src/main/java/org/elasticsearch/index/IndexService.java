@@ -61,6 +61,7 @@ import org.elasticsearch.index.similarity.SimilarityService;
 import org.elasticsearch.index.store.IndexStore;
 import org.elasticsearch.index.store.Store;
 import org.elasticsearch.index.translog.Translog;
+import org.elasticsearch.indices.TermsLookupCache;
 import org.elasticsearch.indices.breaker.CircuitBreakerService;
 import org.elasticsearch.indices.cluster.IndicesClusterStateService;
 import org.elasticsearch.indices.fielddata.cache.IndicesFieldDataCache;
@@ -116,6 +117,7 @@ public class IndexService extends AbstractIndexComponent implements IndicesClust
     private final BigArrays bigArrays;
     private final ScriptService scriptService;
     private final Client client;
+    private final TermsLookupCache termsLookupCache;
     private Supplier<Sort> indexSortSupplier;
 
     public IndexService(
@@ -137,6 +139,7 @@ public class IndexService extends AbstractIndexComponent implements IndicesClust
             IndexModule.IndexSearcherWrapperFactory wrapperFactory,
             MapperRegistry mapperRegistry,
             IndicesFieldDataCache indicesFieldDataCache,
+            TermsLookupCache termsLookupCache,
             List<SearchOperationListener> searchOperationListeners,
             List<IndexingOperationListener> indexingOperationListeners) throws IOException {
         super(indexSettings);
@@ -165,6 +168,7 @@ public class IndexService extends AbstractIndexComponent implements IndicesClust
         this.threadPool = threadPool;
         this.scriptService = scriptService;
         this.client = client;
+        this.termsLookupCache = termsLookupCache;
         this.eventListener = eventListener;
         this.nodeEnv = nodeEnv;
         this.indexStore = indexStore;
@@ -469,7 +473,7 @@ public class IndexService extends AbstractIndexComponent implements IndicesClust
             shardId, indexSettings, indexCache.bitsetFilterCache(), indexFieldData, mapperService(),
                 similarityService(), scriptService, xContentRegistry,
                 client, indexReader,
-            nowInMillis);
+            nowInMillis, termsLookupCache);
     }
 
     /**
@@ -587,6 +591,26 @@ public class IndexService extends AbstractIndexComponent implements IndicesClust
                 }
             }
         }
+
+        @Override
+        public void onOffHeapLoad(ShardId shardId, String fieldName, long offHeapBytes) {
+            if (shardId != null) {
+                final IndexShard shard = indexService.getShardOrNull(shardId.id());
+                if (shard != null) {
+                    shard.fieldData().onOffHeapLoad(shardId, fieldName, offHeapBytes);
+                }
+            }
+        }
+
+        @Override
+        public void onOffHeapRelease(ShardId shardId, String fieldName, long offHeapBytes) {
+            if (shardId != null) {
+                final IndexShard shard = indexService.getShardOrNull(shardId.id());
+                if (shard != null) {
+                    shard.fieldData().onOffHeapRelease(shardId, fieldName, offHeapBytes);
+                }
+            }
+        }
     }
 
     public IndexMetaData getMetaData() {
@@ -27,7 +27,7 @@ import java.util.Map;
 
 public final class FieldNameAnalyzer extends DelegatingAnalyzerWrapper {
 
-    private final Map<String, Analyzer> analyzers;
+    private final CopyOnWriteHashMap<String, Analyzer> analyzers;
 
     public FieldNameAnalyzer(Map<String, Analyzer> analyzers) {
         super(Analyzer.PER_FIELD_REUSE_STRATEGY);
@@ -38,6 +38,14 @@ public final class FieldNameAnalyzer extends DelegatingAnalyzerWrapper {
         return analyzers;
     }
 
+    /**
+     * Return a new instance that contains the union of this and of the provided analyzers. The analyzers of this instance are shared
+     * with the new one, so the copy only costs the given analyzers.
+     */
+    public FieldNameAnalyzer copyAndAddAll(Map<String, Analyzer> analyzers) {
+        return new FieldNameAnalyzer(this.analyzers.copyAndPutAll(analyzers));
+    }
+
     @Override
     protected Analyzer getWrappedAnalyzer(String fieldName) {
         Analyzer analyzer = analyzers.get(fieldName);
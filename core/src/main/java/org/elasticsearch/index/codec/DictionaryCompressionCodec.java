@@ -0,0 +1,67 @@
+/*
+ * Licensed to Elasticsearch under one or more contributor
+ * license agreements. See the NOTICE file distributed with
+ * this work for additional information regarding copyright
+ * ownership. Elasticsearch licenses this file to you under
+ * the Apache License, Version 2.0 (the "License"); you may
+ * not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.elasticsearch.index.codec;
+
+import org.apache.lucene.codecs.Codec;
+import org.apache.lucene.codecs.FilterCodec;
+import org.apache.lucene.codecs.StoredFieldsFormat;
+import org.apache.lucene.codecs.compressing.CompressingStoredFieldsFormat;
+import org.apache.lucene.codecs.lucene70.Lucene70Codec;
+
+/**
+ * A codec that compresses stored fields in large chunks whose head serves as a dictionary for the rest of the chunk, see
+ * {@link DictionaryCompressionMode}. This exploits the redundancy between documents, like the fields names and values that repeat in
+ * logs, better than {@link CodecService#BEST_COMPRESSION_CODEC} while reading a document decompresses less data. All other formats
+ * are the ones of the delegate codec.
+ * <p>
+ * The codec is registered through SPI under {@link #NAME} so that segments written with it can be read back.
+ */
+// LUCENE UPGRADE: make sure to move to a new codec depending on the lucene version
+public final class DictionaryCompressionCodec extends FilterCodec {
+
+    public static final String NAME = "ESDictionaryCompression70";
+
+    private static final int CHUNK_SIZE = DictionaryCompressionMode.NUM_SUB_BLOCKS * 16 * 1024;
+    private static final int MAX_DOCS_PER_CHUNK = 4096;
+    private static final int BLOCK_SIZE = 1024;
+    private static final int COMPRESSION_LEVEL = 6;
+
+    private final StoredFieldsFormat storedFieldsFormat = new CompressingStoredFieldsFormat("ESDictionaryStoredFields",
+        new DictionaryCompressionMode(COMPRESSION_LEVEL), CHUNK_SIZE, MAX_DOCS_PER_CHUNK, BLOCK_SIZE);
+
+    /**
+     * Used by SPI to read segments, the postings and doc values formats are resolved per field from the segment.
+     */
+    public DictionaryCompressionCodec() {
+        this(new Lucene70Codec());
+    }
+
+    /**
+     * Creates a codec that uses the stored fields format of this codec and all other formats of the given codec.
+     */
+    public DictionaryCompressionCodec(Codec delegate) {
+        super(NAME, delegate);
+    }
+
+    @Override
+    public StoredFieldsFormat storedFieldsFormat() {
+        return storedFieldsFormat;
+    }
+}
@@ -0,0 +1,202 @@
+/*
+ * Licensed to Elasticsearch under one or more contributor
+ * license agreements. See the NOTICE file distributed with
+ * this work for additional information regarding copyright
+ * ownership. Elasticsearch licenses this file to you under
+ * the Apache License, Version 2.0 (the "License"); you may
+ * not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.elasticsearch.index.codec;
+
+import org.apache.lucene.codecs.compressing.CompressionMode;
+import org.apache.lucene.codecs.compressing.Compressor;
+import org.apache.lucene.codecs.compressing.Decompressor;
+import org.apache.lucene.index.CorruptIndexException;
+import org.apache.lucene.store.DataInput;
+import org.apache.lucene.store.DataOutput;
+import org.apache.lucene.util.ArrayUtil;
+import org.apache.lucene.util.BytesRef;
+
+import java.io.IOException;
+import java.util.zip.DataFormatException;
+import java.util.zip.Deflater;
+import java.util.zip.Inflater;
+
+/**
+ * A {@link CompressionMode} that compresses a chunk of stored fields as a dictionary followed by {@link #NUM_SUB_BLOCKS} sub blocks
+ * that are each compressed with DEFLATE using the dictionary as preset dictionary. The dictionary is the head of the chunk, so that the
+ * sub blocks benefit from the redundancy between the documents of the chunk while reading a document only needs to decompress the
+ * dictionary and the sub blocks that hold the document, rather than the whole chunk.
+ */
+final class DictionaryCompressionMode extends CompressionMode {
+
+    /** The number of sub blocks a chunk is split into, in addition to the dictionary */
+    static final int NUM_SUB_BLOCKS = 20;
+    /** The dictionary is at most the length of a sub block divided by this factor */
+    private static final int DICT_SIZE_FACTOR = 2;
+    /** DEFLATE only looks back that far, a larger dictionary would not help */
+    private static final int MAX_DICT_LENGTH = 32 * 1024;
+
+    private final int level;
+
+    DictionaryCompressionMode(int level) {
+        this.level = level;
+    }
+
+    @Override
+    public Compressor newCompressor() {
+        return new DictionaryCompressor(level);
+    }
+
+    @Override
+    public Decompressor newDecompressor() {
+        return new DictionaryDecompressor();
+    }
+
+    @Override
+    public String toString() {
+        return "DICTIONARY(level=" + level + ")";
+    }
+
+    static int dictLength(int length) {
+        return Math.min(MAX_DICT_LENGTH, length / (NUM_SUB_BLOCKS * DICT_SIZE_FACTOR));
+    }
+
+    static int blockLength(int length, int dictLength) {
+        return (length - dictLength + NUM_SUB_BLOCKS - 1) / NUM_SUB_BLOCKS;
+    }
+
+    private static final class DictionaryCompressor extends Compressor {
+
+        private final Deflater deflater;
+        private byte[] compressed = new byte[64];
+
+        DictionaryCompressor(int level) {
+            this.deflater = new Deflater(level, true);
+        }
+
+        private void compressPart(byte[] bytes, int off, int len, DataOutput out) throws IOException {
+            deflater.setInput(bytes, off, len);
+            deflater.finish();
+            int totalCount = 0;
+            while (deflater.finished() == false) {
+                if (totalCount == compressed.length) {
+                    compressed = ArrayUtil.grow(compressed);
+                }
+                totalCount += deflater.deflate(compressed, totalCount, compressed.length - totalCount);
+            }
+            out.writeVInt(totalCount);
+            out.writeBytes(compressed, totalCount);
+        }
+
+        @Override
+        public void compress(byte[] bytes, int off, int len, DataOutput out) throws IOException {
+            final int dictLength = dictLength(len);
+            final int blockLength = blockLength(len, dictLength);
+            out.writeVInt(dictLength);
+            out.writeVInt(blockLength);
+
+            if (dictLength > 0) {
+                deflater.reset();
+                compressPart(bytes, off, dictLength, out);
+            }
+            for (int start = dictLength; start < len; start += blockLength) {
+                deflater.reset();
+                if (dictLength > 0) {
+                    deflater.setDictionary(bytes, off, dictLength);
+                }
+                compressPart(bytes, off + start, Math.min(blockLength, len - start), out);
+            }
+        }
+
+        @Override
+        public void close() throws IOException {
+            deflater.end();
+        }
+    }
+
+    private static final class DictionaryDecompressor extends Decompressor {
+
+        private final Inflater inflater = new Inflater(true);
+        private byte[] compressed = new byte[0];
+
+        private int decompressPart(DataInput in, int length, BytesRef bytes) throws IOException {
+            final int compressedLength = in.readVInt();
+            // pad with an extra dummy byte, see the javadocs of Inflater(boolean)
+            compressed = ArrayUtil.grow(compressed, compressedLength + 1);
+            in.readBytes(compressed, 0, compressedLength);
+            compressed[compressedLength] = 0;
+            inflater.setInput(compressed, 0, compressedLength + 1);
+            final int count;
+            try {
+                count = inflater.inflate(bytes.bytes, bytes.length, length);
+            } catch (DataFormatException e) {
+                throw new IOException(e);
+            }
+            if (inflater.finished() == false || count != length) {
+                throw new CorruptIndexException("Invalid decoder state: needsInput=" + inflater.needsInput()
+                    + ", needsDict=" + inflater.needsDictionary() + ", count=" + count + ", expected=" + length, in);
+            }
+            return count;
+        }
+
+        @Override
+        public void decompress(DataInput in, int originalLength, int offset, int length, BytesRef bytes) throws IOException {
+            assert offset + length <= originalLength;
+            if (length == 0) {
+                bytes.length = 0;
+                return;
+            }
+            final int dictLength = in.readVInt();
+            final int blockLength = in.readVInt();
+            bytes.bytes = ArrayUtil.grow(bytes.bytes, dictLength);
+            bytes.offset = bytes.length = 0;
+
+            if (dictLength > 0) {
+                inflater.reset();
+                bytes.length += decompressPart(in, dictLength, bytes);
+            }
+
+            // skip the sub blocks that are entirely before the requested range
+            int offsetInBlock = dictLength;
+            int offsetInBytesRef = offset;
+            while (offsetInBlock + blockLength <= offset) {
+                in.skipBytes(in.readVInt());
+                offsetInBlock += blockLength;
+                offsetInBytesRef -= blockLength;
+            }
+
+            // decompress the sub blocks that hold the requested range right after the dictionary
+            while (offsetInBlock < offset + length) {
+                final int toDecompress = Math.min(blockLength, originalLength - offsetInBlock);
+                bytes.bytes = ArrayUtil.grow(bytes.bytes, bytes.length + toDecompress);
+                inflater.reset();
+                if (dictLength > 0) {
+                    inflater.setDictionary(bytes.bytes, 0, dictLength);
+                }
+                bytes.length += decompressPart(in, toDecompress, bytes);
+                offsetInBlock += blockLength;
+            }
+
+            bytes.offset = offsetInBytesRef;
+            bytes.length = length;
+            assert bytes.isValid();
+        }
+
+        @Override
+        public Decompressor clone() {
+            return new DictionaryDecompressor();
+        }
+    }
+}
@@ -156,6 +156,27 @@ public enum FieldData {
         };
     }
 
+    /**
+     * Returns a Bits representing all documents from <code>dv</code> that have a histogram.
+     */
+    public static Bits docsWithValue(final HistogramValues dv, final int maxDoc) {
+        return new Bits() {
+            @Override
+            public boolean get(int index) {
+                try {
+                    return dv.advanceExact(index);
+                } catch (IOException e) {
+                    throw new RuntimeException(e);
+                }
+            }
+
+            @Override
+            public int length() {
+                return maxDoc;
+            }
+        };
+    }
+
     /**
      * Returns a Bits representing all documents from <code>dv</code> that have a value.
      */
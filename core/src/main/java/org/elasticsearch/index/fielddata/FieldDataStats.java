@@ -19,6 +19,7 @@
 
 package org.elasticsearch.index.fielddata;
 
+import org.elasticsearch.Version;
 import org.elasticsearch.common.FieldMemoryStats;
 import org.elasticsearch.common.Nullable;
 import org.elasticsearch.common.io.stream.StreamInput;
@@ -36,9 +37,12 @@ public class FieldDataStats implements Streamable, ToXContent {
     private static final String FIELDDATA = "fielddata";
     private static final String MEMORY_SIZE = "memory_size";
     private static final String MEMORY_SIZE_IN_BYTES = "memory_size_in_bytes";
+    private static final String OFF_HEAP_MEMORY_SIZE = "off_heap_memory_size";
+    private static final String OFF_HEAP_MEMORY_SIZE_IN_BYTES = "off_heap_memory_size_in_bytes";
     private static final String EVICTIONS = "evictions";
     private static final String FIELDS = "fields";
     long memorySize;
+    long offHeapMemorySize;
     long evictions;
     @Nullable
     FieldMemoryStats fields;
@@ -47,14 +51,16 @@ public class FieldDataStats implements Streamable, ToXContent {
 
     }
 
-    public FieldDataStats(long memorySize, long evictions, @Nullable FieldMemoryStats fields) {
+    public FieldDataStats(long memorySize, long offHeapMemorySize, long evictions, @Nullable FieldMemoryStats fields) {
         this.memorySize = memorySize;
+        this.offHeapMemorySize = offHeapMemorySize;
         this.evictions = evictions;
         this.fields = fields;
     }
 
     public void add(FieldDataStats stats) {
         this.memorySize += stats.memorySize;
+        this.offHeapMemorySize += stats.offHeapMemorySize;
         this.evictions += stats.evictions;
         if (stats.fields != null) {
             if (fields == null) {
@@ -73,6 +79,17 @@ public class FieldDataStats implements Streamable, ToXContent {
         return new ByteSizeValue(memorySize);
     }
 
+    /**
+     * The memory that field data uses outside of the heap, see {@link OffHeapAccountable}.
+     */
+    public long getOffHeapMemorySizeInBytes() {
+        return this.offHeapMemorySize;
+    }
+
+    public ByteSizeValue getOffHeapMemorySize() {
+        return new ByteSizeValue(offHeapMemorySize);
+    }
+
     public long getEvictions() {
         return this.evictions;
     }
@@ -87,6 +104,11 @@ public class FieldDataStats implements Streamable, ToXContent {
         memorySize = in.readVLong();
         evictions = in.readVLong();
         fields = in.readOptionalWriteable(FieldMemoryStats::new);
+        if (in.getVersion().onOrAfter(Version.V_6_0_0_alpha2_UNRELEASED)) {
+            offHeapMemorySize = in.readVLong();
+        } else {
+            offHeapMemorySize = 0;
+        }
     }
 
     @Override
@@ -94,12 +116,16 @@ public class FieldDataStats implements Streamable, ToXContent {
         out.writeVLong(memorySize);
         out.writeVLong(evictions);
         out.writeOptionalWriteable(fields);
+        if (out.getVersion().onOrAfter(Version.V_6_0_0_alpha2_UNRELEASED)) {
+            out.writeVLong(offHeapMemorySize);
+        }
     }
 
     @Override
     public XContentBuilder toXContent(XContentBuilder builder, Params params) throws IOException {
         builder.startObject(FIELDDATA);
         builder.byteSizeField(MEMORY_SIZE_IN_BYTES, MEMORY_SIZE, memorySize);
+        builder.byteSizeField(OFF_HEAP_MEMORY_SIZE_IN_BYTES, OFF_HEAP_MEMORY_SIZE, offHeapMemorySize);
         builder.field(EVICTIONS, getEvictions());
         if (fields != null) {
             fields.toXContent(builder, FIELDS, MEMORY_SIZE_IN_BYTES, MEMORY_SIZE);
@@ -114,12 +140,13 @@ public class FieldDataStats implements Streamable, ToXContent {
         if (o == null || getClass() != o.getClass()) return false;
         FieldDataStats that = (FieldDataStats) o;
         return memorySize == that.memorySize &&
+            offHeapMemorySize == that.offHeapMemorySize &&
             evictions == that.evictions &&
             Objects.equals(fields, that.fields);
     }
 
     @Override
     public int hashCode() {
-        return Objects.hash(memorySize, evictions, fields);
+        return Objects.hash(memorySize, offHeapMemorySize, evictions, fields);
     }
 }
@@ -0,0 +1,54 @@
+/*
+ * Licensed to Elasticsearch under one or more contributor
+ * license agreements. See the NOTICE file distributed with
+ * this work for additional information regarding copyright
+ * ownership. Elasticsearch licenses this file to you under
+ * the Apache License, Version 2.0 (the "License"); you may
+ * not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.elasticsearch.index.fielddata;
+
+import java.io.IOException;
+
+/**
+ * A pre-aggregated histogram, that is a list of values associated with the number of times they occurred. To iterate over the
+ * buckets of the histogram use the following pattern:
+ * <pre>
+ *   HistogramValue histogram = ..;
+ *   while (histogram.next()) {
+ *       double value = histogram.value();
+ *       int count = histogram.count();
+ *       // process bucket
+ *   }
+ * </pre>
+ * The values come in ascending order.
+ */
+public abstract class HistogramValue {
+
+    /**
+     * Advance to the next bucket of the histogram.
+     * @return true if there is a next bucket
+     */
+    public abstract boolean next() throws IOException;
+
+    /**
+     * The value of the current bucket.
+     */
+    public abstract double value();
+
+    /**
+     * The number of times the value of the current bucket occurred.
+     */
+    public abstract int count();
+}
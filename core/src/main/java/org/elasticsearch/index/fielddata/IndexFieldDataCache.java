@@ -21,6 +21,7 @@ package org.elasticsearch.index.fielddata;
 
 import org.apache.lucene.index.DirectoryReader;
 import org.apache.lucene.index.LeafReaderContext;
+import org.apache.lucene.store.Directory;
 import org.apache.lucene.util.Accountable;
 import org.elasticsearch.index.shard.ShardId;
 
@@ -43,6 +44,24 @@ public interface IndexFieldDataCache {
      */
     void clear(String fieldName);
 
+    /**
+     * Loads field data that is kept out of the heap, see {@link OffHeapAccountable}. It is loaded once per segment and shared, even
+     * after it is evicted or cleared from this cache, until the segment is closed, which is when it is closed and its memory released.
+     * Caches that can't share field data across the node refuse to load it, as nothing would bound the memory it uses.
+     */
+    default <FD extends AtomicFieldData & OffHeapAccountable> FD loadOffHeap(LeafReaderContext context, String fieldName,
+                                                                             OffHeapLoader<FD> loader) throws Exception {
+        throw new IllegalArgumentException("field data of [" + fieldName + "] can only be kept out of the heap if it is cached");
+    }
+
+    /**
+     * Loads field data that is kept out of the heap into a file of the given directory.
+     */
+    @FunctionalInterface
+    interface OffHeapLoader<FD extends AtomicFieldData & OffHeapAccountable> {
+        FD load(Directory directory) throws Exception;
+    }
+
     interface Listener {
 
         /**
@@ -54,6 +73,16 @@ public interface IndexFieldDataCache {
          * Called after the fielddata is unloaded
          */
         default void onRemoval(ShardId shardId, String fieldName, boolean wasEvicted, long sizeInBytes){}
+
+        /**
+         * Called after fielddata that is kept out of the heap is loaded, see {@link IndexFieldDataCache#loadOffHeap}
+         */
+        default void onOffHeapLoad(ShardId shardId, String fieldName, long offHeapBytes){}
+
+        /**
+         * Called after fielddata that is kept out of the heap is released, once the segment it was loaded from is closed
+         */
+        default void onOffHeapRelease(ShardId shardId, String fieldName, long offHeapBytes){}
     }
 
     class None implements IndexFieldDataCache {
@@ -52,6 +52,13 @@ public class IndexFieldDataService extends AbstractIndexComponent implements Clo
         }
     }, Property.IndexScope);
 
+    /**
+     * Whether the field data of text fields, which is loaded from the inverted index, is kept in memory-mapped temp files rather than
+     * on the heap. Requires the field data to be cached on the node, see {@link IndexFieldDataCache#loadOffHeap}.
+     */
+    public static final Setting<Boolean> INDEX_FIELDDATA_OFF_HEAP_SETTING =
+        Setting.boolSetting("index.fielddata.off_heap", false, Property.IndexScope);
+
     private final CircuitBreakerService circuitBreakerService;
 
     private final IndicesFieldDataCache indicesFieldDataCache;
@@ -73,6 +80,11 @@ public class IndexFieldDataService extends AbstractIndexComponent implements Clo
     public IndexFieldDataService(IndexSettings indexSettings, IndicesFieldDataCache indicesFieldDataCache,
                                  CircuitBreakerService circuitBreakerService, MapperService mapperService) {
         super(indexSettings);
+        if (indexSettings.getValue(INDEX_FIELDDATA_OFF_HEAP_SETTING)
+                && FIELDDATA_CACHE_VALUE_NODE.equals(indexSettings.getValue(INDEX_FIELDDATA_CACHE_KEY)) == false) {
+            throw new IllegalArgumentException("[" + INDEX_FIELDDATA_OFF_HEAP_SETTING.getKey() + "] requires [" + FIELDDATA_CACHE_KEY
+                + "] to be [" + FIELDDATA_CACHE_VALUE_NODE + "]");
+        }
         this.indicesFieldDataCache = indicesFieldDataCache;
         this.circuitBreakerService = circuitBreakerService;
         this.mapperService = mapperService;
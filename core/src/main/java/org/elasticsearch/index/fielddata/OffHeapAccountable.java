@@ -0,0 +1,33 @@
+/*
+ * Licensed to Elasticsearch under one or more contributor
+ * license agreements. See the NOTICE file distributed with
+ * this work for additional information regarding copyright
+ * ownership. Elasticsearch licenses this file to you under
+ * the Apache License, Version 2.0 (the "License"); you may
+ * not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.elasticsearch.index.fielddata;
+
+/**
+ * Field data that keeps (part of) its data outside of the JVM heap, like in a memory-mapped file. Such memory is not accounted in
+ * {@link org.apache.lucene.util.Accountable#ramBytesUsed()}, so that it is neither counted by the fielddata circuit breaker nor by
+ * the fielddata cache size, but it is reported separately in the {@link FieldDataStats}.
+ */
+public interface OffHeapAccountable {
+
+    /**
+     * Return the memory usage of this object outside of the JVM heap, in bytes.
+     */
+    long offHeapBytesUsed();
+}
@@ -34,6 +34,7 @@ public class ShardFieldData implements IndexFieldDataCache.Listener {
 
     final CounterMetric evictionsMetric = new CounterMetric();
     final CounterMetric totalMetric = new CounterMetric();
+    final CounterMetric offHeapMetric = new CounterMetric();
     final ConcurrentMap<String, CounterMetric> perFieldTotals = ConcurrentCollections.newConcurrentMap();
 
     public FieldDataStats stats(String... fields) {
@@ -46,7 +47,7 @@ public class ShardFieldData implements IndexFieldDataCache.Listener {
                 }
             }
         }
-        return new FieldDataStats(totalMetric.count(), evictionsMetric.count(), fieldTotals == null ? null :
+        return new FieldDataStats(totalMetric.count(), offHeapMetric.count(), evictionsMetric.count(), fieldTotals == null ? null :
             new FieldMemoryStats(fieldTotals));
     }
 
@@ -80,4 +81,14 @@ public class ShardFieldData implements IndexFieldDataCache.Listener {
             }
         }
     }
+
+    @Override
+    public void onOffHeapLoad(ShardId shardId, String fieldName, long offHeapBytes) {
+        offHeapMetric.inc(offHeapBytes);
+    }
+
+    @Override
+    public void onOffHeapRelease(ShardId shardId, String fieldName, long offHeapBytes) {
+        offHeapMetric.dec(offHeapBytes);
+    }
 }
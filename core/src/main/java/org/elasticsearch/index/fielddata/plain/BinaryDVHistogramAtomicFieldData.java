@@ -0,0 +1,124 @@
+/*
+ * Licensed to Elasticsearch under one or more contributor
+ * license agreements. See the NOTICE file distributed with
+ * this work for additional information regarding copyright
+ * ownership. Elasticsearch licenses this file to you under
+ * the Apache License, Version 2.0 (the "License"); you may
+ * not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.elasticsearch.index.fielddata.plain;
+
+import org.apache.lucene.index.BinaryDocValues;
+import org.apache.lucene.store.ByteArrayDataInput;
+import org.apache.lucene.util.Accountable;
+import org.apache.lucene.util.BytesRef;
+import org.elasticsearch.index.fielddata.AtomicHistogramFieldData;
+import org.elasticsearch.index.fielddata.HistogramValue;
+import org.elasticsearch.index.fielddata.HistogramValues;
+import org.elasticsearch.index.fielddata.ScriptDocValues;
+import org.elasticsearch.index.fielddata.SortedBinaryDocValues;
+
+import java.io.IOException;
+import java.util.Collection;
+import java.util.Collections;
+
+/**
+ * The histogram of a document is encoded as a sequence of buckets, each bucket is the count as a vInt followed by the bits of the
+ * value as a long.
+ */
+final class BinaryDVHistogramAtomicFieldData implements AtomicHistogramFieldData {
+
+    private final String fieldName;
+    private final BinaryDocValues values;
+
+    BinaryDVHistogramAtomicFieldData(String fieldName, BinaryDocValues values) {
+        this.fieldName = fieldName;
+        this.values = values;
+    }
+
+    @Override
+    public long ramBytesUsed() {
+        return 0; // not exposed by Lucene
+    }
+
+    @Override
+    public Collection<Accountable> getChildResources() {
+        return Collections.emptyList();
+    }
+
+    @Override
+    public HistogramValues getHistogramValues() throws IOException {
+        final InternalHistogramValue value = new InternalHistogramValue();
+        return new HistogramValues() {
+
+            @Override
+            public boolean advanceExact(int doc) throws IOException {
+                return values.advanceExact(doc);
+            }
+
+            @Override
+            public HistogramValue histogram() throws IOException {
+                value.reset(values.binaryValue());
+                return value;
+            }
+        };
+    }
+
+    @Override
+    public SortedBinaryDocValues getBytesValues() {
+        throw new UnsupportedOperationException("String representation of doc values for histogram field [" + fieldName
+            + "] is not supported");
+    }
+
+    @Override
+    public ScriptDocValues<?> getScriptValues() {
+        throw new UnsupportedOperationException("histogram field [" + fieldName + "] can't be accessed from scripts");
+    }
+
+    @Override
+    public void close() {
+        // no-op
+    }
+
+    private static final class InternalHistogramValue extends HistogramValue {
+
+        private final ByteArrayDataInput in = new ByteArrayDataInput();
+        private double value;
+        private int count;
+
+        void reset(BytesRef bytes) {
+            in.reset(bytes.bytes, bytes.offset, bytes.length);
+        }
+
+        @Override
+        public boolean next() throws IOException {
+            if (in.eof()) {
+                return false;
+            }
+            count = in.readVInt();
+            value = Double.longBitsToDouble(in.readLong());
+            return true;
+        }
+
+        @Override
+        public double value() {
+            return value;
+        }
+
+        @Override
+        public int count() {
+            return count;
+        }
+    }
+}
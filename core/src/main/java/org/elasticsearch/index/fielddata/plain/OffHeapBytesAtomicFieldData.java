@@ -0,0 +1,264 @@
+/*
+ * Licensed to Elasticsearch under one or more contributor
+ * license agreements. See the NOTICE file distributed with
+ * this work for additional information regarding copyright
+ * ownership. Elasticsearch licenses this file to you under
+ * the Apache License, Version 2.0 (the "License"); you may
+ * not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.elasticsearch.index.fielddata.plain;
+
+import org.apache.lucene.index.DocValues;
+import org.apache.lucene.index.SortedSetDocValues;
+import org.apache.lucene.store.Directory;
+import org.apache.lucene.store.IndexInput;
+import org.apache.lucene.store.RandomAccessInput;
+import org.apache.lucene.util.Accountable;
+import org.apache.lucene.util.ArrayUtil;
+import org.apache.lucene.util.BytesRef;
+import org.apache.lucene.util.IOUtils;
+import org.apache.lucene.util.LongValues;
+import org.apache.lucene.util.packed.DirectReader;
+import org.elasticsearch.common.breaker.CircuitBreaker;
+import org.elasticsearch.index.fielddata.AbstractSortedDocValues;
+import org.elasticsearch.index.fielddata.AbstractSortedSetDocValues;
+import org.elasticsearch.index.fielddata.OffHeapAccountable;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.Collection;
+import java.util.Collections;
+
+/**
+ * Text field data whose terms and ordinals live in a memory-mapped file written by {@link OffHeapBytesIndexFieldData}, rather than on
+ * the heap like {@link PagedBytesAtomicFieldData}. The file is made of the following sections:
+ * <ul>
+ *   <li>the bytes of the terms, in term order</li>
+ *   <li>the start offsets of the terms in the term bytes, plus the end offset of the last term</li>
+ *   <li>for single-valued fields, the ordinal plus one of every document, 0 if the document has no value</li>
+ *   <li>for multi-valued fields, the start offsets of the ordinals of every document, plus the end offset of the last document,
+ *   followed by the ordinals of all documents</li>
+ * </ul>
+ * The numbers are encoded with {@link org.apache.lucene.util.packed.DirectWriter} and read in place.
+ */
+final class OffHeapBytesAtomicFieldData extends AbstractAtomicOrdinalsFieldData implements OffHeapAccountable {
+
+    private final Directory directory;
+    private final String fileName;
+    private final IndexInput input;
+    private final RandomAccessInput slice;
+    private final Layout layout;
+    private final CircuitBreaker offHeapBreaker;
+    private final long offHeapBytesUsed;
+
+    /**
+     * The positions and the number of bits per value of the sections of the file.
+     */
+    static final class Layout {
+        final long valueCount;
+        final boolean multiValued;
+        final long termOffsetsStart;
+        final int termOffsetsBits;
+        final long docsStart;
+        final int docsBits;
+        final long ordsStart;
+        final int ordsBits;
+
+        Layout(long valueCount, boolean multiValued, long termOffsetsStart, int termOffsetsBits, long docsStart, int docsBits,
+               long ordsStart, int ordsBits) {
+            this.valueCount = valueCount;
+            this.multiValued = multiValued;
+            this.termOffsetsStart = termOffsetsStart;
+            this.termOffsetsBits = termOffsetsBits;
+            this.docsStart = docsStart;
+            this.docsBits = docsBits;
+            this.ordsStart = ordsStart;
+            this.ordsBits = ordsBits;
+        }
+    }
+
+    OffHeapBytesAtomicFieldData(Directory directory, String fileName, IndexInput input, Layout layout,
+                                CircuitBreaker offHeapBreaker) throws IOException {
+        super(DEFAULT_SCRIPT_FUNCTION);
+        this.directory = directory;
+        this.fileName = fileName;
+        this.input = input;
+        this.slice = input.randomAccessSlice(0, input.length());
+        this.layout = layout;
+        this.offHeapBreaker = offHeapBreaker;
+        this.offHeapBytesUsed = input.length();
+    }
+
+    @Override
+    public long ramBytesUsed() {
+        // the few objects that point to the file, the data itself is off heap
+        return 0;
+    }
+
+    @Override
+    public long offHeapBytesUsed() {
+        return offHeapBytesUsed;
+    }
+
+    @Override
+    public Collection<Accountable> getChildResources() {
+        return Collections.emptyList();
+    }
+
+    /**
+     * Unmaps the file and gives its size back to the off-heap breaker. Called once the segment that the field data was loaded from is
+     * closed, when no search can read the field data anymore. The file is usually already gone, see OffHeapBytesIndexFieldData.
+     */
+    @Override
+    public void close() {
+        try {
+            IOUtils.closeWhileHandlingException(input);
+            IOUtils.deleteFilesIgnoringExceptions(directory, fileName);
+        } finally {
+            offHeapBreaker.addWithoutBreaking(-offHeapBytesUsed);
+        }
+    }
+
+    @Override
+    public SortedSetDocValues getOrdinalsValues() {
+        final TermsLookup terms = new TermsLookup(input.clone(), DirectReader.getInstance(slice, layout.termOffsetsBits,
+            layout.termOffsetsStart));
+        final LongValues docs = DirectReader.getInstance(slice, layout.docsBits, layout.docsStart);
+        if (layout.multiValued) {
+            return new MultiDocs(layout.valueCount, terms, docs, DirectReader.getInstance(slice, layout.ordsBits, layout.ordsStart));
+        } else {
+            return (SortedSetDocValues) DocValues.singleton(new SingleDocs((int) layout.valueCount, terms, docs));
+        }
+    }
+
+    private static final class TermsLookup {
+
+        private final IndexInput bytes;
+        private final LongValues termOffsets;
+        private final BytesRef term = new BytesRef();
+
+        TermsLookup(IndexInput bytes, LongValues termOffsets) {
+            this.bytes = bytes;
+            this.termOffsets = termOffsets;
+        }
+
+        BytesRef lookupOrd(long ord) {
+            assert ord >= 0;
+            final long start = termOffsets.get(ord);
+            final int length = (int) (termOffsets.get(ord + 1) - start);
+            term.bytes = ArrayUtil.grow(term.bytes, length);
+            try {
+                bytes.seek(start);
+                bytes.readBytes(term.bytes, 0, length);
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+            term.length = length;
+            return term;
+        }
+    }
+
+    private static final class SingleDocs extends AbstractSortedDocValues {
+
+        private final int valueCount;
+        private final TermsLookup terms;
+        private final LongValues docs;
+
+        private int currentDoc = -1;
+        private int currentOrd;
+
+        SingleDocs(int valueCount, TermsLookup terms, LongValues docs) {
+            this.valueCount = valueCount;
+            this.terms = terms;
+            this.docs = docs;
+        }
+
+        @Override
+        public boolean advanceExact(int target) throws IOException {
+            currentDoc = target;
+            currentOrd = (int) docs.get(target) - 1;
+            return currentOrd != -1;
+        }
+
+        @Override
+        public int docID() {
+            return currentDoc;
+        }
+
+        @Override
+        public int ordValue() {
+            return currentOrd;
+        }
+
+        @Override
+        public BytesRef lookupOrd(int ord) {
+            return terms.lookupOrd(ord);
+        }
+
+        @Override
+        public int getValueCount() {
+            return valueCount;
+        }
+    }
+
+    private static final class MultiDocs extends AbstractSortedSetDocValues {
+
+        private final long valueCount;
+        private final TermsLookup terms;
+        private final LongValues docs;
+        private final LongValues ords;
+
+        private int currentDoc = -1;
+        private long currentOffset;
+        private long currentEndOffset;
+
+        MultiDocs(long valueCount, TermsLookup terms, LongValues docs, LongValues ords) {
+            this.valueCount = valueCount;
+            this.terms = terms;
+            this.docs = docs;
+            this.ords = ords;
+        }
+
+        @Override
+        public boolean advanceExact(int target) throws IOException {
+            currentDoc = target;
+            currentOffset = docs.get(target);
+            currentEndOffset = docs.get(target + 1);
+            return currentOffset != currentEndOffset;
+        }
+
+        @Override
+        public int docID() {
+            return currentDoc;
+        }
+
+        @Override
+        public long nextOrd() throws IOException {
+            if (currentOffset == currentEndOffset) {
+                return SortedSetDocValues.NO_MORE_ORDS;
+            }
+            return ords.get(currentOffset++);
+        }
+
+        @Override
+        public BytesRef lookupOrd(long ord) {
+            return terms.lookupOrd(ord);
+        }
+
+        @Override
+        public long getValueCount() {
+            return valueCount;
+        }
+    }
+}
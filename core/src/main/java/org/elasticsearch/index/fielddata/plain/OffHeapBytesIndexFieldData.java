@@ -0,0 +1,242 @@
+/*
+ * Licensed to Elasticsearch under one or more contributor
+ * license agreements. See the NOTICE file distributed with
+ * this work for additional information regarding copyright
+ * ownership. Elasticsearch licenses this file to you under
+ * the Apache License, Version 2.0 (the "License"); you may
+ * not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.elasticsearch.index.fielddata.plain;
+
+import org.apache.lucene.index.LeafReader;
+import org.apache.lucene.index.LeafReaderContext;
+import org.apache.lucene.index.PostingsEnum;
+import org.apache.lucene.index.Terms;
+import org.apache.lucene.index.TermsEnum;
+import org.apache.lucene.search.DocIdSetIterator;
+import org.apache.lucene.search.SortField;
+import org.apache.lucene.store.Directory;
+import org.apache.lucene.store.IOContext;
+import org.apache.lucene.store.IndexInput;
+import org.apache.lucene.store.IndexOutput;
+import org.apache.lucene.util.BytesRef;
+import org.apache.lucene.util.IOUtils;
+import org.apache.lucene.util.LongsRef;
+import org.apache.lucene.util.packed.DirectWriter;
+import org.apache.lucene.util.packed.PackedInts;
+import org.apache.lucene.util.packed.PackedLongValues;
+import org.elasticsearch.common.Nullable;
+import org.elasticsearch.common.breaker.CircuitBreaker;
+import org.elasticsearch.index.IndexSettings;
+import org.elasticsearch.index.fielddata.AtomicOrdinalsFieldData;
+import org.elasticsearch.index.fielddata.IndexFieldDataCache;
+import org.elasticsearch.index.fielddata.RamAccountingTermsEnum;
+import org.elasticsearch.index.fielddata.fieldcomparator.BytesRefFieldComparatorSource;
+import org.elasticsearch.index.fielddata.ordinals.OrdinalsBuilder;
+import org.elasticsearch.indices.breaker.CircuitBreakerService;
+import org.elasticsearch.search.MultiValueMode;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+
+/**
+ * Loads the terms and the ordinals of text fields from the inverted index like {@link PagedBytesIndexFieldData}, but writes them to a
+ * temporary file in the temp directory of the node that is memory-mapped, so that text field data does not compete with searches
+ * for heap. See {@link OffHeapBytesAtomicFieldData} for the format of the file.
+ * <p>
+ * The data is only transiently on heap while it is loaded, which is accounted for by the field data circuit breaker. The size of the
+ * file is charged to the {@link CircuitBreaker#FIELDDATA_OFF_HEAP} breaker, and is reported as off-heap memory in the field data stats
+ * rather than counted by the field data cache size. The field data of a segment is loaded once through
+ * {@link IndexFieldDataCache#loadOffHeap} and the file is unmapped when the segment is closed, as searches that read the field data
+ * hold the segment open until they are done.
+ */
+public class OffHeapBytesIndexFieldData extends AbstractIndexOrdinalsFieldData {
+
+    private static final String TEMP_FILE_PREFIX = "fielddata";
+
+    public OffHeapBytesIndexFieldData(IndexSettings indexSettings, String fieldName,
+                                      IndexFieldDataCache cache, CircuitBreakerService breakerService,
+                                      double minFrequency, double maxFrequency, int minSegmentSize) {
+        super(indexSettings, fieldName, cache, breakerService, minFrequency, maxFrequency, minSegmentSize);
+    }
+
+    @Override
+    public SortField sortField(@Nullable Object missingValue, MultiValueMode sortMode, XFieldComparatorSource.Nested nested,
+                               boolean reverse) {
+        XFieldComparatorSource source = new BytesRefFieldComparatorSource(this, missingValue, sortMode, nested);
+        return new SortField(getFieldName(), source, reverse);
+    }
+
+    @Override
+    public AtomicOrdinalsFieldData loadDirect(LeafReaderContext context) throws Exception {
+        final LeafReader reader = context.reader();
+        final Terms terms = reader.terms(getFieldName());
+        if (terms == null) {
+            return AbstractAtomicOrdinalsFieldData.empty();
+        }
+        return cache.loadOffHeap(context, getFieldName(), directory -> load(reader, terms, directory));
+    }
+
+    private OffHeapBytesAtomicFieldData load(LeafReader reader, Terms terms, Directory directory) throws IOException {
+        final CircuitBreaker offHeapBreaker = breakerService.getBreaker(CircuitBreaker.FIELDDATA_OFF_HEAP);
+        final OffHeapBytesEstimator estimator = new OffHeapBytesEstimator(reader, breakerService.getBreaker(CircuitBreaker.FIELDDATA));
+        String fileName = null;
+        IndexInput input = null;
+        long offHeapBytesCharged = 0;
+        boolean success = false;
+        try {
+            final OffHeapBytesAtomicFieldData.Layout layout;
+            final TermsEnum termsEnum = estimator.beforeLoad(terms);
+            try (IndexOutput out = directory.createTempOutput(TEMP_FILE_PREFIX, "text", IOContext.DEFAULT);
+                 OrdinalsBuilder builder = new OrdinalsBuilder(reader.maxDoc(), OrdinalsBuilder.DEFAULT_ACCEPTABLE_OVERHEAD_RATIO)) {
+                fileName = out.getName();
+                layout = write(termsEnum, builder, out);
+            } finally {
+                // nothing stays on the heap once the file is written
+                estimator.afterLoad(termsEnum, 0);
+            }
+            final long offHeapBytes = directory.fileLength(fileName);
+            offHeapBreaker.addEstimateBytesAndMaybeBreak(offHeapBytes, getFieldName());
+            offHeapBytesCharged = offHeapBytes;
+            input = directory.openInput(fileName, IOContext.READ);
+            final OffHeapBytesAtomicFieldData data = new OffHeapBytesAtomicFieldData(directory, fileName, input, layout, offHeapBreaker);
+            // The mapping outlives the file on file systems that allow to delete open files, which saves from leaking the file if
+            // the node stops. On other file systems the file is deleted when the field data is closed.
+            IOUtils.deleteFilesIgnoringExceptions(directory, fileName);
+            success = true;
+            return data;
+        } finally {
+            if (success == false) {
+                IOUtils.closeWhileHandlingException(input);
+                offHeapBreaker.addWithoutBreaking(-offHeapBytesCharged);
+                if (fileName != null) {
+                    IOUtils.deleteFilesIgnoringExceptions(directory, fileName);
+                }
+            }
+        }
+    }
+
+    /**
+     * Estimates the heap that is used while the field data is loaded: the offset of every term and the ordinals of the documents, the
+     * terms themselves are written to the file as they come.
+     */
+    private class OffHeapBytesEstimator implements PerValueEstimator {
+
+        private final LeafReader reader;
+        private final CircuitBreaker breaker;
+        private TermsEnum termsEnum;
+
+        OffHeapBytesEstimator(LeafReader reader, CircuitBreaker breaker) {
+            this.reader = reader;
+            this.breaker = breaker;
+        }
+
+        @Override
+        public long bytesPerValue(BytesRef term) {
+            if (term == null) {
+                return 0;
+            }
+            try {
+                return Long.BYTES + Integer.BYTES * (long) termsEnum.docFreq();
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        }
+
+        /**
+         * Wraps the terms in a {@link RamAccountingTermsEnum}, the total size of the ordinals is not known upfront.
+         */
+        @Override
+        public TermsEnum beforeLoad(Terms terms) throws IOException {
+            termsEnum = filter(terms, terms.iterator(), reader);
+            return new RamAccountingTermsEnum(termsEnum, breaker, this, getFieldName());
+        }
+
+        @Override
+        public void afterLoad(TermsEnum termsEnum, long actualUsed) {
+            breaker.addWithoutBreaking(-(((RamAccountingTermsEnum) termsEnum).getTotalBytes() - actualUsed));
+        }
+    }
+
+    private static OffHeapBytesAtomicFieldData.Layout write(TermsEnum termsEnum, OrdinalsBuilder builder,
+                                                            IndexOutput out) throws IOException {
+        // term bytes, the offsets are buffered until all terms are written
+        final PackedLongValues.Builder termOffsets = PackedLongValues.monotonicBuilder(PackedInts.COMPACT);
+        PostingsEnum docsEnum = null;
+        for (BytesRef term = termsEnum.next(); term != null; term = termsEnum.next()) {
+            final long termOrd = builder.nextOrdinal();
+            assert termOrd == termOffsets.size();
+            termOffsets.add(out.getFilePointer());
+            out.writeBytes(term.bytes, term.offset, term.length);
+            docsEnum = termsEnum.postings(docsEnum, PostingsEnum.NONE);
+            for (int docId = docsEnum.nextDoc(); docId != DocIdSetIterator.NO_MORE_DOCS; docId = docsEnum.nextDoc()) {
+                builder.addDoc(docId);
+            }
+        }
+        final long valueCount = termOffsets.size();
+        termOffsets.add(out.getFilePointer());
+
+        // term offsets
+        final long termOffsetsStart = out.getFilePointer();
+        final int termOffsetsBits = DirectWriter.unsignedBitsRequired(termOffsetsStart);
+        final DirectWriter termOffsetsWriter = DirectWriter.getInstance(out, termOffsets.size(), termOffsetsBits);
+        for (PackedLongValues.Iterator it = termOffsets.build().iterator(); it.hasNext(); ) {
+            termOffsetsWriter.add(it.next());
+        }
+        termOffsetsWriter.finish();
+
+        final int maxDoc = builder.maxDoc();
+        final boolean multiValued = builder.getNumMultiValuesDocs() > 0;
+        final long docsStart = out.getFilePointer();
+        final int docsBits;
+        final long ordsStart;
+        final int ordsBits;
+        if (multiValued) {
+            // offsets of the ordinals of every document, then the ordinals
+            docsBits = DirectWriter.unsignedBitsRequired(builder.getTotalNumOrds());
+            final DirectWriter docsWriter = DirectWriter.getInstance(out, maxDoc + 1, docsBits);
+            long offset = 0;
+            for (int doc = 0; doc < maxDoc; doc++) {
+                docsWriter.add(offset);
+                offset += builder.docOrds(doc).length;
+            }
+            docsWriter.add(offset);
+            docsWriter.finish();
+
+            ordsStart = out.getFilePointer();
+            ordsBits = DirectWriter.unsignedBitsRequired(Math.max(0, valueCount - 1));
+            final DirectWriter ordsWriter = DirectWriter.getInstance(out, builder.getTotalNumOrds(), ordsBits);
+            for (int doc = 0; doc < maxDoc; doc++) {
+                final LongsRef docOrds = builder.docOrds(doc);
+                for (int i = 0; i < docOrds.length; i++) {
+                    ordsWriter.add(docOrds.longs[docOrds.offset + i]);
+                }
+            }
+            ordsWriter.finish();
+        } else {
+            // the ordinal plus one of every document, 0 for documents without a value
+            docsBits = DirectWriter.unsignedBitsRequired(valueCount);
+            final DirectWriter docsWriter = DirectWriter.getInstance(out, maxDoc, docsBits);
+            final PackedInts.Reader firstOrdinals = builder.getFirstOrdinals();
+            for (int doc = 0; doc < maxDoc; doc++) {
+                docsWriter.add(firstOrdinals.get(doc));
+            }
+            docsWriter.finish();
+            ordsStart = -1;
+            ordsBits = -1;
+        }
+        return new OffHeapBytesAtomicFieldData.Layout(valueCount, multiValued, termOffsetsStart, termOffsetsBits, docsStart, docsBits,
+            ordsStart, ordsBits);
+    }
+}
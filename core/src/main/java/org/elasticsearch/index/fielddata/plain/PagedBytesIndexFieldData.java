@@ -38,6 +38,7 @@ import org.elasticsearch.index.IndexSettings;
 import org.elasticsearch.index.fielddata.AtomicOrdinalsFieldData;
 import org.elasticsearch.index.fielddata.IndexFieldData;
 import org.elasticsearch.index.fielddata.IndexFieldDataCache;
+import org.elasticsearch.index.fielddata.IndexFieldDataService;
 import org.elasticsearch.index.fielddata.IndexOrdinalsFieldData;
 import org.elasticsearch.index.fielddata.RamAccountingTermsEnum;
 import org.elasticsearch.index.fielddata.fieldcomparator.BytesRefFieldComparatorSource;
@@ -67,6 +68,10 @@ public class PagedBytesIndexFieldData extends AbstractIndexOrdinalsFieldData {
         @Override
         public IndexOrdinalsFieldData build(IndexSettings indexSettings, MappedFieldType fieldType,
                                                                IndexFieldDataCache cache, CircuitBreakerService breakerService, MapperService mapperService) {
+            if (indexSettings.getValue(IndexFieldDataService.INDEX_FIELDDATA_OFF_HEAP_SETTING)) {
+                return new OffHeapBytesIndexFieldData(indexSettings, fieldType.name(), cache, breakerService,
+                    minFrequency, maxFrequency, minSegmentSize);
+            }
             return new PagedBytesIndexFieldData(indexSettings, fieldType.name(), cache, breakerService,
                     minFrequency, maxFrequency, minSegmentSize);
         }
@@ -176,6 +176,7 @@ public final class ShardGetService extends AbstractIndexShardComponent {
         Map<String, GetField> fields = null;
         BytesReference source = null;
         DocIdAndVersion docIdAndVersion = get.docIdAndVersion();
+        DocumentMapper docMapper = mapperService.documentMapper(type);
         FieldsVisitor fieldVisitor = buildFieldsVisitors(gFields, fetchSourceContext);
         if (fieldVisitor != null) {
             try {
@@ -184,6 +185,13 @@ public final class ShardGetService extends AbstractIndexShardComponent {
                 throw new ElasticsearchException("Failed to get type [" + type + "] and id [" + id + "]", e);
             }
             source = fieldVisitor.source();
+            if (source == null && fetchSourceContext.fetchSource() && docMapper.syntheticSourceLoader() != null) {
+                try {
+                    source = docMapper.syntheticSourceLoader().load(docIdAndVersion.context.reader(), docIdAndVersion.docId);
+                } catch (IOException e) {
+                    throw new ElasticsearchException("Failed to load synthetic source of type [" + type + "] and id [" + id + "]", e);
+                }
+            }
 
             if (!fieldVisitor.fields().isEmpty()) {
                 fieldVisitor.postProcess(mapperService);
@@ -194,7 +202,6 @@ public final class ShardGetService extends AbstractIndexShardComponent {
             }
         }
 
-        DocumentMapper docMapper = mapperService.documentMapper(type);
         if (docMapper.parentFieldMapper().active()) {
             String parentId = ParentFieldSubFetchPhase.getParentId(docMapper.parentFieldMapper(), docIdAndVersion.context.reader(), docIdAndVersion.docId);
             if (fields == null) {
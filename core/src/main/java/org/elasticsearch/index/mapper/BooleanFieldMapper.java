@@ -256,6 +256,14 @@ public class BooleanFieldMapper extends FieldMapper {
         }
     }
 
+    @Override
+    protected SyntheticSourceLoader.FieldLoader syntheticFieldLoader() {
+        if (fieldType().hasDocValues() == false) {
+            return null;
+        }
+        return SyntheticSourceLoader.sortedNumeric(name(), value -> value != 0);
+    }
+
     @Override
     protected String contentType() {
         return CONTENT_TYPE;
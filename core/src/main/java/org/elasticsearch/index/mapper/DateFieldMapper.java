@@ -430,6 +430,15 @@ public class DateFieldMapper extends FieldMapper {
         return (DateFieldType) super.fieldType();
     }
 
+    @Override
+    protected SyntheticSourceLoader.FieldLoader syntheticFieldLoader() {
+        if (fieldType().hasDocValues() == false) {
+            return null;
+        }
+        final DocValueFormat format = fieldType().docValueFormat(null, DateTimeZone.UTC);
+        return SyntheticSourceLoader.sortedNumeric(name(), value -> format.format(value));
+    }
+
     @Override
     protected String contentType() {
         return fieldType.typeName();
@@ -0,0 +1,285 @@
+/*
+ * Licensed to Elasticsearch under one or more contributor
+ * license agreements. See the NOTICE file distributed with
+ * this work for additional information regarding copyright
+ * ownership. Elasticsearch licenses this file to you under
+ * the Apache License, Version 2.0 (the "License"); you may
+ * not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.elasticsearch.index.mapper;
+
+import org.apache.lucene.document.BinaryDocValuesField;
+import org.apache.lucene.index.IndexOptions;
+import org.apache.lucene.index.IndexableField;
+import org.apache.lucene.search.Query;
+import org.apache.lucene.util.BytesRef;
+import org.elasticsearch.common.settings.Settings;
+import org.elasticsearch.common.xcontent.XContentBuilder;
+import org.elasticsearch.common.xcontent.XContentParser;
+import org.elasticsearch.common.xcontent.support.XContentMapValues;
+import org.elasticsearch.index.query.QueryShardContext;
+import org.elasticsearch.index.query.QueryShardException;
+import org.elasticsearch.index.search.VectorSimilarityQuery;
+
+import java.io.IOException;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+
+import static org.elasticsearch.common.xcontent.XContentParserUtils.ensureExpectedToken;
+import static org.elasticsearch.index.mapper.TypeParsers.parseField;
+
+/**
+ * A field mapper for vectors of floats of a fixed number of dimensions, like the embeddings computed by machine learning models:
+ * <pre>
+ *   "embedding": [0.12, -0.5, 0.33]
+ * </pre>
+ * The vector is not indexed but kept in binary doc values, as the little-endian bits of each dimension followed by the bits of the
+ * magnitude of the vector, so that a document is decoded with a bulk copy and the cosine similarity doesn't need to compute the
+ * magnitude of every vector it scores. Documents are searched by their similarity with a query vector with a
+ * {@link VectorSimilarityQuery}.
+ */
+public final class DenseVectorFieldMapper extends FieldMapper implements ArrayValueMapperParser {
+
+    public static final String CONTENT_TYPE = "dense_vector";
+
+    public static final int MAX_DIMS = 2048;
+
+    public static class Defaults {
+        public static final MappedFieldType FIELD_TYPE = new DenseVectorFieldType();
+
+        static {
+            FIELD_TYPE.freeze();
+        }
+    }
+
+    public static class Builder extends FieldMapper.Builder<Builder, DenseVectorFieldMapper> {
+
+        private int dims = -1;
+
+        public Builder(String name) {
+            super(name, Defaults.FIELD_TYPE, Defaults.FIELD_TYPE);
+            builder = this;
+        }
+
+        public Builder dims(int dims) {
+            if (dims < 1 || dims > MAX_DIMS) {
+                throw new IllegalArgumentException("[dims] of [" + CONTENT_TYPE + "] field [" + name + "] must be between 1 and "
+                    + MAX_DIMS + ", got [" + dims + "]");
+            }
+            this.dims = dims;
+            return this;
+        }
+
+        @Override
+        public Builder index(boolean index) {
+            if (index) {
+                throw new IllegalArgumentException("[" + CONTENT_TYPE + "] fields can't be indexed");
+            }
+            return super.index(index);
+        }
+
+        @Override
+        public Builder store(boolean store) {
+            if (store) {
+                throw new IllegalArgumentException("[" + CONTENT_TYPE + "] fields can't be stored");
+            }
+            return super.store(store);
+        }
+
+        @Override
+        public Builder docValues(boolean docValues) {
+            if (docValues == false) {
+                throw new IllegalArgumentException("[" + CONTENT_TYPE + "] fields always have doc values");
+            }
+            return super.docValues(docValues);
+        }
+
+        @Override
+        protected void setupFieldType(BuilderContext context) {
+            super.setupFieldType(context);
+            ((DenseVectorFieldType) fieldType).setDims(dims);
+        }
+
+        @Override
+        public DenseVectorFieldMapper build(BuilderContext context) {
+            if (dims == -1) {
+                throw new IllegalArgumentException("Field [" + name + "] misses required parameter [dims]");
+            }
+            setupFieldType(context);
+            return new DenseVectorFieldMapper(name, fieldType, defaultFieldType, context.indexSettings(),
+                multiFieldsBuilder.build(this, context), copyTo);
+        }
+    }
+
+    public static class TypeParser implements Mapper.TypeParser {
+        @Override
+        public Mapper.Builder<?, ?> parse(String name, Map<String, Object> node, ParserContext parserContext)
+                throws MapperParsingException {
+            DenseVectorFieldMapper.Builder builder = new DenseVectorFieldMapper.Builder(name);
+            parseField(builder, name, node, parserContext);
+            for (Iterator<Map.Entry<String, Object>> iterator = node.entrySet().iterator(); iterator.hasNext();) {
+                Map.Entry<String, Object> entry = iterator.next();
+                if (entry.getKey().equals("dims")) {
+                    builder.dims(XContentMapValues.nodeIntegerValue(entry.getValue()));
+                    iterator.remove();
+                }
+            }
+            return builder;
+        }
+    }
+
+    public static final class DenseVectorFieldType extends MappedFieldType {
+
+        private int dims;
+
+        public DenseVectorFieldType() {
+            setTokenized(false);
+            setHasDocValues(true);
+            setIndexOptions(IndexOptions.NONE);
+        }
+
+        protected DenseVectorFieldType(DenseVectorFieldType ref) {
+            super(ref);
+            this.dims = ref.dims;
+        }
+
+        @Override
+        public DenseVectorFieldType clone() {
+            return new DenseVectorFieldType(this);
+        }
+
+        @Override
+        public String typeName() {
+            return CONTENT_TYPE;
+        }
+
+        public int getDims() {
+            return dims;
+        }
+
+        public void setDims(int dims) {
+            checkIfFrozen();
+            this.dims = dims;
+        }
+
+        @Override
+        public void checkCompatibility(MappedFieldType other, List<String> conflicts, boolean strict) {
+            super.checkCompatibility(other, conflicts, strict);
+            if (dims != ((DenseVectorFieldType) other).getDims()) {
+                conflicts.add("mapper [" + name() + "] has different [dims] values");
+            }
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (super.equals(o) == false) {
+                return false;
+            }
+            return dims == ((DenseVectorFieldType) o).dims;
+        }
+
+        @Override
+        public int hashCode() {
+            return 31 * super.hashCode() + dims;
+        }
+
+        @Override
+        public Query termQuery(Object value, QueryShardContext context) {
+            throw new QueryShardException(context, "[" + CONTENT_TYPE + "] field [" + name() + "] does not support term queries, use a "
+                + "[vector_similarity] query instead");
+        }
+
+        /**
+         * Creates a query that scores the documents that have a vector, and that match the filter if it isn't <code>null</code>, by the
+         * similarity of their vector with the given one.
+         */
+        public Query similarityQuery(float[] queryVector, VectorSimilarityQuery.Similarity similarity, Query filter,
+                                     QueryShardContext context) {
+            if (queryVector.length != dims) {
+                throw new QueryShardException(context, "the query vector has [" + queryVector.length + "] dimensions but ["
+                    + CONTENT_TYPE + "] field [" + name() + "] has [" + dims + "]");
+            }
+            if (similarity == VectorSimilarityQuery.Similarity.COSINE) {
+                boolean zero = true;
+                for (float value : queryVector) {
+                    zero &= value == 0;
+                }
+                if (zero) {
+                    throw new QueryShardException(context, "the [" + similarity + "] similarity is undefined for a query vector whose "
+                        + "magnitude is 0");
+                }
+            }
+            return new VectorSimilarityQuery(name(), queryVector, similarity, filter);
+        }
+    }
+
+    private DenseVectorFieldMapper(String simpleName, MappedFieldType fieldType, MappedFieldType defaultFieldType,
+                                   Settings indexSettings, MultiFields multiFields, CopyTo copyTo) {
+        super(simpleName, fieldType, defaultFieldType, indexSettings, multiFields, copyTo);
+    }
+
+    @Override
+    public DenseVectorFieldType fieldType() {
+        return (DenseVectorFieldType) super.fieldType();
+    }
+
+    @Override
+    protected void parseCreateField(ParseContext context, List<IndexableField> fields) throws IOException {
+        XContentParser parser = context.parser();
+        if (parser.currentToken() == XContentParser.Token.VALUE_NULL) {
+            return;
+        }
+        if (context.doc().getByKey(fieldType().name()) != null) {
+            throw new IllegalArgumentException("[" + CONTENT_TYPE + "] field [" + name() + "] doesn't support multiple values per "
+                + "document");
+        }
+        ensureExpectedToken(XContentParser.Token.START_ARRAY, parser.currentToken(), parser::getTokenLocation);
+        final int dims = fieldType().getDims();
+        final byte[] bytes = new byte[VectorSimilarityQuery.encodedLength(dims)];
+        int dim = 0;
+        double squaredMagnitude = 0;
+        for (XContentParser.Token token = parser.nextToken(); token != XContentParser.Token.END_ARRAY; token = parser.nextToken()) {
+            ensureExpectedToken(XContentParser.Token.VALUE_NUMBER, token, parser::getTokenLocation);
+            if (dim == dims) {
+                throw new IllegalArgumentException("[" + CONTENT_TYPE + "] field [" + name() + "] has [" + dims
+                    + "] dimensions but the document has more");
+            }
+            float value = parser.floatValue();
+            if (Float.isFinite(value) == false) {
+                throw new IllegalArgumentException("[" + CONTENT_TYPE + "] field [" + name() + "] only supports finite values, got ["
+                    + value + "]");
+            }
+            VectorSimilarityQuery.encodeFloat(value, bytes, dim++);
+            squaredMagnitude += (double) value * value;
+        }
+        if (dim != dims) {
+            throw new IllegalArgumentException("[" + CONTENT_TYPE + "] field [" + name() + "] has [" + dims
+                + "] dimensions but the document has [" + dim + "]");
+        }
+        VectorSimilarityQuery.encodeFloat((float) Math.sqrt(squaredMagnitude), bytes, dims);
+        context.doc().addWithKey(fieldType().name(), new BinaryDocValuesField(fieldType().name(), new BytesRef(bytes)));
+    }
+
+    @Override
+    protected void doXContentBody(XContentBuilder builder, boolean includeDefaults, Params params) throws IOException {
+        super.doXContentBody(builder, includeDefaults, params);
+        builder.field("dims", fieldType().getDims());
+    }
+
+    @Override
+    protected String contentType() {
+        return CONTENT_TYPE;
+    }
+}
@@ -20,26 +20,32 @@
 package org.elasticsearch.index.mapper;
 
 import org.apache.lucene.analysis.Analyzer;
+import org.elasticsearch.common.collect.CopyOnWriteHashMap;
 import org.elasticsearch.common.regex.Regex;
 import org.elasticsearch.index.analysis.FieldNameAnalyzer;
 
+import java.util.ArrayList;
 import java.util.Collection;
-import java.util.Collections;
 import java.util.HashMap;
 import java.util.HashSet;
 import java.util.Iterator;
+import java.util.List;
 import java.util.Map;
 import java.util.Set;
 
 public final class DocumentFieldMappers implements Iterable<FieldMapper> {
 
     /** Full field name to mapper */
-    private final Map<String, FieldMapper> fieldMappers;
+    private final CopyOnWriteHashMap<String, FieldMapper> fieldMappers;
 
     private final FieldNameAnalyzer indexAnalyzer;
     private final FieldNameAnalyzer searchAnalyzer;
     private final FieldNameAnalyzer searchQuoteAnalyzer;
 
+    private final Analyzer defaultIndex;
+    private final Analyzer defaultSearch;
+    private final Analyzer defaultSearchQuote;
+
     private static void put(Map<String, Analyzer> analyzers, String key, Analyzer value, Analyzer defaultValue) {
         if (value == null) {
             value = defaultValue;
@@ -48,21 +54,58 @@ public final class DocumentFieldMappers implements Iterable<FieldMapper> {
     }
 
     public DocumentFieldMappers(Collection<FieldMapper> mappers, Analyzer defaultIndex, Analyzer defaultSearch, Analyzer defaultSearchQuote) {
-        Map<String, FieldMapper> fieldMappers = new HashMap<>();
+        this(new CopyOnWriteHashMap<>(),
+            new FieldNameAnalyzer(new CopyOnWriteHashMap<>()),
+            new FieldNameAnalyzer(new CopyOnWriteHashMap<>()),
+            new FieldNameAnalyzer(new CopyOnWriteHashMap<>()),
+            mappers, defaultIndex, defaultSearch, defaultSearchQuote);
+    }
+
+    private DocumentFieldMappers(CopyOnWriteHashMap<String, FieldMapper> fieldMappers, FieldNameAnalyzer indexAnalyzer,
+                                 FieldNameAnalyzer searchAnalyzer, FieldNameAnalyzer searchQuoteAnalyzer, Collection<FieldMapper> mappers,
+                                 Analyzer defaultIndex, Analyzer defaultSearch, Analyzer defaultSearchQuote) {
+        Map<String, FieldMapper> newFieldMappers = new HashMap<>();
         Map<String, Analyzer> indexAnalyzers = new HashMap<>();
         Map<String, Analyzer> searchAnalyzers = new HashMap<>();
         Map<String, Analyzer> searchQuoteAnalyzers = new HashMap<>();
         for (FieldMapper mapper : mappers) {
-            fieldMappers.put(mapper.name(), mapper);
+            newFieldMappers.put(mapper.name(), mapper);
             MappedFieldType fieldType = mapper.fieldType();
             put(indexAnalyzers, fieldType.name(), fieldType.indexAnalyzer(), defaultIndex);
             put(searchAnalyzers, fieldType.name(), fieldType.searchAnalyzer(), defaultSearch);
             put(searchQuoteAnalyzers, fieldType.name(), fieldType.searchQuoteAnalyzer(), defaultSearchQuote);
         }
-        this.fieldMappers = Collections.unmodifiableMap(fieldMappers);
-        this.indexAnalyzer = new FieldNameAnalyzer(indexAnalyzers);
-        this.searchAnalyzer = new FieldNameAnalyzer(searchAnalyzers);
-        this.searchQuoteAnalyzer = new FieldNameAnalyzer(searchQuoteAnalyzers);
+        this.fieldMappers = fieldMappers.copyAndPutAll(newFieldMappers);
+        this.indexAnalyzer = indexAnalyzer.copyAndAddAll(indexAnalyzers);
+        this.searchAnalyzer = searchAnalyzer.copyAndAddAll(searchAnalyzers);
+        this.searchQuoteAnalyzer = searchQuoteAnalyzer.copyAndAddAll(searchQuoteAnalyzers);
+        this.defaultIndex = defaultIndex;
+        this.defaultSearch = defaultSearch;
+        this.defaultSearchQuote = defaultSearchQuote;
+    }
+
+    /**
+     * Return the field mappers of a new version of the mapping that holds the given mappers. The entries of the mappers that are
+     * shared by both versions of the mapping are shared with this instance, so a merge that changes a few fields of a large mapping
+     * only copies the entries of these fields. Merges never remove fields, if the new version of the mapping doesn't hold all the
+     * fields of this one then the field mappers are built from scratch.
+     */
+    public DocumentFieldMappers copyAndUpdate(Collection<FieldMapper> mappers) {
+        List<FieldMapper> changed = new ArrayList<>();
+        for (FieldMapper mapper : mappers) {
+            if (fieldMappers.get(mapper.name()) != mapper) {
+                changed.add(mapper);
+            }
+        }
+        if (changed.isEmpty() && mappers.size() == fieldMappers.size()) {
+            return this;
+        }
+        DocumentFieldMappers updated = new DocumentFieldMappers(fieldMappers, indexAnalyzer, searchAnalyzer, searchQuoteAnalyzer, changed,
+            defaultIndex, defaultSearch, defaultSearchQuote);
+        if (updated.fieldMappers.size() != mappers.size()) {
+            return new DocumentFieldMappers(mappers, defaultIndex, defaultSearch, defaultSearchQuote);
+        }
+        return updated;
     }
 
     /** Returns the mapper for the given field */
@@ -24,6 +24,8 @@ import org.apache.lucene.search.Query;
 import org.apache.lucene.search.Scorer;
 import org.apache.lucene.search.Weight;
 import org.elasticsearch.ElasticsearchGenerationException;
+import org.elasticsearch.common.Nullable;
+import org.elasticsearch.common.collect.CopyOnWriteHashMap;
 import org.elasticsearch.common.compress.CompressedXContent;
 import org.elasticsearch.common.settings.Settings;
 import org.elasticsearch.common.text.Text;
@@ -38,7 +40,6 @@ import org.elasticsearch.search.internal.SearchContext;
 
 import java.io.IOException;
 import java.util.ArrayList;
-import java.util.Collections;
 import java.util.HashMap;
 import java.util.LinkedHashMap;
 import java.util.List;
@@ -118,11 +119,20 @@ public class DocumentMapper implements ToXContent {
 
     private final DocumentFieldMappers fieldMappers;
 
-    private final Map<String, ObjectMapper> objectMappers;
+    private final CopyOnWriteHashMap<String, ObjectMapper> objectMappers;
 
     private final boolean hasNestedObjects;
 
+    private final SyntheticSourceLoader syntheticSourceLoader;
+
     public DocumentMapper(MapperService mapperService, Mapping mapping) {
+        this(mapperService, mapping, null);
+    }
+
+    /**
+     * @param previous a previous version of this mapper, whose lookup structures are shared for the mappers that didn't change
+     */
+    private DocumentMapper(MapperService mapperService, Mapping mapping, @Nullable DocumentMapper previous) {
         this.mapperService = mapperService;
         this.type = mapping.root().name();
         this.typeText = new Text(this.type);
@@ -145,22 +155,39 @@ public class DocumentMapper implements ToXContent {
         }
         MapperUtils.collect(this.mapping.root, newObjectMappers, newFieldMappers);
 
-        final IndexAnalyzers indexAnalyzers = mapperService.getIndexAnalyzers();
-        this.fieldMappers = new DocumentFieldMappers(newFieldMappers,
-                indexAnalyzers.getDefaultIndexAnalyzer(),
-                indexAnalyzers.getDefaultSearchAnalyzer(),
-                indexAnalyzers.getDefaultSearchQuoteAnalyzer());
+        if (previous != null) {
+            this.fieldMappers = previous.fieldMappers.copyAndUpdate(newFieldMappers);
+        } else {
+            final IndexAnalyzers indexAnalyzers = mapperService.getIndexAnalyzers();
+            this.fieldMappers = new DocumentFieldMappers(newFieldMappers,
+                    indexAnalyzers.getDefaultIndexAnalyzer(),
+                    indexAnalyzers.getDefaultSearchAnalyzer(),
+                    indexAnalyzers.getDefaultSearchQuoteAnalyzer());
+        }
 
-        Map<String, ObjectMapper> builder = new HashMap<>();
-        for (ObjectMapper objectMapper : newObjectMappers) {
-            ObjectMapper previous = builder.put(objectMapper.fullPath(), objectMapper);
-            if (previous != null) {
-                throw new IllegalStateException("duplicate key " + objectMapper.fullPath() + " encountered");
+        CopyOnWriteHashMap<String, ObjectMapper> objectMappers = null;
+        if (previous != null) {
+            // merges never remove objects, so the objects of the previous version only need to be replaced by the ones that changed
+            objectMappers = previous.objectMappers;
+            for (ObjectMapper objectMapper : newObjectMappers) {
+                if (objectMappers.get(objectMapper.fullPath()) != objectMapper) {
+                    objectMappers = objectMappers.copyAndPut(objectMapper.fullPath(), objectMapper);
+                }
             }
         }
+        if (objectMappers == null || objectMappers.size() != newObjectMappers.size()) {
+            Map<String, ObjectMapper> builder = new HashMap<>();
+            for (ObjectMapper objectMapper : newObjectMappers) {
+                ObjectMapper existing = builder.put(objectMapper.fullPath(), objectMapper);
+                if (existing != null) {
+                    throw new IllegalStateException("duplicate key " + objectMapper.fullPath() + " encountered");
+                }
+            }
+            objectMappers = CopyOnWriteHashMap.copyOf(builder);
+        }
 
         boolean hasNestedObjects = false;
-        this.objectMappers = Collections.unmodifiableMap(builder);
+        this.objectMappers = objectMappers;
         for (ObjectMapper objectMapper : newObjectMappers) {
             if (objectMapper.nested().isNested()) {
                 hasNestedObjects = true;
@@ -168,6 +195,9 @@ public class DocumentMapper implements ToXContent {
         }
         this.hasNestedObjects = hasNestedObjects;
 
+        // fails mappings with fields that can't be rebuilt from doc values
+        this.syntheticSourceLoader = sourceMapper().isSynthetic() ? new SyntheticSourceLoader(mapping.root) : null;
+
         try {
             mappingSource = new CompressedXContent(this, XContentType.JSON, ToXContent.EMPTY_PARAMS);
         } catch (Exception e) {
@@ -220,6 +250,14 @@ public class DocumentMapper implements ToXContent {
         return metadataMapper(SourceFieldMapper.class);
     }
 
+    /**
+     * Returns the loader that rebuilds the source of documents of this type, or <code>null</code> if the source is stored.
+     */
+    @Nullable
+    public SyntheticSourceLoader syntheticSourceLoader() {
+        return syntheticSourceLoader;
+    }
+
     public AllFieldMapper allFieldMapper() {
         return metadataMapper(AllFieldMapper.class);
     }
@@ -316,7 +354,7 @@ public class DocumentMapper implements ToXContent {
 
     public DocumentMapper merge(Mapping mapping, boolean updateAllTypes) {
         Mapping merged = this.mapping.merge(mapping, updateAllTypes);
-        return new DocumentMapper(mapperService, merged);
+        return new DocumentMapper(mapperService, merged, this);
     }
 
     /**
@@ -329,7 +367,7 @@ public class DocumentMapper implements ToXContent {
             return this;
         }
         assert updated == updated.updateFieldType(fullNameToFieldType) : "updateFieldType operation is not idempotent";
-        return new DocumentMapper(mapperService, updated);
+        return new DocumentMapper(mapperService, updated, this);
     }
 
     @Override
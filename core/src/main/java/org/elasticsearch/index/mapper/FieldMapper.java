@@ -25,6 +25,7 @@ import org.apache.lucene.document.FieldType;
 import org.apache.lucene.index.IndexOptions;
 import org.apache.lucene.index.IndexableField;
 import org.elasticsearch.Version;
+import org.elasticsearch.common.Nullable;
 import org.elasticsearch.common.collect.ImmutableOpenMap;
 import org.elasticsearch.common.lucene.Lucene;
 import org.elasticsearch.common.settings.Setting;
@@ -299,6 +300,15 @@ public abstract class FieldMapper extends Mapper implements Cloneable {
      */
     protected abstract void parseCreateField(ParseContext context, List<IndexableField> fields) throws IOException;
 
+    /**
+     * Returns the loader that rebuilds the values of this field from doc values when the <code>_source</code> is synthetic, or
+     * <code>null</code> if the values of this field can't be rebuilt.
+     */
+    @Nullable
+    protected SyntheticSourceLoader.FieldLoader syntheticFieldLoader() {
+        return null;
+    }
+
     @Override
     public Iterator<Mapper> iterator() {
         return multiFields.iterator();
@@ -75,7 +75,9 @@ class FieldTypeLookup implements Iterable<MappedFieldType> {
     /**
      * Return a new instance that contains the union of this instance and the field types
      * from the provided fields. If a field already exists, the field type will be updated
-     * to use the new mappers field type.
+     * to use the new mappers field type. The fields whose field type is already the one of
+     * this instance are skipped, so adding a merged mapping only costs the fields that the
+     * merge changed, and this instance is returned if there are none.
      */
     public FieldTypeLookup copyAndAddAll(String type, Collection<FieldMapper> fieldMappers, boolean updateAllTypes) {
         Objects.requireNonNull(type, "type must not be null");
@@ -90,6 +92,11 @@ class FieldTypeLookup implements Iterable<MappedFieldType> {
             MappedFieldType fieldType = fieldMapper.fieldType();
             MappedFieldType fullNameFieldType = fullName.get(fieldType.name());
 
+            if (fieldType == fullNameFieldType && getTypes(fieldType.name()).contains(type)) {
+                // this mapper was checked when its field type was added
+                continue;
+            }
+
             // is the update even legal?
             checkCompatibility(type, fieldMapper, updateAllTypes);
 
@@ -99,6 +106,9 @@ class FieldTypeLookup implements Iterable<MappedFieldType> {
 
             fullNameToTypes = addType(fullNameToTypes, fieldType.name(), type);
         }
+        if (fullName == this.fullNameToFieldType && fullNameToTypes == this.fullNameToTypes) {
+            return this;
+        }
         return new FieldTypeLookup(fullName, fullNameToTypes);
     }
 
@@ -0,0 +1,262 @@
+/*
+ * Licensed to Elasticsearch under one or more contributor
+ * license agreements. See the NOTICE file distributed with
+ * this work for additional information regarding copyright
+ * ownership. Elasticsearch licenses this file to you under
+ * the Apache License, Version 2.0 (the "License"); you may
+ * not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.elasticsearch.index.mapper;
+
+import org.apache.lucene.document.BinaryDocValuesField;
+import org.apache.lucene.index.BinaryDocValues;
+import org.apache.lucene.index.DocValues;
+import org.apache.lucene.index.IndexOptions;
+import org.apache.lucene.index.IndexableField;
+import org.apache.lucene.search.Query;
+import org.apache.lucene.store.ByteArrayDataInput;
+import org.apache.lucene.store.ByteArrayDataOutput;
+import org.apache.lucene.util.BytesRef;
+import org.elasticsearch.common.ParseField;
+import org.elasticsearch.common.settings.Settings;
+import org.elasticsearch.common.xcontent.XContentParser;
+import org.elasticsearch.index.fielddata.IndexFieldData;
+import org.elasticsearch.index.fielddata.plain.BinaryDVHistogramIndexFieldData;
+import org.elasticsearch.index.query.QueryShardContext;
+import org.elasticsearch.index.query.QueryShardException;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.elasticsearch.common.xcontent.XContentParserUtils.ensureExpectedToken;
+import static org.elasticsearch.index.mapper.TypeParsers.parseField;
+
+/**
+ * A field mapper for pre-aggregated histograms, like the latency histograms that metrics agents compute. A document holds a single
+ * histogram made of an array of ascending <code>values</code> and the array of the <code>counts</code> of these values:
+ * <pre>
+ *   "latency": {
+ *       "values": [0.1, 0.25, 0.5, 1.0],
+ *       "counts": [3, 7, 23, 12]
+ *   }
+ * </pre>
+ * The histogram is not indexed but kept in binary doc values, as a vInt count followed by the bits of the value as a long per bucket.
+ * Buckets whose count is zero are not stored. The <code>percentiles</code> and <code>percentile_ranks</code> aggregations merge these
+ * histograms rather than the raw values, so that a single document can stand for as many samples as the sum of its counts.
+ */
+public final class HistogramFieldMapper extends FieldMapper {
+
+    public static final String CONTENT_TYPE = "histogram";
+
+    public static final ParseField VALUES_FIELD = new ParseField("values");
+    public static final ParseField COUNTS_FIELD = new ParseField("counts");
+
+    public static class Defaults {
+        public static final MappedFieldType FIELD_TYPE = new HistogramFieldType();
+
+        static {
+            FIELD_TYPE.freeze();
+        }
+    }
+
+    public static class Builder extends FieldMapper.Builder<Builder, HistogramFieldMapper> {
+
+        public Builder(String name) {
+            super(name, Defaults.FIELD_TYPE, Defaults.FIELD_TYPE);
+            builder = this;
+        }
+
+        @Override
+        public Builder index(boolean index) {
+            if (index) {
+                throw new IllegalArgumentException("[" + CONTENT_TYPE + "] fields can't be indexed");
+            }
+            return super.index(index);
+        }
+
+        @Override
+        public Builder store(boolean store) {
+            if (store) {
+                throw new IllegalArgumentException("[" + CONTENT_TYPE + "] fields can't be stored");
+            }
+            return super.store(store);
+        }
+
+        @Override
+        public Builder docValues(boolean docValues) {
+            if (docValues == false) {
+                throw new IllegalArgumentException("[" + CONTENT_TYPE + "] fields always have doc values");
+            }
+            return super.docValues(docValues);
+        }
+
+        @Override
+        public HistogramFieldMapper build(BuilderContext context) {
+            setupFieldType(context);
+            return new HistogramFieldMapper(name, fieldType, defaultFieldType, context.indexSettings(),
+                multiFieldsBuilder.build(this, context), copyTo);
+        }
+    }
+
+    public static class TypeParser implements Mapper.TypeParser {
+        @Override
+        public Mapper.Builder<?, ?> parse(String name, Map<String, Object> node, ParserContext parserContext)
+                throws MapperParsingException {
+            HistogramFieldMapper.Builder builder = new HistogramFieldMapper.Builder(name);
+            parseField(builder, name, node, parserContext);
+            return builder;
+        }
+    }
+
+    public static final class HistogramFieldType extends MappedFieldType {
+
+        public HistogramFieldType() {
+            setTokenized(false);
+            setHasDocValues(true);
+            setIndexOptions(IndexOptions.NONE);
+        }
+
+        protected HistogramFieldType(HistogramFieldType ref) {
+            super(ref);
+        }
+
+        @Override
+        public HistogramFieldType clone() {
+            return new HistogramFieldType(this);
+        }
+
+        @Override
+        public String typeName() {
+            return CONTENT_TYPE;
+        }
+
+        @Override
+        public IndexFieldData.Builder fielddataBuilder() {
+            failIfNoDocValues();
+            return new BinaryDVHistogramIndexFieldData.Builder();
+        }
+
+        @Override
+        public Query termQuery(Object value, QueryShardContext context) {
+            throw new QueryShardException(context, "[" + CONTENT_TYPE + "] field [" + name() + "] does not support searching");
+        }
+    }
+
+    private HistogramFieldMapper(String simpleName, MappedFieldType fieldType, MappedFieldType defaultFieldType,
+                                 Settings indexSettings, MultiFields multiFields, CopyTo copyTo) {
+        super(simpleName, fieldType, defaultFieldType, indexSettings, multiFields, copyTo);
+    }
+
+    @Override
+    protected void parseCreateField(ParseContext context, List<IndexableField> fields) throws IOException {
+        XContentParser parser = context.parser();
+        if (parser.currentToken() == XContentParser.Token.VALUE_NULL) {
+            return;
+        }
+        ensureExpectedToken(XContentParser.Token.START_OBJECT, parser.currentToken(), parser::getTokenLocation);
+        List<Double> values = null;
+        List<Integer> counts = null;
+        for (XContentParser.Token token = parser.nextToken(); token != XContentParser.Token.END_OBJECT; token = parser.nextToken()) {
+            ensureExpectedToken(XContentParser.Token.FIELD_NAME, token, parser::getTokenLocation);
+            String fieldName = parser.currentName();
+            ensureExpectedToken(XContentParser.Token.START_ARRAY, parser.nextToken(), parser::getTokenLocation);
+            if (VALUES_FIELD.match(fieldName)) {
+                values = new ArrayList<>();
+                double previous = Double.NEGATIVE_INFINITY;
+                for (token = parser.nextToken(); token != XContentParser.Token.END_ARRAY; token = parser.nextToken()) {
+                    ensureExpectedToken(XContentParser.Token.VALUE_NUMBER, token, parser::getTokenLocation);
+                    double value = parser.doubleValue();
+                    if (Double.isFinite(value) == false) {
+                        throw new IllegalArgumentException("[" + VALUES_FIELD.getPreferredName() + "] of histogram field [" + name()
+                            + "] must be finite, got [" + value + "]");
+                    }
+                    if (value < previous) {
+                        throw new IllegalArgumentException("[" + VALUES_FIELD.getPreferredName() + "] of histogram field [" + name()
+                            + "] must be in ascending order, got [" + value + "] after [" + previous + "]");
+                    }
+                    values.add(value);
+                    previous = value;
+                }
+            } else if (COUNTS_FIELD.match(fieldName)) {
+                counts = new ArrayList<>();
+                for (token = parser.nextToken(); token != XContentParser.Token.END_ARRAY; token = parser.nextToken()) {
+                    ensureExpectedToken(XContentParser.Token.VALUE_NUMBER, token, parser::getTokenLocation);
+                    int count = parser.intValue(false);
+                    if (count < 0) {
+                        throw new IllegalArgumentException("[" + COUNTS_FIELD.getPreferredName() + "] of histogram field [" + name()
+                            + "] must be non-negative, got [" + count + "]");
+                    }
+                    counts.add(count);
+                }
+            } else {
+                throw new IllegalArgumentException("histogram field [" + name() + "] does not support [" + fieldName + "], expected ["
+                    + VALUES_FIELD.getPreferredName() + "] and [" + COUNTS_FIELD.getPreferredName() + "]");
+            }
+        }
+        if (values == null || counts == null) {
+            throw new IllegalArgumentException("histogram field [" + name() + "] requires both [" + VALUES_FIELD.getPreferredName()
+                + "] and [" + COUNTS_FIELD.getPreferredName() + "]");
+        }
+        if (values.size() != counts.size()) {
+            throw new IllegalArgumentException("[" + VALUES_FIELD.getPreferredName() + "] and [" + COUNTS_FIELD.getPreferredName()
+                + "] of histogram field [" + name() + "] must have the same length, got [" + values.size() + "] values and ["
+                + counts.size() + "] counts");
+        }
+        if (context.doc().getByKey(fieldType().name()) != null) {
+            throw new IllegalArgumentException("histogram field [" + name() + "] doesn't support multiple values per document");
+        }
+
+        // at most 5 bytes for the vInt count and 8 bytes for the value of each bucket
+        byte[] bytes = new byte[values.size() * (5 + Long.BYTES)];
+        ByteArrayDataOutput out = new ByteArrayDataOutput(bytes);
+        for (int i = 0; i < values.size(); i++) {
+            int count = counts.get(i);
+            if (count > 0) {
+                out.writeVInt(count);
+                out.writeLong(Double.doubleToRawLongBits(values.get(i)));
+            }
+        }
+        BytesRef value = new BytesRef(bytes, 0, out.getPosition());
+        context.doc().addWithKey(fieldType().name(), new BinaryDocValuesField(fieldType().name(), value));
+    }
+
+    @Override
+    protected SyntheticSourceLoader.FieldLoader syntheticFieldLoader() {
+        return (reader, docId, values) -> {
+            BinaryDocValues docValues = DocValues.getBinary(reader, name());
+            if (docValues.advanceExact(docId)) {
+                BytesRef bytes = docValues.binaryValue();
+                ByteArrayDataInput in = new ByteArrayDataInput(bytes.bytes, bytes.offset, bytes.length);
+                List<Double> histogramValues = new ArrayList<>();
+                List<Integer> histogramCounts = new ArrayList<>();
+                while (in.eof() == false) {
+                    histogramCounts.add(in.readVInt());
+                    histogramValues.add(Double.longBitsToDouble(in.readLong()));
+                }
+                Map<String, Object> histogram = new LinkedHashMap<>();
+                histogram.put(VALUES_FIELD.getPreferredName(), histogramValues);
+                histogram.put(COUNTS_FIELD.getPreferredName(), histogramCounts);
+                values.add(histogram);
+            }
+        };
+    }
+
+    @Override
+    protected String contentType() {
+        return CONTENT_TYPE;
+    }
+}
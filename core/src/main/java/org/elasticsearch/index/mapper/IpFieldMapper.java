@@ -329,6 +329,14 @@ public class IpFieldMapper extends FieldMapper {
         return (IpFieldType) super.fieldType();
     }
 
+    @Override
+    protected SyntheticSourceLoader.FieldLoader syntheticFieldLoader() {
+        if (fieldType().hasDocValues() == false) {
+            return null;
+        }
+        return SyntheticSourceLoader.sortedSet(name(), DocValueFormat.IP::format);
+    }
+
     @Override
     protected String contentType() {
         return fieldType.typeName();
@@ -343,6 +343,15 @@ public final class KeywordFieldMapper extends FieldMapper {
         }
     }
 
+    @Override
+    protected SyntheticSourceLoader.FieldLoader syntheticFieldLoader() {
+        if (fieldType().hasDocValues() == false || ignoreAbove != Defaults.IGNORE_ABOVE) {
+            // values longer than ignore_above are not indexed and could not be rebuilt
+            return null;
+        }
+        return SyntheticSourceLoader.sortedSet(name(), BytesRef::utf8ToString);
+    }
+
     @Override
     protected String contentType() {
         return CONTENT_TYPE;
@@ -19,6 +19,9 @@
 
 package org.elasticsearch.index.mapper;
 
+import org.apache.lucene.analysis.TokenStream;
+import org.apache.lucene.analysis.tokenattributes.PositionIncrementAttribute;
+import org.apache.lucene.analysis.tokenattributes.TermToBytesRefAttribute;
 import org.apache.lucene.document.FieldType;
 import org.apache.lucene.index.FieldInfo;
 import org.apache.lucene.index.IndexOptions;
@@ -33,9 +36,11 @@ import org.apache.lucene.search.BooleanQuery;
 import org.apache.lucene.search.BoostQuery;
 import org.apache.lucene.search.ConstantScoreQuery;
 import org.apache.lucene.search.MultiTermQuery;
+import org.apache.lucene.search.PhraseQuery;
 import org.apache.lucene.search.Query;
 import org.apache.lucene.search.TermInSetQuery;
 import org.apache.lucene.search.TermQuery;
+import org.apache.lucene.search.WildcardQuery;
 import org.apache.lucene.util.BytesRef;
 import org.elasticsearch.action.fieldstats.FieldStats;
 import org.elasticsearch.common.Nullable;
@@ -47,6 +52,7 @@ import org.elasticsearch.index.fielddata.IndexFieldData;
 import org.elasticsearch.index.query.QueryRewriteContext;
 import org.elasticsearch.index.query.QueryShardContext;
 import org.elasticsearch.index.query.QueryShardException;
+import org.elasticsearch.index.query.support.QueryParsers;
 import org.elasticsearch.index.similarity.SimilarityProvider;
 import org.elasticsearch.search.DocValueFormat;
 import org.joda.time.DateTimeZone;
@@ -366,6 +372,36 @@ public abstract class MappedFieldType extends FieldType {
         throw new QueryShardException(context, "Can only use regexp queries on keyword and text fields - not on [" + name + "] which is of type [" + typeName() + "]");
     }
 
+    /**
+     * Creates a query that matches the values that match the given wildcard pattern. The default implementation runs a
+     * {@link WildcardQuery} on the term that {@link #termQuery} creates for the pattern.
+     */
+    public Query wildcardQuery(String value, @Nullable MultiTermQuery.RewriteMethod method, QueryShardContext context) {
+        Query termQuery = termQuery(value, context);
+        WildcardQuery query = new WildcardQuery(extractTerm(termQuery));
+        QueryParsers.setRewriteMethod(query, method);
+        return query;
+    }
+
+    /**
+     * Creates a phrase query on the given field from the tokens of the analyzed query text. This builds the same query as Lucene's
+     * {@link org.apache.lucene.util.QueryBuilder} by default, field types that index their content in a way that allows for faster phrase
+     * queries may build a different query.
+     */
+    public Query phraseQuery(String field, TokenStream stream, int slop, boolean enablePositionIncrements) throws IOException {
+        PhraseQuery.Builder builder = new PhraseQuery.Builder();
+        builder.setSlop(slop);
+        TermToBytesRefAttribute termAtt = stream.getAttribute(TermToBytesRefAttribute.class);
+        PositionIncrementAttribute posIncrAtt = stream.getAttribute(PositionIncrementAttribute.class);
+        int position = -1;
+        stream.reset();
+        while (stream.incrementToken()) {
+            position += enablePositionIncrements ? posIncrAtt.getPositionIncrement() : 1;
+            builder.add(new Term(field, termAtt.getBytesRef()), position);
+        }
+        return builder.build();
+    }
+
     public Query nullValueQuery() {
         if (nullValue == null) {
             return null;
@@ -30,6 +30,7 @@ import org.elasticsearch.Version;
 import org.elasticsearch.cluster.metadata.IndexMetaData;
 import org.elasticsearch.cluster.metadata.MappingMetaData;
 import org.elasticsearch.common.Nullable;
+import org.elasticsearch.common.collect.CopyOnWriteHashMap;
 import org.elasticsearch.common.compress.CompressedXContent;
 import org.elasticsearch.common.regex.Regex;
 import org.elasticsearch.common.settings.Setting;
@@ -125,7 +126,7 @@ public class MapperService extends AbstractIndexComponent implements Closeable {
     private volatile Map<String, DocumentMapper> mappers = emptyMap();
 
     private volatile FieldTypeLookup fieldTypes;
-    private volatile Map<String, ObjectMapper> fullPathObjectMappers = emptyMap();
+    private volatile CopyOnWriteHashMap<String, ObjectMapper> fullPathObjectMappers = new CopyOnWriteHashMap<>();
     private boolean hasNested = false; // updated dynamically to true when a nested object is added
     private boolean allEnabled = false; // updated dynamically to true when _all is enabled
 
@@ -348,7 +349,7 @@ public class MapperService extends AbstractIndexComponent implements Closeable {
                                                                    List<DocumentMapper> documentMappers, MergeReason reason, boolean updateAllTypes) {
         boolean hasNested = this.hasNested;
         boolean allEnabled = this.allEnabled;
-        Map<String, ObjectMapper> fullPathObjectMappers = this.fullPathObjectMappers;
+        CopyOnWriteHashMap<String, ObjectMapper> fullPathObjectMappers = this.fullPathObjectMappers;
         FieldTypeLookup fieldTypes = this.fieldTypes;
         Set<String> parentTypes = this.parentTypes;
         Map<String, DocumentMapper> mappers = new HashMap<>(this.mappers);
@@ -408,11 +409,9 @@ public class MapperService extends AbstractIndexComponent implements Closeable {
             fieldTypes = fieldTypes.copyAndAddAll(newMapper.type(), fieldMappers, updateAllTypes);
 
             for (ObjectMapper objectMapper : objectMappers) {
-                if (fullPathObjectMappers == this.fullPathObjectMappers) {
-                    // first time through the loops
-                    fullPathObjectMappers = new HashMap<>(this.fullPathObjectMappers);
+                if (fullPathObjectMappers.get(objectMapper.fullPath()) != objectMapper) {
+                    fullPathObjectMappers = fullPathObjectMappers.copyAndPut(objectMapper.fullPath(), objectMapper);
                 }
-                fullPathObjectMappers.put(objectMapper.fullPath(), objectMapper);
 
                 if (objectMapper.nested().isNested()) {
                     hasNested = true;
@@ -486,9 +485,6 @@ public class MapperService extends AbstractIndexComponent implements Closeable {
 
         // only need to immutably rewrap these if the previous reference was changed.
         // if not then they are already implicitly immutable.
-        if (fullPathObjectMappers != this.fullPathObjectMappers) {
-            fullPathObjectMappers = Collections.unmodifiableMap(fullPathObjectMappers);
-        }
         if (parentTypes != this.parentTypes) {
             parentTypes = Collections.unmodifiableSet(parentTypes);
         }
@@ -581,7 +577,7 @@ public class MapperService extends AbstractIndexComponent implements Closeable {
                                                   Map<String, ObjectMapper> fullPathObjectMappers) {
         for (ObjectMapper newObjectMapper : objectMappers) {
             ObjectMapper existingObjectMapper = fullPathObjectMappers.get(newObjectMapper.fullPath());
-            if (existingObjectMapper != null) {
+            if (existingObjectMapper != null && existingObjectMapper != newObjectMapper) {
                 // simulate a merge and ignore the result, we are just interested
                 // in exceptions here
                 existingObjectMapper.merge(newObjectMapper, updateAllTypes);
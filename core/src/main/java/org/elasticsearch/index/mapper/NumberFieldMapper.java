@@ -219,6 +219,11 @@ public class NumberFieldMapper extends FieldMapper {
                 return query;
             }
 
+            @Override
+            Float decodeDocValue(long value) {
+                return HalfFloatPoint.sortableShortToHalfFloat((short) value);
+            }
+
             @Override
             public List<Field> createFields(String name, Number value,
                                             boolean indexed, boolean docValued, boolean stored) {
@@ -315,6 +320,11 @@ public class NumberFieldMapper extends FieldMapper {
                 return query;
             }
 
+            @Override
+            Float decodeDocValue(long value) {
+                return NumericUtils.sortableIntToFloat((int) value);
+            }
+
             @Override
             public List<Field> createFields(String name, Number value,
                                             boolean indexed, boolean docValued, boolean stored) {
@@ -411,6 +421,11 @@ public class NumberFieldMapper extends FieldMapper {
                 return query;
             }
 
+            @Override
+            Double decodeDocValue(long value) {
+                return NumericUtils.sortableLongToDouble(value);
+            }
+
             @Override
             public List<Field> createFields(String name, Number value,
                                             boolean indexed, boolean docValued, boolean stored) {
@@ -492,6 +507,11 @@ public class NumberFieldMapper extends FieldMapper {
                 return INTEGER.rangeQuery(field, lowerTerm, upperTerm, includeLower, includeUpper, hasDocValues);
             }
 
+            @Override
+            Byte decodeDocValue(long value) {
+                return (byte) value;
+            }
+
             @Override
             public List<Field> createFields(String name, Number value,
                                             boolean indexed, boolean docValued, boolean stored) {
@@ -554,6 +574,11 @@ public class NumberFieldMapper extends FieldMapper {
                 return INTEGER.rangeQuery(field, lowerTerm, upperTerm, includeLower, includeUpper, hasDocValues);
             }
 
+            @Override
+            Short decodeDocValue(long value) {
+                return (short) value;
+            }
+
             @Override
             public List<Field> createFields(String name, Number value,
                                             boolean indexed, boolean docValued, boolean stored) {
@@ -666,6 +691,11 @@ public class NumberFieldMapper extends FieldMapper {
                 return query;
             }
 
+            @Override
+            Integer decodeDocValue(long value) {
+                return (int) value;
+            }
+
             @Override
             public List<Field> createFields(String name, Number value,
                                             boolean indexed, boolean docValued, boolean stored) {
@@ -796,6 +826,11 @@ public class NumberFieldMapper extends FieldMapper {
                 return query;
             }
 
+            @Override
+            Long decodeDocValue(long value) {
+                return value;
+            }
+
             @Override
             public List<Field> createFields(String name, Number value,
                                             boolean indexed, boolean docValued, boolean stored) {
@@ -857,6 +892,8 @@ public class NumberFieldMapper extends FieldMapper {
         abstract Number parse(Object value, boolean coerce);
         public abstract List<Field> createFields(String name, Number value, boolean indexed,
                                                  boolean docValued, boolean stored);
+        /** Decodes a doc value that was created by {@link #createFields} */
+        abstract Number decodeDocValue(long value);
         abstract FieldStats<? extends Number> stats(IndexReader reader, String fieldName,
                                                     boolean isSearchable, boolean isAggregatable) throws IOException;
         Number valueForSearch(Number value) {
@@ -1013,6 +1050,14 @@ public class NumberFieldMapper extends FieldMapper {
         return (NumberFieldType) super.fieldType();
     }
 
+    @Override
+    protected SyntheticSourceLoader.FieldLoader syntheticFieldLoader() {
+        if (fieldType().hasDocValues() == false) {
+            return null;
+        }
+        return SyntheticSourceLoader.sortedNumeric(name(), fieldType().type::decodeDocValue);
+    }
+
     @Override
     protected String contentType() {
         return fieldType.typeName();
@@ -443,6 +443,9 @@ public class ObjectMapper extends Mapper implements Cloneable {
             if (mergeIntoMapper == null) {
                 // no mapping, simply add it
                 merged = mergeWithMapper;
+            } else if (mergeIntoMapper == mergeWithMapper) {
+                // shared by both objects, like the sub mappers that a merge didn't change
+                continue;
             } else {
                 // root mappers can only exist here for backcompat, and are merged in Mapping
                 merged = mergeIntoMapper.merge(mergeWithMapper, updateAllTypes);
@@ -52,11 +52,17 @@ public class SourceFieldMapper extends MetadataFieldMapper {
     public static final String NAME = "_source";
 
     public static final String CONTENT_TYPE = "_source";
+
+    /** The source is stored as it was sent */
+    public static final String STORED_MODE = "stored";
+    /** The source is not stored but rebuilt from the doc values of the mapped fields, see {@link SyntheticSourceLoader} */
+    public static final String SYNTHETIC_MODE = "synthetic";
     private final Function<Map<String, ?>, Map<String, Object>> filter;
 
     public static class Defaults {
         public static final String NAME = SourceFieldMapper.NAME;
         public static final boolean ENABLED = true;
+        public static final boolean SYNTHETIC = false;
 
         public static final MappedFieldType FIELD_TYPE = new SourceFieldType();
 
@@ -76,6 +82,8 @@ public class SourceFieldMapper extends MetadataFieldMapper {
 
         private boolean enabled = Defaults.ENABLED;
 
+        private boolean synthetic = Defaults.SYNTHETIC;
+
         private String[] includes = null;
         private String[] excludes = null;
 
@@ -88,6 +96,11 @@ public class SourceFieldMapper extends MetadataFieldMapper {
             return this;
         }
 
+        public Builder synthetic(boolean synthetic) {
+            this.synthetic = synthetic;
+            return this;
+        }
+
         public Builder includes(String[] includes) {
             this.includes = includes;
             return this;
@@ -100,7 +113,15 @@ public class SourceFieldMapper extends MetadataFieldMapper {
 
         @Override
         public SourceFieldMapper build(BuilderContext context) {
-            return new SourceFieldMapper(enabled, includes, excludes, context.indexSettings());
+            if (synthetic) {
+                if (enabled == false) {
+                    throw new IllegalArgumentException("[" + NAME + "] can't be synthetic and disabled");
+                }
+                if (includes != null || excludes != null) {
+                    throw new IllegalArgumentException("[" + NAME + "] can't be synthetic and have includes or excludes");
+                }
+            }
+            return new SourceFieldMapper(enabled, synthetic, includes, excludes, context.indexSettings());
         }
     }
 
@@ -116,6 +137,17 @@ public class SourceFieldMapper extends MetadataFieldMapper {
                 if (fieldName.equals("enabled")) {
                     builder.enabled(TypeParsers.nodeBooleanValue(name, "enabled", fieldNode, parserContext));
                     iterator.remove();
+                } else if (fieldName.equals("mode")) {
+                    String mode = fieldNode.toString();
+                    if (mode.equals(SYNTHETIC_MODE)) {
+                        builder.synthetic(true);
+                    } else if (mode.equals(STORED_MODE)) {
+                        builder.synthetic(false);
+                    } else {
+                        throw new MapperParsingException("Unknown mode [" + mode + "] for [" + name + "], must be one of ["
+                            + STORED_MODE + ", " + SYNTHETIC_MODE + "]");
+                    }
+                    iterator.remove();
                 } else if ("format".equals(fieldName) && parserContext.indexVersionCreated().before(Version.V_5_0_0_alpha1)) {
                     // ignore on old indices, reject on and after 5.0
                     iterator.remove();
@@ -173,6 +205,8 @@ public class SourceFieldMapper extends MetadataFieldMapper {
 
     private final boolean enabled;
 
+    private final boolean synthetic;
+
     /** indicates whether the source will always exist and be complete, for use by features like the update API */
     private final boolean complete;
 
@@ -180,12 +214,13 @@ public class SourceFieldMapper extends MetadataFieldMapper {
     private final String[] excludes;
 
     private SourceFieldMapper(Settings indexSettings) {
-        this(Defaults.ENABLED, null, null, indexSettings);
+        this(Defaults.ENABLED, Defaults.SYNTHETIC, null, null, indexSettings);
     }
 
-    private SourceFieldMapper(boolean enabled, String[] includes, String[] excludes, Settings indexSettings) {
+    private SourceFieldMapper(boolean enabled, boolean synthetic, String[] includes, String[] excludes, Settings indexSettings) {
         super(NAME, Defaults.FIELD_TYPE.clone(), Defaults.FIELD_TYPE, indexSettings); // Only stored.
         this.enabled = enabled;
+        this.synthetic = synthetic;
         this.includes = includes;
         this.excludes = excludes;
         final boolean filtered = (includes != null && includes.length > 0) || (excludes != null && excludes.length > 0);
@@ -197,6 +232,13 @@ public class SourceFieldMapper extends MetadataFieldMapper {
         return enabled;
     }
 
+    /**
+     * Returns <code>true</code> if the source isn't stored but rebuilt from the doc values of the mapped fields when it is read.
+     */
+    public boolean isSynthetic() {
+        return synthetic;
+    }
+
     public String[] excludes() {
         return this.excludes != null ? this.excludes : Strings.EMPTY_ARRAY;
 
@@ -233,6 +275,10 @@ public class SourceFieldMapper extends MetadataFieldMapper {
         if (!fieldType().stored()) {
             return;
         }
+        if (synthetic) {
+            // the source is rebuilt from doc values when it is read, it is still available to the translog through the context
+            return;
+        }
         BytesReference source = context.sourceToParse().source();
         // Percolate and tv APIs may not set the source and that is ok, because these APIs will not index any data
         if (source == null) {
@@ -265,13 +311,16 @@ public class SourceFieldMapper extends MetadataFieldMapper {
         boolean includeDefaults = params.paramAsBoolean("include_defaults", false);
 
         // all are defaults, no need to write it at all
-        if (!includeDefaults && enabled == Defaults.ENABLED && includes == null && excludes == null) {
+        if (!includeDefaults && enabled == Defaults.ENABLED && synthetic == Defaults.SYNTHETIC && includes == null && excludes == null) {
             return builder;
         }
         builder.startObject(contentType());
         if (includeDefaults || enabled != Defaults.ENABLED) {
             builder.field("enabled", enabled);
         }
+        if (includeDefaults || synthetic != Defaults.SYNTHETIC) {
+            builder.field("mode", synthetic ? SYNTHETIC_MODE : STORED_MODE);
+        }
 
         if (includes != null) {
             builder.array("includes", includes);
@@ -296,6 +345,9 @@ public class SourceFieldMapper extends MetadataFieldMapper {
         if (this.enabled != sourceMergeWith.enabled) {
             conflicts.add("Cannot update enabled setting for [_source]");
         }
+        if (this.synthetic != sourceMergeWith.synthetic) {
+            conflicts.add("Cannot update mode setting for [_source]");
+        }
         if (Arrays.equals(includes(), sourceMergeWith.includes()) == false) {
             conflicts.add("Cannot update includes setting for [_source]");
         }
@@ -0,0 +1,197 @@
+/*
+ * Licensed to Elasticsearch under one or more contributor
+ * license agreements. See the NOTICE file distributed with
+ * this work for additional information regarding copyright
+ * ownership. Elasticsearch licenses this file to you under
+ * the Apache License, Version 2.0 (the "License"); you may
+ * not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.elasticsearch.index.mapper;
+
+import org.apache.lucene.index.BinaryDocValues;
+import org.apache.lucene.index.DocValues;
+import org.apache.lucene.index.LeafReader;
+import org.apache.lucene.index.SortedNumericDocValues;
+import org.apache.lucene.index.SortedSetDocValues;
+import org.apache.lucene.store.ByteArrayDataInput;
+import org.apache.lucene.util.BytesRef;
+import org.elasticsearch.common.bytes.BytesReference;
+import org.elasticsearch.common.xcontent.XContentFactory;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Function;
+import java.util.function.LongFunction;
+
+/**
+ * Rebuilds the <code>_source</code> of a document from the doc values of the fields of a {@link DocumentMapper} whose
+ * <code>_source</code> is synthetic, see {@link SourceFieldMapper#isSynthetic()}. The rebuilt source is a JSON object with the fields
+ * sorted by name, a field that has a single value in the document is rendered as a value, one that has several values as an array.
+ */
+public final class SyntheticSourceLoader {
+
+    /**
+     * Loads the values of a field of a document from doc values.
+     */
+    @FunctionalInterface
+    public interface FieldLoader {
+
+        /**
+         * Adds the values the field has in the given document to <code>values</code>, in the order they should be rendered.
+         */
+        void load(LeafReader reader, int docId, List<Object> values) throws IOException;
+    }
+
+    /**
+     * A loader for a field that is indexed as {@link SortedNumericDocValues}, the values are rendered in ascending order of their
+     * encoded representation.
+     */
+    public static FieldLoader sortedNumeric(String field, LongFunction<Object> decoder) {
+        return (reader, docId, values) -> {
+            SortedNumericDocValues docValues = DocValues.getSortedNumeric(reader, field);
+            if (docValues.advanceExact(docId)) {
+                for (int i = 0; i < docValues.docValueCount(); i++) {
+                    values.add(decoder.apply(docValues.nextValue()));
+                }
+            }
+        };
+    }
+
+    /**
+     * A loader for a field that is indexed as {@link SortedSetDocValues}, the values are deduplicated and rendered in ascending order
+     * of their encoded representation.
+     */
+    public static FieldLoader sortedSet(String field, Function<BytesRef, Object> decoder) {
+        return (reader, docId, values) -> {
+            SortedSetDocValues docValues = DocValues.getSortedSet(reader, field);
+            if (docValues.advanceExact(docId)) {
+                for (long ord = docValues.nextOrd(); ord != SortedSetDocValues.NO_MORE_ORDS; ord = docValues.nextOrd()) {
+                    values.add(decoder.apply(docValues.lookupOrd(ord)));
+                }
+            }
+        };
+    }
+
+    /**
+     * A loader for a field whose values are encoded in {@link BinaryDocValues} by {@link BinaryFieldMapper.CustomBinaryDocValuesField},
+     * the values are deduplicated and rendered in ascending order of their bytes.
+     */
+    public static FieldLoader binary(String field, Function<BytesRef, Object> decoder) {
+        return (reader, docId, values) -> {
+            BinaryDocValues docValues = DocValues.getBinary(reader, field);
+            if (docValues.advanceExact(docId)) {
+                BytesRef bytes = docValues.binaryValue();
+                ByteArrayDataInput in = new ByteArrayDataInput(bytes.bytes, bytes.offset, bytes.length);
+                int count = in.readVInt();
+                for (int i = 0; i < count; i++) {
+                    int length = in.readVInt();
+                    values.add(decoder.apply(new BytesRef(bytes.bytes, in.getPosition(), length)));
+                    in.skipBytes(length);
+                }
+            }
+        };
+    }
+
+    private final String[][] paths;
+    private final FieldLoader[] loaders;
+
+    /**
+     * Creates a loader for the fields of the given root object.
+     *
+     * @throws IllegalArgumentException if a field of the mapping can't be rebuilt from doc values
+     */
+    SyntheticSourceLoader(RootObjectMapper root) {
+        List<FieldMapper> fieldMappers = new ArrayList<>();
+        collect(root, fieldMappers);
+        // the fields are rendered in the order of their paths so that objects are rendered in one piece
+        fieldMappers.sort((a, b) -> comparePaths(path(a), path(b)));
+        this.paths = new String[fieldMappers.size()][];
+        this.loaders = new FieldLoader[fieldMappers.size()];
+        for (int i = 0; i < fieldMappers.size(); i++) {
+            paths[i] = path(fieldMappers.get(i));
+            loaders[i] = fieldMappers.get(i).syntheticFieldLoader();
+        }
+    }
+
+    private static void collect(ObjectMapper objectMapper, List<FieldMapper> fieldMappers) {
+        if (objectMapper.nested().isNested()) {
+            throw new IllegalArgumentException("[" + SourceFieldMapper.NAME + "] can't be synthetic with nested object ["
+                + objectMapper.fullPath() + "]");
+        }
+        if (objectMapper.isEnabled() == false) {
+            throw new IllegalArgumentException("[" + SourceFieldMapper.NAME + "] can't be synthetic with disabled object ["
+                + objectMapper.fullPath() + "]");
+        }
+        for (Mapper mapper : objectMapper) {
+            if (mapper instanceof ObjectMapper) {
+                collect((ObjectMapper) mapper, fieldMappers);
+            } else if (mapper instanceof FieldMapper) {
+                // multi fields are not part of the source, so only the field itself is collected
+                FieldMapper fieldMapper = (FieldMapper) mapper;
+                if (fieldMapper.syntheticFieldLoader() == null) {
+                    throw new IllegalArgumentException("[" + SourceFieldMapper.NAME + "] can't be synthetic with field ["
+                        + fieldMapper.name() + "] of type [" + fieldMapper.fieldType().typeName()
+                        + "], only keyword, wildcard, numeric, date, boolean, ip and histogram fields that keep all their values in doc "
+                        + "values are supported");
+                }
+                fieldMappers.add(fieldMapper);
+            } else {
+                throw new IllegalArgumentException("[" + SourceFieldMapper.NAME + "] can't be synthetic with field ["
+                    + mapper.name() + "]");
+            }
+        }
+    }
+
+    private static String[] path(FieldMapper fieldMapper) {
+        return fieldMapper.name().split("\\.");
+    }
+
+    private static int comparePaths(String[] a, String[] b) {
+        for (int i = 0; i < Math.min(a.length, b.length); i++) {
+            int cmp = a[i].compareTo(b[i]);
+            if (cmp != 0) {
+                return cmp;
+            }
+        }
+        return Integer.compare(a.length, b.length);
+    }
+
+    /**
+     * Rebuilds the source of the given document as JSON.
+     */
+    public BytesReference load(LeafReader reader, int docId) throws IOException {
+        Map<String, Object> source = new LinkedHashMap<>();
+        List<Object> values = new ArrayList<>();
+        for (int i = 0; i < loaders.length; i++) {
+            values.clear();
+            loaders[i].load(reader, docId, values);
+            if (values.isEmpty()) {
+                continue;
+            }
+            Map<String, Object> object = source;
+            String[] path = paths[i];
+            for (int j = 0; j < path.length - 1; j++) {
+                @SuppressWarnings("unchecked")
+                Map<String, Object> child = (Map<String, Object>) object.computeIfAbsent(path[j], k -> new LinkedHashMap<>());
+                object = child;
+            }
+            object.put(path[path.length - 1], values.size() == 1 ? values.get(0) : Arrays.asList(values.toArray()));
+        }
+        return XContentFactory.jsonBuilder().map(source).bytes();
+    }
+}
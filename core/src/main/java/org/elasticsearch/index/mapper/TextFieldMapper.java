@@ -19,18 +19,40 @@
 
 package org.elasticsearch.index.mapper;
 
+import org.apache.lucene.analysis.Analyzer;
+import org.apache.lucene.analysis.AnalyzerWrapper;
+import org.apache.lucene.analysis.TokenStream;
+import org.apache.lucene.analysis.ngram.EdgeNGramTokenFilter;
+import org.apache.lucene.analysis.shingle.ShingleFilter;
+import org.apache.lucene.analysis.tokenattributes.PositionIncrementAttribute;
+import org.apache.lucene.analysis.tokenattributes.TermToBytesRefAttribute;
 import org.apache.lucene.document.Field;
 import org.apache.lucene.index.IndexOptions;
 import org.apache.lucene.index.IndexableField;
+import org.apache.lucene.index.Term;
+import org.apache.lucene.search.ConstantScoreQuery;
+import org.apache.lucene.search.MultiTermQuery;
+import org.apache.lucene.search.PhraseQuery;
 import org.apache.lucene.search.Query;
+import org.apache.lucene.search.TermQuery;
+import org.apache.lucene.search.spans.FieldMaskingSpanQuery;
+import org.apache.lucene.search.spans.SpanNearQuery;
+import org.apache.lucene.search.spans.SpanQuery;
+import org.apache.lucene.search.spans.SpanTermQuery;
+import org.apache.lucene.util.BytesRef;
+import org.apache.lucene.util.BytesRefBuilder;
+import org.elasticsearch.common.collect.Iterators;
 import org.elasticsearch.common.settings.Settings;
 import org.elasticsearch.common.xcontent.XContentBuilder;
 import org.elasticsearch.common.xcontent.support.XContentMapValues;
+import org.elasticsearch.index.analysis.AnalyzerScope;
 import org.elasticsearch.index.analysis.NamedAnalyzer;
 import org.elasticsearch.index.fielddata.IndexFieldData;
 import org.elasticsearch.index.fielddata.plain.PagedBytesIndexFieldData;
+import org.elasticsearch.index.query.QueryShardContext;
 
 import java.io.IOException;
+import java.util.ArrayList;
 import java.util.Iterator;
 import java.util.List;
 import java.util.Map;
@@ -44,6 +66,11 @@ public class TextFieldMapper extends FieldMapper {
     public static final String CONTENT_TYPE = "text";
     private static final int POSITION_INCREMENT_GAP_USE_ANALYZER = -1;
 
+    /** Suffix of the hidden sub-field that holds the prefixes of the terms of a field with <code>index_prefixes</code> */
+    public static final String PREFIX_FIELD_SUFFIX = "._index_prefix";
+    /** Suffix of the hidden sub-field that holds the two-term shingles of a field with <code>index_phrases</code> */
+    public static final String PHRASE_FIELD_SUFFIX = "._index_phrase";
+
     public static class Defaults {
         public static double FIELDDATA_MIN_FREQUENCY = 0;
         public static double FIELDDATA_MAX_FREQUENCY = Integer.MAX_VALUE;
@@ -60,11 +87,17 @@ public class TextFieldMapper extends FieldMapper {
          * queries of reasonably high slop will not match across field values.
          */
         public static final int POSITION_INCREMENT_GAP = 100;
+
+        public static final int INDEX_PREFIX_MIN_CHARS = 2;
+        public static final int INDEX_PREFIX_MAX_CHARS = 5;
     }
 
     public static class Builder extends FieldMapper.Builder<Builder, TextFieldMapper> {
 
         private int positionIncrementGap = POSITION_INCREMENT_GAP_USE_ANALYZER;
+        private int indexPrefixMinChars = -1;
+        private int indexPrefixMaxChars = -1;
+        private boolean indexPhrases = false;
 
         public Builder(String name) {
             super(name, Defaults.FIELD_TYPE, Defaults.FIELD_TYPE);
@@ -97,6 +130,34 @@ public class TextFieldMapper extends FieldMapper {
             return super.docValues(docValues);
         }
 
+        /**
+         * Index the prefixes of the terms of this field that have between <code>minChars</code> and <code>maxChars</code> characters
+         * into a hidden sub-field, so that prefix queries of these lengths run as a term query on the sub-field.
+         */
+        public Builder indexPrefixes(int minChars, int maxChars) {
+            if (minChars > maxChars) {
+                throw new IllegalArgumentException("min_chars [" + minChars + "] must be less than max_chars [" + maxChars + "]");
+            }
+            if (minChars < 1) {
+                throw new IllegalArgumentException("min_chars [" + minChars + "] must be greater than zero");
+            }
+            if (maxChars >= 20) {
+                throw new IllegalArgumentException("max_chars [" + maxChars + "] must be less than 20");
+            }
+            this.indexPrefixMinChars = minChars;
+            this.indexPrefixMaxChars = maxChars;
+            return builder;
+        }
+
+        /**
+         * Index the two-term shingles of this field into a hidden sub-field, so that phrase queries without slop run against the
+         * shingles rather than against the positions of the individual terms.
+         */
+        public Builder indexPhrases(boolean indexPhrases) {
+            this.indexPhrases = indexPhrases;
+            return builder;
+        }
+
         public Builder eagerGlobalOrdinals(boolean eagerGlobalOrdinals) {
             fieldType().setEagerGlobalOrdinals(eagerGlobalOrdinals);
             return builder;
@@ -121,9 +182,26 @@ public class TextFieldMapper extends FieldMapper {
                 fieldType.setSearchQuoteAnalyzer(new NamedAnalyzer(fieldType.searchQuoteAnalyzer(), positionIncrementGap));
             }
             setupFieldType(context);
+            PrefixFieldMapper prefixFieldMapper = null;
+            if (indexPrefixMinChars != -1) {
+                if (fieldType.indexOptions() == IndexOptions.NONE) {
+                    throw new IllegalArgumentException("Cannot set index_prefixes on unindexed field [" + name() + "]");
+                }
+                PrefixFieldType prefixFieldType = new PrefixFieldType(fieldType(), indexPrefixMinChars, indexPrefixMaxChars);
+                fieldType().setPrefixFieldType(prefixFieldType);
+                prefixFieldMapper = new PrefixFieldMapper(prefixFieldType, context.indexSettings());
+            }
+            PhraseFieldMapper phraseFieldMapper = null;
+            if (indexPhrases) {
+                if (fieldType.indexOptions().compareTo(IndexOptions.DOCS_AND_FREQS_AND_POSITIONS) < 0) {
+                    throw new IllegalArgumentException("Cannot set index_phrases on field [" + name() + "] if positions are not enabled");
+                }
+                fieldType().setIndexPhrases(true);
+                phraseFieldMapper = new PhraseFieldMapper(new PhraseFieldType(fieldType()), context.indexSettings());
+            }
             return new TextFieldMapper(
                     name, fieldType, defaultFieldType, positionIncrementGap, includeInAll,
-                    context.indexSettings(), multiFieldsBuilder.build(this, context), copyTo);
+                    context.indexSettings(), multiFieldsBuilder.build(this, context), copyTo, prefixFieldMapper, phraseFieldMapper);
         }
     }
 
@@ -157,18 +235,240 @@ public class TextFieldMapper extends FieldMapper {
                     builder.fielddataFrequencyFilter(minFrequency, maxFrequency, minSegmentSize);
                     DocumentMapperParser.checkNoRemainingFields(propName, frequencyFilter, parserContext.indexVersionCreated());
                     iterator.remove();
+                } else if (propName.equals("index_prefixes")) {
+                    Map<?, ?> indexPrefix = (Map<?, ?>) propNode;
+                    int minChars = XContentMapValues.nodeIntegerValue(indexPrefix.remove("min_chars"), Defaults.INDEX_PREFIX_MIN_CHARS);
+                    int maxChars = XContentMapValues.nodeIntegerValue(indexPrefix.remove("max_chars"), Defaults.INDEX_PREFIX_MAX_CHARS);
+                    builder.indexPrefixes(minChars, maxChars);
+                    DocumentMapperParser.checkNoRemainingFields(propName, indexPrefix, parserContext.indexVersionCreated());
+                    iterator.remove();
+                } else if (propName.equals("index_phrases")) {
+                    builder.indexPhrases(XContentMapValues.nodeBooleanValue(propNode, "index_phrases"));
+                    iterator.remove();
                 }
             }
             return builder;
         }
     }
 
+    /**
+     * Wraps the index analyzer of a text field to index the prefixes of its terms.
+     */
+    private static final class PrefixWrappedAnalyzer extends AnalyzerWrapper {
+
+        private final Analyzer delegate;
+        private final int minChars;
+        private final int maxChars;
+
+        PrefixWrappedAnalyzer(Analyzer delegate, int minChars, int maxChars) {
+            super(PER_FIELD_REUSE_STRATEGY);
+            this.delegate = delegate;
+            this.minChars = minChars;
+            this.maxChars = maxChars;
+        }
+
+        @Override
+        protected Analyzer getWrappedAnalyzer(String fieldName) {
+            return delegate;
+        }
+
+        @Override
+        protected TokenStreamComponents wrapComponents(String fieldName, TokenStreamComponents components) {
+            return new TokenStreamComponents(components.getTokenizer(),
+                new EdgeNGramTokenFilter(components.getTokenStream(), minChars, maxChars));
+        }
+    }
+
+    /**
+     * Wraps the index analyzer of a text field to index two-term shingles instead of its terms.
+     */
+    private static final class PhraseWrappedAnalyzer extends AnalyzerWrapper {
+
+        private final Analyzer delegate;
+
+        PhraseWrappedAnalyzer(Analyzer delegate) {
+            super(PER_FIELD_REUSE_STRATEGY);
+            this.delegate = delegate;
+        }
+
+        @Override
+        protected Analyzer getWrappedAnalyzer(String fieldName) {
+            return delegate;
+        }
+
+        @Override
+        protected TokenStreamComponents wrapComponents(String fieldName, TokenStreamComponents components) {
+            ShingleFilter shingles = new ShingleFilter(components.getTokenStream(), 2, 2);
+            shingles.setOutputUnigrams(false);
+            return new TokenStreamComponents(components.getTokenizer(), shingles);
+        }
+    }
+
+    /**
+     * The field type of the hidden sub-field of a field with <code>index_prefixes</code>, whose terms are the prefixes of the terms of
+     * the field that have between <code>min_chars</code> and <code>max_chars</code> characters.
+     */
+    static final class PrefixFieldType extends StringFieldType {
+
+        private final int minChars;
+        private final int maxChars;
+
+        PrefixFieldType(TextFieldType parent, int minChars, int maxChars) {
+            this.minChars = minChars;
+            this.maxChars = maxChars;
+            setName(parent.name() + PREFIX_FIELD_SUFFIX);
+            setTokenized(true);
+            setOmitNorms(true);
+            // positions are only needed by phrase prefix queries
+            setIndexOptions(parent.indexOptions().compareTo(IndexOptions.DOCS_AND_FREQS_AND_POSITIONS) < 0
+                ? IndexOptions.DOCS : IndexOptions.DOCS_AND_FREQS_AND_POSITIONS);
+            if (parent.indexAnalyzer() != null) {
+                setIndexAnalyzer(new NamedAnalyzer(parent.indexAnalyzer().name(), AnalyzerScope.INDEX,
+                    new PrefixWrappedAnalyzer(parent.indexAnalyzer(), minChars, maxChars)));
+            }
+            setSearchAnalyzer(parent.searchAnalyzer());
+            setSearchQuoteAnalyzer(parent.searchQuoteAnalyzer());
+        }
+
+        private PrefixFieldType(PrefixFieldType ref) {
+            super(ref);
+            this.minChars = ref.minChars;
+            this.maxChars = ref.maxChars;
+        }
+
+        /** Whether prefixes of the given length are indexed */
+        boolean accept(String prefix) {
+            int length = prefix.codePointCount(0, prefix.length());
+            return length >= minChars && length <= maxChars;
+        }
+
+        int minChars() {
+            return minChars;
+        }
+
+        int maxChars() {
+            return maxChars;
+        }
+
+        @Override
+        public PrefixFieldType clone() {
+            return new PrefixFieldType(this);
+        }
+
+        @Override
+        public String typeName() {
+            return "prefix";
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (super.equals(o) == false) {
+                return false;
+            }
+            PrefixFieldType that = (PrefixFieldType) o;
+            return minChars == that.minChars && maxChars == that.maxChars;
+        }
+
+        @Override
+        public int hashCode() {
+            return Objects.hash(super.hashCode(), minChars, maxChars);
+        }
+    }
+
+    /**
+     * The field type of the hidden sub-field of a field with <code>index_phrases</code>, whose terms are the two-term shingles of the
+     * field.
+     */
+    static final class PhraseFieldType extends StringFieldType {
+
+        PhraseFieldType(TextFieldType parent) {
+            setName(parent.name() + PHRASE_FIELD_SUFFIX);
+            setTokenized(true);
+            setOmitNorms(parent.omitNorms());
+            setIndexOptions(IndexOptions.DOCS_AND_FREQS_AND_POSITIONS);
+            setSimilarity(parent.similarity());
+            if (parent.indexAnalyzer() != null) {
+                setIndexAnalyzer(new NamedAnalyzer(parent.indexAnalyzer().name(), AnalyzerScope.INDEX,
+                    new PhraseWrappedAnalyzer(parent.indexAnalyzer())));
+            }
+            setSearchAnalyzer(parent.searchAnalyzer());
+            setSearchQuoteAnalyzer(parent.searchQuoteAnalyzer());
+        }
+
+        private PhraseFieldType(PhraseFieldType ref) {
+            super(ref);
+        }
+
+        @Override
+        public PhraseFieldType clone() {
+            return new PhraseFieldType(this);
+        }
+
+        @Override
+        public String typeName() {
+            return "phrase";
+        }
+    }
+
+    /**
+     * The mapper of a hidden sub-field of a text field. It is registered so that the sub-field is known to the mapping with its analyzer,
+     * but its values are added by the {@link TextFieldMapper}.
+     */
+    private abstract static class HiddenSubFieldMapper extends FieldMapper {
+
+        HiddenSubFieldMapper(MappedFieldType fieldType, Settings indexSettings) {
+            super(fieldType.name(), fieldType, fieldType, indexSettings, MultiFields.empty(), null);
+        }
+
+        @Override
+        protected void parseCreateField(ParseContext context, List<IndexableField> fields) {
+            // documents are parsed through the object mappers, which only know the text field: a value for the path of the sub-field
+            // is handed to the mapper of the text field, which rejects objects, so this mapper is never asked to parse anything
+            throw new UnsupportedOperationException("[" + name() + "] is a hidden sub-field, its values are added by its text field");
+        }
+
+        Field createField(String value) {
+            return new Field(fieldType().name(), value, fieldType());
+        }
+    }
+
+    static final class PrefixFieldMapper extends HiddenSubFieldMapper {
+
+        PrefixFieldMapper(PrefixFieldType fieldType, Settings indexSettings) {
+            super(fieldType, indexSettings);
+        }
+
+        @Override
+        public PrefixFieldType fieldType() {
+            return (PrefixFieldType) super.fieldType();
+        }
+
+        @Override
+        protected String contentType() {
+            return "prefix";
+        }
+    }
+
+    static final class PhraseFieldMapper extends HiddenSubFieldMapper {
+
+        PhraseFieldMapper(PhraseFieldType fieldType, Settings indexSettings) {
+            super(fieldType, indexSettings);
+        }
+
+        @Override
+        protected String contentType() {
+            return "phrase";
+        }
+    }
+
     public static final class TextFieldType extends StringFieldType {
 
         private boolean fielddata;
         private double fielddataMinFrequency;
         private double fielddataMaxFrequency;
         private int fielddataMinSegmentSize;
+        private PrefixFieldType prefixFieldType;
+        private boolean indexPhrases;
 
         public TextFieldType() {
             setTokenized(true);
@@ -184,6 +484,8 @@ public class TextFieldMapper extends FieldMapper {
             this.fielddataMinFrequency = ref.fielddataMinFrequency;
             this.fielddataMaxFrequency = ref.fielddataMaxFrequency;
             this.fielddataMinSegmentSize = ref.fielddataMinSegmentSize;
+            this.prefixFieldType = ref.prefixFieldType;
+            this.indexPhrases = ref.indexPhrases;
         }
 
         public TextFieldType clone() {
@@ -199,13 +501,15 @@ public class TextFieldMapper extends FieldMapper {
             return fielddata == that.fielddata
                     && fielddataMinFrequency == that.fielddataMinFrequency
                     && fielddataMaxFrequency == that.fielddataMaxFrequency
-                    && fielddataMinSegmentSize == that.fielddataMinSegmentSize;
+                    && fielddataMinSegmentSize == that.fielddataMinSegmentSize
+                    && Objects.equals(prefixFieldType, that.prefixFieldType)
+                    && indexPhrases == that.indexPhrases;
         }
 
         @Override
         public int hashCode() {
             return Objects.hash(super.hashCode(), fielddata,
-                    fielddataMinFrequency, fielddataMaxFrequency, fielddataMinSegmentSize);
+                    fielddataMinFrequency, fielddataMaxFrequency, fielddataMinSegmentSize, prefixFieldType, indexPhrases);
         }
 
         @Override
@@ -213,6 +517,12 @@ public class TextFieldMapper extends FieldMapper {
                 List<String> conflicts, boolean strict) {
             super.checkCompatibility(other, conflicts, strict);
             TextFieldType otherType = (TextFieldType) other;
+            if (Objects.equals(prefixFieldType, otherType.prefixFieldType) == false) {
+                conflicts.add("mapper [" + name() + "] has different [index_prefixes] settings");
+            }
+            if (indexPhrases != otherType.indexPhrases) {
+                conflicts.add("mapper [" + name() + "] has different [index_phrases] values");
+            }
             if (strict) {
                 if (fielddata() != otherType.fielddata()) {
                     conflicts.add("mapper [" + name() + "] is used by multiple types. Set update_all_types to true to update [fielddata] "
@@ -269,11 +579,112 @@ public class TextFieldMapper extends FieldMapper {
             this.fielddataMinSegmentSize = fielddataMinSegmentSize;
         }
 
+        PrefixFieldType prefixFieldType() {
+            return prefixFieldType;
+        }
+
+        void setPrefixFieldType(PrefixFieldType prefixFieldType) {
+            checkIfFrozen();
+            this.prefixFieldType = prefixFieldType;
+        }
+
+        public boolean indexPhrases() {
+            return indexPhrases;
+        }
+
+        void setIndexPhrases(boolean indexPhrases) {
+            checkIfFrozen();
+            this.indexPhrases = indexPhrases;
+        }
+
         @Override
         public String typeName() {
             return CONTENT_TYPE;
         }
 
+        @Override
+        public Query prefixQuery(String value, MultiTermQuery.RewriteMethod method, QueryShardContext context) {
+            if (prefixFieldType == null || prefixFieldType.accept(value) == false) {
+                return super.prefixQuery(value, method, context);
+            }
+            Query query = prefixFieldType.termQuery(value, context);
+            if (method == null || method == MultiTermQuery.CONSTANT_SCORE_REWRITE
+                    || method == MultiTermQuery.CONSTANT_SCORE_BOOLEAN_REWRITE) {
+                return new ConstantScoreQuery(query);
+            }
+            return query;
+        }
+
+        @Override
+        public Query phraseQuery(String field, TokenStream stream, int slop, boolean enablePositionIncrements) throws IOException {
+            if (indexPhrases == false || slop != 0) {
+                return super.phraseQuery(field, stream, slop, enablePositionIncrements);
+            }
+            List<BytesRef> terms = new ArrayList<>();
+            List<Integer> positions = new ArrayList<>();
+            boolean hasGaps = false;
+            TermToBytesRefAttribute termAtt = stream.getAttribute(TermToBytesRefAttribute.class);
+            PositionIncrementAttribute posIncrAtt = stream.getAttribute(PositionIncrementAttribute.class);
+            int position = -1;
+            stream.reset();
+            while (stream.incrementToken()) {
+                int positionIncrement = posIncrAtt.getPositionIncrement();
+                hasGaps |= terms.isEmpty() == false && positionIncrement != 1;
+                position += enablePositionIncrements ? positionIncrement : 1;
+                terms.add(BytesRef.deepCopyOf(termAtt.getBytesRef()));
+                positions.add(position);
+            }
+            PhraseQuery.Builder builder = new PhraseQuery.Builder();
+            if (hasGaps || terms.size() < 2 || field.equals(name()) == false) {
+                // the shingles of the phrase field don't hold the gaps left by removed tokens
+                for (int i = 0; i < terms.size(); i++) {
+                    builder.add(new Term(field, terms.get(i)), positions.get(i));
+                }
+                return builder.build();
+            }
+            BytesRefBuilder shingle = new BytesRefBuilder();
+            for (int i = 0; i < terms.size() - 1; i++) {
+                // the default token separator of the shingle filter
+                shingle.copyBytes(terms.get(i));
+                shingle.append((byte) ' ');
+                shingle.append(terms.get(i + 1));
+                builder.add(new Term(name() + PHRASE_FIELD_SUFFIX, shingle.toBytesRef()), i);
+            }
+            return builder.build();
+        }
+
+        /**
+         * Returns a query that matches the given terms of this field as a phrase whose last term is a prefix, using the indexed
+         * prefixes for the last term, or <code>null</code> if the prefixes can't be used for this phrase.
+         */
+        public Query phrasePrefixQuery(Term[] terms, int[] positions, int slop) {
+            if (prefixFieldType == null || terms.length == 0) {
+                return null;
+            }
+            for (int i = 0; i < terms.length; i++) {
+                if (terms[i].field().equals(name()) == false || positions[i] != positions[0] + i) {
+                    return null;
+                }
+            }
+            Term last = terms[terms.length - 1];
+            if (prefixFieldType.accept(last.text()) == false) {
+                return null;
+            }
+            Term prefix = new Term(prefixFieldType.name(), last.bytes());
+            if (terms.length == 1) {
+                return new TermQuery(prefix);
+            }
+            if (prefixFieldType.indexOptions() != IndexOptions.DOCS_AND_FREQS_AND_POSITIONS) {
+                return null;
+            }
+            SpanQuery[] clauses = new SpanQuery[terms.length];
+            for (int i = 0; i < terms.length - 1; i++) {
+                clauses[i] = new SpanTermQuery(terms[i]);
+            }
+            clauses[terms.length - 1] = new FieldMaskingSpanQuery(new SpanTermQuery(prefix), name());
+            return new SpanNearQuery(clauses, slop, true);
+        }
+
         @Override
         public Query nullValueQuery() {
             if (nullValue() == null) {
@@ -295,10 +706,19 @@ public class TextFieldMapper extends FieldMapper {
 
     private Boolean includeInAll;
     private int positionIncrementGap;
+    private PrefixFieldMapper prefixFieldMapper;
+    private PhraseFieldMapper phraseFieldMapper;
 
     protected TextFieldMapper(String simpleName, MappedFieldType fieldType, MappedFieldType defaultFieldType,
                                 int positionIncrementGap, Boolean includeInAll,
                                 Settings indexSettings, MultiFields multiFields, CopyTo copyTo) {
+        this(simpleName, fieldType, defaultFieldType, positionIncrementGap, includeInAll, indexSettings, multiFields, copyTo, null, null);
+    }
+
+    private TextFieldMapper(String simpleName, MappedFieldType fieldType, MappedFieldType defaultFieldType,
+                            int positionIncrementGap, Boolean includeInAll,
+                            Settings indexSettings, MultiFields multiFields, CopyTo copyTo,
+                            PrefixFieldMapper prefixFieldMapper, PhraseFieldMapper phraseFieldMapper) {
         super(simpleName, fieldType, defaultFieldType, indexSettings, multiFields, copyTo);
         assert fieldType.tokenized();
         assert fieldType.hasDocValues() == false;
@@ -307,6 +727,8 @@ public class TextFieldMapper extends FieldMapper {
         }
         this.positionIncrementGap = positionIncrementGap;
         this.includeInAll = includeInAll;
+        this.prefixFieldMapper = prefixFieldMapper;
+        this.phraseFieldMapper = phraseFieldMapper;
     }
 
     @Override
@@ -323,6 +745,21 @@ public class TextFieldMapper extends FieldMapper {
         return this.positionIncrementGap;
     }
 
+    @Override
+    public Iterator<Mapper> iterator() {
+        List<Mapper> subFieldMappers = new ArrayList<>(2);
+        if (prefixFieldMapper != null) {
+            subFieldMappers.add(prefixFieldMapper);
+        }
+        if (phraseFieldMapper != null) {
+            subFieldMappers.add(phraseFieldMapper);
+        }
+        if (subFieldMappers.isEmpty()) {
+            return super.iterator();
+        }
+        return Iterators.concat(super.iterator(), subFieldMappers.iterator());
+    }
+
     @Override
     protected void parseCreateField(ParseContext context, List<IndexableField> fields) throws IOException {
         final String value;
@@ -343,6 +780,12 @@ public class TextFieldMapper extends FieldMapper {
         if (fieldType().indexOptions() != IndexOptions.NONE || fieldType().stored()) {
             Field field = new Field(fieldType().name(), value, fieldType());
             fields.add(field);
+            if (prefixFieldMapper != null) {
+                fields.add(prefixFieldMapper.createField(value));
+            }
+            if (phraseFieldMapper != null) {
+                fields.add(phraseFieldMapper.createField(value));
+            }
         }
     }
 
@@ -354,7 +797,29 @@ public class TextFieldMapper extends FieldMapper {
     @Override
     protected void doMerge(Mapper mergeWith, boolean updateAllTypes) {
         super.doMerge(mergeWith, updateAllTypes);
-        this.includeInAll = ((TextFieldMapper) mergeWith).includeInAll;
+        TextFieldMapper textMergeWith = (TextFieldMapper) mergeWith;
+        this.includeInAll = textMergeWith.includeInAll;
+        // changes to the sub-fields are rejected as conflicts by TextFieldType#checkCompatibility
+        this.prefixFieldMapper = textMergeWith.prefixFieldMapper;
+        this.phraseFieldMapper = textMergeWith.phraseFieldMapper;
+    }
+
+    @Override
+    public FieldMapper updateFieldType(Map<String, MappedFieldType> fullNameToFieldType) {
+        TextFieldMapper updated = (TextFieldMapper) super.updateFieldType(fullNameToFieldType);
+        PrefixFieldMapper prefix = prefixFieldMapper == null ? null
+            : (PrefixFieldMapper) prefixFieldMapper.updateFieldType(fullNameToFieldType);
+        PhraseFieldMapper phrase = phraseFieldMapper == null ? null
+            : (PhraseFieldMapper) phraseFieldMapper.updateFieldType(fullNameToFieldType);
+        if (prefix == prefixFieldMapper && phrase == phraseFieldMapper) {
+            return updated;
+        }
+        if (updated == this) {
+            updated = clone();
+        }
+        updated.prefixFieldMapper = prefix;
+        updated.phraseFieldMapper = phrase;
+        return updated;
     }
 
     @Override
@@ -377,6 +842,16 @@ public class TextFieldMapper extends FieldMapper {
             builder.field("position_increment_gap", positionIncrementGap);
         }
 
+        if (fieldType().prefixFieldType() != null) {
+            builder.startObject("index_prefixes");
+            builder.field("min_chars", fieldType().prefixFieldType().minChars());
+            builder.field("max_chars", fieldType().prefixFieldType().maxChars());
+            builder.endObject();
+        }
+        if (includeDefaults || fieldType().indexPhrases()) {
+            builder.field("index_phrases", fieldType().indexPhrases());
+        }
+
         if (includeDefaults || fieldType().fielddata() != ((TextFieldType) defaultFieldType).fielddata()) {
             builder.field("fielddata", fieldType().fielddata());
         }
@@ -0,0 +1,536 @@
+/*
+ * Licensed to Elasticsearch under one or more contributor
+ * license agreements. See the NOTICE file distributed with
+ * this work for additional information regarding copyright
+ * ownership. Elasticsearch licenses this file to you under
+ * the Apache License, Version 2.0 (the "License"); you may
+ * not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.elasticsearch.index.mapper;
+
+import org.apache.lucene.document.Field;
+import org.apache.lucene.document.FieldType;
+import org.apache.lucene.document.StoredField;
+import org.apache.lucene.index.BinaryDocValues;
+import org.apache.lucene.index.DocValues;
+import org.apache.lucene.index.IndexOptions;
+import org.apache.lucene.index.IndexReader;
+import org.apache.lucene.index.IndexableField;
+import org.apache.lucene.index.LeafReaderContext;
+import org.apache.lucene.index.Term;
+import org.apache.lucene.search.BooleanClause;
+import org.apache.lucene.search.BooleanQuery;
+import org.apache.lucene.search.ConstantScoreScorer;
+import org.apache.lucene.search.ConstantScoreWeight;
+import org.apache.lucene.search.DocIdSetIterator;
+import org.apache.lucene.search.DocValuesFieldExistsQuery;
+import org.apache.lucene.search.IndexSearcher;
+import org.apache.lucene.search.MultiTermQuery;
+import org.apache.lucene.search.Query;
+import org.apache.lucene.search.Scorer;
+import org.apache.lucene.search.TermQuery;
+import org.apache.lucene.search.TwoPhaseIterator;
+import org.apache.lucene.search.Weight;
+import org.apache.lucene.search.WildcardQuery;
+import org.apache.lucene.store.ByteArrayDataInput;
+import org.apache.lucene.util.BytesRef;
+import org.apache.lucene.util.automaton.Automata;
+import org.apache.lucene.util.automaton.Automaton;
+import org.apache.lucene.util.automaton.ByteRunAutomaton;
+import org.apache.lucene.util.automaton.Operations;
+import org.apache.lucene.util.automaton.RegExp;
+import org.elasticsearch.common.lucene.BytesRefs;
+import org.elasticsearch.common.settings.Settings;
+import org.elasticsearch.index.query.QueryShardContext;
+
+import java.io.IOException;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+
+import static org.elasticsearch.index.mapper.TypeParsers.parseField;
+
+/**
+ * A field mapper for keywords that are searched with leading wildcards or regular expressions, like file paths, URLs or user agents.
+ * The values are indexed as the n-grams of {@link #NGRAM_SIZE} chars they are made of and kept as a whole in binary doc values.
+ * Wildcard, regexp, prefix and term queries first find the documents that contain all the n-grams the query requires and then verify
+ * these candidates against the doc values, rather than enumerating the terms dictionary like they do on keyword fields.
+ */
+public final class WildcardFieldMapper extends FieldMapper {
+
+    public static final String CONTENT_TYPE = "wildcard";
+
+    /** The number of chars of the indexed n-grams */
+    static final int NGRAM_SIZE = 3;
+    /** Marks the start and the end of the values in the n-grams, so that queries that are anchored need fewer candidates */
+    static final int TOKEN_START_OR_END_CHAR = 0;
+    /** Any subset of the n-grams of a query is a valid approximation, very long literals only use that many of them */
+    static final int MAX_CLAUSES_IN_APPROXIMATION = 64;
+
+    public static class Defaults {
+        public static final MappedFieldType FIELD_TYPE = new WildcardFieldType();
+
+        static {
+            FIELD_TYPE.setTokenized(false);
+            FIELD_TYPE.setOmitNorms(true);
+            FIELD_TYPE.setIndexOptions(IndexOptions.DOCS);
+            FIELD_TYPE.setHasDocValues(true);
+            FIELD_TYPE.freeze();
+        }
+
+        static final FieldType NGRAM_FIELD_TYPE = new FieldType();
+
+        static {
+            NGRAM_FIELD_TYPE.setTokenized(false);
+            NGRAM_FIELD_TYPE.setOmitNorms(true);
+            NGRAM_FIELD_TYPE.setIndexOptions(IndexOptions.DOCS);
+            NGRAM_FIELD_TYPE.freeze();
+        }
+    }
+
+    public static class Builder extends FieldMapper.Builder<Builder, WildcardFieldMapper> {
+
+        public Builder(String name) {
+            super(name, Defaults.FIELD_TYPE, Defaults.FIELD_TYPE);
+            builder = this;
+        }
+
+        @Override
+        public WildcardFieldType fieldType() {
+            return (WildcardFieldType) super.fieldType();
+        }
+
+        @Override
+        public Builder index(boolean index) {
+            if (index == false) {
+                throw new IllegalArgumentException("[" + CONTENT_TYPE + "] fields must be indexed");
+            }
+            return super.index(index);
+        }
+
+        @Override
+        public Builder indexOptions(IndexOptions indexOptions) {
+            if (indexOptions != IndexOptions.DOCS) {
+                throw new IllegalArgumentException("[" + CONTENT_TYPE + "] fields only support [index_options]=docs, got ["
+                    + indexOptionToString(indexOptions) + "]");
+            }
+            return super.indexOptions(indexOptions);
+        }
+
+        @Override
+        public Builder docValues(boolean docValues) {
+            if (docValues == false) {
+                throw new IllegalArgumentException("[" + CONTENT_TYPE + "] fields always have doc values");
+            }
+            return super.docValues(docValues);
+        }
+
+        @Override
+        public WildcardFieldMapper build(BuilderContext context) {
+            setupFieldType(context);
+            return new WildcardFieldMapper(name, fieldType, defaultFieldType, context.indexSettings(),
+                multiFieldsBuilder.build(this, context), copyTo);
+        }
+    }
+
+    public static class TypeParser implements Mapper.TypeParser {
+        @Override
+        public Mapper.Builder<?, ?> parse(String name, Map<String, Object> node, ParserContext parserContext)
+                throws MapperParsingException {
+            WildcardFieldMapper.Builder builder = new WildcardFieldMapper.Builder(name);
+            parseField(builder, name, node, parserContext);
+            return builder;
+        }
+    }
+
+    public static final class WildcardFieldType extends MappedFieldType {
+
+        public WildcardFieldType() {
+        }
+
+        protected WildcardFieldType(WildcardFieldType ref) {
+            super(ref);
+        }
+
+        @Override
+        public WildcardFieldType clone() {
+            return new WildcardFieldType(this);
+        }
+
+        @Override
+        public String typeName() {
+            return CONTENT_TYPE;
+        }
+
+        @Override
+        public Object valueForDisplay(Object value) {
+            if (value == null) {
+                return null;
+            }
+            BytesRef binaryValue = (BytesRef) value;
+            return binaryValue.utf8ToString();
+        }
+
+        @Override
+        public Query termQuery(Object value, QueryShardContext context) {
+            String string = BytesRefs.toString(value);
+            Set<String> ngrams = new LinkedHashSet<>();
+            addNGrams(string, true, true, ngrams);
+            return verifyingQuery(ngrams, Automata.makeString(string), Operations.DEFAULT_MAX_DETERMINIZED_STATES, string);
+        }
+
+        @Override
+        public Query prefixQuery(String value, MultiTermQuery.RewriteMethod method, QueryShardContext context) {
+            Set<String> ngrams = new LinkedHashSet<>();
+            addNGrams(value, true, false, ngrams);
+            Automaton automaton = Operations.concatenate(Automata.makeString(value), Automata.makeAnyString());
+            return verifyingQuery(ngrams, automaton, Operations.DEFAULT_MAX_DETERMINIZED_STATES, value + WildcardQuery.WILDCARD_STRING);
+        }
+
+        @Override
+        public Query wildcardQuery(String value, MultiTermQuery.RewriteMethod method, QueryShardContext context) {
+            Automaton automaton = WildcardQuery.toAutomaton(new Term(name(), value));
+            return verifyingQuery(wildcardNGrams(value), automaton, Operations.DEFAULT_MAX_DETERMINIZED_STATES, value);
+        }
+
+        @Override
+        public Query regexpQuery(String value, int flags, int maxDeterminizedStates, MultiTermQuery.RewriteMethod method,
+                                 QueryShardContext context) {
+            Automaton automaton = new RegExp(value, flags).toAutomaton(maxDeterminizedStates);
+            return verifyingQuery(regexpNGrams(value), automaton, maxDeterminizedStates, "/" + value + "/");
+        }
+
+        private Query verifyingQuery(Set<String> ngrams, Automaton automaton, int maxDeterminizedStates, String description) {
+            failIfNotIndexed();
+            Query approximation;
+            if (ngrams.isEmpty()) {
+                // the query has no literal that is long enough, all values need to be verified
+                approximation = new DocValuesFieldExistsQuery(name());
+            } else {
+                BooleanQuery.Builder builder = new BooleanQuery.Builder();
+                int clauses = 0;
+                for (String ngram : ngrams) {
+                    if (clauses++ == MAX_CLAUSES_IN_APPROXIMATION) {
+                        break;
+                    }
+                    builder.add(new TermQuery(new Term(name(), ngram)), BooleanClause.Occur.FILTER);
+                }
+                approximation = builder.build();
+            }
+            return new VerifyingQuery(name(), approximation, new ByteRunAutomaton(automaton, false, maxDeterminizedStates), description);
+        }
+    }
+
+    /**
+     * Adds the n-grams of the given literal to <code>ngrams</code>. A literal that starts or ends the value is marked with
+     * {@link #TOKEN_START_OR_END_CHAR} on that side. Literals that are shorter than {@link #NGRAM_SIZE} chars have no n-grams, unless
+     * they are the whole value.
+     */
+    static void addNGrams(String literal, boolean start, boolean end, Set<String> ngrams) {
+        StringBuilder padded = new StringBuilder(literal.length() + 2);
+        if (start) {
+            padded.appendCodePoint(TOKEN_START_OR_END_CHAR);
+        }
+        padded.append(literal);
+        if (end) {
+            padded.appendCodePoint(TOKEN_START_OR_END_CHAR);
+        }
+        int numCodePoints = padded.codePointCount(0, padded.length());
+        if (numCodePoints < NGRAM_SIZE) {
+            if (start && end) {
+                ngrams.add(padded.toString());
+            }
+            return;
+        }
+        int from = 0;
+        int to = padded.offsetByCodePoints(0, NGRAM_SIZE);
+        while (true) {
+            ngrams.add(padded.substring(from, to));
+            if (to == padded.length()) {
+                break;
+            }
+            from = padded.offsetByCodePoints(from, 1);
+            to = padded.offsetByCodePoints(to, 1);
+        }
+    }
+
+    /**
+     * Returns the n-grams that all the values that match the given wildcard pattern contain.
+     */
+    static Set<String> wildcardNGrams(String pattern) {
+        Set<String> ngrams = new LinkedHashSet<>();
+        StringBuilder literal = new StringBuilder();
+        boolean start = true;
+        for (int i = 0; i < pattern.length(); i++) {
+            char c = pattern.charAt(i);
+            if (c == WildcardQuery.WILDCARD_STRING || c == WildcardQuery.WILDCARD_CHAR) {
+                addNGrams(literal.toString(), start, false, ngrams);
+                literal.setLength(0);
+                start = false;
+            } else if (c == WildcardQuery.WILDCARD_ESCAPE && i + 1 < pattern.length()) {
+                literal.append(pattern.charAt(++i));
+            } else {
+                literal.append(c);
+            }
+        }
+        addNGrams(literal.toString(), start, true, ngrams);
+        return ngrams;
+    }
+
+    /**
+     * Returns n-grams that all the values that match the given regular expression contain. This only looks at the literals of the
+     * top-level concatenation of the expression, so that it can't miss a value: the content of groups, character classes and quoted
+     * strings is ignored, as is a literal char that an optional quantifier applies to. Expressions that have a top-level alternation
+     * or use the complement or intersection operators have no n-grams.
+     */
+    static Set<String> regexpNGrams(String regexp) {
+        Set<String> ngrams = new LinkedHashSet<>();
+        if (regexp.indexOf('~') >= 0 || regexp.indexOf('&') >= 0) {
+            return ngrams;
+        }
+        StringBuilder literal = new StringBuilder();
+        boolean start = true;
+        int depth = 0;
+        for (int i = 0; i < regexp.length(); i++) {
+            char c = regexp.charAt(i);
+            if (depth > 0) {
+                if (c == '\\') {
+                    i++;
+                } else if (c == '(') {
+                    depth++;
+                } else if (c == ')') {
+                    depth--;
+                }
+                continue;
+            }
+            switch (c) {
+                case '|':
+                    ngrams.clear();
+                    return ngrams;
+                case '\\':
+                    if (i + 1 < regexp.length()) {
+                        literal.append(regexp.charAt(++i));
+                    }
+                    continue;
+                case '*':
+                case '?':
+                case '{':
+                    // the quantifier makes the last char of the literal optional, which may be a supplementary code point
+                    if (literal.length() > 0) {
+                        literal.setLength(literal.length() - Character.charCount(literal.codePointBefore(literal.length())));
+                    }
+                    if (c == '{') {
+                        i = skipTo(regexp, i, '}');
+                    }
+                    break;
+                case '+':
+                    break;
+                case '(':
+                    depth++;
+                    break;
+                case '[':
+                    i = skipTo(regexp, i, ']');
+                    break;
+                case '"':
+                    i = skipTo(regexp, i, '"');
+                    break;
+                case '<':
+                    i = skipTo(regexp, i, '>');
+                    break;
+                case '.':
+                case '@':
+                case '#':
+                case ')':
+                    break;
+                default:
+                    literal.append(c);
+                    continue;
+            }
+            addNGrams(literal.toString(), start, false, ngrams);
+            literal.setLength(0);
+            start = false;
+        }
+        addNGrams(literal.toString(), start, depth == 0, ngrams);
+        return ngrams;
+    }
+
+    private static int skipTo(String regexp, int from, char end) {
+        for (int i = from + 1; i < regexp.length(); i++) {
+            char c = regexp.charAt(i);
+            if (c == '\\') {
+                i++;
+            } else if (c == end) {
+                return i;
+            }
+        }
+        return regexp.length();
+    }
+
+    /**
+     * Matches the documents of the approximation that have a value in the binary doc values of the field that the automaton accepts.
+     */
+    static final class VerifyingQuery extends Query {
+
+        private final String field;
+        private final Query approximation;
+        private final ByteRunAutomaton automaton;
+        private final String description;
+
+        VerifyingQuery(String field, Query approximation, ByteRunAutomaton automaton, String description) {
+            this.field = field;
+            this.approximation = approximation;
+            this.automaton = automaton;
+            this.description = description;
+        }
+
+        Query getApproximation() {
+            return approximation;
+        }
+
+        @Override
+        public Query rewrite(IndexReader reader) throws IOException {
+            Query rewritten = approximation.rewrite(reader);
+            if (rewritten != approximation) {
+                return new VerifyingQuery(field, rewritten, automaton, description);
+            }
+            return super.rewrite(reader);
+        }
+
+        @Override
+        public Weight createWeight(IndexSearcher searcher, boolean needsScores, float boost) throws IOException {
+            final Weight approximationWeight = searcher.createWeight(approximation, false, 1f);
+            return new ConstantScoreWeight(this, boost) {
+
+                @Override
+                public Scorer scorer(LeafReaderContext context) throws IOException {
+                    final Scorer approximationScorer = approximationWeight.scorer(context);
+                    if (approximationScorer == null) {
+                        return null;
+                    }
+                    final BinaryDocValues values = DocValues.getBinary(context.reader(), field);
+                    final DocIdSetIterator approximation = approximationScorer.iterator();
+                    final ByteArrayDataInput in = new ByteArrayDataInput();
+                    final TwoPhaseIterator twoPhase = new TwoPhaseIterator(approximation) {
+
+                        @Override
+                        public boolean matches() throws IOException {
+                            if (values.advanceExact(approximation.docID()) == false) {
+                                return false;
+                            }
+                            // the values are encoded by BinaryFieldMapper.CustomBinaryDocValuesField
+                            BytesRef bytes = values.binaryValue();
+                            in.reset(bytes.bytes, bytes.offset, bytes.length);
+                            int count = in.readVInt();
+                            for (int i = 0; i < count; i++) {
+                                int length = in.readVInt();
+                                int offset = in.getPosition();
+                                if (automaton.run(bytes.bytes, offset, length)) {
+                                    return true;
+                                }
+                                in.skipBytes(length);
+                            }
+                            return false;
+                        }
+
+                        @Override
+                        public float matchCost() {
+                            // running the automaton is about one op per byte of the values
+                            return 100;
+                        }
+                    };
+                    return new ConstantScoreScorer(this, score(), twoPhase);
+                }
+            };
+        }
+
+        @Override
+        public String toString(String field) {
+            StringBuilder buffer = new StringBuilder();
+            if (this.field.equals(field) == false) {
+                buffer.append(this.field).append(':');
+            }
+            return buffer.append(description).toString();
+        }
+
+        @Override
+        public boolean equals(Object obj) {
+            if (sameClassAs(obj) == false) {
+                return false;
+            }
+            VerifyingQuery other = (VerifyingQuery) obj;
+            // the description and the approximation of a regexp don't depend on its flags, the automaton does
+            return field.equals(other.field) && approximation.equals(other.approximation) && automaton.equals(other.automaton)
+                && description.equals(other.description);
+        }
+
+        @Override
+        public int hashCode() {
+            return Objects.hash(classHash(), field, approximation, automaton, description);
+        }
+    }
+
+    private WildcardFieldMapper(String simpleName, MappedFieldType fieldType, MappedFieldType defaultFieldType,
+                                Settings indexSettings, MultiFields multiFields, CopyTo copyTo) {
+        super(simpleName, fieldType, defaultFieldType, indexSettings, multiFields, copyTo);
+    }
+
+    @Override
+    public WildcardFieldType fieldType() {
+        return (WildcardFieldType) super.fieldType();
+    }
+
+    @Override
+    protected void parseCreateField(ParseContext context, List<IndexableField> fields) throws IOException {
+        String value;
+        if (context.externalValueSet()) {
+            value = context.externalValue().toString();
+        } else {
+            value = context.parser().textOrNull();
+        }
+        if (value == null) {
+            return;
+        }
+
+        Set<String> ngrams = new LinkedHashSet<>();
+        addNGrams(value, true, true, ngrams);
+        for (String ngram : ngrams) {
+            fields.add(new Field(fieldType().name(), ngram, Defaults.NGRAM_FIELD_TYPE));
+        }
+        // convert to utf8 only once before feeding stored fields and doc values
+        final BytesRef binaryValue = new BytesRef(value);
+        if (fieldType().stored()) {
+            fields.add(new StoredField(fieldType().name(), binaryValue));
+        }
+        byte[] bytes = BytesRef.deepCopyOf(binaryValue).bytes;
+        BinaryFieldMapper.CustomBinaryDocValuesField field =
+            (BinaryFieldMapper.CustomBinaryDocValuesField) context.doc().getByKey(fieldType().name());
+        if (field == null) {
+            context.doc().addWithKey(fieldType().name(), new BinaryFieldMapper.CustomBinaryDocValuesField(fieldType().name(), bytes));
+        } else {
+            field.add(bytes);
+        }
+    }
+
+    @Override
+    protected SyntheticSourceLoader.FieldLoader syntheticFieldLoader() {
+        return SyntheticSourceLoader.binary(name(), BytesRef::utf8ToString);
+    }
+
+    @Override
+    protected String contentType() {
+        return CONTENT_TYPE;
+    }
+}
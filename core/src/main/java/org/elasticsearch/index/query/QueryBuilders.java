@@ -479,6 +479,16 @@ public abstract class QueryBuilders {
         return new ParentIdQueryBuilder(type, id);
     }
 
+    /**
+     * A query that scores the documents by the similarity of the vector of a <code>dense_vector</code> field with the given vector.
+     *
+     * @param name The name of the <code>dense_vector</code> field
+     * @param queryVector The vector to compare the vectors of the documents with
+     */
+    public static VectorSimilarityQueryBuilder vectorSimilarityQuery(String name, float[] queryVector) {
+        return new VectorSimilarityQueryBuilder(name, queryVector);
+    }
+
     public static NestedQueryBuilder nestedQuery(String path, QueryBuilder query, ScoreMode scoreMode) {
         return new NestedQueryBuilder(path, query, scoreMode);
     }
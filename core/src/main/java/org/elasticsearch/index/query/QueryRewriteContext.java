@@ -25,6 +25,7 @@ import org.elasticsearch.common.xcontent.NamedXContentRegistry;
 import org.elasticsearch.common.xcontent.XContentParser;
 import org.elasticsearch.index.IndexSettings;
 import org.elasticsearch.index.mapper.MapperService;
+import org.elasticsearch.indices.TermsLookupCache;
 import org.elasticsearch.script.CompiledScript;
 import org.elasticsearch.script.ExecutableScript;
 import org.elasticsearch.script.Script;
@@ -45,10 +46,17 @@ public class QueryRewriteContext {
     protected final Client client;
     protected final IndexReader reader;
     protected final LongSupplier nowInMillis;
+    protected final TermsLookupCache termsLookupCache;
 
     public QueryRewriteContext(IndexSettings indexSettings, MapperService mapperService, ScriptService scriptService,
             NamedXContentRegistry xContentRegistry, Client client, IndexReader reader,
             LongSupplier nowInMillis) {
+        this(indexSettings, mapperService, scriptService, xContentRegistry, client, reader, nowInMillis, null);
+    }
+
+    public QueryRewriteContext(IndexSettings indexSettings, MapperService mapperService, ScriptService scriptService,
+            NamedXContentRegistry xContentRegistry, Client client, IndexReader reader,
+            LongSupplier nowInMillis, TermsLookupCache termsLookupCache) {
         this.mapperService = mapperService;
         this.scriptService = scriptService;
         this.indexSettings = indexSettings;
@@ -56,6 +64,7 @@ public class QueryRewriteContext {
         this.client = client;
         this.reader = reader;
         this.nowInMillis = nowInMillis;
+        this.termsLookupCache = termsLookupCache;
     }
 
     /**
@@ -65,6 +74,14 @@ public class QueryRewriteContext {
         return client;
     }
 
+    /**
+     * Returns the node level cache of the terms fetched by terms lookups. This might return null if the context has no access to the
+     * node's caches, in which case the terms are fetched on every rewrite.
+     */
+    public TermsLookupCache getTermsLookupCache() {
+        return termsLookupCache;
+    }
+
     /**
      * Returns the index settings for this context. This might return null if the
      * context has not index scope.
@@ -50,6 +50,7 @@ import org.elasticsearch.index.mapper.ObjectMapper;
 import org.elasticsearch.index.mapper.TextFieldMapper;
 import org.elasticsearch.index.query.support.NestedScope;
 import org.elasticsearch.index.similarity.SimilarityService;
+import org.elasticsearch.indices.TermsLookupCache;
 import org.elasticsearch.script.CompiledScript;
 import org.elasticsearch.script.ExecutableScript;
 import org.elasticsearch.script.Script;
@@ -102,7 +103,15 @@ public class QueryShardContext extends QueryRewriteContext {
             IndexFieldDataService indexFieldDataService, MapperService mapperService, SimilarityService similarityService,
             ScriptService scriptService, NamedXContentRegistry xContentRegistry,
             Client client, IndexReader reader, LongSupplier nowInMillis) {
-        super(indexSettings, mapperService, scriptService, xContentRegistry, client, reader, nowInMillis);
+        this(shardId, indexSettings, bitsetFilterCache, indexFieldDataService, mapperService, similarityService, scriptService,
+                xContentRegistry, client, reader, nowInMillis, null);
+    }
+
+    public QueryShardContext(int shardId, IndexSettings indexSettings, BitsetFilterCache bitsetFilterCache,
+            IndexFieldDataService indexFieldDataService, MapperService mapperService, SimilarityService similarityService,
+            ScriptService scriptService, NamedXContentRegistry xContentRegistry,
+            Client client, IndexReader reader, LongSupplier nowInMillis, TermsLookupCache termsLookupCache) {
+        super(indexSettings, mapperService, scriptService, xContentRegistry, client, reader, nowInMillis, termsLookupCache);
         this.shardId = shardId;
         this.indexSettings = indexSettings;
         this.similarityService = similarityService;
@@ -117,7 +126,7 @@ public class QueryShardContext extends QueryRewriteContext {
     public QueryShardContext(QueryShardContext source) {
         this(source.shardId, source.indexSettings, source.bitsetFilterCache, source.indexFieldDataService, source.mapperService,
                 source.similarityService, source.scriptService, source.getXContentRegistry(), source.client,
-                source.reader, source.nowInMillis);
+                source.reader, source.nowInMillis, source.termsLookupCache);
         this.types = source.getTypes();
     }
 
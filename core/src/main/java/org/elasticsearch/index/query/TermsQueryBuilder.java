@@ -19,6 +19,8 @@
 
 package org.elasticsearch.index.query;
 
+import org.apache.lucene.index.IndexOptions;
+import org.apache.lucene.index.PrefixCodedTerms;
 import org.apache.lucene.search.TermInSetQuery;
 import org.apache.lucene.search.Query;
 import org.apache.lucene.util.BytesRef;
@@ -37,8 +39,11 @@ import org.elasticsearch.common.lucene.search.Queries;
 import org.elasticsearch.common.xcontent.XContentBuilder;
 import org.elasticsearch.common.xcontent.XContentParser;
 import org.elasticsearch.common.xcontent.support.XContentMapValues;
+import org.elasticsearch.index.mapper.KeywordFieldMapper;
 import org.elasticsearch.index.mapper.MappedFieldType;
+import org.elasticsearch.index.search.PrefixCodedTermsQuery;
 import org.elasticsearch.indices.TermsLookup;
+import org.elasticsearch.indices.TermsLookupCache;
 
 import java.io.IOException;
 import java.util.AbstractList;
@@ -163,6 +168,15 @@ public class TermsQueryBuilder extends AbstractQueryBuilder<TermsQueryBuilder> {
         this.termsLookup = null;
     }
 
+    /**
+     * A filter for a field based on the terms of a {@link TermsLookup} that were taken from the {@link TermsLookupCache}.
+     */
+    private TermsQueryBuilder(String fieldName, PrefixCodedTerms lookedUpTerms) {
+        this.fieldName = fieldName;
+        this.values = new LookedUpTerms(lookedUpTerms);
+        this.termsLookup = null;
+    }
+
     /**
      * Read from a stream.
      */
@@ -281,6 +295,38 @@ public class TermsQueryBuilder extends AbstractQueryBuilder<TermsQueryBuilder> {
         return list.stream().map(o -> o instanceof String ? new BytesRef(o.toString()) : o).collect(Collectors.toList());
     }
 
+    /**
+     * The values of a query whose terms were taken from the {@link TermsLookupCache}. The cached terms are used as they are to build
+     * the query when the field allows it, they are only decoded into a list when this query is compared, serialized or built on
+     * another field.
+     */
+    private static final class LookedUpTerms extends AbstractList<Object> {
+        private final PrefixCodedTerms terms;
+        private BytesRef[] decoded;
+
+        LookedUpTerms(PrefixCodedTerms terms) {
+            this.terms = terms;
+        }
+
+        @Override
+        public Object get(int index) {
+            if (decoded == null) {
+                BytesRef[] decoded = new BytesRef[size()];
+                PrefixCodedTerms.TermIterator iterator = terms.iterator();
+                for (int i = 0; i < decoded.length; i++) {
+                    decoded[i] = BytesRef.deepCopyOf(iterator.next());
+                }
+                this.decoded = decoded;
+            }
+            return decoded[index];
+        }
+
+        @Override
+        public int size() {
+            return Math.toIntExact(terms.size());
+        }
+    }
+
     /**
      * Convert the internal {@link List} of values back to a user-friendly list.
      * Integers are kept as-is since the terms query does not make any difference
@@ -403,6 +449,18 @@ public class TermsQueryBuilder extends AbstractQueryBuilder<TermsQueryBuilder> {
         }
         MappedFieldType fieldType = context.fieldMapper(fieldName);
 
+        if (values instanceof LookedUpTerms) {
+            PrefixCodedTerms terms = ((LookedUpTerms) values).terms;
+            if (fieldType == null) {
+                return new PrefixCodedTermsQuery(fieldName, terms, false);
+            }
+            // keyword fields without a normalizer index the looked up terms as they are, in their postings and doc values
+            if (fieldType instanceof KeywordFieldMapper.KeywordFieldType
+                    && ((KeywordFieldMapper.KeywordFieldType) fieldType).normalizer() == null
+                    && fieldType.indexOptions() != IndexOptions.NONE) {
+                return new PrefixCodedTermsQuery(fieldType.name(), terms, fieldType.hasDocValues());
+            }
+        }
         if (fieldType != null) {
             return fieldType.termsQuery(values, context);
         } else {
@@ -449,6 +507,10 @@ public class TermsQueryBuilder extends AbstractQueryBuilder<TermsQueryBuilder> {
                     return this; // can't rewrite until we have index scope on the shard
                 }
             }
+            TermsLookupCache termsLookupCache = queryRewriteContext.getTermsLookupCache();
+            if (termsLookupCache != null) {
+                return new TermsQueryBuilder(this.fieldName, termsLookupCache.lookup(termsLookup, queryRewriteContext.getClient()));
+            }
             List<Object> values = fetch(termsLookup, queryRewriteContext.getClient());
             return new TermsQueryBuilder(this.fieldName, values);
         }
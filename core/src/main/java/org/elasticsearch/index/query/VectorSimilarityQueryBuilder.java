@@ -0,0 +1,320 @@
+/*
+ * Licensed to Elasticsearch under one or more contributor
+ * license agreements. See the NOTICE file distributed with
+ * this work for additional information regarding copyright
+ * ownership. Elasticsearch licenses this file to you under
+ * the Apache License, Version 2.0 (the "License"); you may
+ * not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.elasticsearch.index.query;
+
+import org.apache.lucene.search.MatchNoDocsQuery;
+import org.apache.lucene.search.Query;
+import org.elasticsearch.common.ParseField;
+import org.elasticsearch.common.ParsingException;
+import org.elasticsearch.common.Strings;
+import org.elasticsearch.common.io.stream.StreamInput;
+import org.elasticsearch.common.io.stream.StreamOutput;
+import org.elasticsearch.common.xcontent.XContentBuilder;
+import org.elasticsearch.common.xcontent.XContentParser;
+import org.elasticsearch.index.mapper.DenseVectorFieldMapper;
+import org.elasticsearch.index.mapper.MappedFieldType;
+import org.elasticsearch.index.search.VectorSimilarityQuery;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+
+/**
+ * A query that scores the documents by the similarity of the vector of a <code>dense_vector</code> field with a query vector,
+ * optionally restricted to the documents that match a filter:
+ * <pre>
+ *   "vector_similarity": {
+ *       "field": "embedding",
+ *       "query_vector": [0.12, -0.5, 0.33],
+ *       "similarity": "cosine",
+ *       "filter": { "term": { "category": "shoes" } }
+ *   }
+ * </pre>
+ */
+public class VectorSimilarityQueryBuilder extends AbstractQueryBuilder<VectorSimilarityQueryBuilder> {
+    public static final String NAME = "vector_similarity";
+
+    public static final VectorSimilarityQuery.Similarity DEFAULT_SIMILARITY = VectorSimilarityQuery.Similarity.COSINE;
+    public static final boolean DEFAULT_IGNORE_UNMAPPED = false;
+
+    private static final ParseField FIELD_FIELD = new ParseField("field");
+    private static final ParseField QUERY_VECTOR_FIELD = new ParseField("query_vector");
+    private static final ParseField SIMILARITY_FIELD = new ParseField("similarity");
+    private static final ParseField FILTER_FIELD = new ParseField("filter");
+    private static final ParseField IGNORE_UNMAPPED_FIELD = new ParseField("ignore_unmapped");
+
+    private final String fieldName;
+
+    private final float[] queryVector;
+
+    private VectorSimilarityQuery.Similarity similarity = DEFAULT_SIMILARITY;
+
+    private QueryBuilder filter;
+
+    private boolean ignoreUnmapped = DEFAULT_IGNORE_UNMAPPED;
+
+    /**
+     * Create a new {@link VectorSimilarityQueryBuilder}
+     *
+     * @param fieldName the name of the <code>dense_vector</code> field
+     * @param queryVector the vector to compare the vectors of the documents with
+     */
+    public VectorSimilarityQueryBuilder(String fieldName, float[] queryVector) {
+        if (Strings.isEmpty(fieldName)) {
+            throw new IllegalArgumentException("[" + NAME + "] requires a field name");
+        }
+        if (queryVector == null || queryVector.length == 0) {
+            throw new IllegalArgumentException("[" + NAME + "] requires a query vector");
+        }
+        this.fieldName = fieldName;
+        this.queryVector = queryVector;
+    }
+
+    /**
+     * Read from a stream.
+     */
+    public VectorSimilarityQueryBuilder(StreamInput in) throws IOException {
+        super(in);
+        fieldName = in.readString();
+        queryVector = in.readFloatArray();
+        similarity = in.readEnum(VectorSimilarityQuery.Similarity.class);
+        filter = in.readOptionalNamedWriteable(QueryBuilder.class);
+        ignoreUnmapped = in.readBoolean();
+    }
+
+    @Override
+    protected void doWriteTo(StreamOutput out) throws IOException {
+        out.writeString(fieldName);
+        out.writeFloatArray(queryVector);
+        out.writeEnum(similarity);
+        out.writeOptionalNamedWriteable(filter);
+        out.writeBoolean(ignoreUnmapped);
+    }
+
+    public String fieldName() {
+        return fieldName;
+    }
+
+    public float[] queryVector() {
+        return queryVector;
+    }
+
+    /**
+     * Sets how the similarity of the vectors is turned into a score, defaults to {@link #DEFAULT_SIMILARITY}.
+     */
+    public VectorSimilarityQueryBuilder similarity(VectorSimilarityQuery.Similarity similarity) {
+        this.similarity = Objects.requireNonNull(similarity);
+        return this;
+    }
+
+    public VectorSimilarityQuery.Similarity similarity() {
+        return similarity;
+    }
+
+    /**
+     * Sets a query that the documents must match to be scored, the score of the filter is ignored.
+     */
+    public VectorSimilarityQueryBuilder filter(QueryBuilder filter) {
+        this.filter = filter;
+        return this;
+    }
+
+    public QueryBuilder filter() {
+        return filter;
+    }
+
+    /**
+     * Sets whether the query builder should ignore unmapped fields (and run a {@link MatchNoDocsQuery} in place of this query) or
+     * throw an exception if the field is unmapped.
+     */
+    public VectorSimilarityQueryBuilder ignoreUnmapped(boolean ignoreUnmapped) {
+        this.ignoreUnmapped = ignoreUnmapped;
+        return this;
+    }
+
+    public boolean ignoreUnmapped() {
+        return ignoreUnmapped;
+    }
+
+    @Override
+    protected void doXContent(XContentBuilder builder, Params params) throws IOException {
+        builder.startObject(NAME);
+        builder.field(FIELD_FIELD.getPreferredName(), fieldName);
+        builder.startArray(QUERY_VECTOR_FIELD.getPreferredName());
+        for (float value : queryVector) {
+            builder.value(value);
+        }
+        builder.endArray();
+        builder.field(SIMILARITY_FIELD.getPreferredName(), similarity.toString());
+        if (filter != null) {
+            builder.field(FILTER_FIELD.getPreferredName());
+            filter.toXContent(builder, params);
+        }
+        builder.field(IGNORE_UNMAPPED_FIELD.getPreferredName(), ignoreUnmapped);
+        printBoostAndQueryName(builder);
+        builder.endObject();
+    }
+
+    public static VectorSimilarityQueryBuilder fromXContent(QueryParseContext parseContext) throws IOException {
+        XContentParser parser = parseContext.parser();
+
+        String fieldName = null;
+        List<Float> queryVector = null;
+        VectorSimilarityQuery.Similarity similarity = DEFAULT_SIMILARITY;
+        QueryBuilder filter = null;
+        boolean ignoreUnmapped = DEFAULT_IGNORE_UNMAPPED;
+        float boost = AbstractQueryBuilder.DEFAULT_BOOST;
+        String queryName = null;
+
+        String currentFieldName = null;
+        XContentParser.Token token;
+        while ((token = parser.nextToken()) != XContentParser.Token.END_OBJECT) {
+            if (token == XContentParser.Token.FIELD_NAME) {
+                currentFieldName = parser.currentName();
+            } else if (token == XContentParser.Token.START_OBJECT) {
+                if (FILTER_FIELD.match(currentFieldName)) {
+                    filter = parseContext.parseInnerQueryBuilder();
+                } else {
+                    throw new ParsingException(parser.getTokenLocation(), "[" + NAME + "] query does not support [" + currentFieldName
+                        + "]");
+                }
+            } else if (token == XContentParser.Token.START_ARRAY) {
+                if (QUERY_VECTOR_FIELD.match(currentFieldName)) {
+                    queryVector = new ArrayList<>();
+                    while ((token = parser.nextToken()) != XContentParser.Token.END_ARRAY) {
+                        if (token != XContentParser.Token.VALUE_NUMBER) {
+                            throw new ParsingException(parser.getTokenLocation(), "[" + NAME + "] query vector must only contain "
+                                + "numbers, got [" + token + "]");
+                        }
+                        queryVector.add(parser.floatValue());
+                    }
+                } else {
+                    throw new ParsingException(parser.getTokenLocation(), "[" + NAME + "] query does not support [" + currentFieldName
+                        + "]");
+                }
+            } else if (token.isValue()) {
+                if (FIELD_FIELD.match(currentFieldName)) {
+                    fieldName = parser.text();
+                } else if (SIMILARITY_FIELD.match(currentFieldName)) {
+                    try {
+                        similarity = VectorSimilarityQuery.Similarity.fromString(parser.text());
+                    } catch (IllegalArgumentException e) {
+                        throw new ParsingException(parser.getTokenLocation(), "[" + NAME + "] " + e.getMessage(), e);
+                    }
+                } else if (IGNORE_UNMAPPED_FIELD.match(currentFieldName)) {
+                    ignoreUnmapped = parser.booleanValue();
+                } else if (AbstractQueryBuilder.NAME_FIELD.match(currentFieldName)) {
+                    queryName = parser.text();
+                } else if (AbstractQueryBuilder.BOOST_FIELD.match(currentFieldName)) {
+                    boost = parser.floatValue();
+                } else {
+                    throw new ParsingException(parser.getTokenLocation(), "[" + NAME + "] query does not support [" + currentFieldName
+                        + "]");
+                }
+            } else {
+                throw new ParsingException(parser.getTokenLocation(), "[" + NAME + "] unknown token [" + token + "] after ["
+                    + currentFieldName + "]");
+            }
+        }
+
+        if (fieldName == null) {
+            throw new ParsingException(parser.getTokenLocation(), "[" + NAME + "] query requires [" + FIELD_FIELD.getPreferredName()
+                + "] to be set");
+        }
+        if (queryVector == null || queryVector.isEmpty()) {
+            throw new ParsingException(parser.getTokenLocation(), "[" + NAME + "] query requires a non-empty ["
+                + QUERY_VECTOR_FIELD.getPreferredName() + "]");
+        }
+        float[] vector = new float[queryVector.size()];
+        for (int i = 0; i < vector.length; i++) {
+            vector[i] = queryVector.get(i);
+        }
+        VectorSimilarityQueryBuilder builder = new VectorSimilarityQueryBuilder(fieldName, vector);
+        builder.similarity(similarity);
+        builder.filter(filter);
+        builder.ignoreUnmapped(ignoreUnmapped);
+        builder.boost(boost);
+        builder.queryName(queryName);
+        return builder;
+    }
+
+    @Override
+    public String getWriteableName() {
+        return NAME;
+    }
+
+    @Override
+    protected Query doToQuery(QueryShardContext context) throws IOException {
+        MappedFieldType fieldType = context.fieldMapper(fieldName);
+        if (fieldType == null) {
+            if (ignoreUnmapped) {
+                return new MatchNoDocsQuery();
+            } else {
+                throw new QueryShardException(context, "failed to find " + DenseVectorFieldMapper.CONTENT_TYPE + " field [" + fieldName
+                    + "]");
+            }
+        }
+        if (fieldType instanceof DenseVectorFieldMapper.DenseVectorFieldType == false) {
+            throw new QueryShardException(context, "field [" + fieldName + "] is not a " + DenseVectorFieldMapper.CONTENT_TYPE
+                + " field");
+        }
+        Query filterQuery = filter == null ? null : filter.toFilter(context);
+        return ((DenseVectorFieldMapper.DenseVectorFieldType) fieldType).similarityQuery(queryVector, similarity, filterQuery, context);
+    }
+
+    @Override
+    protected int doHashCode() {
+        return Objects.hash(fieldName, Arrays.hashCode(queryVector), similarity, filter, ignoreUnmapped);
+    }
+
+    @Override
+    protected boolean doEquals(VectorSimilarityQueryBuilder other) {
+        return Objects.equals(fieldName, other.fieldName) &&
+                Arrays.equals(queryVector, other.queryVector) &&
+                Objects.equals(similarity, other.similarity) &&
+                Objects.equals(filter, other.filter) &&
+                Objects.equals(ignoreUnmapped, other.ignoreUnmapped);
+    }
+
+    @Override
+    protected QueryBuilder doRewrite(QueryRewriteContext queryRewriteContext) throws IOException {
+        if (filter != null) {
+            QueryBuilder rewrittenFilter = filter.rewrite(queryRewriteContext);
+            if (rewrittenFilter != filter) {
+                VectorSimilarityQueryBuilder newQueryBuilder = new VectorSimilarityQueryBuilder(fieldName, queryVector);
+                newQueryBuilder.similarity = similarity;
+                newQueryBuilder.filter = rewrittenFilter;
+                newQueryBuilder.ignoreUnmapped = ignoreUnmapped;
+                return newQueryBuilder;
+            }
+        }
+        return this;
+    }
+
+    @Override
+    protected void extractInnerHitBuilders(Map<String, InnerHitBuilder> innerHits) {
+        if (filter != null) {
+            InnerHitBuilder.extractInnerHits(filter, innerHits);
+        }
+    }
+}
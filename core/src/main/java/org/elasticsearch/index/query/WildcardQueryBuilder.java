@@ -185,16 +185,12 @@ public class WildcardQueryBuilder extends AbstractQueryBuilder<WildcardQueryBuil
     @Override
     protected Query doToQuery(QueryShardContext context) throws IOException {
         MappedFieldType fieldType = context.fieldMapper(fieldName);
-        Term term;
-        if (fieldType == null) {
-            term = new Term(fieldName, BytesRefs.toBytesRef(value));
-        } else {
-            Query termQuery = fieldType.termQuery(value, context);
-            term = MappedFieldType.extractTerm(termQuery);
+        MultiTermQuery.RewriteMethod rewriteMethod = QueryParsers.parseRewriteMethod(rewrite, null);
+        if (fieldType != null) {
+            return fieldType.wildcardQuery(value, rewriteMethod, context);
         }
 
-        WildcardQuery query = new WildcardQuery(term);
-        MultiTermQuery.RewriteMethod rewriteMethod = QueryParsers.parseRewriteMethod(rewrite, null);
+        WildcardQuery query = new WildcardQuery(new Term(fieldName, BytesRefs.toBytesRef(value)));
         QueryParsers.setRewriteMethod(query, rewriteMethod);
         return query;
     }
@@ -53,6 +53,7 @@ import org.elasticsearch.common.lucene.search.Queries;
 import org.elasticsearch.common.unit.Fuzziness;
 import org.elasticsearch.index.analysis.ShingleTokenFilterFactory;
 import org.elasticsearch.index.mapper.MappedFieldType;
+import org.elasticsearch.index.mapper.TextFieldMapper;
 import org.elasticsearch.index.query.QueryShardContext;
 import org.elasticsearch.index.query.support.QueryParsers;
 
@@ -304,6 +305,7 @@ public class MatchQuery {
     private class MatchQueryBuilder extends QueryBuilder {
 
         private final MappedFieldType mapper;
+        private boolean buildingPhrasePrefix = false;
 
         /**
          * Creates a new QueryBuilder using the given analyzer.
@@ -349,8 +351,23 @@ public class MatchQuery {
             }
         }
 
+        @Override
+        protected Query analyzePhrase(String field, TokenStream stream, int slop) throws IOException {
+            // phrase prefix queries are built from the terms of the phrase, not from the shingles a field type may rewrite it to
+            if (mapper != null && field.equals(mapper.name()) && buildingPhrasePrefix == false) {
+                return mapper.phraseQuery(field, stream, slop, getEnablePositionIncrements());
+            }
+            return super.analyzePhrase(field, stream, slop);
+        }
+
         public Query createPhrasePrefixQuery(String field, String queryText, int phraseSlop, int maxExpansions) {
-            final Query query = createFieldQuery(getAnalyzer(), Occur.MUST, field, queryText, true, phraseSlop);
+            final Query query;
+            buildingPhrasePrefix = true;
+            try {
+                query = createFieldQuery(getAnalyzer(), Occur.MUST, field, queryText, true, phraseSlop);
+            } finally {
+                buildingPhrasePrefix = false;
+            }
             return toMultiPhrasePrefix(query, phraseSlop, maxExpansions);
         }
 
@@ -372,6 +389,10 @@ public class MatchQuery {
                 PhraseQuery pq = (PhraseQuery) innerQuery;
                 Term[] terms = pq.getTerms();
                 int[] positions = pq.getPositions();
+                Query indexedPrefixQuery = indexedPhrasePrefixQuery(terms, positions, phraseSlop);
+                if (indexedPrefixQuery != null) {
+                    return boost == 1 ? indexedPrefixQuery : new BoostQuery(indexedPrefixQuery, boost);
+                }
                 for (int i = 0; i < terms.length; i++) {
                     prefixQuery.add(new Term[]{terms[i]}, positions[i]);
                 }
@@ -385,7 +406,12 @@ public class MatchQuery {
                 }
                 return boost == 1 ? prefixQuery : new BoostQuery(prefixQuery, boost);
             } else if (innerQuery instanceof TermQuery) {
-                prefixQuery.add(((TermQuery) innerQuery).getTerm());
+                Term term = ((TermQuery) innerQuery).getTerm();
+                Query indexedPrefixQuery = indexedPhrasePrefixQuery(new Term[] { term }, new int[] { 0 }, phraseSlop);
+                if (indexedPrefixQuery != null) {
+                    return boost == 1 ? indexedPrefixQuery : new BoostQuery(indexedPrefixQuery, boost);
+                }
+                prefixQuery.add(term);
                 return boost == 1 ? prefixQuery : new BoostQuery(prefixQuery, boost);
             } else if (innerQuery instanceof AllTermQuery) {
                 prefixQuery.add(((AllTermQuery) innerQuery).getTerm());
@@ -394,6 +420,17 @@ public class MatchQuery {
             return query;
         }
 
+        /**
+         * Uses the prefixes indexed by text fields with <code>index_prefixes</code> to match the last term of the phrase rather than
+         * expanding it, returns <code>null</code> if they can't be used.
+         */
+        private Query indexedPhrasePrefixQuery(Term[] terms, int[] positions, int phraseSlop) {
+            if (mapper instanceof TextFieldMapper.TextFieldType) {
+                return ((TextFieldMapper.TextFieldType) mapper).phrasePrefixQuery(terms, positions, phraseSlop);
+            }
+            return null;
+        }
+
         private Query toSpanQueryPrefix(SpanQuery query, float boost) {
             if (query instanceof SpanTermQuery) {
                 SpanMultiTermQueryWrapper<PrefixQuery> ret =
@@ -0,0 +1,290 @@
+/*
+ * Licensed to Elasticsearch under one or more contributor
+ * license agreements. See the NOTICE file distributed with
+ * this work for additional information regarding copyright
+ * ownership. Elasticsearch licenses this file to you under
+ * the Apache License, Version 2.0 (the "License"); you may
+ * not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.elasticsearch.index.search;
+
+import org.apache.lucene.index.IndexReader;
+import org.apache.lucene.index.LeafReader;
+import org.apache.lucene.index.LeafReaderContext;
+import org.apache.lucene.index.PostingsEnum;
+import org.apache.lucene.index.PrefixCodedTerms;
+import org.apache.lucene.index.SortedSetDocValues;
+import org.apache.lucene.index.Term;
+import org.apache.lucene.index.Terms;
+import org.apache.lucene.index.TermsEnum;
+import org.apache.lucene.search.ConstantScoreScorer;
+import org.apache.lucene.search.ConstantScoreWeight;
+import org.apache.lucene.search.DocIdSetIterator;
+import org.apache.lucene.search.IndexSearcher;
+import org.apache.lucene.search.MatchNoDocsQuery;
+import org.apache.lucene.search.Query;
+import org.apache.lucene.search.Scorer;
+import org.apache.lucene.search.ScorerSupplier;
+import org.apache.lucene.search.TwoPhaseIterator;
+import org.apache.lucene.search.Weight;
+import org.apache.lucene.util.Accountable;
+import org.apache.lucene.util.BytesRef;
+import org.apache.lucene.util.DocIdSetBuilder;
+import org.apache.lucene.util.LongBitSet;
+import org.apache.lucene.util.RamUsageEstimator;
+
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+
+/**
+ * Matches the documents that have any of a set of terms in a field, like a {@link org.apache.lucene.search.TermInSetQuery}, but
+ * with terms that are already sorted and prefix-compressed, see {@link #encode(BytesRef[])}. The encoded terms are immutable, so a
+ * large set can be built once and shared by the queries of many shards and requests.
+ * <p>
+ * Each segment is matched in one of two ways. The postings of every term of the set can be intersected with the terms dictionary,
+ * which costs a seek per term. If the field has doc values, the set can instead be mapped to the ordinals of the segment, with one
+ * merge of the sorted set and terms dictionary or with a seek per term for small sets, and documents are matched by checking their
+ * ordinals against the mapped set. The doc values are used when the query doesn't lead the iteration, since only the documents that
+ * the leading clauses match are checked then, or when the set has many terms compared to the number of documents of the segment.
+ */
+public final class PrefixCodedTermsQuery extends Query implements Accountable {
+
+    /**
+     * A seek in a terms dictionary costs about as much as reading that many terms of the dictionary in order, or as checking the
+     * ordinals of that many documents.
+     */
+    private static final int SEEK_COST = 16;
+
+    private static final long BASE_RAM_BYTES_USED = RamUsageEstimator.shallowSizeOfInstance(PrefixCodedTermsQuery.class);
+
+    private final String field;
+    private final PrefixCodedTerms terms;
+    private final boolean hasDocValues;
+    private final int termsHashCode;
+
+    /**
+     * @param field        the field to match
+     * @param terms        the terms to match, as returned by {@link #encode(BytesRef[])}
+     * @param hasDocValues whether the field has sorted set doc values that hold the same terms as the indexed field
+     */
+    public PrefixCodedTermsQuery(String field, PrefixCodedTerms terms, boolean hasDocValues) {
+        this.field = field;
+        this.terms = terms;
+        this.hasDocValues = hasDocValues;
+        this.termsHashCode = terms.hashCode();
+    }
+
+    /**
+     * Sorts and deduplicates the given terms and encodes them with shared prefixes. The terms are not associated with a field.
+     */
+    public static PrefixCodedTerms encode(BytesRef[] terms) {
+        BytesRef[] sorted = terms.clone();
+        Arrays.sort(sorted);
+        PrefixCodedTerms.Builder builder = new PrefixCodedTerms.Builder();
+        BytesRef previous = null;
+        for (BytesRef term : sorted) {
+            if (term.equals(previous) == false) {
+                builder.add("", term);
+                previous = term;
+            }
+        }
+        return builder.finish();
+    }
+
+    public String getField() {
+        return field;
+    }
+
+    public PrefixCodedTerms getTerms() {
+        return terms;
+    }
+
+    @Override
+    public Query rewrite(IndexReader reader) throws IOException {
+        if (terms.size() == 0) {
+            return new MatchNoDocsQuery("empty set of terms");
+        }
+        return super.rewrite(reader);
+    }
+
+    @Override
+    public Weight createWeight(IndexSearcher searcher, boolean needsScores, float boost) throws IOException {
+        return new ConstantScoreWeight(this, boost) {
+
+            @Override
+            public ScorerSupplier scorerSupplier(LeafReaderContext context) throws IOException {
+                final LeafReader reader = context.reader();
+                final Terms indexTerms = reader.terms(field);
+                if (indexTerms == null) {
+                    return null;
+                }
+                final Weight weight = this;
+                final long cost = cost(indexTerms);
+                return new ScorerSupplier() {
+                    @Override
+                    public Scorer get(boolean randomAccess) throws IOException {
+                        if (hasDocValues && (randomAccess || terms.size() * SEEK_COST > reader.maxDoc())) {
+                            SortedSetDocValues docValues = reader.getSortedSetDocValues(field);
+                            if (docValues != null) {
+                                return docValuesScorer(weight, docValues);
+                            }
+                        }
+                        return postingsScorer(weight, reader.maxDoc(), indexTerms);
+                    }
+
+                    @Override
+                    public long cost() {
+                        return cost;
+                    }
+                };
+            }
+
+            @Override
+            public Scorer scorer(LeafReaderContext context) throws IOException {
+                ScorerSupplier scorerSupplier = scorerSupplier(context);
+                if (scorerSupplier == null) {
+                    return null;
+                }
+                return scorerSupplier.get(false);
+            }
+
+            private long cost(Terms indexTerms) throws IOException {
+                // the number of documents the terms match if each term matches the average number of documents of a term
+                long docFreqPerTerm = 1;
+                if (indexTerms.size() > 0 && indexTerms.getSumDocFreq() > 0) {
+                    docFreqPerTerm = Math.max(1, indexTerms.getSumDocFreq() / indexTerms.size());
+                }
+                long docCount = indexTerms.getDocCount() >= 0 ? indexTerms.getDocCount() : Long.MAX_VALUE;
+                return Math.min(docCount, terms.size() * docFreqPerTerm);
+            }
+
+            private Scorer postingsScorer(Weight weight, int maxDoc, Terms indexTerms) throws IOException {
+                DocIdSetBuilder builder = new DocIdSetBuilder(maxDoc, indexTerms);
+                TermsEnum termsEnum = indexTerms.iterator();
+                PostingsEnum postings = null;
+                PrefixCodedTerms.TermIterator iterator = terms.iterator();
+                for (BytesRef term = iterator.next(); term != null; term = iterator.next()) {
+                    if (termsEnum.seekExact(term)) {
+                        postings = termsEnum.postings(postings, PostingsEnum.NONE);
+                        builder.add(postings);
+                    }
+                }
+                DocIdSetIterator disi = builder.build().iterator();
+                return new ConstantScoreScorer(weight, score(), disi == null ? DocIdSetIterator.empty() : disi);
+            }
+
+            private Scorer docValuesScorer(Weight weight, SortedSetDocValues docValues) throws IOException {
+                final LongBitSet ords = new LongBitSet(docValues.getValueCount());
+                boolean matchesAny = false;
+                TermsEnum termsEnum = docValues.termsEnum();
+                PrefixCodedTerms.TermIterator iterator = terms.iterator();
+                if (terms.size() * SEEK_COST < docValues.getValueCount()) {
+                    for (BytesRef term = iterator.next(); term != null; term = iterator.next()) {
+                        if (termsEnum.seekExact(term)) {
+                            ords.set(termsEnum.ord());
+                            matchesAny = true;
+                        }
+                    }
+                } else {
+                    // both the set and the terms dictionary are sorted, so they are merged in a single pass over the dictionary
+                    BytesRef term = iterator.next();
+                    BytesRef ordTerm = termsEnum.next();
+                    while (term != null && ordTerm != null) {
+                        int cmp = term.compareTo(ordTerm);
+                        if (cmp == 0) {
+                            ords.set(termsEnum.ord());
+                            matchesAny = true;
+                            term = iterator.next();
+                            ordTerm = termsEnum.next();
+                        } else if (cmp < 0) {
+                            term = iterator.next();
+                        } else {
+                            ordTerm = termsEnum.next();
+                        }
+                    }
+                }
+                if (matchesAny == false) {
+                    return new ConstantScoreScorer(weight, score(), DocIdSetIterator.empty());
+                }
+                TwoPhaseIterator twoPhase = new TwoPhaseIterator(docValues) {
+                    @Override
+                    public boolean matches() throws IOException {
+                        for (long ord = docValues.nextOrd(); ord != SortedSetDocValues.NO_MORE_ORDS; ord = docValues.nextOrd()) {
+                            if (ords.get(ord)) {
+                                return true;
+                            }
+                        }
+                        return false;
+                    }
+
+                    @Override
+                    public float matchCost() {
+                        // a few ordinals to read and check per document
+                        return 3;
+                    }
+                };
+                return new ConstantScoreScorer(weight, score(), twoPhase);
+            }
+        };
+    }
+
+    @Override
+    public long ramBytesUsed() {
+        return BASE_RAM_BYTES_USED + terms.ramBytesUsed();
+    }
+
+    @Override
+    public Collection<Accountable> getChildResources() {
+        return Collections.emptyList();
+    }
+
+    @Override
+    public boolean equals(Object obj) {
+        if (sameClassAs(obj) == false) {
+            return false;
+        }
+        PrefixCodedTermsQuery other = (PrefixCodedTermsQuery) obj;
+        // the terms are usually shared by the queries of a set, which makes the comparison of their bytes rare
+        return field.equals(other.field)
+            && hasDocValues == other.hasDocValues
+            && termsHashCode == other.termsHashCode
+            && (terms == other.terms || terms.equals(other.terms));
+    }
+
+    @Override
+    public int hashCode() {
+        return 31 * (31 * classHash() + field.hashCode()) + termsHashCode;
+    }
+
+    @Override
+    public String toString(String defaultField) {
+        StringBuilder builder = new StringBuilder();
+        if (field.equals(defaultField) == false) {
+            builder.append(field).append(':');
+        }
+        builder.append('(');
+        PrefixCodedTerms.TermIterator iterator = terms.iterator();
+        boolean first = true;
+        for (BytesRef term = iterator.next(); term != null; term = iterator.next()) {
+            if (first == false) {
+                builder.append(' ');
+            }
+            first = false;
+            builder.append(Term.toString(term));
+        }
+        return builder.append(')').toString();
+    }
+}
@@ -0,0 +1,297 @@
+/*
+ * Licensed to Elasticsearch under one or more contributor
+ * license agreements. See the NOTICE file distributed with
+ * this work for additional information regarding copyright
+ * ownership. Elasticsearch licenses this file to you under
+ * the Apache License, Version 2.0 (the "License"); you may
+ * not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.elasticsearch.index.search;
+
+import org.apache.lucene.index.BinaryDocValues;
+import org.apache.lucene.index.IndexReader;
+import org.apache.lucene.index.LeafReaderContext;
+import org.apache.lucene.index.Term;
+import org.apache.lucene.search.ConjunctionDISI;
+import org.apache.lucene.search.DocIdSetIterator;
+import org.apache.lucene.search.Explanation;
+import org.apache.lucene.search.IndexSearcher;
+import org.apache.lucene.search.Query;
+import org.apache.lucene.search.Scorer;
+import org.apache.lucene.search.Weight;
+import org.apache.lucene.util.BytesRef;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.util.Arrays;
+import java.util.Locale;
+import java.util.Objects;
+import java.util.Set;
+
+/**
+ * Scores the documents that have a vector in the binary doc values of a field, and that match an optional filter, by the similarity
+ * of their vector with a query vector. Every candidate document is scored, so this is an exact, brute-force nearest neighbours search
+ * whose cost is linear in the number of candidates: the filter is the way to keep it cheap on large indices.
+ * <p>
+ * The vectors are encoded as the little-endian bits of each dimension followed by the bits of the magnitude of the vector, see
+ * {@link #encodeFloat(float, byte[], int)}. Each vector is decoded in bulk into a scratch array that the dot product runs on.
+ */
+public final class VectorSimilarityQuery extends Query {
+
+    /**
+     * How the similarity of two vectors is turned into a score. Scores are in <code>[0, 1]</code>, higher is more similar.
+     */
+    public enum Similarity {
+        /**
+         * The cosine of the angle between the vectors, mapped to <code>(1 + cosine) / 2</code>. A vector whose magnitude is
+         * <code>0</code> is at the same distance of all others.
+         */
+        COSINE {
+            @Override
+            float score(float dotProduct, float queryMagnitude, float vectorMagnitude) {
+                if (vectorMagnitude == 0) {
+                    return 0.5f;
+                }
+                return (1 + dotProduct / (queryMagnitude * vectorMagnitude)) / 2;
+            }
+        },
+        /**
+         * The dot product of the vectors, mapped to <code>(1 + dot_product) / 2</code>. This is the cosine of vectors of unit length,
+         * without the cost of dividing by their magnitudes, so the indexed and query vectors should be normalized.
+         */
+        DOT_PRODUCT {
+            @Override
+            float score(float dotProduct, float queryMagnitude, float vectorMagnitude) {
+                return (1 + dotProduct) / 2;
+            }
+        };
+
+        abstract float score(float dotProduct, float queryMagnitude, float vectorMagnitude);
+
+        public static Similarity fromString(String similarity) {
+            for (Similarity value : values()) {
+                if (value.toString().equals(similarity)) {
+                    return value;
+                }
+            }
+            throw new IllegalArgumentException("unknown vector similarity [" + similarity + "], expected one of "
+                + Arrays.toString(values()));
+        }
+
+        @Override
+        public String toString() {
+            return name().toLowerCase(Locale.ROOT);
+        }
+    }
+
+    private final String field;
+    private final float[] queryVector;
+    private final float queryMagnitude;
+    private final Similarity similarity;
+    private final Query filter;
+
+    /**
+     * @param field         the field whose binary doc values hold the vectors
+     * @param queryVector   the vector to compare the vectors of the documents with
+     * @param similarity    how to score the vectors
+     * @param filter        the query the documents must match to be scored, or <code>null</code> to score all documents with a vector
+     */
+    public VectorSimilarityQuery(String field, float[] queryVector, Similarity similarity, Query filter) {
+        this.field = Objects.requireNonNull(field);
+        this.queryVector = Objects.requireNonNull(queryVector);
+        this.similarity = Objects.requireNonNull(similarity);
+        this.filter = filter;
+        double squaredMagnitude = 0;
+        for (float value : queryVector) {
+            squaredMagnitude += (double) value * value;
+        }
+        this.queryMagnitude = (float) Math.sqrt(squaredMagnitude);
+    }
+
+    public String getField() {
+        return field;
+    }
+
+    public float[] getQueryVector() {
+        return queryVector;
+    }
+
+    public Similarity getSimilarity() {
+        return similarity;
+    }
+
+    public Query getFilter() {
+        return filter;
+    }
+
+    /**
+     * The number of bytes a vector of the given number of dimensions is encoded into.
+     */
+    public static int encodedLength(int dims) {
+        // the magnitude of the vector comes after its dimensions
+        return (dims + 1) * Float.BYTES;
+    }
+
+    /**
+     * Writes the bits of the <code>index</code>-th float of an encoded vector.
+     */
+    public static void encodeFloat(float value, byte[] bytes, int index) {
+        int bits = Float.floatToIntBits(value);
+        int offset = index * Float.BYTES;
+        bytes[offset] = (byte) bits;
+        bytes[offset + 1] = (byte) (bits >> 8);
+        bytes[offset + 2] = (byte) (bits >> 16);
+        bytes[offset + 3] = (byte) (bits >> 24);
+    }
+
+    /**
+     * Computes the dot product of the query vector with a vector decoded into <code>vector</code>.
+     */
+    static float dotProduct(float[] queryVector, float[] vector) {
+        // unrolled with independent sums so that the multiplications of consecutive dimensions don't wait on each other
+        float sum0 = 0, sum1 = 0, sum2 = 0, sum3 = 0;
+        final int unrolled = queryVector.length & ~3;
+        int i = 0;
+        for (; i < unrolled; i += 4) {
+            sum0 += queryVector[i] * vector[i];
+            sum1 += queryVector[i + 1] * vector[i + 1];
+            sum2 += queryVector[i + 2] * vector[i + 2];
+            sum3 += queryVector[i + 3] * vector[i + 3];
+        }
+        for (; i < queryVector.length; i++) {
+            sum0 += queryVector[i] * vector[i];
+        }
+        return (sum0 + sum1) + (sum2 + sum3);
+    }
+
+    /**
+     * Decodes an encoded vector, including its magnitude, into <code>vector</code>, which must have one more slot than the number
+     * of dimensions.
+     */
+    static void decode(BytesRef bytes, float[] vector) {
+        // a bulk get of little-endian floats is a plain copy on most hardware, much faster than assembling each float from its bytes
+        ByteBuffer.wrap(bytes.bytes, bytes.offset, bytes.length).order(ByteOrder.LITTLE_ENDIAN).asFloatBuffer().get(vector);
+    }
+
+    float score(BytesRef bytes, float[] vector) {
+        decode(bytes, vector);
+        final float dotProduct = dotProduct(queryVector, vector);
+        return similarity.score(dotProduct, queryMagnitude, vector[queryVector.length]);
+    }
+
+    @Override
+    public Query rewrite(IndexReader reader) throws IOException {
+        if (filter != null) {
+            Query rewritten = filter.rewrite(reader);
+            if (rewritten != filter) {
+                return new VectorSimilarityQuery(field, queryVector, similarity, rewritten);
+            }
+        }
+        return super.rewrite(reader);
+    }
+
+    @Override
+    public Weight createWeight(IndexSearcher searcher, boolean needsScores, float boost) throws IOException {
+        final Weight filterWeight = filter == null ? null : searcher.createWeight(filter, false, 1f);
+        return new Weight(this) {
+
+            @Override
+            public void extractTerms(Set<Term> terms) {
+                if (filterWeight != null) {
+                    filterWeight.extractTerms(terms);
+                }
+            }
+
+            @Override
+            public Scorer scorer(LeafReaderContext context) throws IOException {
+                final BinaryDocValues values = context.reader().getBinaryDocValues(field);
+                if (values == null) {
+                    return null;
+                }
+                final DocIdSetIterator iterator;
+                if (filterWeight == null) {
+                    iterator = values;
+                } else {
+                    Scorer filterScorer = filterWeight.scorer(context);
+                    if (filterScorer == null) {
+                        return null;
+                    }
+                    iterator = ConjunctionDISI.intersectIterators(Arrays.asList(filterScorer.iterator(), values));
+                }
+                final float[] vector = new float[queryVector.length + 1];
+                return new Scorer(this) {
+
+                    @Override
+                    public int docID() {
+                        return iterator.docID();
+                    }
+
+                    @Override
+                    public float score() throws IOException {
+                        return boost * VectorSimilarityQuery.this.score(values.binaryValue(), vector);
+                    }
+
+                    @Override
+                    public int freq() {
+                        return 1;
+                    }
+
+                    @Override
+                    public DocIdSetIterator iterator() {
+                        return iterator;
+                    }
+                };
+            }
+
+            @Override
+            public Explanation explain(LeafReaderContext context, int doc) throws IOException {
+                Scorer scorer = scorer(context);
+                if (scorer != null && scorer.iterator().advance(doc) == doc) {
+                    return Explanation.match(scorer.score(), "[" + similarity + "] similarity of field [" + field
+                        + "] with the query vector, times boost [" + boost + "]");
+                }
+                return Explanation.noMatch("no vector in field [" + field + "] or no match on the filter");
+            }
+        };
+    }
+
+    @Override
+    public String toString(String field) {
+        StringBuilder buffer = new StringBuilder("vector_similarity(");
+        if (this.field.equals(field) == false) {
+            buffer.append(this.field).append(':');
+        }
+        buffer.append(similarity).append(' ').append(Arrays.toString(queryVector));
+        if (filter != null) {
+            buffer.append(" filter=").append(filter.toString(field));
+        }
+        return buffer.append(')').toString();
+    }
+
+    @Override
+    public boolean equals(Object obj) {
+        if (sameClassAs(obj) == false) {
+            return false;
+        }
+        VectorSimilarityQuery other = (VectorSimilarityQuery) obj;
+        return field.equals(other.field) && Arrays.equals(queryVector, other.queryVector) && similarity == other.similarity
+            && Objects.equals(filter, other.filter);
+    }
+
+    @Override
+    public int hashCode() {
+        return Objects.hash(classHash(), field, Arrays.hashCode(queryVector), similarity, filter);
+    }
+}
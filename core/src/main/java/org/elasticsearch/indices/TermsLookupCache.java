@@ -0,0 +1,235 @@
+/*
+ * Licensed to Elasticsearch under one or more contributor
+ * license agreements. See the NOTICE file distributed with
+ * this work for additional information regarding copyright
+ * ownership. Elasticsearch licenses this file to you under
+ * the Apache License, Version 2.0 (the "License"); you may
+ * not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.elasticsearch.indices;
+
+import org.apache.lucene.index.PrefixCodedTerms;
+import org.apache.lucene.util.Accountable;
+import org.apache.lucene.util.BytesRef;
+import org.apache.lucene.util.RamUsageEstimator;
+import org.elasticsearch.ElasticsearchException;
+import org.elasticsearch.ExceptionsHelper;
+import org.elasticsearch.action.get.GetRequest;
+import org.elasticsearch.action.get.GetResponse;
+import org.elasticsearch.client.Client;
+import org.elasticsearch.cluster.ClusterChangedEvent;
+import org.elasticsearch.cluster.ClusterStateListener;
+import org.elasticsearch.common.Strings;
+import org.elasticsearch.common.cache.Cache;
+import org.elasticsearch.common.cache.CacheBuilder;
+import org.elasticsearch.common.component.AbstractComponent;
+import org.elasticsearch.common.lucene.BytesRefs;
+import org.elasticsearch.common.lucene.uid.Versions;
+import org.elasticsearch.common.settings.Setting;
+import org.elasticsearch.common.settings.Setting.Property;
+import org.elasticsearch.common.settings.Settings;
+import org.elasticsearch.common.unit.ByteSizeValue;
+import org.elasticsearch.common.unit.TimeValue;
+import org.elasticsearch.common.xcontent.support.XContentMapValues;
+import org.elasticsearch.index.Index;
+import org.elasticsearch.index.engine.VersionConflictEngineException;
+import org.elasticsearch.index.search.PrefixCodedTermsQuery;
+import org.elasticsearch.search.fetch.subphase.FetchSourceContext;
+
+import java.io.Closeable;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Objects;
+import java.util.Set;
+import java.util.concurrent.ExecutionException;
+
+/**
+ * A node level cache of the terms fetched by the {@link TermsLookup}s of <code>terms</code> queries. The terms of a document are
+ * cached per version of the document, so a query first gets the version of the looked up document, which doesn't load its source,
+ * and the source is only fetched and parsed if the cache misses. The terms are kept sorted and prefix-compressed, see
+ * {@link PrefixCodedTermsQuery#encode(BytesRef[])}, and the same instance is used by all the shards and requests that look up the same
+ * version of a document.
+ * <p>
+ * Versions restart from scratch when an index is deleted and created again, so the entries of an index are invalidated when the index
+ * is deleted. A version doesn't identify the content of a document either: a document that is deleted and indexed again once its
+ * delete is no longer tracked, see {@link org.elasticsearch.index.IndexSettings#INDEX_GC_DELETES_SETTING}, starts from version 1 again,
+ * and external versioning with <code>external_gte</code> may index new content with the same version. Entries therefore expire after
+ * {@link #INDICES_CACHE_TERMS_LOOKUP_EXPIRE}, which defaults to the default of <code>index.gc_deletes</code>.
+ */
+public final class TermsLookupCache extends AbstractComponent implements ClusterStateListener, Closeable {
+
+    public static final Setting<ByteSizeValue> INDICES_CACHE_TERMS_LOOKUP_SIZE =
+        Setting.memorySizeSetting("indices.terms_lookup.cache.size", "1%", Property.NodeScope);
+    public static final Setting<TimeValue> INDICES_CACHE_TERMS_LOOKUP_EXPIRE =
+        Setting.timeSetting("indices.terms_lookup.cache.expire", TimeValue.timeValueSeconds(60), TimeValue.timeValueMillis(1),
+            Property.NodeScope);
+
+    private final Cache<Key, PrefixCodedTerms> cache;
+
+    TermsLookupCache(Settings settings) {
+        super(settings);
+        long sizeInBytes = INDICES_CACHE_TERMS_LOOKUP_SIZE.get(settings).getBytes();
+        cache = CacheBuilder.<Key, PrefixCodedTerms>builder()
+            .setMaximumWeight(sizeInBytes).weigher((k, v) -> k.ramBytesUsed() + v.ramBytesUsed())
+            .setExpireAfterWrite(INDICES_CACHE_TERMS_LOOKUP_EXPIRE.get(settings)).build();
+    }
+
+    /**
+     * Returns the terms the given lookup points to, with the ones of the current version of the looked up document taken from the
+     * cache if it holds them. The terms of a missing document are empty.
+     */
+    public PrefixCodedTerms lookup(TermsLookup termsLookup, Client client) {
+        GetRequest versionRequest = new GetRequest(termsLookup.index(), termsLookup.type(), termsLookup.id())
+            .preference("_local").routing(termsLookup.routing()).fetchSourceContext(FetchSourceContext.DO_NOT_FETCH_SOURCE);
+        GetResponse versionResponse = client.get(versionRequest).actionGet();
+        if (versionResponse.isExists() == false) {
+            return PrefixCodedTermsQuery.encode(new BytesRef[0]);
+        }
+        Key key = new Key(versionResponse.getIndex(), termsLookup.type(), termsLookup.id(), termsLookup.routing(),
+            termsLookup.path(), versionResponse.getVersion());
+        try {
+            return cache.computeIfAbsent(key, k -> fetch(termsLookup, k.index, client, k.version));
+        } catch (ExecutionException e) {
+            Throwable cause = ExceptionsHelper.unwrapCause(e.getCause());
+            if (cause instanceof VersionConflictEngineException) {
+                // the document was updated since its version was read, its latest terms are used but not cached
+                return fetch(termsLookup, versionResponse.getIndex(), client, Versions.MATCH_ANY);
+            }
+            if (cause instanceof RuntimeException) {
+                throw (RuntimeException) cause;
+            }
+            throw new ElasticsearchException(cause);
+        }
+    }
+
+    private static PrefixCodedTerms fetch(TermsLookup termsLookup, String index, Client client, long version) {
+        GetRequest getRequest = new GetRequest(index, termsLookup.type(), termsLookup.id())
+            .preference("_local").routing(termsLookup.routing()).version(version)
+            .fetchSourceContext(new FetchSourceContext(true, new String[] {termsLookup.path()}, Strings.EMPTY_ARRAY));
+        GetResponse getResponse = client.get(getRequest).actionGet();
+        if (getResponse.isSourceEmpty()) {
+            return PrefixCodedTermsQuery.encode(new BytesRef[0]);
+        }
+        List<Object> values = XContentMapValues.extractRawValues(termsLookup.path(), getResponse.getSourceAsMap());
+        BytesRef[] terms = new BytesRef[values.size()];
+        for (int i = 0; i < terms.length; i++) {
+            terms[i] = BytesRefs.toBytesRef(values.get(i));
+        }
+        return PrefixCodedTermsQuery.encode(terms);
+    }
+
+    @Override
+    public void clusterChanged(ClusterChangedEvent event) {
+        List<Index> deletedIndices = event.indicesDeleted();
+        if (deletedIndices.isEmpty()) {
+            return;
+        }
+        Set<String> deletedNames = new HashSet<>();
+        for (Index index : deletedIndices) {
+            deletedNames.add(index.getName());
+        }
+        clear(deletedNames);
+    }
+
+    /**
+     * Invalidates the terms looked up in the given indices.
+     */
+    void clear(Set<String> indices) {
+        for (Iterator<Key> iterator = cache.keys().iterator(); iterator.hasNext(); ) {
+            if (indices.contains(iterator.next().index)) {
+                iterator.remove();
+            }
+        }
+    }
+
+    /**
+     * Drops the expired entries, which would otherwise only be dropped once they are looked up again.
+     */
+    void cleanCache() {
+        cache.refresh();
+    }
+
+    /**
+     * The number of looked up documents whose terms are cached.
+     */
+    int count() {
+        return cache.count();
+    }
+
+    public TermsLookupCacheStats stats() {
+        Cache.CacheStats stats = cache.stats();
+        return new TermsLookupCacheStats(cache.weight(), cache.count(), stats.getHits(), stats.getMisses(), stats.getEvictions());
+    }
+
+    @Override
+    public void close() {
+        cache.invalidateAll();
+    }
+
+    static final class Key implements Accountable {
+        private static final long BASE_RAM_BYTES_USED = RamUsageEstimator.shallowSizeOfInstance(Key.class);
+
+        final String index;
+        final String type;
+        final String id;
+        final String routing;
+        final String path;
+        final long version;
+
+        Key(String index, String type, String id, String routing, String path, long version) {
+            this.index = index;
+            this.type = type;
+            this.id = id;
+            this.routing = routing;
+            this.path = path;
+            this.version = version;
+        }
+
+        @Override
+        public long ramBytesUsed() {
+            long chars = index.length() + type.length() + id.length() + path.length() + (routing == null ? 0 : routing.length());
+            return BASE_RAM_BYTES_USED + chars * Character.BYTES;
+        }
+
+        @Override
+        public Collection<Accountable> getChildResources() {
+            return Collections.emptyList();
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) {
+                return true;
+            }
+            if (o == null || getClass() != o.getClass()) {
+                return false;
+            }
+            Key key = (Key) o;
+            return version == key.version
+                && index.equals(key.index)
+                && type.equals(key.type)
+                && id.equals(key.id)
+                && Objects.equals(routing, key.routing)
+                && path.equals(key.path);
+        }
+
+        @Override
+        public int hashCode() {
+            return Objects.hash(index, type, id, routing, path, version);
+        }
+    }
+}
@@ -0,0 +1,105 @@
+/*
+ * Licensed to Elasticsearch under one or more contributor
+ * license agreements. See the NOTICE file distributed with
+ * this work for additional information regarding copyright
+ * ownership. Elasticsearch licenses this file to you under
+ * the Apache License, Version 2.0 (the "License"); you may
+ * not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.elasticsearch.indices;
+
+import org.elasticsearch.common.io.stream.StreamInput;
+import org.elasticsearch.common.io.stream.StreamOutput;
+import org.elasticsearch.common.io.stream.Writeable;
+import org.elasticsearch.common.unit.ByteSizeValue;
+import org.elasticsearch.common.xcontent.ToXContent;
+import org.elasticsearch.common.xcontent.XContentBuilder;
+
+import java.io.IOException;
+
+/**
+ * Stats about the {@link TermsLookupCache} of a node.
+ */
+public class TermsLookupCacheStats implements Writeable, ToXContent {
+
+    private final long memorySize;
+    private final long count;
+    private final long hitCount;
+    private final long missCount;
+    private final long evictions;
+
+    public TermsLookupCacheStats(long memorySize, long count, long hitCount, long missCount, long evictions) {
+        this.memorySize = memorySize;
+        this.count = count;
+        this.hitCount = hitCount;
+        this.missCount = missCount;
+        this.evictions = evictions;
+    }
+
+    public TermsLookupCacheStats(StreamInput in) throws IOException {
+        this.memorySize = in.readVLong();
+        this.count = in.readVLong();
+        this.hitCount = in.readVLong();
+        this.missCount = in.readVLong();
+        this.evictions = in.readVLong();
+    }
+
+    @Override
+    public void writeTo(StreamOutput out) throws IOException {
+        out.writeVLong(memorySize);
+        out.writeVLong(count);
+        out.writeVLong(hitCount);
+        out.writeVLong(missCount);
+        out.writeVLong(evictions);
+    }
+
+    public long getMemorySizeInBytes() {
+        return memorySize;
+    }
+
+    public ByteSizeValue getMemorySize() {
+        return new ByteSizeValue(memorySize);
+    }
+
+    /**
+     * The number of looked up documents whose terms are cached
+     */
+    public long getCount() {
+        return count;
+    }
+
+    public long getHitCount() {
+        return hitCount;
+    }
+
+    public long getMissCount() {
+        return missCount;
+    }
+
+    public long getEvictions() {
+        return evictions;
+    }
+
+    @Override
+    public XContentBuilder toXContent(XContentBuilder builder, Params params) throws IOException {
+        builder.startObject("terms_lookup_cache");
+        builder.byteSizeField("memory_size_in_bytes", "memory_size", memorySize);
+        builder.field("count", count);
+        builder.field("hit_count", hitCount);
+        builder.field("miss_count", missCount);
+        builder.field("evictions", evictions);
+        builder.endObject();
+        return builder;
+    }
+}
@@ -70,6 +70,14 @@ public class HierarchyCircuitBreakerService extends CircuitBreakerService {
     public static final Setting<CircuitBreaker.Type> IN_FLIGHT_REQUESTS_CIRCUIT_BREAKER_TYPE_SETTING =
         new Setting<>("network.breaker.inflight_requests.type", "memory", CircuitBreaker.Type::parseValue, Property.NodeScope);
 
+    /**
+     * The maximum amount of memory that the field data that is kept out of the heap may use on the node, see
+     * {@link org.elasticsearch.index.fielddata.IndexFieldDataService#INDEX_FIELDDATA_OFF_HEAP_SETTING}. Defaults to the default limit
+     * of the field data breaker, which the same field data would be subject to on the heap.
+     */
+    public static final Setting<ByteSizeValue> FIELDDATA_OFF_HEAP_CIRCUIT_BREAKER_LIMIT_SETTING =
+        Setting.memorySizeSetting("indices.fielddata.off_heap.limit", "60%", Property.NodeScope);
+
     private volatile BreakerSettings parentSettings;
     private volatile BreakerSettings fielddataSettings;
     private volatile BreakerSettings inFlightRequestsSettings;
@@ -109,6 +117,8 @@ public class HierarchyCircuitBreakerService extends CircuitBreakerService {
         registerBreaker(this.requestSettings);
         registerBreaker(this.fielddataSettings);
         registerBreaker(this.inFlightRequestsSettings);
+        registerBreaker(new BreakerSettings(CircuitBreaker.FIELDDATA_OFF_HEAP,
+                FIELDDATA_OFF_HEAP_CIRCUIT_BREAKER_LIMIT_SETTING.get(settings).getBytes(), 1.0));
 
         clusterSettings.addSettingsUpdateConsumer(TOTAL_CIRCUIT_BREAKER_LIMIT_SETTING, this::setTotalCircuitBreakerLimit, this::validateTotalCircuitBreakerLimit);
         clusterSettings.addSettingsUpdateConsumer(FIELDDATA_CIRCUIT_BREAKER_LIMIT_SETTING, FIELDDATA_CIRCUIT_BREAKER_OVERHEAD_SETTING, this::setFieldDataBreakerLimit);
@@ -182,7 +192,9 @@ public class HierarchyCircuitBreakerService extends CircuitBreakerService {
         // estimations for each individual breaker
         for (CircuitBreaker breaker : this.breakers.values()) {
             allStats.add(stats(breaker.getName()));
-            parentEstimated += breaker.getUsed();
+            if (isOnHeap(breaker)) {
+                parentEstimated += breaker.getUsed();
+            }
         }
         // Manually add the parent breaker settings since they aren't part of the breaker map
         allStats.add(new CircuitBreakerStats(CircuitBreaker.PARENT, parentSettings.getLimit(),
@@ -202,7 +214,9 @@ public class HierarchyCircuitBreakerService extends CircuitBreakerService {
     public void checkParentLimit(String label) throws CircuitBreakingException {
         long totalUsed = 0;
         for (CircuitBreaker breaker : this.breakers.values()) {
-            totalUsed += (breaker.getUsed() * breaker.getOverhead());
+            if (isOnHeap(breaker)) {
+                totalUsed += (breaker.getUsed() * breaker.getOverhead());
+            }
         }
 
         long parentLimit = this.parentSettings.getLimit();
@@ -216,6 +230,13 @@ public class HierarchyCircuitBreakerService extends CircuitBreakerService {
         }
     }
 
+    /**
+     * Whether the memory that the breaker accounts for is on the heap, and so counts towards the limit of the parent breaker.
+     */
+    private static boolean isOnHeap(CircuitBreaker breaker) {
+        return CircuitBreaker.FIELDDATA_OFF_HEAP.equals(breaker.getName()) == false;
+    }
+
     /**
      * Allows to register a custom circuit breaker.
      * Warning: Will overwrite any existing custom breaker with the same name.
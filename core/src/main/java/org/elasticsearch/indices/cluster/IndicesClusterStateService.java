@@ -110,6 +110,11 @@ public class IndicesClusterStateService extends AbstractLifecycleComponent imple
 
     private final FailedShardHandler failedShardHandler = new FailedShardHandler();
 
+    private final ShardCreator shardCreator = new ShardCreator();
+
+    // the last cluster state applied by the synchronous part of this service, new shards are created from it asynchronously
+    private ClusterState lastAppliedState;
+
     private final boolean sendRefreshMapping;
     private final List<IndexEventListener> buildInIndexListener;
 
@@ -163,12 +168,14 @@ public class IndicesClusterStateService extends AbstractLifecycleComponent imple
         // Doesn't make sense to manage shards on non-master and non-data nodes
         if (DiscoveryNode.isDataNode(settings) || DiscoveryNode.isMasterNode(settings)) {
             clusterService.addHighPriorityApplier(this);
+            clusterService.addAsyncApplier(shardCreator);
         }
     }
 
     @Override
     protected void doStop() {
         if (DiscoveryNode.isDataNode(settings) || DiscoveryNode.isMasterNode(settings)) {
+            clusterService.removeApplier(shardCreator);
             clusterService.removeApplier(this);
         }
     }
@@ -184,6 +191,7 @@ public class IndicesClusterStateService extends AbstractLifecycleComponent imple
         }
 
         final ClusterState state = event.state();
+        lastAppliedState = state;
 
         // we need to clean the shards and indices we have on this node, since we
         // are going to recover them again once state persistence is disabled (no master / not recovered)
@@ -210,7 +218,60 @@ public class IndicesClusterStateService extends AbstractLifecycleComponent imple
 
         createIndices(state);
 
-        createOrUpdateShards(state);
+        updateShards(state); // new shards are created asynchronously by the shard creator, see #createShards()
+    }
+
+    /**
+     * Creates the shards that are allocated to this node but do not exist yet, using the last cluster state that was applied by
+     * {@link #applyClusterState(ClusterChangedEvent)}. Creating a shard opens its store and can be slow, so it is kept off the
+     * cluster state applier thread. Working on the latest applied state rather than on the state of the event that triggered the
+     * call makes sure shards that were removed in the meantime are not created again.
+     */
+    synchronized void createShards() {
+        if (!lifecycle.started()) {
+            return;
+        }
+
+        final ClusterState state = lastAppliedState;
+        if (state == null || state.blocks().disableStatePersistence()) {
+            return;
+        }
+
+        RoutingNode localRoutingNode = state.getRoutingNodes().node(state.nodes().getLocalNodeId());
+        if (localRoutingNode == null) {
+            return;
+        }
+
+        DiscoveryNodes nodes = state.nodes();
+        RoutingTable routingTable = state.routingTable();
+
+        for (final ShardRouting shardRouting : localRoutingNode) {
+            ShardId shardId = shardRouting.shardId();
+            if (failedShardsCache.containsKey(shardId) == false) {
+                AllocatedIndex<? extends Shard> indexService = indicesService.indexService(shardId.getIndex());
+                assert indexService != null : "index " + shardId.getIndex() + " should have been created by createIndices";
+                if (indexService.getShardOrNull(shardId.id()) == null) {
+                    assert shardRouting.initializing() : shardRouting + " should have been removed by failMissingShards";
+                    createShard(nodes, routingTable, shardRouting, state);
+                }
+            }
+        }
+    }
+
+    /**
+     * Applies the cluster states to {@link #createShards()} asynchronously, see {@link ClusterService#addAsyncApplier}.
+     */
+    private class ShardCreator implements ClusterStateApplier {
+
+        @Override
+        public void applyClusterState(ClusterChangedEvent event) {
+            createShards();
+        }
+
+        @Override
+        public String toString() {
+            return "indices shard creator";
+        }
     }
 
     /**
@@ -494,7 +555,7 @@ public class IndicesClusterStateService extends AbstractLifecycleComponent imple
         }
     }
 
-    private void createOrUpdateShards(final ClusterState state) {
+    private void updateShards(final ClusterState state) {
         RoutingNode localRoutingNode = state.getRoutingNodes().node(state.nodes().getLocalNodeId());
         if (localRoutingNode == null) {
             return;
@@ -509,11 +570,10 @@ public class IndicesClusterStateService extends AbstractLifecycleComponent imple
                 AllocatedIndex<? extends Shard> indexService = indicesService.indexService(shardId.getIndex());
                 assert indexService != null : "index " + shardId.getIndex() + " should have been created by createIndices";
                 Shard shard = indexService.getShardOrNull(shardId.id());
-                if (shard == null) {
-                    assert shardRouting.initializing() : shardRouting + " should have been removed by failMissingShards";
-                    createShard(nodes, routingTable, shardRouting, state);
-                } else {
+                if (shard != null) {
                     updateShard(nodes, shardRouting, shard, routingTable, state);
+                } else {
+                    assert shardRouting.initializing() : shardRouting + " should have been removed by failMissingShards";
                 }
             }
         }
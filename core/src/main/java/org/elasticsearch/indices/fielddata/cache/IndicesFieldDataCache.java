@@ -24,7 +24,9 @@ import org.apache.lucene.index.DirectoryReader;
 import org.apache.lucene.index.IndexReader;
 import org.apache.lucene.index.LeafReaderContext;
 import org.apache.lucene.index.IndexReader.CacheKey;
+import org.apache.lucene.store.MMapDirectory;
 import org.apache.lucene.util.Accountable;
+import org.apache.lucene.util.IOUtils;
 import org.elasticsearch.common.Nullable;
 import org.elasticsearch.common.cache.Cache;
 import org.elasticsearch.common.cache.CacheBuilder;
@@ -41,12 +43,17 @@ import org.elasticsearch.index.Index;
 import org.elasticsearch.index.fielddata.AtomicFieldData;
 import org.elasticsearch.index.fielddata.IndexFieldData;
 import org.elasticsearch.index.fielddata.IndexFieldDataCache;
+import org.elasticsearch.index.fielddata.OffHeapAccountable;
 import org.elasticsearch.index.shard.ShardId;
 import org.elasticsearch.index.shard.ShardUtils;
 
 import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Path;
 import java.util.ArrayList;
 import java.util.List;
+import java.util.Objects;
+import java.util.concurrent.ExecutionException;
 import java.util.function.ToLongBiFunction;
 
 public class IndicesFieldDataCache extends AbstractComponent implements RemovalListener<IndicesFieldDataCache.Key, Accountable>, Releasable{
@@ -55,8 +62,20 @@ public class IndicesFieldDataCache extends AbstractComponent implements RemovalL
         Setting.memorySizeSetting("indices.fielddata.cache.size", new ByteSizeValue(-1), Property.NodeScope);
     private final IndexFieldDataCache.Listener indicesFieldDataCacheListener;
     private final Cache<Key, Accountable> cache;
+    private final OffHeapFieldData offHeapFieldData;
 
+    /**
+     * Creates a cache that refuses to load field data that is kept out of the heap.
+     */
     public IndicesFieldDataCache(Settings settings, IndexFieldDataCache.Listener indicesFieldDataCacheListener) {
+        this(settings, indicesFieldDataCacheListener, null);
+    }
+
+    /**
+     * Creates a cache that writes the field data that is kept out of the heap to the given temp directory of the node.
+     */
+    public IndicesFieldDataCache(Settings settings, IndexFieldDataCache.Listener indicesFieldDataCacheListener,
+                                 @Nullable Path tempDirectory) {
         super(settings);
         this.indicesFieldDataCacheListener = indicesFieldDataCacheListener;
         final long sizeInBytes = INDICES_FIELDDATA_CACHE_SIZE_KEY.get(settings).getBytes();
@@ -66,15 +85,19 @@ public class IndicesFieldDataCache extends AbstractComponent implements RemovalL
             cacheBuilder.setMaximumWeight(sizeInBytes).weigher(new FieldDataWeigher());
         }
         cache = cacheBuilder.build();
+        offHeapFieldData = tempDirectory == null ? null : new OffHeapFieldData(logger, tempDirectory);
     }
 
     @Override
     public void close() {
         cache.invalidateAll();
+        if (offHeapFieldData != null) {
+            offHeapFieldData.close();
+        }
     }
 
     public IndexFieldDataCache buildIndexFieldDataCache(IndexFieldDataCache.Listener listener, Index index, String fieldName) {
-        return new IndexFieldCache(logger, cache, index, fieldName, indicesFieldDataCacheListener, listener);
+        return new IndexFieldCache(logger, cache, offHeapFieldData, index, fieldName, indicesFieldDataCacheListener, listener);
     }
 
     public Cache<Key, Accountable> getCache() {
@@ -113,14 +136,17 @@ public class IndicesFieldDataCache extends AbstractComponent implements RemovalL
         final Index index;
         final String fieldName;
         private final Cache<Key, Accountable> cache;
+        private final OffHeapFieldData offHeapFieldData;
         private final Listener[] listeners;
 
-        IndexFieldCache(Logger logger,final Cache<Key, Accountable> cache, Index index, String fieldName, Listener... listeners) {
+        IndexFieldCache(Logger logger, final Cache<Key, Accountable> cache, @Nullable OffHeapFieldData offHeapFieldData, Index index,
+                        String fieldName, Listener... listeners) {
             this.logger = logger;
             this.listeners = listeners;
             this.index = index;
             this.fieldName = fieldName;
             this.cache = cache;
+            this.offHeapFieldData = offHeapFieldData;
         }
 
         @Override
@@ -179,6 +205,15 @@ public class IndicesFieldDataCache extends AbstractComponent implements RemovalL
             return (IFD) accountable;
         }
 
+        @Override
+        public <FD extends AtomicFieldData & OffHeapAccountable> FD loadOffHeap(LeafReaderContext context, String fieldName,
+                                                                                OffHeapLoader<FD> loader) throws Exception {
+            if (offHeapFieldData == null) {
+                throw new IllegalStateException("field data of [" + fieldName + "] can't be kept out of the heap without a temp directory");
+            }
+            return offHeapFieldData.load(context, fieldName, loader, listeners);
+        }
+
         @Override
         public void onClose(CacheKey key) throws IOException {
             cache.invalidate(new Key(this, key, null));
@@ -212,6 +247,107 @@ public class IndicesFieldDataCache extends AbstractComponent implements RemovalL
         }
     }
 
+    /**
+     * The field data of the node that is kept out of the heap. Unlike the field data of the cache, which is loaded again after it is
+     * evicted or cleared although searches may still use the previous instance, it is loaded once per segment and field and only
+     * closed, and its memory released, once the segment is closed, when no search can use it anymore.
+     */
+    static final class OffHeapFieldData implements RemovalListener<OffHeapKey, AtomicFieldData>, Releasable {
+        private final Logger logger;
+        private final MMapDirectory directory;
+        private final Cache<OffHeapKey, AtomicFieldData> fieldData;
+
+        OffHeapFieldData(Logger logger, Path tempDirectory) {
+            this.logger = logger;
+            try {
+                this.directory = new MMapDirectory(tempDirectory);
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+            this.fieldData = CacheBuilder.<OffHeapKey, AtomicFieldData>builder().removalListener(this).build();
+        }
+
+        <FD extends AtomicFieldData & OffHeapAccountable> FD load(LeafReaderContext context, String fieldName,
+                                                                  IndexFieldDataCache.OffHeapLoader<FD> loader,
+                                                                  IndexFieldDataCache.Listener[] listeners) throws Exception {
+            final IndexReader.CacheHelper cacheHelper = context.reader().getCoreCacheHelper();
+            if (cacheHelper == null) {
+                throw new IllegalArgumentException("Reader " + context.reader() + " does not support caching");
+            }
+            final ShardId shardId = ShardUtils.extractShardId(context.reader());
+            final OffHeapKey key = new OffHeapKey(cacheHelper.getKey(), fieldName, shardId, listeners);
+            try {
+                //noinspection unchecked
+                return (FD) fieldData.computeIfAbsent(key, k -> {
+                    final FD loaded = loader.load(directory);
+                    cacheHelper.addClosedListener(readerKey -> fieldData.invalidate(k));
+                    for (IndexFieldDataCache.Listener listener : k.listeners) {
+                        try {
+                            listener.onOffHeapLoad(shardId, fieldName, loaded.offHeapBytesUsed());
+                        } catch (Exception e) {
+                            // load anyway since listeners should not throw exceptions
+                            logger.error("Failed to call listener on off-heap field data loading", e);
+                        }
+                    }
+                    return loaded;
+                });
+            } catch (ExecutionException e) {
+                throw e.getCause() instanceof Exception ? (Exception) e.getCause() : e;
+            }
+        }
+
+        @Override
+        public void onRemoval(RemovalNotification<OffHeapKey, AtomicFieldData> notification) {
+            final OffHeapKey key = notification.getKey();
+            final AtomicFieldData value = notification.getValue();
+            try {
+                value.close();
+            } finally {
+                for (IndexFieldDataCache.Listener listener : key.listeners) {
+                    try {
+                        listener.onOffHeapRelease(key.shardId, key.fieldName, ((OffHeapAccountable) value).offHeapBytesUsed());
+                    } catch (Exception e) {
+                        // load anyway since listeners should not throw exceptions
+                        logger.error("Failed to call listener on off-heap field data release", e);
+                    }
+                }
+            }
+        }
+
+        @Override
+        public void close() {
+            fieldData.invalidateAll();
+            IOUtils.closeWhileHandlingException(directory);
+        }
+    }
+
+    static final class OffHeapKey {
+        final IndexReader.CacheKey readerKey;
+        final String fieldName;
+        final ShardId shardId;
+        final IndexFieldDataCache.Listener[] listeners;
+
+        OffHeapKey(IndexReader.CacheKey readerKey, String fieldName, @Nullable ShardId shardId, IndexFieldDataCache.Listener[] listeners) {
+            this.readerKey = readerKey;
+            this.fieldName = fieldName;
+            this.shardId = shardId;
+            this.listeners = listeners;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) return true;
+            if (o == null || getClass() != o.getClass()) return false;
+            OffHeapKey key = (OffHeapKey) o;
+            return readerKey.equals(key.readerKey) && fieldName.equals(key.fieldName);
+        }
+
+        @Override
+        public int hashCode() {
+            return Objects.hash(readerKey, fieldName);
+        }
+    }
+
     public static class Key {
         public final IndexFieldCache indexCache;
         public final IndexReader.CacheKey readerKey;
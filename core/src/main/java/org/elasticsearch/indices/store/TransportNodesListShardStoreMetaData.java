@@ -42,6 +42,7 @@ import org.elasticsearch.common.unit.TimeValue;
 import org.elasticsearch.common.xcontent.NamedXContentRegistry;
 import org.elasticsearch.env.NodeEnvironment;
 import org.elasticsearch.gateway.AsyncShardFetch;
+import org.elasticsearch.gateway.ShardFetchBatcher;
 import org.elasticsearch.index.IndexService;
 import org.elasticsearch.index.IndexSettings;
 import org.elasticsearch.index.shard.IndexShard;
@@ -66,6 +67,7 @@ public class TransportNodesListShardStoreMetaData extends TransportNodesAction<T
     TransportNodesListShardStoreMetaData.NodeStoreFilesMetaData> {
 
     public static final String ACTION_NAME = "internal:cluster/nodes/indices/shard/store";
+    public static final String BATCH_ACTION_NAME = ACTION_NAME + "[batch]";
 
     private final IndicesService indicesService;
 
@@ -80,6 +82,16 @@ public class TransportNodesListShardStoreMetaData extends TransportNodesAction<T
             Request::new, NodeRequest::new, ThreadPool.Names.FETCH_SHARD_STORE, NodeStoreFilesMetaData.class);
         this.indicesService = indicesService;
         this.nodeEnv = nodeEnv;
+        ShardFetchBatcher.registerRequestHandler(logger, transportService, BATCH_ACTION_NAME, ThreadPool.Names.FETCH_SHARD_STORE,
+            this::listNodeStoreFilesMetaData);
+    }
+
+    /**
+     * Creates a lister that batches the shard fetches of an allocation round into one request per node.
+     */
+    public ShardFetchBatcher<NodesStoreFilesMetaData, NodeStoreFilesMetaData> newBatcher(int batchSize) {
+        return new ShardFetchBatcher<>(logger, "shard_store", transportService, BATCH_ACTION_NAME, NodeStoreFilesMetaData::new,
+            (responses, failures) -> new NodesStoreFilesMetaData(clusterService.getClusterName(), responses, failures), this, batchSize);
     }
 
     @Override
@@ -105,10 +117,14 @@ public class TransportNodesListShardStoreMetaData extends TransportNodesAction<T
 
     @Override
     protected NodeStoreFilesMetaData nodeOperation(NodeRequest request) {
+        return listNodeStoreFilesMetaData(request.shardId);
+    }
+
+    private NodeStoreFilesMetaData listNodeStoreFilesMetaData(ShardId shardId) {
         try {
-            return new NodeStoreFilesMetaData(clusterService.localNode(), listStoreMetaData(request.shardId));
+            return new NodeStoreFilesMetaData(clusterService.localNode(), listStoreMetaData(shardId));
         } catch (IOException e) {
-            throw new ElasticsearchException("Failed to list store metadata for shard [" + request.shardId + "]", e);
+            throw new ElasticsearchException("Failed to list store metadata for shard [" + shardId + "]", e);
         }
     }
 
@@ -0,0 +1,206 @@
+/*
+ * Licensed to Elasticsearch under one or more contributor
+ * license agreements. See the NOTICE file distributed with
+ * this work for additional information regarding copyright
+ * ownership. Elasticsearch licenses this file to you under
+ * the Apache License, Version 2.0 (the "License"); you may
+ * not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.elasticsearch.node;
+
+import org.elasticsearch.cluster.ClusterChangedEvent;
+import org.elasticsearch.cluster.ClusterStateListener;
+import org.elasticsearch.cluster.node.DiscoveryNode;
+import org.elasticsearch.cluster.service.ClusterService;
+import org.elasticsearch.common.ExponentiallyWeightedMovingAverage;
+import org.elasticsearch.common.component.AbstractComponent;
+import org.elasticsearch.common.io.stream.StreamInput;
+import org.elasticsearch.common.io.stream.StreamOutput;
+import org.elasticsearch.common.io.stream.Writeable;
+import org.elasticsearch.common.settings.Settings;
+import org.elasticsearch.common.util.concurrent.ConcurrentCollections;
+
+import java.io.IOException;
+import java.util.HashMap;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentMap;
+
+/**
+ * Collects statistics about the search responses the coordinating node received from other nodes: an exponentially weighted moving
+ * average of the response time as seen by the coordinating node, and of the search queue size and the query phase service time as
+ * reported by the node that executed the request. The statistics are used to rank shard copies for adaptive replica selection, see
+ * {@link org.elasticsearch.cluster.routing.OperationRouting#USE_ADAPTIVE_REPLICA_SELECTION_SETTING}.
+ */
+public final class ResponseCollectorService extends AbstractComponent implements ClusterStateListener {
+
+    /**
+     * The weight parameter used for all moving averages of parameters.
+     */
+    public static final double ALPHA = 0.3;
+
+    private final ConcurrentMap<String, NodeStatistics> nodeIdToStats = ConcurrentCollections.newConcurrentMap();
+
+    public ResponseCollectorService(Settings settings, ClusterService clusterService) {
+        super(settings);
+        clusterService.addListener(this);
+    }
+
+    @Override
+    public void clusterChanged(ClusterChangedEvent event) {
+        if (event.nodesRemoved()) {
+            for (DiscoveryNode removedNode : event.nodesDelta().removedNodes()) {
+                removeNode(removedNode.getId());
+            }
+        }
+    }
+
+    void removeNode(String nodeId) {
+        nodeIdToStats.remove(nodeId);
+    }
+
+    /**
+     * Records the statistics of a search response that was received from the given node
+     *
+     * @param queueSize           the size of the search queue on the node
+     * @param responseTimeNanos   the time it took for the response to arrive, as seen by this node
+     * @param avgServiceTimeNanos the moving average of the query phase execution time, as reported by the node
+     */
+    public void addNodeStatistics(String nodeId, int queueSize, long responseTimeNanos, long avgServiceTimeNanos) {
+        nodeIdToStats.compute(nodeId, (id, stats) -> {
+            if (stats == null) {
+                return new NodeStatistics(nodeId, new ExponentiallyWeightedMovingAverage(ALPHA, queueSize),
+                    new ExponentiallyWeightedMovingAverage(ALPHA, responseTimeNanos), avgServiceTimeNanos);
+            } else {
+                stats.queueSize.addValue(queueSize);
+                stats.responseTime.addValue(responseTimeNanos);
+                stats.serviceTime = avgServiceTimeNanos;
+                return stats;
+            }
+        });
+    }
+
+    public Map<String, ComputedNodeStats> getAllNodeStatistics() {
+        final int clientNum = nodeIdToStats.size();
+        final Map<String, ComputedNodeStats> nodeStats = new HashMap<>(clientNum);
+        nodeIdToStats.forEach((nodeId, stats) -> nodeStats.put(nodeId, new ComputedNodeStats(clientNum, stats)));
+        return nodeStats;
+    }
+
+    /**
+     * Returns the statistics of the given node, if any search responses were received from it
+     */
+    public Optional<ComputedNodeStats> getNodeStatistics(final String nodeId) {
+        final int clientNum = nodeIdToStats.size();
+        return Optional.ofNullable(nodeIdToStats.get(nodeId)).map(stats -> new ComputedNodeStats(clientNum, stats));
+    }
+
+    public AdaptiveSelectionStats getAdaptiveStats(Map<String, Long> clientSearchConnections) {
+        return new AdaptiveSelectionStats(clientSearchConnections, getAllNodeStatistics());
+    }
+
+    /**
+     * A snapshot of the statistics of a node, used to rank the node
+     */
+    public static class ComputedNodeStats implements Writeable {
+
+        // We store timestamps with nanosecond precision, however, the formula specifies milliseconds, therefore we need to convert
+        // the values so the times don't unduly weight the formula
+        private static final double FACTOR = 1000000.0;
+        // Cubic queue adjustment factor of the C3 formula
+        private static final int QUEUE_ADJUSTMENT_FACTOR = 3;
+
+        public final String nodeId;
+        public final int clientNum;
+        public final int queueSize;
+        public final double responseTime;
+        public final double serviceTime;
+
+        public ComputedNodeStats(String nodeId, int clientNum, int queueSize, double responseTime, double serviceTime) {
+            this.nodeId = nodeId;
+            this.clientNum = clientNum;
+            this.queueSize = queueSize;
+            this.responseTime = responseTime;
+            this.serviceTime = serviceTime;
+        }
+
+        ComputedNodeStats(int clientNum, NodeStatistics nodeStats) {
+            this(nodeStats.nodeId, clientNum, (int) nodeStats.queueSize.getAverage(), nodeStats.responseTime.getAverage(),
+                nodeStats.serviceTime);
+        }
+
+        ComputedNodeStats(StreamInput in) throws IOException {
+            this.nodeId = in.readString();
+            this.clientNum = in.readInt();
+            this.queueSize = in.readInt();
+            this.responseTime = in.readDouble();
+            this.serviceTime = in.readDouble();
+        }
+
+        @Override
+        public void writeTo(StreamOutput out) throws IOException {
+            out.writeString(this.nodeId);
+            out.writeInt(this.clientNum);
+            out.writeInt(this.queueSize);
+            out.writeDouble(this.responseTime);
+            out.writeDouble(this.serviceTime);
+        }
+
+        /**
+         * Rank this node based on the C3 formula, lower is better. The rank combines the moving averages of the response time and the
+         * service time with the queue size of the node, adjusted by the number of requests this node has outstanding to the node.
+         *
+         * @param outstandingRequests the number of search requests this node currently has in flight to the ranked node
+         */
+        public double rank(long outstandingRequests) {
+            // the concurrency compensation is defined as the number of outstanding requests from the client to the node times the
+            // number of clients in the system
+            final double concurrencyCompensation = outstandingRequests * clientNum;
+            final double qHatS = 1 + concurrencyCompensation + queueSize;
+            final double rS = responseTime / FACTOR;
+            final double muBarS = serviceTime / FACTOR;
+            if (muBarS <= 0) {
+                // the node didn't report a service time yet, rank it by its response time only
+                return rS;
+            }
+            return rS - (1.0 / muBarS) + (Math.pow(qHatS, QUEUE_ADJUSTMENT_FACTOR) / muBarS);
+        }
+
+        @Override
+        public String toString() {
+            return String.format(Locale.ROOT, "ComputedNodeStats[%s](nodes: %d, queue: %d, response time: %.1fns, service time: %.1fns)",
+                nodeId, clientNum, queueSize, responseTime, serviceTime);
+        }
+    }
+
+    /**
+     * The moving averages of a node, updated with every response received from the node
+     */
+    private static class NodeStatistics {
+        final String nodeId;
+        final ExponentiallyWeightedMovingAverage queueSize;
+        final ExponentiallyWeightedMovingAverage responseTime;
+        // the service time is already a moving average computed by the node that executed the request
+        volatile double serviceTime;
+
+        NodeStatistics(String nodeId, ExponentiallyWeightedMovingAverage queueSizeEWMA,
+                       ExponentiallyWeightedMovingAverage responseTimeEWMA, double serviceTimeEWMA) {
+            this.nodeId = nodeId;
+            this.queueSize = queueSizeEWMA;
+            this.responseTime = responseTimeEWMA;
+            this.serviceTime = serviceTimeEWMA;
+        }
+    }
+}
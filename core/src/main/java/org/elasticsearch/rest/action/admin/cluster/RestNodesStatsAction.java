@@ -71,6 +71,9 @@ public class RestNodesStatsAction extends BaseRestHandler {
         metrics.put("script", r -> r.script(true));
         metrics.put("discovery", r -> r.discovery(true));
         metrics.put("ingest", r -> r.ingest(true));
+        metrics.put("adaptive_selection", r -> r.adaptiveSelection(true));
+        metrics.put("shard_fetch", r -> r.shardFetch(true));
+        metrics.put("terms_lookup_cache", r -> r.termsLookupCache(true));
         METRICS = Collections.unmodifiableMap(metrics);
     }
 
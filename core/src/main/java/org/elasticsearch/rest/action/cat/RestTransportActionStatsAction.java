@@ -0,0 +1,147 @@
+/*
+ * Licensed to Elasticsearch under one or more contributor
+ * license agreements. See the NOTICE file distributed with
+ * this work for additional information regarding copyright
+ * ownership. Elasticsearch licenses this file to you under
+ * the Apache License, Version 2.0 (the "License"); you may
+ * not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.elasticsearch.rest.action.cat;
+
+import org.elasticsearch.action.admin.cluster.node.stats.NodeStats;
+import org.elasticsearch.action.admin.cluster.node.stats.NodesStatsRequest;
+import org.elasticsearch.action.admin.cluster.node.stats.NodesStatsResponse;
+import org.elasticsearch.client.node.NodeClient;
+import org.elasticsearch.cluster.node.DiscoveryNode;
+import org.elasticsearch.common.Table;
+import org.elasticsearch.common.metrics.HistogramMetric;
+import org.elasticsearch.common.regex.Regex;
+import org.elasticsearch.common.settings.Settings;
+import org.elasticsearch.common.unit.ByteSizeValue;
+import org.elasticsearch.common.unit.TimeValue;
+import org.elasticsearch.rest.RestController;
+import org.elasticsearch.rest.RestRequest;
+import org.elasticsearch.rest.RestResponse;
+import org.elasticsearch.rest.action.RestResponseListener;
+import org.elasticsearch.transport.TransportActionStats;
+
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.Set;
+
+import static org.elasticsearch.rest.RestRequest.Method.GET;
+
+/**
+ * Lists the per action transport statistics of the nodes, see {@code transport.action_stats.enabled}.
+ */
+public class RestTransportActionStatsAction extends AbstractCatAction {
+    public RestTransportActionStatsAction(Settings settings, RestController controller) {
+        super(settings);
+        controller.registerHandler(GET, "/_cat/transport_actions", this);
+        controller.registerHandler(GET, "/_cat/transport_actions/{action_patterns}", this);
+    }
+
+    @Override
+    protected void documentation(StringBuilder sb) {
+        sb.append("/_cat/transport_actions\n");
+        sb.append("/_cat/transport_actions/{action_patterns}\n");
+    }
+
+    @Override
+    public RestChannelConsumer doCatRequest(final RestRequest request, final NodeClient client) {
+        final NodesStatsRequest nodesStatsRequest = new NodesStatsRequest();
+        nodesStatsRequest.clear().transport(true);
+        return channel -> client.admin().cluster().nodesStats(nodesStatsRequest, new RestResponseListener<NodesStatsResponse>(channel) {
+            @Override
+            public RestResponse buildResponse(NodesStatsResponse nodesStatsResponse) throws Exception {
+                return RestTable.buildResponse(buildTable(request, nodesStatsResponse), channel);
+            }
+        });
+    }
+
+    private static final Set<String> RESPONSE_PARAMS;
+
+    static {
+        final Set<String> responseParams = new HashSet<>(AbstractCatAction.RESPONSE_PARAMS);
+        responseParams.add("action_patterns");
+        RESPONSE_PARAMS = Collections.unmodifiableSet(responseParams);
+    }
+
+    @Override
+    protected Set<String> responseParams() {
+        return RESPONSE_PARAMS;
+    }
+
+    @Override
+    protected Table getTableWithHeader(final RestRequest request) {
+        final Table table = new Table();
+        table.startHeaders();
+        table.addCell("node_name", "default:true;alias:nn;desc:node name");
+        table.addCell("node_id", "default:false;alias:id;desc:persistent node id");
+        table.addCell("action", "default:true;alias:a;desc:transport action name");
+        table.addCell("count", "alias:c;default:true;text-align:right;desc:number of handled requests");
+        table.addCell("failures", "alias:f;default:true;text-align:right;desc:number of requests answered with an error");
+        table.addCell("request_size", "alias:rqs;default:true;text-align:right;desc:total size of received requests");
+        table.addCell("request_size_p99", "alias:rqs99;default:false;text-align:right;desc:99th percentile of received request sizes");
+        table.addCell("request_size_max", "alias:rqsm;default:false;text-align:right;desc:largest received request");
+        table.addCell("response_size", "alias:rss;default:true;text-align:right;desc:total size of sent responses");
+        table.addCell("response_size_p99", "alias:rss99;default:false;text-align:right;desc:99th percentile of sent response sizes");
+        table.addCell("response_size_max", "alias:rssm;default:false;text-align:right;desc:largest sent response");
+        table.addCell("time_p50", "alias:t50;default:true;text-align:right;desc:median request handling time");
+        table.addCell("time_p90", "alias:t90;default:false;text-align:right;desc:90th percentile of request handling times");
+        table.addCell("time_p99", "alias:t99;default:true;text-align:right;desc:99th percentile of request handling times");
+        table.addCell("time_max", "alias:tm;default:false;text-align:right;desc:longest request handling time");
+        table.endHeaders();
+        return table;
+    }
+
+    private Table buildTable(RestRequest req, NodesStatsResponse nodesStats) {
+        final String[] actions = req.paramAsStringArray("action_patterns", new String[] { "*" });
+        final Table table = getTableWithHeader(req);
+
+        for (final NodeStats stats : nodesStats.getNodes()) {
+            if (stats.getTransport() == null) {
+                continue;
+            }
+            final DiscoveryNode node = stats.getNode();
+            for (final TransportActionStats actionStats : stats.getTransport().getActionStats()) {
+                if (Regex.simpleMatch(actions, actionStats.getAction()) == false) {
+                    continue;
+                }
+                final HistogramMetric.Snapshot requestSizes = actionStats.getRequestSizes();
+                final HistogramMetric.Snapshot responseSizes = actionStats.getResponseSizes();
+                final HistogramMetric.Snapshot handlingTimes = actionStats.getHandlingTimes();
+
+                table.startRow();
+                table.addCell(node.getName());
+                table.addCell(node.getId());
+                table.addCell(actionStats.getAction());
+                table.addCell(actionStats.getCount());
+                table.addCell(actionStats.getFailures());
+                table.addCell(new ByteSizeValue(requestSizes.getSum()));
+                table.addCell(new ByteSizeValue(requestSizes.getPercentile(99)));
+                table.addCell(new ByteSizeValue(requestSizes.getMax()));
+                table.addCell(new ByteSizeValue(responseSizes.getSum()));
+                table.addCell(new ByteSizeValue(responseSizes.getPercentile(99)));
+                table.addCell(new ByteSizeValue(responseSizes.getMax()));
+                table.addCell(TimeValue.timeValueNanos(handlingTimes.getPercentile(50)));
+                table.addCell(TimeValue.timeValueNanos(handlingTimes.getPercentile(90)));
+                table.addCell(TimeValue.timeValueNanos(handlingTimes.getPercentile(99)));
+                table.addCell(TimeValue.timeValueNanos(handlingTimes.getMax()));
+                table.endRow();
+            }
+        }
+
+        return table;
+    }
+}
@@ -28,6 +28,7 @@ import org.elasticsearch.action.OriginalIndices;
 import org.elasticsearch.action.search.SearchTask;
 import org.elasticsearch.cluster.ClusterState;
 import org.elasticsearch.cluster.service.ClusterService;
+import org.elasticsearch.common.ExponentiallyWeightedMovingAverage;
 import org.elasticsearch.common.Nullable;
 import org.elasticsearch.common.component.AbstractLifecycleComponent;
 import org.elasticsearch.common.lucene.Lucene;
@@ -48,6 +49,7 @@ import org.elasticsearch.index.shard.IndexShard;
 import org.elasticsearch.index.shard.SearchOperationListener;
 import org.elasticsearch.indices.IndicesService;
 import org.elasticsearch.indices.cluster.IndicesClusterStateService.AllocatedIndices.IndexRemovalReason;
+import org.elasticsearch.node.ResponseCollectorService;
 import org.elasticsearch.script.ScriptContext;
 import org.elasticsearch.script.ScriptService;
 import org.elasticsearch.script.SearchScript;
@@ -94,6 +96,8 @@ import java.util.List;
 import java.util.Map;
 import java.util.Optional;
 import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ThreadPoolExecutor;
 import java.util.concurrent.atomic.AtomicLong;
 
 import static org.elasticsearch.common.unit.TimeValue.timeValueMillis;
@@ -145,6 +149,10 @@ public class SearchService extends AbstractLifecycleComponent implements IndexEv
 
     private final AtomicLong idGenerator = new AtomicLong();
 
+    /** moving average of the query phase execution time, reported to the coordinating node for adaptive replica selection */
+    private final ExponentiallyWeightedMovingAverage queryPhaseTimeEWMA =
+        new ExponentiallyWeightedMovingAverage(ResponseCollectorService.ALPHA, 0);
+
     private final ConcurrentMapLong<SearchContext> activeContexts = ConcurrentCollections.newConcurrentMapLongWithAggressiveConcurrency();
 
     public SearchService(ClusterService clusterService, IndicesService indicesService,
@@ -267,6 +275,7 @@ public class SearchService extends AbstractLifecycleComponent implements IndexEv
             }
             final long afterQueryTime = System.nanoTime();
             operationListener.onQueryPhase(context, afterQueryTime - time);
+            recordQueryPhaseStats(context.queryResult(), afterQueryTime - time);
             if (request.numberOfShards() == 1) {
                 return executeFetchPhase(context, operationListener, afterQueryTime);
             }
@@ -286,6 +295,19 @@ public class SearchService extends AbstractLifecycleComponent implements IndexEv
         }
     }
 
+    /**
+     * Updates the moving average of the query phase execution time and piggybacks it, together with the current size of the search
+     * queue, on the result so the coordinating node can rank the copies of the shards it searches.
+     */
+    private void recordQueryPhaseStats(QuerySearchResult queryResult, long queryPhaseTimeNanos) {
+        queryPhaseTimeEWMA.addValue(queryPhaseTimeNanos);
+        queryResult.serviceTimeEWMA((long) queryPhaseTimeEWMA.getAverage());
+        final Executor executor = threadPool.executor(Names.SEARCH);
+        if (executor instanceof ThreadPoolExecutor) {
+            queryResult.nodeQueueSize(((ThreadPoolExecutor) executor).getQueue().size());
+        }
+    }
+
     private QueryFetchSearchResult executeFetchPhase(SearchContext context, SearchOperationListener operationListener,
                                                         long afterQueryTime) {
         operationListener.onPreFetchPhase(context);
@@ -348,7 +370,9 @@ public class SearchService extends AbstractLifecycleComponent implements IndexEv
             } else {
                 contextProcessedSuccessfully(context);
             }
-            operationListener.onQueryPhase(context, System.nanoTime() - time);
+            final long queryPhaseTime = System.nanoTime() - time;
+            operationListener.onQueryPhase(context, queryPhaseTime);
+            recordQueryPhaseStats(context.queryResult(), queryPhaseTime);
             return context.queryResult();
         } catch (Exception e) {
             operationListener.onFailedQueryPhase(context);
@@ -332,6 +332,24 @@ public class AggregatorFactories {
             return new AggregatorFactories(parent, aggFactories, orderedpipelineAggregators);
         }
 
+        /**
+         * Creates the top level pipeline aggregators in the order in which they have to be applied. Used to reduce the aggregations
+         * that were partially reduced by other clusters without a {@link SearchContext}.
+         */
+        public List<PipelineAggregator> createTopLevelPipelineAggregators() throws IOException {
+            final List<PipelineAggregationBuilder> ordered;
+            if (skipResolveOrder) {
+                ordered = new ArrayList<>(pipelineAggregatorBuilders);
+            } else {
+                ordered = resolvePipelineAggregatorOrder(pipelineAggregatorBuilders, aggregationBuilders);
+            }
+            final List<PipelineAggregator> pipelineAggregators = new ArrayList<>(ordered.size());
+            for (PipelineAggregationBuilder builder : ordered) {
+                pipelineAggregators.add(builder.create());
+            }
+            return pipelineAggregators;
+        }
+
         private List<PipelineAggregationBuilder> resolvePipelineAggregatorOrder(
                 List<PipelineAggregationBuilder> pipelineAggregatorBuilders, List<AggregationBuilder> aggBuilders) {
             Map<String, PipelineAggregationBuilder> pipelineAggregatorBuildersMap = new HashMap<>();
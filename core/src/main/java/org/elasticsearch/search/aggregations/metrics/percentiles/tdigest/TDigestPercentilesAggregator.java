@@ -22,7 +22,7 @@ import org.elasticsearch.search.DocValueFormat;
 import org.elasticsearch.search.aggregations.Aggregator;
 import org.elasticsearch.search.aggregations.InternalAggregation;
 import org.elasticsearch.search.aggregations.pipeline.PipelineAggregator;
-import org.elasticsearch.search.aggregations.support.ValuesSource.Numeric;
+import org.elasticsearch.search.aggregations.support.ValuesSource;
 import org.elasticsearch.search.internal.SearchContext;
 
 import java.io.IOException;
@@ -31,7 +31,7 @@ import java.util.Map;
 
 public class TDigestPercentilesAggregator extends AbstractTDigestPercentilesAggregator {
 
-    public TDigestPercentilesAggregator(String name, Numeric valuesSource, SearchContext context,
+    public TDigestPercentilesAggregator(String name, ValuesSource valuesSource, SearchContext context,
             Aggregator parent, double[] percents,
             double compression, boolean keyed, DocValueFormat formatter, List<PipelineAggregator> pipelineAggregators,
             Map<String, Object> metaData) throws IOException {
@@ -33,8 +33,10 @@ import org.elasticsearch.common.lucene.ScorerAware;
 import org.elasticsearch.index.fielddata.AbstractSortingNumericDocValues;
 import org.elasticsearch.index.fielddata.AtomicOrdinalsFieldData;
 import org.elasticsearch.index.fielddata.AtomicParentChildFieldData;
+import org.elasticsearch.index.fielddata.HistogramValues;
 import org.elasticsearch.index.fielddata.IndexFieldData;
 import org.elasticsearch.index.fielddata.IndexGeoPointFieldData;
+import org.elasticsearch.index.fielddata.IndexHistogramFieldData;
 import org.elasticsearch.index.fielddata.IndexNumericFieldData;
 import org.elasticsearch.index.fielddata.IndexOrdinalsFieldData;
 import org.elasticsearch.index.fielddata.IndexParentChildFieldData;
@@ -533,4 +535,35 @@ public abstract class ValuesSource {
         }
     }
 
+    public abstract static class Histogram extends ValuesSource {
+
+        @Override
+        public Bits docsWithValue(LeafReaderContext context) throws IOException {
+            final HistogramValues histograms = histogramValues(context);
+            return org.elasticsearch.index.fielddata.FieldData.docsWithValue(histograms,
+                    context.reader().maxDoc());
+        }
+
+        public abstract HistogramValues histogramValues(LeafReaderContext context) throws IOException;
+
+        public static class Fielddata extends Histogram {
+
+            protected final IndexHistogramFieldData indexFieldData;
+
+            public Fielddata(IndexHistogramFieldData indexFieldData) {
+                this.indexFieldData = indexFieldData;
+            }
+
+            @Override
+            public SortedBinaryDocValues bytesValues(LeafReaderContext context) {
+                return indexFieldData.load(context).getBytesValues();
+            }
+
+            @Override
+            public HistogramValues histogramValues(LeafReaderContext context) throws IOException {
+                return indexFieldData.load(context).getHistogramValues();
+            }
+        }
+    }
+
 }
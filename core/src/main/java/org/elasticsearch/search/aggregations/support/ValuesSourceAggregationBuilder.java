@@ -165,6 +165,14 @@ public abstract class ValuesSourceAggregationBuilder<VS extends ValuesSource, AB
         return false;
     }
 
+    /**
+     * Can this aggregation run on pre-aggregated histogram fields, whose values source is a {@link ValuesSource.Histogram}? Defaults to
+     * false. Subclasses that override this to true must handle such a values source in addition to the one of their values source type.
+     */
+    protected boolean supportsHistogramFields() {
+        return false;
+    }
+
     /**
      * Sets the field to use for this aggregation.
      */
@@ -285,6 +293,10 @@ public abstract class ValuesSourceAggregationBuilder<VS extends ValuesSource, AB
     protected final ValuesSourceAggregatorFactory<VS, ?> doBuild(SearchContext context, AggregatorFactory<?> parent,
             AggregatorFactories.Builder subFactoriesBuilder) throws IOException {
         ValuesSourceConfig<VS> config = resolveConfig(context);
+        if (config.valueSourceType() == ValuesSourceType.HISTOGRAM && supportsHistogramFields() == false) {
+            throw new IllegalArgumentException("Field [" + field + "] of type [" + config.fieldContext().fieldType().typeName()
+                + "] is not supported for aggregation [" + getType() + "]");
+        }
         ValuesSourceAggregatorFactory<VS, ?> factory = innerBuild(context, config, parent, subFactoriesBuilder);
         return factory;
     }
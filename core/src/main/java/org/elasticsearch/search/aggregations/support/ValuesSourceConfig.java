@@ -24,6 +24,7 @@ import org.elasticsearch.common.geo.GeoPoint;
 import org.elasticsearch.common.geo.GeoUtils;
 import org.elasticsearch.index.fielddata.IndexFieldData;
 import org.elasticsearch.index.fielddata.IndexGeoPointFieldData;
+import org.elasticsearch.index.fielddata.IndexHistogramFieldData;
 import org.elasticsearch.index.fielddata.IndexNumericFieldData;
 import org.elasticsearch.index.fielddata.IndexOrdinalsFieldData;
 import org.elasticsearch.index.fielddata.plain.ParentChildIndexFieldData;
@@ -97,7 +98,10 @@ public class ValuesSourceConfig<VS extends ValuesSource> {
         IndexFieldData<?> indexFieldData = context.getForField(fieldType);
 
         ValuesSourceConfig<VS> config;
-        if (valueType == null) {
+        if (indexFieldData instanceof IndexHistogramFieldData) {
+            // pre-aggregated histograms can't be read as any other value type
+            config = new ValuesSourceConfig<>(ValuesSourceType.HISTOGRAM);
+        } else if (valueType == null) {
             if (indexFieldData instanceof IndexNumericFieldData) {
                 config = new ValuesSourceConfig<>(ValuesSourceType.NUMERIC);
             } else if (indexFieldData instanceof IndexGeoPointFieldData) {
@@ -292,6 +296,9 @@ public class ValuesSourceConfig<VS extends ValuesSource> {
         if (valueSourceType() == ValuesSourceType.GEOPOINT) {
             return (VS) geoPointField();
         }
+        if (valueSourceType() == ValuesSourceType.HISTOGRAM) {
+            return (VS) histogramField();
+        }
         // falling back to bytes values
         return (VS) bytesField();
     }
@@ -343,4 +350,11 @@ public class ValuesSourceConfig<VS extends ValuesSource> {
 
         return new ValuesSource.GeoPoint.Fielddata((IndexGeoPointFieldData) fieldContext().indexFieldData());
     }
+
+    private ValuesSource.Histogram histogramField() throws IOException {
+        if (script() != null) {
+            throw new IllegalArgumentException("Scripts are not supported on histogram field [" + fieldContext().field() + "]");
+        }
+        return new ValuesSource.Histogram.Fielddata((IndexHistogramFieldData) fieldContext().indexFieldData());
+    }
 }
@@ -44,6 +44,16 @@ public final class ValuesSourceParserHelper {
         declareFields(objectParser, scriptable, formattable, timezoneAware, ValueType.NUMERIC);
     }
 
+    /**
+     * Declares the fields of an aggregation that works on numeric values and on pre-aggregated histograms, see
+     * {@link ValuesSource.Histogram}.
+     */
+    public static void declareNumericOrHistogramFields(
+            ObjectParser<? extends ValuesSourceAggregationBuilder<ValuesSource, ?>, QueryParseContext> objectParser,
+            boolean scriptable, boolean formattable, boolean timezoneAware) {
+        declareFields(objectParser, scriptable, formattable, timezoneAware, ValueType.NUMERIC);
+    }
+
     public static void declareBytesFields(
             ObjectParser<? extends ValuesSourceAggregationBuilder<ValuesSource.Bytes, ?>, QueryParseContext> objectParser,
             boolean scriptable, boolean formattable) {
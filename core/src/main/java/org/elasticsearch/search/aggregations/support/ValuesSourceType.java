@@ -23,5 +23,6 @@ public enum ValuesSourceType  {
     ANY,
     NUMERIC,
     BYTES,
-    GEOPOINT;
+    GEOPOINT,
+    HISTOGRAM;
 }
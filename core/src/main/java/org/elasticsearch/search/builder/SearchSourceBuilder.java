@@ -895,6 +895,13 @@ public final class SearchSourceBuilder extends ToXContentToBytes implements Writ
         return shallowCopy(queryBuilder, postQueryBuilder, slice);
     }
 
+    /**
+     * Create a shallow copy of this builder, e.g. to change its pagination without modifying the original request.
+     */
+    public SearchSourceBuilder shallowCopy() {
+        return shallowCopy(queryBuilder, postQueryBuilder, sliceBuilder);
+    }
+
     /**
      * Create a shallow copy of this source replaced {@link #queryBuilder}, {@link #postQueryBuilder}, and {@link #sliceBuilder}. Used by
      * {@link #rewrite(QueryShardContext)} and {@link #copyWithNewSlice(SliceBuilder)}.
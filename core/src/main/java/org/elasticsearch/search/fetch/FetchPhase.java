@@ -207,10 +207,20 @@ public class FetchPhase implements SearchPhase {
         sourceLookup.setSegmentAndDocument(subReaderContext, subDocId);
         if (fieldsVisitor.source() != null) {
             sourceLookup.setSource(fieldsVisitor.source());
+        } else if (context.sourceRequested() && documentMapper != null && documentMapper.syntheticSourceLoader() != null) {
+            loadSyntheticSource(context, subReaderContext, documentMapper, subDocId);
         }
         return searchHit;
     }
 
+    private void loadSyntheticSource(SearchContext context, LeafReaderContext readerContext, DocumentMapper documentMapper, int docId) {
+        try {
+            context.lookup().source().setSource(documentMapper.syntheticSourceLoader().load(readerContext.reader(), docId));
+        } catch (IOException e) {
+            throw new FetchPhaseExecutionException(context, "Failed to load synthetic source of doc id [" + docId + "]", e);
+        }
+    }
+
     private SearchHit createNestedSearchHit(SearchContext context, int nestedTopDocId, int nestedSubDocId, int rootSubDocId, Set<String> fieldNames, List<String> fieldNamePatterns, LeafReaderContext subReaderContext) throws IOException {
         // Also if highlighting is requested on nested documents we need to fetch the _source from the root document,
         // otherwise highlighting will attempt to fetch the _source from the nested doc, which will fail,
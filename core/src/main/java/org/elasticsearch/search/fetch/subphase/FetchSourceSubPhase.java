@@ -21,7 +21,10 @@ package org.elasticsearch.search.fetch.subphase;
 
 import org.elasticsearch.ElasticsearchException;
 import org.elasticsearch.common.io.stream.BytesStreamOutput;
+import org.elasticsearch.common.xcontent.NamedXContentRegistry;
 import org.elasticsearch.common.xcontent.XContentBuilder;
+import org.elasticsearch.common.xcontent.XContentHelper;
+import org.elasticsearch.common.xcontent.XContentParser;
 import org.elasticsearch.search.fetch.FetchSubPhase;
 import org.elasticsearch.search.internal.SearchContext;
 import org.elasticsearch.search.lookup.SourceLookup;
@@ -48,16 +51,33 @@ public final class FetchSourceSubPhase implements FetchSubPhase {
                     "for index [" + context.indexShard().shardId().getIndexName() + "]");
         }
 
-        final Object value = source.filter(fetchSourceContext);
         try {
             final int initialCapacity = Math.min(1024, source.internalSourceRef().length());
             BytesStreamOutput streamOutput = new BytesStreamOutput(initialCapacity);
-            XContentBuilder builder = new XContentBuilder(source.sourceContentType().xContent(), streamOutput);
-            builder.value(value);
-            hitContext.hit().sourceRef(builder.bytes());
+            if (source.source() == null) {
+                // the source has not been parsed into a map yet, so we filter it while parsing rather than building a map of the
+                // whole source for the few fields that are usually kept
+                try (XContentParser parser = createSourceParser(source)) {
+                    XContentBuilder builder = new XContentBuilder(parser.contentType().xContent(), streamOutput);
+                    fetchSourceContext.getStreamingFilter().accept(parser, builder);
+                    hitContext.hit().sourceRef(builder.bytes());
+                }
+            } else {
+                final Object value = source.filter(fetchSourceContext);
+                XContentBuilder builder = new XContentBuilder(source.sourceContentType().xContent(), streamOutput);
+                builder.value(value);
+                hitContext.hit().sourceRef(builder.bytes());
+            }
         } catch (IOException e) {
             throw new ElasticsearchException("Error filtering source", e);
         }
 
     }
+
+    private static XContentParser createSourceParser(SourceLookup source) throws IOException {
+        if (source.sourceContentType() == null) {
+            return XContentHelper.createParser(NamedXContentRegistry.EMPTY, source.internalSourceRef());
+        }
+        return XContentHelper.createParser(NamedXContentRegistry.EMPTY, source.internalSourceRef(), source.sourceContentType());
+    }
 }
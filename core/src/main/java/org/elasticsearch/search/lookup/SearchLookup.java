@@ -34,7 +34,7 @@ public class SearchLookup {
 
     public SearchLookup(MapperService mapperService, IndexFieldDataService fieldDataService, @Nullable String[] types) {
         docMap = new DocLookup(mapperService, fieldDataService, types);
-        sourceLookup = new SourceLookup();
+        sourceLookup = new SourceLookup(mapperService);
         fieldsLookup = new FieldsLookup(mapperService, types);
     }
 
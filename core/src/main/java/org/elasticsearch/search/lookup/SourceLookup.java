@@ -21,14 +21,18 @@ package org.elasticsearch.search.lookup;
 import org.apache.lucene.index.LeafReader;
 import org.apache.lucene.index.LeafReaderContext;
 import org.elasticsearch.ElasticsearchParseException;
+import org.elasticsearch.common.Nullable;
 import org.elasticsearch.common.bytes.BytesReference;
 import org.elasticsearch.common.collect.Tuple;
 import org.elasticsearch.common.xcontent.XContentHelper;
 import org.elasticsearch.common.xcontent.XContentType;
 import org.elasticsearch.common.xcontent.support.XContentMapValues;
 import org.elasticsearch.index.fieldvisitor.FieldsVisitor;
+import org.elasticsearch.index.mapper.DocumentMapper;
+import org.elasticsearch.index.mapper.MapperService;
 import org.elasticsearch.search.fetch.subphase.FetchSourceContext;
 
+import java.io.IOException;
 import java.util.Collection;
 import java.util.List;
 import java.util.Map;
@@ -38,6 +42,9 @@ import static java.util.Collections.emptyMap;
 
 public class SourceLookup implements Map {
 
+    @Nullable
+    private final MapperService mapperService;
+
     private LeafReader reader;
 
     private int docId = -1;
@@ -46,6 +53,18 @@ public class SourceLookup implements Map {
     private Map<String, Object> source;
     private XContentType sourceContentType;
 
+    public SourceLookup() {
+        this(null);
+    }
+
+    /**
+     * Creates a lookup that rebuilds the source of documents whose source is synthetic using the mappings of the given
+     * {@link MapperService}.
+     */
+    public SourceLookup(@Nullable MapperService mapperService) {
+        this.mapperService = mapperService;
+    }
+
     public Map<String, Object> source() {
         return source;
     }
@@ -68,6 +87,9 @@ public class SourceLookup implements Map {
             FieldsVisitor sourceFieldVisitor = new FieldsVisitor(true);
             reader.document(docId, sourceFieldVisitor);
             BytesReference source = sourceFieldVisitor.source();
+            if (source == null && mapperService != null) {
+                source = loadSyntheticSource(sourceFieldVisitor);
+            }
             if (source == null) {
                 this.source = emptyMap();
                 this.sourceContentType = null;
@@ -82,6 +104,19 @@ public class SourceLookup implements Map {
         return this.source;
     }
 
+    @Nullable
+    private BytesReference loadSyntheticSource(FieldsVisitor fieldsVisitor) throws IOException {
+        fieldsVisitor.postProcess(mapperService);
+        if (fieldsVisitor.uid() == null) {
+            return null;
+        }
+        DocumentMapper documentMapper = mapperService.documentMapper(fieldsVisitor.uid().type());
+        if (documentMapper == null || documentMapper.syntheticSourceLoader() == null) {
+            return null;
+        }
+        return documentMapper.syntheticSourceLoader().load(reader, docId);
+    }
+
     public static Tuple<XContentType, Map<String, Object>> sourceAsMapAndType(BytesReference source) throws ElasticsearchParseException {
         return XContentHelper.convertToMap(source, false);
     }
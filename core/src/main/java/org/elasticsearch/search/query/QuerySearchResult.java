@@ -21,6 +21,7 @@ package org.elasticsearch.search.query;
 
 import org.apache.lucene.search.FieldDoc;
 import org.apache.lucene.search.TopDocs;
+import org.elasticsearch.Version;
 import org.elasticsearch.common.io.stream.StreamInput;
 import org.elasticsearch.common.io.stream.StreamOutput;
 import org.elasticsearch.search.DocValueFormat;
@@ -58,6 +59,8 @@ public final class QuerySearchResult extends SearchPhaseResult {
     private boolean hasScoreDocs;
     private int totalHits;
     private float maxScore;
+    private long serviceTimeEWMA = -1;
+    private int nodeQueueSize = -1;
 
     public QuerySearchResult() {
     }
@@ -239,6 +242,35 @@ public final class QuerySearchResult extends SearchPhaseResult {
         return hasScoreDocs || hasSuggestHits();
     }
 
+    /**
+     * Sets the moving average of the query phase execution time on the node that executed this request, in nanoseconds
+     */
+    public void serviceTimeEWMA(long serviceTimeEWMA) {
+        this.serviceTimeEWMA = serviceTimeEWMA;
+    }
+
+    /**
+     * Returns the moving average of the query phase execution time on the node that executed this request, in nanoseconds, or
+     * <code>-1</code> if the node didn't report it
+     */
+    public long serviceTimeEWMA() {
+        return serviceTimeEWMA;
+    }
+
+    /**
+     * Sets the size of the search queue on the node that executed this request
+     */
+    public void nodeQueueSize(int nodeQueueSize) {
+        this.nodeQueueSize = nodeQueueSize;
+    }
+
+    /**
+     * Returns the size of the search queue on the node that executed this request, or <code>-1</code> if the node didn't report it
+     */
+    public int nodeQueueSize() {
+        return nodeQueueSize;
+    }
+
     public static QuerySearchResult readQuerySearchResult(StreamInput in) throws IOException {
         QuerySearchResult result = new QuerySearchResult();
         result.readFrom(in);
@@ -278,6 +310,13 @@ public final class QuerySearchResult extends SearchPhaseResult {
         terminatedEarly = in.readOptionalBoolean();
         profileShardResults = in.readOptionalWriteable(ProfileShardResult::new);
         hasProfileResults = profileShardResults != null;
+        if (in.getVersion().onOrAfter(Version.V_6_0_0_alpha2_UNRELEASED)) {
+            serviceTimeEWMA = in.readZLong();
+            nodeQueueSize = in.readInt();
+        } else {
+            serviceTimeEWMA = -1;
+            nodeQueueSize = -1;
+        }
     }
 
     @Override
@@ -315,6 +354,10 @@ public final class QuerySearchResult extends SearchPhaseResult {
         out.writeBoolean(searchTimedOut);
         out.writeOptionalBoolean(terminatedEarly);
         out.writeOptionalWriteable(profileShardResults);
+        if (out.getVersion().onOrAfter(Version.V_6_0_0_alpha2_UNRELEASED)) {
+            out.writeZLong(serviceTimeEWMA);
+            out.writeInt(nodeQueueSize);
+        }
     }
 
     public int getTotalHits() {
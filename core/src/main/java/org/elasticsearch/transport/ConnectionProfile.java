@@ -182,6 +182,22 @@ public final class ConnectionProfile {
         throw new AssertionError("no handle found for type: "  + type);
     }
 
+    /**
+     * Returns the types of requests that are sent over the connection with the given index.
+     */
+    public Set<TransportRequestOptions.Type> getTypesForConnection(int connectionIndex) {
+        if (connectionIndex < 0 || connectionIndex >= numConnections) {
+            throw new IllegalArgumentException("connection index must be between 0 and " + numConnections + " but was: "
+                + connectionIndex);
+        }
+        for (ConnectionTypeHandle handle : handles) {
+            if (connectionIndex >= handle.offset && connectionIndex < handle.offset + handle.length) {
+                return Collections.unmodifiableSet(handle.getTypes());
+            }
+        }
+        throw new AssertionError("no handle found for connection index: " + connectionIndex);
+    }
+
     /**
      * Returns the type handles for this connection profile
      */
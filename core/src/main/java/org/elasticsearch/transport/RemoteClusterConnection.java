@@ -166,6 +166,18 @@ final class RemoteClusterConnection extends AbstractComponent implements Transpo
         }
     }
 
+    /**
+     * Ensures that this cluster is connected. If the cluster is connected this method will call the listener right away, otherwise it
+     * tries to connect first and notifies the listener once connected or if connecting failed.
+     */
+    void ensureConnected(ActionListener<Void> voidActionListener) {
+        if (connectedNodes.isEmpty()) {
+            connectHandler.connect(voidActionListener);
+        } else {
+            voidActionListener.onResponse(null);
+        }
+    }
+
     private void fetchShardsInternal(ClusterSearchShardsRequest searchShardsRequest,
                                      final ActionListener<ClusterSearchShardsResponse> listener) {
         final DiscoveryNode node = nodeSupplier.get();
@@ -265,6 +265,18 @@ public final class RemoteClusterService extends RemoteClusterAware implements Cl
         return connection.getConnection(node);
     }
 
+    /**
+     * Ensures that the given remote cluster is connected and notifies the listener once it is or if connecting failed.
+     * @throws IllegalArgumentException if the remote cluster is unknown
+     */
+    public void ensureConnected(String clusterAlias, ActionListener<Void> listener) {
+        RemoteClusterConnection connection = remoteClusters.get(clusterAlias);
+        if (connection == null) {
+            throw new IllegalArgumentException("no such remote cluster: " + clusterAlias);
+        }
+        connection.ensureConnected(listener);
+    }
+
     public Transport.Connection getConnection(String cluster) {
         RemoteClusterConnection connection = remoteClusters.get(cluster);
         if (connection == null) {
@@ -19,10 +19,13 @@
 
 package org.elasticsearch.transport;
 
+import org.elasticsearch.common.metrics.CounterMetric;
+import org.elasticsearch.common.metrics.HistogramMetric;
 import org.elasticsearch.tasks.Task;
 import org.elasticsearch.tasks.TaskManager;
 
 import java.io.IOException;
+import java.util.function.BooleanSupplier;
 import java.util.function.Supplier;
 
 public class RequestHandlerRegistry<Request extends TransportRequest> {
@@ -34,10 +37,25 @@ public class RequestHandlerRegistry<Request extends TransportRequest> {
     private final String executor;
     private final Supplier<Request> requestFactory;
     private final TaskManager taskManager;
+    private final BooleanSupplier statsEnabled;
+    private final HistogramMetric requestSizes = new HistogramMetric();
+    private final HistogramMetric responseSizes = new HistogramMetric();
+    private final HistogramMetric handlingTimes = new HistogramMetric();
+    private final CounterMetric failures = new CounterMetric();
 
     public RequestHandlerRegistry(String action, Supplier<Request> requestFactory, TaskManager taskManager,
                                   TransportRequestHandler<Request> handler, String executor, boolean forceExecution,
                                   boolean canTripCircuitBreaker) {
+        this(action, requestFactory, taskManager, handler, executor, forceExecution, canTripCircuitBreaker, () -> false);
+    }
+
+    /**
+     * @param statsEnabled tells whether sizes and handling times of the requests should currently be recorded, see
+     *                     {@link #getStats()}. Checked for every request so it must be cheap.
+     */
+    public RequestHandlerRegistry(String action, Supplier<Request> requestFactory, TaskManager taskManager,
+                                  TransportRequestHandler<Request> handler, String executor, boolean forceExecution,
+                                  boolean canTripCircuitBreaker, BooleanSupplier statsEnabled) {
         this.action = action;
         this.requestFactory = requestFactory;
         assert newRequest() != null;
@@ -46,6 +64,7 @@ public class RequestHandlerRegistry<Request extends TransportRequest> {
         this.canTripCircuitBreaker = canTripCircuitBreaker;
         this.executor = executor;
         this.taskManager = taskManager;
+        this.statsEnabled = statsEnabled;
     }
 
     public String getAction() {
@@ -57,6 +76,9 @@ public class RequestHandlerRegistry<Request extends TransportRequest> {
     }
 
     public void processMessageReceived(Request request, TransportChannel channel) throws Exception {
+        if (statsEnabled.getAsBoolean()) {
+            channel = new StatsRecordingChannel(this, channel, System.nanoTime());
+        }
         final Task task = taskManager.register(channel.getChannelType(), action, request);
         if (task == null) {
             handler.messageReceived(request, channel);
@@ -73,6 +95,32 @@ public class RequestHandlerRegistry<Request extends TransportRequest> {
         }
     }
 
+    /**
+     * Called by the transport once a request for this action of the given size in bytes was received over the network.
+     */
+    void onRequestReceived(long sizeInBytes) {
+        if (statsEnabled.getAsBoolean()) {
+            requestSizes.inc(sizeInBytes);
+        }
+    }
+
+    /**
+     * Called by the transport once a response to a request for this action of the given size in bytes was sent over the network.
+     */
+    void onResponseSent(long sizeInBytes) {
+        if (statsEnabled.getAsBoolean()) {
+            responseSizes.inc(sizeInBytes);
+        }
+    }
+
+    /**
+     * Returns the sizes and handling times of the requests that were handled by this handler while stats were enabled.
+     */
+    public TransportActionStats getStats() {
+        return new TransportActionStats(action, failures.count(), requestSizes.snapshot(), responseSizes.snapshot(),
+            handlingTimes.snapshot());
+    }
+
     public boolean isForceExecution() {
         return forceExecution;
     }
@@ -90,6 +138,44 @@ public class RequestHandlerRegistry<Request extends TransportRequest> {
         return handler.toString();
     }
 
+    /**
+     * Records the time it took to handle a request once its response is sent.
+     */
+    private static class StatsRecordingChannel extends DelegatingTransportChannel {
+
+        private final RequestHandlerRegistry<?> registry;
+        private final long startNanos;
+
+        StatsRecordingChannel(RequestHandlerRegistry<?> registry, TransportChannel channel, long startNanos) {
+            super(channel);
+            this.registry = registry;
+            this.startNanos = startNanos;
+        }
+
+        @Override
+        public void sendResponse(TransportResponse response) throws IOException {
+            onResponse();
+            super.sendResponse(response);
+        }
+
+        @Override
+        public void sendResponse(TransportResponse response, TransportResponseOptions options) throws IOException {
+            onResponse();
+            super.sendResponse(response, options);
+        }
+
+        @Override
+        public void sendResponse(Exception exception) throws IOException {
+            registry.failures.inc();
+            onResponse();
+            super.sendResponse(exception);
+        }
+
+        private void onResponse() {
+            registry.handlingTimes.inc(System.nanoTime() - startNanos);
+        }
+    }
+
     private static class TransportChannelWrapper extends DelegatingTransportChannel {
 
         private final Task task;
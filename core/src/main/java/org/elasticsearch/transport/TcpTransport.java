@@ -51,6 +51,7 @@ import org.elasticsearch.common.io.stream.StreamOutput;
 import org.elasticsearch.common.lease.Releasable;
 import org.elasticsearch.common.lease.Releasables;
 import org.elasticsearch.common.metrics.CounterMetric;
+import org.elasticsearch.common.metrics.HistogramMetric;
 import org.elasticsearch.common.network.NetworkAddress;
 import org.elasticsearch.common.network.NetworkService;
 import org.elasticsearch.common.network.NetworkUtils;
@@ -177,6 +178,7 @@ public abstract class TcpTransport<Channel> extends AbstractLifecycleComponent i
     private final ConcurrentMap<Long, HandshakeResponseHandler> pendingHandshakes = new ConcurrentHashMap<>();
     private final AtomicLong requestIdGenerator = new AtomicLong();
     private final CounterMetric numHandshakes = new CounterMetric();
+    private final Map<TransportRequestOptions.Type, HistogramMetric> writeLatencyPerType;
     private static final String HANDSHAKE_ACTION_NAME = "internal:tcp/handshake";
 
     public TcpTransport(String transportName, Settings settings, ThreadPool threadPool, BigArrays bigArrays,
@@ -193,6 +195,11 @@ public abstract class TcpTransport<Channel> extends AbstractLifecycleComponent i
         this.networkService = networkService;
         this.transportName = transportName;
         defaultConnectionProfile = buildDefaultConnectionProfile(settings);
+        final Map<TransportRequestOptions.Type, HistogramMetric> writeLatencies = new EnumMap<>(TransportRequestOptions.Type.class);
+        for (TransportRequestOptions.Type type : TransportRequestOptions.Type.values()) {
+            writeLatencies.put(type, new HistogramMetric());
+        }
+        writeLatencyPerType = unmodifiableMap(writeLatencies);
     }
 
     static ConnectionProfile buildDefaultConnectionProfile(Settings settings) {
@@ -227,6 +234,17 @@ public abstract class TcpTransport<Channel> extends AbstractLifecycleComponent i
         return circuitBreakerService.getBreaker(CircuitBreaker.IN_FLIGHT_REQUESTS);
     }
 
+    @Override
+    public Map<TransportRequestOptions.Type, HistogramMetric.Snapshot> requestWriteLatencies() {
+        final Map<TransportRequestOptions.Type, HistogramMetric.Snapshot> snapshots = new EnumMap<>(TransportRequestOptions.Type.class);
+        for (Map.Entry<TransportRequestOptions.Type, HistogramMetric> entry : writeLatencyPerType.entrySet()) {
+            if (entry.getValue().count() > 0) {
+                snapshots.put(entry.getKey(), entry.getValue().snapshot());
+            }
+        }
+        return snapshots;
+    }
+
     @Override
     public void transportServiceAdapter(TransportServiceAdapter service) {
         if (service.getRequestHandler(HANDSHAKE_ACTION_NAME) != null) {
@@ -431,7 +449,8 @@ public abstract class TcpTransport<Channel> extends AbstractLifecycleComponent i
                 throw new NodeNotConnectedException(node, "connection already closed");
             }
             Channel channel = channel(options.type());
-            sendRequestToChannel(this.node, channel, requestId, action, request, options, getVersion(), (byte) 0);
+            sendRequestToChannel(this.node, channel, requestId, action, request, options, getVersion(), (byte) 0,
+                writeLatencyPerType.get(options.type()));
         }
     }
 
@@ -1026,7 +1045,7 @@ public abstract class TcpTransport<Channel> extends AbstractLifecycleComponent i
 
     private void sendRequestToChannel(final DiscoveryNode node, final Channel targetChannel, final long requestId, final String action,
                                       final TransportRequest request, TransportRequestOptions options, Version channelVersion,
-                                      byte status) throws IOException,
+                                      byte status, @Nullable HistogramMetric writeLatency) throws IOException,
         TransportException {
         if (compress) {
             options = TransportRequestOptions.builder(options).withCompress(true).build();
@@ -1054,10 +1073,16 @@ public abstract class TcpTransport<Channel> extends AbstractLifecycleComponent i
             BytesReference message = buildMessage(requestId, status, node.getVersion(), request, stream, bStream);
             final TransportRequestOptions finalOptions = options;
             final StreamOutput finalStream = stream;
+            final long startNanos = writeLatency == null ? 0 : System.nanoTime();
             // this might be called in a different thread
             SendListener onRequestSent = new SendListener(
                 () -> IOUtils.closeWhileHandlingException(finalStream, bStream),
-                () -> transportServiceAdapter.onRequestSent(node, requestId, action, request, finalOptions));
+                () -> {
+                    if (writeLatency != null) {
+                        writeLatency.inc(System.nanoTime() - startNanos);
+                    }
+                    transportServiceAdapter.onRequestSent(node, requestId, action, request, finalOptions);
+                });
             internalSendMessage(targetChannel, message, onRequestSent);
             addedReleaseListener = true;
         } finally {
@@ -1102,6 +1127,7 @@ public abstract class TcpTransport<Channel> extends AbstractLifecycleComponent i
             status = TransportStatus.setError(status);
             final BytesReference bytes = stream.bytes();
             final BytesReference header = buildHeader(requestId, status, nodeVersion, bytes.length());
+            onResponseSent(action, header.length() + bytes.length());
             SendListener onResponseSent = new SendListener(null,
                 () -> transportServiceAdapter.onResponseSent(requestId, action, error));
             internalSendMessage(channel, new CompositeBytesReference(header, bytes), onResponseSent);
@@ -1135,6 +1161,7 @@ public abstract class TcpTransport<Channel> extends AbstractLifecycleComponent i
             threadPool.getThreadContext().writeTo(stream);
             stream.setVersion(nodeVersion);
             BytesReference reference = buildMessage(requestId, status, nodeVersion, response, stream, bStream);
+            onResponseSent(action, reference.length());
 
             final TransportResponseOptions finalOptions = options;
             final StreamOutput finalStream = stream;
@@ -1150,6 +1177,16 @@ public abstract class TcpTransport<Channel> extends AbstractLifecycleComponent i
         }
     }
 
+    /**
+     * Records the size of a response to a request for the given action in the action's stats
+     */
+    private void onResponseSent(String action, long sizeInBytes) {
+        final RequestHandlerRegistry reg = transportServiceAdapter.getRequestHandler(action);
+        if (reg != null) {
+            reg.onResponseSent(sizeInBytes);
+        }
+    }
+
     /**
      * Writes the Tcp message header into a bytes reference.
      *
@@ -1437,6 +1474,7 @@ public abstract class TcpTransport<Channel> extends AbstractLifecycleComponent i
                 if (reg == null) {
                     throw new ActionNotFoundTransportException(action);
                 }
+                reg.onRequestReceived(messageLengthBytes + TcpHeader.MARKER_BYTES_SIZE + TcpHeader.MESSAGE_LENGTH_SIZE);
                 if (reg.canTripCircuitBreaker()) {
                     getInFlightRequestBreaker().addEstimateBytesAndMaybeBreak(messageLengthBytes, "<transport_request>");
                 } else {
@@ -1560,7 +1598,7 @@ public abstract class TcpTransport<Channel> extends AbstractLifecycleComponent i
             // to as the payload.
             final Version minCompatVersion = getCurrentVersion().minimumCompatibilityVersion();
             sendRequestToChannel(node, channel, requestId, HANDSHAKE_ACTION_NAME, TransportRequest.Empty.INSTANCE,
-                TransportRequestOptions.EMPTY, minCompatVersion, TransportStatus.setHandshake((byte) 0));
+                TransportRequestOptions.EMPTY, minCompatVersion, TransportStatus.setHandshake((byte) 0), null);
             if (handler.latch.await(timeout.millis(), TimeUnit.MILLISECONDS) == false) {
                 throw new ConnectTransportException(node, "handshake_timeout[" + timeout + "]");
             }
@@ -25,6 +25,7 @@ import org.elasticsearch.common.CheckedBiConsumer;
 import org.elasticsearch.common.breaker.CircuitBreaker;
 import org.elasticsearch.common.breaker.NoopCircuitBreaker;
 import org.elasticsearch.common.component.LifecycleComponent;
+import org.elasticsearch.common.metrics.HistogramMetric;
 import org.elasticsearch.common.settings.Setting;
 import org.elasticsearch.common.settings.Setting.Property;
 import org.elasticsearch.common.transport.BoundTransportAddress;
@@ -33,6 +34,7 @@ import org.elasticsearch.common.transport.TransportAddress;
 import java.io.Closeable;
 import java.io.IOException;
 import java.net.UnknownHostException;
+import java.util.Collections;
 import java.util.List;
 import java.util.Map;
 
@@ -80,6 +82,15 @@ public interface Transport extends LifecycleComponent {
      */
     long serverOpen();
 
+    /**
+     * Returns, per request type, the time in nanoseconds it took to write outgoing requests to the network, measured from the moment
+     * the request was serialized until the write completed. High values for {@link TransportRequestOptions.Type#STATE} or
+     * {@link TransportRequestOptions.Type#PING} indicate that these requests are queued behind other traffic.
+     */
+    default Map<TransportRequestOptions.Type, HistogramMetric.Snapshot> requestWriteLatencies() {
+        return Collections.emptyMap();
+    }
+
     List<String> getLocalAddresses();
 
     default CircuitBreaker getInFlightRequestBreaker() {
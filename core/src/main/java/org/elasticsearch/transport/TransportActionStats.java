@@ -0,0 +1,163 @@
+/*
+ * Licensed to Elasticsearch under one or more contributor
+ * license agreements. See the NOTICE file distributed with
+ * this work for additional information regarding copyright
+ * ownership. Elasticsearch licenses this file to you under
+ * the Apache License, Version 2.0 (the "License"); you may
+ * not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.elasticsearch.transport;
+
+import org.elasticsearch.common.io.stream.StreamInput;
+import org.elasticsearch.common.io.stream.StreamOutput;
+import org.elasticsearch.common.io.stream.Writeable;
+import org.elasticsearch.common.metrics.HistogramMetric;
+import org.elasticsearch.common.xcontent.ToXContent;
+import org.elasticsearch.common.xcontent.XContentBuilder;
+
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Statistics about the requests of a single transport action that were handled by a node: the size of the received requests and of the
+ * sent responses as well as the time it took to handle the requests. Only collected if
+ * {@link TransportService#ACTION_STATS_ENABLED_SETTING} is set.
+ */
+public class TransportActionStats implements Writeable, ToXContent {
+
+    private final String action;
+    private final long failures;
+    private final HistogramMetric.Snapshot requestSizes;
+    private final HistogramMetric.Snapshot responseSizes;
+    private final HistogramMetric.Snapshot handlingTimes;
+
+    public TransportActionStats(String action, long failures, HistogramMetric.Snapshot requestSizes, HistogramMetric.Snapshot responseSizes,
+                                HistogramMetric.Snapshot handlingTimes) {
+        this.action = action;
+        this.failures = failures;
+        this.requestSizes = requestSizes;
+        this.responseSizes = responseSizes;
+        this.handlingTimes = handlingTimes;
+    }
+
+    public TransportActionStats(StreamInput in) throws IOException {
+        action = in.readString();
+        failures = in.readVLong();
+        requestSizes = new HistogramMetric.Snapshot(in);
+        responseSizes = new HistogramMetric.Snapshot(in);
+        handlingTimes = new HistogramMetric.Snapshot(in);
+    }
+
+    @Override
+    public void writeTo(StreamOutput out) throws IOException {
+        out.writeString(action);
+        out.writeVLong(failures);
+        requestSizes.writeTo(out);
+        responseSizes.writeTo(out);
+        handlingTimes.writeTo(out);
+    }
+
+    public String getAction() {
+        return action;
+    }
+
+    /**
+     * The number of requests that were handled, including the ones that failed.
+     */
+    public long getCount() {
+        return handlingTimes.getCount();
+    }
+
+    /**
+     * The number of requests that were answered with an error.
+     */
+    public long getFailures() {
+        return failures;
+    }
+
+    /**
+     * The sizes in bytes of the requests that were received over the network. Requests that were sent by the local node are not
+     * serialized and therefore not included.
+     */
+    public HistogramMetric.Snapshot getRequestSizes() {
+        return requestSizes;
+    }
+
+    /**
+     * The sizes in bytes of the responses that were sent over the network.
+     */
+    public HistogramMetric.Snapshot getResponseSizes() {
+        return responseSizes;
+    }
+
+    /**
+     * The time in nanoseconds from the moment the request handler started processing a request until it sent the response.
+     */
+    public HistogramMetric.Snapshot getHandlingTimes() {
+        return handlingTimes;
+    }
+
+    @Override
+    public XContentBuilder toXContent(XContentBuilder builder, Params params) throws IOException {
+        builder.startObject(action);
+        builder.field(Fields.COUNT, getCount());
+        builder.field(Fields.FAILURES, failures);
+        builder.startObject(Fields.REQUEST_SIZE);
+        sizesToXContent(builder, requestSizes);
+        builder.endObject();
+        builder.startObject(Fields.RESPONSE_SIZE);
+        sizesToXContent(builder, responseSizes);
+        builder.endObject();
+        builder.startObject(Fields.HANDLING_TIME);
+        builder.timeValueField(Fields.TOTAL_IN_NANOS, Fields.TOTAL, handlingTimes.getSum(), TimeUnit.NANOSECONDS);
+        builder.timeValueField(Fields.P50_IN_NANOS, Fields.P50, handlingTimes.getPercentile(50), TimeUnit.NANOSECONDS);
+        builder.timeValueField(Fields.P90_IN_NANOS, Fields.P90, handlingTimes.getPercentile(90), TimeUnit.NANOSECONDS);
+        builder.timeValueField(Fields.P99_IN_NANOS, Fields.P99, handlingTimes.getPercentile(99), TimeUnit.NANOSECONDS);
+        builder.timeValueField(Fields.MAX_IN_NANOS, Fields.MAX, handlingTimes.getMax(), TimeUnit.NANOSECONDS);
+        builder.endObject();
+        builder.endObject();
+        return builder;
+    }
+
+    private static void sizesToXContent(XContentBuilder builder, HistogramMetric.Snapshot sizes) throws IOException {
+        builder.field(Fields.COUNT, sizes.getCount());
+        builder.byteSizeField(Fields.TOTAL_IN_BYTES, Fields.TOTAL, sizes.getSum());
+        builder.byteSizeField(Fields.P50_IN_BYTES, Fields.P50, sizes.getPercentile(50));
+        builder.byteSizeField(Fields.P90_IN_BYTES, Fields.P90, sizes.getPercentile(90));
+        builder.byteSizeField(Fields.P99_IN_BYTES, Fields.P99, sizes.getPercentile(99));
+        builder.byteSizeField(Fields.MAX_IN_BYTES, Fields.MAX, sizes.getMax());
+    }
+
+    static final class Fields {
+        static final String COUNT = "count";
+        static final String FAILURES = "failures";
+        static final String REQUEST_SIZE = "request_size";
+        static final String RESPONSE_SIZE = "response_size";
+        static final String HANDLING_TIME = "handling_time";
+        static final String TOTAL = "total";
+        static final String TOTAL_IN_BYTES = "total_in_bytes";
+        static final String TOTAL_IN_NANOS = "total_in_nanos";
+        static final String P50 = "p50";
+        static final String P50_IN_BYTES = "p50_in_bytes";
+        static final String P50_IN_NANOS = "p50_in_nanos";
+        static final String P90 = "p90";
+        static final String P90_IN_BYTES = "p90_in_bytes";
+        static final String P90_IN_NANOS = "p90_in_nanos";
+        static final String P99 = "p99";
+        static final String P99_IN_BYTES = "p99_in_bytes";
+        static final String P99_IN_NANOS = "p99_in_nanos";
+        static final String MAX = "max";
+        static final String MAX_IN_BYTES = "max_in_bytes";
+        static final String MAX_IN_NANOS = "max_in_nanos";
+    }
+}
@@ -54,8 +54,10 @@ import org.elasticsearch.threadpool.ThreadPool;
 
 import java.io.IOException;
 import java.net.UnknownHostException;
+import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collections;
+import java.util.Comparator;
 import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
@@ -69,6 +71,7 @@ import java.util.function.Supplier;
 import java.util.stream.Stream;
 
 import static java.util.Collections.emptyList;
+import static org.elasticsearch.common.settings.Setting.boolSetting;
 import static org.elasticsearch.common.settings.Setting.listSetting;
 
 public class TransportService extends AbstractLifecycleComponent {
@@ -118,6 +121,15 @@ public class TransportService extends AbstractLifecycleComponent {
 
     private final Logger tracerLog;
 
+    /**
+     * Whether the sizes and handling times of the requests handled by this node should be recorded per action, see
+     * {@link TransportStats#getActionStats()}. Disabled by default as it adds a little overhead to every request.
+     */
+    public static final Setting<Boolean> ACTION_STATS_ENABLED_SETTING =
+        boolSetting("transport.action_stats.enabled", false, Property.Dynamic, Property.NodeScope);
+
+    private volatile boolean actionStatsEnabled;
+
     volatile String[] tracerLogInclude;
     volatile String[] tracerLogExclude;
 
@@ -157,6 +169,7 @@ public class TransportService extends AbstractLifecycleComponent {
         this.clusterName = ClusterName.CLUSTER_NAME_SETTING.get(settings);
         setTracerLogInclude(TRACE_LOG_INCLUDE_SETTING.get(settings));
         setTracerLogExclude(TRACE_LOG_EXCLUDE_SETTING.get(settings));
+        setActionStatsEnabled(ACTION_STATS_ENABLED_SETTING.get(settings));
         tracerLog = Loggers.getLogger(logger, ".tracer");
         adapter = createAdapter();
         taskManager = createTaskManager();
@@ -167,6 +180,7 @@ public class TransportService extends AbstractLifecycleComponent {
         if (clusterSettings != null) {
             clusterSettings.addSettingsUpdateConsumer(TRACE_LOG_INCLUDE_SETTING, this::setTracerLogInclude);
             clusterSettings.addSettingsUpdateConsumer(TRACE_LOG_EXCLUDE_SETTING, this::setTracerLogExclude);
+            clusterSettings.addSettingsUpdateConsumer(ACTION_STATS_ENABLED_SETTING, this::setActionStatsEnabled);
             if (connectToRemoteCluster) {
                 remoteClusterService.listenForUpdates(clusterSettings);
             }
@@ -201,6 +215,10 @@ public class TransportService extends AbstractLifecycleComponent {
         this.tracerLogExclude = tracerLogExclude.toArray(Strings.EMPTY_ARRAY);
     }
 
+    void setActionStatsEnabled(boolean actionStatsEnabled) {
+        this.actionStatsEnabled = actionStatsEnabled;
+    }
+
     @Override
     protected void doStart() {
         adapter.rxMetric.clear();
@@ -292,8 +310,16 @@ public class TransportService extends AbstractLifecycleComponent {
     }
 
     public TransportStats stats() {
-        return new TransportStats(
-            transport.serverOpen(), adapter.rxMetric.count(), adapter.rxMetric.sum(), adapter.txMetric.count(), adapter.txMetric.sum());
+        final List<TransportActionStats> actionStats = new ArrayList<>();
+        for (RequestHandlerRegistry<?> reg : requestHandlers.values()) {
+            final TransportActionStats stats = reg.getStats();
+            if (stats.getCount() > 0 || stats.getRequestSizes().getCount() > 0) {
+                actionStats.add(stats);
+            }
+        }
+        actionStats.sort(Comparator.comparing(TransportActionStats::getAction));
+        return new TransportStats(transport.serverOpen(), adapter.rxMetric.count(), adapter.rxMetric.sum(), adapter.txMetric.count(),
+            adapter.txMetric.sum(), actionStats, transport.requestWriteLatencies());
     }
 
     public BoundTransportAddress boundAddress() {
@@ -699,7 +725,7 @@ public class TransportService extends AbstractLifecycleComponent {
                                                     String executor, TransportRequestHandler<Request> handler) {
         handler = interceptor.interceptHandler(action, executor, false, handler);
         RequestHandlerRegistry<Request> reg = new RequestHandlerRegistry<>(
-            action, requestFactory, taskManager, handler, executor, false, true);
+            action, requestFactory, taskManager, handler, executor, false, true, () -> actionStatsEnabled);
         registerRequestHandler(reg);
     }
 
@@ -719,7 +745,7 @@ public class TransportService extends AbstractLifecycleComponent {
                                                                           TransportRequestHandler<Request> handler) {
         handler = interceptor.interceptHandler(action, executor, forceExecution, handler);
         RequestHandlerRegistry<Request> reg = new RequestHandlerRegistry<>(
-            action, request, taskManager, handler, executor, forceExecution, canTripCircuitBreaker);
+            action, request, taskManager, handler, executor, forceExecution, canTripCircuitBreaker, () -> actionStatsEnabled);
         registerRequestHandler(reg);
     }
 
@@ -19,14 +19,22 @@
 
 package org.elasticsearch.transport;
 
+import org.elasticsearch.Version;
 import org.elasticsearch.common.io.stream.StreamInput;
 import org.elasticsearch.common.io.stream.StreamOutput;
 import org.elasticsearch.common.io.stream.Writeable;
+import org.elasticsearch.common.metrics.HistogramMetric;
 import org.elasticsearch.common.unit.ByteSizeValue;
 import org.elasticsearch.common.xcontent.ToXContent;
 import org.elasticsearch.common.xcontent.XContentBuilder;
 
 import java.io.IOException;
+import java.util.Collections;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
 
 public class TransportStats implements Writeable, ToXContent {
 
@@ -35,13 +43,22 @@ public class TransportStats implements Writeable, ToXContent {
     private final long rxSize;
     private final long txCount;
     private final long txSize;
+    private final List<TransportActionStats> actionStats;
+    private final Map<TransportRequestOptions.Type, HistogramMetric.Snapshot> requestWriteLatencies;
 
     public TransportStats(long serverOpen, long rxCount, long rxSize, long txCount, long txSize) {
+        this(serverOpen, rxCount, rxSize, txCount, txSize, Collections.emptyList(), Collections.emptyMap());
+    }
+
+    public TransportStats(long serverOpen, long rxCount, long rxSize, long txCount, long txSize, List<TransportActionStats> actionStats,
+                          Map<TransportRequestOptions.Type, HistogramMetric.Snapshot> requestWriteLatencies) {
         this.serverOpen = serverOpen;
         this.rxCount = rxCount;
         this.rxSize = rxSize;
         this.txCount = txCount;
         this.txSize = txSize;
+        this.actionStats = Collections.unmodifiableList(actionStats);
+        this.requestWriteLatencies = Collections.unmodifiableMap(requestWriteLatencies);
     }
 
     public TransportStats(StreamInput in) throws IOException {
@@ -50,6 +67,18 @@ public class TransportStats implements Writeable, ToXContent {
         rxSize = in.readVLong();
         txCount = in.readVLong();
         txSize = in.readVLong();
+        if (in.getVersion().onOrAfter(Version.V_6_0_0_alpha2_UNRELEASED)) {
+            actionStats = Collections.unmodifiableList(in.readList(TransportActionStats::new));
+            final int numTypes = in.readVInt();
+            final Map<TransportRequestOptions.Type, HistogramMetric.Snapshot> latencies = new EnumMap<>(TransportRequestOptions.Type.class);
+            for (int i = 0; i < numTypes; i++) {
+                latencies.put(TransportRequestOptions.Type.valueOf(in.readString()), new HistogramMetric.Snapshot(in));
+            }
+            requestWriteLatencies = Collections.unmodifiableMap(latencies);
+        } else {
+            actionStats = Collections.emptyList();
+            requestWriteLatencies = Collections.emptyMap();
+        }
     }
 
     @Override
@@ -59,6 +88,14 @@ public class TransportStats implements Writeable, ToXContent {
         out.writeVLong(rxSize);
         out.writeVLong(txCount);
         out.writeVLong(txSize);
+        if (out.getVersion().onOrAfter(Version.V_6_0_0_alpha2_UNRELEASED)) {
+            out.writeList(actionStats);
+            out.writeVInt(requestWriteLatencies.size());
+            for (Map.Entry<TransportRequestOptions.Type, HistogramMetric.Snapshot> entry : requestWriteLatencies.entrySet()) {
+                out.writeString(entry.getKey().name());
+                entry.getValue().writeTo(out);
+            }
+        }
     }
 
     public long serverOpen() {
@@ -101,6 +138,23 @@ public class TransportStats implements Writeable, ToXContent {
         return txSize();
     }
 
+    /**
+     * Per action statistics about the requests handled by the node, sorted by action name. Empty unless
+     * {@link TransportService#ACTION_STATS_ENABLED_SETTING} is or was enabled.
+     */
+    public List<TransportActionStats> getActionStats() {
+        return actionStats;
+    }
+
+    /**
+     * The time in nanoseconds it took to write outgoing requests to the network per request type.
+     *
+     * @see Transport#requestWriteLatencies()
+     */
+    public Map<TransportRequestOptions.Type, HistogramMetric.Snapshot> getRequestWriteLatencies() {
+        return requestWriteLatencies;
+    }
+
     @Override
     public XContentBuilder toXContent(XContentBuilder builder, Params params) throws IOException {
         builder.startObject(Fields.TRANSPORT);
@@ -109,6 +163,26 @@ public class TransportStats implements Writeable, ToXContent {
         builder.byteSizeField(Fields.RX_SIZE_IN_BYTES, Fields.RX_SIZE, rxSize);
         builder.field(Fields.TX_COUNT, txCount);
         builder.byteSizeField(Fields.TX_SIZE_IN_BYTES, Fields.TX_SIZE, txSize);
+        if (actionStats.isEmpty() == false) {
+            builder.startObject(Fields.ACTIONS);
+            for (TransportActionStats stats : actionStats) {
+                stats.toXContent(builder, params);
+            }
+            builder.endObject();
+        }
+        if (requestWriteLatencies.isEmpty() == false) {
+            builder.startObject(Fields.REQUEST_WRITE_LATENCY);
+            for (Map.Entry<TransportRequestOptions.Type, HistogramMetric.Snapshot> entry : requestWriteLatencies.entrySet()) {
+                final HistogramMetric.Snapshot latency = entry.getValue();
+                builder.startObject(entry.getKey().name().toLowerCase(Locale.ROOT));
+                builder.field(Fields.COUNT, latency.getCount());
+                builder.timeValueField(Fields.P50_IN_NANOS, Fields.P50, latency.getPercentile(50), TimeUnit.NANOSECONDS);
+                builder.timeValueField(Fields.P99_IN_NANOS, Fields.P99, latency.getPercentile(99), TimeUnit.NANOSECONDS);
+                builder.timeValueField(Fields.MAX_IN_NANOS, Fields.MAX, latency.getMax(), TimeUnit.NANOSECONDS);
+                builder.endObject();
+            }
+            builder.endObject();
+        }
         builder.endObject();
         return builder;
     }
@@ -122,5 +196,14 @@ public class TransportStats implements Writeable, ToXContent {
         static final String TX_COUNT = "tx_count";
         static final String TX_SIZE = "tx_size";
         static final String TX_SIZE_IN_BYTES = "tx_size_in_bytes";
+        static final String ACTIONS = "actions";
+        static final String REQUEST_WRITE_LATENCY = "request_write_latency";
+        static final String COUNT = "count";
+        static final String P50 = "p50";
+        static final String P50_IN_NANOS = "p50_in_nanos";
+        static final String P99 = "p99";
+        static final String P99_IN_NANOS = "p99_in_nanos";
+        static final String MAX = "max";
+        static final String MAX_IN_NANOS = "max_in_nanos";
     }
 }
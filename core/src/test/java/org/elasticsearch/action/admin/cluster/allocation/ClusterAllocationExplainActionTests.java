@@ -26,8 +26,11 @@ import org.elasticsearch.cluster.routing.ShardRouting;
 import org.elasticsearch.cluster.routing.ShardRoutingState;
 import org.elasticsearch.cluster.routing.allocation.RoutingAllocation;
 import org.elasticsearch.cluster.routing.allocation.ShardAllocationDecision;
+import org.elasticsearch.cluster.routing.allocation.allocator.BalancedShardsAllocator;
 import org.elasticsearch.cluster.routing.allocation.allocator.ShardsAllocator;
 import org.elasticsearch.cluster.routing.allocation.decider.AllocationDeciders;
+import org.elasticsearch.cluster.routing.allocation.decider.SameShardAllocationDecider;
+import org.elasticsearch.common.settings.ClusterSettings;
 import org.elasticsearch.common.settings.Settings;
 import org.elasticsearch.common.xcontent.ToXContent;
 import org.elasticsearch.common.xcontent.XContentBuilder;
@@ -91,6 +94,27 @@ public class ClusterAllocationExplainActionTests extends ESTestCase {
                          "\"},\"explanation\":\"" + explanation + "\"}", builder.string());
     }
 
+    public void testDeciderTimings() throws Exception {
+        ClusterState clusterState = ClusterStateCreationUtils.state("idx", randomBoolean(), ShardRoutingState.STARTED);
+        ShardRouting shard = clusterState.getRoutingTable().index("idx").shard(0).primaryShard();
+        AllocationDeciders deciders = new AllocationDeciders(Settings.EMPTY,
+            Collections.singletonList(new SameShardAllocationDecider(Settings.EMPTY,
+                new ClusterSettings(Settings.EMPTY, ClusterSettings.BUILT_IN_CLUSTER_SETTINGS))));
+        final boolean includeDeciderTimings = randomBoolean();
+        RoutingAllocation allocation = new RoutingAllocation(deciders, clusterState.getRoutingNodes(), clusterState, null,
+            System.nanoTime(), randomBoolean());
+        ClusterAllocationExplanation cae = TransportClusterAllocationExplainAction.explainShard(shard, allocation, null, randomBoolean(),
+            includeDeciderTimings, new TestGatewayAllocator(), new BalancedShardsAllocator(Settings.EMPTY));
+
+        assertTrue(cae.getShardAllocationDecision().getMoveDecision().isDecisionTaken());
+        if (includeDeciderTimings) {
+            assertEquals(Collections.singleton("SameShardAllocationDecider"), cae.getDeciderTimings().keySet());
+            assertTrue(cae.getDeciderTimings().get("SameShardAllocationDecider") >= 0);
+        } else {
+            assertTrue(cae.getDeciderTimings().isEmpty());
+        }
+    }
+
     public void testFindAnyUnassignedShardToExplain() {
         // find unassigned primary
         ClusterState clusterState = ClusterStateCreationUtils.state("idx", randomBoolean(), ShardRoutingState.UNASSIGNED);
@@ -39,6 +39,9 @@ import org.elasticsearch.index.Index;
 import org.elasticsearch.index.shard.ShardId;
 import org.elasticsearch.test.ESTestCase;
 
+import java.util.HashMap;
+import java.util.Map;
+
 import static java.util.Collections.emptyMap;
 import static java.util.Collections.emptySet;
 
@@ -93,7 +96,42 @@ public final class ClusterAllocationExplanationTests extends ESTestCase {
                          "that can both allocate this shard and improve the cluster balance\"}", builder.string());
     }
 
+    public void testDeciderTimings() throws Exception {
+        Map<String, Long> deciderTimings = new HashMap<>();
+        deciderTimings.put("SameShardAllocationDecider", 1500L);
+        deciderTimings.put("DiskThresholdDecider", 42L);
+        ClusterAllocationExplanation cae = randomClusterAllocationExplanation(randomBoolean(), deciderTimings);
+        assertEquals(deciderTimings, cae.getDeciderTimings());
+
+        BytesStreamOutput out = new BytesStreamOutput();
+        cae.writeTo(out);
+        ClusterAllocationExplanation cae2 = new ClusterAllocationExplanation(out.bytes().streamInput());
+        assertEquals(deciderTimings, cae2.getDeciderTimings());
+
+        // nodes before 6.0.0-alpha2 don't know about decider timings
+        out = new BytesStreamOutput();
+        out.setVersion(Version.V_5_4_0_UNRELEASED);
+        cae.writeTo(out);
+        StreamInput in = out.bytes().streamInput();
+        in.setVersion(Version.V_5_4_0_UNRELEASED);
+        assertTrue(new ClusterAllocationExplanation(in).getDeciderTimings().isEmpty());
+
+        XContentBuilder builder = XContentFactory.jsonBuilder();
+        cae.toXContent(builder, ToXContent.EMPTY_PARAMS);
+        assertTrue(builder.string(), builder.string().endsWith("\"decider_timings\":{\"DiskThresholdDecider\":{\"time_in_nanos\":42}," +
+            "\"SameShardAllocationDecider\":{\"time_in_nanos\":1500}}}"));
+
+        builder = XContentFactory.jsonBuilder();
+        randomClusterAllocationExplanation(randomBoolean()).toXContent(builder, ToXContent.EMPTY_PARAMS);
+        assertFalse(builder.string(), builder.string().contains("decider_timings"));
+    }
+
     private static ClusterAllocationExplanation randomClusterAllocationExplanation(boolean assignedShard) {
+        return randomClusterAllocationExplanation(assignedShard, emptyMap());
+    }
+
+    private static ClusterAllocationExplanation randomClusterAllocationExplanation(boolean assignedShard,
+                                                                                   Map<String, Long> deciderTimings) {
         ShardRouting shardRouting = TestShardRouting.newShardRouting(new ShardId(new Index("idx", "123"), 0),
             assignedShard ? "node-0" : null, true, assignedShard ? ShardRoutingState.STARTED : ShardRoutingState.UNASSIGNED);
         DiscoveryNode node = assignedShard ? new DiscoveryNode("node-0", buildNewFakeTransportAddress(), emptyMap(), emptySet(),
@@ -107,6 +145,6 @@ public final class ClusterAllocationExplanationTests extends ESTestCase {
             AllocateUnassignedDecision allocateDecision = AllocateUnassignedDecision.no(UnassignedInfo.AllocationStatus.DECIDERS_NO, null);
             shardAllocationDecision = new ShardAllocationDecision(allocateDecision, MoveDecision.NOT_TAKEN);
         }
-        return new ClusterAllocationExplanation(shardRouting, node, null, null, shardAllocationDecision);
+        return new ClusterAllocationExplanation(shardRouting, node, null, null, shardAllocationDecision, deciderTimings);
     }
 }
@@ -22,9 +22,14 @@ package org.elasticsearch.action.admin.cluster.node.stats;
 import org.elasticsearch.cluster.node.DiscoveryNode;
 import org.elasticsearch.common.io.stream.BytesStreamOutput;
 import org.elasticsearch.common.io.stream.StreamInput;
+import org.elasticsearch.common.metrics.HistogramMetric;
 import org.elasticsearch.discovery.DiscoveryStats;
 import org.elasticsearch.discovery.zen.PendingClusterStateStats;
+import org.elasticsearch.discovery.zen.PublishClusterStateStats;
+import org.elasticsearch.gateway.ShardFetchBatcher;
+import org.elasticsearch.gateway.ShardFetchStats;
 import org.elasticsearch.http.HttpStats;
+import org.elasticsearch.indices.TermsLookupCacheStats;
 import org.elasticsearch.indices.breaker.AllCircuitBreakerStats;
 import org.elasticsearch.indices.breaker.CircuitBreakerStats;
 import org.elasticsearch.ingest.IngestStats;
@@ -32,15 +37,20 @@ import org.elasticsearch.monitor.fs.FsInfo;
 import org.elasticsearch.monitor.jvm.JvmStats;
 import org.elasticsearch.monitor.os.OsStats;
 import org.elasticsearch.monitor.process.ProcessStats;
+import org.elasticsearch.node.AdaptiveSelectionStats;
+import org.elasticsearch.node.ResponseCollectorService;
 import org.elasticsearch.script.ScriptStats;
 import org.elasticsearch.test.ESTestCase;
 import org.elasticsearch.test.VersionUtils;
 import org.elasticsearch.threadpool.ThreadPoolStats;
+import org.elasticsearch.transport.TransportActionStats;
+import org.elasticsearch.transport.TransportRequestOptions;
 import org.elasticsearch.transport.TransportStats;
 
 import java.io.IOException;
 import java.util.ArrayList;
 import java.util.Collections;
+import java.util.EnumMap;
 import java.util.HashMap;
 import java.util.Iterator;
 import java.util.List;
@@ -210,6 +220,19 @@ public class NodeStatsTests extends ESTestCase {
                     assertEquals(nodeStats.getTransport().getServerOpen(), deserializedNodeStats.getTransport().getServerOpen());
                     assertEquals(nodeStats.getTransport().getTxCount(), deserializedNodeStats.getTransport().getTxCount());
                     assertEquals(nodeStats.getTransport().getTxSize(), deserializedNodeStats.getTransport().getTxSize());
+                    assertEquals(nodeStats.getTransport().getActionStats().size(),
+                        deserializedNodeStats.getTransport().getActionStats().size());
+                    for (int i = 0; i < nodeStats.getTransport().getActionStats().size(); i++) {
+                        TransportActionStats actionStats = nodeStats.getTransport().getActionStats().get(i);
+                        TransportActionStats deserializedActionStats = deserializedNodeStats.getTransport().getActionStats().get(i);
+                        assertEquals(actionStats.getAction(), deserializedActionStats.getAction());
+                        assertEquals(actionStats.getFailures(), deserializedActionStats.getFailures());
+                        assertEquals(actionStats.getRequestSizes(), deserializedActionStats.getRequestSizes());
+                        assertEquals(actionStats.getResponseSizes(), deserializedActionStats.getResponseSizes());
+                        assertEquals(actionStats.getHandlingTimes(), deserializedActionStats.getHandlingTimes());
+                    }
+                    assertEquals(nodeStats.getTransport().getRequestWriteLatencies(),
+                        deserializedNodeStats.getTransport().getRequestWriteLatencies());
                 }
                 if (nodeStats.getHttp() == null) {
                     assertNull(deserializedNodeStats.getHttp());
@@ -251,6 +274,18 @@ public class NodeStatsTests extends ESTestCase {
                         assertEquals(queueStats.getTotal(), deserializedDiscoveryStats.getQueueStats().getTotal());
                         assertEquals(queueStats.getPending(), deserializedDiscoveryStats.getQueueStats().getPending());
                     }
+                    PublishClusterStateStats publishStats = discoveryStats.getPublishStats();
+                    if (publishStats == null) {
+                        assertNull(deserializedDiscoveryStats.getPublishStats());
+                    } else {
+                        PublishClusterStateStats deserializedPublishStats = deserializedDiscoveryStats.getPublishStats();
+                        assertEquals(publishStats.getFullStates(), deserializedPublishStats.getFullStates());
+                        assertEquals(publishStats.getDiffs(), deserializedPublishStats.getDiffs());
+                        assertEquals(publishStats.getFullStateFallbacks(), deserializedPublishStats.getFullStateFallbacks());
+                        assertEquals(publishStats.getRetainedStateDiffs(), deserializedPublishStats.getRetainedStateDiffs());
+                        assertEquals(publishStats.getSerializationTime(), deserializedPublishStats.getSerializationTime());
+                        assertEquals(publishStats.getSerializedSize(), deserializedPublishStats.getSerializedSize());
+                    }
                 }
                 IngestStats ingestStats = nodeStats.getIngestStats();
                 IngestStats deserializedIngestStats = deserializedNodeStats.getIngestStats();
@@ -272,6 +307,41 @@ public class NodeStatsTests extends ESTestCase {
                         assertEquals(stats.getIngestCount(), deserializedStats.getIngestCount());
                     }
                 }
+                AdaptiveSelectionStats adaptiveStats = nodeStats.getAdaptiveSelectionStats();
+                AdaptiveSelectionStats deserializedAdaptiveStats = deserializedNodeStats.getAdaptiveSelectionStats();
+                if (adaptiveStats == null) {
+                    assertNull(deserializedAdaptiveStats);
+                } else {
+                    assertEquals(adaptiveStats.getOutgoingConnections(), deserializedAdaptiveStats.getOutgoingConnections());
+                    assertEquals(adaptiveStats.getRanks(), deserializedAdaptiveStats.getRanks());
+                    adaptiveStats.getComputedStats().forEach((k, v) -> {
+                        ResponseCollectorService.ComputedNodeStats aStats = adaptiveStats.getComputedStats().get(k);
+                        ResponseCollectorService.ComputedNodeStats bStats = deserializedAdaptiveStats.getComputedStats().get(k);
+                        assertEquals(aStats.nodeId, bStats.nodeId);
+                        assertEquals(aStats.queueSize, bStats.queueSize, 0.01);
+                        assertEquals(aStats.serviceTime, bStats.serviceTime, 0.01);
+                        assertEquals(aStats.responseTime, bStats.responseTime, 0.01);
+                    });
+                }
+                ShardFetchStats shardFetchStats = nodeStats.getShardFetchStats();
+                ShardFetchStats deserializedShardFetchStats = deserializedNodeStats.getShardFetchStats();
+                if (shardFetchStats == null) {
+                    assertNull(deserializedShardFetchStats);
+                } else {
+                    assertShardFetchStatsEquals(shardFetchStats.getStartedShards(), deserializedShardFetchStats.getStartedShards());
+                    assertShardFetchStatsEquals(shardFetchStats.getShardStores(), deserializedShardFetchStats.getShardStores());
+                }
+                TermsLookupCacheStats termsLookupCacheStats = nodeStats.getTermsLookupCacheStats();
+                TermsLookupCacheStats deserializedTermsLookupCacheStats = deserializedNodeStats.getTermsLookupCacheStats();
+                if (termsLookupCacheStats == null) {
+                    assertNull(deserializedTermsLookupCacheStats);
+                } else {
+                    assertEquals(termsLookupCacheStats.getMemorySizeInBytes(), deserializedTermsLookupCacheStats.getMemorySizeInBytes());
+                    assertEquals(termsLookupCacheStats.getCount(), deserializedTermsLookupCacheStats.getCount());
+                    assertEquals(termsLookupCacheStats.getHitCount(), deserializedTermsLookupCacheStats.getHitCount());
+                    assertEquals(termsLookupCacheStats.getMissCount(), deserializedTermsLookupCacheStats.getMissCount());
+                    assertEquals(termsLookupCacheStats.getEvictions(), deserializedTermsLookupCacheStats.getEvictions());
+                }
             }
         }
     }
@@ -368,8 +438,24 @@ public class NodeStatsTests extends ESTestCase {
             }
             fsInfo = new FsInfo(randomNonNegativeLong(), ioStats, paths);
         }
-        TransportStats transportStats = frequently() ? new TransportStats(randomNonNegativeLong(), randomNonNegativeLong(),
-                randomNonNegativeLong(), randomNonNegativeLong(), randomNonNegativeLong()) : null;
+        TransportStats transportStats = null;
+        if (frequently()) {
+            int numActions = randomIntBetween(0, 5);
+            List<TransportActionStats> actionStats = new ArrayList<>(numActions);
+            for (int i = 0; i < numActions; i++) {
+                actionStats.add(new TransportActionStats(randomAlphaOfLengthBetween(3, 10), randomNonNegativeLong(),
+                    randomHistogram(), randomHistogram(), randomHistogram()));
+            }
+            Map<TransportRequestOptions.Type, HistogramMetric.Snapshot> requestWriteLatencies =
+                new EnumMap<>(TransportRequestOptions.Type.class);
+            for (TransportRequestOptions.Type type : TransportRequestOptions.Type.values()) {
+                if (randomBoolean()) {
+                    requestWriteLatencies.put(type, randomHistogram());
+                }
+            }
+            transportStats = new TransportStats(randomNonNegativeLong(), randomNonNegativeLong(), randomNonNegativeLong(),
+                randomNonNegativeLong(), randomNonNegativeLong(), actionStats, requestWriteLatencies);
+        }
         HttpStats httpStats = frequently() ? new HttpStats(randomNonNegativeLong(), randomNonNegativeLong()) : null;
         AllCircuitBreakerStats allCircuitBreakerStats = null;
         if (frequently()) {
@@ -383,7 +469,9 @@ public class NodeStatsTests extends ESTestCase {
         }
         ScriptStats scriptStats = frequently() ? new ScriptStats(randomNonNegativeLong(), randomNonNegativeLong()) : null;
         DiscoveryStats discoveryStats = frequently() ? new DiscoveryStats(randomBoolean() ? new PendingClusterStateStats(randomInt(),
-                randomInt(), randomInt()) : null) : null;
+                randomInt(), randomInt()) : null, randomBoolean() ? new PublishClusterStateStats(randomNonNegativeLong(),
+                randomNonNegativeLong(), randomNonNegativeLong(), randomNonNegativeLong(), randomNonNegativeLong(),
+                randomNonNegativeLong()) : null) : null;
         IngestStats ingestStats = null;
         if (frequently()) {
             IngestStats.Stats totalStats = new IngestStats.Stats(randomNonNegativeLong(), randomNonNegativeLong(), randomNonNegativeLong(),
@@ -397,8 +485,61 @@ public class NodeStatsTests extends ESTestCase {
             }
             ingestStats = new IngestStats(totalStats, statsPerPipeline);
         }
+        AdaptiveSelectionStats adaptiveSelectionStats = null;
+        if (frequently()) {
+            int numNodes = randomIntBetween(0, 10);
+            Map<String, Long> nodeConnections = new HashMap<>();
+            Map<String, ResponseCollectorService.ComputedNodeStats> nodeStats = new HashMap<>();
+            for (int i = 0; i < numNodes; i++) {
+                String nodeId = randomAlphaOfLengthBetween(3, 10);
+                // add outgoing connection info
+                if (frequently()) {
+                    nodeConnections.put(nodeId, (long) randomIntBetween(0, 100));
+                }
+                // add node calculations
+                if (frequently()) {
+                    ResponseCollectorService.ComputedNodeStats stats = new ResponseCollectorService.ComputedNodeStats(nodeId,
+                        randomIntBetween(1, 10), randomIntBetween(0, 2000),
+                        randomDoubleBetween(1.0, 10000000.0, true),
+                        randomDoubleBetween(1.0, 10000000.0, true));
+                    nodeStats.put(nodeId, stats);
+                }
+            }
+            adaptiveSelectionStats = new AdaptiveSelectionStats(nodeConnections, nodeStats);
+        }
+        ShardFetchStats shardFetchStats = null;
+        if (frequently()) {
+            shardFetchStats = new ShardFetchStats(randomShardFetchBatcherStats(), randomShardFetchBatcherStats());
+        }
+        TermsLookupCacheStats termsLookupCacheStats = null;
+        if (frequently()) {
+            termsLookupCacheStats = new TermsLookupCacheStats(randomNonNegativeLong(), randomNonNegativeLong(), randomNonNegativeLong(),
+                randomNonNegativeLong(), randomNonNegativeLong());
+        }
         //TODO NodeIndicesStats are not tested here, way too complicated to create, also they need to be migrated to Writeable yet
         return new NodeStats(node, randomNonNegativeLong(), null, osStats, processStats, jvmStats, threadPoolStats, fsInfo,
-                transportStats, httpStats, allCircuitBreakerStats, scriptStats, discoveryStats, ingestStats);
+                transportStats, httpStats, allCircuitBreakerStats, scriptStats, discoveryStats, ingestStats, adaptiveSelectionStats,
+                shardFetchStats, termsLookupCacheStats);
+    }
+
+    private static ShardFetchBatcher.Stats randomShardFetchBatcherStats() {
+        return new ShardFetchBatcher.Stats(randomNonNegativeLong(), randomNonNegativeLong(), randomNonNegativeLong(),
+            randomNonNegativeLong());
+    }
+
+    private static void assertShardFetchStatsEquals(ShardFetchBatcher.Stats expected, ShardFetchBatcher.Stats actual) {
+        assertEquals(expected.getRoundTrips(), actual.getRoundTrips());
+        assertEquals(expected.getBatchedShards(), actual.getBatchedShards());
+        assertEquals(expected.getPerShardRequests(), actual.getPerShardRequests());
+        assertEquals(expected.getRoundTripTime(), actual.getRoundTripTime());
+    }
+
+    private static HistogramMetric.Snapshot randomHistogram() {
+        HistogramMetric histogram = new HistogramMetric();
+        int numValues = randomIntBetween(0, 20);
+        for (int i = 0; i < numValues; i++) {
+            histogram.inc(randomIntBetween(0, Integer.MAX_VALUE));
+        }
+        return histogram.snapshot();
     }
 }
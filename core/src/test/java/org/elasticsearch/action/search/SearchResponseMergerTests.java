@@ -0,0 +1,167 @@
+/*
+ * Licensed to Elasticsearch under one or more contributor
+ * license agreements. See the NOTICE file distributed with
+ * this work for additional information regarding copyright
+ * ownership. Elasticsearch licenses this file to you under
+ * the Apache License, Version 2.0 (the "License"); you may
+ * not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.elasticsearch.action.search;
+
+import org.elasticsearch.common.io.stream.BytesStreamOutput;
+import org.elasticsearch.common.io.stream.StreamInput;
+import org.elasticsearch.common.settings.Settings;
+import org.elasticsearch.common.text.Text;
+import org.elasticsearch.common.util.BigArrays;
+import org.elasticsearch.index.Index;
+import org.elasticsearch.search.DocValueFormat;
+import org.elasticsearch.search.SearchHit;
+import org.elasticsearch.search.SearchHits;
+import org.elasticsearch.search.SearchShardTarget;
+import org.elasticsearch.search.aggregations.InternalAggregations;
+import org.elasticsearch.search.aggregations.metrics.max.InternalMax;
+import org.elasticsearch.search.aggregations.metrics.max.Max;
+import org.elasticsearch.search.builder.SearchSourceBuilder;
+import org.elasticsearch.search.internal.InternalSearchResponse;
+import org.elasticsearch.search.sort.SortOrder;
+import org.elasticsearch.test.ESTestCase;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+public class SearchResponseMergerTests extends ESTestCase {
+
+    private final SearchPhaseController searchPhaseController =
+        new SearchPhaseController(Settings.EMPTY, BigArrays.NON_RECYCLING_INSTANCE, null);
+
+    private final TransportSearchAction.SearchTimeProvider timeProvider = new TransportSearchAction.SearchTimeProvider(0, 0, () -> 0);
+
+    public void testMergeHitsByScore() throws IOException {
+        SearchSourceBuilder source = new SearchSourceBuilder().from(1).size(3);
+        SearchResponseMerger merger = new SearchResponseMerger(source, searchPhaseController, timeProvider);
+        merger.add("remote", response(10, 3, 3, hit("remote_index", 0, 3.0f, null), hit("remote_index", 1, 1.0f, null)));
+        merger.add(null, response(20, 2, 2, hit("local_index", 0, 4.0f, null), hit("local_index", 1, 2.0f, null),
+            hit("local_index", 2, 0.5f, null)));
+        SearchResponse response = merger.getMergedResponse();
+
+        assertEquals(5, response.getTotalShards());
+        assertEquals(5, response.getSuccessfulShards());
+        assertEquals(5, response.getHits().getTotalHits());
+        assertEquals(4.0f, response.getHits().getMaxScore(), 0f);
+        SearchHit[] hits = response.getHits().getHits();
+        assertEquals(3, hits.length);
+        assertEquals("remote:remote_index", hits[0].getIndex());
+        assertEquals(3.0f, hits[0].getScore(), 0f);
+        assertEquals("remote", hits[0].getShard().getClusterAlias());
+        assertEquals("local_index", hits[1].getIndex());
+        assertEquals(2.0f, hits[1].getScore(), 0f);
+        assertEquals("remote:remote_index", hits[2].getIndex());
+        assertEquals(1.0f, hits[2].getScore(), 0f);
+
+        List<SearchResponse.Cluster> clusters = response.getClusters().getClusters();
+        assertEquals(2, clusters.size());
+        assertEquals(SearchResponse.Clusters.LOCAL_CLUSTER_NAME, clusters.get(0).getName());
+        assertEquals(20, clusters.get(0).getTookInMillis());
+        assertEquals(2, clusters.get(0).getTotalShards());
+        assertEquals("remote", clusters.get(1).getName());
+        assertEquals(10, clusters.get(1).getTookInMillis());
+        assertEquals(3, clusters.get(1).getSuccessfulShards());
+    }
+
+    public void testMergeHitsBySortValues() throws IOException {
+        SearchSourceBuilder source = new SearchSourceBuilder().sort("field", SortOrder.DESC);
+        SearchResponseMerger merger = new SearchResponseMerger(source, searchPhaseController, timeProvider);
+        merger.add("remote", response(1, 1, 1, hit("index", 0, Float.NaN, 5L), hit("index", 1, Float.NaN, null)));
+        merger.add(null, response(1, 1, 1, hit("index", 0, Float.NaN, 7.5d), hit("index", 1, Float.NaN, 2L)));
+        SearchHit[] hits = merger.getMergedResponse().getHits().getHits();
+        assertEquals(4, hits.length);
+        assertEquals(7.5d, hits[0].getSortValues()[0]);
+        assertEquals(5L, hits[1].getSortValues()[0]);
+        assertEquals(2L, hits[2].getSortValues()[0]);
+        // missing values are sorted last
+        assertNull(hits[3].getSortValues()[0]);
+        assertEquals("remote:index", hits[3].getIndex());
+    }
+
+    public void testCompareSortValues() {
+        assertEquals(0, SearchResponseMerger.compareSortValues(null, null, SortOrder.ASC));
+        assertEquals(1, SearchResponseMerger.compareSortValues(null, 1L, randomFrom(SortOrder.values())));
+        assertEquals(-1, SearchResponseMerger.compareSortValues(1L, null, randomFrom(SortOrder.values())));
+        assertTrue(SearchResponseMerger.compareSortValues(1L, 1.5d, SortOrder.ASC) < 0);
+        assertTrue(SearchResponseMerger.compareSortValues(1L, 1.5d, SortOrder.DESC) > 0);
+        assertTrue(SearchResponseMerger.compareSortValues("b", "a", SortOrder.ASC) > 0);
+    }
+
+    public void testMergeAggregations() throws IOException {
+        SearchResponseMerger merger = new SearchResponseMerger(null, searchPhaseController, timeProvider);
+        final int numClusters = randomIntBetween(1, 5);
+        double expectedMax = Double.NEGATIVE_INFINITY;
+        for (int i = 0; i < numClusters; i++) {
+            double value = randomDouble();
+            expectedMax = Math.max(expectedMax, value);
+            InternalAggregations aggs = new InternalAggregations(Collections.singletonList(
+                new InternalMax("max", value, DocValueFormat.RAW, Collections.emptyList(), Collections.emptyMap())));
+            SearchHits hits = new SearchHits(new SearchHit[0], 0, Float.NaN);
+            InternalSearchResponse internal = new InternalSearchResponse(hits, aggs, null, null, false, null, 1);
+            merger.add(i == 0 ? null : "remote" + i, new SearchResponse(internal, null, 1, 1, 1, ShardSearchFailure.EMPTY_ARRAY));
+        }
+        SearchResponse response = merger.getMergedResponse();
+        Max max = response.getAggregations().get("max");
+        assertEquals(expectedMax, max.getValue(), 0d);
+        assertEquals(numClusters + 1, response.getNumReducePhases());
+        assertEquals(numClusters, response.getClusters().getClusters().size());
+        assertEquals(0, response.getHits().getHits().length);
+    }
+
+    public void testClustersSerialization() throws IOException {
+        List<SearchResponse.Cluster> clusters = new ArrayList<>();
+        final int numClusters = randomIntBetween(0, 5);
+        for (int i = 0; i < numClusters; i++) {
+            clusters.add(new SearchResponse.Cluster(randomAlphaOfLength(5) + i, randomNonNegativeLong(), randomIntBetween(0, 10),
+                randomIntBetween(0, 10), randomIntBetween(0, 10)));
+        }
+        SearchResponse.Clusters original = new SearchResponse.Clusters(clusters);
+        BytesStreamOutput out = new BytesStreamOutput();
+        original.writeTo(out);
+        StreamInput in = out.bytes().streamInput();
+        SearchResponse.Clusters deserialized = new SearchResponse.Clusters(in);
+        assertEquals(original, deserialized);
+        assertEquals(numClusters == 0, deserialized.isEmpty());
+    }
+
+    private static SearchHit hit(String index, int docId, float score, Object sortValue) {
+        SearchHit hit = new SearchHit(docId, Integer.toString(docId), new Text("type"), Collections.emptyMap());
+        hit.score(score);
+        hit.shard(new SearchShardTarget("node", new Index(index, "_na_"), 0));
+        if (sortValue != null || Float.isNaN(score)) {
+            hit.sortValues(new Object[] {sortValue}, new DocValueFormat[] {DocValueFormat.RAW});
+        }
+        return hit;
+    }
+
+    private static SearchResponse response(long tookInMillis, int totalShards, int successfulShards, SearchHit... hits) {
+        float maxScore = Float.NaN;
+        for (SearchHit hit : hits) {
+            if (Float.isNaN(hit.getScore()) == false) {
+                maxScore = Float.isNaN(maxScore) ? hit.getScore() : Math.max(maxScore, hit.getScore());
+            }
+        }
+        SearchHits searchHits = new SearchHits(Arrays.copyOf(hits, hits.length), hits.length, maxScore);
+        InternalSearchResponse internal = new InternalSearchResponse(searchHits, null, null, null, false, null, 1);
+        return new SearchResponse(internal, null, totalShards, successfulShards, tookInMillis, ShardSearchFailure.EMPTY_ARRAY);
+    }
+}
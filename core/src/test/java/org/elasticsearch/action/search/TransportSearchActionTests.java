@@ -238,4 +238,30 @@ public class TransportSearchActionTests extends ESTestCase {
 
     }
 
+    public void testCcsClusterRequest() {
+        SearchRequest original = new SearchRequest("local", "remote:index");
+        original.setCcsMinimizeRoundtrips(true);
+        original.routing(randomBoolean() ? null : randomAlphaOfLength(5));
+        original.preference(randomBoolean() ? null : randomAlphaOfLength(5));
+        final boolean hasPagination = randomBoolean();
+        if (hasPagination) {
+            original.source().from(randomIntBetween(0, 20)).size(randomIntBetween(0, 20));
+        }
+        SearchRequest clusterRequest = TransportSearchAction.ccsClusterRequest(original, new String[] {"index"});
+        assertArrayEquals(new String[] {"index"}, clusterRequest.indices());
+        assertFalse(clusterRequest.isCcsMinimizeRoundtrips());
+        assertFalse(clusterRequest.isFinalReduce());
+        assertEquals(original.routing(), clusterRequest.routing());
+        assertEquals(original.preference(), clusterRequest.preference());
+        assertEquals(0, clusterRequest.source().from());
+        if (hasPagination) {
+            assertEquals(original.source().from() + original.source().size(), clusterRequest.source().size());
+        } else {
+            assertEquals(SearchResponseMerger.DEFAULT_SIZE, clusterRequest.source().size());
+        }
+        // the original request must not be modified
+        assertTrue(original.isCcsMinimizeRoundtrips());
+        assertTrue(original.isFinalReduce());
+        assertArrayEquals(new String[] {"local", "remote:index"}, original.indices());
+    }
 }
@@ -0,0 +1,148 @@
+/*
+ * Licensed to Elasticsearch under one or more contributor
+ * license agreements. See the NOTICE file distributed with
+ * this work for additional information regarding copyright
+ * ownership. Elasticsearch licenses this file to you under
+ * the Apache License, Version 2.0 (the "License"); you may
+ * not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.elasticsearch.cluster;
+
+import com.carrotsearch.hppc.ObjectLongHashMap;
+import com.carrotsearch.hppc.cursors.ObjectLongCursor;
+import org.elasticsearch.cluster.routing.ShardRouting;
+import org.elasticsearch.cluster.routing.ShardRoutingState;
+import org.elasticsearch.cluster.routing.TestShardRouting;
+import org.elasticsearch.common.io.stream.BytesStreamOutput;
+import org.elasticsearch.common.io.stream.StreamInput;
+import org.elasticsearch.test.ESTestCase;
+
+import java.io.IOException;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
+
+import static org.hamcrest.Matchers.contains;
+import static org.hamcrest.Matchers.containsInAnyOrder;
+import static org.hamcrest.Matchers.empty;
+import static org.hamcrest.Matchers.equalTo;
+import static org.hamcrest.Matchers.nullValue;
+
+public class DiskUsageReporterTests extends ESTestCase {
+
+    private static final long THRESHOLD = 100;
+
+    private final ShardRouting primary = TestShardRouting.newShardRouting("test", 0, "node1", true, ShardRoutingState.STARTED);
+    private final ShardRouting replica = TestShardRouting.newShardRouting("test", 1, "node1", false, ShardRoutingState.STARTED);
+    private final ShardRouting other = TestShardRouting.newShardRouting("other", 0, "node1", true, ShardRoutingState.STARTED);
+
+    private static ObjectLongHashMap<ShardRouting> sizes(Object... routingsAndSizes) {
+        ObjectLongHashMap<ShardRouting> sizes = new ObjectLongHashMap<>();
+        for (int i = 0; i < routingsAndSizes.length; i += 2) {
+            sizes.put((ShardRouting) routingsAndSizes[i], (long) routingsAndSizes[i + 1]);
+        }
+        return sizes;
+    }
+
+    private static Map<ShardRouting, String> dataPaths(ObjectLongHashMap<ShardRouting> sizes) {
+        Map<ShardRouting, String> dataPaths = new HashMap<>();
+        for (ObjectLongCursor<ShardRouting> cursor : sizes) {
+            dataPaths.put(cursor.key, "/data");
+        }
+        return dataPaths;
+    }
+
+    private static List<ShardRouting> routings(NodeDiskUsageUpdate update) {
+        return update.getShardSizes().stream().map(NodeDiskUsageUpdate.ShardSize::getShardRouting).collect(Collectors.toList());
+    }
+
+    public void testOnlyChangesBeyondTheThresholdAreReported() {
+        final DiskUsageReporter.ReportedDiskUsage reported = new DiskUsageReporter.ReportedDiskUsage();
+        final DiskUsage usage = new DiskUsage("node1", "n1", "/data", 10000, 5000);
+        ObjectLongHashMap<ShardRouting> sizes = sizes(primary, 1000L, replica, 2000L);
+
+        NodeDiskUsageUpdate update = reported.diff("node1", true, usage, usage, sizes, dataPaths(sizes), THRESHOLD);
+        assertTrue(update.isFull());
+        assertThat(update.getLeastAvailableDiskUsage(), equalTo(usage));
+        assertThat(routings(update), containsInAnyOrder(primary, replica));
+        reported.apply("master", update);
+
+        // nothing changed by more than the threshold
+        final DiskUsage slightlyChangedUsage = new DiskUsage("node1", "n1", "/data", 10000, 5000 - THRESHOLD + 1);
+        sizes = sizes(primary, 1000L + THRESHOLD - 1, replica, 2000L - THRESHOLD + 1);
+        update = reported.diff("node1", false, slightlyChangedUsage, usage, sizes, dataPaths(sizes), THRESHOLD);
+        assertTrue(update.isEmpty());
+
+        // a shard grew, another one was added and the free space shrunk
+        final DiskUsage changedUsage = new DiskUsage("node1", "n1", "/data", 10000, 5000 - THRESHOLD);
+        sizes = sizes(primary, 1000L + THRESHOLD, replica, 2000L, other, 1L);
+        update = reported.diff("node1", false, changedUsage, usage, sizes, dataPaths(sizes), THRESHOLD);
+        assertFalse(update.isFull());
+        assertThat(update.getLeastAvailableDiskUsage(), equalTo(changedUsage));
+        assertThat(update.getMostAvailableDiskUsage(), nullValue());
+        assertThat(routings(update), containsInAnyOrder(primary, other));
+        assertThat(update.getRemovedShards(), empty());
+        reported.apply("master", update);
+
+        // a shard was removed, and the changes are measured against the last reported sizes
+        sizes = sizes(primary, 1000L + THRESHOLD, other, 1L + THRESHOLD);
+        update = reported.diff("node1", false, changedUsage, usage, sizes, dataPaths(sizes), THRESHOLD);
+        assertThat(routings(update), contains(other));
+        assertThat(update.getRemovedShards(), contains(replica));
+        assertThat(update.getLeastAvailableDiskUsage(), nullValue());
+        reported.apply("master", update);
+
+        // after a reset everything is reported again
+        reported.reset();
+        update = reported.diff("node1", true, changedUsage, usage, sizes, dataPaths(sizes), THRESHOLD);
+        assertTrue(update.isFull());
+        assertThat(routings(update), containsInAnyOrder(primary, other));
+    }
+
+    public void testChangedRoutingIsReportedAsRemovalAndAddition() {
+        final DiskUsageReporter.ReportedDiskUsage reported = new DiskUsageReporter.ReportedDiskUsage();
+        final ShardRouting startedReplica = TestShardRouting.newShardRouting("test", 0, "node1", false, ShardRoutingState.STARTED);
+        ObjectLongHashMap<ShardRouting> sizes = sizes(startedReplica, 1000L);
+        reported.apply("master", reported.diff("node1", true, null, null, sizes, dataPaths(sizes), THRESHOLD));
+
+        final ShardRouting promoted = startedReplica.moveActiveReplicaToPrimary();
+        sizes = sizes(promoted, 1000L);
+        NodeDiskUsageUpdate update = reported.diff("node1", false, null, null, sizes, dataPaths(sizes), THRESHOLD);
+        assertThat(routings(update), contains(promoted));
+        assertThat(update.getRemovedShards(), contains(startedReplica));
+    }
+
+    public void testSerialization() throws IOException {
+        final NodeDiskUsageUpdate update = new NodeDiskUsageUpdate("node1", false,
+            randomBoolean() ? null : new DiskUsage("node1", "n1", "/data", 10000, randomIntBetween(0, 10000)),
+            new DiskUsage("node1", "n1", "/data2", 20000, randomIntBetween(0, 20000)),
+            Collections.singletonList(new NodeDiskUsageUpdate.ShardSize(primary, randomIntBetween(0, 1000), "/data")),
+            Collections.singletonList(replica));
+        final BytesStreamOutput out = new BytesStreamOutput();
+        update.writeTo(out);
+        final StreamInput in = out.bytes().streamInput();
+        final NodeDiskUsageUpdate read = new NodeDiskUsageUpdate();
+        read.readFrom(in);
+        assertThat(read.getNodeId(), equalTo(update.getNodeId()));
+        assertThat(read.isFull(), equalTo(update.isFull()));
+        assertThat(read.getLeastAvailableDiskUsage(), equalTo(update.getLeastAvailableDiskUsage()));
+        assertThat(read.getMostAvailableDiskUsage(), equalTo(update.getMostAvailableDiskUsage()));
+        assertThat(routings(read), equalTo(routings(update)));
+        assertThat(read.getShardSizes().get(0).getSize(), equalTo(update.getShardSizes().get(0).getSize()));
+        assertThat(read.getShardSizes().get(0).getDataPath(), equalTo("/data"));
+        assertThat(read.getRemovedShards(), equalTo(update.getRemovedShards()));
+    }
+}
@@ -0,0 +1,187 @@
+/*
+ * Licensed to Elasticsearch under one or more contributor
+ * license agreements. See the NOTICE file distributed with
+ * this work for additional information regarding copyright
+ * ownership. Elasticsearch licenses this file to you under
+ * the Apache License, Version 2.0 (the "License"); you may
+ * not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.elasticsearch.cluster;
+
+import org.elasticsearch.Version;
+import org.elasticsearch.cluster.node.DiscoveryNode;
+import org.elasticsearch.cluster.node.DiscoveryNodes;
+import org.elasticsearch.cluster.routing.ShardRouting;
+import org.elasticsearch.cluster.routing.ShardRoutingState;
+import org.elasticsearch.cluster.routing.TestShardRouting;
+import org.elasticsearch.cluster.service.ClusterService;
+import org.elasticsearch.common.settings.Settings;
+import org.elasticsearch.test.ClusterServiceUtils;
+import org.elasticsearch.test.ESTestCase;
+import org.elasticsearch.threadpool.TestThreadPool;
+import org.elasticsearch.threadpool.ThreadPool;
+import org.junit.After;
+import org.junit.Before;
+
+import java.util.Collections;
+
+import static java.util.Collections.emptyList;
+import static java.util.Collections.emptyMap;
+import static java.util.Collections.singletonList;
+import static org.hamcrest.Matchers.equalTo;
+import static org.hamcrest.Matchers.nullValue;
+import static org.hamcrest.Matchers.sameInstance;
+
+public class InternalClusterInfoServiceTests extends ESTestCase {
+
+    private ThreadPool threadPool;
+    private ClusterService clusterService;
+    private InternalClusterInfoService clusterInfoService;
+
+    @Override
+    @Before
+    public void setUp() throws Exception {
+        super.setUp();
+        threadPool = new TestThreadPool(getTestName());
+        clusterService = ClusterServiceUtils.createClusterService(threadPool);
+        clusterInfoService = new InternalClusterInfoService(Settings.EMPTY, clusterService, threadPool, null);
+        clusterInfoService.onMaster();
+    }
+
+    @Override
+    @After
+    public void tearDown() throws Exception {
+        super.tearDown();
+        clusterService.close();
+        terminate(threadPool);
+    }
+
+    private static NodeDiskUsageUpdate.ShardSize shardSize(ShardRouting shardRouting, long size) {
+        return new NodeDiskUsageUpdate.ShardSize(shardRouting, size, "/data/" + shardRouting.currentNodeId());
+    }
+
+    public void testApplyPushedUpdates() {
+        final ShardRouting primary = TestShardRouting.newShardRouting("test", 0, "node1", true, ShardRoutingState.STARTED);
+        final ShardRouting replica1 = TestShardRouting.newShardRouting("test", 0, "node2", false, ShardRoutingState.STARTED);
+        final ShardRouting replica2 = TestShardRouting.newShardRouting("test", 0, "node3", false, ShardRoutingState.STARTED);
+        final DiskUsage usage1 = new DiskUsage("node1", "n1", "/data/node1", 1000, 500);
+
+        // incremental updates of nodes that never sent a full update are rejected
+        assertTrue(clusterInfoService.applyNodeDiskUsageUpdate(new NodeDiskUsageUpdate("node1", false, usage1, usage1,
+            singletonList(shardSize(primary, 10)), emptyList())));
+        assertThat(clusterInfoService.getClusterInfo().getShardSize(primary), nullValue());
+
+        assertFalse(clusterInfoService.applyNodeDiskUsageUpdate(new NodeDiskUsageUpdate("node1", true, usage1, usage1,
+            singletonList(shardSize(primary, 10)), emptyList())));
+        assertFalse(clusterInfoService.applyNodeDiskUsageUpdate(new NodeDiskUsageUpdate("node2", true, null, null,
+            singletonList(shardSize(replica1, 20)), emptyList())));
+        assertFalse(clusterInfoService.applyNodeDiskUsageUpdate(new NodeDiskUsageUpdate("node3", true, null, null,
+            singletonList(shardSize(replica2, 30)), emptyList())));
+        ClusterInfo clusterInfo = clusterInfoService.getClusterInfo();
+        assertThat(clusterInfo.getNodeLeastAvailableDiskUsages().get("node1"), equalTo(usage1));
+        assertThat(clusterInfo.getNodeMostAvailableDiskUsages().get("node1"), equalTo(usage1));
+        assertThat(clusterInfo.getShardSize(primary), equalTo(10L));
+        assertThat(clusterInfo.getShardSize(replica1), equalTo(30L));
+        assertThat(clusterInfo.getDataPath(replica1), equalTo("/data/node2"));
+
+        // only the changed disk usage is sent
+        final DiskUsage changedUsage1 = new DiskUsage("node1", "n1", "/data/node1", 1000, 400);
+        assertFalse(clusterInfoService.applyNodeDiskUsageUpdate(new NodeDiskUsageUpdate("node1", false, changedUsage1, null,
+            singletonList(shardSize(primary, 110)), emptyList())));
+        clusterInfo = clusterInfoService.getClusterInfo();
+        assertThat(clusterInfo.getNodeLeastAvailableDiskUsages().get("node1"), equalTo(changedUsage1));
+        assertThat(clusterInfo.getNodeMostAvailableDiskUsages().get("node1"), equalTo(usage1));
+        assertThat(clusterInfo.getShardSize(primary), equalTo(110L));
+
+        // a replica that is removed from one node falls back to the size pushed by another node
+        assertFalse(clusterInfoService.applyNodeDiskUsageUpdate(new NodeDiskUsageUpdate("node3", false, null, null,
+            emptyList(), singletonList(replica2))));
+        clusterInfo = clusterInfoService.getClusterInfo();
+        assertThat(clusterInfo.getShardSize(replica1), equalTo(20L));
+        assertThat(clusterInfo.getDataPath(replica2), nullValue());
+        assertThat(clusterInfo.getDataPath(replica1), equalTo("/data/node2"));
+
+        // a full update replaces everything the node sent before
+        final ShardRouting other = TestShardRouting.newShardRouting("other", 0, "node1", true, ShardRoutingState.STARTED);
+        assertFalse(clusterInfoService.applyNodeDiskUsageUpdate(new NodeDiskUsageUpdate("node1", true, null, null,
+            singletonList(shardSize(other, 5)), emptyList())));
+        clusterInfo = clusterInfoService.getClusterInfo();
+        assertThat(clusterInfo.getShardSize(primary), nullValue());
+        assertThat(clusterInfo.getDataPath(primary), nullValue());
+        assertThat(clusterInfo.getShardSize(other), equalTo(5L));
+
+        // after losing the mastership all nodes have to start over
+        clusterInfoService.offMaster();
+        assertTrue(clusterInfoService.applyNodeDiskUsageUpdate(new NodeDiskUsageUpdate("node2", false, null, null,
+            singletonList(shardSize(replica1, 25)), emptyList())));
+        clusterInfoService.onMaster();
+        assertTrue(clusterInfoService.applyNodeDiskUsageUpdate(new NodeDiskUsageUpdate("node2", false, null, null,
+            singletonList(shardSize(replica1, 25)), emptyList())));
+    }
+
+    public void testPushedUpdatesAreAppliedToTheClusterInfoOnRead() {
+        final int numNodes = randomIntBetween(1, 5);
+        for (int i = 0; i < numNodes; i++) {
+            final ShardRouting primary = TestShardRouting.newShardRouting("test", i, "node" + i, true, ShardRoutingState.STARTED);
+            assertFalse(clusterInfoService.applyNodeDiskUsageUpdate(new NodeDiskUsageUpdate("node" + i, true, null, null,
+                singletonList(shardSize(primary, i)), emptyList())));
+        }
+        final ClusterInfo clusterInfo = clusterInfoService.getClusterInfo();
+        for (int i = 0; i < numNodes; i++) {
+            final ShardRouting primary = TestShardRouting.newShardRouting("test", i, "node" + i, true, ShardRoutingState.STARTED);
+            assertThat(clusterInfo.getShardSize(primary), equalTo((long) i));
+        }
+        // the shard level info is only built again once it changed
+        assertThat(clusterInfoService.getClusterInfo().shardSizes, sameInstance(clusterInfo.shardSizes));
+        final ShardRouting primary = TestShardRouting.newShardRouting("test", 0, "node0", true, ShardRoutingState.STARTED);
+        assertFalse(clusterInfoService.applyNodeDiskUsageUpdate(new NodeDiskUsageUpdate("node0", false, null, null,
+            singletonList(shardSize(primary, 42)), emptyList())));
+        assertThat(clusterInfoService.getClusterInfo().getShardSize(primary), equalTo(42L));
+        assertThat(clusterInfo.getShardSize(primary), equalTo(0L));
+    }
+
+    public void testRemovedNodesAreRemovedFromPushedInfo() {
+        final DiscoveryNode node1 = new DiscoveryNode("node1", buildNewFakeTransportAddress(), emptyMap(),
+            Collections.singleton(DiscoveryNode.Role.DATA), Version.CURRENT);
+        final ShardRouting primary = TestShardRouting.newShardRouting("test", 0, "node1", true, ShardRoutingState.STARTED);
+        assertFalse(clusterInfoService.applyNodeDiskUsageUpdate(new NodeDiskUsageUpdate("node1", true, null, null,
+            singletonList(shardSize(primary, 10)), emptyList())));
+        assertThat(clusterInfoService.getClusterInfo().getShardSize(primary), equalTo(10L));
+
+        final DiscoveryNodes nodes = DiscoveryNodes.builder(clusterService.state().nodes()).add(node1).build();
+        final ClusterState withNode = ClusterState.builder(clusterService.state()).nodes(nodes).build();
+        final ClusterState withoutNode = ClusterState.builder(withNode).nodes(DiscoveryNodes.builder(nodes).remove("node1")).build();
+        clusterInfoService.clusterChanged(new ClusterChangedEvent("test", withoutNode, withNode));
+        assertThat(clusterInfoService.getClusterInfo().getShardSize(primary), nullValue());
+        assertThat(clusterInfoService.getClusterInfo().getDataPath(primary), nullValue());
+        // the node has to send a full update if it rejoins
+        assertTrue(clusterInfoService.applyNodeDiskUsageUpdate(new NodeDiskUsageUpdate("node1", false, null, null,
+            singletonList(shardSize(primary, 10)), emptyList())));
+    }
+
+    public void testPushIsOnlyUsedIfAllDataNodesSupportIt() {
+        final DiscoveryNode newNode = new DiscoveryNode("new", buildNewFakeTransportAddress(), emptyMap(),
+            Collections.singleton(DiscoveryNode.Role.DATA), Version.CURRENT);
+        final DiscoveryNode oldNode = new DiscoveryNode("old", buildNewFakeTransportAddress(), emptyMap(),
+            Collections.singleton(DiscoveryNode.Role.DATA), Version.V_5_4_0_UNRELEASED);
+        final DiscoveryNode oldMasterOnlyNode = new DiscoveryNode("old_master", buildNewFakeTransportAddress(), emptyMap(),
+            Collections.singleton(DiscoveryNode.Role.MASTER), Version.V_5_4_0_UNRELEASED);
+        assertTrue(clusterInfoService.isDiskUsagePushed(DiscoveryNodes.builder().add(newNode).add(oldMasterOnlyNode).build()));
+        assertFalse(clusterInfoService.isDiskUsagePushed(DiscoveryNodes.builder().add(newNode).add(oldNode).build()));
+
+        clusterService.getClusterSettings().applySettings(Settings.builder()
+            .put(DiskUsageReporter.PUSH_ENABLED_SETTING.getKey(), false).build());
+        assertFalse(clusterInfoService.isDiskUsagePushed(DiscoveryNodes.builder().add(newNode).build()));
+    }
+}
@@ -33,6 +33,7 @@ import org.elasticsearch.test.ESTestCase;
 import java.util.Arrays;
 import java.util.Collections;
 import java.util.HashSet;
+import java.util.Set;
 import java.util.function.Predicate;
 
 import static org.elasticsearch.common.util.set.Sets.newHashSet;
@@ -698,6 +699,94 @@ public class IndexNameExpressionResolverTests extends ESTestCase {
         }
     }
 
+    public void testConcreteIndicesAllPatternSameAsWildcard() {
+        for (int i = 0; i < 10; i++) {
+            MetaData.Builder mdBuilder = MetaData.builder();
+            int numIndices = randomIntBetween(0, 10);
+            for (int j = 0; j < numIndices; j++) {
+                mdBuilder.put(indexBuilder("index" + j).state(randomFrom(State.values())));
+            }
+            ClusterState state = ClusterState.builder(new ClusterName("_name")).metaData(mdBuilder).build();
+            IndicesOptions indicesOptions = IndicesOptions.fromOptions(randomBoolean(), randomBoolean(), randomBoolean(), randomBoolean(),
+                randomFrom(IndicesOptions.lenientExpandOpen(), IndicesOptions.strictExpandOpenAndForbidClosed()));
+            IndexNameExpressionResolver.Context context = new IndexNameExpressionResolver.Context(state, indicesOptions);
+            // match all expressions are resolved against the precomputed indices, but must behave like any other wildcard
+            String[] allIndices = randomFrom(new String[0], new String[] { MetaData.ALL }, new String[] { "*" });
+            Exception allException = null;
+            String[] allResult = null;
+            try {
+                allResult = indexNameExpressionResolver.concreteIndexNames(context, allIndices);
+            } catch (IndexNotFoundException | IndexClosedException e) {
+                allException = e;
+            }
+            Exception wildcardException = null;
+            String[] wildcardResult = null;
+            try {
+                wildcardResult = indexNameExpressionResolver.concreteIndexNames(context, "index*");
+            } catch (IndexNotFoundException | IndexClosedException e) {
+                wildcardException = e;
+            }
+            if (indicesOptions.expandWildcardsOpen() || indicesOptions.expandWildcardsClosed()) {
+                if (wildcardException == null) {
+                    assertNull(allException);
+                    assertThat(allResult, arrayContainingInAnyOrder(wildcardResult));
+                } else {
+                    assertNotNull(allException);
+                    assertEquals(wildcardException.getClass(), allException.getClass());
+                }
+            }
+        }
+    }
+
+    public void testWildcardExpansionIsMemoised() {
+        MetaData.Builder mdBuilder = MetaData.builder()
+                .put(indexBuilder("foo").putAlias(AliasMetaData.builder("foofoobar")))
+                .put(indexBuilder("foobar").putAlias(AliasMetaData.builder("foofoobar")))
+                .put(indexBuilder("foofoo-closed").state(IndexMetaData.State.CLOSE))
+                .put(indexBuilder("bar"));
+        ClusterState state = ClusterState.builder(new ClusterName("_name")).metaData(mdBuilder).build();
+        IndicesLookup indicesLookup = state.metaData().getIndicesLookup();
+        assertSame(indicesLookup, state.metaData().getIndicesLookup());
+
+        IndexNameExpressionResolver.Context context = new IndexNameExpressionResolver.Context(state, IndicesOptions.lenientExpandOpen());
+        assertThat(indexNameExpressionResolver.concreteIndexNames(context, "foo*"), arrayContainingInAnyOrder("foo", "foobar"));
+        IndicesLookup.WildcardExpansion expansion = indicesLookup.getOrExpandWildcard("foo*", IndexMetaData.State.CLOSE, false,
+            () -> {
+                throw new AssertionError("expansion should have been memoised");
+            });
+        assertEquals(newHashSet("foo", "foobar"), expansion.getNames());
+        assertTrue(expansion.matches());
+
+        // a different state to exclude is a different expansion
+        context = new IndexNameExpressionResolver.Context(state, IndicesOptions.fromOptions(true, true, false, true));
+        assertThat(indexNameExpressionResolver.concreteIndexNames(context, "foo*"), arrayContainingInAnyOrder("foofoo-closed"));
+        assertThat(indexNameExpressionResolver.concreteIndexNames(context, "bar*"), emptyArray());
+        assertTrue(indicesLookup.getOrExpandWildcard("bar*", IndexMetaData.State.OPEN, false, () -> null).matches());
+    }
+
+    public void testMemoisedWildcardExpansionsAreBoundedByNames() {
+        MetaData metaData = MetaData.builder().put(indexBuilder("foo")).build();
+        IndicesLookup indicesLookup = metaData.getIndicesLookup();
+        Set<String> largeNames = new HashSet<>();
+        for (int i = 0; i < IndicesLookup.MAX_CACHED_WILDCARD_NAMES - 1; i++) {
+            largeNames.add("index-" + i);
+        }
+        IndicesLookup.WildcardExpansion large = new IndicesLookup.WildcardExpansion(largeNames, true);
+        assertSame(large, indicesLookup.getOrExpandWildcard("large*", null, false, () -> large));
+        assertSame(large, indicesLookup.getOrExpandWildcard("large*", null, false, () -> null));
+
+        // an expansion that doesn't fit in the remaining budget is not memoised
+        IndicesLookup.WildcardExpansion two = new IndicesLookup.WildcardExpansion(newHashSet("a", "b"), true);
+        assertSame(two, indicesLookup.getOrExpandWildcard("two*", null, false, () -> two));
+        IndicesLookup.WildcardExpansion expandedAgain = new IndicesLookup.WildcardExpansion(newHashSet("a", "b"), true);
+        assertSame(expandedAgain, indicesLookup.getOrExpandWildcard("two*", null, false, () -> expandedAgain));
+
+        // but a smaller one still is
+        IndicesLookup.WildcardExpansion one = new IndicesLookup.WildcardExpansion(newHashSet("a"), true);
+        assertSame(one, indicesLookup.getOrExpandWildcard("one*", null, false, () -> one));
+        assertSame(one, indicesLookup.getOrExpandWildcard("one*", null, false, () -> null));
+    }
+
     /**
      * check for correct exception type depending on indicesOptions and provided index name list
      */
@@ -20,18 +20,28 @@ package org.elasticsearch.cluster.metadata;
 
 import org.elasticsearch.action.admin.indices.mapping.put.PutMappingClusterStateUpdateRequest;
 import org.elasticsearch.cluster.ClusterState;
+import org.elasticsearch.cluster.ClusterStateTaskExecutor.ClusterTasksResult;
 import org.elasticsearch.cluster.service.ClusterService;
 import org.elasticsearch.common.compress.CompressedXContent;
 import org.elasticsearch.common.settings.Settings;
 import org.elasticsearch.common.xcontent.XContentType;
+import org.elasticsearch.index.Index;
 import org.elasticsearch.index.IndexService;
 import org.elasticsearch.index.mapper.DocumentMapper;
 import org.elasticsearch.index.mapper.MapperParsingException;
 import org.elasticsearch.test.ESSingleNodeTestCase;
 
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
 
 import static org.hamcrest.Matchers.equalTo;
+import static org.hamcrest.Matchers.instanceOf;
 import static org.hamcrest.Matchers.is;
 
 public class MetaDataMappingServiceTests extends ESSingleNodeTestCase {
@@ -111,4 +121,49 @@ public class MetaDataMappingServiceTests extends ESSingleNodeTestCase {
 
         assertSame(result, result2);
     }
+
+    public void testMappingUpdatesOfATypeAreMergedAtOnce() throws Exception {
+        final IndexService indexService = createIndex("test", client().admin().indices().prepareCreate("test").addMapping("type"));
+        final MetaDataMappingService mappingService = getInstanceFromNode(MetaDataMappingService.class);
+        final ClusterService clusterService = getInstanceFromNode(ClusterService.class);
+        final List<PutMappingClusterStateUpdateRequest> requests = new ArrayList<>();
+        for (int i = 0; i < 5; i++) {
+            requests.add(new PutMappingClusterStateUpdateRequest().indices(new Index[] {indexService.index()}).type("type")
+                .source("{\"properties\": {\"field" + i + "\": {\"type\": \"keyword\"}}}"));
+        }
+        ClusterTasksResult<PutMappingClusterStateUpdateRequest> result =
+            mappingService.putMappingExecutor.execute(clusterService.state(), requests);
+        for (PutMappingClusterStateUpdateRequest request : requests) {
+            assertTrue(result.executionResults.get(request).isSuccess());
+        }
+        assertEquals(new HashSet<>(Arrays.asList("field0", "field1", "field2", "field3", "field4")),
+            mappedFields(result.resultingState, "test", "type"));
+    }
+
+    public void testInvalidMappingUpdateOfABatchFailsAlone() throws Exception {
+        final IndexService indexService = createIndex("test", Settings.EMPTY, "type", "field", "type=keyword");
+        final MetaDataMappingService mappingService = getInstanceFromNode(MetaDataMappingService.class);
+        final ClusterService clusterService = getInstanceFromNode(ClusterService.class);
+        final Index[] indices = new Index[] {indexService.index()};
+        final PutMappingClusterStateUpdateRequest first = new PutMappingClusterStateUpdateRequest().indices(indices).type("type")
+            .source("{\"properties\": {\"first\": {\"type\": \"keyword\"}, \"other\": {\"type\": \"keyword\"}}}");
+        final PutMappingClusterStateUpdateRequest conflicting = new PutMappingClusterStateUpdateRequest().indices(indices).type("type")
+            .source("{\"properties\": {\"second\": {\"type\": \"keyword\"}, \"other\": {\"type\": \"long\"}}}");
+        final PutMappingClusterStateUpdateRequest last = new PutMappingClusterStateUpdateRequest().indices(indices).type("type")
+            .source("{\"properties\": {\"last\": {\"type\": \"keyword\"}}}");
+        ClusterTasksResult<PutMappingClusterStateUpdateRequest> result =
+            mappingService.putMappingExecutor.execute(clusterService.state(), Arrays.asList(first, conflicting, last));
+        assertTrue(result.executionResults.get(first).isSuccess());
+        assertFalse(result.executionResults.get(conflicting).isSuccess());
+        assertThat(result.executionResults.get(conflicting).getFailure(), instanceOf(IllegalArgumentException.class));
+        assertTrue(result.executionResults.get(last).isSuccess());
+        assertEquals(new HashSet<>(Arrays.asList("field", "first", "other", "last")), mappedFields(result.resultingState, "test", "type"));
+        assertEquals("keyword", indexService.mapperService().documentMapper("type").mappers().getMapper("field").fieldType().typeName());
+    }
+
+    @SuppressWarnings("unchecked")
+    private static Set<String> mappedFields(ClusterState state, String index, String type) throws IOException {
+        Map<String, Object> mapping = state.metaData().index(index).mapping(type).sourceAsMap();
+        return ((Map<String, Object>) mapping.get("properties")).keySet();
+    }
 }
@@ -21,12 +21,19 @@ package org.elasticsearch.cluster.routing;
 import org.apache.lucene.util.IOUtils;
 import org.elasticsearch.Version;
 import org.elasticsearch.action.support.replication.ClusterStateCreationUtils;
+import org.elasticsearch.cluster.ClusterName;
+import org.elasticsearch.cluster.ClusterState;
 import org.elasticsearch.cluster.metadata.IndexMetaData;
+import org.elasticsearch.cluster.metadata.MetaData;
+import org.elasticsearch.cluster.node.DiscoveryNode;
+import org.elasticsearch.cluster.node.DiscoveryNodes;
 import org.elasticsearch.cluster.service.ClusterService;
 import org.elasticsearch.common.settings.ClusterSettings;
 import org.elasticsearch.common.settings.Settings;
+import org.elasticsearch.common.unit.TimeValue;
 import org.elasticsearch.index.Index;
 import org.elasticsearch.index.shard.ShardId;
+import org.elasticsearch.node.ResponseCollectorService;
 import org.elasticsearch.test.ClusterServiceUtils;
 import org.elasticsearch.test.ESTestCase;
 import org.elasticsearch.threadpool.TestThreadPool;
@@ -36,6 +43,7 @@ import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.HashMap;
 import java.util.HashSet;
+import java.util.Iterator;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
@@ -44,6 +52,7 @@ import java.util.TreeMap;
 import static org.hamcrest.CoreMatchers.containsString;
 import static org.hamcrest.Matchers.containsInAnyOrder;
 import static org.hamcrest.Matchers.equalTo;
+import static org.hamcrest.Matchers.lessThan;
 import static org.hamcrest.object.HasToString.hasToString;
 
 public class OperationRoutingTests extends ESTestCase{
@@ -427,4 +436,163 @@ public class OperationRoutingTests extends ESTestCase{
         }
     }
 
+    public void testAdaptiveReplicaSelection() throws Exception {
+        final int numIndices = 1;
+        final int numShards = 1;
+        final int numReplicas = 1;
+        final String[] indexNames = new String[numIndices];
+        for (int i = 0; i < numIndices; i++) {
+            indexNames[i] = "test" + i;
+        }
+        ClusterState state = ClusterStateCreationUtils.stateWithAssignedPrimariesAndOneReplica(indexNames[0], numShards);
+        final int numCopies = numShards * (numReplicas + 1);
+        TestThreadPool threadPool = new TestThreadPool("testAdaptiveReplicaSelection");
+        ClusterService clusterService = ClusterServiceUtils.createClusterService(threadPool);
+        try {
+            OperationRouting opRouting = new OperationRouting(Settings.EMPTY,
+                new ClusterSettings(Settings.EMPTY, ClusterSettings.BUILT_IN_CLUSTER_SETTINGS));
+            opRouting.setUseAdaptiveReplicaSelection(true);
+            ResponseCollectorService collector = new ResponseCollectorService(Settings.EMPTY, clusterService);
+            Map<String, Long> outstandingRequests = new HashMap<>();
+
+            // Check that we search both copies before any stats are collected
+            GroupShardsIterator<ShardIterator> groupIterator = opRouting.searchShards(state, indexNames, null, null, collector,
+                outstandingRequests);
+            assertThat("One group per index shard", groupIterator.size(), equalTo(numIndices * numShards));
+            assertThat("All copies are searchable", groupIterator.iterator().next().size(), equalTo(numCopies));
+            assertNotNull(groupIterator.iterator().next().nextOrNull());
+            groupIterator = opRouting.searchShards(state, indexNames, null, null, collector, outstandingRequests);
+            assertNotNull(groupIterator.iterator().next().nextOrNull());
+            // each search counts as a search in flight to the node of the chosen copy
+            assertThat(outstandingRequests.values().stream().mapToLong(Long::longValue).sum(), equalTo(2L));
+
+            // Now let's start adding node metrics, since that will affect which node is chosen
+            collector.addNodeStatistics("node_0", 2, TimeValue.timeValueMillis(200).nanos(), TimeValue.timeValueMillis(150).nanos());
+            collector.addNodeStatistics("node_1", 1, TimeValue.timeValueMillis(100).nanos(), TimeValue.timeValueMillis(50).nanos());
+            outstandingRequests.clear();
+            groupIterator = opRouting.searchShards(state, indexNames, null, null, collector, outstandingRequests);
+            ShardRouting shardChoice = groupIterator.iterator().next().nextOrNull();
+            // node 1 should be the lowest ranked node to start
+            assertThat(shardChoice.currentNodeId(), equalTo("node_1"));
+            assertThat(outstandingRequests.get("node_1"), equalTo(1L));
+
+            // node 1 starts getting more loaded...
+            collector.addNodeStatistics("node_1", 10, TimeValue.timeValueMillis(400).nanos(), TimeValue.timeValueMillis(300).nanos());
+            collector.addNodeStatistics("node_1", 10, TimeValue.timeValueMillis(400).nanos(), TimeValue.timeValueMillis(300).nanos());
+            groupIterator = opRouting.searchShards(state, indexNames, null, null, collector, outstandingRequests);
+            shardChoice = groupIterator.iterator().next().nextOrNull();
+            // so the primary on node 0 is now chosen
+            assertThat(shardChoice.currentNodeId(), equalTo("node_0"));
+
+            // without adaptive replica selection the copies are chosen round robin
+            opRouting.setUseAdaptiveReplicaSelection(false);
+            outstandingRequests.clear();
+            groupIterator = opRouting.searchShards(state, indexNames, null, null, collector, outstandingRequests);
+            assertNotNull(groupIterator.iterator().next().nextOrNull());
+            assertTrue("searches are not counted without adaptive replica selection", outstandingRequests.isEmpty());
+        } finally {
+            IOUtils.close(clusterService);
+            terminate(threadPool);
+        }
+    }
+
+    public void testSearchShardsWithoutPreference() {
+        final int numNodes = randomIntBetween(3, 5);
+        final DiscoveryNodes.Builder nodes = DiscoveryNodes.builder();
+        for (int i = 0; i < numNodes; i++) {
+            nodes.add(new DiscoveryNode("node_" + i, buildNewFakeTransportAddress(), Version.CURRENT));
+        }
+        final int numIndices = randomIntBetween(1, 20);
+        final MetaData.Builder metaData = MetaData.builder();
+        final RoutingTable.Builder routingTable = RoutingTable.builder();
+        for (int i = 0; i < numIndices; i++) {
+            final IndexMetaData indexMetaData = IndexMetaData.builder("index_" + i).settings(settings(Version.CURRENT))
+                .numberOfShards(randomIntBetween(1, 8)).numberOfReplicas(randomIntBetween(0, 2)).build();
+            metaData.put(indexMetaData, false);
+            final IndexRoutingTable.Builder indexRoutingTable = IndexRoutingTable.builder(indexMetaData.getIndex());
+            for (int shard = 0; shard < indexMetaData.getNumberOfShards(); shard++) {
+                final ShardId shardId = new ShardId(indexMetaData.getIndex(), shard);
+                final IndexShardRoutingTable.Builder shardRoutingTable = new IndexShardRoutingTable.Builder(shardId);
+                shardRoutingTable.addShard(TestShardRouting.newShardRouting(shardId, "node_0", true, ShardRoutingState.STARTED));
+                for (int replica = 0; replica < indexMetaData.getNumberOfReplicas(); replica++) {
+                    // every copy lives on its own node
+                    final String nodeId = "node_" + (replica + 1);
+                    switch (randomIntBetween(0, 3)) {
+                        case 0:
+                            shardRoutingTable.addShard(TestShardRouting.newShardRouting(shardId, nodeId, false, ShardRoutingState.STARTED));
+                            break;
+                        case 1:
+                            shardRoutingTable.addShard(
+                                TestShardRouting.newShardRouting(shardId, nodeId, false, ShardRoutingState.INITIALIZING));
+                            break;
+                        case 2:
+                            shardRoutingTable.addShard(
+                                TestShardRouting.newShardRouting(shardId, nodeId, "target_" + nodeId, false, ShardRoutingState.RELOCATING));
+                            break;
+                        default:
+                            shardRoutingTable.addShard(
+                                TestShardRouting.newShardRouting(shardId, null, false, ShardRoutingState.UNASSIGNED));
+                    }
+                }
+                indexRoutingTable.addIndexShard(shardRoutingTable.build());
+            }
+            routingTable.add(indexRoutingTable);
+        }
+        final ClusterState state = ClusterState.builder(new ClusterName("test")).nodes(nodes).metaData(metaData)
+            .routingTable(routingTable.build()).build();
+
+        final String[] concreteIndices = new String[randomIntBetween(1, numIndices + 2)];
+        final Map<String, Set<String>> routing = new HashMap<>();
+        for (int i = 0; i < concreteIndices.length; i++) {
+            // duplicates are fine
+            concreteIndices[i] = "index_" + randomIntBetween(0, numIndices - 1);
+            if (rarely()) {
+                routing.computeIfAbsent(concreteIndices[i], k -> new HashSet<>()).add(randomAlphaOfLength(5));
+            }
+        }
+
+        final OperationRouting operationRouting = new OperationRouting(Settings.EMPTY,
+            new ClusterSettings(Settings.EMPTY, ClusterSettings.BUILT_IN_CLUSTER_SETTINGS));
+        final GroupShardsIterator<ShardIterator> searchShards = operationRouting.searchShards(state, concreteIndices, routing, null);
+        final GroupShardsIterator<ShardIterator> nextSearchShards = operationRouting.searchShards(state, concreteIndices, routing, null);
+        // a preference that searches the same shards and copies, in a different order
+        final GroupShardsIterator<ShardIterator> expectedShards =
+            operationRouting.searchShards(state, concreteIndices, routing, "_replica_first");
+        assertThat(searchShards.size(), equalTo(expectedShards.size()));
+        final Iterator<ShardIterator> expectedIterator = expectedShards.iterator();
+        ShardId previous = null;
+        for (ShardIterator shardIterator : searchShards) {
+            final ShardIterator expected = expectedIterator.next();
+            assertThat(shardIterator.shardId(), equalTo(expected.shardId()));
+            if (previous != null) {
+                assertThat(previous.compareTo(shardIterator.shardId()), lessThan(0));
+            }
+            previous = shardIterator.shardId();
+            assertThat(new HashSet<>(shardIterator.getShardRoutings()), equalTo(new HashSet<>(expected.getShardRoutings())));
+
+            // the active copies, rotated, come before the initializing ones
+            final IndexShardRoutingTable shardRoutingTable = state.routingTable().shardRoutingTable(shardIterator.shardId());
+            final List<ShardRouting> activeShards = shardRoutingTable.activeShards();
+            final List<ShardRouting> copies = shardIterator.getShardRoutings();
+            assertThat(copies.size(), equalTo(activeShards.size() + shardRoutingTable.getAllInitializingShards().size()));
+            if (activeShards.isEmpty() == false) {
+                final int rotation = activeShards.indexOf(copies.get(0));
+                for (int i = 0; i < activeShards.size(); i++) {
+                    assertThat(copies.get(i), equalTo(activeShards.get((rotation + i) % activeShards.size())));
+                }
+            }
+            assertThat(copies.subList(activeShards.size(), copies.size()), equalTo(shardRoutingTable.getAllInitializingShards()));
+        }
+
+        // subsequent searches pick the next active copy of each shard
+        final Iterator<ShardIterator> nextIterator = nextSearchShards.iterator();
+        for (ShardIterator shardIterator : searchShards) {
+            final ShardIterator next = nextIterator.next();
+            final List<ShardRouting> activeShards = state.routingTable().shardRoutingTable(shardIterator.shardId()).activeShards();
+            if (activeShards.isEmpty() == false) {
+                final int rotation = activeShards.indexOf(shardIterator.nextOrNull());
+                assertThat(next.nextOrNull(), equalTo(activeShards.get((rotation + 1) % activeShards.size())));
+            }
+        }
+    }
 }
@@ -22,8 +22,11 @@ import org.apache.logging.log4j.Level;
 import org.apache.logging.log4j.Logger;
 import org.elasticsearch.Version;
 import org.elasticsearch.action.ActionListener;
+import org.elasticsearch.cluster.ClusterChangedEvent;
 import org.elasticsearch.cluster.ClusterName;
 import org.elasticsearch.cluster.ClusterState;
+import org.elasticsearch.cluster.ClusterStateApplier;
+import org.elasticsearch.cluster.ClusterStateListener;
 import org.elasticsearch.cluster.ClusterStateObserver;
 import org.elasticsearch.cluster.ClusterStateTaskListener;
 import org.elasticsearch.cluster.LocalNodeMasterListener;
@@ -35,6 +38,7 @@ import org.elasticsearch.common.logging.Loggers;
 import org.elasticsearch.common.settings.ClusterSettings;
 import org.elasticsearch.common.settings.Settings;
 import org.elasticsearch.common.unit.TimeValue;
+import org.elasticsearch.common.util.concurrent.EsRejectedExecutionException;
 import org.elasticsearch.discovery.DiscoverySettings;
 import org.elasticsearch.test.ESTestCase;
 import org.elasticsearch.test.MockLogAppender;
@@ -46,14 +50,24 @@ import org.junit.AfterClass;
 import org.junit.Before;
 import org.junit.BeforeClass;
 
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
 import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
 import java.util.concurrent.atomic.AtomicBoolean;
 import java.util.concurrent.atomic.AtomicReference;
 
 import static java.util.Collections.emptyMap;
 import static java.util.Collections.emptySet;
 import static org.elasticsearch.test.ClusterServiceUtils.setState;
+import static org.hamcrest.Matchers.empty;
+import static org.hamcrest.Matchers.equalTo;
 import static org.hamcrest.Matchers.is;
+import static org.mockito.Matchers.any;
+import static org.mockito.Mockito.doThrow;
+import static org.mockito.Mockito.mock;
 
 public class ClusterApplierServiceTests extends ESTestCase {
 
@@ -86,6 +100,10 @@ public class ClusterApplierServiceTests extends ESTestCase {
     }
 
     TimedClusterApplierService createTimedClusterService(boolean makeMaster) throws InterruptedException {
+        return createTimedClusterService(makeMaster, threadPool);
+    }
+
+    TimedClusterApplierService createTimedClusterService(boolean makeMaster, ThreadPool threadPool) throws InterruptedException {
         DiscoveryNode localNode = new DiscoveryNode("node1", buildNewFakeTransportAddress(), emptyMap(),
             emptySet(), Version.CURRENT);
         TimedClusterApplierService timedClusterApplierService = new TimedClusterApplierService(Settings.builder().put("cluster.name",
@@ -282,6 +300,185 @@ public class ClusterApplierServiceTests extends ESTestCase {
         mockAppender.assertAllExpectationsMatched();
     }
 
+    @TestLogging("org.elasticsearch.cluster.service:WARN") // To ensure that we log cluster state events on WARN level
+    public void testSlowClusterStateApplierLogging() throws Exception {
+        MockLogAppender mockAppender = new MockLogAppender();
+        mockAppender.start();
+        mockAppender.addExpectation(
+                new MockLogAppender.SeenEventExpectation(
+                        "slow applier",
+                        clusterApplierService.getClass().getName(),
+                        Level.WARN,
+                        "*cluster state applier [slow applier] took [35s] above the warn threshold of * source [test1]"));
+        mockAppender.addExpectation(
+                new MockLogAppender.UnseenEventExpectation(
+                        "fast applier",
+                        clusterApplierService.getClass().getName(),
+                        Level.WARN,
+                        "*cluster state applier [fast applier] took*"));
+        mockAppender.addExpectation(
+                new MockLogAppender.SeenEventExpectation(
+                        "slow listener",
+                        clusterApplierService.getClass().getName(),
+                        Level.WARN,
+                        "*cluster state listener [slow listener] took [31s] above the warn threshold of * source [test1]"));
+
+        Logger clusterLogger = Loggers.getLogger("org.elasticsearch.cluster.service");
+        Loggers.addAppender(clusterLogger, mockAppender);
+        try {
+            clusterApplierService.currentTimeOverride = System.nanoTime();
+            clusterApplierService.addStateApplier(new ClusterStateApplier() {
+                @Override
+                public void applyClusterState(ClusterChangedEvent event) {
+                    clusterApplierService.currentTimeOverride += TimeValue.timeValueSeconds(35).nanos();
+                }
+
+                @Override
+                public String toString() {
+                    return "slow applier";
+                }
+            });
+            clusterApplierService.addStateApplier(new ClusterStateApplier() {
+                @Override
+                public void applyClusterState(ClusterChangedEvent event) {
+                    clusterApplierService.currentTimeOverride += TimeValue.timeValueSeconds(1).nanos();
+                }
+
+                @Override
+                public String toString() {
+                    return "fast applier";
+                }
+            });
+            clusterApplierService.addListener(new ClusterStateListener() {
+                @Override
+                public void clusterChanged(ClusterChangedEvent event) {
+                    clusterApplierService.currentTimeOverride += TimeValue.timeValueSeconds(31).nanos();
+                }
+
+                @Override
+                public String toString() {
+                    return "slow listener";
+                }
+            });
+
+            final CountDownLatch latch = new CountDownLatch(1);
+            clusterApplierService.onNewClusterState("test1",
+                () -> ClusterState.builder(clusterApplierService.state()).incrementVersion().build(),
+                new ClusterStateTaskListener() {
+                    @Override
+                    public void clusterStateProcessed(String source, ClusterState oldState, ClusterState newState) {
+                        latch.countDown();
+                    }
+
+                    @Override
+                    public void onFailure(String source, Exception e) {
+                        fail();
+                    }
+                });
+            latch.await();
+        } finally {
+            Loggers.removeAppender(clusterLogger, mockAppender);
+            mockAppender.stop();
+        }
+        mockAppender.assertAllExpectationsMatched();
+    }
+
+    public void testAsyncClusterStateApplier() throws Exception {
+        final CountDownLatch releaseApplier = new CountDownLatch(1);
+        final List<Long> appliedVersions = new CopyOnWriteArrayList<>();
+        final AtomicReference<Throwable> error = new AtomicReference<>();
+        clusterApplierService.addAsyncApplier(event -> {
+            try {
+                assertFalse(Thread.currentThread().getName().contains(ClusterApplierService.CLUSTER_UPDATE_THREAD_NAME));
+                releaseApplier.await();
+                appliedVersions.add(event.state().version());
+            } catch (Exception | AssertionError e) {
+                error.set(e);
+            }
+        });
+
+        // the applier is blocked, but that mustn't hold up the application of cluster states
+        final long initialVersion = clusterApplierService.state().version();
+        final int numStates = randomIntBetween(1, 5);
+        for (int i = 0; i < numStates; i++) {
+            final CountDownLatch latch = new CountDownLatch(1);
+            clusterApplierService.onNewClusterState("test" + i,
+                () -> ClusterState.builder(clusterApplierService.state()).incrementVersion().build(),
+                new ClusterStateTaskListener() {
+                    @Override
+                    public void clusterStateProcessed(String source, ClusterState oldState, ClusterState newState) {
+                        latch.countDown();
+                    }
+
+                    @Override
+                    public void onFailure(String source, Exception e) {
+                        error.compareAndSet(null, e);
+                    }
+                });
+            latch.await();
+        }
+        assertThat(clusterApplierService.state().version(), equalTo(initialVersion + numStates));
+        assertThat(appliedVersions, empty());
+
+        releaseApplier.countDown();
+        // every state is applied, in order
+        final List<Long> expectedVersions = new ArrayList<>();
+        for (int i = 1; i <= numStates; i++) {
+            expectedVersions.add(initialVersion + i);
+        }
+        assertBusy(() -> assertThat(appliedVersions, equalTo(expectedVersions)));
+        assertNull(error.get());
+    }
+
+    public void testRejectedAsyncClusterStateApplierDropsPendingStates() throws Exception {
+        final AtomicBoolean reject = new AtomicBoolean(true);
+        final ExecutorService rejectingExecutor = mock(ExecutorService.class);
+        doThrow(new EsRejectedExecutionException("rejected")).when(rejectingExecutor).execute(any(Runnable.class));
+        final ThreadPool rejectingThreadPool = new TestThreadPool(getTestName()) {
+            @Override
+            public ExecutorService generic() {
+                return reject.get() ? rejectingExecutor : super.generic();
+            }
+        };
+        final TimedClusterApplierService service = createTimedClusterService(true, rejectingThreadPool);
+        try {
+            final List<Long> appliedVersions = new CopyOnWriteArrayList<>();
+            service.addAsyncApplier(event -> appliedVersions.add(event.state().version()));
+
+            final long initialVersion = service.state().version();
+            for (int i = 1; i <= 2; i++) {
+                if (i == 2) {
+                    reject.set(false);
+                }
+                final CountDownLatch latch = new CountDownLatch(1);
+                final AtomicReference<Exception> failure = new AtomicReference<>();
+                service.onNewClusterState("test" + i, () -> ClusterState.builder(service.state()).incrementVersion().build(),
+                    new ClusterStateTaskListener() {
+                        @Override
+                        public void clusterStateProcessed(String source, ClusterState oldState, ClusterState newState) {
+                            latch.countDown();
+                        }
+
+                        @Override
+                        public void onFailure(String source, Exception e) {
+                            failure.set(e);
+                            latch.countDown();
+                        }
+                    });
+                latch.await();
+                // a rejected async applier doesn't fail the application of the cluster state
+                assertNull(failure.get());
+                assertThat(service.state().version(), equalTo(initialVersion + i));
+            }
+
+            // the state that was rejected is dropped rather than handed over with the next one
+            assertBusy(() -> assertThat(appliedVersions, equalTo(Collections.singletonList(initialVersion + 2))));
+        } finally {
+            service.close();
+            terminate(rejectingThreadPool);
+        }
+    }
+
     public void testLocalNodeMasterListenerCallbacks() throws Exception {
         TimedClusterApplierService timedClusterApplierService = createTimedClusterService(false);
 
@@ -32,6 +32,7 @@ import org.joda.time.DateTimeZone;
 
 import java.io.EOFException;
 import java.io.IOException;
+import java.nio.ByteBuffer;
 import java.util.ArrayList;
 import java.util.Base64;
 import java.util.Collections;
@@ -335,6 +336,78 @@ public class BytesStreamsTests extends ESTestCase {
         out.close();
     }
 
+    public void testPrimitivesAndArraysAcrossPages() throws IOException {
+        // arrays large enough to need several chunks of the bulk buffers and to span multiple pages of the underlying stream
+        final int size = randomIntBetween(0, 3000);
+        final int[] ints = new int[size];
+        final int[] vInts = new int[size];
+        final long[] longs = new long[size];
+        final long[] vLongs = new long[size];
+        final float[] floats = new float[size];
+        final double[] doubles = new double[size];
+        for (int i = 0; i < size; i++) {
+            ints[i] = randomInt();
+            // exercise every encoded length of the variable length formats
+            vInts[i] = randomInt() >>> randomIntBetween(0, 31);
+            longs[i] = randomLong();
+            vLongs[i] = randomNonNegativeLong() >>> randomIntBetween(0, 63);
+            floats[i] = randomFloat();
+            doubles[i] = randomDouble();
+        }
+        final int vInt = randomInt() >>> randomIntBetween(0, 31);
+        final long vLong = randomNonNegativeLong() >>> randomIntBetween(0, 63);
+        final long zLong = randomLong() >> randomIntBetween(0, 63);
+
+        BytesStreamOutput out = new BytesStreamOutput();
+        // shift everything off page boundaries
+        out.writeBytes(randomizedByteArrayWithSize(randomIntBetween(0, 16)));
+        final int prefixLength = Math.toIntExact(out.position());
+        for (int i = 0; i < 3; i++) {
+            out.writeIntArray(ints);
+            out.writeVIntArray(vInts);
+            out.writeLongArray(longs);
+            out.writeVLongArray(vLongs);
+            out.writeFloatArray(floats);
+            out.writeDoubleArray(doubles);
+            out.writeShort((short) vInt);
+            out.writeInt(-vInt);
+            out.writeVInt(vInt);
+            out.writeVInt(-vInt);
+            out.writeLong(-vLong);
+            out.writeVLong(vLong);
+            out.writeZLong(zLong);
+        }
+        final BytesReference bytes = out.bytes();
+        final byte[] byteArray = BytesReference.toBytes(bytes);
+        final List<StreamInput> inputs = new ArrayList<>();
+        inputs.add(bytes.streamInput());
+        inputs.add(new ByteBufferStreamInput(ByteBuffer.wrap(byteArray)));
+        inputs.add(StreamInput.wrap(byteArray));
+        inputs.add(new NamedWriteableAwareStreamInput(bytes.streamInput(), new NamedWriteableRegistry(Collections.emptyList())));
+        for (StreamInput in : inputs) {
+            in.skip(prefixLength);
+            for (int i = 0; i < 3; i++) {
+                assertArrayEquals(ints, in.readIntArray());
+                assertArrayEquals(vInts, in.readVIntArray());
+                assertArrayEquals(longs, in.readLongArray());
+                assertArrayEquals(vLongs, in.readVLongArray());
+                assertArrayEquals(floats, in.readFloatArray(), 0f);
+                assertArrayEquals(doubles, in.readDoubleArray(), 0d);
+                assertEquals((short) vInt, in.readShort());
+                assertEquals(-vInt, in.readInt());
+                assertEquals(vInt, in.readVInt());
+                assertEquals(-vInt, in.readVInt());
+                assertEquals(-vLong, in.readLong());
+                assertEquals(vLong, in.readVLong());
+                assertEquals(zLong, in.readZLong());
+            }
+            assertEquals(0, in.available());
+            expectThrows(EOFException.class, in::readInt);
+            in.close();
+        }
+        out.close();
+    }
+
     public void testNamedWriteable() throws IOException {
         try (BytesStreamOutput out = new BytesStreamOutput()) {
             NamedWriteableRegistry namedWriteableRegistry = new NamedWriteableRegistry(Collections.singletonList(
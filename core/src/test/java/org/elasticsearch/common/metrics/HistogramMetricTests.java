@@ -0,0 +1,113 @@
+/*
+ * Licensed to Elasticsearch under one or more contributor
+ * license agreements. See the NOTICE file distributed with
+ * this work for additional information regarding copyright
+ * ownership. Elasticsearch licenses this file to you under
+ * the Apache License, Version 2.0 (the "License"); you may
+ * not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.elasticsearch.common.metrics;
+
+import org.elasticsearch.common.io.stream.BytesStreamOutput;
+import org.elasticsearch.test.ESTestCase;
+
+import java.io.IOException;
+import java.util.Arrays;
+
+import static org.hamcrest.Matchers.greaterThanOrEqualTo;
+import static org.hamcrest.Matchers.lessThanOrEqualTo;
+
+public class HistogramMetricTests extends ESTestCase {
+
+    public void testBuckets() {
+        assertEquals(HistogramMetric.NUM_BUCKETS - 1, HistogramMetric.bucketIndex(Long.MAX_VALUE));
+        assertEquals(Long.MAX_VALUE, HistogramMetric.bucketUpperBound(HistogramMetric.NUM_BUCKETS - 1));
+        long previousUpperBound = -1;
+        for (int i = 0; i < HistogramMetric.NUM_BUCKETS; i++) {
+            final long upperBound = HistogramMetric.bucketUpperBound(i);
+            // buckets are contiguous
+            assertEquals(i, HistogramMetric.bucketIndex(previousUpperBound + 1));
+            assertEquals(i, HistogramMetric.bucketIndex(upperBound));
+            previousUpperBound = upperBound;
+        }
+        for (int i = 0; i < 1000; i++) {
+            final long value = randomNonNegativeLong() >>> randomIntBetween(0, 63);
+            final long upperBound = HistogramMetric.bucketUpperBound(HistogramMetric.bucketIndex(value));
+            assertThat(upperBound, greaterThanOrEqualTo(value));
+            assertThat((double) upperBound - value, lessThanOrEqualTo(value / 8.0));
+        }
+    }
+
+    public void testPercentiles() {
+        final HistogramMetric histogram = new HistogramMetric();
+        assertEquals(0, histogram.snapshot().getPercentile(50));
+        final long[] values = new long[randomIntBetween(1, 1000)];
+        for (int i = 0; i < values.length; i++) {
+            values[i] = randomIntBetween(0, randomBoolean() ? 100 : Integer.MAX_VALUE);
+            histogram.inc(values[i]);
+        }
+        Arrays.sort(values);
+        final HistogramMetric.Snapshot snapshot = histogram.snapshot();
+        assertEquals(values.length, snapshot.getCount());
+        assertEquals(values.length, histogram.count());
+        assertEquals(Arrays.stream(values).sum(), snapshot.getSum());
+        assertEquals(values[values.length - 1], snapshot.getMax());
+        assertEquals(values[values.length - 1], snapshot.getPercentile(100));
+        for (double percentile : new double[] { 0, 1, 50, 90, 99, 99.9, 100 }) {
+            final long exact = values[(int) Math.max(0, Math.ceil(percentile / 100 * values.length) - 1)];
+            final long estimate = snapshot.getPercentile(percentile);
+            assertThat(estimate, greaterThanOrEqualTo(exact));
+            assertThat((double) estimate - exact, lessThanOrEqualTo(exact / 8.0));
+        }
+        expectThrows(IllegalArgumentException.class, () -> snapshot.getPercentile(101));
+
+        histogram.clear();
+        assertEquals(HistogramMetric.Snapshot.EMPTY, histogram.snapshot());
+    }
+
+    public void testNegativeValues() {
+        final HistogramMetric histogram = new HistogramMetric();
+        histogram.inc(-randomIntBetween(1, 100));
+        assertEquals(1, histogram.count());
+        assertEquals(0, histogram.snapshot().getMax());
+        assertEquals(0, histogram.snapshot().getPercentile(100));
+    }
+
+    public void testMerge() {
+        final HistogramMetric first = new HistogramMetric();
+        final HistogramMetric second = new HistogramMetric();
+        final HistogramMetric both = new HistogramMetric();
+        final int numValues = randomIntBetween(0, 100);
+        for (int i = 0; i < numValues; i++) {
+            final long value = randomIntBetween(0, Integer.MAX_VALUE);
+            (randomBoolean() ? first : second).inc(value);
+            both.inc(value);
+        }
+        assertEquals(both.snapshot(), first.snapshot().merge(second.snapshot()));
+    }
+
+    public void testSerialization() throws IOException {
+        final HistogramMetric histogram = new HistogramMetric();
+        final int numValues = randomIntBetween(0, 100);
+        for (int i = 0; i < numValues; i++) {
+            histogram.inc(randomNonNegativeLong() >>> randomIntBetween(8, 63));
+        }
+        final HistogramMetric.Snapshot snapshot = histogram.snapshot();
+        try (BytesStreamOutput out = new BytesStreamOutput()) {
+            snapshot.writeTo(out);
+            final HistogramMetric.Snapshot deserialized = new HistogramMetric.Snapshot(out.bytes().streamInput());
+            assertEquals(snapshot, deserialized);
+            assertEquals(snapshot.getPercentile(99), deserialized.getPercentile(99));
+        }
+    }
+}
@@ -31,6 +31,7 @@ import org.elasticsearch.test.ESTestCase;
 import org.hamcrest.Matchers;
 
 import java.io.IOException;
+import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collections;
 import java.util.HashMap;
@@ -599,4 +600,78 @@ public class XContentMapValuesTests extends ESTestCase {
         expected.put("photosCount", 2);
         assertEquals(expected, filtered);
     }
+
+    public void testStreamingFilter() throws IOException {
+        XContentBuilder builder = XContentFactory.jsonBuilder().startObject()
+            .field("foo.bar", 2)
+            .startObject("foo").field("baz", 3).endObject()
+            .startObject("obj").startObject("obj2").field("f", 1).endObject().endObject()
+            .startArray("array").startObject().field("f1", 1).endObject().startObject().field("f2", 2).endObject().endArray()
+            .startArray("empty_array").endArray()
+            .field("quux", 5)
+            .endObject();
+        Map<String, Object> map = XContentHelper.convertToMap(builder.bytes(), true, builder.contentType()).v2();
+
+        // dots in field names
+        Map<String, Object> expected = new HashMap<>();
+        expected.put("foo.bar", 2);
+        expected.put("foo", singletonMap("baz", 3));
+        assertEquals(expected, streamingFilter(map, new String[] {"foo"}, new String[0]));
+        assertEquals(singletonMap("foo", singletonMap("baz", 3)), streamingFilter(map, new String[] {"foo"}, new String[] {"foo.bar"}));
+
+        // objects that are left empty are dropped, unless they are included
+        assertEquals(singletonMap("array", Collections.singletonList(singletonMap("f1", 1))),
+            streamingFilter(map, new String[] {"array.f1"}, new String[0]));
+        assertEquals(singletonMap("obj", emptyMap()), streamingFilter(map, new String[] {"obj"}, new String[] {"obj.obj2"}));
+        assertEquals(emptyMap(), streamingFilter(map, new String[] {"obj.obj2.g"}, new String[0]));
+        assertEquals(emptyMap(), streamingFilter(map, new String[] {"empty_array"}, new String[] {"empty_array.f"}));
+        assertEquals(singletonMap("empty_array", Collections.emptyList()),
+            streamingFilter(map, new String[] {"empty_array"}, new String[0]));
+    }
+
+    public void testStreamingFilterMatchesMapFilter() throws IOException {
+        final String[] patterns = new String[] {"a", "b", "a.b", "a.*", "*.b", "a*", "*", "c.a.b", "c.*.b", "b.c", "x"};
+        for (int i = 0; i < 100; i++) {
+            Map<String, Object> map = randomSource(3);
+            String[] includes = randomSubsetOf(randomIntBetween(0, 3), patterns).toArray(new String[0]);
+            String[] excludes = randomSubsetOf(randomIntBetween(0, 2), patterns).toArray(new String[0]);
+            assertEquals("includes " + Arrays.toString(includes) + " excludes " + Arrays.toString(excludes) + " source " + map,
+                XContentMapValues.filter(map, includes, excludes), streamingFilter(map, includes, excludes));
+        }
+    }
+
+    private static Map<String, Object> randomSource(int depth) {
+        Map<String, Object> map = new HashMap<>();
+        for (int i = randomIntBetween(0, 4); i > 0; i--) {
+            map.put(randomFrom("a", "b", "c", "a.b", "b.c", "ab"), randomSourceValue(depth));
+        }
+        return map;
+    }
+
+    private static Object randomSourceValue(int depth) {
+        switch (depth == 0 ? 0 : randomInt(3)) {
+            case 0:
+                return randomFrom(randomInt(), randomAlphaOfLength(5), randomBoolean(), null);
+            case 1:
+            case 2:
+                return randomSource(depth - 1);
+            default:
+                List<Object> list = new ArrayList<>();
+                for (int i = randomIntBetween(0, 3); i > 0; i--) {
+                    list.add(randomSourceValue(depth - 1));
+                }
+                return list;
+        }
+    }
+
+    private Map<String, Object> streamingFilter(Map<String, Object> map, String[] includes, String[] excludes) throws IOException {
+        XContentType xContentType = randomFrom(XContentType.values());
+        XContentBuilder builder = XContentFactory.contentBuilder(xContentType).map(map);
+        XContentBuilder filtered = XContentFactory.contentBuilder(xContentType);
+        try (XContentParser parser = createParser(builder)) {
+            XContentMapValues.streamingFilter(includes, excludes).accept(parser, filtered);
+            assertEquals(XContentParser.Token.END_OBJECT, parser.currentToken());
+        }
+        return XContentHelper.convertToMap(filtered.bytes(), false, xContentType).v2();
+    }
 }
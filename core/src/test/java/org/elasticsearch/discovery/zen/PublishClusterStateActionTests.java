@@ -77,6 +77,7 @@ import static org.hamcrest.CoreMatchers.instanceOf;
 import static org.hamcrest.Matchers.containsString;
 import static org.hamcrest.Matchers.emptyIterable;
 import static org.hamcrest.Matchers.equalTo;
+import static org.hamcrest.Matchers.greaterThan;
 import static org.hamcrest.Matchers.hasToString;
 import static org.hamcrest.Matchers.not;
 import static org.hamcrest.Matchers.notNullValue;
@@ -310,13 +311,15 @@ public class PublishClusterStateActionTests extends ESTestCase {
         assertSameStateFromDiff(nodeC.clusterState, clusterState);
         assertThat(nodeC.clusterState.blocks().global().size(), equalTo(0));
 
-        // cluster state update - skipping one version change - should request full cluster state
+        // cluster state update - skipping one version change - should get a diff from the retained state the nodes have
+        PublishClusterStateStats stats = nodeA.action.stats();
         previousClusterState = ClusterState.builder(clusterState).incrementVersion().build();
         clusterState = ClusterState.builder(clusterState).incrementVersion().build();
         publishStateAndWait(nodeA.action, clusterState, previousClusterState);
-        assertSameStateFromFull(nodeB.clusterState, clusterState);
-        assertSameStateFromFull(nodeC.clusterState, clusterState);
-        assertFalse(nodeC.clusterState.wasReadFromDiff());
+        assertSameStateFromDiff(nodeB.clusterState, clusterState);
+        assertSameStateFromDiff(nodeC.clusterState, clusterState);
+        assertThat(nodeA.action.stats().getRetainedStateDiffs(), equalTo(stats.getRetainedStateDiffs() + 2));
+        assertThat(nodeA.action.stats().getFullStateFallbacks(), equalTo(stats.getFullStateFallbacks()));
 
         // node A steps down from being master
         nodeA.resetMasterId();
@@ -338,6 +341,43 @@ public class PublishClusterStateActionTests extends ESTestCase {
         assertSameStateFromFull(nodeC.clusterState, clusterState);
     }
 
+    public void testSkippedVersionWithoutRetainedStates() throws Exception {
+        Settings noRetainedStatesSettings = Settings.builder()
+            .put(PublishClusterStateAction.MAX_RETAINED_CLUSTER_STATES_SETTING.getKey(), 0).build();
+        MockNode nodeA = createMockNode("nodeA", noRetainedStatesSettings, event -> {
+            fail("Shouldn't send cluster state to myself");
+        }).setAsMaster();
+
+        MockNode nodeB = createMockNode("nodeB");
+
+        DiscoveryNodes discoveryNodes = DiscoveryNodes.builder(nodeA.nodes()).add(nodeB.discoveryNode).build();
+        ClusterState previousClusterState = ClusterState.builder(CLUSTER_NAME).nodes(discoveryNodes).build();
+        ClusterState clusterState = ClusterState.builder(previousClusterState).incrementVersion().build();
+        publishStateAndWait(nodeA.action, clusterState, previousClusterState);
+        assertSameStateFromFull(nodeB.clusterState, clusterState);
+
+        // cluster state update - add block
+        previousClusterState = clusterState;
+        clusterState = ClusterState.builder(clusterState).blocks(ClusterBlocks.builder()
+            .addGlobalBlock(MetaData.CLUSTER_READ_ONLY_BLOCK)).incrementVersion().build();
+        publishStateAndWait(nodeA.action, clusterState, previousClusterState);
+        assertSameStateFromDiff(nodeB.clusterState, clusterState);
+
+        // cluster state update - skipping one version change - should request full cluster state
+        previousClusterState = ClusterState.builder(clusterState).incrementVersion().build();
+        clusterState = ClusterState.builder(clusterState).incrementVersion().build();
+        publishStateAndWait(nodeA.action, clusterState, previousClusterState);
+        assertSameStateFromFull(nodeB.clusterState, clusterState);
+
+        // the first publication was a diff as well, which node B didn't have any local cluster state for
+        PublishClusterStateStats stats = nodeA.action.stats();
+        assertThat(stats.getFullStates(), equalTo(2L));
+        assertThat(stats.getDiffs(), equalTo(3L));
+        assertThat(stats.getFullStateFallbacks(), equalTo(2L));
+        assertThat(stats.getRetainedStateDiffs(), equalTo(0L));
+        assertThat(stats.getSerializedSize().getBytes(), greaterThan(0L));
+    }
+
     public void testUnexpectedDiffPublishing() throws Exception {
         MockNode nodeA = createMockNode("nodeA", Settings.EMPTY, event -> {
             fail("Shouldn't send cluster state to myself");
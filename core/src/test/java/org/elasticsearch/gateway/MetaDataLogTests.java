@@ -0,0 +1,271 @@
+/*
+ * Licensed to Elasticsearch under one or more contributor
+ * license agreements. See the NOTICE file distributed with
+ * this work for additional information regarding copyright
+ * ownership. Elasticsearch licenses this file to you under
+ * the Apache License, Version 2.0 (the "License"); you may
+ * not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.elasticsearch.gateway;
+
+import org.elasticsearch.Version;
+import org.elasticsearch.cluster.metadata.IndexMetaData;
+import org.elasticsearch.cluster.metadata.MetaData;
+import org.elasticsearch.common.settings.Settings;
+import org.elasticsearch.common.unit.ByteSizeValue;
+import org.elasticsearch.test.ESTestCase;
+
+import java.io.IOException;
+import java.nio.channels.FileChannel;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+import static org.hamcrest.Matchers.containsString;
+import static org.hamcrest.Matchers.equalTo;
+import static org.hamcrest.Matchers.hasSize;
+import static org.hamcrest.Matchers.nullValue;
+
+public class MetaDataLogTests extends ESTestCase {
+
+    private static IndexMetaData indexMetaData(String name, long version) {
+        return IndexMetaData.builder(name)
+            .settings(Settings.builder()
+                .put(IndexMetaData.SETTING_NUMBER_OF_SHARDS, 1)
+                .put(IndexMetaData.SETTING_NUMBER_OF_REPLICAS, 0)
+                .put(IndexMetaData.SETTING_VERSION_CREATED, Version.CURRENT)
+                .put(IndexMetaData.SETTING_INDEX_UUID, name + "-uuid"))
+            .version(version)
+            .build();
+    }
+
+    private static MetaData metaData(long version, String settingValue, IndexMetaData... indices) {
+        MetaData.Builder builder = MetaData.builder()
+            .version(version)
+            .persistentSettings(Settings.builder().put("test.setting", settingValue).build());
+        for (IndexMetaData index : indices) {
+            builder.put(index, false);
+        }
+        return builder.build();
+    }
+
+    private static void assertMetaDataEquals(MetaData expected, MetaData actual) {
+        assertThat(actual.version(), equalTo(expected.version()));
+        assertThat(actual.persistentSettings(), equalTo(expected.persistentSettings()));
+        assertThat(actual.indices().size(), equalTo(expected.indices().size()));
+        for (IndexMetaData indexMetaData : expected) {
+            assertThat(actual.index(indexMetaData.getIndex()), equalTo(indexMetaData));
+        }
+    }
+
+    private static List<Path> logFiles(Path dataLocation) throws IOException {
+        List<Path> files = new ArrayList<>();
+        Path stateLocation = dataLocation.resolve(MetaDataStateFormat.STATE_DIR_NAME);
+        if (Files.exists(stateLocation)) {
+            try (DirectoryStream<Path> stream = Files.newDirectoryStream(stateLocation, MetaDataLog.LOG_FILE_PREFIX + "*")) {
+                for (Path file : stream) {
+                    files.add(file);
+                }
+            }
+        }
+        return files;
+    }
+
+    public void testLoadWithoutLog() throws IOException {
+        MetaDataLog log = new MetaDataLog(logger, xContentRegistry(), createTempDir());
+        assertFalse(log.exists());
+        assertThat(log.load(), nullValue());
+    }
+
+    public void testAppendAndLoad() throws IOException {
+        final Path[] dataLocations = new Path[randomIntBetween(1, 3)];
+        for (int i = 0; i < dataLocations.length; i++) {
+            dataLocations[i] = createTempDir();
+        }
+        MetaDataLog log = new MetaDataLog(logger, xContentRegistry(), dataLocations);
+
+        MetaData metaData = metaData(1, "1", indexMetaData("index1", 1), indexMetaData("index2", 1));
+        log.writeSnapshot(metaData);
+        assertTrue(log.exists());
+        assertMetaDataEquals(metaData, log.load());
+
+        // add an index
+        MetaData previous = metaData;
+        metaData = metaData(2, "1", indexMetaData("index1", 1), indexMetaData("index2", 1), indexMetaData("index3", 1));
+        log.append(previous, metaData);
+        assertMetaDataEquals(metaData, log.load());
+
+        // update an index and the global state
+        previous = metaData;
+        metaData = metaData(3, "2", indexMetaData("index1", 2), indexMetaData("index2", 1), indexMetaData("index3", 1));
+        log.append(previous, metaData);
+        assertMetaDataEquals(metaData, log.load());
+
+        // delete an index
+        previous = metaData;
+        metaData = metaData(4, "2", indexMetaData("index1", 2), indexMetaData("index3", 1));
+        log.append(previous, metaData);
+        assertMetaDataEquals(metaData, log.load());
+
+        // nothing changed, nothing appended
+        final long sizeBefore = Files.size(logFiles(dataLocations[0]).get(0));
+        log.append(metaData, metaData);
+        assertThat(Files.size(logFiles(dataLocations[0]).get(0)), equalTo(sizeBefore));
+
+        // every data location holds a copy of the log that can be loaded on its own
+        for (Path dataLocation : dataLocations) {
+            assertThat(logFiles(dataLocation), hasSize(1));
+            assertMetaDataEquals(metaData, new MetaDataLog(logger, xContentRegistry(), dataLocation).load());
+        }
+
+        // a new instance, as used after a restart, starts a new generation on the first write
+        MetaDataLog restarted = new MetaDataLog(logger, xContentRegistry(), dataLocations);
+        previous = metaData;
+        metaData = metaData(5, "2", indexMetaData("index1", 2), indexMetaData("index3", 2));
+        restarted.append(previous, metaData);
+        assertMetaDataEquals(metaData, restarted.load());
+        for (Path dataLocation : dataLocations) {
+            List<Path> files = logFiles(dataLocation);
+            assertThat(files, hasSize(1));
+            assertThat(files.get(0).getFileName().toString(), equalTo(MetaDataLog.LOG_FILE_PREFIX + "1" + MetaDataLog.LOG_FILE_EXTENSION));
+        }
+    }
+
+    public void testCompaction() throws IOException {
+        final Path dataLocation = createTempDir();
+        MetaDataLog log = new MetaDataLog(logger, xContentRegistry(), new ByteSizeValue(0), dataLocation);
+        IndexMetaData[] indices = new IndexMetaData[randomIntBetween(1, 5)];
+        for (int i = 0; i < indices.length; i++) {
+            indices[i] = indexMetaData("index" + i, 1);
+        }
+        MetaData metaData = metaData(1, "0", indices);
+        log.writeSnapshot(metaData);
+        Set<String> seenFiles = new HashSet<>();
+        final int numChanges = randomIntBetween(10, 50);
+        for (int change = 0; change < numChanges; change++) {
+            final int index = randomIntBetween(0, indices.length - 1);
+            indices[index] = indexMetaData("index" + index, indices[index].getVersion() + 1);
+            MetaData previous = metaData;
+            metaData = metaData(metaData.version() + 1, Integer.toString(change), indices);
+            log.append(previous, metaData);
+            List<Path> files = logFiles(dataLocation);
+            assertThat("previous generations must be deleted", files, hasSize(1));
+            seenFiles.add(files.get(0).getFileName().toString());
+            assertMetaDataEquals(metaData, log.load());
+        }
+        assertTrue("log should have been compacted at least once", seenFiles.size() > 1);
+    }
+
+    public void testLoadIgnoresIncompleteTail() throws IOException {
+        final Path dataLocation = createTempDir();
+        MetaDataLog log = new MetaDataLog(logger, xContentRegistry(), dataLocation);
+        MetaData metaData = metaData(1, "1", indexMetaData("index1", 1));
+        log.writeSnapshot(metaData);
+        MetaData lastComplete = metaData(2, "1", indexMetaData("index1", 2));
+        log.append(metaData, lastComplete);
+        final Path logFile = logFiles(dataLocation).get(0);
+        final long sizeBeforeLastEntry = Files.size(logFile);
+        log.append(lastComplete, metaData(3, "2", indexMetaData("index1", 3), indexMetaData("index2", 1)));
+        final long size = Files.size(logFile);
+
+        // the node crashed while appending the last entry
+        try (FileChannel channel = FileChannel.open(logFile, StandardOpenOption.WRITE)) {
+            channel.truncate(randomIntBetween((int) sizeBeforeLastEntry, (int) size - 1));
+        }
+        assertMetaDataEquals(lastComplete, log.load());
+    }
+
+    public void testLoadIgnoresZeroFilledTail() throws IOException {
+        final Path dataLocation = createTempDir();
+        MetaDataLog log = new MetaDataLog(logger, xContentRegistry(), dataLocation);
+        MetaData metaData = metaData(1, "1", indexMetaData("index1", 1));
+        log.writeSnapshot(metaData);
+        MetaData lastComplete = metaData(2, "1", indexMetaData("index1", 2));
+        log.append(metaData, lastComplete);
+        final Path logFile = logFiles(dataLocation).get(0);
+
+        // the node crashed after the file was extended but before the last entry was written
+        Files.write(logFile, new byte[randomIntBetween(12, 64)], StandardOpenOption.APPEND);
+        assertMetaDataEquals(lastComplete, log.load());
+    }
+
+    public void testFailedAppendStartsNewGeneration() throws IOException {
+        final Path[] dataLocations = new Path[] { createTempDir(), createTempDir() };
+        MetaDataLog log = new MetaDataLog(logger, xContentRegistry(), dataLocations);
+        MetaData metaData = metaData(1, "1", indexMetaData("index1", 1));
+        log.writeSnapshot(metaData);
+
+        // the entry is written to the first location only
+        Files.delete(logFiles(dataLocations[1]).get(0));
+        MetaData failed = metaData(2, "1", indexMetaData("index1", 2));
+        expectThrows(IOException.class, () -> log.append(metaData, failed));
+
+        MetaData current = metaData(3, "2", indexMetaData("index1", 3), indexMetaData("index2", 1));
+        log.append(failed, current);
+        for (Path dataLocation : dataLocations) {
+            List<Path> logFiles = logFiles(dataLocation);
+            assertThat(logFiles, hasSize(1));
+            assertThat(logFiles.get(0).getFileName().toString(),
+                equalTo(MetaDataLog.LOG_FILE_PREFIX + 1 + MetaDataLog.LOG_FILE_EXTENSION));
+        }
+        assertMetaDataEquals(current, log.load());
+    }
+
+    public void testCorruptEntryFailsLoading() throws IOException {
+        final Path dataLocation = createTempDir();
+        MetaDataLog log = new MetaDataLog(logger, xContentRegistry(), dataLocation);
+        MetaData metaData = metaData(1, "1", indexMetaData("index1", 1));
+        log.writeSnapshot(metaData);
+        final Path logFile = logFiles(dataLocation).get(0);
+        final long sizeBeforeMiddleEntry = Files.size(logFile);
+        MetaData middle = metaData(2, "1", indexMetaData("index1", 2));
+        log.append(metaData, middle);
+        final long sizeAfterMiddleEntry = Files.size(logFile);
+        log.append(middle, metaData(3, "2", indexMetaData("index1", 3), indexMetaData("index2", 1)));
+
+        // flip a bit in the payload of an entry that is followed by another one, this isn't what a crash leaves behind
+        byte[] bytes = Files.readAllBytes(logFile);
+        final int position = randomIntBetween((int) sizeBeforeMiddleEntry + 4, (int) sizeAfterMiddleEntry - 9);
+        bytes[position] ^= 1 << randomIntBetween(0, 7);
+        Files.write(logFile, bytes);
+        CorruptStateException e = expectThrows(CorruptStateException.class, log::load);
+        assertThat(e.getMessage(), containsString("checksum mismatch"));
+    }
+
+    public void testCorruptSnapshotFailsLoading() throws IOException {
+        final Path dataLocation = createTempDir();
+        MetaDataLog log = new MetaDataLog(logger, xContentRegistry(), dataLocation);
+        log.writeSnapshot(metaData(1, "1", indexMetaData("index1", 1)));
+        final Path logFile = logFiles(dataLocation).get(0);
+        try (FileChannel channel = FileChannel.open(logFile, StandardOpenOption.WRITE)) {
+            channel.truncate(Files.size(logFile) - 1);
+        }
+        CorruptStateException e = expectThrows(CorruptStateException.class, log::load);
+        assertThat(e.getMessage(), containsString("failed to read metadata log generation [0]"));
+    }
+
+    public void testDelete() throws IOException {
+        final Path dataLocation = createTempDir();
+        MetaDataLog log = new MetaDataLog(logger, xContentRegistry(), dataLocation);
+        log.writeSnapshot(metaData(1, "1", indexMetaData("index1", 1)));
+        assertTrue(log.exists());
+        log.delete();
+        assertFalse(log.exists());
+        assertThat(log.load(), nullValue());
+    }
+}
@@ -101,4 +101,46 @@ public class MetaStateServiceTests extends ESTestCase {
             assertThat(loadedState.index("test1"), equalTo(index));
         }
     }
+
+    public void testLoadFullStatePrefersMetaDataLog() throws Exception {
+        try (NodeEnvironment env = newNodeEnvironment()) {
+            Settings settings = Settings.builder().put(MetaDataLog.METADATA_LOG_ENABLED_SETTING.getKey(), true).build();
+            MetaStateService metaStateService = new MetaStateService(settings, env, xContentRegistry());
+            assertTrue(metaStateService.isMetaDataLogEnabled());
+
+            IndexMetaData index1 = IndexMetaData.builder("test1").settings(indexSettings).build();
+            MetaData legacyMetaData = MetaData.builder().put(index1, false).build();
+            metaStateService.writeGlobalState("test_write", legacyMetaData);
+            metaStateService.writeIndex("test_write", index1);
+            assertThat(metaStateService.loadFullState().hasIndex("test1"), equalTo(true));
+
+            IndexMetaData index2 = IndexMetaData.builder("test2").settings(indexSettings).build();
+            MetaData metaData = MetaData.builder()
+                    .persistentSettings(Settings.builder().put("test1", "value1").build())
+                    .put(index2, false)
+                    .build();
+            metaStateService.writeMetaDataLogSnapshot("test_write", metaData);
+            IndexMetaData index3 = IndexMetaData.builder("test3").settings(indexSettings).build();
+            MetaData newMetaData = MetaData.builder(metaData).put(index3, false).build();
+            metaStateService.appendToMetaDataLog("test_write", metaData, newMetaData);
+
+            MetaData loadedState = metaStateService.loadFullState();
+            assertThat(loadedState.persistentSettings(), equalTo(metaData.persistentSettings()));
+            assertThat(loadedState.hasIndex("test1"), equalTo(false));
+            assertThat(loadedState.index("test2"), equalTo(index2));
+            assertThat(loadedState.index("test3"), equalTo(index3));
+
+            // the log is kept while it is enabled
+            metaStateService.deleteMetaDataLog();
+            assertThat(metaStateService.loadFullState().hasIndex("test3"), equalTo(true));
+
+            // once disabled, the log is still loaded until it is deleted
+            MetaStateService disabledService = new MetaStateService(Settings.EMPTY, env, xContentRegistry());
+            assertFalse(disabledService.isMetaDataLogEnabled());
+            assertThat(disabledService.loadFullState().hasIndex("test3"), equalTo(true));
+            disabledService.deleteMetaDataLog();
+            assertThat(disabledService.loadFullState().hasIndex("test3"), equalTo(false));
+            assertThat(disabledService.loadFullState().hasIndex("test1"), equalTo(true));
+        }
+    }
 }
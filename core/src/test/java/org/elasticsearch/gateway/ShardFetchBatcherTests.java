@@ -0,0 +1,277 @@
+/*
+ * Licensed to Elasticsearch under one or more contributor
+ * license agreements. See the NOTICE file distributed with
+ * this work for additional information regarding copyright
+ * ownership. Elasticsearch licenses this file to you under
+ * the Apache License, Version 2.0 (the "License"); you may
+ * not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.elasticsearch.gateway;
+
+import org.elasticsearch.ElasticsearchException;
+import org.elasticsearch.Version;
+import org.elasticsearch.action.ActionListener;
+import org.elasticsearch.action.FailedNodeException;
+import org.elasticsearch.cluster.ClusterName;
+import org.elasticsearch.cluster.node.DiscoveryNode;
+import org.elasticsearch.common.settings.Settings;
+import org.elasticsearch.gateway.TransportNodesListGatewayStartedShards.NodeGatewayStartedShards;
+import org.elasticsearch.gateway.TransportNodesListGatewayStartedShards.NodesGatewayStartedShards;
+import org.elasticsearch.index.shard.ShardId;
+import org.elasticsearch.test.ESTestCase;
+import org.elasticsearch.test.transport.MockTransportService;
+import org.elasticsearch.threadpool.TestThreadPool;
+import org.elasticsearch.threadpool.ThreadPool;
+import org.junit.After;
+import org.junit.Before;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.CyclicBarrier;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static java.util.Collections.emptyMap;
+import static java.util.Collections.emptySet;
+import static org.hamcrest.Matchers.equalTo;
+import static org.hamcrest.Matchers.hasSize;
+
+public class ShardFetchBatcherTests extends ESTestCase {
+
+    private static final String BATCH_ACTION_NAME = "internal:test/fetch[batch]";
+
+    private ThreadPool threadPool;
+    private MockTransportService masterService;
+    private MockTransportService dataService;
+    private final AtomicInteger nodeOperations = new AtomicInteger();
+
+    @Override
+    @Before
+    public void setUp() throws Exception {
+        super.setUp();
+        threadPool = new TestThreadPool(getTestName());
+        masterService = buildTransportService();
+        dataService = buildTransportService();
+        ShardFetchBatcher.registerRequestHandler(logger, dataService, BATCH_ACTION_NAME, ThreadPool.Names.SAME, shardId -> {
+            nodeOperations.incrementAndGet();
+            if (shardId.id() == 3) {
+                throw new ElasticsearchException("simulated failure for " + shardId);
+            }
+            return new NodeGatewayStartedShards(dataService.getLocalNode(), "alloc-" + shardId.id(), shardId.id() % 2 == 0);
+        });
+        masterService.connectToNode(dataService.getLocalNode());
+    }
+
+    @Override
+    @After
+    public void tearDown() throws Exception {
+        super.tearDown();
+        masterService.close();
+        dataService.close();
+        terminate(threadPool);
+    }
+
+    private MockTransportService buildTransportService() {
+        MockTransportService transportService = MockTransportService.createNewService(Settings.EMPTY, Version.CURRENT, threadPool, null);
+        transportService.start();
+        transportService.acceptIncomingRequests();
+        return transportService;
+    }
+
+    private ShardFetchBatcher<NodesGatewayStartedShards, NodeGatewayStartedShards> newBatcher(
+        int batchSize, AsyncShardFetch.Lister<NodesGatewayStartedShards, NodeGatewayStartedShards> perShardLister) {
+        return new ShardFetchBatcher<>(logger, "test", masterService, BATCH_ACTION_NAME, NodeGatewayStartedShards::new,
+            (responses, failures) -> new NodesGatewayStartedShards(ClusterName.DEFAULT, responses, failures), perShardLister, batchSize);
+    }
+
+    public void testFetchesAreBatchedPerNode() throws Exception {
+        final int numShards = randomIntBetween(4, 20);
+        final ShardFetchBatcher<NodesGatewayStartedShards, NodeGatewayStartedShards> batcher = newBatcher(1000,
+            (shardId, nodes, listener) -> fail("batched node should not receive per shard requests"));
+        final DiscoveryNode dataNode = dataService.getLocalNode();
+        final Map<ShardId, NodesGatewayStartedShards> responses = new ConcurrentHashMap<>();
+        final CountDownLatch latch = new CountDownLatch(numShards);
+        for (int i = 0; i < numShards; i++) {
+            final ShardId shardId = new ShardId("test", "_na_", i);
+            batcher.list(shardId, new DiscoveryNode[]{dataNode}, new ActionListener<NodesGatewayStartedShards>() {
+                @Override
+                public void onResponse(NodesGatewayStartedShards response) {
+                    responses.put(shardId, response);
+                    latch.countDown();
+                }
+
+                @Override
+                public void onFailure(Exception e) {
+                    throw new AssertionError(e);
+                }
+            });
+        }
+        assertThat(batcher.getNumberOfPendingFetches(), equalTo(numShards));
+        assertThat(nodeOperations.get(), equalTo(0));
+        assertThat(responses.size(), equalTo(0));
+
+        batcher.flush();
+        assertTrue(latch.await(10, TimeUnit.SECONDS));
+        assertThat(batcher.getNumberOfPendingFetches(), equalTo(0));
+        assertThat(nodeOperations.get(), equalTo(numShards));
+        for (int i = 0; i < numShards; i++) {
+            final NodesGatewayStartedShards response = responses.get(new ShardId("test", "_na_", i));
+            if (i == 3) {
+                assertThat(response.getNodes(), hasSize(0));
+                assertThat(response.failures(), hasSize(1));
+                final FailedNodeException failure = response.failures().get(0);
+                assertThat(failure.nodeId(), equalTo(dataNode.getId()));
+                assertThat(failure.getCause().getMessage(), equalTo("simulated failure for [test][3]"));
+            } else {
+                assertThat(response.failures(), hasSize(0));
+                assertThat(response.getNodes(), hasSize(1));
+                final NodeGatewayStartedShards nodeResponse = response.getNodes().get(0);
+                assertThat(nodeResponse.getNode(), equalTo(dataNode));
+                assertThat(nodeResponse.allocationId(), equalTo("alloc-" + i));
+                assertThat(nodeResponse.primary(), equalTo(i % 2 == 0));
+            }
+        }
+
+        final ShardFetchBatcher.Stats stats = batcher.stats();
+        assertThat(stats.getRoundTrips(), equalTo(1L));
+        assertThat(stats.getBatchedShards(), equalTo((long) numShards));
+        assertThat(stats.getPerShardRequests(), equalTo(0L));
+
+        // flushing without pending fetches is a no-op
+        batcher.flush();
+        assertThat(batcher.stats().getRoundTrips(), equalTo(1L));
+    }
+
+    public void testBatchSizeLimitsShardsPerRequest() throws Exception {
+        final int batchSize = randomIntBetween(1, 5);
+        final int numShards = randomIntBetween(1, 20);
+        final ShardFetchBatcher<NodesGatewayStartedShards, NodeGatewayStartedShards> batcher = newBatcher(batchSize,
+            (shardId, nodes, listener) -> fail("batched node should not receive per shard requests"));
+        final CountDownLatch latch = new CountDownLatch(numShards);
+        for (int i = 0; i < numShards; i++) {
+            batcher.list(new ShardId("test", "_na_", i), new DiscoveryNode[]{dataService.getLocalNode()},
+                ActionListener.wrap(response -> latch.countDown(), e -> {
+                    throw new AssertionError(e);
+                }));
+        }
+        batcher.flush();
+        assertTrue(latch.await(10, TimeUnit.SECONDS));
+        assertThat(batcher.stats().getRoundTrips(), equalTo((long) (numShards + batchSize - 1) / batchSize));
+        assertThat(batcher.stats().getBatchedShards(), equalTo((long) numShards));
+    }
+
+    public void testShardsOfABatchAreFetchedInParallel() throws Exception {
+        final String parallelActionName = "internal:test/fetch_parallel[batch]";
+        final int numShards = randomIntBetween(2, 4);
+        // every shard waits for all the others, so the batch only completes if its shards are fetched concurrently
+        final CyclicBarrier barrier = new CyclicBarrier(numShards);
+        ShardFetchBatcher.registerRequestHandler(logger, dataService, parallelActionName, ThreadPool.Names.GENERIC, shardId -> {
+            try {
+                barrier.await(10, TimeUnit.SECONDS);
+            } catch (Exception e) {
+                throw new ElasticsearchException("shards of the batch were not fetched in parallel", e);
+            }
+            return new NodeGatewayStartedShards(dataService.getLocalNode(), "alloc-" + shardId.id(), true);
+        });
+        final ShardFetchBatcher<NodesGatewayStartedShards, NodeGatewayStartedShards> batcher = new ShardFetchBatcher<>(logger, "test",
+            masterService, parallelActionName, NodeGatewayStartedShards::new,
+            (responses, failures) -> new NodesGatewayStartedShards(ClusterName.DEFAULT, responses, failures),
+            (shardId, nodes, listener) -> fail("batched node should not receive per shard requests"), 1000);
+        final Map<ShardId, NodesGatewayStartedShards> responses = new ConcurrentHashMap<>();
+        final CountDownLatch latch = new CountDownLatch(numShards);
+        for (int i = 0; i < numShards; i++) {
+            final ShardId shardId = new ShardId("test", "_na_", i);
+            batcher.list(shardId, new DiscoveryNode[]{dataService.getLocalNode()}, ActionListener.wrap(response -> {
+                responses.put(shardId, response);
+                latch.countDown();
+            }, e -> {
+                throw new AssertionError(e);
+            }));
+        }
+        batcher.flush();
+        assertTrue(latch.await(30, TimeUnit.SECONDS));
+        assertThat(batcher.stats().getRoundTrips(), equalTo(1L));
+        for (int i = 0; i < numShards; i++) {
+            final NodesGatewayStartedShards response = responses.get(new ShardId("test", "_na_", i));
+            assertThat(response.failures(), hasSize(0));
+            assertThat(response.getNodes(), hasSize(1));
+            assertThat(response.getNodes().get(0).allocationId(), equalTo("alloc-" + i));
+        }
+    }
+
+    public void testOlderNodesAreSentPerShardRequests() throws Exception {
+        final DiscoveryNode oldNode = new DiscoveryNode("old", buildNewFakeTransportAddress(), emptyMap(), emptySet(),
+            Version.V_5_4_0_UNRELEASED);
+        final List<ShardId> perShardRequests = Collections.synchronizedList(new ArrayList<>());
+        final ShardFetchBatcher<NodesGatewayStartedShards, NodeGatewayStartedShards> batcher = newBatcher(1000,
+            (shardId, nodes, listener) -> {
+                assertThat(nodes, equalTo(new DiscoveryNode[]{oldNode}));
+                perShardRequests.add(shardId);
+                listener.onResponse(new NodesGatewayStartedShards(ClusterName.DEFAULT,
+                    Collections.singletonList(new NodeGatewayStartedShards(oldNode, "old-alloc", false)), Collections.emptyList()));
+            });
+        final ShardId shardId = new ShardId("test", "_na_", 0);
+        final CountDownLatch latch = new CountDownLatch(1);
+        final List<NodesGatewayStartedShards> responses = Collections.synchronizedList(new ArrayList<>());
+        batcher.list(shardId, new DiscoveryNode[]{oldNode, dataService.getLocalNode()},
+            ActionListener.wrap(response -> {
+                responses.add(response);
+                latch.countDown();
+            }, e -> {
+                throw new AssertionError(e);
+            }));
+        // the older node is fetched from right away, the response is only complete once the batched node answered too
+        assertThat(perShardRequests, equalTo(Collections.singletonList(shardId)));
+        assertThat(responses, hasSize(0));
+
+        batcher.flush();
+        assertTrue(latch.await(10, TimeUnit.SECONDS));
+        assertThat(responses, hasSize(1));
+        assertThat(responses.get(0).getNodes(), hasSize(2));
+        assertThat(responses.get(0).failures(), hasSize(0));
+        assertThat(batcher.stats().getPerShardRequests(), equalTo(1L));
+        assertThat(batcher.stats().getRoundTrips(), equalTo(1L));
+    }
+
+    public void testUnreachableNodeFailsAllShardsOfTheBatch() throws Exception {
+        final DiscoveryNode dataNode = dataService.getLocalNode();
+        final ShardFetchBatcher<NodesGatewayStartedShards, NodeGatewayStartedShards> batcher = newBatcher(1000,
+            (shardId, nodes, listener) -> fail("batched node should not receive per shard requests"));
+        final int numShards = randomIntBetween(1, 10);
+        final CountDownLatch latch = new CountDownLatch(numShards);
+        final List<NodesGatewayStartedShards> responses = Collections.synchronizedList(new ArrayList<>());
+        for (int i = 0; i < numShards; i++) {
+            batcher.list(new ShardId("test", "_na_", i), new DiscoveryNode[]{dataNode},
+                ActionListener.wrap(response -> {
+                    responses.add(response);
+                    latch.countDown();
+                }, e -> {
+                    throw new AssertionError(e);
+                }));
+        }
+        dataService.close();
+        batcher.flush();
+        assertTrue(latch.await(10, TimeUnit.SECONDS));
+        assertThat(responses, hasSize(numShards));
+        for (NodesGatewayStartedShards response : responses) {
+            assertThat(response.getNodes(), hasSize(0));
+            assertThat(response.failures(), hasSize(1));
+            assertThat(response.failures().get(0).nodeId(), equalTo(dataNode.getId()));
+        }
+        assertThat(nodeOperations.get(), equalTo(0));
+    }
+}
@@ -25,11 +25,14 @@ import org.apache.lucene.codecs.lucene50.Lucene50StoredFieldsFormat.Mode;
 import org.apache.lucene.codecs.lucene62.Lucene62Codec;
 import org.apache.lucene.codecs.lucene70.Lucene70Codec;
 import org.apache.lucene.document.Document;
+import org.apache.lucene.document.StoredField;
 import org.apache.lucene.index.DirectoryReader;
 import org.apache.lucene.index.IndexWriter;
 import org.apache.lucene.index.IndexWriterConfig;
+import org.apache.lucene.index.LeafReaderContext;
 import org.apache.lucene.index.SegmentReader;
 import org.apache.lucene.store.Directory;
+import org.apache.lucene.util.BytesRef;
 import org.apache.lucene.util.LuceneTestCase.SuppressCodecs;
 import org.elasticsearch.common.logging.ESLoggerFactory;
 import org.elasticsearch.common.settings.Settings;
@@ -43,7 +46,9 @@ import org.elasticsearch.test.ESTestCase;
 import org.elasticsearch.test.IndexSettingsModule;
 
 import java.io.IOException;
+import java.util.ArrayList;
 import java.util.Collections;
+import java.util.List;
 
 import static org.hamcrest.Matchers.instanceOf;
 
@@ -55,6 +60,7 @@ public class CodecTests extends ESTestCase {
         assertThat(codecService.codec("default"), instanceOf(PerFieldMappingPostingFormatCodec.class));
         assertThat(codecService.codec("default"), instanceOf(Lucene70Codec.class));
         assertThat(codecService.codec("Lucene62"), instanceOf(Lucene62Codec.class));
+        assertThat(codecService.codec("dictionary_compression"), instanceOf(DictionaryCompressionCodec.class));
     }
 
     public void testDefault() throws Exception {
@@ -67,6 +73,58 @@ public class CodecTests extends ESTestCase {
         assertCompressionEquals(Mode.BEST_COMPRESSION, codec);
     }
 
+    public void testDictionaryCompression() throws Exception {
+        Codec codec = createCodecService().codec("dictionary_compression");
+        assertThat(Codec.forName(DictionaryCompressionCodec.NAME), instanceOf(DictionaryCompressionCodec.class));
+
+        final String[] values = new String[randomIntBetween(1, 3000)];
+        try (Directory dir = newDirectory()) {
+            IndexWriterConfig iwc = newIndexWriterConfig(null);
+            iwc.setCodec(codec);
+            try (IndexWriter iw = new IndexWriter(dir, iwc)) {
+                for (int i = 0; i < values.length; i++) {
+                    if (rarely()) {
+                        // larger than a chunk
+                        values[i] = randomAlphaOfLength(randomIntBetween(400 * 1024, 600 * 1024));
+                    } else if (rarely()) {
+                        values[i] = "";
+                    } else {
+                        values[i] = "{\"@timestamp\":\"2017-06-01T10:" + randomIntBetween(10, 59) + ":00.000Z\",\"level\":\""
+                            + randomFrom("INFO", "WARN", "ERROR") + "\",\"message\":\"" + randomAlphaOfLength(randomIntBetween(0, 50))
+                            + "\"}";
+                    }
+                    Document document = new Document();
+                    document.add(new StoredField("id", i));
+                    document.add(new StoredField("_source", new BytesRef(values[i])));
+                    iw.addDocument(document);
+                    if (rarely()) {
+                        iw.commit();
+                    }
+                }
+                if (randomBoolean()) {
+                    iw.forceMerge(1);
+                }
+            }
+            try (DirectoryReader ir = DirectoryReader.open(dir)) {
+                for (LeafReaderContext context : ir.leaves()) {
+                    SegmentReader sr = (SegmentReader) context.reader();
+                    assertEquals(DictionaryCompressionCodec.NAME, sr.getSegmentInfo().info.getCodec().getName());
+                }
+                // read the documents in random order to exercise reading any sub block of a chunk
+                final List<Integer> docIds = new ArrayList<>();
+                for (int i = 0; i < ir.maxDoc(); i++) {
+                    docIds.add(i);
+                }
+                Collections.shuffle(docIds, random());
+                for (int docId : docIds) {
+                    Document document = ir.document(docId);
+                    int id = document.getField("id").numericValue().intValue();
+                    assertEquals(values[id], document.getBinaryValue("_source").utf8ToString());
+                }
+            }
+        }
+    }
+
     // write some docs with it, inspect .si to see this was the used compression
     private void assertCompressionEquals(Mode expected, Codec actual) throws Exception {
         Directory dir = newDirectory();
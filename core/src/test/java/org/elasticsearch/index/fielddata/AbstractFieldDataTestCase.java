@@ -132,9 +132,16 @@ public abstract class AbstractFieldDataTestCase extends ESSingleNodeTestCase {
         return ifdService.getForField(fieldType);
     }
 
+    /**
+     * The settings of the index the field data is loaded for.
+     */
+    protected Settings.Builder indexSettings() {
+        return Settings.builder().put("mapping.single_type", false);
+    }
+
     @Before
     public void setup() throws Exception {
-        indexService = createIndex("test", Settings.builder().put("mapping.single_type", false).build());
+        indexService = createIndex("test", indexSettings().build());
         mapperService = indexService.mapperService();
         indicesFieldDataCache = getInstanceFromNode(IndicesService.class).getIndicesFieldDataCache();
         ifdService = indexService.fieldData();
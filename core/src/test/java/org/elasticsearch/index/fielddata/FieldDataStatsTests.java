@@ -30,8 +30,8 @@ public class FieldDataStatsTests extends ESTestCase {
 
     public void testSerialize() throws IOException {
         FieldMemoryStats map = randomBoolean() ? null : FieldMemoryStatsTests.randomFieldMemoryStats();
-        FieldDataStats stats = new FieldDataStats(randomNonNegativeLong(), randomNonNegativeLong(), map == null ? null :
-            map);
+        FieldDataStats stats = new FieldDataStats(randomNonNegativeLong(), randomNonNegativeLong(), randomNonNegativeLong(),
+            map == null ? null : map);
         BytesStreamOutput out = new BytesStreamOutput();
         stats.writeTo(out);
         FieldDataStats read = new FieldDataStats();
@@ -40,6 +40,7 @@ public class FieldDataStatsTests extends ESTestCase {
         assertEquals(-1, input.read());
         assertEquals(stats.evictions, read.evictions);
         assertEquals(stats.memorySize, read.memorySize);
+        assertEquals(stats.offHeapMemorySize, read.offHeapMemorySize);
         assertEquals(stats.getFields(), read.getFields());
     }
 }
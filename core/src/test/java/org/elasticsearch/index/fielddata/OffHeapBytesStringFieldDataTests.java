@@ -0,0 +1,165 @@
+/*
+ * Licensed to Elasticsearch under one or more contributor
+ * license agreements. See the NOTICE file distributed with
+ * this work for additional information regarding copyright
+ * ownership. Elasticsearch licenses this file to you under
+ * the Apache License, Version 2.0 (the "License"); you may
+ * not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.elasticsearch.index.fielddata;
+
+import org.apache.lucene.document.Document;
+import org.apache.lucene.document.Field;
+import org.apache.lucene.document.StringField;
+import org.apache.lucene.index.LeafReaderContext;
+import org.apache.lucene.index.SortedSetDocValues;
+import org.elasticsearch.common.breaker.CircuitBreaker;
+import org.elasticsearch.common.breaker.CircuitBreakingException;
+import org.elasticsearch.common.settings.ClusterSettings;
+import org.elasticsearch.common.settings.Settings;
+import org.elasticsearch.index.fielddata.plain.OffHeapBytesIndexFieldData;
+import org.elasticsearch.indices.breaker.CircuitBreakerService;
+import org.elasticsearch.indices.breaker.HierarchyCircuitBreakerService;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.hamcrest.Matchers.equalTo;
+import static org.hamcrest.Matchers.greaterThan;
+import static org.hamcrest.Matchers.instanceOf;
+
+public class OffHeapBytesStringFieldDataTests extends AbstractStringFieldDataTestCase {
+
+    @Override
+    protected String getFieldDataType() {
+        return "string";
+    }
+
+    @Override
+    protected Settings.Builder indexSettings() {
+        return super.indexSettings().put(IndexFieldDataService.INDEX_FIELDDATA_OFF_HEAP_SETTING.getKey(), true);
+    }
+
+    @Override
+    protected long minRamBytesUsed() {
+        return 0;
+    }
+
+    public void testOffHeapAccounting() throws Exception {
+        for (int i = 0; i < 100; i++) {
+            Document d = new Document();
+            d.add(new StringField("value", "term_" + i, Field.Store.NO));
+            d.add(new StringField("value", "term_" + (i + 1), Field.Store.NO));
+            writer.addDocument(d);
+        }
+        refreshReader();
+
+        assertThat(getForField("value"), instanceOf(OffHeapBytesIndexFieldData.class));
+        ShardFieldData shardFieldData = new ShardFieldData();
+        OffHeapBytesIndexFieldData indexFieldData = new OffHeapBytesIndexFieldData(indexService.getIndexSettings(), "value",
+            indicesFieldDataCache.buildIndexFieldDataCache(shardFieldData, indexService.index(), "value"),
+            getInstanceFromNode(CircuitBreakerService.class), 0, Integer.MAX_VALUE, 0);
+        List<AtomicFieldData> loaded = new ArrayList<>();
+        long offHeapBytesUsed = 0;
+        for (LeafReaderContext context : readerContexts) {
+            AtomicFieldData fieldData = indexFieldData.load(context);
+            loaded.add(fieldData);
+            assertThat(fieldData, instanceOf(OffHeapAccountable.class));
+            assertThat(fieldData.ramBytesUsed(), equalTo(0L));
+            offHeapBytesUsed += ((OffHeapAccountable) fieldData).offHeapBytesUsed();
+
+            SortedSetDocValues values = ((AtomicOrdinalsFieldData) fieldData).getOrdinalsValues();
+            assertTrue(values.advanceExact(0));
+            assertThat(values.lookupOrd(values.nextOrd()).utf8ToString(), equalTo("term_0"));
+            assertThat(values.lookupOrd(values.nextOrd()).utf8ToString(), equalTo("term_1"));
+            assertThat(values.nextOrd(), equalTo(SortedSetDocValues.NO_MORE_ORDS));
+        }
+        assertThat(offHeapBytesUsed, greaterThan(0L));
+        FieldDataStats stats = shardFieldData.stats("value");
+        assertThat(stats.getOffHeapMemorySizeInBytes(), equalTo(offHeapBytesUsed));
+        assertThat(stats.getMemorySizeInBytes(), equalTo(0L));
+
+        // searches may still read the evicted field data, which is shared with the next searches rather than loaded again
+        indexFieldData.clear();
+        assertThat(shardFieldData.stats("value").getOffHeapMemorySizeInBytes(), equalTo(offHeapBytesUsed));
+        for (int i = 0; i < readerContexts.size(); i++) {
+            assertSame(loaded.get(i), indexFieldData.load(readerContexts.get(i)));
+        }
+        assertThat(shardFieldData.stats("value").getOffHeapMemorySizeInBytes(), equalTo(offHeapBytesUsed));
+
+        writer.close();
+        topLevelReader.close();
+        assertThat(shardFieldData.stats("value").getOffHeapMemorySizeInBytes(), equalTo(0L));
+    }
+
+    public void testOffHeapBudgetIsReleasedWhenTheSegmentIsClosed() throws Exception {
+        for (int i = 0; i < 100; i++) {
+            Document d = new Document();
+            d.add(new StringField("value", "term_" + i, Field.Store.NO));
+            writer.addDocument(d);
+        }
+        refreshReader();
+
+        CircuitBreakerService breakerService = getInstanceFromNode(CircuitBreakerService.class);
+        CircuitBreaker offHeapBreaker = breakerService.getBreaker(CircuitBreaker.FIELDDATA_OFF_HEAP);
+        CircuitBreaker breaker = breakerService.getBreaker(CircuitBreaker.FIELDDATA);
+        long offHeapBytesBefore = offHeapBreaker.getUsed();
+        long heapBytesBefore = breaker.getUsed();
+        IndexFieldData<?> indexFieldData = getForField("value");
+        long offHeapBytesUsed = 0;
+        for (LeafReaderContext context : readerContexts) {
+            offHeapBytesUsed += ((OffHeapAccountable) indexFieldData.load(context)).offHeapBytesUsed();
+        }
+        assertThat(offHeapBytesUsed, greaterThan(0L));
+        assertThat(offHeapBreaker.getUsed(), equalTo(offHeapBytesBefore + offHeapBytesUsed));
+        assertThat(breakerService.stats(CircuitBreaker.FIELDDATA_OFF_HEAP).getEstimated(), equalTo(offHeapBytesBefore + offHeapBytesUsed));
+        // nothing stays on the heap once the field data is loaded
+        assertThat(breaker.getUsed(), equalTo(heapBytesBefore));
+
+        // the evicted field data is reused rather than charged again
+        ifdService.clear();
+        indexFieldData = getForField("value");
+        for (LeafReaderContext context : readerContexts) {
+            indexFieldData.load(context);
+        }
+        assertThat(offHeapBreaker.getUsed(), equalTo(offHeapBytesBefore + offHeapBytesUsed));
+
+        writer.close();
+        topLevelReader.close();
+        assertThat(offHeapBreaker.getUsed(), equalTo(offHeapBytesBefore));
+    }
+
+    public void testOffHeapLimit() throws Exception {
+        Document d = new Document();
+        d.add(new StringField("value", "term", Field.Store.NO));
+        writer.addDocument(d);
+        refreshReader();
+
+        CircuitBreakerService breakerService = new HierarchyCircuitBreakerService(Settings.builder()
+            .put(HierarchyCircuitBreakerService.FIELDDATA_OFF_HEAP_CIRCUIT_BREAKER_LIMIT_SETTING.getKey(), "1b").build(),
+            new ClusterSettings(Settings.EMPTY, ClusterSettings.BUILT_IN_CLUSTER_SETTINGS));
+        OffHeapBytesIndexFieldData indexFieldData = new OffHeapBytesIndexFieldData(indexService.getIndexSettings(), "value",
+            indicesFieldDataCache.buildIndexFieldDataCache(new IndexFieldDataCache.Listener() {}, indexService.index(), "value"),
+            breakerService, 0, Integer.MAX_VALUE, 0);
+        expectThrows(CircuitBreakingException.class, () -> indexFieldData.loadDirect(readerContexts.get(0)));
+        assertThat(breakerService.getBreaker(CircuitBreaker.FIELDDATA_OFF_HEAP).getUsed(), equalTo(0L));
+    }
+
+    public void testRequiresTheNodeCache() {
+        IllegalArgumentException e = expectThrows(IllegalArgumentException.class, () -> createIndex("uncached", Settings.builder()
+            .put(IndexFieldDataService.INDEX_FIELDDATA_OFF_HEAP_SETTING.getKey(), true)
+            .put(IndexFieldDataService.FIELDDATA_CACHE_KEY, "none").build()));
+        assertThat(e.getMessage(), equalTo("[index.fielddata.off_heap] requires [index.fielddata.cache] to be [node]"));
+    }
+}
@@ -0,0 +1,146 @@
+/*
+ * Licensed to Elasticsearch under one or more contributor
+ * license agreements. See the NOTICE file distributed with
+ * this work for additional information regarding copyright
+ * ownership. Elasticsearch licenses this file to you under
+ * the Apache License, Version 2.0 (the "License"); you may
+ * not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.elasticsearch.index.mapper;
+
+import org.apache.lucene.index.DocValuesType;
+import org.apache.lucene.index.IndexOptions;
+import org.apache.lucene.index.IndexableField;
+import org.apache.lucene.util.BytesRef;
+import org.elasticsearch.common.bytes.BytesReference;
+import org.elasticsearch.common.compress.CompressedXContent;
+import org.elasticsearch.common.xcontent.XContentFactory;
+import org.elasticsearch.common.xcontent.XContentType;
+import org.elasticsearch.index.search.VectorSimilarityQuery;
+import org.elasticsearch.test.ESSingleNodeTestCase;
+import org.junit.Before;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+
+import static org.hamcrest.Matchers.containsString;
+
+public class DenseVectorFieldMapperTests extends ESSingleNodeTestCase {
+
+    DocumentMapperParser parser;
+    DocumentMapper mapper;
+
+    @Before
+    public void setup() throws IOException {
+        parser = createIndex("test").mapperService().documentMapperParser();
+        String mapping = XContentFactory.jsonBuilder().startObject().startObject("type")
+                .startObject("properties").startObject("field").field("type", "dense_vector").field("dims", 3).endObject().endObject()
+                .endObject().endObject().string();
+        mapper = parser.parse("type", new CompressedXContent(mapping));
+        assertEquals(mapping, mapper.mappingSource().toString());
+    }
+
+    private ParsedDocument parse(BytesReference source) {
+        return mapper.parse(SourceToParse.source("test", "type", "1", source, XContentType.JSON));
+    }
+
+    public void testDefaults() throws Exception {
+        ParsedDocument doc = parse(XContentFactory.jsonBuilder()
+                .startObject()
+                .array("field", 2, -3.5, 6)
+                .endObject()
+                .bytes());
+
+        IndexableField[] fields = doc.rootDoc().getFields("field");
+        assertEquals(1, fields.length);
+        assertEquals(DocValuesType.BINARY, fields[0].fieldType().docValuesType());
+        assertEquals(IndexOptions.NONE, fields[0].fieldType().indexOptions());
+        assertFalse(fields[0].fieldType().stored());
+
+        // the dimensions are followed by the magnitude of the vector
+        BytesRef bytes = fields[0].binaryValue();
+        assertEquals(VectorSimilarityQuery.encodedLength(3), bytes.length);
+        ByteBuffer buffer = ByteBuffer.wrap(bytes.bytes, bytes.offset, bytes.length).order(ByteOrder.LITTLE_ENDIAN);
+        assertEquals(2f, buffer.getFloat(), 0f);
+        assertEquals(-3.5f, buffer.getFloat(), 0f);
+        assertEquals(6f, buffer.getFloat(), 0f);
+        assertEquals(7.2284f, buffer.getFloat(), 0.0001f);
+    }
+
+    public void testNullValue() throws Exception {
+        ParsedDocument doc = parse(XContentFactory.jsonBuilder()
+                .startObject()
+                .nullField("field")
+                .endObject()
+                .bytes());
+        assertEquals(0, doc.rootDoc().getFields("field").length);
+    }
+
+    public void testInvalidVectors() throws Exception {
+        assertInvalid("has [3] dimensions but the document has [2]", XContentFactory.jsonBuilder().startObject()
+            .array("field", 1, 2).endObject().bytes());
+        assertInvalid("has [3] dimensions but the document has more", XContentFactory.jsonBuilder().startObject()
+            .array("field", 1, 2, 3, 4).endObject().bytes());
+        assertInvalid("only supports finite values", XContentFactory.jsonBuilder().startObject()
+            .array("field", 1, 1e39, 3).endObject().bytes());
+        expectThrows(MapperParsingException.class, () -> parse(XContentFactory.jsonBuilder()
+                .startObject()
+                .startArray("field").startArray().value(1).value(2).value(3).endArray().endArray()
+                .endObject()
+                .bytes()));
+        expectThrows(MapperParsingException.class, () -> parse(XContentFactory.jsonBuilder()
+                .startObject()
+                .field("field", 3)
+                .endObject()
+                .bytes()));
+    }
+
+    private void assertInvalid(String message, BytesReference source) {
+        MapperParsingException e = expectThrows(MapperParsingException.class, () -> parse(source));
+        assertThat(e.getCause().getMessage(), containsString(message));
+    }
+
+    public void testDims() throws IOException {
+        String missing = XContentFactory.jsonBuilder().startObject().startObject("type")
+                .startObject("properties").startObject("field").field("type", "dense_vector").endObject().endObject()
+                .endObject().endObject().string();
+        IllegalArgumentException e = expectThrows(IllegalArgumentException.class,
+            () -> parser.parse("type", new CompressedXContent(missing)));
+        assertThat(e.getMessage(), containsString("misses required parameter [dims]"));
+
+        String tooMany = XContentFactory.jsonBuilder().startObject().startObject("type")
+                .startObject("properties").startObject("field").field("type", "dense_vector").field("dims", 4096).endObject()
+                .endObject().endObject().endObject().string();
+        e = expectThrows(IllegalArgumentException.class, () -> parser.parse("type", new CompressedXContent(tooMany)));
+        assertThat(e.getMessage(), containsString("must be between 1 and 2048"));
+    }
+
+    public void testUnsupportedOptions() throws IOException {
+        String[] options = new String[] {"index", "store", "doc_values"};
+        boolean[] values = new boolean[] {true, true, false};
+        for (int i = 0; i < options.length; i++) {
+            String mapping = XContentFactory.jsonBuilder().startObject().startObject("type")
+                    .startObject("properties").startObject("field")
+                        .field("type", "dense_vector")
+                        .field("dims", 3)
+                        .field(options[i], values[i])
+                    .endObject().endObject()
+                    .endObject().endObject().string();
+            IllegalArgumentException e = expectThrows(IllegalArgumentException.class,
+                () -> parser.parse("type", new CompressedXContent(mapping)));
+            assertThat(e.getMessage(), containsString("[dense_vector] fields"));
+        }
+    }
+}
@@ -0,0 +1,56 @@
+/*
+ * Licensed to Elasticsearch under one or more contributor
+ * license agreements. See the NOTICE file distributed with
+ * this work for additional information regarding copyright
+ * ownership. Elasticsearch licenses this file to you under
+ * the Apache License, Version 2.0 (the "License"); you may
+ * not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.elasticsearch.index.mapper;
+
+import org.elasticsearch.index.search.VectorSimilarityQuery;
+import org.junit.Before;
+
+public class DenseVectorFieldTypeTests extends FieldTypeTestCase {
+
+    @Override
+    protected MappedFieldType createDefaultFieldType() {
+        DenseVectorFieldMapper.DenseVectorFieldType ft = new DenseVectorFieldMapper.DenseVectorFieldType();
+        ft.setDims(3);
+        return ft;
+    }
+
+    @Before
+    public void setupProperties() {
+        addModifier(new Modifier("dims", false) {
+            @Override
+            public void modify(MappedFieldType ft) {
+                ((DenseVectorFieldMapper.DenseVectorFieldType) ft).setDims(5);
+            }
+            @Override
+            public void normalizeOther(MappedFieldType other) {
+                super.normalizeOther(other);
+                ((DenseVectorFieldMapper.DenseVectorFieldType) other).setDims(3);
+            }
+        });
+    }
+
+    public void testSimilarityQuery() {
+        DenseVectorFieldMapper.DenseVectorFieldType ft = (DenseVectorFieldMapper.DenseVectorFieldType) createDefaultFieldType();
+        ft.setName("field");
+        float[] vector = new float[] {1, 2, 3};
+        assertEquals(new VectorSimilarityQuery("field", vector, VectorSimilarityQuery.Similarity.DOT_PRODUCT, null),
+            ft.similarityQuery(vector, VectorSimilarityQuery.Similarity.DOT_PRODUCT, null, null));
+    }
+}
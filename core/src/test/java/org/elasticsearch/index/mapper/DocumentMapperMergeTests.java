@@ -19,11 +19,13 @@
 
 package org.elasticsearch.index.mapper;
 
+import org.apache.lucene.analysis.Analyzer;
 import org.elasticsearch.common.bytes.BytesArray;
 import org.elasticsearch.common.bytes.BytesReference;
 import org.elasticsearch.common.compress.CompressedXContent;
 import org.elasticsearch.common.xcontent.XContentFactory;
 import org.elasticsearch.common.xcontent.XContentType;
+import org.elasticsearch.index.analysis.FieldNameAnalyzer;
 import org.elasticsearch.index.analysis.NamedAnalyzer;
 import org.elasticsearch.index.mapper.DocumentFieldMappers;
 import org.elasticsearch.index.mapper.DocumentMapper;
@@ -35,6 +37,7 @@ import org.elasticsearch.index.mapper.ParsedDocument;
 import org.elasticsearch.test.ESSingleNodeTestCase;
 
 import java.io.IOException;
+import java.util.Map;
 import java.util.concurrent.CyclicBarrier;
 import java.util.concurrent.atomic.AtomicBoolean;
 import java.util.concurrent.atomic.AtomicReference;
@@ -235,4 +238,51 @@ public class DocumentMapperMergeTests extends ESSingleNodeTestCase {
         assertNotNull(mapper.mappers().getMapper("foo"));
         assertFalse(mapper.sourceMapper().enabled());
     }
+
+    public void testMergeSharesUnchangedMappers() throws IOException {
+        MapperService mapperService = createIndex("test").mapperService();
+        CompressedXContent mapping = new CompressedXContent(XContentFactory.jsonBuilder().startObject()
+                .startObject("type")
+                    .startObject("properties")
+                        .startObject("foo")
+                            .field("type", "text")
+                            .field("analyzer", "whitespace")
+                        .endObject()
+                        .startObject("obj")
+                            .startObject("properties")
+                                .startObject("bar")
+                                    .field("type", "keyword")
+                                .endObject()
+                            .endObject()
+                        .endObject()
+                    .endObject()
+                .endObject().endObject().bytes());
+        DocumentMapper mapper = mapperService.merge("type", mapping, MapperService.MergeReason.MAPPING_UPDATE, false);
+
+        CompressedXContent update = new CompressedXContent(XContentFactory.jsonBuilder().startObject()
+                .startObject("type")
+                    .startObject("properties")
+                        .startObject("baz")
+                            .field("type", "long")
+                        .endObject()
+                    .endObject()
+                .endObject().endObject().bytes());
+        DocumentMapper merged = mapperService.merge("type", update, MapperService.MergeReason.MAPPING_UPDATE, false);
+
+        // the mappers that the update didn't touch are shared by both versions of the mapping
+        assertSame(mapper.mappers().getMapper("foo"), merged.mappers().getMapper("foo"));
+        assertSame(mapper.mappers().getMapper("obj.bar"), merged.mappers().getMapper("obj.bar"));
+        assertSame(mapper.objectMappers().get("obj"), merged.objectMappers().get("obj"));
+        assertSame(mapper.mappers().getMapper("foo").fieldType(), mapperService.fullName("foo"));
+        assertNull(mapper.mappers().getMapper("baz"));
+        assertNotNull(merged.mappers().getMapper("baz"));
+        assertSame(merged.mappers().getMapper("baz").fieldType(), mapperService.fullName("baz"));
+
+        // and so are their analyzers, while the new field gets one too
+        Map<String, Analyzer> analyzers = ((FieldNameAnalyzer) mapper.mappers().indexAnalyzer()).analyzers();
+        Map<String, Analyzer> mergedAnalyzers = ((FieldNameAnalyzer) merged.mappers().indexAnalyzer()).analyzers();
+        assertSame(analyzers.get("foo"), mergedAnalyzers.get("foo"));
+        assertNull(analyzers.get("baz"));
+        assertNotNull(mergedAnalyzers.get("baz"));
+    }
 }
@@ -24,6 +24,7 @@ import org.elasticsearch.test.ESTestCase;
 import java.util.Arrays;
 import java.util.Collection;
 import java.util.Collections;
+import java.util.HashSet;
 import java.util.Iterator;
 import java.util.List;
 
@@ -80,6 +81,22 @@ public class FieldTypeLookupTests extends ESTestCase {
         assertEquals(f2.fieldType(), lookup2.get("foo"));
     }
 
+    public void testAddSameFieldTypes() {
+        MockFieldMapper f = new MockFieldMapper("foo");
+        MockFieldMapper f2 = new MockFieldMapper("bar");
+        FieldTypeLookup lookup = new FieldTypeLookup().copyAndAddAll("type1", newList(f, f2), randomBoolean());
+
+        // the field types of the lookup are not added again
+        assertSame(lookup, lookup.copyAndAddAll("type1", newList(f, f2), randomBoolean()));
+        assertSame(lookup, lookup.copyAndAddAll("type1", newList(f), randomBoolean()));
+
+        // but they are registered for other types
+        FieldTypeLookup lookup2 = lookup.copyAndAddAll("type2", newList(f), true);
+        assertNotSame(lookup, lookup2);
+        assertEquals(new HashSet<>(Arrays.asList("type1", "type2")), lookup2.getTypes("foo"));
+        assertEquals(Collections.singleton("type1"), lookup2.getTypes("bar"));
+    }
+
     public void testAddExistingIndexName() {
         MockFieldMapper f = new MockFieldMapper("foo");
         MockFieldMapper f2 = new MockFieldMapper("bar");
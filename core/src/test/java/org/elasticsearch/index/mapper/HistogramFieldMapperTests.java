@@ -0,0 +1,136 @@
+/*
+ * Licensed to Elasticsearch under one or more contributor
+ * license agreements. See the NOTICE file distributed with
+ * this work for additional information regarding copyright
+ * ownership. Elasticsearch licenses this file to you under
+ * the Apache License, Version 2.0 (the "License"); you may
+ * not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.elasticsearch.index.mapper;
+
+import org.apache.lucene.index.DocValuesType;
+import org.apache.lucene.index.IndexOptions;
+import org.apache.lucene.index.IndexableField;
+import org.apache.lucene.store.ByteArrayDataInput;
+import org.apache.lucene.util.BytesRef;
+import org.elasticsearch.common.bytes.BytesReference;
+import org.elasticsearch.common.compress.CompressedXContent;
+import org.elasticsearch.common.xcontent.XContentFactory;
+import org.elasticsearch.common.xcontent.XContentType;
+import org.elasticsearch.test.ESSingleNodeTestCase;
+import org.junit.Before;
+
+import java.io.IOException;
+
+import static org.hamcrest.Matchers.containsString;
+
+public class HistogramFieldMapperTests extends ESSingleNodeTestCase {
+
+    DocumentMapperParser parser;
+    DocumentMapper mapper;
+
+    @Before
+    public void setup() throws IOException {
+        parser = createIndex("test").mapperService().documentMapperParser();
+        String mapping = XContentFactory.jsonBuilder().startObject().startObject("type")
+                .startObject("properties").startObject("field").field("type", "histogram").endObject().endObject()
+                .endObject().endObject().string();
+        mapper = parser.parse("type", new CompressedXContent(mapping));
+        assertEquals(mapping, mapper.mappingSource().toString());
+    }
+
+    private ParsedDocument parse(BytesReference source) {
+        return mapper.parse(SourceToParse.source("test", "type", "1", source, XContentType.JSON));
+    }
+
+    public void testDefaults() throws Exception {
+        ParsedDocument doc = parse(XContentFactory.jsonBuilder()
+                .startObject()
+                .startObject("field")
+                    .array("values", 0.1, 0.25, 0.25, 1, 3)
+                    .array("counts", 3, 7, 0, 2, 1)
+                .endObject()
+                .endObject()
+                .bytes());
+
+        IndexableField[] fields = doc.rootDoc().getFields("field");
+        assertEquals(1, fields.length);
+        assertEquals(DocValuesType.BINARY, fields[0].fieldType().docValuesType());
+        assertEquals(IndexOptions.NONE, fields[0].fieldType().indexOptions());
+        assertFalse(fields[0].fieldType().stored());
+
+        // buckets whose count is zero are not stored
+        BytesRef bytes = fields[0].binaryValue();
+        ByteArrayDataInput in = new ByteArrayDataInput(bytes.bytes, bytes.offset, bytes.length);
+        double[] expectedValues = new double[] {0.1, 0.25, 1, 3};
+        int[] expectedCounts = new int[] {3, 7, 2, 1};
+        for (int i = 0; i < expectedValues.length; i++) {
+            assertEquals(expectedCounts[i], in.readVInt());
+            assertEquals(expectedValues[i], Double.longBitsToDouble(in.readLong()), 0d);
+        }
+        assertTrue(in.eof());
+    }
+
+    public void testNullValue() throws Exception {
+        ParsedDocument doc = parse(XContentFactory.jsonBuilder()
+                .startObject()
+                .nullField("field")
+                .endObject()
+                .bytes());
+        assertEquals(0, doc.rootDoc().getFields("field").length);
+    }
+
+    public void testInvalidHistograms() throws Exception {
+        assertInvalid("must be in ascending order", XContentFactory.jsonBuilder().startObject().startObject("field")
+            .array("values", 2, 1).array("counts", 1, 1).endObject().endObject().bytes());
+        assertInvalid("must be non-negative", XContentFactory.jsonBuilder().startObject().startObject("field")
+            .array("values", 1, 2).array("counts", 1, -1).endObject().endObject().bytes());
+        assertInvalid("must have the same length", XContentFactory.jsonBuilder().startObject().startObject("field")
+            .array("values", 1, 2).array("counts", 1).endObject().endObject().bytes());
+        assertInvalid("requires both [values] and [counts]", XContentFactory.jsonBuilder().startObject().startObject("field")
+            .array("values", 1, 2).endObject().endObject().bytes());
+        assertInvalid("does not support [sums]", XContentFactory.jsonBuilder().startObject().startObject("field")
+            .array("values", 1, 2).array("counts", 1, 1).array("sums", 1, 2).endObject().endObject().bytes());
+        assertInvalid("doesn't support multiple values per document", XContentFactory.jsonBuilder().startObject().startArray("field")
+            .startObject().array("values", 1).array("counts", 1).endObject()
+            .startObject().array("values", 2).array("counts", 1).endObject()
+            .endArray().endObject().bytes());
+        expectThrows(MapperParsingException.class, () -> parse(XContentFactory.jsonBuilder()
+                .startObject()
+                .field("field", 3)
+                .endObject()
+                .bytes()));
+    }
+
+    private void assertInvalid(String message, BytesReference source) {
+        MapperParsingException e = expectThrows(MapperParsingException.class, () -> parse(source));
+        assertThat(e.getCause().getMessage(), containsString(message));
+    }
+
+    public void testUnsupportedOptions() throws IOException {
+        String[] options = new String[] {"index", "store", "doc_values"};
+        boolean[] values = new boolean[] {true, true, false};
+        for (int i = 0; i < options.length; i++) {
+            String mapping = XContentFactory.jsonBuilder().startObject().startObject("type")
+                    .startObject("properties").startObject("field")
+                        .field("type", "histogram")
+                        .field(options[i], values[i])
+                    .endObject().endObject()
+                    .endObject().endObject().string();
+            IllegalArgumentException e = expectThrows(IllegalArgumentException.class,
+                () -> parser.parse("type", new CompressedXContent(mapping)));
+            assertThat(e.getMessage(), containsString("[histogram] fields"));
+        }
+    }
+}
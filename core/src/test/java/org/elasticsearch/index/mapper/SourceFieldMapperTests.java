@@ -19,10 +19,18 @@
 
 package org.elasticsearch.index.mapper;
 
+import org.apache.lucene.index.DirectoryReader;
+import org.apache.lucene.index.IndexWriter;
+import org.apache.lucene.index.IndexWriterConfig;
 import org.apache.lucene.index.IndexableField;
+import org.apache.lucene.index.LeafReader;
+import org.apache.lucene.store.Directory;
+import org.elasticsearch.action.get.GetResponse;
+import org.elasticsearch.action.search.SearchResponse;
 import org.elasticsearch.common.bytes.BytesArray;
 import org.elasticsearch.common.compress.CompressedXContent;
 import org.elasticsearch.common.xcontent.XContentFactory;
+import org.elasticsearch.common.xcontent.XContentHelper;
 import org.elasticsearch.common.xcontent.XContentParser;
 import org.elasticsearch.common.xcontent.XContentType;
 import org.elasticsearch.common.xcontent.json.JsonXContent;
@@ -31,9 +39,13 @@ import org.elasticsearch.test.ESSingleNodeTestCase;
 import org.elasticsearch.test.InternalSettingsPlugin;
 
 import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Collection;
+import java.util.Collections;
 import java.util.Map;
 
+import static org.hamcrest.Matchers.contains;
 import static org.hamcrest.Matchers.containsString;
 import static org.hamcrest.Matchers.equalTo;
 
@@ -288,4 +300,134 @@ public class SourceFieldMapperTests extends ESSingleNodeTestCase {
             assertTrue(message, message.contains("Unexpected close marker '}'"));
         }
     }
+
+    public void testSyntheticModeNotUpdateable() throws Exception {
+        DocumentMapperParser parser = createIndex("test").mapperService().documentMapperParser();
+        String mapping1 = XContentFactory.jsonBuilder().startObject().startObject("type").endObject().endObject().string();
+        String mapping2 = XContentFactory.jsonBuilder().startObject().startObject("type")
+            .startObject("_source").field("mode", "synthetic").endObject()
+            .endObject().endObject().string();
+        assertConflicts(mapping1, mapping2, parser, "Cannot update mode setting for [_source]");
+        assertConflicts(mapping2, mapping1, parser, "Cannot update mode setting for [_source]");
+
+        // not changing is ok
+        String mapping3 = XContentFactory.jsonBuilder().startObject().startObject("type")
+            .startObject("_source").field("mode", "stored").endObject()
+            .endObject().endObject().string();
+        assertConflicts(mapping1, mapping3, parser);
+        assertConflicts(mapping2, mapping2, parser);
+    }
+
+    public void testSyntheticModeRejectsUnsupportedMappings() throws Exception {
+        DocumentMapperParser parser = createIndex("test").mapperService().documentMapperParser();
+        String mapping = XContentFactory.jsonBuilder().startObject().startObject("type")
+            .startObject("_source").field("mode", "synthetic").field("enabled", false).endObject()
+            .endObject().endObject().string();
+        Exception e = expectThrows(IllegalArgumentException.class, () -> parser.parse("type", new CompressedXContent(mapping)));
+        assertThat(e.getMessage(), containsString("[_source] can't be synthetic and disabled"));
+
+        String mappingWithText = XContentFactory.jsonBuilder().startObject().startObject("type")
+            .startObject("_source").field("mode", "synthetic").endObject()
+            .startObject("properties").startObject("message").field("type", "text").endObject().endObject()
+            .endObject().endObject().string();
+        e = expectThrows(IllegalArgumentException.class, () -> parser.parse("type", new CompressedXContent(mappingWithText)));
+        assertThat(e.getMessage(), containsString("[_source] can't be synthetic with field [message] of type [text]"));
+
+        String mappingWithoutDocValues = XContentFactory.jsonBuilder().startObject().startObject("type")
+            .startObject("_source").field("mode", "synthetic").endObject()
+            .startObject("properties").startObject("count").field("type", "long").field("doc_values", false).endObject().endObject()
+            .endObject().endObject().string();
+        e = expectThrows(IllegalArgumentException.class, () -> parser.parse("type", new CompressedXContent(mappingWithoutDocValues)));
+        assertThat(e.getMessage(), containsString("[_source] can't be synthetic with field [count] of type [long]"));
+
+        String mappingWithNested = XContentFactory.jsonBuilder().startObject().startObject("type")
+            .startObject("_source").field("mode", "synthetic").endObject()
+            .startObject("properties").startObject("tags").field("type", "nested").endObject().endObject()
+            .endObject().endObject().string();
+        e = expectThrows(IllegalArgumentException.class, () -> parser.parse("type", new CompressedXContent(mappingWithNested)));
+        assertThat(e.getMessage(), containsString("[_source] can't be synthetic with nested object [tags]"));
+    }
+
+    public void testSyntheticSource() throws Exception {
+        String mapping = XContentFactory.jsonBuilder().startObject().startObject("type")
+            .startObject("_source").field("mode", "synthetic").endObject()
+            .startObject("properties")
+                .startObject("host").field("type", "keyword")
+                    .startObject("fields").startObject("raw").field("type", "keyword").endObject().endObject()
+                .endObject()
+                .startObject("@timestamp").field("type", "date").endObject()
+                .startObject("up").field("type", "boolean").endObject()
+                .startObject("ip").field("type", "ip").endObject()
+                .startObject("metrics").startObject("properties")
+                    .startObject("cpu").field("type", "double").endObject()
+                    .startObject("load").field("type", "float").endObject()
+                    .startObject("requests").field("type", "long").endObject()
+                .endObject().endObject()
+            .endObject()
+            .endObject().endObject().string();
+        DocumentMapper mapper = createIndex("test").mapperService().documentMapperParser().parse("type", new CompressedXContent(mapping));
+        assertTrue(mapper.sourceMapper().isSynthetic());
+        assertNotNull(mapper.syntheticSourceLoader());
+
+        ParsedDocument doc = mapper.parse(SourceToParse.source("test", "type", "1", XContentFactory.jsonBuilder().startObject()
+            .field("up", true)
+            .field("host", "web-1")
+            .field("@timestamp", "2017-06-01T10:00:00.000Z")
+            .field("ip", "192.168.1.1")
+            .startObject("metrics")
+                .field("cpu", 0.5)
+                .field("load", 1.5)
+                .array("requests", 30, 10, 20)
+            .endObject()
+            .endObject().bytes(), XContentType.JSON));
+        assertNull("the source must not be stored", doc.rootDoc().getField(SourceFieldMapper.NAME));
+        assertNotNull("the source must still be available to the translog", doc.source());
+
+        try (Directory dir = newDirectory(); IndexWriter writer = new IndexWriter(dir, new IndexWriterConfig())) {
+            writer.addDocument(doc.rootDoc());
+            try (DirectoryReader reader = DirectoryReader.open(writer)) {
+                LeafReader leafReader = reader.leaves().get(0).reader();
+                Map<String, Object> source = XContentHelper.convertToMap(mapper.syntheticSourceLoader().load(leafReader, 0), true).v2();
+                // fields are sorted by name and multiple values are sorted
+                assertThat(new ArrayList<>(source.keySet()), contains("@timestamp", "host", "ip", "metrics", "up"));
+                assertThat(source.get("@timestamp"), equalTo("2017-06-01T10:00:00.000Z"));
+                assertThat(source.get("host"), equalTo("web-1"));
+                assertThat(source.get("ip"), equalTo("192.168.1.1"));
+                assertThat(source.get("up"), equalTo(true));
+                @SuppressWarnings("unchecked")
+                Map<String, Object> metrics = (Map<String, Object>) source.get("metrics");
+                assertThat(metrics.get("cpu"), equalTo(0.5));
+                assertThat(metrics.get("load"), equalTo(1.5));
+                assertThat(metrics.get("requests"), equalTo(Arrays.asList(10, 20, 30)));
+            }
+        }
+    }
+
+    public void testSyntheticSourceGetAndSearch() throws Exception {
+        client().admin().indices().prepareCreate("test")
+            .addMapping("type", XContentFactory.jsonBuilder().startObject().startObject("type")
+                .startObject("_source").field("mode", "synthetic").endObject()
+                .startObject("properties")
+                    .startObject("host").field("type", "keyword").endObject()
+                    .startObject("value").field("type", "long").endObject()
+                .endObject()
+                .endObject().endObject())
+            .get();
+        client().prepareIndex("test", "type", "1").setSource("value", 42, "host", "web-1").get();
+
+        GetResponse getResponse = client().prepareGet("test", "type", "1").get();
+        assertTrue(getResponse.isExists());
+        assertThat(getResponse.getSourceAsString(), equalTo("{\"host\":\"web-1\",\"value\":42}"));
+
+        getResponse = client().prepareGet("test", "type", "1").setFetchSource("value", null).get();
+        assertThat(getResponse.getSourceAsMap(), equalTo(Collections.singletonMap("value", 42)));
+
+        client().admin().indices().prepareRefresh("test").get();
+        SearchResponse searchResponse = client().prepareSearch("test").get();
+        assertThat(searchResponse.getHits().getTotalHits(), equalTo(1L));
+        assertThat(searchResponse.getHits().getAt(0).getSourceAsString(), equalTo("{\"host\":\"web-1\",\"value\":42}"));
+
+        searchResponse = client().prepareSearch("test").setFetchSource("host", null).get();
+        assertThat(searchResponse.getHits().getAt(0).getSourceAsMap(), equalTo(Collections.singletonMap("host", "web-1")));
+    }
 }
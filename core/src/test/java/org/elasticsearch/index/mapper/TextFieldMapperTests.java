@@ -27,6 +27,14 @@ import org.apache.lucene.index.LeafReader;
 import org.apache.lucene.index.PostingsEnum;
 import org.apache.lucene.index.Term;
 import org.apache.lucene.index.TermsEnum;
+import org.apache.lucene.search.ConstantScoreQuery;
+import org.apache.lucene.search.PhraseQuery;
+import org.apache.lucene.search.Query;
+import org.apache.lucene.search.TermQuery;
+import org.apache.lucene.search.spans.FieldMaskingSpanQuery;
+import org.apache.lucene.search.spans.SpanNearQuery;
+import org.apache.lucene.search.spans.SpanQuery;
+import org.apache.lucene.search.spans.SpanTermQuery;
 import org.apache.lucene.util.BytesRef;
 import org.elasticsearch.common.compress.CompressedXContent;
 import org.elasticsearch.common.xcontent.ToXContent;
@@ -37,6 +45,8 @@ import org.elasticsearch.index.IndexService;
 import org.elasticsearch.index.engine.Engine;
 import org.elasticsearch.index.mapper.MapperService.MergeReason;
 import org.elasticsearch.index.mapper.TextFieldMapper.TextFieldType;
+import org.elasticsearch.index.query.QueryShardContext;
+import org.elasticsearch.index.search.MatchQuery;
 import org.elasticsearch.index.shard.IndexShard;
 import org.elasticsearch.plugins.Plugin;
 import org.elasticsearch.test.ESSingleNodeTestCase;
@@ -578,4 +588,187 @@ public class TextFieldMapperTests extends ESSingleNodeTestCase {
         );
         assertThat(e.getMessage(), containsString("name cannot be empty string"));
     }
+
+    public void testIndexPrefixes() throws IOException {
+        String mapping = XContentFactory.jsonBuilder().startObject().startObject("type")
+                .startObject("properties").startObject("field")
+                    .field("type", "text")
+                    .startObject("index_prefixes")
+                        .field("min_chars", 1)
+                        .field("max_chars", 10)
+                    .endObject()
+                .endObject().endObject()
+                .endObject().endObject().string();
+
+        DocumentMapper mapper = indexService.mapperService().merge("type", new CompressedXContent(mapping),
+            MergeReason.MAPPING_UPDATE, false);
+        assertEquals(mapping, mapper.mappingSource().toString());
+
+        ParsedDocument doc = mapper.parse(SourceToParse.source("test", "type", "1", XContentFactory.jsonBuilder()
+                .startObject()
+                .field("field", "Some English text")
+                .endObject()
+                .bytes(),
+                XContentType.JSON));
+
+        IndexableField[] fields = doc.rootDoc().getFields("field._index_prefix");
+        assertEquals(1, fields.length);
+        assertTrue(fields[0].fieldType().omitNorms());
+        assertEquals(IndexOptions.DOCS_AND_FREQS_AND_POSITIONS, fields[0].fieldType().indexOptions());
+
+        // the prefixes are indexed with the analyzer of the field
+        TextFieldType fieldType = (TextFieldType) mapper.mappers().getMapper("field").fieldType();
+        QueryShardContext context = indexService.newQueryShardContext(0, null, () -> 0L);
+        assertEquals(new ConstantScoreQuery(new TermQuery(new Term("field._index_prefix", "engl"))),
+            fieldType.prefixQuery("engl", null, context));
+        assertEquals(new TermQuery(new Term("field._index_prefix", "engl")),
+            new MatchQuery(context).parse(MatchQuery.Type.PHRASE_PREFIX, "field", "Engl"));
+
+        // the defaults are always rendered
+        String defaultsMapping = XContentFactory.jsonBuilder().startObject().startObject("type")
+                .startObject("properties").startObject("field")
+                    .field("type", "text")
+                    .startObject("index_prefixes").endObject()
+                .endObject().endObject()
+                .endObject().endObject().string();
+        String expected = XContentFactory.jsonBuilder().startObject().startObject("type")
+                .startObject("properties").startObject("field")
+                    .field("type", "text")
+                    .startObject("index_prefixes")
+                        .field("min_chars", 2)
+                        .field("max_chars", 5)
+                    .endObject()
+                .endObject().endObject()
+                .endObject().endObject().string();
+        assertEquals(expected, parser.parse("type", new CompressedXContent(defaultsMapping)).mappingSource().toString());
+    }
+
+    public void testIndexPrefixesValidation() throws IOException {
+        String mapping = XContentFactory.jsonBuilder().startObject().startObject("type")
+                .startObject("properties").startObject("field")
+                    .field("type", "text")
+                    .startObject("index_prefixes")
+                        .field("min_chars", 3)
+                        .field("max_chars", 2)
+                    .endObject()
+                .endObject().endObject()
+                .endObject().endObject().string();
+        IllegalArgumentException e = expectThrows(IllegalArgumentException.class,
+            () -> parser.parse("type", new CompressedXContent(mapping)));
+        assertEquals("min_chars [3] must be less than max_chars [2]", e.getMessage());
+
+        String mapping2 = XContentFactory.jsonBuilder().startObject().startObject("type")
+                .startObject("properties").startObject("field")
+                    .field("type", "text")
+                    .startObject("index_prefixes")
+                        .field("max_chars", 25)
+                    .endObject()
+                .endObject().endObject()
+                .endObject().endObject().string();
+        e = expectThrows(IllegalArgumentException.class, () -> parser.parse("type", new CompressedXContent(mapping2)));
+        assertEquals("max_chars [25] must be less than 20", e.getMessage());
+
+        String mapping3 = XContentFactory.jsonBuilder().startObject().startObject("type")
+                .startObject("properties").startObject("field")
+                    .field("type", "text")
+                    .field("index", false)
+                    .startObject("index_prefixes").endObject()
+                .endObject().endObject()
+                .endObject().endObject().string();
+        e = expectThrows(IllegalArgumentException.class, () -> parser.parse("type", new CompressedXContent(mapping3)));
+        assertEquals("Cannot set index_prefixes on unindexed field [field]", e.getMessage());
+    }
+
+    public void testIndexPhrases() throws IOException {
+        String mapping = XContentFactory.jsonBuilder().startObject().startObject("type")
+                .startObject("properties").startObject("field")
+                    .field("type", "text")
+                    .field("index_phrases", true)
+                .endObject().endObject()
+                .endObject().endObject().string();
+
+        DocumentMapper mapper = indexService.mapperService().merge("type", new CompressedXContent(mapping),
+            MergeReason.MAPPING_UPDATE, false);
+        assertEquals(mapping, mapper.mappingSource().toString());
+
+        ParsedDocument doc = mapper.parse(SourceToParse.source("test", "type", "1", XContentFactory.jsonBuilder()
+                .startObject()
+                .field("field", "Some English text that is going to be very useful")
+                .endObject()
+                .bytes(),
+                XContentType.JSON));
+
+        IndexableField[] fields = doc.rootDoc().getFields("field._index_phrase");
+        assertEquals(1, fields.length);
+        assertEquals(IndexOptions.DOCS_AND_FREQS_AND_POSITIONS, fields[0].fieldType().indexOptions());
+
+        QueryShardContext context = indexService.newQueryShardContext(0, null, () -> 0L);
+        Query query = new MatchQuery(context).parse(MatchQuery.Type.PHRASE, "field", "Some English text");
+        assertEquals(new PhraseQuery.Builder()
+            .add(new Term("field._index_phrase", "some english"), 0)
+            .add(new Term("field._index_phrase", "english text"), 1)
+            .build(), query);
+
+        // a single term does not need the shingles
+        query = new MatchQuery(context).parse(MatchQuery.Type.PHRASE, "field", "English");
+        assertEquals(new TermQuery(new Term("field", "english")), query);
+
+        String mapping2 = XContentFactory.jsonBuilder().startObject().startObject("type")
+                .startObject("properties").startObject("field")
+                    .field("type", "text")
+                    .field("index_options", "freqs")
+                    .field("index_phrases", true)
+                .endObject().endObject()
+                .endObject().endObject().string();
+        IllegalArgumentException e = expectThrows(IllegalArgumentException.class,
+            () -> parser.parse("type", new CompressedXContent(mapping2)));
+        assertEquals("Cannot set index_phrases on field [field] if positions are not enabled", e.getMessage());
+    }
+
+    public void testIndexPhrasesAndPrefixes() throws IOException {
+        String mapping = XContentFactory.jsonBuilder().startObject().startObject("type")
+                .startObject("properties").startObject("field")
+                    .field("type", "text")
+                    .field("index_phrases", true)
+                    .startObject("index_prefixes").endObject()
+                .endObject().endObject()
+                .endObject().endObject().string();
+        indexService.mapperService().merge("type", new CompressedXContent(mapping), MergeReason.MAPPING_UPDATE, false);
+
+        QueryShardContext context = indexService.newQueryShardContext(0, null, () -> 0L);
+        Query query = new MatchQuery(context).parse(MatchQuery.Type.PHRASE, "field", "Some English text");
+        assertEquals(new PhraseQuery.Builder()
+            .add(new Term("field._index_phrase", "some english"), 0)
+            .add(new Term("field._index_phrase", "english text"), 1)
+            .build(), query);
+
+        // phrase prefix queries are built from the terms, not the shingles, so that the indexed prefixes can be used
+        query = new MatchQuery(context).parse(MatchQuery.Type.PHRASE_PREFIX, "field", "Some English te");
+        assertEquals(new SpanNearQuery(new SpanQuery[] {
+                new SpanTermQuery(new Term("field", "some")),
+                new SpanTermQuery(new Term("field", "english")),
+                new FieldMaskingSpanQuery(new SpanTermQuery(new Term("field._index_prefix", "te")), "field")
+            }, 0, true), query);
+    }
+
+    public void testUpdateIndexPrefixesAndPhrases() throws IOException {
+        String mapping = XContentFactory.jsonBuilder().startObject().startObject("type")
+                .startObject("properties").startObject("field")
+                    .field("type", "text")
+                .endObject().endObject()
+                .endObject().endObject().string();
+        indexService.mapperService().merge("type", new CompressedXContent(mapping), MergeReason.MAPPING_UPDATE, false);
+
+        String update = XContentFactory.jsonBuilder().startObject().startObject("type")
+                .startObject("properties").startObject("field")
+                    .field("type", "text")
+                    .field("index_phrases", true)
+                    .startObject("index_prefixes").endObject()
+                .endObject().endObject()
+                .endObject().endObject().string();
+        IllegalArgumentException e = expectThrows(IllegalArgumentException.class,
+            () -> indexService.mapperService().merge("type", new CompressedXContent(update), MergeReason.MAPPING_UPDATE, false));
+        assertThat(e.getMessage(), containsString("mapper [field] has different [index_prefixes] settings"));
+        assertThat(e.getMessage(), containsString("mapper [field] has different [index_phrases] values"));
+    }
 }
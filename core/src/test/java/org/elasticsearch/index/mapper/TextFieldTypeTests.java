@@ -18,17 +18,31 @@
  */
 package org.elasticsearch.index.mapper;
 
+import java.io.IOException;
 import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.Collections;
 import java.util.List;
 
+import org.apache.lucene.analysis.Analyzer;
+import org.apache.lucene.analysis.CharArraySet;
+import org.apache.lucene.analysis.TokenStream;
+import org.apache.lucene.analysis.standard.StandardAnalyzer;
 import org.apache.lucene.document.LongPoint;
 import org.apache.lucene.index.IndexOptions;
 import org.apache.lucene.index.Term;
+import org.apache.lucene.search.ConstantScoreQuery;
+import org.apache.lucene.search.MultiTermQuery;
+import org.apache.lucene.search.PhraseQuery;
+import org.apache.lucene.search.PrefixQuery;
 import org.apache.lucene.search.TermInSetQuery;
 import org.apache.lucene.search.FuzzyQuery;
 import org.apache.lucene.search.RegexpQuery;
 import org.apache.lucene.search.TermQuery;
+import org.apache.lucene.search.spans.FieldMaskingSpanQuery;
+import org.apache.lucene.search.spans.SpanNearQuery;
+import org.apache.lucene.search.spans.SpanQuery;
+import org.apache.lucene.search.spans.SpanTermQuery;
 import org.apache.lucene.util.BytesRef;
 import org.elasticsearch.common.unit.Fuzziness;
 import org.elasticsearch.index.mapper.MappedFieldType;
@@ -71,6 +85,20 @@ public class TextFieldTypeTests extends FieldTypeTestCase {
                 tft.setFielddataMinSegmentSize(1000);
             }
         });
+        addModifier(new Modifier("index_prefixes", false) {
+            @Override
+            public void modify(MappedFieldType ft) {
+                TextFieldMapper.TextFieldType tft = (TextFieldMapper.TextFieldType)ft;
+                tft.setPrefixFieldType(new TextFieldMapper.PrefixFieldType(tft, 1, 10));
+            }
+        });
+        addModifier(new Modifier("index_phrases", false) {
+            @Override
+            public void modify(MappedFieldType ft) {
+                TextFieldMapper.TextFieldType tft = (TextFieldMapper.TextFieldType)ft;
+                tft.setIndexPhrases(true);
+            }
+        });
     }
 
     public void testTermQuery() {
@@ -126,4 +154,62 @@ public class TextFieldTypeTests extends FieldTypeTestCase {
                 () -> ft.fuzzyQuery("foo", Fuzziness.fromEdits(2), 1, 50, true));
         assertEquals("Cannot search on field [field] since it is not indexed.", e.getMessage());
     }
+
+    public void testIndexPrefixes() {
+        TextFieldMapper.TextFieldType ft = new TextFieldMapper.TextFieldType();
+        ft.setName("field");
+        ft.setPrefixFieldType(new TextFieldMapper.PrefixFieldType(ft, 2, 10));
+
+        assertEquals(new ConstantScoreQuery(new TermQuery(new Term("field._index_prefix", "goin"))),
+            ft.prefixQuery("goin", null, null));
+        assertEquals(new ConstantScoreQuery(new TermQuery(new Term("field._index_prefix", "goin"))),
+            ft.prefixQuery("goin", MultiTermQuery.CONSTANT_SCORE_REWRITE, null));
+        assertEquals(new TermQuery(new Term("field._index_prefix", "goin")),
+            ft.prefixQuery("goin", MultiTermQuery.SCORING_BOOLEAN_REWRITE, null));
+
+        // prefixes that are too short or too long are not indexed
+        assertEquals(new PrefixQuery(new Term("field", "g")), ft.prefixQuery("g", null, null));
+        assertEquals(new PrefixQuery(new Term("field", "internationalisatio")), ft.prefixQuery("internationalisatio", null, null));
+
+        assertEquals(new TermQuery(new Term("field._index_prefix", "goin")),
+            ft.phrasePrefixQuery(new Term[] { new Term("field", "goin") }, new int[] { 0 }, 0));
+        assertEquals(new SpanNearQuery(new SpanQuery[] {
+                new SpanTermQuery(new Term("field", "we")),
+                new SpanTermQuery(new Term("field", "are")),
+                new FieldMaskingSpanQuery(new SpanTermQuery(new Term("field._index_prefix", "goin")), "field") }, 1, true),
+            ft.phrasePrefixQuery(new Term[] { new Term("field", "we"), new Term("field", "are"), new Term("field", "goin") },
+                new int[] { 0, 1, 2 }, 1));
+        // gaps in the phrase and prefixes that are not indexed fall back to expanding the prefix
+        assertNull(ft.phrasePrefixQuery(new Term[] { new Term("field", "we"), new Term("field", "goin") }, new int[] { 0, 2 }, 0));
+        assertNull(ft.phrasePrefixQuery(new Term[] { new Term("field", "we"), new Term("field", "g") }, new int[] { 0, 1 }, 0));
+    }
+
+    public void testIndexPhrases() throws IOException {
+        TextFieldMapper.TextFieldType ft = new TextFieldMapper.TextFieldType();
+        ft.setName("field");
+        ft.setIndexPhrases(true);
+        Analyzer analyzer = new StandardAnalyzer(new CharArraySet(Collections.singleton("the"), false));
+
+        PhraseQuery.Builder expected = new PhraseQuery.Builder();
+        expected.add(new Term("field._index_phrase", "quick brown"), 0);
+        expected.add(new Term("field._index_phrase", "brown fox"), 1);
+        try (TokenStream stream = analyzer.tokenStream("field", "Quick brown fox")) {
+            assertEquals(expected.build(), ft.phraseQuery("field", stream, 0, true));
+        }
+
+        // slop and gaps left by stop words can't use the shingles
+        expected = new PhraseQuery.Builder();
+        expected.setSlop(1);
+        expected.add(new Term("field", "quick"), 0);
+        expected.add(new Term("field", "brown"), 1);
+        try (TokenStream stream = analyzer.tokenStream("field", "Quick brown")) {
+            assertEquals(expected.build(), ft.phraseQuery("field", stream, 1, true));
+        }
+        expected = new PhraseQuery.Builder();
+        expected.add(new Term("field", "quick"), 0);
+        expected.add(new Term("field", "fox"), 2);
+        try (TokenStream stream = analyzer.tokenStream("field", "Quick the fox")) {
+            assertEquals(expected.build(), ft.phraseQuery("field", stream, 0, true));
+        }
+    }
 }
@@ -0,0 +1,238 @@
+/*
+ * Licensed to Elasticsearch under one or more contributor
+ * license agreements. See the NOTICE file distributed with
+ * this work for additional information regarding copyright
+ * ownership. Elasticsearch licenses this file to you under
+ * the Apache License, Version 2.0 (the "License"); you may
+ * not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.elasticsearch.index.mapper;
+
+import org.apache.lucene.index.DirectoryReader;
+import org.apache.lucene.index.DocValuesType;
+import org.apache.lucene.index.IndexOptions;
+import org.apache.lucene.index.IndexWriter;
+import org.apache.lucene.index.IndexWriterConfig;
+import org.apache.lucene.index.IndexableField;
+import org.apache.lucene.index.LeafReader;
+import org.apache.lucene.index.Term;
+import org.apache.lucene.search.IndexSearcher;
+import org.apache.lucene.search.Query;
+import org.apache.lucene.search.ScoreDoc;
+import org.apache.lucene.search.WildcardQuery;
+import org.apache.lucene.store.Directory;
+import org.apache.lucene.util.automaton.Automata;
+import org.apache.lucene.util.automaton.Automaton;
+import org.apache.lucene.util.automaton.CharacterRunAutomaton;
+import org.apache.lucene.util.automaton.Operations;
+import org.apache.lucene.util.automaton.RegExp;
+import org.elasticsearch.common.compress.CompressedXContent;
+import org.elasticsearch.common.xcontent.XContentBuilder;
+import org.elasticsearch.common.xcontent.XContentFactory;
+import org.elasticsearch.common.xcontent.XContentType;
+import org.elasticsearch.index.IndexService;
+import org.elasticsearch.index.mapper.MapperService.MergeReason;
+import org.elasticsearch.index.query.QueryBuilders;
+import org.elasticsearch.index.query.QueryShardContext;
+import org.elasticsearch.index.query.QueryShardException;
+import org.elasticsearch.test.ESSingleNodeTestCase;
+import org.junit.Before;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Set;
+import java.util.TreeSet;
+
+import static org.hamcrest.Matchers.containsString;
+
+public class WildcardFieldMapperTests extends ESSingleNodeTestCase {
+
+    IndexService indexService;
+    DocumentMapperParser parser;
+
+    @Before
+    public void setup() {
+        indexService = createIndex("test");
+        parser = indexService.mapperService().documentMapperParser();
+    }
+
+    public void testDefaults() throws Exception {
+        String mapping = XContentFactory.jsonBuilder().startObject().startObject("type")
+                .startObject("properties").startObject("field").field("type", "wildcard").endObject().endObject()
+                .endObject().endObject().string();
+
+        DocumentMapper mapper = parser.parse("type", new CompressedXContent(mapping));
+
+        assertEquals(mapping, mapper.mappingSource().toString());
+
+        ParsedDocument doc = mapper.parse(SourceToParse.source("test", "type", "1", XContentFactory.jsonBuilder()
+                .startObject()
+                .array("field", "/usr/bin", "abc")
+                .endObject()
+                .bytes(),
+                XContentType.JSON));
+
+        Set<String> ngrams = new HashSet<>();
+        IndexableField docValues = null;
+        for (IndexableField field : doc.rootDoc().getFields("field")) {
+            if (field.fieldType().docValuesType() == DocValuesType.BINARY) {
+                assertNull(docValues);
+                docValues = field;
+            } else {
+                assertEquals(IndexOptions.DOCS, field.fieldType().indexOptions());
+                assertFalse(field.fieldType().stored());
+                ngrams.add(field.stringValue());
+            }
+        }
+        assertEquals(new HashSet<>(Arrays.asList("\0/u", "/us", "usr", "sr/", "r/b", "/bi", "bin", "in\0",
+            "\0ab", "abc", "bc\0")), ngrams);
+        assertNotNull(docValues);
+    }
+
+    public void testUnsupportedOptions() throws IOException {
+        for (String option : new String[] {"index", "doc_values"}) {
+            String mapping = XContentFactory.jsonBuilder().startObject().startObject("type")
+                    .startObject("properties").startObject("field")
+                        .field("type", "wildcard")
+                        .field(option, false)
+                    .endObject().endObject()
+                    .endObject().endObject().string();
+            IllegalArgumentException e = expectThrows(IllegalArgumentException.class,
+                () -> parser.parse("type", new CompressedXContent(mapping)));
+            assertThat(e.getMessage(), containsString("[wildcard] fields"));
+        }
+    }
+
+    public void testQueries() throws IOException {
+        String mapping = XContentFactory.jsonBuilder().startObject().startObject("type")
+                .startObject("properties").startObject("field").field("type", "wildcard").endObject().endObject()
+                .endObject().endObject().string();
+        DocumentMapper mapper = indexService.mapperService().merge("type", new CompressedXContent(mapping),
+            MergeReason.MAPPING_UPDATE, false);
+        MappedFieldType fieldType = mapper.mappers().getMapper("field").fieldType();
+
+        // small alphabets so that queries have matches
+        int numDocs = scaledRandomIntBetween(10, 500);
+        List<List<String>> docValues = new ArrayList<>();
+        try (Directory directory = newDirectory()) {
+            try (IndexWriter writer = new IndexWriter(directory, new IndexWriterConfig())) {
+                for (int i = 0; i < numDocs; i++) {
+                    List<String> values = new ArrayList<>();
+                    XContentBuilder source = XContentFactory.jsonBuilder().startObject().startArray("field");
+                    for (int j = randomIntBetween(0, 3); j > 0; j--) {
+                        String value = randomFrom("", randomValue(), randomValue() + "/" + randomValue(), randomValue() + randomValue());
+                        values.add(value);
+                        source.value(value);
+                    }
+                    docValues.add(values);
+                    ParsedDocument doc = mapper.parse(SourceToParse.source("test", "type", Integer.toString(i),
+                        source.endArray().endObject().bytes(), XContentType.JSON));
+                    writer.addDocument(doc.rootDoc());
+                    if (rarely()) {
+                        writer.commit();
+                    }
+                }
+            }
+            try (DirectoryReader reader = DirectoryReader.open(directory)) {
+                IndexSearcher searcher = newSearcher(reader);
+                for (int i = 0; i < 50; i++) {
+                    String value = randomValue();
+                    String pattern = randomWildcard();
+                    String regexp = randomRegexp();
+                    assertMatches(searcher, docValues, fieldType.termQuery(value, null), Automata.makeString(value));
+                    assertMatches(searcher, docValues, fieldType.prefixQuery(value, null, null),
+                        Operations.concatenate(Automata.makeString(value), Automata.makeAnyString()));
+                    assertMatches(searcher, docValues, fieldType.wildcardQuery(pattern, null, null),
+                        WildcardQuery.toAutomaton(new Term("field", pattern)));
+                    assertMatches(searcher, docValues, fieldType.regexpQuery(regexp, RegExp.ALL, 10000, null, null),
+                        new RegExp(regexp).toAutomaton());
+                }
+
+                // the values can be rebuilt from the doc values, sorted and deduplicated
+                LeafReader leafReader = reader.leaves().get(0).reader();
+                SyntheticSourceLoader.FieldLoader loader = ((FieldMapper) mapper.mappers().getMapper("field")).syntheticFieldLoader();
+                List<Object> loaded = new ArrayList<>();
+                loader.load(leafReader, 0, loaded);
+                assertEquals(new ArrayList<>(new TreeSet<>(docValues.get(0))), loaded);
+            }
+        }
+    }
+
+    public void testQueryStringQuery() throws IOException {
+        String mapping = XContentFactory.jsonBuilder().startObject().startObject("type")
+                .startObject("properties").startObject("field").field("type", "wildcard").endObject().endObject()
+                .endObject().endObject().string();
+        DocumentMapper mapper = indexService.mapperService().merge("type", new CompressedXContent(mapping),
+            MergeReason.MAPPING_UPDATE, false);
+        MappedFieldType fieldType = mapper.mappers().getMapper("field").fieldType();
+        QueryShardContext context = indexService.newQueryShardContext(0, null, () -> 0L);
+
+        // wildcard queries of the query_string query run against the n-grams of the field
+        assertEquals(fieldType.wildcardQuery("*ab?c*", null, context),
+            QueryBuilders.queryStringQuery("field:*ab?c*").toQuery(context));
+        assertEquals(fieldType.wildcardQuery("ab*c", null, context),
+            QueryBuilders.queryStringQuery("ab*c").field("field").toQuery(context));
+
+        QueryShardException e = expectThrows(QueryShardException.class,
+            () -> QueryBuilders.queryStringQuery("field:*abc").allowLeadingWildcard(false).toQuery(context));
+        assertThat(e.getCause().getMessage(), containsString("not allowed as first character"));
+    }
+
+    private static void assertMatches(IndexSearcher searcher, List<List<String>> docValues, Query query, Automaton automaton)
+            throws IOException {
+        CharacterRunAutomaton runAutomaton = new CharacterRunAutomaton(automaton);
+        Set<String> expected = new HashSet<>();
+        for (int i = 0; i < docValues.size(); i++) {
+            for (String value : docValues.get(i)) {
+                if (runAutomaton.run(value)) {
+                    expected.add(Integer.toString(i));
+                    break;
+                }
+            }
+        }
+        Set<String> actual = new HashSet<>();
+        for (ScoreDoc scoreDoc : searcher.search(query, docValues.size() + 1).scoreDocs) {
+            actual.add(searcher.doc(scoreDoc.doc).get(IdFieldMapper.NAME));
+        }
+        assertEquals(query.toString(), expected, actual);
+    }
+
+    private static String randomValue() {
+        return randomAlphaOfLengthBetween(0, 5).toLowerCase(Locale.ROOT).replaceAll("[d-z]", "a");
+    }
+
+    private static String randomWildcard() {
+        StringBuilder pattern = new StringBuilder();
+        for (int i = randomIntBetween(1, 6); i > 0; i--) {
+            pattern.append(randomFrom("*", "?", "a", "b", "c", "ab", "abc", "/", "\\*", "\\?"));
+        }
+        return pattern.toString();
+    }
+
+    private static String randomRegexp() {
+        StringBuilder regexp = new StringBuilder();
+        for (int i = randomIntBetween(1, 6); i > 0; i--) {
+            regexp.append(randomFrom(".", ".*", "a", "b", "c", "abc", "/", "[ab]", "(ab|c)*", "a?", "b+", "c{1,2}", "\\/", "@",
+                "\"ab\"", "<1-5>", "~c"));
+        }
+        if (rarely()) {
+            regexp.append("|abc");
+        }
+        return regexp.toString();
+    }
+}
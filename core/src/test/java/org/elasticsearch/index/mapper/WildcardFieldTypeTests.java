@@ -0,0 +1,126 @@
+/*
+ * Licensed to Elasticsearch under one or more contributor
+ * license agreements. See the NOTICE file distributed with
+ * this work for additional information regarding copyright
+ * ownership. Elasticsearch licenses this file to you under
+ * the Apache License, Version 2.0 (the "License"); you may
+ * not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.elasticsearch.index.mapper;
+
+import org.apache.lucene.index.IndexOptions;
+import org.apache.lucene.index.Term;
+import org.apache.lucene.search.BooleanClause.Occur;
+import org.apache.lucene.search.BooleanQuery;
+import org.apache.lucene.search.DocValuesFieldExistsQuery;
+import org.apache.lucene.search.TermQuery;
+import org.apache.lucene.util.automaton.RegExp;
+import org.elasticsearch.index.mapper.WildcardFieldMapper.VerifyingQuery;
+
+import java.util.Arrays;
+import java.util.LinkedHashSet;
+import java.util.Set;
+
+public class WildcardFieldTypeTests extends FieldTypeTestCase {
+
+    @Override
+    protected MappedFieldType createDefaultFieldType() {
+        return new WildcardFieldMapper.WildcardFieldType();
+    }
+
+    private static Set<String> ngrams(String... ngrams) {
+        return new LinkedHashSet<>(Arrays.asList(ngrams));
+    }
+
+    public void testIndexedNGrams() {
+        Set<String> ngrams = new LinkedHashSet<>();
+        WildcardFieldMapper.addNGrams("abcd", true, true, ngrams);
+        assertEquals(ngrams("\0ab", "abc", "bcd", "cd\0"), ngrams);
+
+        ngrams.clear();
+        WildcardFieldMapper.addNGrams("a", true, true, ngrams);
+        assertEquals(ngrams("\0a\0"), ngrams);
+
+        ngrams.clear();
+        WildcardFieldMapper.addNGrams("", true, true, ngrams);
+        assertEquals(ngrams("\0\0"), ngrams);
+
+        // n-grams are made of code points
+        ngrams.clear();
+        WildcardFieldMapper.addNGrams("a😀b", true, true, ngrams);
+        assertEquals(ngrams("\0a😀", "a😀b", "😀b\0"), ngrams);
+    }
+
+    public void testWildcardNGrams() {
+        assertEquals(ngrams("foo"), WildcardFieldMapper.wildcardNGrams("*foo*"));
+        assertEquals(ngrams("\0fo", "foo"), WildcardFieldMapper.wildcardNGrams("foo*"));
+        assertEquals(ngrams("foo", "oo\0"), WildcardFieldMapper.wildcardNGrams("*foo"));
+        assertEquals(ngrams("\0fo", "foo", "oo\0"), WildcardFieldMapper.wildcardNGrams("foo"));
+        assertEquals(ngrams("\0ab", "abc", "def"), WildcardFieldMapper.wildcardNGrams("abc?def*"));
+        assertEquals(ngrams("\0fo", "fo*", "o*o"), WildcardFieldMapper.wildcardNGrams("fo\\*o*"));
+        assertEquals(ngrams(), WildcardFieldMapper.wildcardNGrams("a?c*"));
+        assertEquals(ngrams(), WildcardFieldMapper.wildcardNGrams("*"));
+    }
+
+    public void testRegexpNGrams() {
+        assertEquals(ngrams("\0fo", "foo", "bar", "ar\0"), WildcardFieldMapper.regexpNGrams("foo.*bar"));
+        assertEquals(ngrams("efg", "fg\0"), WildcardFieldMapper.regexpNGrams("a(bcd)*efg"));
+        assertEquals(ngrams("\0ab", "abc"), WildcardFieldMapper.regexpNGrams("abcd?e"));
+        assertEquals(ngrams("\0ab", "def", "ef\0"), WildcardFieldMapper.regexpNGrams("abc{2}def"));
+        assertEquals(ngrams("\0ab", "abc", "def", "ef\0"), WildcardFieldMapper.regexpNGrams("abc+def"));
+        assertEquals(ngrams("def", "ef\0"), WildcardFieldMapper.regexpNGrams("[abc]def"));
+        assertEquals(ngrams("\0a.", "a.b"), WildcardFieldMapper.regexpNGrams("a\\.b.*"));
+        assertEquals(ngrams("xyz"), WildcardFieldMapper.regexpNGrams("\"abc\"xyz<1-5>"));
+        // an optional supplementary code point is removed as a whole
+        assertEquals(ngrams("\0ab", "cde", "de\0"), WildcardFieldMapper.regexpNGrams("ab😀?cde"));
+        // alternations, complements and intersections can't require any literal
+        assertEquals(ngrams(), WildcardFieldMapper.regexpNGrams("abc|def"));
+        assertEquals(ngrams(), WildcardFieldMapper.regexpNGrams("~abc"));
+        assertEquals(ngrams(), WildcardFieldMapper.regexpNGrams("abc&.*"));
+    }
+
+    public void testQueries() {
+        MappedFieldType ft = createDefaultFieldType();
+        ft.setName("field");
+        ft.setIndexOptions(IndexOptions.DOCS);
+
+        VerifyingQuery query = (VerifyingQuery) ft.wildcardQuery("*foo*", null, null);
+        assertEquals(new BooleanQuery.Builder().add(new TermQuery(new Term("field", "foo")), Occur.FILTER).build(),
+            query.getApproximation());
+        assertEquals(query, ft.wildcardQuery("*foo*", null, null));
+        assertNotEquals(query, ft.wildcardQuery("*fooo*", null, null));
+        assertEquals("field:*foo*", query.toString());
+
+        query = (VerifyingQuery) ft.regexpQuery("f.*", RegExp.ALL, 10000, null, null);
+        assertEquals(new DocValuesFieldExistsQuery("field"), query.getApproximation());
+        assertEquals("field:/f.*/", query.toString());
+        assertEquals(query, ft.regexpQuery("f.*", RegExp.ALL, 10000, null, null));
+        // same pattern and approximation, but the flags change what matches
+        assertNotEquals(ft.regexpQuery("f<1-5>", RegExp.ALL, 10000, null, null), ft.regexpQuery("f<1-5>", RegExp.NONE, 10000, null, null));
+
+        query = (VerifyingQuery) ft.prefixQuery("foo", null, null);
+        assertEquals(new BooleanQuery.Builder()
+            .add(new TermQuery(new Term("field", "\0fo")), Occur.FILTER)
+            .add(new TermQuery(new Term("field", "foo")), Occur.FILTER)
+            .build(), query.getApproximation());
+
+        query = (VerifyingQuery) ft.termQuery("a", null);
+        assertEquals(new BooleanQuery.Builder().add(new TermQuery(new Term("field", "\0a\0")), Occur.FILTER).build(),
+            query.getApproximation());
+
+        ft.setIndexOptions(IndexOptions.NONE);
+        IllegalArgumentException e = expectThrows(IllegalArgumentException.class, () -> ft.wildcardQuery("*foo*", null, null));
+        assertEquals("Cannot search on field [field] since it is not indexed.", e.getMessage());
+    }
+}
@@ -0,0 +1,160 @@
+/*
+ * Licensed to Elasticsearch under one or more contributor
+ * license agreements. See the NOTICE file distributed with
+ * this work for additional information regarding copyright
+ * ownership. Elasticsearch licenses this file to you under
+ * the Apache License, Version 2.0 (the "License"); you may
+ * not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.elasticsearch.index.query;
+
+import org.apache.lucene.search.MatchNoDocsQuery;
+import org.apache.lucene.search.Query;
+import org.elasticsearch.action.admin.indices.mapping.put.PutMappingRequest;
+import org.elasticsearch.common.ParsingException;
+import org.elasticsearch.common.compress.CompressedXContent;
+import org.elasticsearch.index.mapper.MapperService;
+import org.elasticsearch.index.search.VectorSimilarityQuery;
+import org.elasticsearch.search.internal.SearchContext;
+import org.elasticsearch.test.AbstractQueryTestCase;
+
+import java.io.IOException;
+
+import static org.hamcrest.Matchers.containsString;
+import static org.hamcrest.Matchers.equalTo;
+import static org.hamcrest.Matchers.instanceOf;
+import static org.hamcrest.Matchers.notNullValue;
+import static org.hamcrest.Matchers.nullValue;
+
+public class VectorSimilarityQueryBuilderTests extends AbstractQueryTestCase<VectorSimilarityQueryBuilder> {
+
+    private static final String VECTOR_TYPE = "vector_type";
+    private static final String VECTOR_FIELD_NAME = "mapped_dense_vector";
+    private static final int DIMS = 4;
+
+    @Override
+    protected void initializeAdditionalMappings(MapperService mapperService) throws IOException {
+        mapperService.merge(VECTOR_TYPE, new CompressedXContent(PutMappingRequest.buildFromSimplifiedDef(VECTOR_TYPE,
+            VECTOR_FIELD_NAME, "type=dense_vector,dims=" + DIMS).string()), MapperService.MergeReason.MAPPING_UPDATE, false);
+    }
+
+    @Override
+    protected VectorSimilarityQueryBuilder doCreateTestQueryBuilder() {
+        float[] queryVector = new float[DIMS];
+        for (int i = 0; i < DIMS; i++) {
+            // cosine is undefined for a query vector whose magnitude is 0
+            queryVector[i] = 1 + randomFloat();
+        }
+        VectorSimilarityQueryBuilder builder = new VectorSimilarityQueryBuilder(VECTOR_FIELD_NAME, queryVector);
+        if (randomBoolean()) {
+            builder.similarity(randomFrom(VectorSimilarityQuery.Similarity.values()));
+        }
+        if (randomBoolean()) {
+            builder.filter(RandomQueryBuilder.createQuery(random()));
+        }
+        return builder;
+    }
+
+    @Override
+    protected void doAssertLuceneQuery(VectorSimilarityQueryBuilder queryBuilder, Query query, SearchContext context) throws IOException {
+        assertThat(query, instanceOf(VectorSimilarityQuery.class));
+        VectorSimilarityQuery vectorQuery = (VectorSimilarityQuery) query;
+        assertThat(vectorQuery.getField(), equalTo(VECTOR_FIELD_NAME));
+        assertArrayEquals(queryBuilder.queryVector(), vectorQuery.getQueryVector(), 0f);
+        assertThat(vectorQuery.getSimilarity(), equalTo(queryBuilder.similarity()));
+        Query filter = queryBuilder.filter() == null ? null : queryBuilder.filter().toFilter(context.getQueryShardContext());
+        if (filter == null) {
+            assertThat(vectorQuery.getFilter(), nullValue());
+        } else {
+            assertThat(vectorQuery.getFilter(), notNullValue());
+            assertThat(vectorQuery.getFilter(), instanceOf(filter.getClass()));
+        }
+    }
+
+    public void testFromJson() throws IOException {
+        String json =
+            "{\n" +
+            "  \"vector_similarity\" : {\n" +
+            "    \"field\" : \"embedding\",\n" +
+            "    \"query_vector\" : [ 0.5, -1.0, 2.0 ],\n" +
+            "    \"similarity\" : \"dot_product\",\n" +
+            "    \"filter\" : {\n" +
+            "      \"term\" : {\n" +
+            "        \"category\" : {\n" +
+            "          \"value\" : \"shoes\",\n" +
+            "          \"boost\" : 1.0\n" +
+            "        }\n" +
+            "      }\n" +
+            "    },\n" +
+            "    \"ignore_unmapped\" : false,\n" +
+            "    \"boost\" : 2.0,\n" +
+            "    \"_name\" : \"name\"\n" +
+            "  }\n" +
+            "}";
+        VectorSimilarityQueryBuilder parsed = (VectorSimilarityQueryBuilder) parseQuery(json);
+        checkGeneratedJson(json, parsed);
+        assertEquals(json, "embedding", parsed.fieldName());
+        assertArrayEquals(new float[] {0.5f, -1f, 2f}, parsed.queryVector(), 0f);
+        assertEquals(json, VectorSimilarityQuery.Similarity.DOT_PRODUCT, parsed.similarity());
+        assertEquals(json, new TermQueryBuilder("category", "shoes"), parsed.filter());
+        assertEquals(json, 2.0, parsed.boost(), 0.0001);
+    }
+
+    public void testParsingErrors() throws IOException {
+        ParsingException e = expectThrows(ParsingException.class,
+            () -> parseQuery("{\"vector_similarity\" : {\"query_vector\" : [1, 2]}}"));
+        assertThat(e.getMessage(), containsString("requires [field] to be set"));
+        e = expectThrows(ParsingException.class, () -> parseQuery("{\"vector_similarity\" : {\"field\" : \"embedding\"}}"));
+        assertThat(e.getMessage(), containsString("requires a non-empty [query_vector]"));
+        e = expectThrows(ParsingException.class,
+            () -> parseQuery("{\"vector_similarity\" : {\"field\" : \"embedding\", \"query_vector\" : [1, \"a\"]}}"));
+        assertThat(e.getMessage(), containsString("query vector must only contain numbers"));
+        e = expectThrows(ParsingException.class,
+            () -> parseQuery("{\"vector_similarity\" : {\"field\" : \"embedding\", \"query_vector\" : [1], \"similarity\" : \"l2\"}}"));
+        assertThat(e.getMessage(), containsString("unknown vector similarity [l2]"));
+    }
+
+    public void testIllegalArguments() {
+        expectThrows(IllegalArgumentException.class, () -> new VectorSimilarityQueryBuilder(null, new float[] {1}));
+        expectThrows(IllegalArgumentException.class, () -> new VectorSimilarityQueryBuilder("field", null));
+        expectThrows(IllegalArgumentException.class, () -> new VectorSimilarityQueryBuilder("field", new float[0]));
+    }
+
+    public void testInvalidQueries() throws IOException {
+        VectorSimilarityQueryBuilder builder = new VectorSimilarityQueryBuilder(VECTOR_FIELD_NAME, new float[] {1, 2});
+        QueryShardException e = expectThrows(QueryShardException.class, () -> builder.toQuery(createShardContext()));
+        assertThat(e.getMessage(), containsString("the query vector has [2] dimensions"));
+
+        VectorSimilarityQueryBuilder zeroBuilder = new VectorSimilarityQueryBuilder(VECTOR_FIELD_NAME, new float[DIMS]);
+        e = expectThrows(QueryShardException.class, () -> zeroBuilder.toQuery(createShardContext()));
+        assertThat(e.getMessage(), containsString("undefined for a query vector whose magnitude is 0"));
+        zeroBuilder.similarity(VectorSimilarityQuery.Similarity.DOT_PRODUCT);
+        assertThat(zeroBuilder.toQuery(createShardContext()), instanceOf(VectorSimilarityQuery.class));
+
+        assumeTrue("test runs only when at least a type is registered", getCurrentTypes().length > 0);
+        VectorSimilarityQueryBuilder textBuilder = new VectorSimilarityQueryBuilder(STRING_FIELD_NAME, new float[] {1, 2});
+        e = expectThrows(QueryShardException.class, () -> textBuilder.toQuery(createShardContext()));
+        assertThat(e.getMessage(), containsString("is not a dense_vector field"));
+    }
+
+    public void testIgnoreUnmapped() throws IOException {
+        final VectorSimilarityQueryBuilder queryBuilder = new VectorSimilarityQueryBuilder("unmapped", new float[] {1, 2});
+        queryBuilder.ignoreUnmapped(true);
+        assertThat(queryBuilder.toQuery(createShardContext()), instanceOf(MatchNoDocsQuery.class));
+
+        final VectorSimilarityQueryBuilder failingQueryBuilder = new VectorSimilarityQueryBuilder("unmapped", new float[] {1, 2});
+        QueryShardException e = expectThrows(QueryShardException.class, () -> failingQueryBuilder.toQuery(createShardContext()));
+        assertThat(e.getMessage(), containsString("failed to find dense_vector field [unmapped]"));
+    }
+}
@@ -0,0 +1,170 @@
+/*
+ * Licensed to Elasticsearch under one or more contributor
+ * license agreements. See the NOTICE file distributed with
+ * this work for additional information regarding copyright
+ * ownership. Elasticsearch licenses this file to you under
+ * the Apache License, Version 2.0 (the "License"); you may
+ * not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.elasticsearch.index.search;
+
+import org.apache.lucene.document.Document;
+import org.apache.lucene.document.Field;
+import org.apache.lucene.document.SortedSetDocValuesField;
+import org.apache.lucene.document.StringField;
+import org.apache.lucene.index.IndexReader;
+import org.apache.lucene.index.LeafReaderContext;
+import org.apache.lucene.index.PrefixCodedTerms;
+import org.apache.lucene.index.RandomIndexWriter;
+import org.apache.lucene.index.Term;
+import org.apache.lucene.search.BooleanClause.Occur;
+import org.apache.lucene.search.BooleanQuery;
+import org.apache.lucene.search.DocIdSetIterator;
+import org.apache.lucene.search.IndexSearcher;
+import org.apache.lucene.search.MatchNoDocsQuery;
+import org.apache.lucene.search.Query;
+import org.apache.lucene.search.QueryUtils;
+import org.apache.lucene.search.ScorerSupplier;
+import org.apache.lucene.search.TermInSetQuery;
+import org.apache.lucene.search.TermQuery;
+import org.apache.lucene.search.Weight;
+import org.apache.lucene.store.Directory;
+import org.apache.lucene.util.BytesRef;
+import org.apache.lucene.util.FixedBitSet;
+import org.elasticsearch.test.ESTestCase;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+public class PrefixCodedTermsQueryTests extends ESTestCase {
+
+    private static List<BytesRef> toList(PrefixCodedTerms terms) {
+        List<BytesRef> list = new ArrayList<>();
+        PrefixCodedTerms.TermIterator iterator = terms.iterator();
+        for (BytesRef term = iterator.next(); term != null; term = iterator.next()) {
+            list.add(BytesRef.deepCopyOf(term));
+        }
+        return list;
+    }
+
+    private static BytesRef[] randomTerms(int numTerms, int maxTerm) {
+        BytesRef[] terms = new BytesRef[numTerms];
+        for (int i = 0; i < numTerms; i++) {
+            terms[i] = new BytesRef("t" + randomIntBetween(0, maxTerm));
+        }
+        return terms;
+    }
+
+    public void testEncode() {
+        PrefixCodedTerms terms = PrefixCodedTermsQuery.encode(
+            new BytesRef[] {new BytesRef("b"), new BytesRef("ab"), new BytesRef("b"), new BytesRef("aa"), new BytesRef("")});
+        assertEquals(4, terms.size());
+        assertEquals(Arrays.asList(new BytesRef(""), new BytesRef("aa"), new BytesRef("ab"), new BytesRef("b")), toList(terms));
+        assertEquals(0, PrefixCodedTermsQuery.encode(new BytesRef[0]).size());
+    }
+
+    public void testMatchesLikeTermInSetQuery() throws IOException {
+        int maxTerm = randomIntBetween(10, 1000);
+        boolean hasDocValues = randomBoolean();
+        try (Directory dir = newDirectory(); RandomIndexWriter writer = new RandomIndexWriter(random(), dir)) {
+            int numDocs = randomIntBetween(100, 1000);
+            for (int i = 0; i < numDocs; i++) {
+                Document document = new Document();
+                int numValues = randomIntBetween(0, 3);
+                for (int j = 0; j < numValues; j++) {
+                    BytesRef value = new BytesRef("t" + randomIntBetween(0, maxTerm));
+                    document.add(new StringField("field", value, Field.Store.NO));
+                    if (hasDocValues) {
+                        document.add(new SortedSetDocValuesField("field", value));
+                    }
+                }
+                document.add(new StringField("group", Integer.toString(randomIntBetween(0, 9)), Field.Store.NO));
+                writer.addDocument(document);
+            }
+            try (IndexReader reader = writer.getReader()) {
+                IndexSearcher searcher = newSearcher(reader);
+                for (int iter = 0; iter < 10; iter++) {
+                    // small sets are intersected with the postings, large ones checked against the doc values
+                    BytesRef[] terms = randomTerms(randomFrom(1, 5, randomIntBetween(1, maxTerm * 2)), maxTerm);
+                    Query query = new PrefixCodedTermsQuery("field", PrefixCodedTermsQuery.encode(terms), hasDocValues);
+                    Query expected = new TermInSetQuery("field", terms);
+                    assertEquals(searcher.count(expected), searcher.count(query));
+                    QueryUtils.check(random(), query, searcher);
+
+                    // in a conjunction, the doc values only check the documents that the leading clause matches
+                    Query group = new TermQuery(new Term("group", Integer.toString(randomIntBetween(0, 9))));
+                    Query filtered = new BooleanQuery.Builder().add(group, Occur.MUST).add(query, Occur.FILTER).build();
+                    Query expectedFiltered = new BooleanQuery.Builder().add(group, Occur.MUST).add(expected, Occur.FILTER).build();
+                    assertEquals(searcher.count(expectedFiltered), searcher.count(filtered));
+                }
+            }
+        }
+    }
+
+    public void testScorerSupplier() throws IOException {
+        try (Directory dir = newDirectory(); RandomIndexWriter writer = new RandomIndexWriter(random(), dir)) {
+            int numDocs = randomIntBetween(100, 500);
+            for (int i = 0; i < numDocs; i++) {
+                Document document = new Document();
+                BytesRef value = new BytesRef("t" + randomIntBetween(0, 100));
+                document.add(new StringField("field", value, Field.Store.NO));
+                document.add(new SortedSetDocValuesField("field", value));
+                writer.addDocument(document);
+            }
+            try (IndexReader reader = writer.getReader()) {
+                IndexSearcher searcher = newSearcher(reader);
+                Query query = new PrefixCodedTermsQuery("field", PrefixCodedTermsQuery.encode(randomTerms(5, 100)), true);
+                Weight weight = searcher.createNormalizedWeight(query, false);
+                for (LeafReaderContext context : searcher.getIndexReader().leaves()) {
+                    // the postings and doc values of a segment match the same documents
+                    assertEquals(matches(weight, context, false), matches(weight, context, true));
+                }
+            }
+        }
+    }
+
+    private static FixedBitSet matches(Weight weight, LeafReaderContext context, boolean randomAccess) throws IOException {
+        FixedBitSet matches = new FixedBitSet(context.reader().maxDoc());
+        ScorerSupplier scorerSupplier = weight.scorerSupplier(context);
+        if (scorerSupplier == null) {
+            return matches;
+        }
+        DocIdSetIterator iterator = scorerSupplier.get(randomAccess).iterator();
+        for (int doc = iterator.nextDoc(); doc != DocIdSetIterator.NO_MORE_DOCS; doc = iterator.nextDoc()) {
+            matches.set(doc);
+        }
+        return matches;
+    }
+
+    public void testRewriteEmptySet() throws IOException {
+        Query query = new PrefixCodedTermsQuery("field", PrefixCodedTermsQuery.encode(new BytesRef[0]), randomBoolean());
+        assertEquals(new MatchNoDocsQuery(), query.rewrite(null));
+    }
+
+    public void testEquals() {
+        PrefixCodedTerms terms = PrefixCodedTermsQuery.encode(new BytesRef[] {new BytesRef("a"), new BytesRef("b")});
+        PrefixCodedTermsQuery query = new PrefixCodedTermsQuery("field", terms, true);
+        QueryUtils.checkEqual(query, new PrefixCodedTermsQuery("field", terms, true));
+        QueryUtils.checkEqual(query, new PrefixCodedTermsQuery("field",
+            PrefixCodedTermsQuery.encode(new BytesRef[] {new BytesRef("b"), new BytesRef("a")}), true));
+        QueryUtils.checkUnequal(query, new PrefixCodedTermsQuery("other", terms, true));
+        QueryUtils.checkUnequal(query, new PrefixCodedTermsQuery("field", terms, false));
+        QueryUtils.checkUnequal(query, new PrefixCodedTermsQuery("field",
+            PrefixCodedTermsQuery.encode(new BytesRef[] {new BytesRef("a")}), true));
+        assertEquals("field:(a b)", query.toString());
+        assertEquals("(a b)", query.toString("field"));
+    }
+}
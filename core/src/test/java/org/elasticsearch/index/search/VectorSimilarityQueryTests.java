@@ -0,0 +1,156 @@
+/*
+ * Licensed to Elasticsearch under one or more contributor
+ * license agreements. See the NOTICE file distributed with
+ * this work for additional information regarding copyright
+ * ownership. Elasticsearch licenses this file to you under
+ * the Apache License, Version 2.0 (the "License"); you may
+ * not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.elasticsearch.index.search;
+
+import org.apache.lucene.document.BinaryDocValuesField;
+import org.apache.lucene.document.Document;
+import org.apache.lucene.document.Field;
+import org.apache.lucene.document.StringField;
+import org.apache.lucene.index.IndexReader;
+import org.apache.lucene.index.RandomIndexWriter;
+import org.apache.lucene.index.Term;
+import org.apache.lucene.search.Explanation;
+import org.apache.lucene.search.IndexSearcher;
+import org.apache.lucene.search.Query;
+import org.apache.lucene.search.QueryUtils;
+import org.apache.lucene.search.ScoreDoc;
+import org.apache.lucene.search.TermQuery;
+import org.apache.lucene.search.TopDocs;
+import org.apache.lucene.store.Directory;
+import org.apache.lucene.util.BytesRef;
+import org.elasticsearch.test.ESTestCase;
+
+import java.io.IOException;
+
+public class VectorSimilarityQueryTests extends ESTestCase {
+
+    private static BytesRef encode(float[] vector) {
+        byte[] bytes = new byte[VectorSimilarityQuery.encodedLength(vector.length)];
+        double squaredMagnitude = 0;
+        for (int i = 0; i < vector.length; i++) {
+            VectorSimilarityQuery.encodeFloat(vector[i], bytes, i);
+            squaredMagnitude += (double) vector[i] * vector[i];
+        }
+        VectorSimilarityQuery.encodeFloat((float) Math.sqrt(squaredMagnitude), bytes, vector.length);
+        return new BytesRef(bytes);
+    }
+
+    private static float[] randomVector(int dims) {
+        float[] vector = new float[dims];
+        for (int i = 0; i < dims; i++) {
+            vector[i] = randomFloat() * 2 - 1;
+        }
+        return vector;
+    }
+
+    private static double expectedScore(float[] queryVector, float[] vector, VectorSimilarityQuery.Similarity similarity) {
+        double dotProduct = 0, queryMagnitude = 0, magnitude = 0;
+        for (int i = 0; i < vector.length; i++) {
+            dotProduct += (double) queryVector[i] * vector[i];
+            queryMagnitude += (double) queryVector[i] * queryVector[i];
+            magnitude += (double) vector[i] * vector[i];
+        }
+        if (similarity == VectorSimilarityQuery.Similarity.COSINE) {
+            return (1 + dotProduct / Math.sqrt(queryMagnitude * magnitude)) / 2;
+        }
+        return (1 + dotProduct) / 2;
+    }
+
+    public void testDecodeAndDotProduct() {
+        // covers both the unrolled loop and the remaining dimensions
+        int dims = randomIntBetween(1, 67);
+        float[] queryVector = randomVector(dims);
+        float[] vector = randomVector(dims);
+        float[] decoded = new float[dims + 1];
+        VectorSimilarityQuery.decode(encode(vector), decoded);
+        double expected = 0;
+        for (int i = 0; i < dims; i++) {
+            assertEquals(vector[i], decoded[i], 0f);
+            expected += (double) queryVector[i] * vector[i];
+        }
+        assertEquals(expected, VectorSimilarityQuery.dotProduct(queryVector, decoded), 1e-4);
+    }
+
+    public void testScores() throws IOException {
+        final int dims = randomIntBetween(1, 20);
+        final int numDocs = randomIntBetween(1, 200);
+        float[][] vectors = new float[numDocs][];
+        try (Directory dir = newDirectory(); RandomIndexWriter w = new RandomIndexWriter(random(), dir)) {
+            for (int i = 0; i < numDocs; i++) {
+                Document doc = new Document();
+                doc.add(new StringField("id", Integer.toString(i), Field.Store.YES));
+                doc.add(new StringField("even", Boolean.toString(i % 2 == 0), Field.Store.NO));
+                if (rarely() == false) {
+                    vectors[i] = randomVector(dims);
+                    doc.add(new BinaryDocValuesField("vector", encode(vectors[i])));
+                }
+                w.addDocument(doc);
+            }
+            try (IndexReader reader = w.getReader()) {
+                IndexSearcher searcher = newSearcher(reader);
+                float[] queryVector = randomVector(dims);
+                for (VectorSimilarityQuery.Similarity similarity : VectorSimilarityQuery.Similarity.values()) {
+                    Query filter = randomBoolean() ? null : new TermQuery(new Term("even", "true"));
+                    VectorSimilarityQuery query = new VectorSimilarityQuery("vector", queryVector, similarity, filter);
+                    QueryUtils.check(random(), query, searcher);
+
+                    int expectedHits = 0;
+                    for (int i = 0; i < numDocs; i++) {
+                        if (vectors[i] != null && (filter == null || i % 2 == 0)) {
+                            expectedHits++;
+                        }
+                    }
+                    TopDocs topDocs = searcher.search(query, numDocs);
+                    assertEquals(expectedHits, topDocs.totalHits);
+                    for (ScoreDoc scoreDoc : topDocs.scoreDocs) {
+                        int id = Integer.parseInt(searcher.doc(scoreDoc.doc).get("id"));
+                        assertNotNull(vectors[id]);
+                        assertEquals(expectedScore(queryVector, vectors[id], similarity), scoreDoc.score, 1e-4);
+                        Explanation explanation = searcher.explain(query, scoreDoc.doc);
+                        assertTrue(explanation.isMatch());
+                        assertEquals(scoreDoc.score, explanation.getValue(), 0f);
+                    }
+                }
+            }
+        }
+    }
+
+    public void testEquals() {
+        float[] vector = new float[] {1, 2, 3};
+        Query q1 = new VectorSimilarityQuery("field", vector, VectorSimilarityQuery.Similarity.COSINE, null);
+        Query q2 = new VectorSimilarityQuery("field", new float[] {1, 2, 3}, VectorSimilarityQuery.Similarity.COSINE, null);
+        assertEquals(q1, q2);
+        assertEquals(q1.hashCode(), q2.hashCode());
+
+        assertNotEquals(q1, new VectorSimilarityQuery("other", vector, VectorSimilarityQuery.Similarity.COSINE, null));
+        assertNotEquals(q1, new VectorSimilarityQuery("field", new float[] {1, 2, 4}, VectorSimilarityQuery.Similarity.COSINE, null));
+        assertNotEquals(q1, new VectorSimilarityQuery("field", vector, VectorSimilarityQuery.Similarity.DOT_PRODUCT, null));
+        assertNotEquals(q1, new VectorSimilarityQuery("field", vector, VectorSimilarityQuery.Similarity.COSINE,
+            new TermQuery(new Term("foo", "bar"))));
+    }
+
+    public void testSimilarityFromString() {
+        assertSame(VectorSimilarityQuery.Similarity.COSINE, VectorSimilarityQuery.Similarity.fromString("cosine"));
+        assertSame(VectorSimilarityQuery.Similarity.DOT_PRODUCT, VectorSimilarityQuery.Similarity.fromString("dot_product"));
+        IllegalArgumentException e = expectThrows(IllegalArgumentException.class,
+            () -> VectorSimilarityQuery.Similarity.fromString("euclidean"));
+        assertEquals("unknown vector similarity [euclidean], expected one of [cosine, dot_product]", e.getMessage());
+    }
+}
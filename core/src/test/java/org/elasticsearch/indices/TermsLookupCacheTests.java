@@ -0,0 +1,269 @@
+/*
+ * Licensed to Elasticsearch under one or more contributor
+ * license agreements. See the NOTICE file distributed with
+ * this work for additional information regarding copyright
+ * ownership. Elasticsearch licenses this file to you under
+ * the Apache License, Version 2.0 (the "License"); you may
+ * not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.elasticsearch.indices;
+
+import org.apache.lucene.index.PrefixCodedTerms;
+import org.apache.lucene.util.BytesRef;
+import org.elasticsearch.Version;
+import org.elasticsearch.action.Action;
+import org.elasticsearch.action.ActionListener;
+import org.elasticsearch.action.ActionRequest;
+import org.elasticsearch.action.ActionRequestBuilder;
+import org.elasticsearch.action.ActionResponse;
+import org.elasticsearch.action.get.GetAction;
+import org.elasticsearch.action.get.GetRequest;
+import org.elasticsearch.action.get.GetResponse;
+import org.elasticsearch.cluster.ClusterChangedEvent;
+import org.elasticsearch.cluster.ClusterName;
+import org.elasticsearch.cluster.ClusterState;
+import org.elasticsearch.cluster.metadata.IndexMetaData;
+import org.elasticsearch.cluster.metadata.MetaData;
+import org.elasticsearch.common.lucene.uid.Versions;
+import org.elasticsearch.common.settings.Settings;
+import org.elasticsearch.common.xcontent.XContentBuilder;
+import org.elasticsearch.common.xcontent.XContentFactory;
+import org.elasticsearch.index.engine.VersionConflictEngineException;
+import org.elasticsearch.index.get.GetResult;
+import org.elasticsearch.index.query.QueryBuilder;
+import org.elasticsearch.index.query.QueryRewriteContext;
+import org.elasticsearch.index.query.TermsQueryBuilder;
+import org.elasticsearch.index.shard.ShardId;
+import org.elasticsearch.test.ESTestCase;
+import org.elasticsearch.test.client.NoOpClient;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+import static org.hamcrest.Matchers.greaterThan;
+import static org.hamcrest.Matchers.instanceOf;
+
+public class TermsLookupCacheTests extends ESTestCase {
+
+    /**
+     * A client that answers the gets of a single document whose source holds an array of terms under <code>terms</code>.
+     */
+    private static class LookupClient extends NoOpClient {
+        String[] terms = new String[] {"b", "a", "c", "a"};
+        long version = 1;
+        boolean exists = true;
+        long versionOfNextSourceGet = -1;
+        int sourceGets = 0;
+
+        LookupClient(String testName) {
+            super(testName);
+        }
+
+        @Override
+        @SuppressWarnings("unchecked")
+        protected <Request extends ActionRequest,
+                        Response extends ActionResponse,
+                        RequestBuilder extends ActionRequestBuilder<Request, Response, RequestBuilder>>
+                void doExecute(Action<Request, Response, RequestBuilder> action, Request request, ActionListener<Response> listener) {
+            assertSame(GetAction.INSTANCE, action);
+            GetRequest getRequest = (GetRequest) request;
+            if (exists == false) {
+                listener.onResponse((Response) new GetResponse(
+                    new GetResult("lookup", getRequest.type(), getRequest.id(), -1, false, null, null)));
+                return;
+            }
+            if (getRequest.fetchSourceContext().fetchSource() == false) {
+                listener.onResponse((Response) new GetResponse(
+                    new GetResult("lookup", getRequest.type(), getRequest.id(), version, true, null, null)));
+                return;
+            }
+            sourceGets++;
+            if (versionOfNextSourceGet != -1) {
+                // the document is updated between the get of its version and the get of its source
+                version = versionOfNextSourceGet;
+                versionOfNextSourceGet = -1;
+            }
+            if (getRequest.version() != Versions.MATCH_ANY && getRequest.version() != version) {
+                listener.onFailure(new VersionConflictEngineException(new ShardId("lookup", "_na_", 0), getRequest.type(),
+                    getRequest.id(), "current version [" + version + "] is different than [" + getRequest.version() + "]"));
+                return;
+            }
+            try {
+                XContentBuilder builder = XContentFactory.jsonBuilder().startObject().array("terms", terms).endObject();
+                listener.onResponse((Response) new GetResponse(
+                    new GetResult("lookup", getRequest.type(), getRequest.id(), version, true, builder.bytes(), null)));
+            } catch (IOException e) {
+                listener.onFailure(e);
+            }
+        }
+    }
+
+    private static List<String> toList(PrefixCodedTerms terms) {
+        List<String> list = new ArrayList<>();
+        PrefixCodedTerms.TermIterator iterator = terms.iterator();
+        for (BytesRef term = iterator.next(); term != null; term = iterator.next()) {
+            list.add(term.utf8ToString());
+        }
+        return list;
+    }
+
+    public void testLookup() {
+        TermsLookupCache cache = new TermsLookupCache(Settings.EMPTY);
+        TermsLookup termsLookup = new TermsLookup("lookup", "type", "1", "terms");
+        try (LookupClient client = new LookupClient(getTestName())) {
+            PrefixCodedTerms terms = cache.lookup(termsLookup, client);
+            assertEquals(Arrays.asList("a", "b", "c"), toList(terms));
+            assertEquals(1, client.sourceGets);
+            assertEquals(1, cache.count());
+
+            // the same version of the document is taken from the cache, by any query that uses it
+            assertSame(terms, cache.lookup(termsLookup, client));
+            assertSame(terms, cache.lookup(new TermsLookup(termsLookup), client));
+            assertEquals(1, client.sourceGets);
+
+            // a lookup on another path or routing is another entry
+            cache.lookup(new TermsLookup("lookup", "type", "1", "other"), client);
+            cache.lookup(new TermsLookup("lookup", "type", "1", "terms").routing("r"), client);
+            assertEquals(3, client.sourceGets);
+            assertEquals(3, cache.count());
+
+            // a new version of the document is fetched again
+            client.terms = new String[] {"d"};
+            client.version = 2;
+            assertEquals(Arrays.asList("d"), toList(cache.lookup(termsLookup, client)));
+            assertEquals(4, client.sourceGets);
+            assertEquals(4, cache.count());
+        }
+    }
+
+    public void testMissingDocument() {
+        TermsLookupCache cache = new TermsLookupCache(Settings.EMPTY);
+        try (LookupClient client = new LookupClient(getTestName())) {
+            client.exists = false;
+            assertEquals(0, cache.lookup(new TermsLookup("lookup", "type", "1", "terms"), client).size());
+            assertEquals(0, client.sourceGets);
+            assertEquals(0, cache.count());
+        }
+    }
+
+    public void testDocumentUpdatedDuringLookup() {
+        TermsLookupCache cache = new TermsLookupCache(Settings.EMPTY);
+        TermsLookup termsLookup = new TermsLookup("lookup", "type", "1", "terms");
+        try (LookupClient client = new LookupClient(getTestName())) {
+            client.versionOfNextSourceGet = 2;
+            client.terms = new String[] {"x", "y"};
+            // the terms of the new version are returned but not cached under the version the lookup started with
+            assertEquals(Arrays.asList("x", "y"), toList(cache.lookup(termsLookup, client)));
+            assertEquals(2, client.sourceGets);
+            assertEquals(0, cache.count());
+
+            assertEquals(Arrays.asList("x", "y"), toList(cache.lookup(termsLookup, client)));
+            assertEquals(3, client.sourceGets);
+            assertEquals(1, cache.count());
+        }
+    }
+
+    public void testInvalidateDeletedIndices() {
+        TermsLookupCache cache = new TermsLookupCache(Settings.EMPTY);
+        try (LookupClient client = new LookupClient(getTestName())) {
+            cache.lookup(new TermsLookup("lookup", "type", "1", "terms"), client);
+            assertEquals(1, cache.count());
+        }
+        Settings indexSettings = Settings.builder().put(IndexMetaData.SETTING_VERSION_CREATED, Version.CURRENT).build();
+        MetaData metaData = MetaData.builder()
+            .put(IndexMetaData.builder("lookup").settings(indexSettings).numberOfShards(1).numberOfReplicas(0))
+            .put(IndexMetaData.builder("other").settings(indexSettings).numberOfShards(1).numberOfReplicas(0))
+            .build();
+        ClusterState previousState = ClusterState.builder(ClusterName.CLUSTER_NAME_SETTING.getDefault(Settings.EMPTY))
+            .metaData(metaData).build();
+
+        ClusterState otherDeleted = ClusterState.builder(previousState).metaData(MetaData.builder(metaData).remove("other")).build();
+        cache.clusterChanged(new ClusterChangedEvent("test", otherDeleted, previousState));
+        assertEquals(1, cache.count());
+
+        ClusterState lookupDeleted = ClusterState.builder(otherDeleted)
+            .metaData(MetaData.builder(otherDeleted.metaData()).remove("lookup")).build();
+        cache.clusterChanged(new ClusterChangedEvent("test", lookupDeleted, otherDeleted));
+        assertEquals(0, cache.count());
+    }
+
+    public void testExpiry() throws Exception {
+        TermsLookupCache cache = new TermsLookupCache(
+            Settings.builder().put(TermsLookupCache.INDICES_CACHE_TERMS_LOOKUP_EXPIRE.getKey(), "1ms").build());
+        TermsLookup termsLookup = new TermsLookup("lookup", "type", "1", "terms");
+        try (LookupClient client = new LookupClient(getTestName())) {
+            cache.lookup(termsLookup, client);
+            assertEquals(1, client.sourceGets);
+            assertBusy(() -> {
+                cache.cleanCache();
+                assertEquals(0, cache.count());
+            });
+
+            // content indexed again under the same version, e.g. with external_gte, is fetched once the entry expired
+            client.terms = new String[] {"d"};
+            assertEquals(Arrays.asList("d"), toList(cache.lookup(termsLookup, client)));
+            assertEquals(2, client.sourceGets);
+        }
+    }
+
+    public void testClear() {
+        TermsLookupCache cache = new TermsLookupCache(Settings.EMPTY);
+        try (LookupClient client = new LookupClient(getTestName())) {
+            cache.lookup(new TermsLookup("lookup", "type", "1", "terms"), client);
+            assertEquals(1, cache.count());
+            cache.clear(Collections.singleton("other"));
+            assertEquals(1, cache.count());
+            cache.clear(Collections.singleton("lookup"));
+            assertEquals(0, cache.count());
+        }
+    }
+
+    public void testStats() {
+        TermsLookupCache cache = new TermsLookupCache(Settings.EMPTY);
+        TermsLookup termsLookup = new TermsLookup("lookup", "type", "1", "terms");
+        try (LookupClient client = new LookupClient(getTestName())) {
+            TermsLookupCacheStats stats = cache.stats();
+            assertEquals(0, stats.getCount());
+            assertEquals(0, stats.getMemorySizeInBytes());
+
+            PrefixCodedTerms terms = cache.lookup(termsLookup, client);
+            cache.lookup(termsLookup, client);
+            cache.lookup(termsLookup, client);
+            stats = cache.stats();
+            assertEquals(1, stats.getCount());
+            assertEquals(1, stats.getMissCount());
+            assertEquals(2, stats.getHitCount());
+            assertEquals(0, stats.getEvictions());
+            assertThat(stats.getMemorySizeInBytes(), greaterThan(terms.ramBytesUsed()));
+        }
+    }
+
+    public void testRewriteTermsQuery() throws IOException {
+        TermsLookupCache cache = new TermsLookupCache(Settings.EMPTY);
+        try (LookupClient client = new LookupClient(getTestName())) {
+            QueryRewriteContext context = new QueryRewriteContext(null, null, null, xContentRegistry(), client, null, () -> 0L, cache);
+            TermsQueryBuilder query = new TermsQueryBuilder("field", new TermsLookup("lookup", "type", "1", "terms"));
+            for (int i = 0; i < 3; i++) {
+                QueryBuilder rewritten = QueryBuilder.rewriteQuery(query, context);
+                assertThat(rewritten, instanceOf(TermsQueryBuilder.class));
+                assertEquals(Arrays.asList("a", "b", "c"), ((TermsQueryBuilder) rewritten).values());
+                assertEquals(new TermsQueryBuilder("field", "a", "b", "c"), rewritten);
+            }
+            assertEquals(1, client.sourceGets);
+        }
+    }
+}
@@ -130,6 +130,12 @@ public class IndicesClusterStateServiceRandomUpdatesTests extends AbstractIndice
                     throw error;
                 }
 
+                // shards are created asynchronously, randomly let the next cluster state be applied before they are
+                if (rarely()) {
+                    continue;
+                }
+                indicesClusterStateService.createShards();
+
                 // check that cluster state has been properly applied to node
                 assertClusterStateMatchesNodeState(localState, indicesClusterStateService);
             }
@@ -174,6 +180,7 @@ public class IndicesClusterStateServiceRandomUpdatesTests extends AbstractIndice
         IndicesClusterStateService indicesCSSvc = createIndicesClusterStateService(node, RecordingIndicesService::new);
         indicesCSSvc.start();
         indicesCSSvc.applyClusterState(new ClusterChangedEvent("cluster state change that adds the index", localState, previousLocalState));
+        indicesCSSvc.createShards();
 
         // create a new empty cluster state with a brand new cluster UUID
         ClusterState newClusterState = ClusterState.builder(initialState)
@@ -196,6 +203,58 @@ public class IndicesClusterStateServiceRandomUpdatesTests extends AbstractIndice
         }
     }
 
+    public void testShardsAreCreatedAsynchronously() {
+        String name = "index_" + randomAlphaOfLength(8).toLowerCase(Locale.ROOT);
+        ClusterState stateWithIndex = ClusterStateCreationUtils.state(name, randomBoolean(), ShardRoutingState.INITIALIZING);
+        ClusterState initialState = ClusterState.builder(stateWithIndex)
+            .metaData(MetaData.builder(stateWithIndex.metaData()).remove(name))
+            .routingTable(RoutingTable.builder().build())
+            .build();
+        ShardRouting primary = stateWithIndex.routingTable().index(name).shard(0).primaryShard();
+        DiscoveryNode node = stateWithIndex.nodes().get(primary.currentNodeId());
+
+        ClusterState localState = adaptClusterStateToLocalNode(stateWithIndex, node);
+        ClusterState previousLocalState = adaptClusterStateToLocalNode(initialState, node);
+        IndicesClusterStateService indicesCSSvc = createIndicesClusterStateService(node, MockIndicesService::new);
+        indicesCSSvc.start();
+        indicesCSSvc.applyClusterState(new ClusterChangedEvent("cluster state change that adds the index", localState, previousLocalState));
+
+        // unless it failed randomly, the index is created by the cluster state applier but its shard is left to the shard creator
+        MockIndicesService indicesService = (MockIndicesService) indicesCSSvc.indicesService;
+        if (indicesCSSvc.failedShardsCache.containsKey(primary.shardId()) == false) {
+            assertNotNull(indicesService.indexService(primary.index()));
+            assertNull(indicesService.getShardOrNull(primary.shardId()));
+        }
+
+        // the shard is either created now or, when random failures are injected, recorded as failed
+        indicesCSSvc.createShards();
+        assertClusterStateMatchesNodeState(localState, indicesCSSvc);
+    }
+
+    public void testShardCreatorSkipsShardsRemovedInTheMeantime() {
+        String name = "index_" + randomAlphaOfLength(8).toLowerCase(Locale.ROOT);
+        ClusterState stateWithIndex = ClusterStateCreationUtils.state(name, randomBoolean(), ShardRoutingState.INITIALIZING);
+        ClusterState initialState = ClusterState.builder(stateWithIndex)
+            .metaData(MetaData.builder(stateWithIndex.metaData()).remove(name))
+            .routingTable(RoutingTable.builder().build())
+            .build();
+        ShardRouting primary = stateWithIndex.routingTable().index(name).shard(0).primaryShard();
+        DiscoveryNode node = stateWithIndex.nodes().get(primary.currentNodeId());
+
+        IndicesClusterStateService indicesCSSvc = createIndicesClusterStateService(node, MockIndicesService::new);
+        indicesCSSvc.start();
+        ClusterState withIndex = adaptClusterStateToLocalNode(stateWithIndex, node);
+        ClusterState withoutIndex = adaptClusterStateToLocalNode(initialState, node);
+        indicesCSSvc.applyClusterState(new ClusterChangedEvent("adds the index", withIndex, withoutIndex));
+        // the index is deleted again before the shard creator got to run for the previous state
+        indicesCSSvc.applyClusterState(new ClusterChangedEvent("removes the index", withoutIndex, withIndex));
+        indicesCSSvc.createShards();
+
+        MockIndicesService indicesService = (MockIndicesService) indicesCSSvc.indicesService;
+        assertNull(indicesService.indexService(primary.index()));
+        assertClusterStateMatchesNodeState(withoutIndex, indicesCSSvc);
+    }
+
     public ClusterState randomInitialClusterState(Map<DiscoveryNode, IndicesClusterStateService> clusterStateServiceMap,
                                                   Supplier<MockIndicesService> indicesServiceSupplier) {
         List<DiscoveryNode> allNodes = new ArrayList<>();
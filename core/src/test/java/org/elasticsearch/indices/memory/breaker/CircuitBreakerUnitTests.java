@@ -20,10 +20,12 @@
 package org.elasticsearch.indices.memory.breaker;
 
 import org.elasticsearch.common.breaker.CircuitBreaker;
+import org.elasticsearch.common.breaker.CircuitBreakingException;
 import org.elasticsearch.common.settings.ClusterSettings;
 import org.elasticsearch.common.settings.Settings;
 import org.elasticsearch.indices.breaker.BreakerSettings;
 import org.elasticsearch.indices.breaker.CircuitBreakerService;
+import org.elasticsearch.indices.breaker.CircuitBreakerStats;
 import org.elasticsearch.indices.breaker.HierarchyCircuitBreakerService;
 import org.elasticsearch.test.ESTestCase;
 
@@ -76,4 +78,25 @@ public class CircuitBreakerUnitTests extends ESTestCase {
         assertThat(breaker, instanceOf(CircuitBreaker.class));
         assertThat(breaker.getName(), is(customName));
     }
+
+    public void testOffHeapBreakerIsNotCountedByTheParent() throws Exception {
+        CircuitBreakerService service = new HierarchyCircuitBreakerService(Settings.builder()
+            .put(HierarchyCircuitBreakerService.TOTAL_CIRCUIT_BREAKER_LIMIT_SETTING.getKey(), "100b")
+            .put(HierarchyCircuitBreakerService.FIELDDATA_OFF_HEAP_CIRCUIT_BREAKER_LIMIT_SETTING.getKey(), "1kb").build(),
+            new ClusterSettings(Settings.EMPTY, ClusterSettings.BUILT_IN_CLUSTER_SETTINGS));
+        CircuitBreaker breaker = service.getBreaker(CircuitBreaker.FIELDDATA_OFF_HEAP);
+        assertThat(breaker.getName(), is(CircuitBreaker.FIELDDATA_OFF_HEAP));
+        assertThat(breaker.getLimit(), equalTo(1024L));
+
+        // off-heap memory is not bounded by the heap
+        breaker.addEstimateBytesAndMaybeBreak(500, "off-heap");
+        service.getBreaker(CircuitBreaker.REQUEST).addEstimateBytesAndMaybeBreak(50, "request");
+        assertThat(service.stats(CircuitBreaker.FIELDDATA_OFF_HEAP).getEstimated(), equalTo(500L));
+        for (CircuitBreakerStats stats : service.stats().getAllStats()) {
+            if (stats.getName().equals(CircuitBreaker.PARENT)) {
+                assertThat(stats.getEstimated(), equalTo(50L));
+            }
+        }
+        expectThrows(CircuitBreakingException.class, () -> breaker.addEstimateBytesAndMaybeBreak(1000, "off-heap"));
+    }
 }
@@ -297,6 +297,7 @@ public class SearchModuleTests extends ModuleTestCase {
             "term",
             "terms",
             "type",
+            "vector_similarity",
             "wildcard",
             "wrapper"
     };
@@ -19,6 +19,7 @@
 
 package org.elasticsearch.search.aggregations.metrics.percentiles.hdr;
 
+import org.apache.lucene.document.BinaryDocValuesField;
 import org.apache.lucene.document.LongPoint;
 import org.apache.lucene.document.NumericDocValuesField;
 import org.apache.lucene.document.SortedNumericDocValuesField;
@@ -29,8 +30,11 @@ import org.apache.lucene.search.FieldValueQuery;
 import org.apache.lucene.search.IndexSearcher;
 import org.apache.lucene.search.MatchAllDocsQuery;
 import org.apache.lucene.search.Query;
+import org.apache.lucene.store.ByteArrayDataOutput;
 import org.apache.lucene.store.Directory;
+import org.apache.lucene.util.BytesRef;
 import org.elasticsearch.common.CheckedConsumer;
+import org.elasticsearch.index.mapper.HistogramFieldMapper;
 import org.elasticsearch.index.mapper.MappedFieldType;
 import org.elasticsearch.index.mapper.NumberFieldMapper;
 import org.elasticsearch.search.aggregations.AggregatorTestCase;
@@ -38,6 +42,9 @@ import org.elasticsearch.search.aggregations.metrics.percentiles.PercentilesAggr
 import org.elasticsearch.search.aggregations.metrics.percentiles.PercentilesMethod;
 
 import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicReference;
 import java.util.function.Consumer;
 
 import static java.util.Arrays.asList;
@@ -112,8 +119,69 @@ public class HDRPercentilesAggregatorTests extends AggregatorTestCase {
         });
     }
 
+    public void testHistogramField() throws IOException {
+        final int numDocs = randomIntBetween(1, 50);
+        final List<double[]> values = new ArrayList<>();
+        final List<int[]> counts = new ArrayList<>();
+        for (int i = 0; i < numDocs; i++) {
+            double[] docValues = new double[randomIntBetween(1, 20)];
+            int[] docCounts = new int[docValues.length];
+            double value = randomIntBetween(0, 10);
+            for (int j = 0; j < docValues.length; j++) {
+                value += randomIntBetween(1, 10);
+                docValues[j] = value;
+                docCounts[j] = randomIntBetween(0, 100);
+            }
+            values.add(docValues);
+            counts.add(docCounts);
+        }
+
+        final AtomicReference<InternalHDRPercentiles> expected = new AtomicReference<>();
+        testCase(new MatchAllDocsQuery(), iw -> {
+            for (int i = 0; i < numDocs; i++) {
+                for (int j = 0; j < values.get(i).length; j++) {
+                    for (int k = 0; k < counts.get(i)[j]; k++) {
+                        iw.addDocument(singleton(new SortedNumericDocValuesField("number", (long) values.get(i)[j])));
+                    }
+                }
+            }
+        }, expected::set);
+
+        MappedFieldType fieldType = new HistogramFieldMapper.HistogramFieldType();
+        fieldType.setName("number");
+        testCase(new MatchAllDocsQuery(), iw -> {
+            for (int i = 0; i < numDocs; i++) {
+                iw.addDocument(singleton(histogramField("number", values.get(i), counts.get(i))));
+            }
+        }, fieldType, hdr -> {
+            assertEquals(expected.get().state.getTotalCount(), hdr.state.getTotalCount());
+            for (double percent : new double[] {1, 25, 50, 75, 99, 100}) {
+                assertEquals(expected.get().percentile(percent), hdr.percentile(percent), 0.0d);
+            }
+        });
+    }
+
+    private static BinaryDocValuesField histogramField(String name, double[] values, int[] counts) throws IOException {
+        byte[] bytes = new byte[values.length * (5 + Long.BYTES)];
+        ByteArrayDataOutput out = new ByteArrayDataOutput(bytes);
+        for (int i = 0; i < values.length; i++) {
+            if (counts[i] > 0) {
+                out.writeVInt(counts[i]);
+                out.writeLong(Double.doubleToRawLongBits(values[i]));
+            }
+        }
+        return new BinaryDocValuesField(name, new BytesRef(bytes, 0, out.getPosition()));
+    }
+
     private void testCase(Query query, CheckedConsumer<RandomIndexWriter, IOException> buildIndex,
                           Consumer<InternalHDRPercentiles> verify) throws IOException {
+        MappedFieldType fieldType = new NumberFieldMapper.NumberFieldType(NumberFieldMapper.NumberType.LONG);
+        fieldType.setName("number");
+        testCase(query, buildIndex, fieldType, verify);
+    }
+
+    private void testCase(Query query, CheckedConsumer<RandomIndexWriter, IOException> buildIndex, MappedFieldType fieldType,
+                          Consumer<InternalHDRPercentiles> verify) throws IOException {
         try (Directory directory = newDirectory()) {
             try (RandomIndexWriter indexWriter = new RandomIndexWriter(random(), directory)) {
                 buildIndex.accept(indexWriter);
@@ -125,8 +193,6 @@ public class HDRPercentilesAggregatorTests extends AggregatorTestCase {
                 PercentilesAggregationBuilder builder =
                         new PercentilesAggregationBuilder("test").field("number").method(PercentilesMethod.HDR);
 
-                MappedFieldType fieldType = new NumberFieldMapper.NumberFieldType(NumberFieldMapper.NumberType.LONG);
-                fieldType.setName("number");
                 try (HDRPercentilesAggregator aggregator = createAggregator(builder, indexSearcher, fieldType)) {
                     aggregator.preCollection();
                     indexSearcher.search(query, aggregator);
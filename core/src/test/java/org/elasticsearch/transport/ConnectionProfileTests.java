@@ -109,6 +109,15 @@ public class ConnectionProfileTests extends ESTestCase {
         assertEquals(2, build.getNumConnectionsPerType(TransportRequestOptions.Type.STATE));
         assertEquals(2, build.getNumConnectionsPerType(TransportRequestOptions.Type.RECOVERY));
         assertEquals(1, build.getNumConnectionsPerType(TransportRequestOptions.Type.BULK));
+
+        assertEquals(EnumSet.of(TransportRequestOptions.Type.BULK), build.getTypesForConnection(0));
+        assertEquals(EnumSet.of(TransportRequestOptions.Type.STATE, TransportRequestOptions.Type.RECOVERY),
+            build.getTypesForConnection(2));
+        assertEquals(EnumSet.of(TransportRequestOptions.Type.PING), build.getTypesForConnection(5));
+        assertEquals(EnumSet.of(TransportRequestOptions.Type.REG), build.getTypesForConnection(9));
+        final ConnectionProfile profile = build;
+        expectThrows(IllegalArgumentException.class, () -> profile.getTypesForConnection(10));
+        expectThrows(IllegalArgumentException.class, () -> profile.getTypesForConnection(-1));
     }
 
     public void testNoChannels() {
@@ -71,9 +71,11 @@ import java.io.IOException;
 import java.net.InetSocketAddress;
 import java.util.ArrayList;
 import java.util.Collections;
+import java.util.EnumSet;
 import java.util.Iterator;
 import java.util.List;
 import java.util.Map;
+import java.util.Set;
 import java.util.concurrent.ExecutionException;
 import java.util.concurrent.ThreadFactory;
 import java.util.concurrent.TimeUnit;
@@ -88,7 +90,8 @@ import static org.elasticsearch.common.util.concurrent.EsExecutors.daemonThreadF
  * There are 4 types of connections per node, low/med/high/ping. Low if for batch oriented APIs (like recovery or
  * batch) with high payload that will cause regular request. (like search or single index) to take
  * longer. Med is for the typical search / single doc index. And High for things like cluster state. Ping is reserved for
- * sending out ping requests to other nodes.
+ * sending out ping requests to other nodes. Outgoing high and ping connections are served by a dedicated event loop, see
+ * {@link #PRIORITY_WORKER_COUNT}.
  */
 public class Netty4Transport extends TcpTransport<Channel> {
 
@@ -119,16 +122,33 @@ public class Netty4Transport extends TcpTransport<Channel> {
     public static final Setting<Integer> NETTY_BOSS_COUNT =
         intSetting("transport.netty.boss_count", 1, 1, Property.NodeScope, Property.Shared);
 
+    /**
+     * The number of threads of the event loop that serves the outgoing connections that are dedicated to
+     * {@link TransportRequestOptions.Type#STATE} and {@link TransportRequestOptions.Type#PING} requests. These connections get their own
+     * event loop so that publishing the cluster state and fault detection pings are never delayed by large bulk or recovery writes
+     * that happen to be handled by the same worker thread. Set to {@code 0} to serve all connections by the regular workers.
+     */
+    public static final Setting<Integer> PRIORITY_WORKER_COUNT =
+        intSetting("transport.netty.priority_worker_count", 1, 0, Property.NodeScope);
+
+    static final String TRANSPORT_CLIENT_PRIORITY_THREAD_NAME_PREFIX = "transport_client_priority";
+
+    private static final Set<TransportRequestOptions.Type> PRIORITY_TYPES =
+        Collections.unmodifiableSet(EnumSet.of(TransportRequestOptions.Type.STATE, TransportRequestOptions.Type.PING));
+
 
     protected final ByteSizeValue maxCumulationBufferCapacity;
     protected final int maxCompositeBufferComponents;
     protected final RecvByteBufAllocator recvByteBufAllocator;
     protected final int workerCount;
+    protected final int priorityWorkerCount;
     protected final ByteSizeValue receivePredictorMin;
     protected final ByteSizeValue receivePredictorMax;
     // package private for testing
     volatile Netty4OpenChannelsHandler serverOpenChannels;
     protected volatile Bootstrap bootstrap;
+    // null if connections for cluster state and pings are served by the regular workers
+    protected volatile Bootstrap priorityBootstrap;
     protected final Map<String, ServerBootstrap> serverBootstraps = newConcurrentMap();
 
     public Netty4Transport(Settings settings, ThreadPool threadPool, NetworkService networkService, BigArrays bigArrays,
@@ -136,6 +156,7 @@ public class Netty4Transport extends TcpTransport<Channel> {
         super("netty", settings, threadPool, bigArrays, circuitBreakerService, namedWriteableRegistry, networkService);
         Netty4Utils.setAvailableProcessors(EsExecutors.PROCESSORS_SETTING.get(settings));
         this.workerCount = WORKER_COUNT.get(settings);
+        this.priorityWorkerCount = PRIORITY_WORKER_COUNT.get(settings);
         this.maxCumulationBufferCapacity = NETTY_MAX_CUMULATION_BUFFER_CAPACITY.get(settings);
         this.maxCompositeBufferComponents = NETTY_MAX_COMPOSITE_BUFFER_COMPONENTS.get(settings);
 
@@ -159,6 +180,10 @@ public class Netty4Transport extends TcpTransport<Channel> {
         boolean success = false;
         try {
             bootstrap = createBootstrap();
+            if (priorityWorkerCount > 0) {
+                final ThreadFactory priorityFactory = daemonThreadFactory(settings, TRANSPORT_CLIENT_PRIORITY_THREAD_NAME_PREFIX);
+                priorityBootstrap = bootstrap.clone(new NioEventLoopGroup(priorityWorkerCount, priorityFactory));
+            }
             if (NetworkService.NETWORK_SERVER.get(settings)) {
                 final Netty4OpenChannelsHandler openChannels = new Netty4OpenChannelsHandler(logger);
                 this.serverOpenChannels = openChannels;
@@ -325,10 +350,15 @@ public class Netty4Transport extends TcpTransport<Channel> {
         try {
             final TimeValue connectTimeout;
             final Bootstrap bootstrap;
+            Bootstrap priorityBootstrap = this.priorityBootstrap;
             final TimeValue defaultConnectTimeout = defaultConnectionProfile.getConnectTimeout();
             if (profile.getConnectTimeout() != null && profile.getConnectTimeout().equals(defaultConnectTimeout) == false) {
                 bootstrap = this.bootstrap.clone(this.bootstrap.config().group());
                 bootstrap.option(ChannelOption.CONNECT_TIMEOUT_MILLIS, Math.toIntExact(profile.getConnectTimeout().millis()));
+                if (priorityBootstrap != null) {
+                    priorityBootstrap = priorityBootstrap.clone(priorityBootstrap.config().group());
+                    priorityBootstrap.option(ChannelOption.CONNECT_TIMEOUT_MILLIS, Math.toIntExact(profile.getConnectTimeout().millis()));
+                }
                 connectTimeout = profile.getConnectTimeout();
             } else {
                 connectTimeout = defaultConnectTimeout;
@@ -337,7 +367,11 @@ public class Netty4Transport extends TcpTransport<Channel> {
             final ArrayList<ChannelFuture> connections = new ArrayList<>(channels.length);
             final InetSocketAddress address = node.getAddress().address();
             for (int i = 0; i < channels.length; i++) {
-                connections.add(bootstrap.connect(address));
+                if (priorityBootstrap != null && PRIORITY_TYPES.containsAll(profile.getTypesForConnection(i))) {
+                    connections.add(priorityBootstrap.connect(address));
+                } else {
+                    connections.add(bootstrap.connect(address));
+                }
             }
             final Iterator<ChannelFuture> iterator = connections.iterator();
             try {
@@ -456,6 +490,10 @@ public class Netty4Transport extends TcpTransport<Channel> {
             }
             serverBootstraps.clear();
 
+            if (priorityBootstrap != null) {
+                priorityBootstrap.config().group().shutdownGracefully(0, 5, TimeUnit.SECONDS).awaitUninterruptibly();
+                priorityBootstrap = null;
+            }
             if (bootstrap != null) {
                 bootstrap.config().group().shutdownGracefully(0, 5, TimeUnit.SECONDS).awaitUninterruptibly();
                 bootstrap = null;
@@ -29,6 +29,7 @@ import org.elasticsearch.common.component.Lifecycle;
 import org.elasticsearch.common.component.LifecycleListener;
 import org.elasticsearch.common.io.stream.BytesStreamOutput;
 import org.elasticsearch.common.io.stream.NamedWriteableRegistry;
+import org.elasticsearch.common.metrics.HistogramMetric;
 import org.elasticsearch.common.network.NetworkService;
 import org.elasticsearch.common.settings.ClusterSettings;
 import org.elasticsearch.common.settings.Setting;
@@ -577,6 +578,11 @@ public final class MockTransportService extends TransportService {
             return transport.serverOpen();
         }
 
+        @Override
+        public Map<TransportRequestOptions.Type, HistogramMetric.Snapshot> requestWriteLatencies() {
+            return transport.requestWriteLatencies();
+        }
+
         @Override
         public List<String> getLocalAddresses() {
             return transport.getLocalAddresses();
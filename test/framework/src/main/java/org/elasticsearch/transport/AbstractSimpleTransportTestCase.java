@@ -34,6 +34,7 @@ import org.elasticsearch.common.io.stream.NamedWriteableRegistry;
 import org.elasticsearch.common.io.stream.StreamInput;
 import org.elasticsearch.common.io.stream.StreamOutput;
 import org.elasticsearch.common.network.NetworkService;
+import org.elasticsearch.common.metrics.HistogramMetric;
 import org.elasticsearch.common.settings.ClusterSettings;
 import org.elasticsearch.common.settings.Settings;
 import org.elasticsearch.common.transport.TransportAddress;
@@ -80,6 +81,9 @@ import static java.util.Collections.emptyMap;
 import static java.util.Collections.emptySet;
 import static org.hamcrest.Matchers.empty;
 import static org.hamcrest.Matchers.equalTo;
+import static org.hamcrest.Matchers.greaterThan;
+import static org.hamcrest.Matchers.greaterThanOrEqualTo;
+import static org.hamcrest.Matchers.hasKey;
 import static org.hamcrest.Matchers.instanceOf;
 import static org.hamcrest.Matchers.notNullValue;
 import static org.hamcrest.Matchers.startsWith;
@@ -265,6 +269,93 @@ public abstract class AbstractSimpleTransportTestCase extends ESTestCase {
         }
     }
 
+    public void testActionStats() throws Exception {
+        serviceA.registerRequestHandler("sayHello", StringMessageRequest::new, ThreadPool.Names.GENERIC,
+            (request, channel) -> {
+                if (request.message.startsWith("fail")) {
+                    channel.sendResponse(new ElasticsearchException("failed on purpose"));
+                } else {
+                    channel.sendResponse(new StringMessageResponse("hello " + request.message));
+                }
+            });
+
+        serviceB.submitRequest(nodeA, "sayHello", new StringMessageRequest("moshe"),
+            new FutureTransportResponseHandler<StringMessageResponse>() {
+                @Override
+                public StringMessageResponse newInstance() {
+                    return new StringMessageResponse();
+                }
+            }).txGet();
+        // stats are disabled by default
+        assertThat(serviceA.stats().getActionStats(), empty());
+
+        clusterSettings.applySettings(Settings.builder().put(TransportService.ACTION_STATS_ENABLED_SETTING.getKey(), true).build());
+        final int requests = randomIntBetween(1, 10);
+        int failures = 0;
+        for (int i = 0; i < requests; i++) {
+            final boolean fail = randomBoolean();
+            TransportFuture<StringMessageResponse> future = serviceB.submitRequest(nodeA, "sayHello",
+                new StringMessageRequest((fail ? "fail" : "moshe") + i), new FutureTransportResponseHandler<StringMessageResponse>() {
+                    @Override
+                    public StringMessageResponse newInstance() {
+                        return new StringMessageResponse();
+                    }
+                });
+            if (fail) {
+                failures++;
+                expectThrows(RemoteTransportException.class, future::txGet);
+            } else {
+                assertThat(future.txGet().message, equalTo("hello moshe" + i));
+            }
+        }
+
+        final List<TransportActionStats> actionStats = serviceA.stats().getActionStats();
+        assertThat(actionStats.size(), equalTo(1));
+        final TransportActionStats stats = actionStats.get(0);
+        assertThat(stats.getAction(), equalTo("sayHello"));
+        assertThat(stats.getCount(), equalTo((long) requests));
+        assertThat(stats.getFailures(), equalTo((long) failures));
+        assertThat(stats.getRequestSizes().getCount(), equalTo((long) requests));
+        assertThat(stats.getRequestSizes().getMax(), greaterThan((long) TcpHeader.HEADER_SIZE));
+        assertThat(stats.getResponseSizes().getCount(), equalTo((long) requests));
+        assertThat(stats.getResponseSizes().getMax(), greaterThan((long) TcpHeader.HEADER_SIZE));
+        // the sending node doesn't handle any requests
+        assertThat(serviceB.stats().getActionStats(), empty());
+
+        clusterSettings.applySettings(Settings.builder().put(TransportService.ACTION_STATS_ENABLED_SETTING.getKey(), false).build());
+        serviceB.submitRequest(nodeA, "sayHello", new StringMessageRequest("moshe"),
+            new FutureTransportResponseHandler<StringMessageResponse>() {
+                @Override
+                public StringMessageResponse newInstance() {
+                    return new StringMessageResponse();
+                }
+            }).txGet();
+        assertThat(serviceA.stats().getActionStats().get(0).getCount(), equalTo((long) requests));
+    }
+
+    public void testRequestWriteLatencies() throws Exception {
+        serviceA.registerRequestHandler("sayHello", StringMessageRequest::new, ThreadPool.Names.GENERIC,
+            (request, channel) -> channel.sendResponse(new StringMessageResponse("hello " + request.message)));
+        final TransportRequestOptions.Type type = randomFrom(TransportRequestOptions.Type.values());
+        final int requests = randomIntBetween(1, 10);
+        for (int i = 0; i < requests; i++) {
+            serviceB.submitRequest(nodeA, "sayHello", new StringMessageRequest("moshe"),
+                TransportRequestOptions.builder().withType(type).build(), new FutureTransportResponseHandler<StringMessageResponse>() {
+                    @Override
+                    public StringMessageResponse newInstance() {
+                        return new StringMessageResponse();
+                    }
+                }).txGet();
+        }
+        // the write listener might be notified after the response was received
+        assertBusy(() -> {
+            final Map<TransportRequestOptions.Type, HistogramMetric.Snapshot> latencies = serviceB.stats().getRequestWriteLatencies();
+            assertThat(latencies, hasKey(type));
+            // connecting to a node sends a handshake request over a regular connection
+            assertThat(latencies.get(type).getCount(), greaterThanOrEqualTo((long) requests));
+        });
+    }
+
     public void testThreadContext() throws ExecutionException, InterruptedException {
 
         serviceA.registerRequestHandler("ping_pong", StringMessageRequest::new, ThreadPool.Names.GENERIC, (request, channel) -> {